@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cutlass.line.AbstractLineSender;
+import io.questdb.cutlass.line.LineTcpAsyncSender;
+import io.questdb.cutlass.line.LineTcpSender;
+import io.questdb.cutlass.line.LineTcpSenderPool;
+import io.questdb.network.Net;
+import io.questdb.std.Rnd;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares row throughput of producer threads each owning a {@link LineTcpSender}, as in
+ * {@link LineTCPSenderMain}, with producer threads sharing {@link LineTcpSenderPool}.
+ * Requires QuestDB listening for ILP on 127.0.0.1:9009.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class LineTcpSenderPoolBenchmark {
+    private static final int BUFFER_CAPACITY = 64 * 1024;
+    private static final int CONNECTION_COUNT = 4;
+    private static final int HOST = Net.parseIPv4("127.0.0.1");
+    private static final int PORT = 9009;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LineTcpSenderPoolBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Benchmark
+    public void testAsyncSender(AsyncSenderState state) {
+        addRow(state.sender, state.rnd, state.clock);
+    }
+
+    @Benchmark
+    public void testSyncSender(SyncSenderState state) {
+        addRow(state.sender, state.rnd, state.clock);
+    }
+
+    private static void addRow(AbstractLineSender sender, Rnd rnd, MicrosecondClock clock) {
+        sender.metric("weather")
+                .tag("location", "london")
+                .tag("by", "blah")
+                .field("temp", rnd.nextPositiveLong())
+                .field("ok", rnd.nextPositiveInt());
+        sender.$(clock.getTicks() * 1000);
+    }
+
+    @State(Scope.Thread)
+    public static class AsyncSenderState {
+        private final MicrosecondClock clock = MicrosecondClockImpl.INSTANCE;
+        private final Rnd rnd = new Rnd();
+        private LineTcpAsyncSender sender;
+
+        @Setup(Level.Trial)
+        public void setUp(PoolState pool) {
+            sender = pool.pool.newSender();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            sender.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PoolState {
+        private LineTcpSenderPool pool;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = LineTcpSenderPool.newPool(HOST, PORT, CONNECTION_COUNT, BUFFER_CAPACITY);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SyncSenderState {
+        private final MicrosecondClock clock = MicrosecondClockImpl.INSTANCE;
+        private final Rnd rnd = new Rnd();
+        private LineTcpSender sender;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            sender = LineTcpSender.newSender(HOST, PORT, BUFFER_CAPACITY);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            sender.close();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import io.questdb.cairo.security.CairoSecurityContextFactory;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreakerConfiguration;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
@@ -137,6 +138,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean isReadOnlyInstance;
     private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new PropJsonQueryProcessorConfiguration();
     private final int latestByQueueCapacity;
+    private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new PropLineHttpProcessorConfiguration();
     private final boolean lineTcpEnabled;
     private final WorkerPoolConfiguration lineTcpIOWorkerPoolConfiguration = new PropLineTcpIOWorkerPoolConfiguration();
     private final LineTcpReceiverConfiguration lineTcpReceiverConfiguration = new PropLineTcpReceiverConfiguration();
@@ -146,6 +148,11 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int lineUdpCommitRate;
     private final boolean lineUdpEnabled;
     private final int lineUdpGroupIPv4Address;
+    private final int[] lineUdpIOWorkerAffinity;
+    private final int lineUdpIOWorkerCount;
+    private final WorkerPoolConfiguration lineUdpIOWorkerPoolConfiguration = new PropLineUdpIOWorkerPoolConfiguration();
+    private final long lineUdpIOWorkerSleepThreshold;
+    private final long lineUdpIOWorkerYieldThreshold;
     private final int lineUdpMsgBufferSize;
     private final int lineUdpMsgCount;
     private final boolean lineUdpOwnThread;
@@ -252,18 +259,23 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlMaxSymbolNotEqualsCount;
     private final int sqlModelPoolCapacity;
     private final int sqlPageFrameMaxRows;
+    private final long sqlParallelAsOfJoinLookback;
     private final int sqlPageFrameMinRows;
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
+    private final boolean sqlParallelGroupByEnabled;
     private final int sqlRenameTableModelPoolCapacity;
     private final int sqlSmallMapKeyCapacity;
     private final int sqlSmallMapPageSize;
+    private final long sqlQueryMemoryBudget;
     private final int sqlSortKeyMaxPages;
     private final long sqlSortKeyPageSize;
     private final int sqlSortLightValueMaxPages;
     private final long sqlSortLightValuePageSize;
     private final int sqlSortValueMaxPages;
     private final int sqlSortValuePageSize;
+    private final String sqlSpillRoot;
+    private final long sqlSpillThreshold;
     private final int sqlStrFunctionBufferMaxSize;
     private final int sqlTxnScoreboardEntryCount;
     private final int sqlWithClauseModelPoolCapacity;
@@ -293,6 +305,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int walRecreateDistressedSequencerAttempts;
     private final long walSegmentRolloverRowCount;
     private final boolean walSupported;
+    private final boolean zoneMapsEnabled;
+    private final boolean partitionCompressionEnabled;
+    private final long partitionCompressionInterval;
+    private final long partitionCompressionMinAge;
     private final int walTxnNotificationQueueCapacity;
     private final long workStealTimeoutNanos;
     private final long writerAsyncCommandBusyWaitTimeout;
@@ -334,6 +350,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int httpNetConnectionRcvBuf;
     private int httpNetConnectionSndBuf;
     private long httpNetConnectionTimeout;
+    private int httpNetDispatcherCount;
+    private boolean httpNetIOURingEnabled;
     private boolean httpReadOnlySecurityContext;
     private boolean httpServerKeepAlive;
     private String httpVersion;
@@ -352,6 +370,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int jsonQueryDoubleScale;
     private int jsonQueryFloatScale;
     private String keepAliveHeader;
+    private boolean lineHttpEnabled;
+    private long lineHttpMaxWalLag;
+    private int lineHttpRetryAfter;
     private String lineTcpAuthDbPath;
     private long lineTcpCommitIntervalDefault;
     private double lineTcpCommitIntervalFraction;
@@ -374,6 +395,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpNetConnectionQueueTimeout;
     private int lineTcpNetConnectionRcvBuf;
     private long lineTcpNetConnectionTimeout;
+    private int lineTcpNetDispatcherCount;
+    private boolean lineTcpNetIOURingEnabled;
     private LineProtoTimestampAdapter lineTcpTimestampAdapter;
     private int lineTcpWriterQueueCapacity;
     private int[] lineTcpWriterWorkerAffinity;
@@ -414,6 +437,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long pgNetConnectionQueueTimeout;
     private int pgNetConnectionRcvBuf;
     private int pgNetConnectionSndBuf;
+    private int pgNetDispatcherCount;
+    private boolean pgNetIOURingEnabled;
     private long pgNetIdleConnectionTimeout;
     private String pgPassword;
     private int pgPendingWritersCacheCapacity;
@@ -443,6 +468,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private boolean stringAsTagSupported;
     private boolean stringToCharCastAllowed;
     private boolean symbolAsFieldSupported;
+    private int symbolCacheMaxSize;
     private long symbolCacheWaitUsBeforeReload;
     private int textAnalysisMaxLines;
     private int textLexerStringPoolCapacity;
@@ -473,6 +499,10 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.walTxnNotificationQueueCapacity = getQueueCapacity(properties, env, PropertyKey.CAIRO_WAL_TXN_NOTIFICATION_QUEUE_CAPACITY, 4096);
         this.walRecreateDistressedSequencerAttempts = getInt(properties, env, PropertyKey.CAIRO_WAL_RECREATE_DISTRESSED_SEQUENCER_ATTEMPTS, 3);
         this.walSupported = getBoolean(properties, env, PropertyKey.CAIRO_WAL_SUPPORTED, true);
+        this.zoneMapsEnabled = getBoolean(properties, env, PropertyKey.CAIRO_ZONE_MAPS_ENABLED, false);
+        this.partitionCompressionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_ENABLED, false);
+        this.partitionCompressionMinAge = getLong(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_MIN_AGE, 604_800_000);
+        this.partitionCompressionInterval = getLong(properties, env, PropertyKey.CAIRO_PARTITION_COMPRESSION_INTERVAL, 60_000);
         this.walSegmentRolloverRowCount = getLong(properties, env, PropertyKey.CAIRO_WAL_SEGMENT_ROLLOVER_ROW_COUNT, 200_000);
         this.walSquashUncommittedRowsMultiplier = getDouble(properties, env, PropertyKey.CAIRO_WAL_SQUASH_UNCOMMITTED_ROWS_MULTIPLIER, 20.0);
         this.walApplyTableTimeQuota = getLong(properties, env, PropertyKey.CAIRO_WAL_APPLY_TABLE_TIME_QUOTA, 1000);
@@ -616,6 +646,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.httpNetConnectionLimit = getInt(properties, env, PropertyKey.HTTP_NET_ACTIVE_CONNECTION_LIMIT, 64);
                 this.httpNetConnectionLimit = getInt(properties, env, PropertyKey.HTTP_NET_CONNECTION_LIMIT, this.httpNetConnectionLimit);
                 this.httpNetConnectionHint = getBoolean(properties, env, PropertyKey.HTTP_NET_CONNECTION_HINT, false);
+                this.httpNetIOURingEnabled = getBoolean(properties, env, PropertyKey.HTTP_NET_IOURING_ENABLED, false);
+                this.httpNetDispatcherCount = getInt(properties, env, PropertyKey.HTTP_NET_DISPATCHER_COUNT, 1);
                 // deprecated
                 this.httpNetConnectionTimeout = getLong(properties, env, PropertyKey.HTTP_NET_IDLE_CONNECTION_TIMEOUT, 5 * 60 * 1000L);
                 this.httpNetConnectionTimeout = getLong(properties, env, PropertyKey.HTTP_NET_CONNECTION_TIMEOUT, this.httpNetConnectionTimeout);
@@ -652,6 +684,9 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.httpReadOnlySecurityContext = getBoolean(properties, env, PropertyKey.HTTP_SECURITY_READONLY, false);
                 this.maxHttpQueryResponseRowLimit = getLong(properties, env, PropertyKey.HTTP_SECURITY_MAX_RESPONSE_ROWS, Long.MAX_VALUE);
                 this.interruptOnClosedConnection = getBoolean(properties, env, PropertyKey.HTTP_SECURITY_INTERRUPT_ON_CLOSED_CONNECTION, true);
+                this.lineHttpEnabled = getBoolean(properties, env, PropertyKey.LINE_HTTP_ENABLED, true);
+                this.lineHttpMaxWalLag = getLong(properties, env, PropertyKey.LINE_HTTP_MAX_WAL_LAG, 1000);
+                this.lineHttpRetryAfter = getInt(properties, env, PropertyKey.LINE_HTTP_RETRY_AFTER, 1);
 
                 String httpBindTo = getString(properties, env, PropertyKey.HTTP_BIND_TO, "0.0.0.0:9000");
                 parseBindTo(properties, env, PropertyKey.HTTP_NET_BIND_TO, httpBindTo, (a, p) -> {
@@ -680,6 +715,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 pgNetConnectionLimit = getInt(properties, env, PropertyKey.PG_NET_ACTIVE_CONNECTION_LIMIT, 64);
                 pgNetConnectionLimit = getInt(properties, env, PropertyKey.PG_NET_CONNECTION_LIMIT, pgNetConnectionLimit);
                 pgNetConnectionHint = getBoolean(properties, env, PropertyKey.PG_NET_CONNECTION_HINT, false);
+                pgNetIOURingEnabled = getBoolean(properties, env, PropertyKey.PG_NET_IOURING_ENABLED, false);
+                pgNetDispatcherCount = getInt(properties, env, PropertyKey.PG_NET_DISPATCHER_COUNT, 1);
                 parseBindTo(properties, env, PropertyKey.PG_NET_BIND_TO, "0.0.0.0:8812", (a, p) -> {
                     pgNetBindIPv4Address = a;
                     pgNetBindPort = p;
@@ -798,6 +835,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
             this.sqlSortValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_PAGE_SIZE, 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlSpillRoot = getString(properties, env, PropertyKey.CAIRO_SQL_SPILL_ROOT, tmpRoot);
+            this.sqlSpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SPILL_THRESHOLD, 0);
+            this.sqlQueryMemoryBudget = getLongSize(properties, env, PropertyKey.CAIRO_SQL_QUERY_MEMORY_BUDGET, 0);
             this.workStealTimeoutNanos = getLong(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
@@ -822,6 +862,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, true);
             this.sqlParallelFilterPreTouchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED, true);
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, false);
+            this.sqlParallelAsOfJoinLookback = getLong(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_ASOF_JOIN_LOOKBACK, 0);
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 4);
             this.cairoPageFrameReduceTaskPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY, 4);
 
@@ -958,6 +1000,10 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.lineUdpUnicast = getBoolean(properties, env, PropertyKey.LINE_UDP_UNICAST, false);
             this.lineUdpCommitMode = getCommitMode(properties, env, PropertyKey.LINE_UDP_COMMIT_MODE);
             this.lineUdpTimestampAdapter = getLineTimestampAdaptor(properties, env, PropertyKey.LINE_UDP_TIMESTAMP);
+            this.lineUdpIOWorkerCount = getInt(properties, env, PropertyKey.LINE_UDP_IO_WORKER_COUNT, 0);
+            this.lineUdpIOWorkerAffinity = getAffinity(properties, env, PropertyKey.LINE_UDP_IO_WORKER_AFFINITY, lineUdpIOWorkerCount);
+            this.lineUdpIOWorkerYieldThreshold = getLong(properties, env, PropertyKey.LINE_UDP_IO_WORKER_YIELD_THRESHOLD, 10);
+            this.lineUdpIOWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_UDP_IO_WORKER_SLEEP_THRESHOLD, 10_000);
             String defaultUdpPartitionByProperty = getString(properties, env, PropertyKey.LINE_DEFAULT_PARTITION_BY, "DAY");
             this.lineUdpDefaultPartitionBy = PartitionBy.fromString(defaultUdpPartitionByProperty);
             if (this.lineUdpDefaultPartitionBy == -1) {
@@ -971,6 +1017,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 lineTcpNetConnectionLimit = getInt(properties, env, PropertyKey.LINE_TCP_NET_ACTIVE_CONNECTION_LIMIT, 256);
                 lineTcpNetConnectionLimit = getInt(properties, env, PropertyKey.LINE_TCP_NET_CONNECTION_LIMIT, lineTcpNetConnectionLimit);
                 lineTcpNetConnectionHint = getBoolean(properties, env, PropertyKey.LINE_TCP_NET_CONNECTION_HINT, false);
+                lineTcpNetIOURingEnabled = getBoolean(properties, env, PropertyKey.LINE_TCP_NET_IOURING_ENABLED, false);
+                lineTcpNetDispatcherCount = getInt(properties, env, PropertyKey.LINE_TCP_NET_DISPATCHER_COUNT, 1);
                 parseBindTo(properties, env, PropertyKey.LINE_TCP_NET_BIND_TO, "0.0.0.0:9009", (a, p) -> {
                     lineTcpNetBindIPv4Address = a;
                     lineTcpNetBindPort = p;
@@ -1003,6 +1051,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.lineTcpWriterWorkerPoolHaltOnError = getBoolean(properties, env, PropertyKey.LINE_TCP_WRITER_HALT_ON_ERROR, false);
                 this.lineTcpWriterWorkerYieldThreshold = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_WORKER_YIELD_THRESHOLD, 10);
                 this.lineTcpWriterWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_WORKER_SLEEP_THRESHOLD, 10_000);
+                this.symbolCacheMaxSize = getInt(properties, env, PropertyKey.LINE_TCP_SYMBOL_CACHE_MAX_SIZE, 1_048_576);
                 this.symbolCacheWaitUsBeforeReload = getLong(properties, env, PropertyKey.LINE_TCP_SYMBOL_CACHE_WAIT_US_BEFORE_RELOAD, 500_000);
 
                 int ilpTcpWorkerCount;
@@ -1892,6 +1941,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexThreshold;
         }
 
+        @Override
+        public long getPartitionCompressionInterval() {
+            return partitionCompressionInterval;
+        }
+
+        @Override
+        public long getPartitionCompressionMinAge() {
+            return partitionCompressionMinAge;
+        }
+
         @Override
         public int getPartitionPurgeListCapacity() {
             return o3PartitionPurgeListCapacity;
@@ -2172,11 +2231,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlPageFrameMaxRows;
         }
 
+        @Override
+        public long getSqlParallelAsOfJoinLookback() {
+            return sqlParallelAsOfJoinLookback;
+        }
+
         @Override
         public int getSqlPageFrameMinRows() {
             return sqlPageFrameMinRows;
         }
 
+        @Override
+        public long getSqlQueryMemoryBudget() {
+            return sqlQueryMemoryBudget;
+        }
+
         @Override
         public int getSqlSmallMapKeyCapacity() {
             return sqlSmallMapKeyCapacity;
@@ -2217,6 +2286,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public CharSequence getSqlSpillRoot() {
+            return sqlSpillRoot;
+        }
+
+        @Override
+        public long getSqlSpillThreshold() {
+            return sqlSpillThreshold;
+        }
+
         @Override
         public int getStrFunctionMaxBufferLength() {
             return sqlStrFunctionBufferMaxSize;
@@ -2356,6 +2435,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isPartitionCompressionEnabled() {
+            return partitionCompressionEnabled;
+        }
+
         @Override
         public boolean isReadOnlyInstance() {
             return isReadOnlyInstance;
@@ -2381,6 +2465,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelFilterPreTouchEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
         @Override
         public boolean isTableTypeConversionEnabled() {
             return tableTypeConversionEnabled;
@@ -2390,6 +2479,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walSupported;
         }
 
+        @Override
+        public boolean isZoneMapsEnabled() {
+            return zoneMapsEnabled;
+        }
+
         @Override
         public boolean mangleTableDirNames() {
             return false;
@@ -2485,6 +2579,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return MillisecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public int getDispatcherCount() {
+            return httpNetDispatcherCount;
+        }
+
         @Override
         public String getDispatcherLogName() {
             return "http-server";
@@ -2554,6 +2653,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return httpNetConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return httpNetIOURingEnabled;
+        }
     }
 
     private class PropHttpMinIODispatcherConfiguration implements IODispatcherConfiguration {
@@ -2718,6 +2822,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return jsonQueryProcessorConfiguration;
         }
 
+        @Override
+        public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+            return lineHttpProcessorConfiguration;
+        }
+
         @Override
         public String getPoolName() {
             return "http";
@@ -2822,6 +2931,30 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private class PropLineHttpProcessorConfiguration implements LineHttpProcessorConfiguration {
+
+        @Override
+        public LineTcpReceiverConfiguration getLineTcpReceiverConfiguration() {
+            return lineTcpReceiverConfiguration;
+        }
+
+        @Override
+        public long getMaxWalLag() {
+            return lineHttpMaxWalLag;
+        }
+
+        @Override
+        public int getRetryAfterSeconds() {
+            return lineHttpRetryAfter;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            // line protocol settings are shared with, and only loaded for, the TCP receiver
+            return lineHttpEnabled && lineTcpEnabled;
+        }
+    }
+
     private class PropLineTcpIOWorkerPoolConfiguration implements WorkerPoolConfiguration {
         @Override
         public String getPoolName() {
@@ -2964,6 +3097,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return NetworkFacadeImpl.INSTANCE;
         }
 
+        @Override
+        public int getSymbolCacheMaxSize() {
+            return symbolCacheMaxSize;
+        }
+
         @Override
         public long getSymbolCacheWaitUsBeforeReload() {
             return symbolCacheWaitUsBeforeReload;
@@ -3027,6 +3165,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return MillisecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public int getDispatcherCount() {
+            return lineTcpNetDispatcherCount;
+        }
+
         @Override
         public String getDispatcherLogName() {
             return "tcp-line-server";
@@ -3095,6 +3238,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return lineTcpNetConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return lineTcpNetIOURingEnabled;
+        }
     }
 
     private class PropLineTcpWriterWorkerPoolConfiguration implements WorkerPoolConfiguration {
@@ -3129,6 +3277,33 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private class PropLineUdpIOWorkerPoolConfiguration implements WorkerPoolConfiguration {
+        @Override
+        public String getPoolName() {
+            return "ilpudp";
+        }
+
+        @Override
+        public long getSleepThreshold() {
+            return lineUdpIOWorkerSleepThreshold;
+        }
+
+        @Override
+        public int[] getWorkerAffinity() {
+            return lineUdpIOWorkerAffinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return lineUdpIOWorkerCount;
+        }
+
+        @Override
+        public long getYieldThreshold() {
+            return lineUdpIOWorkerYieldThreshold;
+        }
+    }
+
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
         @Override
         public boolean getAutoCreateNewColumns() {
@@ -3175,6 +3350,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineUdpGroupIPv4Address;
         }
 
+        @Override
+        public WorkerPoolConfiguration getIOWorkerPoolConfiguration() {
+            return lineUdpIOWorkerPoolConfiguration;
+        }
+
         @Override
         public int getMaxFileNameLength() {
             return maxFileNameLength;
@@ -3453,6 +3633,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return MillisecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public int getDispatcherCount() {
+            return pgNetDispatcherCount;
+        }
+
         @Override
         public String getDispatcherLogName() {
             return "pg-server";
@@ -3522,6 +3707,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getTimeout() {
             return pgNetIdleConnectionTimeout;
         }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return pgNetIOURingEnabled;
+        }
     }
 
     private class PropSqlExecutionCircuitBreakerConfiguration implements SqlExecutionCircuitBreakerConfiguration {
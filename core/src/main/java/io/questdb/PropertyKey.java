@@ -84,6 +84,9 @@ public enum PropertyKey {
     CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES("cairo.sql.hash.join.light.value.max.pages"),
     CAIRO_SQL_SORT_VALUE_PAGE_SIZE("cairo.sql.sort.value.page.size"),
     CAIRO_SQL_SORT_VALUE_MAX_PAGES("cairo.sql.sort.value.max.pages"),
+    CAIRO_SQL_QUERY_MEMORY_BUDGET("cairo.sql.query.memory.budget"),
+    CAIRO_SQL_SPILL_ROOT("cairo.sql.spill.root"),
+    CAIRO_SQL_SPILL_THRESHOLD("cairo.sql.spill.threshold"),
     CAIRO_WORK_STEAL_TIMEOUT_NANOS("cairo.work.steal.timeout.nanos"),
     CAIRO_PARALLEL_INDEXING_ENABLED("cairo.parallel.indexing.enabled"),
     CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY("cairo.page.frame.reduce.queue.capacity"),
@@ -91,6 +94,8 @@ public enum PropertyKey {
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED("cairo.sql.parallel.filter.pretouch.enabled"),
+    CAIRO_SQL_PARALLEL_GROUPBY_ENABLED("cairo.sql.parallel.groupby.enabled"),
+    CAIRO_SQL_PARALLEL_ASOF_JOIN_LOOKBACK("cairo.sql.parallel.asof.join.lookback"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
     CAIRO_SQL_JOIN_METADATA_PAGE_SIZE("cairo.sql.join.metadata.page.size"),
@@ -210,6 +215,8 @@ public enum PropertyKey {
     HTTP_VERSION("http.version"),
     HTTP_STATIC_PUBLIC_DIRECTORY("http.static.public.directory"),
     HTTP_NET_CONNECTION_HINT("http.net.connection.hint"),
+    HTTP_NET_IOURING_ENABLED("http.net.iouring.enabled"),
+    HTTP_NET_DISPATCHER_COUNT("http.net.dispatcher.count"),
     HTTP_NET_IDLE_CONNECTION_TIMEOUT("http.net.idle.connection.timeout"),
     HTTP_NET_CONNECTION_TIMEOUT("http.net.connection.timeout"),
     HTTP_NET_QUEUED_CONNECTION_TIMEOUT("http.net.queued.connection.timeout"),
@@ -267,10 +274,19 @@ public enum PropertyKey {
     LINE_UDP_UNICAST("line.udp.unicast"),
     LINE_UDP_COMMIT_MODE("line.udp.commit.mode"),
     LINE_UDP_TIMESTAMP("line.udp.timestamp"),
+    LINE_UDP_IO_WORKER_COUNT("line.udp.io.worker.count"),
+    LINE_UDP_IO_WORKER_AFFINITY("line.udp.io.worker.affinity"),
+    LINE_UDP_IO_WORKER_YIELD_THRESHOLD("line.udp.io.worker.yield.threshold"),
+    LINE_UDP_IO_WORKER_SLEEP_THRESHOLD("line.udp.io.worker.sleep.threshold"),
     LINE_TCP_ENABLED("line.tcp.enabled"),
+    LINE_HTTP_ENABLED("line.http.enabled"),
+    LINE_HTTP_MAX_WAL_LAG("line.http.max.wal.lag"),
+    LINE_HTTP_RETRY_AFTER("line.http.retry.after"),
     LINE_TCP_NET_ACTIVE_CONNECTION_LIMIT("line.tcp.net.active.connection.limit"),
     LINE_TCP_NET_CONNECTION_LIMIT("line.tcp.net.connection.limit"),
     LINE_TCP_NET_CONNECTION_HINT("line.tcp.net.connection.hint"),
+    LINE_TCP_NET_IOURING_ENABLED("line.tcp.net.iouring.enabled"),
+    LINE_TCP_NET_DISPATCHER_COUNT("line.tcp.net.dispatcher.count"),
     LINE_TCP_NET_BIND_TO("line.tcp.net.bind.to"),
     LINE_TCP_NET_IDLE_TIMEOUT("line.tcp.net.idle.timeout"),
     LINE_TCP_NET_CONNECTION_TIMEOUT("line.tcp.net.connection.timeout"),
@@ -289,6 +305,7 @@ public enum PropertyKey {
     LINE_TCP_WRITER_HALT_ON_ERROR("line.tcp.writer.halt.on.error"),
     LINE_TCP_WRITER_WORKER_YIELD_THRESHOLD("line.tcp.writer.worker.yield.threshold"),
     LINE_TCP_WRITER_WORKER_SLEEP_THRESHOLD("line.tcp.writer.worker.sleep.threshold"),
+    LINE_TCP_SYMBOL_CACHE_MAX_SIZE("line.tcp.symbol.cache.max.size"),
     LINE_TCP_SYMBOL_CACHE_WAIT_US_BEFORE_RELOAD("line.tcp.symbol.cache.wait.us.before.reload"),
     LINE_TCP_IO_WORKER_COUNT("line.tcp.io.worker.count"),
     LINE_TCP_IO_WORKER_AFFINITY("line.tcp.io.worker.affinity"),
@@ -314,6 +331,8 @@ public enum PropertyKey {
     NET_TEST_CONNECTION_BUFFER_SIZE("net.test.connection.buffer.size"),
     PG_ENABLED("pg.enabled"),
     PG_NET_CONNECTION_HINT("pg.net.connection.hint"),
+    PG_NET_IOURING_ENABLED("pg.net.iouring.enabled"),
+    PG_NET_DISPATCHER_COUNT("pg.net.dispatcher.count"),
     PG_NET_BIND_TO("pg.net.bind.to"),
     PG_NET_IDLE_TIMEOUT("pg.net.idle.timeout"),
     PG_NET_CONNECTION_TIMEOUT("pg.net.connection.timeout"),
@@ -389,6 +408,10 @@ public enum PropertyKey {
     WAL_APPLY_WORKER_YIELD_THRESHOLD("wal.apply.worker.yield.threshold"),
     CAIRO_WAL_TXN_NOTIFICATION_QUEUE_CAPACITY("cairo.wal.txn.notification.queue.capacity"),
     CAIRO_WAL_SUPPORTED("cairo.wal.supported"),
+    CAIRO_ZONE_MAPS_ENABLED("cairo.zone.maps.enabled"),
+    CAIRO_PARTITION_COMPRESSION_ENABLED("cairo.partition.compression.enabled"),
+    CAIRO_PARTITION_COMPRESSION_MIN_AGE("cairo.partition.compression.min.age"),
+    CAIRO_PARTITION_COMPRESSION_INTERVAL("cairo.partition.compression.interval"),
     TABLE_TYPE_CONVERSION_ENABLED("table.type.conversion.enabled"),
     CAIRO_WAL_RECREATE_DISTRESSED_SEQUENCER_ATTEMPTS("cairo.wal.recreate.distressed.sequencer.attempts"),
     CAIRO_WAL_INACTIVE_WRITER_TTL("cairo.wal.inactive.writer.ttl"),
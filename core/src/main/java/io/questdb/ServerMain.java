@@ -28,6 +28,8 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.mv.MatViewRefreshJob;
 import io.questdb.cairo.wal.ApplyWal2TableJob;
 import io.questdb.cairo.wal.CheckWalTransactionsJob;
 import io.questdb.cairo.wal.WalPurgeJob;
@@ -122,6 +124,16 @@ public class ServerMain implements Closeable {
                             if (!config.getWalApplyPoolConfiguration().isEnabled()) {
                                 setupWalApplyJob(sharedPool, engine, getSharedWorkerCount(), ffCache);
                             }
+
+                            final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(engine, ffCache);
+                            sharedPool.assign(matViewRefreshJob);
+                            sharedPool.freeOnExit(matViewRefreshJob);
+                        }
+
+                        if (cairoConfig.isPartitionCompressionEnabled()) {
+                            final PartitionCompressionJob partitionCompressionJob = new PartitionCompressionJob(engine);
+                            sharedPool.assign(partitionCompressionJob);
+                            sharedPool.freeOnExit(partitionCompressionJob);
                         }
 
                         // text import
@@ -201,8 +213,10 @@ public class ServerMain implements Closeable {
             // ilp/udp
             freeOnExit(Services.createLineUdpReceiver(
                     config.getLineUdpReceiverConfiguration(),
+                    config.getLineTcpReceiverConfiguration(),
                     engine,
-                    workerPoolManager
+                    workerPoolManager,
+                    metrics
             ));
         }
 
@@ -27,6 +27,7 @@ package io.questdb;
 public final class TelemetryOrigin {
     public static final short HTTP_JSON = 2;
     public static final short HTTP_TEXT = 4;
+    public static final short ILP_HTTP = 7;
     public static final short ILP_TCP = 5;
     public static final short INTERNAL = 1;
     public static final short POSTGRES = 3;
@@ -28,12 +28,14 @@ import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
 import io.questdb.std.str.CharSink;
 
 public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorFactory {
     private final GenericRecordMetadata metadata;
     private final TableToken tableToken;
     private final long tableVersion;
+    protected ZoneMapFilter zoneMapFilter;
 
     public AbstractDataFrameCursorFactory(TableToken tableToken, long tableVersion, GenericRecordMetadata metadata) {
         this.tableToken = tableToken;
@@ -43,12 +45,21 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
 
     @Override
     public void close() {
+        zoneMapFilter = Misc.free(zoneMapFilter);
     }
 
     public RecordMetadata getMetadata() {
         return metadata;
     }
 
+    /**
+     * Sets filter used by data frame cursors to skip partitions based on zone maps.
+     * The factory takes ownership of the filter.
+     */
+    public void setZoneMapFilter(ZoneMapFilter zoneMapFilter) {
+        this.zoneMapFilter = zoneMapFilter;
+    }
+
     @Override
     public boolean supportTableRowId(TableToken tableToken) {
         return this.tableToken.equals(tableToken);
@@ -35,6 +35,7 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected int partitionHi;
     protected int partitionIndex;
     protected TableReader reader;
+    protected ZoneMapFilter zoneMapFilter;
 
     @Override
     public void close() {
@@ -72,6 +73,10 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
         return moreData;
     }
 
+    public void setZoneMapFilter(ZoneMapFilter zoneMapFilter) {
+        this.zoneMapFilter = zoneMapFilter;
+    }
+
     @Override
     public long size() {
         return reader.size();
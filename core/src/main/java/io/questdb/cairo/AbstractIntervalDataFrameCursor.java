@@ -55,6 +55,7 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     protected TableReader reader;
     protected long size = -1;
     protected long sizeSoFar = 0;
+    protected ZoneMapFilter zoneMapFilter;
     private int initialIntervalsHi;
     private int initialIntervalsLo;
     private int initialPartitionHi;
@@ -111,6 +112,10 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
         return false;
     }
 
+    public void setZoneMapFilter(ZoneMapFilter zoneMapFilter) {
+        this.zoneMapFilter = zoneMapFilter;
+    }
+
     @Override
     public long size() {
         return size > -1 ? size : computeSize();
@@ -241,6 +241,12 @@ public interface CairoConfiguration {
 
     int getParallelIndexThreshold();
 
+    // how often, in milliseconds, partition compression job looks for cold partitions
+    long getPartitionCompressionInterval();
+
+    // partitions that end more than this many milliseconds before table's max timestamp are compressed
+    long getPartitionCompressionMinAge();
+
     int getPartitionPurgeListCapacity();
 
     int getQueryCacheEventQueueCapacity();
@@ -381,8 +387,16 @@ public interface CairoConfiguration {
 
     int getSqlPageFrameMaxRows();
 
+    // lookback, in milliseconds, of slave rows for parallel keyed ASOF and LT joins, 0 disables parallel joins
+    long getSqlParallelAsOfJoinLookback();
+
     int getSqlPageFrameMinRows();
 
+    // size in bytes of native memory that spillable maps and record chains of a single query may hold
+    // before they are moved to temporary memory-mapped files under spill root, non-positive value
+    // disables the limit
+    long getSqlQueryMemoryBudget();
+
     int getSqlSmallMapKeyCapacity();
 
     int getSqlSmallMapPageSize();
@@ -399,6 +413,13 @@ public interface CairoConfiguration {
 
     int getSqlSortValuePageSize();
 
+    // null spill root disables spill to disk, in which case exceeding the query memory budget fails the query
+    CharSequence getSqlSpillRoot();
+
+    // size in bytes of a single map or record chain after which it's moved to a temporary
+    // memory-mapped file under spill root, non-positive value disables the threshold
+    long getSqlSpillThreshold();
+
     int getStrFunctionMaxBufferLength();
 
     CharSequence getSystemTableNamePrefix();
@@ -455,6 +476,10 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    // when enabled, column files of cold partitions are compressed in the background
+    // and decompressed by table readers when partition is opened
+    boolean isPartitionCompressionEnabled();
+
     boolean isReadOnlyInstance();
 
     /**
@@ -470,10 +495,16 @@ public interface CairoConfiguration {
 
     boolean isSqlParallelFilterPreTouchEnabled();
 
+    boolean isSqlParallelGroupByEnabled();
+
     boolean isTableTypeConversionEnabled();
 
     boolean isWalSupported();
 
+    // when enabled, writer maintains min/max statistics of fixed-size columns for sealed partitions
+    // and table scans with simple column filters skip partitions that cannot match
+    boolean isZoneMapsEnabled();
+
     /**
      * This is a flag to enable/disable making table directory names different to table names for non-WAL tables.
      * When it is enabled directory name of table TRADE becomes TRADE~, so that ~ sign is added at the end.
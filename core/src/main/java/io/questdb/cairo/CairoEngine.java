@@ -29,6 +29,7 @@ import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
 import io.questdb.Telemetry;
 import io.questdb.cairo.mig.EngineMigration;
+import io.questdb.cairo.mv.MatViewGraph;
 import io.questdb.cairo.pool.*;
 import io.questdb.cairo.sql.AsyncWriterCommand;
 import io.questdb.cairo.sql.TableRecordMetadata;
@@ -65,6 +66,7 @@ public class CairoEngine implements Closeable, WriterSource {
     private final AtomicLong asyncCommandCorrelationId = new AtomicLong();
     private final CairoConfiguration configuration;
     private final EngineMaintenanceJob engineMaintenanceJob;
+    private final MatViewGraph matViewGraph = new MatViewGraph();
     private final MessageBusImpl messageBus;
     private final MetadataPool metadataPool;
     private final Metrics metrics;
@@ -149,6 +151,10 @@ public class CairoEngine implements Closeable, WriterSource {
                 }
             }
         }
+
+        final ObjList<TableToken> tableTokens = new ObjList<>();
+        getTableTokens(tableTokens, false);
+        matViewGraph.load(configuration, tableTokens);
     }
 
     @TestOnly
@@ -159,6 +165,7 @@ public class CairoEngine implements Closeable, WriterSource {
         boolean b4 = metadataPool.releaseAll();
         boolean b5 = walWriterPool.releaseAll();
         messageBus.reset();
+        matViewGraph.clear();
         return b1 & b2 & b3 & b4 & b5;
     }
 
@@ -297,6 +304,7 @@ public class CairoEngine implements Closeable, WriterSource {
     ) {
         securityContext.checkWritePermission();
         verifyTableToken(tableToken);
+        matViewGraph.removeView(tableToken);
         if (tableToken.isWal()) {
             if (tableNameRegistry.dropTable(tableToken)) {
                 tableSequencerAPI.dropTable(tableToken, false);
@@ -368,6 +376,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return engineMaintenanceJob;
     }
 
+    public MatViewGraph getMatViewGraph() {
+        return matViewGraph;
+    }
+
     public MessageBus getMessageBus() {
         return messageBus;
     }
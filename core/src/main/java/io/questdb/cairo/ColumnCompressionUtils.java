@@ -0,0 +1,248 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Compressed column file format used by cold partitions. The file starts with a header:
+ * <pre>
+ * | raw size (8 bytes) | filter (4 bytes) | reserved (4 bytes) | raw deflate stream |
+ * </pre>
+ * Before deflating, 8-byte values go through a filter chosen by column type: timestamps,
+ * dates, longs and var-size column offsets are delta encoded, doubles are XOR-ed with the
+ * previous value. Both turn slowly changing series into runs of small numbers, which
+ * deflate compresses considerably better than the raw values.
+ */
+public final class ColumnCompressionUtils {
+    public static final int FILTER_DELTA_64 = 1;
+    public static final int FILTER_NONE = 0;
+    public static final int FILTER_XOR_64 = 2;
+    public static final int HEADER_SIZE = 16;
+    // must be a multiple of 8 to keep 8-byte filters aligned across chunks
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressionUtils.class);
+    private static final int OFFSET_FILTER = 8;
+    private static final int OFFSET_RAW_SIZE = 0;
+
+    private ColumnCompressionUtils() {
+    }
+
+    /**
+     * Compresses the first srcSize bytes of the source file into a new file.
+     *
+     * @return size of the compressed file
+     */
+    public static long compress(FilesFacade ff, LPSZ srcPath, long srcSize, LPSZ dstPath, int filter, long fileOpenOpts) {
+        final int srcFd = TableUtils.openRO(ff, srcPath, LOG);
+        long srcAddr = 0;
+        long buf = 0;
+        long strm = 0;
+        int dstFd = -1;
+        try {
+            srcAddr = TableUtils.mapRO(ff, srcFd, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+            // the first half of the buffer holds filtered input, the second half compressed output
+            buf = Unsafe.malloc(2L * CHUNK_SIZE, MemoryTag.NATIVE_TABLE_WRITER);
+            final long out = buf + CHUNK_SIZE;
+            strm = Zip.deflateInit();
+            if (strm < 0) {
+                strm = 0;
+                throw CairoException.critical(0).put("could not initialize deflate [file=").put(dstPath).put(']');
+            }
+
+            dstFd = TableUtils.openRW(ff, dstPath, LOG, fileOpenOpts);
+            if (!ff.truncate(dstFd, 0)) {
+                throw CairoException.critical(ff.errno()).put("could not truncate [file=").put(dstPath).put(']');
+            }
+            Unsafe.getUnsafe().putLong(out + OFFSET_RAW_SIZE, srcSize);
+            Unsafe.getUnsafe().putInt(out + OFFSET_FILTER, filter);
+            Unsafe.getUnsafe().putInt(out + OFFSET_FILTER + Integer.BYTES, 0);
+            long dstOffset = write(ff, dstFd, out, HEADER_SIZE, 0, dstPath);
+
+            long prev = 0;
+            for (long lo = 0; lo < srcSize; lo += CHUNK_SIZE) {
+                final int len = (int) Math.min(CHUNK_SIZE, srcSize - lo);
+                long in = srcAddr + lo;
+                if (filter != FILTER_NONE) {
+                    prev = applyFilter(filter, in, buf, len, prev);
+                    in = buf;
+                }
+                Zip.setInput(strm, in, len);
+                final boolean last = lo + len == srcSize;
+                int ret;
+                do {
+                    ret = Zip.deflate(strm, out, CHUNK_SIZE, last);
+                    if (ret < 0 && ret != Zip.Z_BUF_ERROR) {
+                        throw CairoException.critical(0).put("could not deflate [file=").put(dstPath).put(", ret=").put(ret).put(']');
+                    }
+                    dstOffset += write(ff, dstFd, out, CHUNK_SIZE - Zip.availOut(strm), dstOffset, dstPath);
+                } while (Zip.availOut(strm) == 0);
+                assert !last || ret == Zip.Z_STREAM_END;
+            }
+            return dstOffset;
+        } finally {
+            if (strm != 0) {
+                Zip.deflateEnd(strm);
+            }
+            if (dstFd != -1) {
+                ff.close(dstFd);
+            }
+            if (buf != 0) {
+                Unsafe.free(buf, 2L * CHUNK_SIZE, MemoryTag.NATIVE_TABLE_WRITER);
+            }
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            ff.close(srcFd);
+        }
+    }
+
+    /**
+     * Inflates compressed file into the memory of {@link #readRawSize(FilesFacade, int, LPSZ)} bytes
+     * and reverts the filter.
+     */
+    public static void decompress(FilesFacade ff, int fd, CharSequence path, long dstAddr, long rawSize) {
+        final long fileSize = ff.length(fd);
+        if (fileSize < HEADER_SIZE) {
+            throw CairoException.critical(ff.errno()).put("compressed file is too small [file=").put(path).put(", size=").put(fileSize).put(']');
+        }
+        final long srcAddr = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_TABLE_READER);
+        long strm = 0;
+        try {
+            final int filter = Unsafe.getUnsafe().getInt(srcAddr + OFFSET_FILTER);
+            strm = Zip.inflateInit(true);
+            if (strm < 0) {
+                strm = 0;
+                throw CairoException.critical(0).put("could not initialize inflate [file=").put(path).put(']');
+            }
+
+            final long compressedSize = fileSize - HEADER_SIZE;
+            long inPos = 0;
+            long outPos = 0;
+            while (outPos < rawSize) {
+                if (Zip.availIn(strm) == 0) {
+                    if (inPos == compressedSize) {
+                        throw CairoException.critical(0).put("compressed file is truncated [file=").put(path).put(']');
+                    }
+                    final int len = (int) Math.min(CHUNK_SIZE, compressedSize - inPos);
+                    Zip.setInput(strm, srcAddr + HEADER_SIZE + inPos, len);
+                    inPos += len;
+                }
+                final int n = Zip.inflate(strm, dstAddr + outPos, (int) Math.min(CHUNK_SIZE, rawSize - outPos), false);
+                if (n < 0 && n != Zip.Z_BUF_ERROR) {
+                    throw CairoException.critical(0).put("could not inflate [file=").put(path).put(", ret=").put(n).put(']');
+                }
+                if (n > 0) {
+                    outPos += n;
+                }
+            }
+            revertFilter(filter, dstAddr, rawSize);
+        } finally {
+            if (strm != 0) {
+                Zip.inflateEnd(strm);
+            }
+            ff.munmap(srcAddr, fileSize, MemoryTag.MMAP_TABLE_READER);
+        }
+    }
+
+    public static int filterOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return FILTER_DELTA_64;
+            case ColumnType.DOUBLE:
+                return FILTER_XOR_64;
+            default:
+                return FILTER_NONE;
+        }
+    }
+
+    public static long readRawSize(FilesFacade ff, int fd, LPSZ path) {
+        final long buf = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        try {
+            if (ff.read(fd, buf, Long.BYTES, OFFSET_RAW_SIZE) != Long.BYTES) {
+                throw CairoException.critical(ff.errno()).put("could not read compressed file header [file=").put(path).put(']');
+            }
+            return Unsafe.getUnsafe().getLong(buf);
+        } finally {
+            Unsafe.free(buf, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    private static long applyFilter(int filter, long src, long dst, int len, long prev) {
+        // trailing bytes, if any, are copied as is
+        final long hi = len & ~7L;
+        if (filter == FILTER_DELTA_64) {
+            for (long p = 0; p < hi; p += Long.BYTES) {
+                final long value = Unsafe.getUnsafe().getLong(src + p);
+                Unsafe.getUnsafe().putLong(dst + p, value - prev);
+                prev = value;
+            }
+        } else {
+            for (long p = 0; p < hi; p += Long.BYTES) {
+                final long value = Unsafe.getUnsafe().getLong(src + p);
+                Unsafe.getUnsafe().putLong(dst + p, value ^ prev);
+                prev = value;
+            }
+        }
+        if (hi < len) {
+            Vect.memcpy(dst + hi, src + hi, len - hi);
+        }
+        return prev;
+    }
+
+    private static void revertFilter(int filter, long addr, long size) {
+        final long hi = size & ~7L;
+        long prev = 0;
+        switch (filter) {
+            case FILTER_DELTA_64:
+                for (long p = addr, lim = addr + hi; p < lim; p += Long.BYTES) {
+                    prev += Unsafe.getUnsafe().getLong(p);
+                    Unsafe.getUnsafe().putLong(p, prev);
+                }
+                break;
+            case FILTER_XOR_64:
+                for (long p = addr, lim = addr + hi; p < lim; p += Long.BYTES) {
+                    prev ^= Unsafe.getUnsafe().getLong(p);
+                    Unsafe.getUnsafe().putLong(p, prev);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static long write(FilesFacade ff, int fd, long addr, long len, long offset, LPSZ path) {
+        if (len > 0 && ff.write(fd, addr, len, offset) != len) {
+            throw CairoException.critical(ff.errno()).put("could not write compressed file [file=").put(path).put(']');
+        }
+        return len;
+    }
+}
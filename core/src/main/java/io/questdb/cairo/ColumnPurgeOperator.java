@@ -216,18 +216,20 @@ public class ColumnPurgeOperator implements Closeable {
                 // perform existence check ahead of trying to remove files
 
                 if (!ff.exists(path)) {
+                    path.trimTo(pathTrimToPartition);
                     if (ColumnType.isVariableLength(task.getColumnType())) {
-                        path.trimTo(pathTrimToPartition);
-                        TableUtils.iFile(path, task.getColumnName(), columnVersion);
-                        if (!ff.exists(path)) {
+                        if (!ff.exists(TableUtils.iFile(path, task.getColumnName(), columnVersion))
+                                && !ff.exists(TableUtils.izFile(path.trimTo(pathTrimToPartition), task.getColumnName(), columnVersion))) {
                             completedRowIds.add(updateRowId);
                             continue;
                         }
-                    } else {
+                    } else if (!ff.exists(TableUtils.dzFile(path, task.getColumnName(), columnVersion))) {
                         // Files already deleted, move to the next partition
                         completedRowIds.add(updateRowId);
                         continue;
                     }
+                    path.trimTo(pathTrimToPartition);
+                    TableUtils.dFile(path, task.getColumnName(), columnVersion);
                 }
 
                 if (setupScoreboard) {
@@ -277,6 +279,20 @@ public class ColumnPurgeOperator implements Closeable {
                     continue;
                 }
 
+                if (ZoneMapUtils.isSupported(task.getColumnType())) {
+                    // zone map is optional, it is fine if the file does not exist
+                    path.trimTo(pathTrimToPartition);
+                    ff.remove(TableUtils.zmFile(path, task.getColumnName(), columnVersion));
+                }
+
+                // partition could have been compressed, which keeps column data in .dz and .iz files
+                path.trimTo(pathTrimToPartition);
+                TableUtils.dzFile(path, task.getColumnName(), columnVersion);
+                if (couldNotRemove(ff, path)) {
+                    allDone = false;
+                    continue;
+                }
+
                 if (ColumnType.isVariableLength(task.getColumnType())) {
                     path.trimTo(pathTrimToPartition);
                     TableUtils.iFile(path, task.getColumnName(), columnVersion);
@@ -285,6 +301,13 @@ public class ColumnPurgeOperator implements Closeable {
                         allDone = false;
                         continue;
                     }
+
+                    path.trimTo(pathTrimToPartition);
+                    TableUtils.izFile(path, task.getColumnName(), columnVersion);
+                    if (couldNotRemove(ff, path)) {
+                        allDone = false;
+                        continue;
+                    }
                 }
 
                 // Check if it's symbol, try remove .k and .v files in the partition
@@ -437,6 +437,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100000;
     }
 
+    @Override
+    public long getPartitionCompressionInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getPartitionCompressionMinAge() {
+        return 604_800_000;
+    }
+
     @Override
     public int getPartitionPurgeListCapacity() {
         return 64;
@@ -719,11 +729,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1_000_000;
     }
 
+    @Override
+    public long getSqlParallelAsOfJoinLookback() {
+        return 0;
+    }
+
     @Override
     public int getSqlPageFrameMinRows() {
         return 1_000;
     }
 
+    @Override
+    public long getSqlQueryMemoryBudget() {
+        return 0;
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return 64;
@@ -764,6 +784,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB * 16;
     }
 
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return null;
+    }
+
+    @Override
+    public long getSqlSpillThreshold() {
+        return 0;
+    }
+
     @Override
     public int getStrFunctionMaxBufferLength() {
         return 1024 * 1024;
@@ -908,6 +938,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isPartitionCompressionEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isReadOnlyInstance() {
         return false;
@@ -933,6 +968,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return true;
@@ -943,6 +983,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isZoneMapsEnabled() {
+        return false;
+    }
+
     @Override
     public boolean mangleTableDirNames() {
         return false;
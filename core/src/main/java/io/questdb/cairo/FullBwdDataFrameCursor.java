@@ -34,6 +34,11 @@ public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public DataFrame next() {
         while (partitionIndex > -1) {
+            if (zoneMapFilter != null && zoneMapFilter.canSkip(reader, partitionIndex)) {
+                // none of the partition rows can match the filter
+                partitionIndex--;
+                continue;
+            }
             final long hi = reader.openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
@@ -40,6 +40,7 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) {
         if (order == ORDER_DESC || order == ORDER_ANY) {
+            cursor.setZoneMapFilter(zoneMapFilter);
             return cursor.of(getReader(executionContext));
         }
 
@@ -48,6 +49,7 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
         if (fwdCursor == null) {
             fwdCursor = new FullFwdDataFrameCursor();
         }
+        fwdCursor.setZoneMapFilter(zoneMapFilter);
         return fwdCursor.of(getReader(executionContext));
     }
 
@@ -34,6 +34,11 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public @Nullable DataFrame next() {
         while (partitionIndex < partitionHi) {
+            if (zoneMapFilter != null && zoneMapFilter.canSkip(reader, partitionIndex)) {
+                // none of the partition rows can match the filter
+                partitionIndex++;
+                continue;
+            }
             final long hi = getTableReader().openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
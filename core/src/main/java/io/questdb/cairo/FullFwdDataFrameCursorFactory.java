@@ -39,6 +39,7 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) {
         if (order == ORDER_ASC || order == ORDER_ANY) {
+            cursor.setZoneMapFilter(zoneMapFilter);
             return cursor.of(getReader(executionContext));
         }
 
@@ -47,6 +48,7 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
         if (bwdCursor == null) {
             bwdCursor = new FullBwdDataFrameCursor();
         }
+        bwdCursor.setZoneMapFilter(zoneMapFilter);
         return bwdCursor.of(getReader(executionContext));
     }
 
@@ -56,6 +56,11 @@ public class IntervalBwdDataFrameCursor extends AbstractIntervalDataFrameCursor
             // are working with timestamp. Timestamp column cannot be added to existing table.
             final int currentInterval = intervalsHi - 1;
             final int currentPartition = partitionHi - 1;
+            if (partitionLimit == -1 && zoneMapFilter != null && zoneMapFilter.canSkip(reader, currentPartition)) {
+                // none of the partition rows can match the filter
+                partitionHi = currentPartition;
+                continue;
+            }
             long rowCount = reader.openPartition(currentPartition);
             if (rowCount > 0) {
 
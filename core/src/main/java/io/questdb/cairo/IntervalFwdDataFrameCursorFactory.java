@@ -58,6 +58,7 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
         if (order == ORDER_ASC || order == ORDER_ANY) {
+            cursor.setZoneMapFilter(zoneMapFilter);
             cursor.of(getReader(executionContext), executionContext);
             return cursor;
         }
@@ -65,6 +66,7 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         if (bwdCursor == null) {
             bwdCursor = new IntervalBwdDataFrameCursor(intervals, cursor.getTimestampIndex());
         }
+        bwdCursor.setZoneMapFilter(zoneMapFilter);
         return bwdCursor.of(getReader(executionContext), executionContext);
     }
 
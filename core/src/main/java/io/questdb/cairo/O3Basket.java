@@ -24,12 +24,17 @@
 
 package io.questdb.cairo;
 
+import io.questdb.std.LongList;
+import io.questdb.std.LongLongHashMap;
 import io.questdb.std.Mutable;
 import io.questdb.std.ObjList;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class O3Basket implements Mutable {
+    private final LongList dedupKeyFiles = new LongList();
+    private final LongLongHashMap dedupKeyHashes = new LongLongHashMap();
+    private final LongList dedupKeys = new LongList();
     private final ObjList<BitmapIndexWriter> indexers = new ObjList<BitmapIndexWriter>();
     private final ObjList<AtomicInteger> partCounters = new ObjList<AtomicInteger>();
     private int columnCount;
@@ -50,6 +55,18 @@ public class O3Basket implements Mutable {
         ensureCapacity0(columnCount, indexCount);
     }
 
+    public LongList getDedupKeyFiles() {
+        return dedupKeyFiles;
+    }
+
+    public LongLongHashMap getDedupKeyHashes() {
+        return dedupKeyHashes;
+    }
+
+    public LongList getDedupKeys() {
+        return dedupKeys;
+    }
+
     public BitmapIndexWriter nextIndexer() {
         return indexers.getQuick(indexerPointer++);
     }
@@ -615,7 +615,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 );
                 // multiple threads could be writing to this location as var index segments overlap,
                 // but they will be writing the same value
-                Unsafe.getUnsafe().putLong(dstFixAddr + rowCount * 8, dstVarOffsetEnd);
+                Unsafe.getUnsafe().putLong(dstFixAddr + rowCount * 8, mergedVarOffsetEnd(columnType, rowCount, dstFixAddr, dstVarAddr, dstVarOffsetEnd));
                 break;
             case ColumnType.BINARY:
                 Vect.oooMergeCopyBinColumn(
@@ -629,7 +629,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                         dstVarAddr,
                         dstVarOffset
                 );
-                Unsafe.getUnsafe().putLong(dstFixAddr + rowCount * 8, dstVarOffsetEnd);
+                Unsafe.getUnsafe().putLong(dstFixAddr + rowCount * 8, mergedVarOffsetEnd(columnType, rowCount, dstFixAddr, dstVarAddr, dstVarOffsetEnd));
                 break;
             case ColumnType.INT:
             case ColumnType.FLOAT:
@@ -663,6 +663,21 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         }
     }
 
+    // Deduplication removes rows from the merge, in which case the merge ends before the
+    // var column space reserved for it. The end offset is derived from the last copied value.
+    private static long mergedVarOffsetEnd(int columnType, long rowCount, long dstFixAddr, long dstVarAddr, long dstVarOffsetEnd) {
+        if (rowCount < 1) {
+            return dstVarOffsetEnd;
+        }
+        final long lastOffset = Unsafe.getUnsafe().getLong(dstFixAddr + (rowCount - 1) * 8);
+        if (ColumnType.tagOf(columnType) == ColumnType.STRING) {
+            final int len = Unsafe.getUnsafe().getInt(dstVarAddr + lastOffset);
+            return lastOffset + Integer.BYTES + (len > 0 ? (long) len * Character.BYTES : 0);
+        }
+        final long len = Unsafe.getUnsafe().getLong(dstVarAddr + lastOffset);
+        return lastOffset + Long.BYTES + (len > 0 ? len : 0);
+    }
+
     private static void updateIndex(
             AtomicInteger columnCounter,
             long timestampMergeIndexAddr,
@@ -144,6 +144,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     0,
                     timestampIndex,
                     sortedTimestampsAddr,
+                    false,
                     tableWriter,
                     columnCounter,
                     o3Basket,
@@ -164,6 +165,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long suffixLo;
             long suffixHi;
             final int openColumnMode;
+            boolean deduplicate = false;
 
             try {
                 // out of order is hitting existing partition
@@ -440,6 +442,36 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     }
                 }
 
+                if (
+                        tableWriter.isDeduplicationEnabled()
+                                && o3TimestampLo <= dataTimestampHi
+                                && getTimestampIndexValue(sortedTimestampsAddr, srcOooHi) >= dataTimestampLo
+                                && hasMatchingTimestamps(srcTimestampAddr, srcDataMax, sortedTimestampsAddr, srcOooLo, srcOooHi)
+                ) {
+                    // O3 rows may replace existing rows with the same timestamp and key values, the
+                    // branches above can leave such rows in prefix or suffix blocks. Merge all O3 rows
+                    // with the partition tail starting at the first row at or above the O3 low timestamp.
+                    branch = 9;
+                    deduplicate = true;
+                    mergeDataLo = Vect.boundedBinarySearch64Bit(
+                            srcTimestampAddr,
+                            o3TimestampLo - 1,
+                            0,
+                            srcDataMax - 1,
+                            BinarySearch.SCAN_DOWN
+                    ) + 1;
+                    prefixType = mergeDataLo > 0 ? O3_BLOCK_DATA : O3_BLOCK_NONE;
+                    prefixLo = 0;
+                    prefixHi = mergeDataLo - 1;
+                    mergeType = O3_BLOCK_MERGE;
+                    mergeDataHi = srcDataMax - 1;
+                    mergeO3Lo = srcOooLo;
+                    mergeO3Hi = srcOooHi;
+                    suffixType = O3_BLOCK_NONE;
+                    suffixLo = -1;
+                    suffixHi = -1;
+                }
+
                 LOG.debug()
                         .$("o3 merge [branch=").$(branch)
                         .$(", prefixType=").$(prefixType)
@@ -463,7 +495,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                         .$(", table=").$(pathToTable)
                         .I$();
 
-                if (prefixType == O3_BLOCK_NONE) {
+                if (prefixType == O3_BLOCK_NONE && mergeType == O3_BLOCK_NONE) {
                     // We do not need to create a copy of partition when we simply need to append
                     // existing the one.
                     openColumnMode = OPEN_MID_PARTITION_FOR_APPEND;
@@ -524,6 +556,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     srcTimestampSize,
                     timestampIndex,
                     sortedTimestampsAddr,
+                    deduplicate,
                     tableWriter,
                     columnCounter,
                     o3Basket,
@@ -614,6 +647,124 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
         }
     }
 
+    private static long dedupMergeIndex(
+            Path pathToTable,
+            ObjList<MemoryMA> columns,
+            ReadOnlyObjList<? extends MemoryCR> oooColumns,
+            long partitionTimestamp,
+            long srcDataMax,
+            long srcDataTxn,
+            boolean last,
+            int timestampIndex,
+            long timestampMergeIndexAddr,
+            long timestampMergeIndexSize,
+            TableWriter tableWriter,
+            O3Basket o3Basket
+    ) {
+        final TableRecordMetadata metadata = tableWriter.getMetadata();
+        final FilesFacade ff = tableWriter.getFilesFacade();
+        final int columnCount = metadata.getColumnCount();
+        final LongList dedupKeys = o3Basket.getDedupKeys();
+        // per key column: fd, address and size of the mapped partition column
+        final LongList dedupKeyFiles = o3Basket.getDedupKeyFiles();
+        dedupKeys.clear();
+        dedupKeyFiles.clear();
+        final long nullsSize = (long) columnCount << 5;
+        final long nullsAddr = Unsafe.malloc(nullsSize, MemoryTag.NATIVE_O3);
+        try {
+            final Path path = Path.getThreadLocal(pathToTable);
+            TableUtils.setPathForPartition(path, tableWriter.getPartitionBy(), partitionTimestamp, false);
+            TableUtils.txnPartitionConditionally(path, srcDataTxn);
+            final int plen = path.length();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType < 0 || i == timestampIndex || !tableWriter.isDedupKey(i)) {
+                    continue;
+                }
+                final int shl = ColumnType.pow2SizeOf(columnType);
+                final long nullAddr = nullsAddr + ((long) i << 5);
+                TableUtils.setNull(columnType, nullAddr, 1);
+
+                final long srcDataTop = last
+                        ? tableWriter.getColumnTop(i)
+                        : tableWriter.getColumnTop(partitionTimestamp, i, srcDataMax);
+                final long srcDataSize = (srcDataMax - srcDataTop) << shl;
+                int srcDataFd = 0;
+                long srcDataAddr = 0;
+                if (srcDataSize > 0) {
+                    if (last) {
+                        // negative fd indicates descriptor reuse
+                        srcDataFd = -columns.getQuick(getPrimaryColumnIndex(i)).getFd();
+                    } else {
+                        dFile(path.trimTo(plen), metadata.getColumnName(i), tableWriter.getColumnNameTxn(partitionTimestamp, i));
+                        srcDataFd = openRO(ff, path, LOG);
+                    }
+                    try {
+                        srcDataAddr = mapRO(ff, Math.abs(srcDataFd), srcDataSize, MemoryTag.MMAP_O3);
+                    } catch (Throwable e) {
+                        O3Utils.close(ff, srcDataFd);
+                        throw e;
+                    }
+                    dedupKeyFiles.add(srcDataFd);
+                    dedupKeyFiles.add(srcDataAddr);
+                    dedupKeyFiles.add(srcDataSize);
+                }
+                O3Utils.addDedupKey(
+                        dedupKeys,
+                        oooColumns.getQuick(getPrimaryColumnIndex(i)).addressOf(0),
+                        srcDataAddr,
+                        srcDataTop,
+                        shl,
+                        nullAddr
+                );
+            }
+            return O3Utils.dedupSortedIndex(
+                    timestampMergeIndexAddr,
+                    timestampMergeIndexSize,
+                    dedupKeys,
+                    o3Basket.getDedupKeyHashes()
+            );
+        } finally {
+            for (int i = 0, n = dedupKeyFiles.size(); i < n; i += 3) {
+                O3Utils.unmapAndClose(
+                        ff,
+                        (int) dedupKeyFiles.getQuick(i),
+                        dedupKeyFiles.getQuick(i + 1),
+                        dedupKeyFiles.getQuick(i + 2)
+                );
+            }
+            dedupKeyFiles.clear();
+            Unsafe.free(nullsAddr, nullsSize, MemoryTag.NATIVE_O3);
+        }
+    }
+
+    private static boolean hasMatchingTimestamps(
+            long srcTimestampAddr,
+            long srcDataMax,
+            long sortedTimestampsAddr,
+            long srcOooLo,
+            long srcOooHi
+    ) {
+        long dataLo = 0;
+        for (long o3 = srcOooLo; o3 <= srcOooHi; o3++) {
+            final long index = Vect.binarySearch64Bit(
+                    srcTimestampAddr,
+                    getTimestampIndexValue(sortedTimestampsAddr, o3),
+                    dataLo,
+                    srcDataMax - 1,
+                    BinarySearch.SCAN_UP
+            );
+            if (index > -1) {
+                return true;
+            }
+            dataLo = -index - 1;
+            if (dataLo >= srcDataMax) {
+                return false;
+            }
+        }
+        return false;
+    }
+
     private static void publishOpenColumnTaskContended(
             long cursor,
             int openColumnMode,
@@ -886,6 +1037,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long srcTimestampSize,
             int timestampIndex,
             long sortedTimestampsAddr,
+            boolean deduplicate,
             TableWriter tableWriter,
             AtomicInteger columnCounter,
             O3Basket o3Basket,
@@ -917,6 +1069,44 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     mergeOOOHi,
                     timestampMergeIndexSize
             );
+
+            if (deduplicate) {
+                final long dedupRowCount;
+                try {
+                    dedupRowCount = dedupMergeIndex(
+                            pathToTable,
+                            columns,
+                            oooColumns,
+                            partitionTimestamp,
+                            srcDataMax,
+                            srcDataTxn,
+                            openColumnMode == OPEN_LAST_PARTITION_FOR_MERGE,
+                            timestampIndex,
+                            timestampMergeIndexAddr,
+                            mergeDataHi - mergeDataLo + 1 + mergeOOOHi - mergeOOOLo + 1,
+                            tableWriter,
+                            o3Basket
+                    );
+                } catch (Throwable e) {
+                    LOG.error().$("dedup error [table=").utf8(tableWriter.getTableToken().getTableName())
+                            .$(", e=").$(e)
+                            .I$();
+                    O3CopyJob.closeColumnIdleQuick(
+                            timestampMergeIndexAddr,
+                            timestampMergeIndexSize,
+                            srcTimestampFd,
+                            srcTimestampAddr,
+                            srcTimestampSize,
+                            tableWriter
+                    );
+                    tableWriter.o3BumpErrorCount();
+                    throw e;
+                }
+                // the merge index no longer has entries for the replaced rows,
+                // shrink the merge block so that copy jobs see the actual row count
+                mergeDataHi -= dedupRowCount;
+                tableWriter.o3NotifyPartitionDedup(partitionTimestamp, dedupRowCount);
+            }
         } else {
             timestampMergeIndexAddr = 0;
             timestampMergeIndexSize = 0;
@@ -38,6 +38,14 @@ import org.jetbrains.annotations.Nullable;
 
 public class O3Utils {
 
+    // Each deduplication key column is described by a group of longs in the key list:
+    // address of O3 values, address of partition values, partition column top,
+    // power of 2 value size and address of the column null value.
+    static final int DEDUP_KEY_ENTRY_SIZE = 5;
+    private static final long DEDUP_REMOVED_TIMESTAMP = Long.MIN_VALUE;
+    // Timestamp runs up to this length are deduplicated with nested loop,
+    // longer runs are deduplicated via hash map of key values.
+    private static final int DEDUP_SCAN_THRESHOLD = 8;
     private static final Log LOG = LogFactory.getLog(O3Utils.class);
 
     public static void setupWorkerPool(
@@ -80,6 +88,11 @@ public class O3Utils {
         }
     }
 
+    static void addDedupKey(LongList dedupKeys, long o3Addr, long dataAddr, long dataTop, int shl, long nullAddr) {
+        dedupKeys.add(o3Addr, dataAddr, dataTop, shl);
+        dedupKeys.add(nullAddr);
+    }
+
     static void close(FilesFacade ff, int fd) {
         if (fd > 0) {
             LOG.debug().$("closed [fd=").$(fd).$(']').$();
@@ -96,6 +109,53 @@ public class O3Utils {
         Vect.copyFromTimestampIndex(src, srcLo, srcHi, dstAddr);
     }
 
+    /**
+     * Removes rows superseded by a later row with the same timestamp and the same values of
+     * all deduplication key columns from the sorted timestamp index. The index is a list of
+     * (timestamp, row) pairs, rows with the top bit set are read from the partition, other rows
+     * are read from O3 memory. Later rows take precedence, this is "last wins" upsert semantics.
+     * Surviving index entries are compacted in place, keeping their order.
+     *
+     * @param indexAddr  address of the sorted timestamp index
+     * @param indexSize  number of entries in the index
+     * @param dedupKeys  deduplication key columns, other than the designated timestamp
+     * @param keyHashes  scratch hash map used to deduplicate long timestamp runs
+     * @return number of removed index entries
+     */
+    static long dedupSortedIndex(long indexAddr, long indexSize, LongList dedupKeys, LongLongHashMap keyHashes) {
+        long removed = 0;
+        long runLo = 0;
+        while (runLo < indexSize) {
+            final long timestamp = Unsafe.getUnsafe().getLong(indexAddr + (runLo << 4));
+            long runHi = runLo + 1;
+            while (runHi < indexSize && Unsafe.getUnsafe().getLong(indexAddr + (runHi << 4)) == timestamp) {
+                runHi++;
+            }
+            if (runHi - runLo > 1) {
+                removed += dedupTimestampRun(indexAddr, runLo, runHi, dedupKeys, keyHashes);
+            }
+            runLo = runHi;
+        }
+
+        if (removed > 0) {
+            long dst = 0;
+            for (long src = 0; src < indexSize; src++) {
+                final long srcAddr = indexAddr + (src << 4);
+                final long timestamp = Unsafe.getUnsafe().getLong(srcAddr);
+                if (timestamp != DEDUP_REMOVED_TIMESTAMP) {
+                    if (dst != src) {
+                        final long dstAddr = indexAddr + (dst << 4);
+                        Unsafe.getUnsafe().putLong(dstAddr, timestamp);
+                        Unsafe.getUnsafe().putLong(dstAddr + Long.BYTES, Unsafe.getUnsafe().getLong(srcAddr + Long.BYTES));
+                    }
+                    dst++;
+                }
+            }
+            assert dst == indexSize - removed;
+        }
+        return removed;
+    }
+
     static long findVarOffset(long srcFixAddr, long srcLo) {
         return Unsafe.getUnsafe().getLong(srcFixAddr + srcLo * Long.BYTES);
     }
@@ -124,4 +184,119 @@ public class O3Utils {
         unmap(ff, dstFixAddr, dstFixSize);
         close(ff, dstFixFd);
     }
+
+    private static long dedupKeyHash(long indexAddr, long entry, LongList dedupKeys) {
+        final long row = Unsafe.getUnsafe().getLong(indexAddr + (entry << 4) + Long.BYTES);
+        long hash = 0;
+        for (int k = 0, n = dedupKeys.size(); k < n; k += DEDUP_KEY_ENTRY_SIZE) {
+            final long addr = dedupKeyValueAddress(dedupKeys, k, row);
+            final int shl = (int) dedupKeys.getQuick(k + 3);
+            switch (shl) {
+                case 0:
+                    hash = Hash.fastLongMix(hash ^ Unsafe.getUnsafe().getByte(addr));
+                    break;
+                case 1:
+                    hash = Hash.fastLongMix(hash ^ Unsafe.getUnsafe().getShort(addr));
+                    break;
+                case 2:
+                    hash = Hash.fastLongMix(hash ^ Unsafe.getUnsafe().getInt(addr));
+                    break;
+                default:
+                    for (long p = addr, hi = addr + (1L << shl); p < hi; p += Long.BYTES) {
+                        hash = Hash.fastLongMix(hash ^ Unsafe.getUnsafe().getLong(p));
+                    }
+                    break;
+            }
+        }
+        // hash map reserves -1 as "no key" value
+        return hash & Long.MAX_VALUE;
+    }
+
+    private static long dedupKeyValueAddress(LongList dedupKeys, int k, long row) {
+        final int shl = (int) dedupKeys.getQuick(k + 3);
+        if (row < 0) {
+            // partition row, values above column top are nulls
+            final long dataRow = row & Long.MAX_VALUE;
+            final long dataTop = dedupKeys.getQuick(k + 2);
+            if (dataRow < dataTop) {
+                return dedupKeys.getQuick(k + 4);
+            }
+            return dedupKeys.getQuick(k + 1) + ((dataRow - dataTop) << shl);
+        }
+        return dedupKeys.getQuick(k) + (row << shl);
+    }
+
+    private static boolean dedupKeysEqual(long indexAddr, long entry1, long entry2, LongList dedupKeys) {
+        final long row1 = Unsafe.getUnsafe().getLong(indexAddr + (entry1 << 4) + Long.BYTES);
+        final long row2 = Unsafe.getUnsafe().getLong(indexAddr + (entry2 << 4) + Long.BYTES);
+        for (int k = 0, n = dedupKeys.size(); k < n; k += DEDUP_KEY_ENTRY_SIZE) {
+            final long addr1 = dedupKeyValueAddress(dedupKeys, k, row1);
+            final long addr2 = dedupKeyValueAddress(dedupKeys, k, row2);
+            final int shl = (int) dedupKeys.getQuick(k + 3);
+            switch (shl) {
+                case 0:
+                    if (Unsafe.getUnsafe().getByte(addr1) != Unsafe.getUnsafe().getByte(addr2)) {
+                        return false;
+                    }
+                    break;
+                case 1:
+                    if (Unsafe.getUnsafe().getShort(addr1) != Unsafe.getUnsafe().getShort(addr2)) {
+                        return false;
+                    }
+                    break;
+                case 2:
+                    if (Unsafe.getUnsafe().getInt(addr1) != Unsafe.getUnsafe().getInt(addr2)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    for (long offset = 0, size = 1L << shl; offset < size; offset += Long.BYTES) {
+                        if (Unsafe.getUnsafe().getLong(addr1 + offset) != Unsafe.getUnsafe().getLong(addr2 + offset)) {
+                            return false;
+                        }
+                    }
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean dedupSupersededByScan(long indexAddr, long entry, long runHi, LongList dedupKeys) {
+        for (long later = entry + 1; later < runHi; later++) {
+            if (Unsafe.getUnsafe().getLong(indexAddr + (later << 4)) != DEDUP_REMOVED_TIMESTAMP
+                    && dedupKeysEqual(indexAddr, entry, later, dedupKeys)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dedupTimestampRun(long indexAddr, long runLo, long runHi, LongList dedupKeys, LongLongHashMap keyHashes) {
+        long removed = 0;
+        if (runHi - runLo <= DEDUP_SCAN_THRESHOLD) {
+            for (long entry = runHi - 2; entry >= runLo; entry--) {
+                if (dedupSupersededByScan(indexAddr, entry, runHi, dedupKeys)) {
+                    Unsafe.getUnsafe().putLong(indexAddr + (entry << 4), DEDUP_REMOVED_TIMESTAMP);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        // walk the run backwards, the first entry seen for the given key values is the one to keep
+        keyHashes.clear();
+        for (long entry = runHi - 1; entry >= runLo; entry--) {
+            final long hash = dedupKeyHash(indexAddr, entry, dedupKeys);
+            final int index = keyHashes.keyIndex(hash);
+            if (index > -1) {
+                keyHashes.putAt(index, hash, entry);
+            } else if (dedupKeysEqual(indexAddr, entry, keyHashes.valueAt(index), dedupKeys)
+                    || dedupSupersededByScan(indexAddr, entry, runHi, dedupKeys)) {
+                // second check resolves hash collisions
+                Unsafe.getUnsafe().putLong(indexAddr + (entry << 4), DEDUP_REMOVED_TIMESTAMP);
+                removed++;
+            }
+        }
+        return removed;
+    }
 }
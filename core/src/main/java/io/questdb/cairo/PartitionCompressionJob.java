@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+
+import java.io.Closeable;
+
+/**
+ * Periodically looks for cold partitions and compresses their column files,
+ * see {@link TableWriter#compressPartition(long)}. Partition is cold when it ends
+ * more than configured min age before max timestamp of the table.
+ */
+public class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private final long checkInterval;
+    private final MicrosecondClock clock;
+    private final CairoEngine engine;
+    private final long minAge;
+    private final LongList partitionTimestamps = new LongList();
+    private final ObjList<TableToken> tableTokenBucket = new ObjList<>();
+    private long last = 0;
+
+    public PartitionCompressionJob(CairoEngine engine) {
+        this.engine = engine;
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getPartitionCompressionInterval() * 1000;
+        this.minAge = configuration.getPartitionCompressionMinAge() * 1000;
+    }
+
+    @Override
+    public void close() {
+        tableTokenBucket.clear();
+        partitionTimestamps.clear();
+    }
+
+    /**
+     * Compresses cold partitions of all tables.
+     *
+     * @return number of compressed partitions
+     */
+    public int compressColdPartitions() {
+        int compressed = 0;
+        tableTokenBucket.clear();
+        engine.getTableTokens(tableTokenBucket, false);
+        for (int i = 0, n = tableTokenBucket.size(); i < n; i++) {
+            final TableToken tableToken = tableTokenBucket.getQuick(i);
+            try {
+                if (findColdPartitions(tableToken)) {
+                    compressed += compressPartitions(tableToken);
+                }
+            } catch (EntryUnavailableException e) {
+                LOG.debug().$("table is busy, skipping [table=").utf8(tableToken.getTableName()).I$();
+            } catch (CairoException e) {
+                LOG.error().$("could not compress partitions [table=").utf8(tableToken.getTableName())
+                        .$(", errno=").$(e.getErrno())
+                        .$(", error=").$(e.getFlyweightMessage())
+                        .I$();
+            }
+        }
+        return compressed;
+    }
+
+    private int compressPartitions(TableToken tableToken) {
+        int compressed = 0;
+        try (TableWriter writer = engine.getWriterUnsafe(tableToken, "partition compression")) {
+            for (int i = 0, n = partitionTimestamps.size(); i < n; i++) {
+                if (writer.compressPartition(partitionTimestamps.getQuick(i))) {
+                    compressed++;
+                }
+            }
+        }
+        return compressed;
+    }
+
+    private boolean findColdPartitions(TableToken tableToken) {
+        partitionTimestamps.clear();
+        TableReader reader = null;
+        try {
+            reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableToken);
+            final int partitionBy = reader.getPartitionedBy();
+            if (!PartitionBy.isPartitioned(partitionBy)) {
+                return false;
+            }
+            final PartitionBy.PartitionCeilMethod ceilMethod = PartitionBy.getPartitionCeilMethod(partitionBy);
+            final long maxTimestamp = reader.getMaxTimestamp();
+            final TxReader txFile = reader.getTxFile();
+            // last partition is active and never compressed
+            for (int i = 0, n = reader.getPartitionCount() - 1; i < n; i++) {
+                final long partitionTimestamp = reader.getPartitionTimestampByIndex(i);
+                if (ceilMethod.ceil(partitionTimestamp) > maxTimestamp - minAge) {
+                    break;
+                }
+                if (!txFile.isPartitionCompressed(i) && !txFile.isPartitionReadOnly(i) && txFile.getPartitionSize(i) > 0) {
+                    partitionTimestamps.add(partitionTimestamp);
+                }
+            }
+        } finally {
+            Misc.free(reader);
+        }
+        return partitionTimestamps.size() > 0;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            return compressColdPartitions() > 0;
+        }
+        return false;
+    }
+}
@@ -34,6 +34,7 @@ public class TableColumnMetadata implements Plannable {
     private final RecordMetadata metadata;
     private final boolean symbolTableStatic;
     private final int writerIndex;
+    private boolean dedupKey;
     private int indexValueBlockCapacity;
     private boolean indexed;
     private String name;
@@ -100,6 +101,10 @@ public class TableColumnMetadata implements Plannable {
         return writerIndex;
     }
 
+    public boolean isDedupKey() {
+        return dedupKey;
+    }
+
     public boolean isDeleted() {
         return type < 0;
     }
@@ -116,6 +121,10 @@ public class TableColumnMetadata implements Plannable {
         type = -Math.abs(type);
     }
 
+    public void setDedupKey(boolean dedupKey) {
+        this.dedupKey = dedupKey;
+    }
+
     public void setIndexValueBlockCapacity(int indexValueBlockCapacity) {
         this.indexValueBlockCapacity = indexValueBlockCapacity;
     }
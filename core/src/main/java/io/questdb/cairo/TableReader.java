@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.MessageBus;
 import io.questdb.cairo.sql.StaticSymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.MemoryCMRDecompressedImpl;
 import io.questdb.cairo.vm.NullMemoryMR;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
@@ -423,6 +424,30 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Reads zone map of the column in the given partition without opening the partition.
+     *
+     * @param partitionIndex partition index
+     * @param columnIndex    column index, must be of type supported by zone maps
+     * @param buf            buffer of {@link ZoneMapUtils#ZONE_MAP_SIZE} bytes
+     * @return true when zone map exists and is up-to-date with the partition row count
+     */
+    public boolean readZoneMap(int partitionIndex, int columnIndex, long buf) {
+        final long partitionSize = txFile.getPartitionSize(partitionIndex);
+        if (partitionSize < 1) {
+            return false;
+        }
+        final long partitionTimestamp = txFile.getPartitionTimestamp(partitionIndex);
+        final long columnNameTxn = columnVersionReader.getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(columnIndex));
+        Path path = pathGenPartitioned(partitionIndex);
+        try {
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return ZoneMapUtils.read(ff, TableUtils.zmFile(path, metadata.getColumnName(columnIndex), columnNameTxn), partitionSize, buf);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex, boolean forceTruncate) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -849,12 +874,16 @@ public class TableReader implements Closeable, SymbolTableSource {
             ObjList<MemoryMR> columns,
             int primaryIndex,
             MemoryMR mem,
-            long columnSize
+            long columnSize,
+            boolean compressed
     ) {
-        if (mem != null && mem != NullMemoryMR.INSTANCE) {
+        if (mem != null && mem != NullMemoryMR.INSTANCE && (mem instanceof MemoryCMRDecompressedImpl) == compressed) {
             mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
         } else {
-            mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+            Misc.free(mem);
+            mem = compressed
+                    ? Vm.getDecompressedMRInstance(ff, path, columnSize)
+                    : Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
             columns.setQuick(primaryIndex, mem);
         }
         return mem;
@@ -1091,19 +1120,35 @@ public class TableReader implements Closeable, SymbolTableSource {
             // of when the column was added.
             if (columnRowCount > 0 && (versionRecordIndex > -1L || columnVersionReader.getColumnTopPartitionTimestamp(writerIndex) <= partitionTimestamp)) {
                 final int columnType = metadata.getColumnType(columnIndex);
+                // compressed partitions keep column data in .dz and .iz files, which are inflated on open
+                final boolean compressed = txFile.isPartitionCompressed(partitionIndex);
 
                 if (ColumnType.isVariableLength(columnType)) {
                     long columnSize = columnRowCount * 8L + 8L;
-                    TableUtils.iFile(path.trimTo(plen), name, columnTxn);
-                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize);
-                    long column2Size = mem2.getLong(columnRowCount * 8L);
-                    assert column2Size > 0 && column2Size <= (1L << 40); // 1TB, e.g. reasonable size, not garbage
-                    TableUtils.dFile(path.trimTo(plen), name, columnTxn);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, column2Size);
+                    if (compressed) {
+                        TableUtils.izFile(path.trimTo(plen), name, columnTxn);
+                    } else {
+                        TableUtils.iFile(path.trimTo(plen), name, columnTxn);
+                    }
+                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize, compressed);
+                    // compressed data file holds exactly the committed data, its size is known
+                    // without inflating the index
+                    long column2Size = compressed ? -1 : mem2.getLong(columnRowCount * 8L);
+                    assert compressed || (column2Size > 0 && column2Size <= (1L << 40)); // 1TB, e.g. reasonable size, not garbage
+                    if (compressed) {
+                        TableUtils.dzFile(path.trimTo(plen), name, columnTxn);
+                    } else {
+                        TableUtils.dFile(path.trimTo(plen), name, columnTxn);
+                    }
+                    openOrCreateMemory(path, columns, primaryIndex, mem1, column2Size, compressed);
                 } else {
                     long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
-                    TableUtils.dFile(path.trimTo(plen), name, columnTxn);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    if (compressed) {
+                        TableUtils.dzFile(path.trimTo(plen), name, columnTxn);
+                    } else {
+                        TableUtils.dFile(path.trimTo(plen), name, columnTxn);
+                    }
+                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize, compressed);
                     Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 }
 
@@ -1207,7 +1252,9 @@ public class TableReader implements Closeable, SymbolTableSource {
             for (int i = 0; i < columnCount; i++) {
                 final int index = getPrimaryColumnIndex(columnBase, i);
                 final MemoryMR mem1 = columns.getQuick(index);
-                if (mem1 instanceof NullMemoryMR) {
+                // column inflated from a compressed file cannot grow, it is reopened
+                // from the uncompressed file once the partition is decompressed for a write
+                if (mem1 instanceof NullMemoryMR || mem1 instanceof MemoryCMRDecompressedImpl) {
                     reloadColumnAt(
                             partitionIndex,
                             path,
@@ -85,7 +85,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     };
     private static final Row NOOP_ROW = new NoOpRow();
     private static final int O3_ERRNO_FATAL = Integer.MAX_VALUE - 1;
-    private static final int PARTITION_UPDATE_SINK_ENTRY_SIZE = 8;
+    private static final int PARTITION_UPDATE_SINK_ENTRY_SIZE = 9;
     private static final int ROW_ACTION_NO_PARTITION = 1;
     private static final int ROW_ACTION_NO_TIMESTAMP = 2;
     private static final int ROW_ACTION_O3 = 3;
@@ -104,6 +104,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final CairoConfiguration configuration;
     private final MemoryMAR ddlMem;
     private final int defaultCommitMode;
+    private final LongLongHashMap dedupKeyHashes = new LongLongHashMap();
+    private final LongList dedupKeys = new LongList();
+    // partitions decompressed in place, triplets of partition timestamp, name txn and txn of the decompression
+    private final LongList decompressedPartitions = new LongList();
     private final ObjList<ColumnIndexer> denseIndexers = new ObjList<>();
     private final ObjList<MapWriter> denseSymbolMapWriters;
     private final boolean directIOFlag;
@@ -144,6 +148,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final PartitionBy.PartitionFloorMethod partitionFloorMethod;
     private final LongList partitionRemoveCandidates = new LongList();
     private final Path path;
+    // timestamp and name txn pairs of partitions removed by the current transaction
+    private final LongList pendingPartitionRemovals = new LongList();
     private final AtomicLong physicallyWrittenRowsSinceLastCommit = new AtomicLong();
     private final int rootLen;
     private final FragileCode RECOVER_FROM_META_RENAME_FAILURE = this::recoverFromMetaRenameFailure;
@@ -231,6 +237,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final FragileCode RECOVER_FROM_COLUMN_OPEN_FAILURE = this::recoverOpenColumnFailure;
     private UpdateOperatorImpl updateOperatorImpl;
     private WalTxnDetails walTxnDetails;
+    // last partition as of the most recent commit, its zone map is computed once the partition is sealed
+    private long zoneMapLastPartitionTimestamp = Long.MIN_VALUE;
+    // timestamps of partitions written to by O3 since the last commit, zone maps of these
+    // partitions are recomputed once the commit succeeds
+    private final LongList zoneMapPartitions = new LongList();
+    private final boolean zoneMapsEnabled;
 
     public TableWriter(
             CairoConfiguration configuration,
@@ -256,6 +268,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
         this.tableToken = tableToken;
         this.o3QuickSortEnabled = configuration.isO3QuickSortEnabled();
+        this.zoneMapsEnabled = configuration.isZoneMapsEnabled();
         this.o3ColumnMemorySize = configuration.getO3ColumnMemorySize();
         this.path = new Path().of(root).concat(tableToken);
         this.other = new Path().of(root).concat(tableToken);
@@ -327,6 +340,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             configureAppendPosition();
             purgeUnusedPartitions();
             clearTodoLog();
+            this.zoneMapLastPartitionTimestamp = getLastAttachedPartitionTimestamp();
             this.slaveTxReader = new TxReader(ff);
             commandQueue = new RingQueue<>(
                     TableWriterTask::new,
@@ -838,6 +852,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     @Override
     public void close() {
         if (lifecycleManager.close() && isOpen()) {
+            // last chance to remove compressed files of decompressed partitions, e.g. when readers were in the way
+            purgeDecompressedPartitions();
             doClose(true);
         }
     }
@@ -866,6 +882,185 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
     }
 
+    /**
+     * Rewrites partition into a new partition directory version with column data compressed,
+     * see {@link ColumnCompressionUtils}. Index and zone map files are hard linked into the new
+     * version. Readers switch to the new version on reload, the old version is purged once it
+     * is no longer in use.
+     *
+     * @param timestamp partition timestamp
+     * @return false when partition is not eligible for compression, e.g. it is the active partition,
+     * it is read-only or compressed already; also when there is an open transaction
+     */
+    public boolean compressPartition(long timestamp) {
+        assert PartitionBy.isPartitioned(partitionBy);
+        checkDistressed();
+
+        if (inTransaction() || txWriter.getLagRowCount() > 0) {
+            return false;
+        }
+
+        final int partitionIndex = txWriter.getPartitionIndex(timestamp);
+        if (
+                partitionIndex < 0
+                        || partitionIndex == txWriter.getPartitionCount() - 1
+                        || txWriter.isPartitionReadOnly(partitionIndex)
+                        || txWriter.isPartitionCompressed(partitionIndex)
+        ) {
+            return false;
+        }
+
+        final long partitionSize = txWriter.getPartitionSize(partitionIndex);
+        if (partitionSize < 1) {
+            return false;
+        }
+
+        final long partitionTimestamp = txWriter.getPartitionTimestamp(partitionIndex);
+        final long srcNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        final long dstNameTxn = txWriter.getTxn();
+        final long fileOpenOpts = configuration.getWriterFileOpenOpts();
+        long rawSize = 0;
+        long compressedSize = 0;
+        try {
+            setPathForPartition(path, rootLen, partitionBy, partitionTimestamp, srcNameTxn);
+            setPathForPartition(other, rootLen, partitionBy, partitionTimestamp, dstNameTxn);
+            final int plen = path.length();
+            final int olen = other.length();
+            if (ff.exists(other.$())) {
+                // leftover of an earlier attempt
+                ff.unlinkOrRemove(other, LOG);
+            }
+            if (ff.mkdirs(other.slash$(), mkDirMode) != 0) {
+                throw CairoException.critical(ff.errno()).put("could not create directory [path=").put(other).put(']');
+            }
+
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    final int columnType = metadata.getColumnType(i);
+                    if (columnType < 0) {
+                        continue;
+                    }
+                    final long columnTop = columnVersionWriter.getColumnTop(partitionTimestamp, i);
+                    if (columnTop < 0 || columnTop >= partitionSize) {
+                        // column has no data in this partition
+                        continue;
+                    }
+
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+                    final long columnRowCount = partitionSize - columnTop;
+                    final long dataSize;
+                    if (ColumnType.isVariableLength(columnType)) {
+                        final long auxSize = (columnRowCount + 1) * Long.BYTES;
+                        iFile(path.trimTo(plen), columnName, columnNameTxn);
+                        dataSize = TableUtils.readLongAtOffset(ff, path, tempMem16b, columnRowCount * Long.BYTES);
+                        compressedSize += ColumnCompressionUtils.compress(
+                                ff,
+                                path,
+                                auxSize,
+                                izFile(other.trimTo(olen), columnName, columnNameTxn),
+                                ColumnCompressionUtils.FILTER_DELTA_64,
+                                fileOpenOpts
+                        );
+                        rawSize += auxSize;
+                    } else {
+                        dataSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
+                    }
+                    compressedSize += ColumnCompressionUtils.compress(
+                            ff,
+                            dFile(path.trimTo(plen), columnName, columnNameTxn),
+                            dataSize,
+                            dzFile(other.trimTo(olen), columnName, columnNameTxn),
+                            ColumnCompressionUtils.filterOf(columnType),
+                            fileOpenOpts
+                    );
+                    rawSize += dataSize;
+
+                    if (metadata.isColumnIndexed(i)) {
+                        hardLinkOrFail(keyFileName(path.trimTo(plen), columnName, columnNameTxn), keyFileName(other.trimTo(olen), columnName, columnNameTxn));
+                        hardLinkOrFail(valueFileName(path.trimTo(plen), columnName, columnNameTxn), valueFileName(other.trimTo(olen), columnName, columnNameTxn));
+                    }
+                    if (ff.exists(zmFile(path.trimTo(plen), columnName, columnNameTxn))) {
+                        hardLinkOrFail(path, zmFile(other.trimTo(olen), columnName, columnNameTxn));
+                    }
+                }
+            } catch (Throwable th) {
+                other.trimTo(olen).$();
+                ff.unlinkOrRemove(other, LOG);
+                throw th;
+            }
+
+            txWriter.updatePartitionSizeAndTxnByIndex(partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION, partitionSize);
+            txWriter.setPartitionCompressed(partitionIndex, true);
+            txWriter.bumpPartitionTableVersion();
+            txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+            partitionRemoveCandidates.add(partitionTimestamp, srcNameTxn);
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        LOG.info().$("compressed partition [table=").utf8(tableToken.getTableName())
+                .$(", partition=").$ts(partitionTimestamp)
+                .$(", nameTxn=").$(dstNameTxn)
+                .$(", rawSize=").$(rawSize)
+                .$(", compressedSize=").$(compressedSize)
+                .I$();
+        processPartitionRemoveCandidates();
+        return true;
+    }
+
+    /**
+     * Inflates compressed column files of the partition into regular column files next to them and
+     * clears the compressed flag. The flag is persisted with the next commit; until then readers
+     * keep reading the compressed files. These are removed after a commit once no reader uses an
+     * earlier transaction.
+     *
+     * @param partitionIndex partition index
+     */
+    public void decompressPartition(int partitionIndex) {
+        if (!txWriter.isPartitionCompressed(partitionIndex)) {
+            return;
+        }
+
+        final long partitionTimestamp = txWriter.getPartitionTimestamp(partitionIndex);
+        final long partitionSize = txWriter.getPartitionSize(partitionIndex);
+        try {
+            final long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+            setPathForPartition(path, rootLen, partitionBy, partitionTimestamp, partitionNameTxn);
+            setPathForPartition(other, rootLen, partitionBy, partitionTimestamp, partitionNameTxn);
+            final int plen = path.length();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType < 0) {
+                    continue;
+                }
+                final long columnTop = columnVersionWriter.getColumnTop(partitionTimestamp, i);
+                if (columnTop < 0 || columnTop >= partitionSize) {
+                    continue;
+                }
+
+                final CharSequence columnName = metadata.getColumnName(i);
+                final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+                if (ColumnType.isVariableLength(columnType)) {
+                    decompressColumnFile(izFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), columnName, columnNameTxn));
+                }
+                decompressColumnFile(dzFile(path.trimTo(plen), columnName, columnNameTxn), dFile(other.trimTo(plen), columnName, columnNameTxn));
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        txWriter.setPartitionCompressed(partitionIndex, false);
+        txWriter.bumpPartitionTableVersion();
+        decompressedPartitions.add(partitionTimestamp, txWriter.getPartitionNameTxn(partitionIndex));
+        decompressedPartitions.add(txWriter.getTxn());
+        LOG.info().$("decompressed partition [table=").utf8(tableToken.getTableName())
+                .$(", partition=").$ts(partitionTimestamp)
+                .I$();
+    }
+
     public void destroy() {
         // Closes all the files and makes this instance unusable e.g. it cannot return to the pool on close.
         LOG.info().$("closing table files [table=").utf8(tableToken.getTableName())
@@ -900,6 +1095,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
         long minTimestamp = txWriter.getMinTimestamp();
 
+        // detached partition is attached back from uncompressed column files
+        decompressPartition(partitionIndex);
+
         long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
         Path detachedPath = Path.PATH.get();
 
@@ -1273,13 +1471,28 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     }
 
     public boolean inTransaction() {
-        return txWriter != null && (txWriter.inTransaction() || hasO3() || columnVersionWriter.hasChanges());
+        return txWriter != null && (txWriter.inTransaction() || hasO3() || columnVersionWriter.hasChanges() || pendingPartitionRemovals.size() > 0);
+    }
+
+    public boolean isDeduplicationEnabled() {
+        if (metadata.isWalEnabled()) {
+            for (int i = 0; i < columnCount; i++) {
+                if (metadata.getColumnType(i) > 0 && metadata.isDedupKey(i)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public boolean isOpen() {
         return tempMem16b != 0;
     }
 
+    public boolean isPartitionCompressed(int partitionIndex) {
+        return txWriter.isPartitionCompressed(partitionIndex);
+    }
+
     public boolean isPartitionReadOnly(int partitionIndex) {
         return txWriter.isPartitionReadOnly(partitionIndex);
     }
@@ -1440,7 +1653,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 long o3Lo = rowLo;
                 long commitRowCount = rowHi - rowLo;
                 final boolean copiedToMemory;
-                final boolean needsOrdering = !ordered || walLagRowCount > 0;
+                final boolean deduplicate = isDeduplicationEnabled();
+                final MemoryCR walTimestampColumn = walMappedColumns.getQuick(getPrimaryColumnIndex(timestampIndex));
+                final boolean needsOrdering = !ordered || walLagRowCount > 0
+                        || (deduplicate && hasDuplicateTimestamps(walTimestampColumn.addressOf(0), rowLo, rowHi));
 
                 long totalUncommitted = walLagRowCount + commitRowCount;
                 boolean copyToLagOnly = commitToTimestamp < txWriter.getLagMinTimestamp()
@@ -1463,7 +1679,6 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 }
 
                 long timestampAddr;
-                MemoryCR walTimestampColumn = walMappedColumns.getQuick(getPrimaryColumnIndex(timestampIndex));
                 if (needsOrdering) {
                     LOG.info().$("sorting WAL [table=").$(tableToken)
                             .$(", ordered=").$(ordered)
@@ -1493,6 +1708,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     );
                     mapAppendColumnBufferRelease(tsLagBufferAddr, tsLagOffset, tsLagSize);
                     o3MergeIntoLag(timestampAddr, walLagRowCount, rowLo, rowHi, timestampIndex);
+                    if (deduplicate) {
+                        totalUncommitted -= dedupSortedRows(timestampAddr, timestampIndex, totalUncommitted);
+                    }
 
                     // Sorted data is now sorted in memory copy of the data from mmap files
                     // Row indexes start from 0, not rowLo
@@ -1634,6 +1852,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             // Bookmark masterRef to track how many rows is in uncommitted state
             this.committedMasterRef = masterRef;
             processPartitionRemoveCandidates();
+            purgeDecompressedPartitions();
+            writeZoneMaps();
 
             metrics.tableWriter().incrementCommits();
             metrics.tableWriter().addCommittedRows(rowsAdded);
@@ -1882,6 +2102,84 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return true;
     }
 
+    /**
+     * Removes the partition of given timestamp and all partitions after it as a part of the current
+     * transaction. Unlike {@link #removePartition(long)} the removal is not committed on its own:
+     * rows appended after the call go to new versions of the partitions, {@link #commit()} publishes
+     * the removal together with the rows and {@link #rollback()} restores the removed partitions.
+     *
+     * @param timestamp timestamp within the first partition to remove
+     */
+    public void removePartitionsFrom(long timestamp) {
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.nonCritical().put("cannot remove partitions of non-partitioned table [table=")
+                    .put(tableToken.getTableName())
+                    .put(']');
+        }
+
+        // commit changes, there may be uncommitted rows of the partitions
+        commit();
+
+        final long partitionLo = getPartitionLo(timestamp);
+        final int partitionCount = txWriter.getPartitionCount();
+        int index = partitionCount;
+        boolean nameTxnClash = false;
+        while (index > 0 && txWriter.getPartitionTimestamp(index - 1) >= partitionLo) {
+            index--;
+            nameTxnClash |= txWriter.getPartitionNameTxn(index) == txWriter.getTxn() - 1;
+        }
+        if (index == partitionCount) {
+            return;
+        }
+
+        if (nameTxnClash) {
+            // New partitions are named after txn - 1, which is also the name of partitions merged
+            // by the previous commit. Empty commit moves names of new partitions past existing ones.
+            txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+        }
+
+        final long nextMaxTimestamp;
+        final long newTransientRowCount;
+        final long prevTimestamp;
+        if (index == 0) {
+            nextMaxTimestamp = Long.MIN_VALUE;
+            newTransientRowCount = 0L;
+            prevTimestamp = 0L; // meaningless
+        } else {
+            final int prevIndex = index - 1;
+            prevTimestamp = txWriter.getPartitionTimestamp(prevIndex);
+            newTransientRowCount = txWriter.getPartitionSize(prevIndex);
+            try {
+                setPathForPartition(path.trimTo(rootLen), partitionBy, prevTimestamp, false);
+                TableUtils.txnPartitionConditionally(path, txWriter.getPartitionNameTxn(prevIndex));
+                readPartitionMinMax(ff, prevTimestamp, path, metadata.getColumnName(metadata.getTimestampIndex()), newTransientRowCount);
+                nextMaxTimestamp = attachMaxTimestamp;
+            } finally {
+                path.trimTo(rootLen);
+            }
+        }
+
+        txWriter.beginPartitionSizeUpdate();
+        for (int i = partitionCount - 1; i >= index; i--) {
+            final long partitionTimestamp = txWriter.getPartitionTimestamp(i);
+            pendingPartitionRemovals.add(partitionTimestamp, txWriter.getPartitionNameTxn(i));
+            columnVersionWriter.removePartition(partitionTimestamp);
+            txWriter.removeAttachedPartitions(partitionTimestamp);
+        }
+        txWriter.finishPartitionSizeUpdate(index == 0 ? Long.MAX_VALUE : txWriter.getMinTimestamp(), nextMaxTimestamp);
+        txWriter.bumpTruncateVersion();
+
+        // Removed partitions stay on disk until commit, keep their files intact.
+        closeActivePartition(false);
+
+        if (index != 0) {
+            openPartition(prevTimestamp);
+            setAppendPosition(newTransientRowCount, false);
+        } else {
+            rowAction = ROW_ACTION_OPEN_PARTITION;
+        }
+    }
+
     @Override
     public void renameColumn(CharSequence currentName, CharSequence newName) {
         checkDistressed();
@@ -1940,12 +2238,14 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             try {
                 LOG.info().$("tx rollback [name=").utf8(tableToken.getTableName()).I$();
                 partitionRemoveCandidates.clear();
+                zoneMapPartitions.clear();
                 o3CommitBatchTimestampMin = Long.MAX_VALUE;
                 if ((masterRef & 1) != 0) {
                     masterRef++;
                 }
                 freeColumns(false);
                 txWriter.unsafeLoadAll();
+                removePendingPartitionVersions();
                 rollbackIndexes();
                 rollbackSymbolTables();
                 columnVersionWriter.readUnsafe();
@@ -2052,6 +2352,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         // Some alter table trigger commit() which trigger tick()
         // If already inside the tick(), do not re-enter it.
         processCommandQueue(contextAllowsAnyStructureChanges);
+        // retry removal of compressed files deferred by readers of earlier transactions
+        purgeDecompressedPartitions();
     }
 
     @Override
@@ -2233,6 +2535,15 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return -1;
     }
 
+    private static boolean hasDuplicateTimestamps(long timestampIndexAddr, long rowLo, long rowHi) {
+        for (long i = rowLo + 1; i < rowHi; i++) {
+            if (getTimestampIndexValue(timestampIndexAddr, i) == getTimestampIndexValue(timestampIndexAddr, i - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static ColumnVersionWriter openColumnVersionFile(FilesFacade ff, Path path, int rootLen) {
         path.concat(COLUMN_VERSION_FILE_NAME).$();
         try {
@@ -2251,7 +2562,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
-    private static void removeFileAndOrLog(FilesFacade ff, LPSZ name) {
+    private static boolean removeFileAndOrLog(FilesFacade ff, LPSZ name) {
         if (ff.exists(name)) {
             if (ff.remove(name)) {
                 LOG.debug().$("removed [file=").utf8(name).I$();
@@ -2260,8 +2571,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                         .$("could not remove [errno=").$(ff.errno())
                         .$(", file=").utf8(name)
                         .I$();
+                return false;
             }
         }
+        return true;
     }
 
     private static void renameFileOrLog(FilesFacade ff, LPSZ from, LPSZ to) {
@@ -2832,7 +3145,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             this.committedMasterRef = masterRef;
+            partitionRemoveCandidates.add(pendingPartitionRemovals);
+            pendingPartitionRemovals.clear();
             processPartitionRemoveCandidates();
+            purgeDecompressedPartitions();
+            writeZoneMaps();
 
             metrics.tableWriter().incrementCommits();
             metrics.tableWriter().addCommittedRows(rowsAdded);
@@ -2980,6 +3297,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isColumnDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.skip(16);
@@ -3134,6 +3454,59 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return identical;
     }
 
+    private void decompressColumnFile(LPSZ src, LPSZ dst) {
+        final int srcFd = TableUtils.openRO(ff, src, LOG);
+        try {
+            final long rawSize = ColumnCompressionUtils.readRawSize(ff, srcFd, src);
+            final int dstFd = TableUtils.openRW(ff, dst, LOG, configuration.getWriterFileOpenOpts());
+            try {
+                if (!ff.truncate(dstFd, rawSize)) {
+                    throw CairoException.critical(ff.errno()).put("could not truncate [file=").put(dst).put(", size=").put(rawSize).put(']');
+                }
+                if (rawSize > 0) {
+                    final long addr = TableUtils.mapRW(ff, dstFd, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+                    try {
+                        ColumnCompressionUtils.decompress(ff, srcFd, src, addr, rawSize);
+                    } finally {
+                        ff.munmap(addr, rawSize, MemoryTag.MMAP_TABLE_WRITER);
+                    }
+                }
+            } finally {
+                ff.close(dstFd);
+            }
+        } finally {
+            ff.close(srcFd);
+        }
+    }
+
+    private long dedupSortedRows(long sortedTimestampsAddr, int timestampIndex, long rowCount) {
+        // rows are already copied to memory in timestamp order, make index point to row positions
+        Vect.flattenIndex(sortedTimestampsAddr, rowCount);
+        dedupKeys.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (i != timestampIndex && type > 0 && metadata.isDedupKey(i)) {
+                O3Utils.addDedupKey(
+                        dedupKeys,
+                        o3MemColumns.getQuick(getPrimaryColumnIndex(i)).addressOf(0),
+                        0,
+                        0,
+                        ColumnType.pow2SizeOf(type),
+                        0
+                );
+            }
+        }
+        final long removed = O3Utils.dedupSortedIndex(sortedTimestampsAddr, rowCount, dedupKeys, dedupKeyHashes);
+        if (removed > 0) {
+            LOG.info().$("deduplicated WAL rows [table=").utf8(tableToken.getTableName())
+                    .$(", rowCount=").$(rowCount)
+                    .$(", removed=").$(removed)
+                    .I$();
+            o3Sort(sortedTimestampsAddr, timestampIndex, rowCount - removed);
+        }
+        return removed;
+    }
+
     private void dispatchO3CallbackQueue(RingQueue<O3CallbackTask> queue, int queuedCount) {
         // This is work stealing, can run tasks from other table writers
         final Sequence subSeq = this.messageBus.getO3CallbackSubSeq();
@@ -3310,6 +3683,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private long getLastAttachedPartitionTimestamp() {
+        final int partitionCount = txWriter.getPartitionCount();
+        return partitionCount > 0 ? txWriter.getPartitionTimestamp(partitionCount - 1) : Long.MIN_VALUE;
+    }
+
     private long getMaxWalSquashRows() {
         return (long) configuration.getWalSquashUncommittedRowsMultiplier() * metadata.getMaxUncommittedRows();
     }
@@ -3322,6 +3700,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return partitionFloorMethod.floor(timestamp);
     }
 
+    private int getPartitionUpdateSinkOffset(long partitionTimestamp) {
+        final long basePartitionTs = o3PartitionUpdateSink.get(0);
+        final int partitionSinkIndex = (int) ((partitionTimestamp - basePartitionTs) / PartitionBy.getPartitionTimeIntervalFloor(partitionBy));
+        return partitionSinkIndex * PARTITION_UPDATE_SINK_ENTRY_SIZE;
+    }
+
     private MemoryMA getPrimaryColumn(int column) {
         assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
         return columns.getQuick(getPrimaryColumnIndex(column));
@@ -3361,6 +3745,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void hardLinkOrFail(LPSZ src, LPSZ dst) {
+        if (ff.hardLink(src, dst) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create hard link [src=").put(src).put(", dst=").put(dst).put(']');
+        }
+    }
+
     private void indexHistoricPartitions(SymbolColumnIndexer indexer, CharSequence columnName, int indexValueBlockSize) {
         long ts = this.txWriter.getMaxTimestamp();
         if (ts > Numbers.LONG_NaN) {
@@ -3368,6 +3758,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             try (final MemoryMR roMem = indexMem) {
                 // Index last partition separately
                 for (int i = 0, n = txWriter.getPartitionCount() - 1; i < n; i++) {
+                    // the indexer reads uncompressed column files
+                    decompressPartition(i);
 
                     long timestamp = txWriter.getPartitionTimestamp(i);
                     path.trimTo(rootLen);
@@ -3820,12 +4212,16 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             long timestampMin = o3PartitionUpdateSink.get(offset + 1);
 
             if (partitionTimestamp != -1L && timestampMin != -1L) {
+                if (zoneMapsEnabled) {
+                    zoneMapPartitions.add(partitionTimestamp);
+                }
                 long timestampMax = o3PartitionUpdateSink.get(offset + 2);
                 long srcOooPartitionLo = o3PartitionUpdateSink.get(offset + 3);
                 long srcOooPartitionHi = o3PartitionUpdateSink.get(offset + 4);
                 boolean partitionMutates = o3PartitionUpdateSink.get(offset + 5) != 0;
                 long srcOooMax = o3PartitionUpdateSink.get(offset + 6);
                 long srcDataMax = o3PartitionUpdateSink.get(offset + 7);
+                long dedupRowCount = Math.max(o3PartitionUpdateSink.get(offset + 8), 0);
 
                 o3PartitionUpdate(
                         timestampMin,
@@ -3835,6 +4231,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                         srcOooPartitionHi,
                         srcOooMax,
                         srcDataMax,
+                        dedupRowCount,
                         partitionMutates
                 );
 
@@ -4527,10 +4924,19 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             long srcOooPartitionHi,
             long srcOooMax,
             long srcDataMax,
+            long dedupRowCount,
             boolean partitionMutates
     ) {
         txWriter.minTimestamp = Math.min(timestampMin, txWriter.minTimestamp);
-        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1;
+        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1 - dedupRowCount;
+        if (dedupRowCount > 0) {
+            // row counts were accumulated before the merge knew how many rows collapse
+            if (partitionTimestamp == partitionFloorMethod.floor(txWriter.getMaxTimestamp())) {
+                txWriter.transientRowCount -= dedupRowCount;
+            } else {
+                txWriter.fixedRowCount -= dedupRowCount;
+            }
+        }
         final long rowDelta = srcOooPartitionHi - srcOooMax;
         final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
         if (partitionTimestamp == lastPartitionTimestamp) {
@@ -4551,6 +4957,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 .$(", srcOooPartitionHi=").$(srcOooPartitionHi)
                 .$(", srcOooMax=").$(srcOooMax)
                 .$(", srcDataMax=").$(srcDataMax)
+                .$(", dedupRowCount=").$(dedupRowCount)
                 .$(", partitionMutates=").$(partitionMutates)
                 .$(", lastPartitionTimestamp=").$(lastPartitionTimestamp)
                 .$(", partitionSize=").$(partitionSize)
@@ -5174,7 +5581,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     }
 
                     // We're appending onto the last (active) partition.
-                    final boolean append = last && (srcDataMax == 0 || o3Timestamp >= maxTimestamp);
+                    // Rows matching the max timestamp of a deduplicated table may replace existing rows,
+                    // they have to be merged rather than appended.
+                    final boolean append = last && (srcDataMax == 0 || o3Timestamp > maxTimestamp || (o3Timestamp == maxTimestamp && !isDeduplicationEnabled()));
 
                     // Number of rows to insert from the O3 segment into this partition.
                     final long srcOooBatchRowSize = srcOooHi - srcOooLo + 1;
@@ -5221,6 +5630,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                         continue;
                     }
 
+                    if (partitionIndex > -1 && txWriter.isPartitionCompressedByPartitionTimestamp(partitionTimestamp)) {
+                        // o3 merges into and appends to uncompressed column files
+                        decompressPartition(txWriter.getPartitionIndex(partitionTimestamp));
+                    }
+
                     if (partitionTimestamp < lastPartitionTimestamp) {
                         // increment fixedRowCount by number of rows old partition incremented
                         this.txWriter.fixedRowCount += srcOooBatchRowSize;
@@ -5499,6 +5913,30 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void purgeDecompressedPartitions() {
+        if (decompressedPartitions.size() == 0 || checkScoreboardHasReadersBeforeLastCommittedTxn()) {
+            // readers of earlier transactions may still open the compressed files, retry later
+            return;
+        }
+
+        int pendingSize = 0;
+        try {
+            for (int i = 0, n = decompressedPartitions.size(); i < n; i += 3) {
+                final long partitionTimestamp = decompressedPartitions.getQuick(i);
+                final long partitionNameTxn = decompressedPartitions.getQuick(i + 1);
+                final long decompressionTxn = decompressedPartitions.getQuick(i + 2);
+                // until decompressed partition is committed, the compressed files are still current
+                if (decompressionTxn == txWriter.getTxn() || !removeCompressedFiles(partitionTimestamp, partitionNameTxn)) {
+                    decompressedPartitions.setQuick(pendingSize++, partitionTimestamp);
+                    decompressedPartitions.setQuick(pendingSize++, partitionNameTxn);
+                    decompressedPartitions.setQuick(pendingSize++, decompressionTxn);
+                }
+            }
+        } finally {
+            decompressedPartitions.setPos(pendingSize);
+        }
+    }
+
     private long readMinTimestamp(long partitionTimestamp) {
         setStateForTimestamp(other, partitionTimestamp);
         try {
@@ -5866,6 +6304,40 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    // returns false when some files could not be removed, e.g. they are still open by pooled readers
+    private boolean removeCompressedFiles(long partitionTimestamp, long partitionNameTxn) {
+        final int partitionIndex = txWriter.getPartitionIndex(partitionTimestamp);
+        if (
+                partitionIndex < 0
+                        || txWriter.getPartitionNameTxn(partitionIndex) != partitionNameTxn
+                        || txWriter.isPartitionCompressed(partitionIndex)
+        ) {
+            // partition was dropped, rewritten into a new version or compressed again
+            return true;
+        }
+
+        boolean removed = true;
+        try {
+            setPathForPartition(path, rootLen, partitionBy, partitionTimestamp, partitionNameTxn);
+            final int plen = path.length();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType < 0) {
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(i);
+                final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+                removed &= removeFileAndOrLog(ff, dzFile(path.trimTo(plen), columnName, columnNameTxn));
+                if (ColumnType.isVariableLength(columnType)) {
+                    removed &= removeFileAndOrLog(ff, izFile(path.trimTo(plen), columnName, columnNameTxn));
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+        return removed;
+    }
+
     private void removeIndexFiles(CharSequence columnName, int columnIndex) {
         try {
             for (int i = txWriter.getPartitionCount() - 1; i > -1L; i--) {
@@ -5977,6 +6449,26 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void removePendingPartitionVersions() {
+        // Versions of partitions removed by the rolled back transaction are attached again. New versions
+        // written under the same timestamps are not purged as non-attached, remove them explicitly.
+        for (int i = 0, n = pendingPartitionRemovals.size(); i < n; i += 2) {
+            final long timestamp = pendingPartitionRemovals.getQuick(i);
+            for (long txn = txWriter.getTxn() - 1; txn <= txWriter.getTxn(); txn++) {
+                try {
+                    setPathForPartition(other, partitionBy, timestamp, false);
+                    TableUtils.txnPartitionConditionally(other, txn);
+                    if (ff.exists(other.$())) {
+                        ff.unlinkOrRemove(other, LOG);
+                    }
+                } finally {
+                    other.trimTo(rootLen);
+                }
+            }
+        }
+        pendingPartitionRemovals.clear();
+    }
+
     private void removeSymbolMapFilesQuiet(CharSequence name, long columnNamTxn) {
         try {
             removeFileAndOrLog(ff, offsetFileName(path.trimTo(rootLen), name, columnNamTxn));
@@ -6074,6 +6566,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         renameFileOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, keyFileName(path.trimTo(plen), columnName, columnNameTxn), keyFileName(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, valueFileName(path.trimTo(plen), columnName, columnNameTxn), valueFileName(other.trimTo(plen), newName, columnNameTxn));
+        renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName, columnNameTxn), dzFile(other.trimTo(plen), newName, columnNameTxn));
+        renameFileOrLog(ff, izFile(path.trimTo(plen), columnName, columnNameTxn), izFile(other.trimTo(plen), newName, columnNameTxn));
+        renameFileOrLog(ff, zmFile(path.trimTo(plen), columnName, columnNameTxn), zmFile(other.trimTo(plen), newName, columnNameTxn));
         path.trimTo(rootLen);
         other.trimTo(rootLen);
     }
@@ -6689,6 +7184,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isColumnDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.skip(16);
@@ -6716,6 +7215,83 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         todoMem.jumpTo(56);
     }
 
+    private void writeZoneMaps() {
+        if (!zoneMapsEnabled) {
+            return;
+        }
+
+        // partitions are sealed once data lands in a newer partition, a single commit
+        // can seal the previous last partition along with the partitions it created
+        final long lastPartitionTimestamp = getLastAttachedPartitionTimestamp();
+        if (zoneMapLastPartitionTimestamp != lastPartitionTimestamp) {
+            for (int i = 0, n = txWriter.getPartitionCount() - 1; i < n; i++) {
+                final long partitionTimestamp = txWriter.getPartitionTimestamp(i);
+                if (partitionTimestamp >= zoneMapLastPartitionTimestamp && partitionTimestamp < lastPartitionTimestamp) {
+                    zoneMapPartitions.add(partitionTimestamp);
+                }
+            }
+            zoneMapLastPartitionTimestamp = lastPartitionTimestamp;
+        }
+
+        if (zoneMapPartitions.size() == 0) {
+            return;
+        }
+
+        final long buf = Unsafe.malloc(ZoneMapUtils.ZONE_MAP_SIZE, MemoryTag.NATIVE_TABLE_WRITER);
+        try {
+            final int lastPartitionIndex = txWriter.getPartitionCount() - 1;
+            for (int i = 0, n = zoneMapPartitions.size(); i < n; i++) {
+                final long partitionTimestamp = zoneMapPartitions.getQuick(i);
+                final int partitionIndex = txWriter.getPartitionIndex(partitionTimestamp);
+                // last partition is still being appended to, its zone map would be stale on the next commit
+                if (
+                        partitionIndex < 0
+                                || partitionIndex == lastPartitionIndex
+                                || txWriter.isPartitionReadOnly(partitionIndex)
+                                || txWriter.isPartitionCompressed(partitionIndex)
+                ) {
+                    continue;
+                }
+
+                final long partitionRowCount = txWriter.getPartitionSize(partitionIndex);
+                if (partitionRowCount < 1) {
+                    continue;
+                }
+
+                setPathForPartition(path, rootLen, partitionBy, partitionTimestamp, txWriter.getPartitionNameTxn(partitionIndex));
+                for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                    final int columnType = metadata.getColumnType(columnIndex);
+                    if (columnType > 0 && ZoneMapUtils.isSupported(columnType)) {
+                        ZoneMapUtils.write(
+                                ff,
+                                path,
+                                other,
+                                metadata.getColumnName(columnIndex),
+                                columnVersionWriter.getColumnNameTxn(partitionTimestamp, columnIndex),
+                                columnType,
+                                columnVersionWriter.getColumnTop(partitionTimestamp, columnIndex),
+                                partitionRowCount,
+                                configuration.getWriterFileOpenOpts(),
+                                buf
+                        );
+                    }
+                }
+                LOG.debug().$("zone maps written [path=").utf8(path).I$();
+            }
+        } catch (CairoException e) {
+            // zone maps are optional, the data has been committed already
+            LOG.error().$("could not write zone maps [table=").utf8(tableToken.getTableName())
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+            zoneMapPartitions.clear();
+            Unsafe.free(buf, ZoneMapUtils.ZONE_MAP_SIZE, MemoryTag.NATIVE_TABLE_WRITER);
+        }
+    }
+
     static void indexAndCountDown(ColumnIndexer indexer, long lo, long hi, SOCountDownLatch latch) {
         try {
             indexer.refreshSourceAndIndex(lo, hi);
@@ -6770,6 +7346,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return messageBus.getO3OpenColumnQueue();
     }
 
+    long getO3PartitionDedupRowCount(long partitionTimestamp) {
+        // the slot is -1 when partition was not deduplicated
+        return Math.max(o3PartitionUpdateSink.get(getPartitionUpdateSinkOffset(partitionTimestamp) + 8), 0);
+    }
+
     long getPartitionNameTxnByIndex(int index) {
         return txWriter.getPartitionNameTxnByIndex(index);
     }
@@ -6782,6 +7363,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return txWriter;
     }
 
+    boolean isDedupKey(int columnIndex) {
+        return metadata.isDedupKey(columnIndex);
+    }
+
     void o3ClockDownPartitionUpdateCount() {
         o3PartitionUpdRemaining.decrementAndGet();
     }
@@ -6790,6 +7375,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         o3DoneLatch.countDown();
     }
 
+    void o3NotifyPartitionDedup(long partitionTimestamp, long dedupRowCount) {
+        o3PartitionUpdateSink.set(getPartitionUpdateSinkOffset(partitionTimestamp) + 8, dedupRowCount);
+    }
+
     void o3NotifyPartitionUpdate(
             long timestampMin,
             long timestampMax,
@@ -6800,9 +7389,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             long srcOooMax,
             long srcDataMax
     ) {
-        long basePartitionTs = o3PartitionUpdateSink.get(0);
-        int partitionSinkIndex = (int) ((partitionTimestamp - basePartitionTs) / PartitionBy.getPartitionTimeIntervalFloor(partitionBy));
-        int offset = partitionSinkIndex * PARTITION_UPDATE_SINK_ENTRY_SIZE;
+        final int offset = getPartitionUpdateSinkOffset(partitionTimestamp);
 
         o3PartitionUpdateSink.set(offset, partitionTimestamp);
         o3PartitionUpdateSink.set(offset + 1, timestampMin);
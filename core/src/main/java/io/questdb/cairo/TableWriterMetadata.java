@@ -82,6 +82,10 @@ class TableWriterMetadata extends AbstractRecordMetadata implements TableRecordM
         return version;
     }
 
+    public boolean isDedupKey(int columnIndex) {
+        return columnMetadata.getQuick(columnIndex).isDedupKey();
+    }
+
     @Override
     public boolean isWalEnabled() {
         return walEnabled;
@@ -109,17 +113,17 @@ class TableWriterMetadata extends AbstractRecordMetadata implements TableRecordM
             assert name != null;
             int type = TableUtils.getColumnType(metaMem, i);
             String nameStr = Chars.toString(name);
-            columnMetadata.add(
-                    new TableColumnMetadata(
-                            nameStr,
-                            type,
-                            TableUtils.isColumnIndexed(metaMem, i),
-                            TableUtils.getIndexBlockCapacity(metaMem, i),
-                            true,
-                            null,
-                            i
-                    )
+            final TableColumnMetadata column = new TableColumnMetadata(
+                    nameStr,
+                    type,
+                    TableUtils.isColumnIndexed(metaMem, i),
+                    TableUtils.getIndexBlockCapacity(metaMem, i),
+                    true,
+                    null,
+                    i
             );
+            column.setDedupKey(TableUtils.isColumnDedupKey(metaMem, i));
+            columnMetadata.add(column);
             columnNameIndexMap.put(nameStr, i);
             if (ColumnType.isSymbol(type)) {
                 symbolMapCount++;
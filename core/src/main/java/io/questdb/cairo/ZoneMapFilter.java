@@ -0,0 +1,206 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.*;
+
+/**
+ * Conjunction of simple "column op constant" predicates that are checked against partition
+ * zone maps, see {@link ZoneMapUtils}. Data frame cursors use it to skip partitions where none
+ * of the rows can satisfy the predicates. Partitions without up-to-date zone maps are never
+ * skipped, so the filter is only an optimisation and the original filter must still be applied
+ * to the rows of the remaining partitions.
+ */
+public class ZoneMapFilter implements QuietCloseable {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 4;
+    public static final int OP_GT = 3;
+    public static final int OP_LE = 2;
+    public static final int OP_LT = 1;
+    // floating point constants can differ from stored values by a rounding error,
+    // equality comparison is done with a tolerance on that account
+    private static final double EQ_TOLERANCE = 0.000000001;
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    // 1 when predicate compares values as doubles, 0 when as longs
+    private final IntList doubleComparisons = new IntList();
+    private final IntList ops = new IntList();
+    private final LongList values = new LongList();
+    private long buf;
+
+    public ZoneMapFilter() {
+        this.buf = Unsafe.malloc(ZoneMapUtils.ZONE_MAP_SIZE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Returns operation code that yields the same result when operands are swapped,
+     * e.g. "5 &lt; x" is the same as "x &gt; 5".
+     */
+    public static int flip(int op) {
+        switch (op) {
+            case OP_LT:
+                return OP_GT;
+            case OP_LE:
+                return OP_GE;
+            case OP_GT:
+                return OP_LT;
+            case OP_GE:
+                return OP_LE;
+            default:
+                return op;
+        }
+    }
+
+    /**
+     * @return operation code for the given binary operator token or -1 when operator is not supported
+     */
+    public static int opOf(CharSequence token) {
+        if (token.length() == 1) {
+            switch (token.charAt(0)) {
+                case '=':
+                    return OP_EQ;
+                case '<':
+                    return OP_LT;
+                case '>':
+                    return OP_GT;
+                default:
+                    return -1;
+            }
+        }
+        if (Chars.equals(token, "<=")) {
+            return OP_LE;
+        }
+        if (Chars.equals(token, ">=")) {
+            return OP_GE;
+        }
+        return -1;
+    }
+
+    public void addDouble(int columnIndex, int columnType, int op, double value) {
+        add(columnIndex, columnType, op, Double.doubleToRawLongBits(value), 1);
+    }
+
+    public void addLong(int columnIndex, int columnType, int op, long value) {
+        add(columnIndex, columnType, op, value, 0);
+    }
+
+    /**
+     * Checks predicates against zone maps of the partition.
+     *
+     * @return true when it is certain that none of the partition rows match the predicates
+     */
+    public boolean canSkip(TableReader reader, int partitionIndex) {
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (reader.readZoneMap(partitionIndex, columnIndexes.getQuick(i), buf) && cannotMatch(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (buf != 0) {
+            Unsafe.free(buf, ZoneMapUtils.ZONE_MAP_SIZE, MemoryTag.NATIVE_DEFAULT);
+            buf = 0;
+        }
+    }
+
+    public boolean isEmpty() {
+        return columnIndexes.size() == 0;
+    }
+
+    private static boolean cannotMatch(int op, double value, double min, double max) {
+        switch (op) {
+            case OP_EQ:
+                return value < min - EQ_TOLERANCE || value > max + EQ_TOLERANCE;
+            case OP_LT:
+                return min >= value;
+            case OP_LE:
+                return min > value;
+            case OP_GT:
+                return max <= value;
+            default:
+                return max < value;
+        }
+    }
+
+    private static boolean cannotMatch(int op, long value, long min, long max) {
+        switch (op) {
+            case OP_EQ:
+                return value < min || value > max;
+            case OP_LT:
+                return min >= value;
+            case OP_LE:
+                return min > value;
+            case OP_GT:
+                return max <= value;
+            default:
+                return max < value;
+        }
+    }
+
+    private void add(int columnIndex, int columnType, int op, long value, int doubleComparison) {
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        ops.add(op);
+        values.add(value);
+        doubleComparisons.add(doubleComparison);
+    }
+
+    private boolean cannotMatch(int predicateIndex) {
+        final long rowCount = Unsafe.getUnsafe().getLong(buf + ZoneMapUtils.OFFSET_ROW_COUNT);
+        final long nullCount = Unsafe.getUnsafe().getLong(buf + ZoneMapUtils.OFFSET_NULL_COUNT);
+        if (nullCount >= rowCount) {
+            // comparison with non-null constant is false for null values
+            return true;
+        }
+
+        final int op = ops.getQuick(predicateIndex);
+        final long value = values.getQuick(predicateIndex);
+        final boolean floatingPointColumn = ZoneMapUtils.isFloatingPoint(columnTypes.getQuick(predicateIndex));
+        if (doubleComparisons.getQuick(predicateIndex) == 0) {
+            assert !floatingPointColumn;
+            return cannotMatch(
+                    op,
+                    value,
+                    Unsafe.getUnsafe().getLong(buf + ZoneMapUtils.OFFSET_MIN),
+                    Unsafe.getUnsafe().getLong(buf + ZoneMapUtils.OFFSET_MAX)
+            );
+        }
+
+        final double min;
+        final double max;
+        if (floatingPointColumn) {
+            min = Unsafe.getUnsafe().getDouble(buf + ZoneMapUtils.OFFSET_MIN);
+            max = Unsafe.getUnsafe().getDouble(buf + ZoneMapUtils.OFFSET_MAX);
+        } else {
+            min = Unsafe.getUnsafe().getLong(buf + ZoneMapUtils.OFFSET_MIN);
+            max = Unsafe.getUnsafe().getLong(buf + ZoneMapUtils.OFFSET_MAX);
+        }
+        return cannotMatch(op, Double.longBitsToDouble(value), min, max);
+    }
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+/**
+ * Zone maps are min/max statistics of fixed-size numeric columns kept for every sealed
+ * partition. Each column gets a small file next to its data file, see {@link TableUtils#zmFile},
+ * with the following layout:
+ * <pre>
+ *  0 - partition row count the statistics were computed for
+ *  8 - number of null values, column top included
+ * 16 - min non-null value
+ * 24 - max non-null value
+ * </pre>
+ * Integer types store min and max as longs, floating point types store them as doubles.
+ * Readers trust the statistics only when stored row count matches row count of the partition.
+ * Partitions are never shrunk in place, so any write to the partition after the zone map
+ * has been computed makes the zone map stale.
+ */
+public final class ZoneMapUtils {
+    public static final int OFFSET_MAX = 24;
+    public static final int OFFSET_MIN = 16;
+    public static final int OFFSET_NULL_COUNT = 8;
+    public static final int OFFSET_ROW_COUNT = 0;
+    public static final int ZONE_MAP_SIZE = 32;
+    private static final Log LOG = LogFactory.getLog(ZoneMapUtils.class);
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private ZoneMapUtils() {
+    }
+
+    public static boolean isFloatingPoint(int columnType) {
+        final int tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads zone map file into the buffer of {@link #ZONE_MAP_SIZE} bytes.
+     *
+     * @return true when file exists and has been computed for the given partition row count
+     */
+    public static boolean read(FilesFacade ff, LPSZ path, long partitionRowCount, long buf) {
+        final int fd = ff.openRO(path);
+        if (fd < 0) {
+            return false;
+        }
+        try {
+            return ff.read(fd, buf, ZONE_MAP_SIZE, 0) == ZONE_MAP_SIZE
+                    && Unsafe.getUnsafe().getLong(buf + OFFSET_ROW_COUNT) == partitionRowCount;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    /**
+     * Computes zone map of the column in the given partition and writes it next to the column file.
+     * The file is written under temporary name and then renamed, so that concurrent readers never
+     * observe partially written statistics.
+     *
+     * @param path  partition directory, the path is restored before method returns
+     * @param other scratch path
+     * @param buf   scratch buffer of {@link #ZONE_MAP_SIZE} bytes
+     */
+    public static void write(
+            FilesFacade ff,
+            Path path,
+            Path other,
+            CharSequence columnName,
+            long columnNameTxn,
+            int columnType,
+            long columnTop,
+            long partitionRowCount,
+            long fileOpenOpts,
+            long buf
+    ) {
+        final int plen = path.length();
+        try {
+            final long columnRowCount = columnTop > -1 ? Math.max(0, partitionRowCount - columnTop) : 0;
+            final int tag = ColumnType.tagOf(columnType);
+
+            Unsafe.getUnsafe().putLong(buf + OFFSET_ROW_COUNT, partitionRowCount);
+            Unsafe.getUnsafe().putLong(buf + OFFSET_NULL_COUNT, 0);
+            if (isFloatingPoint(columnType)) {
+                Unsafe.getUnsafe().putDouble(buf + OFFSET_MIN, Double.POSITIVE_INFINITY);
+                Unsafe.getUnsafe().putDouble(buf + OFFSET_MAX, Double.NEGATIVE_INFINITY);
+            } else {
+                Unsafe.getUnsafe().putLong(buf + OFFSET_MIN, Long.MAX_VALUE);
+                Unsafe.getUnsafe().putLong(buf + OFFSET_MAX, Long.MIN_VALUE);
+            }
+
+            if (columnRowCount > 0) {
+                final long size = columnRowCount << ColumnType.pow2SizeOf(columnType);
+                final int fd = TableUtils.openRO(ff, TableUtils.dFile(path, columnName, columnNameTxn), LOG);
+                long addr = 0;
+                try {
+                    addr = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+                    computeStats(tag, addr, columnRowCount, buf);
+                } finally {
+                    if (addr != 0) {
+                        ff.munmap(addr, size, MemoryTag.MMAP_TABLE_WRITER);
+                    }
+                    ff.close(fd);
+                }
+                path.trimTo(plen);
+            }
+
+            final long topRowCount = partitionRowCount - columnRowCount;
+            if (topRowCount > 0) {
+                if (tag == ColumnType.BYTE || tag == ColumnType.SHORT) {
+                    // these types have no null value, rows above column top read as 0
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_MIN, Math.min(Unsafe.getUnsafe().getLong(buf + OFFSET_MIN), 0));
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_MAX, Math.max(Unsafe.getUnsafe().getLong(buf + OFFSET_MAX), 0));
+                } else {
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_NULL_COUNT, Unsafe.getUnsafe().getLong(buf + OFFSET_NULL_COUNT) + topRowCount);
+                }
+            }
+
+            TableUtils.zmFile(path, columnName, columnNameTxn);
+            other.of(path).put(TMP_SUFFIX).$();
+            final int fd = TableUtils.openRW(ff, other, LOG, fileOpenOpts);
+            try {
+                if (ff.write(fd, buf, ZONE_MAP_SIZE, 0) != ZONE_MAP_SIZE) {
+                    throw CairoException.critical(ff.errno()).put("could not write zone map [file=").put(other).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+            if (ff.rename(other, path) != Files.FILES_RENAME_OK) {
+                ff.remove(other);
+                throw CairoException.critical(ff.errno()).put("could not rename zone map [from=").put(other).put(", to=").put(path).put(']');
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private static void computeStats(int tag, long addr, long count, long buf) {
+        long nullCount = 0;
+        switch (tag) {
+            case ColumnType.BYTE: {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (long p = addr, lim = addr + count; p < lim; p++) {
+                    final byte v = Unsafe.getUnsafe().getByte(p);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                Unsafe.getUnsafe().putLong(buf + OFFSET_MIN, min);
+                Unsafe.getUnsafe().putLong(buf + OFFSET_MAX, max);
+                break;
+            }
+            case ColumnType.SHORT: {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (long p = addr, lim = addr + count * Short.BYTES; p < lim; p += Short.BYTES) {
+                    final short v = Unsafe.getUnsafe().getShort(p);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                Unsafe.getUnsafe().putLong(buf + OFFSET_MIN, min);
+                Unsafe.getUnsafe().putLong(buf + OFFSET_MAX, max);
+                break;
+            }
+            case ColumnType.INT: {
+                final long nonNullCount = Vect.countInt(addr, count);
+                nullCount = count - nonNullCount;
+                if (nonNullCount > 0) {
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_MIN, Vect.minInt(addr, count));
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_MAX, Vect.maxInt(addr, count));
+                }
+                break;
+            }
+            case ColumnType.FLOAT: {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (long p = addr, lim = addr + count * Float.BYTES; p < lim; p += Float.BYTES) {
+                    final float v = Unsafe.getUnsafe().getFloat(p);
+                    if (v != v) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                Unsafe.getUnsafe().putDouble(buf + OFFSET_MIN, min);
+                Unsafe.getUnsafe().putDouble(buf + OFFSET_MAX, max);
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final long nonNullCount = Vect.countDouble(addr, count);
+                nullCount = count - nonNullCount;
+                if (nonNullCount > 0) {
+                    Unsafe.getUnsafe().putDouble(buf + OFFSET_MIN, Vect.minDouble(addr, count));
+                    Unsafe.getUnsafe().putDouble(buf + OFFSET_MAX, Vect.maxDouble(addr, count));
+                }
+                break;
+            }
+            default: {
+                // LONG, DATE and TIMESTAMP
+                final long nonNullCount = Vect.countLong(addr, count);
+                nullCount = count - nonNullCount;
+                if (nonNullCount > 0) {
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_MIN, Vect.minLong(addr, count));
+                    Unsafe.getUnsafe().putLong(buf + OFFSET_MAX, Vect.maxLong(addr, count));
+                }
+                break;
+            }
+        }
+        Unsafe.getUnsafe().putLong(buf + OFFSET_NULL_COUNT, nullCount);
+    }
+}
@@ -27,6 +27,8 @@ package io.questdb.cairo.map;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.vm.MemoryBudget;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.engine.LimitOverflowException;
 import io.questdb.std.*;
 import org.jetbrains.annotations.NotNull;
@@ -75,6 +77,7 @@ public class FastMap implements Map, Reopenable {
 
     private static final long MAX_HEAP_SIZE = (Integer.toUnsignedLong(-1) - 1) << 3;
     private static final int MIN_INITIAL_CAPACITY = 128;
+    private final SpillAllocator allocator;
     private final FastMapCursor cursor;
     private final int initialKeyCapacity;
     private final int initialPageSize;
@@ -84,7 +87,6 @@ public class FastMap implements Map, Reopenable {
     private final int keySize;
     private final int listMemoryTag;
     private final double loadFactor;
-    private final int mapMemoryTag;
     private final int maxResizes;
     private final FastMapRecord record;
     private final FastMapValue value;
@@ -137,6 +139,22 @@ public class FastMap implements Map, Reopenable {
         this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, maxResizes, MemoryTag.NATIVE_FAST_MAP, MemoryTag.NATIVE_FAST_MAP_LONG_LIST);
     }
 
+    /**
+     * Creates a map that moves its key memory to a memory-mapped temporary file once
+     * the memory outgrows allocator's spill threshold. The map takes ownership of the allocator.
+     */
+    public FastMap(
+            int pageSize,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @Nullable ColumnTypes valueTypes,
+            int keyCapacity,
+            double loadFactor,
+            int maxResizes,
+            @NotNull SpillAllocator allocator
+    ) {
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, maxResizes, allocator, MemoryTag.NATIVE_FAST_MAP_LONG_LIST);
+    }
+
     @TestOnly
     FastMap(
             int pageSize,
@@ -147,16 +165,29 @@ public class FastMap implements Map, Reopenable {
             int maxResizes,
             int mapMemoryTag,
             int listMemoryTag
+    ) {
+        this(pageSize, keyTypes, valueTypes, keyCapacity, loadFactor, maxResizes, new SpillAllocator(mapMemoryTag), listMemoryTag);
+    }
+
+    private FastMap(
+            int pageSize,
+            @NotNull @Transient ColumnTypes keyTypes,
+            @Nullable @Transient ColumnTypes valueTypes,
+            int keyCapacity,
+            double loadFactor,
+            int maxResizes,
+            @NotNull SpillAllocator allocator,
+            int listMemoryTag
     ) {
         assert pageSize > 3;
         assert loadFactor > 0 && loadFactor < 1d;
 
-        this.mapMemoryTag = mapMemoryTag;
+        this.allocator = allocator;
         this.listMemoryTag = listMemoryTag;
         initialKeyCapacity = keyCapacity;
         initialPageSize = pageSize;
         this.loadFactor = loadFactor;
-        kStart = kPos = Unsafe.malloc(capacity = pageSize, mapMemoryTag);
+        kStart = kPos = allocator.malloc(capacity = pageSize);
         kLimit = kStart + pageSize;
         this.keyCapacity = (int) (keyCapacity / loadFactor);
         this.keyCapacity = this.keyCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(this.keyCapacity);
@@ -230,12 +261,13 @@ public class FastMap implements Map, Reopenable {
     public final void close() {
         Misc.free(offsets);
         if (kStart != 0) {
-            Unsafe.free(kStart, capacity, mapMemoryTag);
+            allocator.free(kStart, capacity);
             kLimit = kStart = kPos = 0;
             free = 0;
             size = 0;
             capacity = 0;
         }
+        allocator.close();
     }
 
     public long getAppendOffset() {
@@ -264,6 +296,60 @@ public class FastMap implements Map, Reopenable {
         return valueColumnCount;
     }
 
+    /**
+     * Merges key-value pairs of the given map into this map. Pairs with keys missing
+     * in this map are copied as is, while values of the existing keys are combined
+     * via the provided merge function.
+     * <p>
+     * Both maps must have the same key and value structure.
+     *
+     * @param srcMap    map to merge into this map
+     * @param mergeFunc function used to combine values of the existing keys
+     */
+    public void merge(FastMap srcMap, MapValueMergeFunction mergeFunc) {
+        assert this != srcMap;
+        assert keySize == srcMap.keySize && valueSize == srcMap.valueSize;
+
+        if (srcMap.size == 0) {
+            return;
+        }
+
+        OUTER:
+        for (int i = 0, k = (int) srcMap.offsets.size(); i < k; i++) {
+            final long srcPackedOffset = getPackedOffset(srcMap.offsets, i);
+            final long srcOffset = unpackOffset(srcPackedOffset);
+            if (srcOffset < 0) {
+                continue;
+            }
+
+            // Hash codes are calculated over key memory only, so we reuse the stored ones.
+            final int hashCode = unpackHashCode(srcPackedOffset);
+            final long srcStartAddress = srcMap.kStart + srcOffset;
+            final int keyValueSize = keySize == -1 ? Unsafe.getUnsafe().getInt(srcStartAddress) : keyOffset + keySize;
+
+            int index = hashCode & mask;
+            long destPackedOffset;
+            long destOffset;
+            while ((destOffset = unpackOffset(destPackedOffset = getPackedOffset(offsets, index))) > -1) {
+                if (hashCode == unpackHashCode(destPackedOffset) && keyEq(kStart + destOffset, srcStartAddress, keyValueSize)) {
+                    mergeFunc.merge(
+                            valueOf(kStart + destOffset, false, value),
+                            srcMap.valueOf(srcStartAddress, false, srcMap.value)
+                    );
+                    continue OUTER;
+                }
+                index = (index + 1) & mask;
+            }
+
+            // The key is missing, so we copy the whole key-value pair.
+            key.init();
+            key.checkSize(keyValueSize - keyOffset);
+            Vect.memcpy(key.startAddress, srcStartAddress, keyValueSize);
+            key.appendAddress = key.startAddress + keyValueSize;
+            asNew(key, index, hashCode, value);
+        }
+    }
+
     public void reopen() {
         if (kStart == 0) {
             // handles both mem and offsets
@@ -273,7 +359,7 @@ public class FastMap implements Map, Reopenable {
 
     @Override
     public void restoreInitialCapacity() {
-        kStart = kPos = Unsafe.realloc(kStart, kLimit - kStart, capacity = initialPageSize, mapMemoryTag);
+        kStart = kPos = allocator.realloc(kStart, kLimit - kStart, capacity = initialPageSize);
         kLimit = kStart + initialPageSize;
         keyCapacity = (int) (initialKeyCapacity / loadFactor);
         keyCapacity = keyCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(keyCapacity);
@@ -286,6 +372,13 @@ public class FastMap implements Map, Reopenable {
         nResizes = 0;
     }
 
+    /**
+     * Charges map's native memory to the given query memory budget.
+     */
+    public void setMemoryBudget(@Nullable MemoryBudget budget) {
+        allocator.setBudget(budget);
+    }
+
     @Override
     public long size() {
         return size;
@@ -336,6 +429,17 @@ public class FastMap implements Map, Reopenable {
         return valueOf(keyWriter.startAddress, true, value);
     }
 
+    private boolean keyEq(long destStartAddress, long srcStartAddress, int srcKeyValueSize) {
+        if (keySize == -1) {
+            // Check the length first.
+            if (Unsafe.getUnsafe().getInt(destStartAddress) != srcKeyValueSize) {
+                return false;
+            }
+            return Vect.memeq(destStartAddress + keyOffset, srcStartAddress + keyOffset, srcKeyValueSize - keyOffset);
+        }
+        return Vect.memeq(destStartAddress + keyOffset, srcStartAddress + keyOffset, keySize);
+    }
+
     private FastMapValue probe0(BaseKey keyWriter, int index, int hashCode, FastMapValue value) {
         long packedOffset;
         long offset;
@@ -395,7 +499,7 @@ public class FastMap implements Map, Reopenable {
             if (kCapacity > MAX_HEAP_SIZE) {
                 throw LimitOverflowException.instance().put("limit of ").put(MAX_HEAP_SIZE).put(" memory exceeded in FastMap");
             }
-            long kAddress = Unsafe.realloc(this.kStart, this.capacity, kCapacity, mapMemoryTag);
+            long kAddress = allocator.realloc(this.kStart, this.capacity, kCapacity);
 
             this.capacity = kCapacity;
             long d = kAddress - this.kStart;
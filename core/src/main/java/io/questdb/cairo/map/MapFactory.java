@@ -27,8 +27,10 @@ package io.questdb.cairo.map;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.EmptyRecordMetadata;
 import io.questdb.std.Chars;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
 
@@ -88,9 +90,11 @@ public class MapFactory {
             return new FastMap(
                     pageSize,
                     keyTypes,
+                    null,
                     keyCapacity,
                     configuration.getSqlFastMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes()
+                    configuration.getSqlMapMaxResizes(),
+                    SpillAllocator.of(configuration, MemoryTag.NATIVE_FAST_MAP)
             );
         }
 
@@ -124,7 +128,8 @@ public class MapFactory {
                     valueTypes,
                     keyCapacity,
                     configuration.getSqlFastMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes()
+                    configuration.getSqlMapMaxResizes(),
+                    SpillAllocator.of(configuration, MemoryTag.NATIVE_FAST_MAP)
             );
         }
 
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+
+/**
+ * Materialized view is a SAMPLE BY query over a single WAL base table. Result of the query is
+ * stored in a regular partitioned table, which is refreshed incrementally as transactions are
+ * applied to the base table, see {@link MatViewRefreshJob}.
+ * <p>
+ * Definition is kept in the {@link #MAT_VIEW_FILE_NAME} file of the view table directory:
+ * <pre>
+ * long   refreshBaseTxn - seqTxn of the base table the view was last refreshed to
+ * string baseTableName
+ * string baseTableDirName - identifies the base table, a table re-created under the same name is not the base
+ * string samplingInterval, e.g. 1m
+ * string query
+ * string refreshQueryPrefix
+ * string refreshQuerySuffix
+ * </pre>
+ * Incremental refresh runs the query with base table substituted by a timestamp filtered
+ * sub-query: refreshQueryPrefix + " where ts >= 'lo'" + refreshQuerySuffix.
+ */
+public class MatViewDefinition {
+    public static final String MAT_VIEW_FILE_NAME = "_mv";
+    private static final String MAT_VIEW_TEMP_FILE_NAME = "_mv.tmp";
+    private final String baseTableName;
+    private final String query;
+    private final String refreshQueryPrefix;
+    private final String refreshQuerySuffix;
+    private final String samplingInterval;
+    // pending refresh state, guarded by MatViewGraph
+    private TableToken baseTableToken;
+    private boolean pending;
+    private long pendingMinTimestamp;
+    private long pendingTxnHi;
+    private long pendingTxnLo;
+    private volatile long refreshBaseTxn = -1;
+    private TableToken viewToken;
+
+    public MatViewDefinition(
+            String baseTableName,
+            String samplingInterval,
+            String query,
+            String refreshQueryPrefix,
+            String refreshQuerySuffix
+    ) {
+        this.baseTableName = baseTableName;
+        this.samplingInterval = samplingInterval;
+        this.query = query;
+        this.refreshQueryPrefix = refreshQueryPrefix;
+        this.refreshQuerySuffix = refreshQuerySuffix;
+    }
+
+    /**
+     * Reads definition from the view table directory.
+     *
+     * @param ff          files facade
+     * @param path        path to view table directory
+     * @param rootLen     length of the path
+     * @param viewToken   view table
+     * @param tableTokens tokens of existing tables to look the base table up in, base table token
+     *                    of the definition is null when the base table no longer exists
+     * @return view definition
+     */
+    public static MatViewDefinition read(FilesFacade ff, Path path, int rootLen, TableToken viewToken, ObjList<TableToken> tableTokens) {
+        final MemoryCMR mem = Vm.getCMRInstance();
+        try {
+            mem.smallFile(ff, path.trimTo(rootLen).concat(MAT_VIEW_FILE_NAME).$(), MemoryTag.MMAP_DEFAULT);
+            final long size = mem.size();
+            long offset = Long.BYTES;
+            final long refreshBaseTxn = mem.getLong(0);
+            final String baseTableName = readStr(mem, offset, size, path);
+            offset += Vm.getStorageLength(baseTableName.length());
+            final String baseTableDirName = readStr(mem, offset, size, path);
+            offset += Vm.getStorageLength(baseTableDirName.length());
+            final String samplingInterval = readStr(mem, offset, size, path);
+            offset += Vm.getStorageLength(samplingInterval.length());
+            final String query = readStr(mem, offset, size, path);
+            offset += Vm.getStorageLength(query.length());
+            final String refreshQueryPrefix = readStr(mem, offset, size, path);
+            offset += Vm.getStorageLength(refreshQueryPrefix.length());
+            final String refreshQuerySuffix = readStr(mem, offset, size, path);
+
+            final MatViewDefinition view = new MatViewDefinition(baseTableName, samplingInterval, query, refreshQueryPrefix, refreshQuerySuffix);
+            TableToken baseTableToken = null;
+            for (int i = 0, n = tableTokens.size(); i < n; i++) {
+                final TableToken tableToken = tableTokens.getQuick(i);
+                if (tableToken.getDirName().equals(baseTableDirName)) {
+                    baseTableToken = tableToken;
+                    break;
+                }
+            }
+            view.of(viewToken, baseTableToken, refreshBaseTxn);
+            return view;
+        } finally {
+            mem.close();
+            path.trimTo(rootLen);
+        }
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public TableToken getBaseTableToken() {
+        return baseTableToken;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public long getRefreshBaseTxn() {
+        return refreshBaseTxn;
+    }
+
+    public String getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public TableToken getViewToken() {
+        return viewToken;
+    }
+
+    public void of(TableToken viewToken, TableToken baseTableToken, long refreshBaseTxn) {
+        this.viewToken = viewToken;
+        this.baseTableToken = baseTableToken;
+        this.refreshBaseTxn = refreshBaseTxn;
+    }
+
+    /**
+     * Writes definition to the view table directory. The file is written aside and then
+     * renamed, so that the definition is never seen half-written.
+     *
+     * @param ff      files facade
+     * @param mem     memory to write the file with
+     * @param path    path to view table directory
+     * @param rootLen length of the path
+     * @param other   path used to rename the file
+     */
+    public void write(FilesFacade ff, MemoryMARW mem, Path path, int rootLen, Path other) {
+        try {
+            mem.smallFile(ff, path.trimTo(rootLen).concat(MAT_VIEW_TEMP_FILE_NAME).$(), MemoryTag.MMAP_DEFAULT);
+            mem.putLong(refreshBaseTxn);
+            mem.putStr(baseTableName);
+            mem.putStr(baseTableToken.getDirName());
+            mem.putStr(samplingInterval);
+            mem.putStr(query);
+            mem.putStr(refreshQueryPrefix);
+            mem.putStr(refreshQuerySuffix);
+            mem.close(true, Vm.TRUNCATE_TO_POINTER);
+
+            other.of(path.trimTo(rootLen)).concat(MAT_VIEW_FILE_NAME).$();
+            if (ff.rename(path.trimTo(rootLen).concat(MAT_VIEW_TEMP_FILE_NAME).$(), other) != Files.FILES_RENAME_OK) {
+                throw CairoException.critical(ff.errno()).put("could not write materialized view definition [path=").put(other).put(']');
+            }
+        } finally {
+            mem.close(false);
+            path.trimTo(rootLen);
+        }
+    }
+
+    String buildRefreshQuery(CharSequence timestampColumn, CharSequence timestampLo) {
+        return refreshQueryPrefix + " where \"" + timestampColumn + "\" >= '" + timestampLo + '\'' + refreshQuerySuffix;
+    }
+
+    long getPendingMinTimestamp() {
+        return pendingMinTimestamp;
+    }
+
+    long getPendingTxnHi() {
+        return pendingTxnHi;
+    }
+
+    long getPendingTxnLo() {
+        return pendingTxnLo;
+    }
+
+    boolean isPending() {
+        return pending;
+    }
+
+    boolean mergePending(long minTimestamp, long txnLo, long txnHi) {
+        if (pending) {
+            pendingMinTimestamp = Math.min(pendingMinTimestamp, minTimestamp);
+            pendingTxnLo = Math.min(pendingTxnLo, txnLo);
+            pendingTxnHi = Math.max(pendingTxnHi, txnHi);
+            return false;
+        }
+        pending = true;
+        pendingMinTimestamp = minTimestamp;
+        pendingTxnLo = txnLo;
+        pendingTxnHi = txnHi;
+        return true;
+    }
+
+    void resetPending() {
+        pending = false;
+    }
+
+    void setRefreshBaseTxn(long refreshBaseTxn) {
+        this.refreshBaseTxn = refreshBaseTxn;
+    }
+
+    private static String readStr(MemoryCMR mem, long offset, long size, Path path) {
+        if (offset + Integer.BYTES > size) {
+            throw CairoException.critical(0).put("materialized view definition is truncated [path=").put(path).put(']');
+        }
+        final int len = mem.getStrLen(offset);
+        if (len < 0 || offset + Vm.getStorageLength(len) > size) {
+            throw CairoException.critical(0).put("materialized view definition is corrupt [path=").put(path).put(']');
+        }
+        return Chars.toString(mem.getStr(offset));
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableToken;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.ObjObjHashMap;
+import io.questdb.std.str.Path;
+
+/**
+ * Registry of materialized views and their base tables. WAL apply job notifies the graph
+ * after transactions are applied to a base table and {@link MatViewRefreshJob} picks up
+ * the views which need refresh.
+ */
+public class MatViewGraph implements Mutable {
+    // seqTxn range and timestamp of the refresh scheduled on startup to verify the view is up-to-date
+    static final long CHECK_MIN_TIMESTAMP = Long.MAX_VALUE;
+    static final long CHECK_TXN_LO = Long.MAX_VALUE;
+    private static final Log LOG = LogFactory.getLog(MatViewGraph.class);
+    private final ObjList<MatViewDefinition> pendingViews = new ObjList<>();
+    private final ObjObjHashMap<TableToken, MatViewDefinition> views = new ObjObjHashMap<>();
+    private final ObjObjHashMap<TableToken, ObjList<MatViewDefinition>> viewsByBaseTable = new ObjObjHashMap<>();
+    private volatile int viewCount;
+
+    public synchronized void addView(MatViewDefinition view) {
+        final TableToken baseTableToken = view.getBaseTableToken();
+        if (baseTableToken != null) {
+            ObjList<MatViewDefinition> baseTableViews = viewsByBaseTable.get(baseTableToken);
+            if (baseTableViews == null) {
+                viewsByBaseTable.put(baseTableToken, baseTableViews = new ObjList<>());
+            }
+            baseTableViews.add(view);
+        }
+        views.put(view.getViewToken(), view);
+        viewCount = views.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        viewsByBaseTable.clear();
+        views.clear();
+        pendingViews.clear();
+        viewCount = 0;
+    }
+
+    public synchronized int getPendingCount() {
+        return pendingViews.size();
+    }
+
+    public synchronized MatViewDefinition getView(TableToken viewToken) {
+        return views.get(viewToken);
+    }
+
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    /**
+     * Loads definitions of existing materialized views. Every view is scheduled for
+     * a check refresh, which is a no-op if the view was refreshed up to the current
+     * transaction of its base table.
+     *
+     * @param configuration engine configuration
+     * @param tableTokens   tokens of existing tables
+     */
+    public void load(CairoConfiguration configuration, ObjList<TableToken> tableTokens) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            for (int i = 0, n = tableTokens.size(); i < n; i++) {
+                final TableToken tableToken = tableTokens.getQuick(i);
+                path.of(configuration.getRoot()).concat(tableToken);
+                final int rootLen = path.length();
+                if (!ff.exists(path.concat(MatViewDefinition.MAT_VIEW_FILE_NAME).$())) {
+                    continue;
+                }
+                try {
+                    final MatViewDefinition view = MatViewDefinition.read(ff, path, rootLen, tableToken, tableTokens);
+                    addView(view);
+                    scheduleRefresh(view, CHECK_MIN_TIMESTAMP, CHECK_TXN_LO, 0);
+                } catch (CairoException e) {
+                    LOG.error().$("could not load materialized view [view=").utf8(tableToken.getTableName())
+                            .$(", error=").$(e.getFlyweightMessage())
+                            .I$();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called after transactions are applied to a table. Schedules refresh of views,
+     * which use the table as the base.
+     *
+     * @param baseTableToken base table
+     * @param minTimestamp   min timestamp of the data changed by the transactions,
+     *                       Long.MIN_VALUE when the change is not limited to a time range
+     * @param txnLo          first applied seqTxn
+     * @param txnHi          last applied seqTxn
+     */
+    public void notifyBaseTableCommit(TableToken baseTableToken, long minTimestamp, long txnLo, long txnHi) {
+        if (viewCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            final ObjList<MatViewDefinition> views = viewsByBaseTable.get(baseTableToken);
+            if (views != null) {
+                for (int i = 0, n = views.size(); i < n; i++) {
+                    scheduleRefresh(views.getQuick(i), minTimestamp, txnLo, txnHi);
+                }
+            }
+        }
+    }
+
+    public synchronized void removeView(TableToken viewToken) {
+        final MatViewDefinition view = views.remove(viewToken);
+        if (view != null) {
+            viewCount = views.size();
+            pendingViews.remove(view);
+            view.resetPending();
+            final TableToken baseTableToken = view.getBaseTableToken();
+            if (baseTableToken != null) {
+                final ObjList<MatViewDefinition> baseTableViews = viewsByBaseTable.get(baseTableToken);
+                baseTableViews.remove(view);
+                if (baseTableViews.size() == 0) {
+                    viewsByBaseTable.remove(baseTableToken);
+                }
+            }
+        }
+    }
+
+    synchronized boolean pollRefresh(MatViewRefreshTask task) {
+        final int n = pendingViews.size();
+        if (n == 0) {
+            return false;
+        }
+        final MatViewDefinition view = pendingViews.getQuick(0);
+        pendingViews.remove(0);
+        task.of(view, view.getPendingMinTimestamp(), view.getPendingTxnLo(), view.getPendingTxnHi());
+        view.resetPending();
+        return true;
+    }
+
+    synchronized void scheduleRefresh(MatViewDefinition view, long minTimestamp, long txnLo, long txnHi) {
+        if (view.mergePending(minTimestamp, txnLo, txnHi)) {
+            pendingViews.add(view);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.EntityColumnFilter;
+import io.questdb.cairo.EntryUnavailableException;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.RecordToRowCopier;
+import io.questdb.griffin.RecordToRowCopierUtils;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Refreshes materialized views after transactions are applied to their base tables.
+ * <p>
+ * Refresh recomputes SAMPLE BY buckets starting from the min timestamp of the changed data.
+ * The timestamp is rounded down to the bucket and to the partition of the view, so that
+ * the stale rows can be dropped by removing whole partitions of the view. View is fully
+ * recomputed when the change is not bound to a time range (UPDATE, TRUNCATE) or some
+ * base table transactions were not seen by the view, e.g. after a restart.
+ * <p>
+ * Stale partitions are removed and the recomputed rows are written in a single transaction,
+ * readers see the view either before or after the refresh. Failed refresh is rolled back.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final CairoEngine engine;
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final MatViewGraph graph;
+    private final StringSink sink = new StringSink();
+    private final MatViewRefreshTask task = new MatViewRefreshTask();
+    private SqlCompiler compiler;
+    private MemoryMARW mem;
+    private Path other;
+    private Path path;
+    private SqlExecutionContextImpl sqlExecutionContext;
+
+    public MatViewRefreshJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.graph = engine.getMatViewGraph();
+        this.compiler = new SqlCompiler(engine, functionFactoryCache, null);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+        this.mem = Vm.getMARWInstance();
+        this.path = new Path();
+        this.other = new Path();
+    }
+
+    /**
+     * Finds the lowest timestamp, which is aligned both to the sampling interval and to the
+     * partition of the view, so that all rows affected by data at or after given timestamp
+     * are in the partitions at or after the returned timestamp.
+     *
+     * @param timestamp   min timestamp of the changed data
+     * @param sampler     sampler of the view query
+     * @param floorMethod partition floor method of the view table
+     * @return timestamp to recompute the view from
+     */
+    public static long alignRefreshTimestamp(long timestamp, TimestampSampler sampler, PartitionBy.PartitionFloorMethod floorMethod) {
+        long lo = timestamp;
+        while (true) {
+            final long next = floorMethod.floor(sampler.round(lo));
+            if (next == lo) {
+                return lo;
+            }
+            lo = next;
+        }
+    }
+
+    @Override
+    public void close() {
+        compiler = Misc.free(compiler);
+        sqlExecutionContext = Misc.free(sqlExecutionContext);
+        mem = Misc.free(mem);
+        path = Misc.free(path);
+        other = Misc.free(other);
+    }
+
+    private boolean refresh(MatViewRefreshTask task) {
+        final MatViewDefinition view = task.view;
+        final TableToken viewToken = view.getViewToken();
+        if (!viewToken.equals(engine.getTableTokenIfExists(viewToken.getTableName()))) {
+            // view table was dropped or replaced
+            graph.removeView(viewToken);
+            return false;
+        }
+        final TableToken baseToken = view.getBaseTableToken();
+        if (baseToken == null || !baseToken.equals(engine.getTableTokenIfExists(view.getBaseTableName()))) {
+            LOG.error().$("base table of materialized view was dropped or renamed [view=").utf8(viewToken.getTableName())
+                    .$(", base=").utf8(view.getBaseTableName())
+                    .I$();
+            return false;
+        }
+
+        try {
+            final long baseTxn;
+            final String timestampColumn;
+            try (TableReader baseReader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, baseToken)) {
+                baseTxn = baseReader.getTxFile().getSeqTxn();
+                if (baseTxn < task.txnHi) {
+                    // transactions are applied to the base table, but not committed yet
+                    graph.scheduleRefresh(view, task.minTimestamp, task.txnLo, task.txnHi);
+                    return false;
+                }
+                final RecordMetadata baseMetadata = baseReader.getMetadata();
+                timestampColumn = baseMetadata.getColumnName(baseMetadata.getTimestampIndex());
+            }
+
+            final boolean fullRefresh;
+            if (task.txnLo == MatViewGraph.CHECK_TXN_LO) {
+                if (baseTxn == view.getRefreshBaseTxn()) {
+                    return false;
+                }
+                fullRefresh = true;
+            } else {
+                fullRefresh = task.minTimestamp == Long.MIN_VALUE || view.getRefreshBaseTxn() < task.txnLo - 1;
+            }
+
+            long rowCount = 0;
+            long refreshLo = Long.MIN_VALUE;
+            // writer returned to the pool rolls back the refresh, should it fail before commit
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, viewToken, "materialized view refresh")) {
+                final String query;
+                if (fullRefresh) {
+                    if (writer.getPartitionCount() > 0) {
+                        writer.removePartitionsFrom(writer.getPartitionTimestamp(0));
+                    }
+                    query = view.getQuery();
+                } else {
+                    final TimestampSampler sampler = TimestampSamplerFactory.getInstance(view.getSamplingInterval(), 0);
+                    sampler.setStart(0);
+                    refreshLo = alignRefreshTimestamp(
+                            task.minTimestamp,
+                            sampler,
+                            PartitionBy.getPartitionFloorMethod(writer.getPartitionBy())
+                    );
+                    writer.removePartitionsFrom(refreshLo);
+                    sink.clear();
+                    TimestampFormatUtils.appendDateTimeUSec(sink, refreshLo);
+                    query = view.buildRefreshQuery(timestampColumn, sink);
+                }
+
+                try (
+                        RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                        RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+                ) {
+                    final RecordMetadata metadata = factory.getMetadata();
+                    // view table is created from the query, columns are in the same order
+                    final int timestampIndex = writer.getMetadata().getTimestampIndex();
+                    entityColumnFilter.of(metadata.getColumnCount());
+                    final RecordToRowCopier copier = RecordToRowCopierUtils.generateCopier(
+                            asm,
+                            metadata,
+                            writer.getMetadata(),
+                            entityColumnFilter
+                    );
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        final TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+                        copier.copy(record, row);
+                        row.append();
+                        rowCount++;
+                    }
+                }
+                writer.commit();
+            }
+
+            view.setRefreshBaseTxn(baseTxn);
+            path.of(engine.getConfiguration().getRoot()).concat(viewToken);
+            view.write(engine.getConfiguration().getFilesFacade(), mem, path, path.length(), other);
+
+            LOG.info().$("refreshed materialized view [view=").utf8(viewToken.getTableName())
+                    .$(", baseTxn=").$(baseTxn)
+                    .$(", from=").$ts(refreshLo)
+                    .$(", rows=").$(rowCount)
+                    .I$();
+            return true;
+        } catch (EntryUnavailableException e) {
+            // view or base table is busy, try again later
+            graph.scheduleRefresh(view, task.minTimestamp, task.txnLo, task.txnHi);
+        } catch (SqlException e) {
+            // view is left as of the previous refresh, the next change of the base table recomputes it fully
+            view.setRefreshBaseTxn(-1);
+            LOG.error().$("could not refresh materialized view [view=").utf8(viewToken.getTableName())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+        } catch (CairoException e) {
+            view.setRefreshBaseTxn(-1);
+            LOG.error().$("could not refresh materialized view [view=").utf8(viewToken.getTableName())
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+        // views re-scheduled by the refresh wait for the next run
+        for (int i = 0, n = graph.getPendingCount(); i < n && graph.pollRefresh(task); i++) {
+            useful |= refresh(task);
+        }
+        return useful;
+    }
+}
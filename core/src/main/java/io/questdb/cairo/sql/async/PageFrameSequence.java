@@ -27,6 +27,7 @@ package io.questdb.cairo.sql.async;
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.log.Log;
@@ -63,6 +64,8 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     private SCSequence collectSubSeq;
     private int collectedFrameIndex = -1;
     private int dispatchStartFrameIndex;
+    // frames published to the reduce queue; used by EXPLAIN ANALYZE
+    private int dispatchedFrameCount;
     private int frameCount;
     private long id;
     // Local reduce task used when there is no slots in the queue to dispatch tasks.
@@ -74,6 +77,9 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     private int shard;
     private SqlExecutionContext sqlExecutionContext;
     private long startTime;
+    // frames of this sequence reduced on the query owner thread, either stolen back
+    // from the reduce queue or reduced locally; used by EXPLAIN ANALYZE
+    private int stolenFrameCount;
 
     public PageFrameSequence(
             CairoConfiguration configuration,
@@ -329,6 +335,8 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
             done = false;
             valid.set(true);
             reduceCounter.set(0);
+            dispatchedFrameCount = 0;
+            stolenFrameCount = 0;
             shard = rnd.nextInt(messageBus.getPageFrameReduceShardCount());
             reduceQueue = messageBus.getPageFrameReduceQueue(shard);
 
@@ -367,6 +375,18 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
      * Prepares page frame sequence for retrieving the same data set again. The method
      * is not thread-safe.
      */
+    /**
+     * Prints frame dispatch statistics accumulated since the sequence was opened.
+     * Used by EXPLAIN ANALYZE.
+     *
+     * @param sink plan sink
+     */
+    public void toPlanStats(PlanSink sink) {
+        sink.attr("frames")
+                .val("dispatched=").val(dispatchedFrameCount)
+                .val(" stolen=").val(stolenFrameCount);
+    }
+
     public void toTop() {
         if (frameCount > 0) {
             long newId = ID_SEQ.incrementAndGet();
@@ -446,6 +466,7 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
                             .$(", cursor=").$(cursor)
                             .I$();
                     reducePubSeq.done(cursor);
+                    dispatchedFrameCount++;
                     dispatched = true;
                     break;
                 } else if (cursor == -1) {
@@ -485,6 +506,10 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         return dispatched;
     }
 
+    void incrementStolenFrameCount() {
+        stolenFrameCount++;
+    }
+
     private void initRecord(SqlExecutionCircuitBreaker executionContextCircuitBreaker) {
         if (record == null) {
             final SqlExecutionCircuitBreakerConfiguration sqlExecutionCircuitBreakerConfiguration = executionContextCircuitBreaker.getConfiguration();
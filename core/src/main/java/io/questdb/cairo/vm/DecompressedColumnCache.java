@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.ColumnCompressionUtils;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+
+import java.util.HashMap;
+
+/**
+ * Process-wide cache of inflated compressed column files. Compressed files are never modified,
+ * a partition is compressed into a new directory version, so readers opening the same file share
+ * one inflated copy. The copy is freed when the last reader releases it.
+ */
+final class DecompressedColumnCache {
+    static final DecompressedColumnCache INSTANCE = new DecompressedColumnCache();
+    private final HashMap<String, Entry> entries = new HashMap<>();
+
+    Entry acquire(String fileName, long rawSize) {
+        synchronized (entries) {
+            Entry entry = entries.get(fileName);
+            if (entry == null) {
+                entry = new Entry(fileName, rawSize);
+                entries.put(fileName, entry);
+            } else if (entry.rawSize != rawSize) {
+                // file was replaced while the old copy is still in use, e.g. table was re-created
+                entry = new Entry(fileName, rawSize);
+            }
+            entry.refCount++;
+            return entry;
+        }
+    }
+
+    void release(Entry entry) {
+        synchronized (entries) {
+            if (--entry.refCount == 0) {
+                entries.remove(entry.fileName, entry);
+                entry.free();
+            }
+        }
+    }
+
+    static final class Entry {
+        private final String fileName;
+        private final long rawSize;
+        private long address;
+        private int refCount;
+
+        private Entry(String fileName, long rawSize) {
+            this.fileName = fileName;
+            this.rawSize = rawSize;
+        }
+
+        synchronized long inflate(FilesFacade ff, int fd) {
+            if (address == 0) {
+                final long addr = Unsafe.malloc(rawSize, MemoryTag.NATIVE_TABLE_READER);
+                try {
+                    ColumnCompressionUtils.decompress(ff, fd, fileName, addr, rawSize);
+                } catch (Throwable th) {
+                    Unsafe.free(addr, rawSize, MemoryTag.NATIVE_TABLE_READER);
+                    throw th;
+                }
+                address = addr;
+            }
+            return address;
+        }
+
+        private synchronized void free() {
+            if (address != 0) {
+                Unsafe.free(address, rawSize, MemoryTag.NATIVE_TABLE_READER);
+                address = 0;
+            }
+        }
+    }
+}
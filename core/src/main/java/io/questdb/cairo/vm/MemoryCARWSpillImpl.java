@@ -0,0 +1,63 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+/**
+ * A version of {@link MemoryCARWImpl} that moves its contiguous memory region to
+ * a memory-mapped temporary file once the region outgrows the spill threshold.
+ * See {@link SpillAllocator} for more detail.
+ */
+public class MemoryCARWSpillImpl extends MemoryCARWImpl {
+    private final SpillAllocator allocator;
+
+    public MemoryCARWSpillImpl(long pageSize, int maxPages, SpillAllocator allocator) {
+        super(pageSize, maxPages, allocator.getMemoryTag());
+        this.allocator = allocator;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        allocator.close();
+    }
+
+    public boolean isSpilled() {
+        return allocator.isSpilled();
+    }
+
+    @Override
+    protected long reallocateMemory(long currentBaseAddress, long currentSize, long newSize) {
+        if (currentBaseAddress != 0) {
+            return allocator.realloc(currentBaseAddress, currentSize, newSize);
+        }
+        return allocator.malloc(newSize);
+    }
+
+    @Override
+    protected void releaseMemory(long baseAddress, long size) {
+        allocator.free(baseAddress, size);
+    }
+}
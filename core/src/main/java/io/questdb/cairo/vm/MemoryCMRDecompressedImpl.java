@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnCompressionUtils;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.str.LPSZ;
+
+// contiguous readable memory, backed by a compressed column file; the file is inflated on first
+// access into a copy shared with other readers of the same file, see DecompressedColumnCache
+public class MemoryCMRDecompressedImpl extends AbstractMemoryCR implements MemoryCMR {
+    private static final Log LOG = LogFactory.getLog(MemoryCMRDecompressedImpl.class);
+    private DecompressedColumnCache.Entry cacheEntry;
+
+    public MemoryCMRDecompressedImpl(FilesFacade ff, LPSZ name, long size) {
+        of(ff, name, 0, size, MemoryTag.NATIVE_TABLE_READER, 0, -1);
+    }
+
+    public MemoryCMRDecompressedImpl() {
+        // intentionally left empty
+    }
+
+    @Override
+    public long addressOf(long offset) {
+        if (pageAddress == 0) {
+            inflate();
+        }
+        return super.addressOf(offset);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        pageAddress = 0;
+        if (cacheEntry != null) {
+            DecompressedColumnCache.INSTANCE.release(cacheEntry);
+            cacheEntry = null;
+        }
+        size = 0;
+        if (ff != null && ff.close(fd)) {
+            LOG.debug().$("closed [fd=").$(fd).I$();
+        }
+        fd = -1;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        if (newSize > size) {
+            throw CairoException.critical(0).put("compressed column cannot be extended [fd=").put(fd)
+                    .put(", size=").put(size)
+                    .put(", newSize=").put(newSize)
+                    .put(']');
+        }
+    }
+
+    @Override
+    public long getPageAddress(int pageIndex) {
+        if (pageAddress == 0) {
+            inflate();
+        }
+        return pageAddress;
+    }
+
+    @Override
+    public int getPageCount() {
+        return cacheEntry == null ? 0 : 1;
+    }
+
+    public boolean isInflated() {
+        return pageAddress != 0;
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts, int madviseOpts) {
+        close();
+        this.ff = ff;
+        fd = TableUtils.openRO(ff, name, LOG);
+        try {
+            final long rawSize = ColumnCompressionUtils.readRawSize(ff, fd, name);
+            if (size < 0) {
+                size = rawSize;
+            } else if (size > rawSize) {
+                throw CairoException.critical(0).put("compressed column is too short [file=").put(name)
+                        .put(", expectedSize=").put(size)
+                        .put(", actualSize=").put(rawSize)
+                        .put(']');
+            }
+            if (rawSize > 0) {
+                // column is inflated on first access, queries that do not read it never pay for it
+                cacheEntry = DecompressedColumnCache.INSTANCE.acquire(Chars.toString(name), rawSize);
+            }
+            this.size = size;
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+        LOG.debug().$("opened compressed [file=").$(name).$(", fd=").$(fd).$(", size=").$(this.size).I$();
+    }
+
+    private void inflate() {
+        if (cacheEntry != null) {
+            pageAddress = cacheEntry.inflate(ff, fd);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates a single contiguous memory region which is kept on the native heap
+ * while its size stays within the spill threshold. Once the region grows past
+ * the threshold, its contents are moved to a memory-mapped temporary file under
+ * the spill root, so that the OS can page the data out instead of the process
+ * running out of RAM. The file is removed when the memory is freed or shrinks
+ * back below the threshold.
+ * <p>
+ * Optionally, heap memory is also charged to a {@link MemoryBudget} shared by all
+ * structures of a query. When the budget is exhausted, the region spills even if it
+ * is below the threshold. If spilling is disabled, running out of budget fails the query.
+ * <p>
+ * This class is not thread-safe and it manages at most one region at a time.
+ */
+public class SpillAllocator implements Closeable {
+    private static final AtomicLong ID_SEQ = new AtomicLong();
+    private static final Log LOG = LogFactory.getLog(SpillAllocator.class);
+    private final FilesFacade ff;
+    private final int memoryTag;
+    private final int mkDirMode;
+    private final CharSequence spillRoot;
+    private final long spillThreshold;
+    private MemoryBudget budget;
+    private int fd = -1;
+    private Path path;
+    private long size;
+
+    public SpillAllocator(int memoryTag) {
+        this(null, null, 0, Long.MAX_VALUE, memoryTag);
+    }
+
+    public SpillAllocator(
+            @Nullable FilesFacade ff,
+            @Nullable CharSequence spillRoot,
+            int mkDirMode,
+            long spillThreshold,
+            int memoryTag
+    ) {
+        this.ff = ff;
+        this.spillRoot = spillRoot;
+        this.mkDirMode = mkDirMode;
+        // spill is disabled when there is no spill root
+        this.spillThreshold = spillRoot != null && spillThreshold > 0 ? spillThreshold : Long.MAX_VALUE;
+        this.memoryTag = memoryTag;
+    }
+
+    public static SpillAllocator of(CairoConfiguration configuration, int memoryTag) {
+        return new SpillAllocator(
+                configuration.getFilesFacade(),
+                configuration.getSqlSpillRoot(),
+                configuration.getMkDirMode(),
+                configuration.getSqlSpillThreshold(),
+                memoryTag
+        );
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+        path = Misc.free(path);
+    }
+
+    public void free(long address, long size) {
+        if (fd != -1) {
+            ff.munmap(address, size, MemoryTag.MMAP_SQL_SPILL);
+            closeFile();
+        } else {
+            Unsafe.free(address, size, memoryTag);
+            release(size);
+        }
+        this.size = 0;
+    }
+
+    public MemoryBudget getBudget() {
+        return budget;
+    }
+
+    public int getMemoryTag() {
+        return memoryTag;
+    }
+
+    /**
+     * @return size of the currently allocated region, either on the heap or on disk
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    public boolean isSpilled() {
+        return fd != -1;
+    }
+
+    public long malloc(long size) {
+        final long address = reserve(size, size) ? mallocHeap(size) : mapFile(size);
+        this.size = size;
+        return address;
+    }
+
+    public long realloc(long address, long oldSize, long newSize) {
+        if (fd != -1) {
+            if (reserve(newSize, newSize)) {
+                // the memory has shrunk or the budget has been freed up,
+                // so we can move it back to the heap
+                final long newAddress = mallocHeap(newSize);
+                Vect.memcpy(newAddress, address, Math.min(oldSize, newSize));
+                free(address, oldSize);
+                size = newSize;
+                return newAddress;
+            }
+            if (newSize > oldSize) {
+                TableUtils.allocateDiskSpace(ff, fd, newSize);
+            }
+            final long newAddress = TableUtils.mremap(ff, fd, address, oldSize, newSize, Files.MAP_RW, MemoryTag.MMAP_SQL_SPILL);
+            if (newSize < oldSize) {
+                ff.truncate(fd, newSize);
+            }
+            size = newSize;
+            return newAddress;
+        }
+
+        if (!reserve(newSize, newSize - oldSize)) {
+            final long newAddress = mapFile(newSize);
+            Vect.memcpy(newAddress, address, Math.min(oldSize, newSize));
+            Unsafe.free(address, oldSize, memoryTag);
+            release(oldSize);
+            size = newSize;
+            LOG.info().$("spilled to disk [path=").$(path).$(", size=").$(newSize).I$();
+            return newAddress;
+        }
+        final long newAddress;
+        try {
+            newAddress = Unsafe.realloc(address, oldSize, newSize, memoryTag);
+        } catch (Throwable th) {
+            release(newSize - oldSize);
+            throw th;
+        }
+        size = newSize;
+        return newAddress;
+    }
+
+    /**
+     * Attaches the allocator to the memory budget of the query that is about to use it.
+     * Heap memory held at this point moves from the previous budget to the new one.
+     *
+     * @param budget the budget or null to lift the limit
+     */
+    public void setBudget(@Nullable MemoryBudget budget) {
+        if (this.budget != budget) {
+            final long heapSize = fd == -1 ? size : 0;
+            if (this.budget != null) {
+                this.budget.release(heapSize);
+            }
+            if (budget != null) {
+                budget.acquire(heapSize);
+            }
+            this.budget = budget;
+        }
+    }
+
+    private void closeFile() {
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).I$();
+            }
+        }
+    }
+
+    private long mallocHeap(long size) {
+        try {
+            return Unsafe.malloc(size, memoryTag);
+        } catch (Throwable th) {
+            release(size);
+            throw th;
+        }
+    }
+
+    private long mapFile(long size) {
+        if (path == null) {
+            path = new Path();
+        }
+        path.of(spillRoot).slash$();
+        if (!ff.exists(path) && ff.mkdirs(path, mkDirMode) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+        }
+        path.trimTo(path.length() - 1)
+                .concat("spill_").put(Os.getPid()).put('_').put(ID_SEQ.incrementAndGet()).put(".d").$();
+        fd = TableUtils.openFileRWOrFail(ff, path, CairoConfiguration.O_NONE);
+        try {
+            return TableUtils.mapRW(ff, fd, size, MemoryTag.MMAP_SQL_SPILL);
+        } catch (Throwable th) {
+            closeFile();
+            throw th;
+        }
+    }
+
+    private void release(long bytes) {
+        if (budget != null) {
+            budget.release(bytes);
+        }
+    }
+
+    /**
+     * Checks whether a region of the given size may live on the heap.
+     *
+     * @param newSize   size of the region
+     * @param heapBytes heap memory to charge to the budget, negative when the region shrinks
+     * @return false when the region has to spill to disk
+     */
+    private boolean reserve(long newSize, long heapBytes) {
+        if (newSize > spillThreshold) {
+            return false;
+        }
+        if (budget == null || heapBytes <= 0) {
+            release(-heapBytes);
+            return true;
+        }
+        if (budget.tryAcquire(heapBytes)) {
+            return true;
+        }
+        if (spillRoot == null) {
+            throw CairoException.nonCritical().put("query memory budget exceeded [limit=").put(budget.getLimit())
+                    .put(", used=").put(budget.getUsed())
+                    .put(", requested=").put(heapBytes)
+                    .put(']');
+        }
+        return false;
+    }
+}
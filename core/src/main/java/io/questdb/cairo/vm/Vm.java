@@ -77,6 +77,10 @@ public class Vm {
         return new MemoryCARWImpl(pageSize, maxPages, memoryTag);
     }
 
+    public static MemoryARW getARWInstance(long pageSize, int maxPages, SpillAllocator allocator) {
+        return new MemoryCARWSpillImpl(pageSize, maxPages, allocator);
+    }
+
     public static MemoryCARW getCARWInstance(long pageSize, int maxPages, int memoryTag) {
         return new MemoryCARWImpl(pageSize, maxPages, memoryTag);
     }
@@ -93,6 +97,10 @@ public class Vm {
         return new MemoryCMRImpl();
     }
 
+    public static MemoryMR getDecompressedMRInstance(FilesFacade ff, LPSZ name, long size) {
+        return new MemoryCMRDecompressedImpl(ff, name, size);
+    }
+
     public static MemoryMA getMAInstance() {
         return new MemoryPMARImpl();
     }
@@ -75,6 +75,8 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
     private final WalEventReader walEventReader;
     private final Telemetry<TelemetryWalTask> walTelemetry;
     private final WalTelemetryFacade walTelemetryFacade;
+    // min timestamp of the data changed by the applied transactions, used to refresh materialized views
+    private long changedMinTimestamp;
 
     public ApplyWal2TableJob(CairoEngine engine, int workerCount, int sharedWorkerCount, @Nullable FunctionFactoryCache ffCache) {
         super(engine.getMessageBus().getWalTxnNotificationQueue(), engine.getMessageBus().getWalTxnNotificationSubSequence());
@@ -295,6 +297,8 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
 
                 int iTransaction = 0;
                 int totalTransactionCount = 0;
+                final long txnLo = writer.getAppliedSeqTxn() + 1;
+                changedMinTimestamp = Long.MAX_VALUE;
                 long rowsAdded = 0;
                 long physicalRowsAdded = 0;
                 long insertTimespan = 0;
@@ -429,6 +433,10 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                             .$("rows/s, physicalWrittenRowsMultiplier=").$(Math.round(100.0 * physicalRowsAdded / rowsAdded) / 100.0)
                             .I$();
                 }
+
+                if (changedMinTimestamp != Long.MAX_VALUE) {
+                    engine.getMatViewGraph().notifyBaseTableCommit(tableToken, changedMinTimestamp, txnLo, writer.getAppliedSeqTxn());
+                }
                 return finishedAll;
             } finally {
                 Misc.free(structuralChangeCursor);
@@ -463,6 +471,7 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
 
                         long rowCount = dataInfo.getEndRowID() - dataInfo.getStartRowID();
                         final long start = microClock.getTicks();
+                        final long txnBefore = writer.getTxn();
                         walTelemetryFacade.store(WAL_TXN_APPLY_START, writer.getTableToken(), walId, seqTxn, -1L, -1L, start - commitTimestamp);
                         final long rowsAdded = writer.processWalData(
                                 walPath,
@@ -474,9 +483,14 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                                 dataInfo,
                                 seqTxn
                         );
+                        changedMinTimestamp = Math.min(changedMinTimestamp, dataInfo.getMinTimestamp());
                         final long latency = microClock.getTicks() - start;
                         long physicalRowCount = writer.getPhysicallyWrittenRowsSinceLastCommit();
                         metrics.addApplyRowsWritten(rowCount, physicalRowCount, latency);
+                        if (writer.getTxn() != txnBefore) {
+                            // transaction was not only squashed into the lag
+                            metrics.addApplyCommit();
+                        }
                         walTelemetryFacade.store(WAL_TXN_DATA_APPLIED, writer.getTableToken(), walId, seqTxn, rowsAdded, physicalRowCount, latency);
                         return rowCount;
                     } else {
@@ -492,6 +506,7 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                     walTelemetryFacade.store(WAL_TXN_SQL_APPLIED, writer.getTableToken(), walId, seqTxn, -1L, -1L, microClock.getTicks() - start);
                     return -1L;
                 case TRUNCATE:
+                    changedMinTimestamp = Long.MIN_VALUE;
                     long txn = writer.getTxn();
                     writer.setSeqTxn(seqTxn);
                     writer.removeAllPartitions();
@@ -522,6 +537,8 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                     }
                     break;
                 case CMD_UPDATE_TABLE:
+                    // updated rows can be anywhere in the table
+                    changedMinTimestamp = Long.MIN_VALUE;
                     UpdateOperation updateOperation = compileUpdate(tableWriter, operationCompiler, sql, seqTxn);
                     try {
                         tableWriter.apply(updateOperation, seqTxn);
@@ -25,36 +25,69 @@
 package io.questdb.cairo.wal;
 
 import io.questdb.metrics.Counter;
+import io.questdb.metrics.DoubleGauge;
 import io.questdb.metrics.LongGauge;
 import io.questdb.metrics.MetricsRegistry;
 
 import java.util.concurrent.atomic.AtomicLong;
 
 public class WalMetrics {
+    private final Counter applyCommitsCounter;
     private final Counter applyPhysicallyWrittenRowsCounter;
+    private final LongGauge applyRowsPerCommitGauge;
     private final LongGauge applyRowsWriteRateGauge;
     private final Counter applyRowsWrittenCounter;
+    private final DoubleGauge applySquashRatioGauge;
+    private final Counter applyTransactionsCounter;
     private final Counter rowsWrittenCounter;
+    private final AtomicLong totalApplyCommits = new AtomicLong();
+    private final AtomicLong totalApplyTransactions = new AtomicLong();
     private final AtomicLong totalRowsWritten = new AtomicLong();
     private final AtomicLong totalRowsWrittenTotalTime = new AtomicLong();
 
     public WalMetrics(MetricsRegistry metricsRegistry) {
+        this.applyCommitsCounter = metricsRegistry.newCounter("wal_apply_commits");
         this.applyPhysicallyWrittenRowsCounter = metricsRegistry.newCounter("wal_apply_physically_written_rows");
         this.applyRowsWrittenCounter = metricsRegistry.newCounter("wal_apply_written_rows");
         this.applyRowsWriteRateGauge = metricsRegistry.newLongGauge("wal_apply_rows_per_second");
+        this.applyRowsPerCommitGauge = metricsRegistry.newLongGauge("wal_apply_rows_per_commit");
+        this.applySquashRatioGauge = metricsRegistry.newDoubleGauge("wal_apply_squash_ratio");
+        this.applyTransactionsCounter = metricsRegistry.newCounter("wal_apply_transactions");
         this.rowsWrittenCounter = metricsRegistry.newCounter("wal_written_rows");
     }
 
+    /**
+     * Records a table commit made while applying WAL transactions. Several WAL transactions
+     * can be squashed into a single commit, the ratio of applied transactions to commits
+     * is reported as the squash ratio.
+     */
+    public void addApplyCommit() {
+        applyCommitsCounter.inc();
+        totalApplyCommits.incrementAndGet();
+        updateSquashGauges();
+    }
+
     public void addApplyRowsWritten(long rows, long physicallyWrittenRows, long timeMicros) {
         applyRowsWrittenCounter.add(rows);
         applyPhysicallyWrittenRowsCounter.add(physicallyWrittenRows);
+        applyTransactionsCounter.inc();
+        totalApplyTransactions.incrementAndGet();
 
         long totalRows = totalRowsWritten.addAndGet(rows);
         long rowsAppendRate = totalRows * 1_000_000L / Math.max(1, totalRowsWrittenTotalTime.addAndGet(timeMicros));
         applyRowsWriteRateGauge.setValue(rowsAppendRate);
+        updateSquashGauges();
     }
 
     public void addRowsWritten(long rows) {
         rowsWrittenCounter.add(rows);
     }
+
+    private void updateSquashGauges() {
+        final long commits = totalApplyCommits.get();
+        if (commits > 0) {
+            applyRowsPerCommitGauge.setValue(totalRowsWritten.get() / commits);
+            applySquashRatioGauge.setValue((double) totalApplyTransactions.get() / commits);
+        }
+    }
 }
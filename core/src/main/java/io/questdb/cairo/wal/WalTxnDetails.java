@@ -159,11 +159,18 @@ public class WalTxnDetails {
 
         // Avoid O3 commits with existing data. Start from beginning and set commit to timestamp to be min infinity until
         // the all future min timestamp are greater than current max timestamp.
+        // Full commits (before ALTER, UPDATE or at the end of the observed transactions) move committed max timestamp
+        // forward, the transactions after them are squashed into the lag when they overlap with the flushed data.
+        long committedMaxTimestamp = maxCommittedTimestamp;
+        long observedMaxTimestamp = maxCommittedTimestamp;
         for (int i = 0, n = transactionMeta.size(); i < n; i += TXN_METADATA_LONGS_SIZE) {
 
             long commitToTimestamp = transactionMeta.get(i);
-            if (commitToTimestamp < maxCommittedTimestamp) {
+            observedMaxTimestamp = Math.max(observedMaxTimestamp, transactionMeta.getQuick(i + MAX_TIMESTAMP_OFFSET));
+            if (commitToTimestamp < committedMaxTimestamp) {
                 transactionMeta.set(i, Long.MIN_VALUE);
+            } else if (commitToTimestamp >= LAST_ROW_COMMIT) {
+                committedMaxTimestamp = observedMaxTimestamp;
             }
         }
 
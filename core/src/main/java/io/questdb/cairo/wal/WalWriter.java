@@ -65,6 +65,7 @@ public class WalWriter implements TableWriterAPI {
     private final AlterOperation alterOp = new AlterOperation();
     private final ObjList<MemoryMA> columns;
     private final CairoConfiguration configuration;
+    private final ColumnBlock columnBlock = new ColumnBlock();
     private final WalWriterEvents events;
     private final FilesFacade ff;
     private final AtomicIntList initialSymbolCounts;
@@ -381,6 +382,31 @@ public class WalWriter implements TableWriterAPI {
         return this.open;
     }
 
+    /**
+     * Starts appending a block of rows column by column. Designated timestamps are copied straight away,
+     * the rest of the columns are copied via {@link ColumnBlock} and the columns that are not provided are
+     * padded with nulls on {@link ColumnBlock#append()}.
+     *
+     * @param timestampsAddr address of rowCount designated timestamp values
+     * @param rowCount       number of rows in the block
+     * @return column block to copy column values to
+     */
+    public ColumnBlock newColumnBlock(long timestampsAddr, int rowCount) {
+        checkDistressed();
+        columnBlock.of(timestampsAddr, rowCount);
+        try {
+            if (rollSegmentOnNextRow) {
+                rollSegment();
+                rollSegmentOnNextRow = false;
+            }
+            columnBlock.putTimestamps(timestampsAddr);
+            return columnBlock;
+        } catch (Throwable e) {
+            distressed = true;
+            throw e;
+        }
+    }
+
     @Override
     public TableWriter.Row newRow() {
         return newRow(0L);
@@ -975,6 +1001,24 @@ public class WalWriter implements TableWriterAPI {
         return columns.getQuick(getSecondaryColumnIndex(column));
     }
 
+    private int getSymbolKey(int columnIndex, CharSequence utf16Value, SymbolMapReader symbolMapReader) {
+        final CharSequenceIntHashMap utf16Map = symbolMaps.getQuick(columnIndex);
+        final int index = utf16Map.keyIndex(utf16Value);
+        if (index > -1) {
+            int key = symbolMapReader.keyOf(utf16Value);
+            if (key == SymbolTable.VALUE_NOT_FOUND) {
+                // Add it to in-memory symbol map
+                // Locally added symbols must have a continuous range of keys
+                final int initialSymCount = initialSymbolCounts.get(columnIndex);
+                key = initialSymCount + localSymbolIds.postIncrement(columnIndex);
+            }
+            // Chars.toString used as value is a parser buffer memory slice or mapped memory of symbolMapReader
+            utf16Map.putAt(index, Chars.toString(utf16Value), key);
+            return key;
+        }
+        return utf16Map.valueAt(index);
+    }
+
     private long getSequencerTxn() {
         long seqTxn;
         do {
@@ -1342,6 +1386,167 @@ public class WalWriter implements TableWriterAPI {
         }
     }
 
+    /**
+     * Column-major counterpart of {@link TableWriter.Row}. Each column of the block is copied in one go,
+     * fixed size columns with a single block copy.
+     */
+    public class ColumnBlock {
+        private final IntList symbolKeys = new IntList();
+        private final DirectByteCharSequence utf8Value = new DirectByteCharSequence();
+        private long maxTimestamp;
+        private long minTimestamp;
+        private boolean outOfOrder;
+        private int rowCount;
+
+        public void append() {
+            for (int i = 0; i < columnCount; i++) {
+                if (rowValueIsNotNull.getQuick(i) < segmentRowCount) {
+                    final Runnable nullSetter = nullSetters.getQuick(i);
+                    for (int r = 0; r < rowCount; r++) {
+                        nullSetter.run();
+                    }
+                }
+            }
+
+            if (rowCount > 0) {
+                txnOutOfOrder |= outOfOrder || minTimestamp < txnMaxTimestamp;
+                if (maxTimestamp > txnMaxTimestamp) {
+                    txnMaxTimestamp = maxTimestamp;
+                }
+                if (minTimestamp < txnMinTimestamp) {
+                    txnMinTimestamp = minTimestamp;
+                }
+            }
+
+            segmentRowCount += rowCount;
+        }
+
+        public void cancel() {
+            setAppendPosition(segmentRowCount);
+        }
+
+        /**
+         * Copies values of a fixed size column, the values are expected to be in the column's native
+         * format, null values included.
+         *
+         * @param columnIndex column index
+         * @param address     address of rowCount column values
+         */
+        public void putFixedColumn(int columnIndex, long address) {
+            checkNotWritten(columnIndex);
+            final int type = metadata.getColumnType(columnIndex);
+            getPrimaryColumn(columnIndex).putBlockOfBytes(address, (long) rowCount << ColumnType.pow2SizeOf(type));
+            setBlockValueNotNull(columnIndex);
+        }
+
+        /**
+         * Copies values of a string column encoded as rowCount int lengths followed by the UTF-8 bytes
+         * of the values. Negative length stands for null.
+         *
+         * @param columnIndex      column index
+         * @param lengthsAddress   address of rowCount value lengths
+         * @param dataAddress      address of UTF-8 value bytes
+         * @param hasNonAsciiChars true if any of the values has to be UTF-8 decoded
+         */
+        public void putStrColumn(int columnIndex, long lengthsAddress, long dataAddress, boolean hasNonAsciiChars) {
+            checkNotWritten(columnIndex);
+            final MemoryA primaryColumn = getPrimaryColumn(columnIndex);
+            final MemoryA secondaryColumn = getSecondaryColumn(columnIndex);
+            for (int r = 0; r < rowCount; r++) {
+                final int len = Unsafe.getUnsafe().getInt(lengthsAddress + (long) r * Integer.BYTES);
+                if (len < 0) {
+                    secondaryColumn.putLong(primaryColumn.putNullStr());
+                } else {
+                    utf8Value.of(dataAddress, dataAddress + len);
+                    secondaryColumn.putLong(primaryColumn.putStrUtf8AsUtf16(utf8Value, hasNonAsciiChars));
+                    dataAddress += len;
+                }
+            }
+            setBlockValueNotNull(columnIndex);
+        }
+
+        /**
+         * Copies values of a symbol column encoded as rowCount int keys in the given dictionary.
+         * Negative key stands for null. Dictionary values are resolved to the writer's symbol keys
+         * once per block rather than once per row.
+         *
+         * @param columnIndex column index
+         * @param dictionary  distinct symbol values of the block
+         * @param keysAddress address of rowCount dictionary keys
+         */
+        public void putSymbolColumn(int columnIndex, ObjList<? extends CharSequence> dictionary, long keysAddress) {
+            checkNotWritten(columnIndex);
+            final SymbolMapReader symbolMapReader = symbolMapReaders.getQuick(columnIndex);
+            if (symbolMapReader == null) {
+                throw new UnsupportedOperationException();
+            }
+
+            symbolKeys.clear();
+            for (int i = 0, n = dictionary.size(); i < n; i++) {
+                symbolKeys.add(getSymbolKey(columnIndex, dictionary.getQuick(i), symbolMapReader));
+            }
+
+            final MemoryA primaryColumn = getPrimaryColumn(columnIndex);
+            boolean hasNulls = false;
+            for (int r = 0; r < rowCount; r++) {
+                final int key = Unsafe.getUnsafe().getInt(keysAddress + (long) r * Integer.BYTES);
+                if (key < 0) {
+                    primaryColumn.putInt(SymbolTable.VALUE_IS_NULL);
+                    hasNulls = true;
+                } else {
+                    primaryColumn.putInt(symbolKeys.getQuick(key));
+                }
+            }
+            if (hasNulls) {
+                symbolMapNullFlags.set(columnIndex, true);
+            }
+            setBlockValueNotNull(columnIndex);
+        }
+
+        private void checkNotWritten(int columnIndex) {
+            if (rowValueIsNotNull.getQuick(columnIndex) >= segmentRowCount) {
+                throw CairoException.nonCritical().put("duplicate column [name=").put(metadata.getColumnName(columnIndex)).put(']');
+            }
+        }
+
+        private void of(long timestampsAddr, int rowCount) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            boolean ooo = false;
+            for (int r = 0; r < rowCount; r++) {
+                final long timestamp = Unsafe.getUnsafe().getLong(timestampsAddr + (long) r * Long.BYTES);
+                if (timestamp < Timestamps.O3_MIN_TS) {
+                    throw CairoException.nonCritical().put("timestamp before 1970-01-01 is not allowed");
+                }
+                if (timestamp < max) {
+                    ooo = true;
+                } else {
+                    max = timestamp;
+                }
+                min = Math.min(min, timestamp);
+            }
+            this.rowCount = rowCount;
+            this.minTimestamp = min;
+            this.maxTimestamp = max;
+            this.outOfOrder = ooo;
+        }
+
+        private void putTimestamps(long timestampsAddr) {
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex != -1) {
+                final MemoryMA primaryColumn = getPrimaryColumn(timestampIndex);
+                for (int r = 0; r < rowCount; r++) {
+                    primaryColumn.putLong128(Unsafe.getUnsafe().getLong(timestampsAddr + (long) r * Long.BYTES), segmentRowCount + r);
+                }
+                setBlockValueNotNull(timestampIndex);
+            }
+        }
+
+        private void setBlockValueNotNull(int columnIndex) {
+            rowValueIsNotNull.setQuick(columnIndex, segmentRowCount + rowCount - 1);
+        }
+    }
+
     private class MetadataValidatorService implements MetadataServiceStub {
         public long structureVersion;
 
@@ -1782,21 +1987,7 @@ public class WalWriter implements TableWriterAPI {
         private int putSym0(int columnIndex, CharSequence utf16Value, SymbolMapReader symbolMapReader) {
             int key;
             if (utf16Value != null) {
-                final CharSequenceIntHashMap utf16Map = symbolMaps.getQuick(columnIndex);
-                final int index = utf16Map.keyIndex(utf16Value);
-                if (index > -1) {
-                    key = symbolMapReader.keyOf(utf16Value);
-                    if (key == SymbolTable.VALUE_NOT_FOUND) {
-                        // Add it to in-memory symbol map
-                        // Locally added symbols must have a continuous range of keys
-                        final int initialSymCount = initialSymbolCounts.get(columnIndex);
-                        key = initialSymCount + localSymbolIds.postIncrement(columnIndex);
-                    }
-                    // Chars.toString used as value is a parser buffer memory slice or mapped memory of symbolMapReader
-                    utf16Map.putAt(index, Chars.toString(utf16Value), key);
-                } else {
-                    key = utf16Map.valueAt(index);
-                }
+                key = getSymbolKey(columnIndex, utf16Value, symbolMapReader);
             } else {
                 key = SymbolTable.VALUE_IS_NULL;
                 symbolMapNullFlags.set(columnIndex, true);
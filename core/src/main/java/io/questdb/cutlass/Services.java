@@ -35,20 +35,25 @@ import io.questdb.cutlass.http.processors.PrometheusMetricsProcessor;
 import io.questdb.cutlass.http.processors.QueryCache;
 import io.questdb.cutlass.line.tcp.LineTcpReceiver;
 import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
-import io.questdb.cutlass.line.udp.AbstractLineProtoUdpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
 import io.questdb.cutlass.line.udp.LinuxMMLineUdpReceiver;
+import io.questdb.cutlass.line.udp.ParallelLineUdpReceiver;
 import io.questdb.cutlass.pgwire.PGWireConfiguration;
 import io.questdb.cutlass.pgwire.PGWireServer;
 import io.questdb.griffin.DatabaseSnapshotAgent;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
 import io.questdb.mp.WorkerPool;
 import io.questdb.std.Os;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
+
 public final class Services {
+    private static final Log LOG = LogFactory.getLog(Services.class);
 
     private Services() {
         throw new UnsupportedOperationException("not instantiatable");
@@ -155,15 +160,36 @@ public final class Services {
     }
 
     @Nullable
-    public static AbstractLineProtoUdpReceiver createLineUdpReceiver(
+    public static Closeable createLineUdpReceiver(
             LineUdpReceiverConfiguration config,
+            LineTcpReceiverConfiguration lineTcpConfig,
             CairoEngine cairoEngine,
-            WorkerPoolManager workerPoolManager
+            WorkerPoolManager workerPoolManager,
+            Metrics metrics
     ) {
         if (!config.isEnabled()) {
             return null;
         }
 
+        // The ioPool is DEDICATED when PropertyKey.LINE_UDP_IO_WORKER_COUNT is > 0 and the
+        // receiver is unicast, rows are then written by the ILP/TCP writerPool
+        if (config.getIOWorkerPoolConfiguration().getWorkerCount() > 0) {
+            if (config.isUnicast()) {
+                final WorkerPool ioPool = workerPoolManager.getInstance(
+                        config.getIOWorkerPoolConfiguration(),
+                        metrics.health(),
+                        Requester.LINE_UDP_IO
+                );
+                final WorkerPool writerPool = workerPoolManager.getInstance(
+                        lineTcpConfig.getWriterWorkerPoolConfiguration(),
+                        metrics.health(),
+                        Requester.LINE_TCP_WRITER
+                );
+                return new ParallelLineUdpReceiver(config, lineTcpConfig, cairoEngine, ioPool, writerPool);
+            }
+            LOG.advisory().$("multicast UDP receiver is single-threaded, ignoring line.udp.io.worker.count").$();
+        }
+
         // The pool is always the SHARED pool
         if (Os.isLinux()) {
             return new LinuxMMLineUdpReceiver(config, cairoEngine, workerPoolManager.getSharedPool());
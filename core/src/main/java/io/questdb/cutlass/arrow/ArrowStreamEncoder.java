@@ -0,0 +1,968 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectCharSequence;
+
+/**
+ * Encodes query results as an Arrow IPC stream: schema message, dictionary batches for
+ * symbol columns, record batches and the end-of-stream marker.
+ * <p>
+ * When the query is backed by page frames, fixed-width column values are sent straight
+ * from column memory, only validity bitmaps are computed by scanning for null sentinels.
+ * Symbol columns are sent as int32 dictionary keys along with their symbol tables. Otherwise,
+ * records are materialized into the same native column layout first and symbols are
+ * sent as strings.
+ * <p>
+ * The stream is produced incrementally: {@link #encode(long, long)} copies as many bytes
+ * as fit the destination and resumes from the same byte on the next call.
+ */
+public class ArrowStreamEncoder implements Mutable, QuietCloseable {
+    public static final int DEFAULT_BATCH_ROW_COUNT = 65536;
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+    private static final int DATE_UNIT_MILLISECOND = 1;
+    private static final int ENDIANNESS_LITTLE = 0;
+    private static final int HEADER_DICTIONARY_BATCH = 2;
+    private static final int HEADER_RECORD_BATCH = 3;
+    private static final int HEADER_SCHEMA = 1;
+    private static final int METADATA_VERSION_V5 = 4;
+    private static final int PRECISION_DOUBLE = 2;
+    private static final int PRECISION_SINGLE = 1;
+    private static final int SEGMENT_ADDRESS = 0;
+    private static final int SEGMENT_SCRATCH = 1;
+    private static final int STAGE_BATCH = 2;
+    private static final int STAGE_DICTIONARY = 1;
+    private static final int STAGE_DONE = 4;
+    private static final int STAGE_EOS = 3;
+    private static final int STAGE_SCHEMA = 0;
+    private static final int TIME_UNIT_MICROSECOND = 2;
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_DATE = 8;
+    private static final int TYPE_FIXED_SIZE_BINARY = 15;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_NULL = 1;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int TYPE_UTF8 = 5;
+    private final int batchRowCount;
+    // offset and length pairs of the current message body buffers
+    private final LongList buffers = new LongList();
+    private final DirectCharSequence charSequence = new DirectCharSequence();
+    private final FlatBufferWriter fb = new FlatBufferWriter();
+    // length and null count pairs of the current message fields
+    private final LongList nodes = new LongList();
+    private final long pageSize;
+    // var-size column offsets of materialized records
+    private final ObjList<MemoryCARW> recordIndexes = new ObjList<>();
+    // column values of materialized records, in native column layout
+    private final ObjList<MemoryCARW> recordValues = new ObjList<>();
+    // holds message metadata and converted buffers, offset 0 holds zeroes used for padding
+    private final MemoryCARW scratch;
+    // kind, address or scratch offset and length triplets of the current message
+    private final LongList segments = new LongList();
+    private long bodyLength;
+    private int columnCount;
+    private boolean cursorExhausted;
+    private int dictionaryColumnIndex;
+    private PageFrame frame;
+    // index of the first row of the next frame in the result set
+    private long frameRowBase;
+    private long frameRowHi;
+    private long frameRowLo;
+    private RecordMetadata metadata;
+    private long metadataOffset;
+    private PageFrameCursor pageFrameCursor;
+    private Record record;
+    private RecordCursor recordCursor;
+    private int recordRowCount;
+    private long rowIndex;
+    private int segmentIndex;
+    private long segmentOffset;
+    private long skip;
+    private int stage = STAGE_DONE;
+    private long stop;
+
+    public ArrowStreamEncoder(long pageSize, int batchRowCount) {
+        this.pageSize = pageSize;
+        this.batchRowCount = batchRowCount;
+        this.scratch = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    public static boolean isSupported(int columnType) {
+        return toArrowType(columnType) != -1;
+    }
+
+    @Override
+    public void clear() {
+        metadata = null;
+        pageFrameCursor = null;
+        frame = null;
+        recordCursor = null;
+        record = null;
+        stage = STAGE_DONE;
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        scratch.truncate();
+        for (int i = 0, n = recordValues.size(); i < n; i++) {
+            recordValues.getQuick(i).truncate();
+            MemoryCARW index = recordIndexes.getQuick(i);
+            if (index != null) {
+                index.truncate();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(scratch);
+        Misc.freeObjListAndClear(recordValues);
+        Misc.freeObjListAndClear(recordIndexes);
+    }
+
+    /**
+     * Copies next bytes of the stream to the given memory.
+     *
+     * @param address destination address
+     * @param len     destination capacity
+     * @return number of bytes copied, less than capacity when a message ends or the stream is done
+     * @throws io.questdb.cairo.DataUnavailableException when cursor data is not yet available,
+     *                                                   in that case no bytes are copied and the call can be repeated
+     */
+    public long encode(long address, long len) {
+        long written = 0;
+        while (written < len) {
+            if (segmentIndex == segments.size()) {
+                if (written > 0 || !nextMessage()) {
+                    break;
+                }
+            }
+            final long segmentLen = segments.getQuick(segmentIndex + 2);
+            final long n = Math.min(segmentLen - segmentOffset, len - written);
+            Vect.memcpy(address + written, segmentAddress() + segmentOffset, n);
+            written += n;
+            segmentOffset += n;
+            if (segmentOffset == segmentLen) {
+                segmentIndex += 3;
+                segmentOffset = 0;
+            }
+        }
+        return written;
+    }
+
+    public boolean isDone() {
+        return stage == STAGE_DONE && segmentIndex == segments.size();
+    }
+
+    /**
+     * Prepares to encode page frames. Fixed-width values are sent without conversion.
+     * Rows outside [skip, stop) range are not sent.
+     */
+    public ArrowStreamEncoder of(RecordMetadata metadata, PageFrameCursor pageFrameCursor, long skip, long stop) {
+        of(metadata, skip, stop);
+        this.pageFrameCursor = pageFrameCursor;
+        frameRowBase = 0;
+        frameRowLo = frameRowHi = 0;
+        return this;
+    }
+
+    /**
+     * Prepares to encode records of the cursor, which are materialized in batches.
+     * Rows outside [skip, stop) range are not sent.
+     */
+    public ArrowStreamEncoder of(RecordMetadata metadata, RecordCursor recordCursor, long skip, long stop) {
+        of(metadata, skip, stop);
+        this.recordCursor = recordCursor;
+        this.record = recordCursor.getRecord();
+        rowIndex = 0;
+        recordRowCount = 0;
+        cursorExhausted = false;
+        for (int i = 0; i < columnCount; i++) {
+            if (i == recordValues.size()) {
+                recordValues.add(Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN));
+                recordIndexes.add(null);
+            }
+            if (ColumnType.isVariableLength(toNativeType(metadata.getColumnType(i))) && recordIndexes.getQuick(i) == null) {
+                recordIndexes.setQuick(i, Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN));
+            }
+        }
+        return this;
+    }
+
+    private static boolean isNull(int columnTag, long address, long row) {
+        switch (columnTag) {
+            case ColumnType.CHAR:
+                return Unsafe.getUnsafe().getChar(address + (row << 1)) == 0;
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return Unsafe.getUnsafe().getInt(address + (row << 2)) == Numbers.INT_NaN;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return Unsafe.getUnsafe().getLong(address + (row << 3)) == Numbers.LONG_NaN;
+            case ColumnType.FLOAT:
+                return Float.isNaN(Unsafe.getUnsafe().getFloat(address + (row << 2)));
+            case ColumnType.DOUBLE:
+                return Double.isNaN(Unsafe.getUnsafe().getDouble(address + (row << 3)));
+            case ColumnType.GEOBYTE:
+                return Unsafe.getUnsafe().getByte(address + row) == GeoHashes.BYTE_NULL;
+            case ColumnType.GEOSHORT:
+                return Unsafe.getUnsafe().getShort(address + (row << 1)) == GeoHashes.SHORT_NULL;
+            case ColumnType.GEOINT:
+                return Unsafe.getUnsafe().getInt(address + (row << 2)) == GeoHashes.INT_NULL;
+            case ColumnType.GEOLONG:
+                return Unsafe.getUnsafe().getLong(address + (row << 3)) == GeoHashes.NULL;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                final long p = address + (row << 4);
+                return Uuid.isNull(Unsafe.getUnsafe().getLong(p), Unsafe.getUnsafe().getLong(p + 8));
+            case ColumnType.LONG256:
+                final long q = address + (row << 5);
+                return Unsafe.getUnsafe().getLong(q) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(q + 8) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(q + 16) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(q + 24) == Numbers.LONG_NaN;
+            default:
+                // boolean, byte and short have no null value
+                return false;
+        }
+    }
+
+    private static int toArrowType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return TYPE_INT;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return TYPE_FLOATING_POINT;
+            case ColumnType.DATE:
+                return TYPE_DATE;
+            case ColumnType.TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return TYPE_UTF8;
+            case ColumnType.BINARY:
+                return TYPE_BINARY;
+            case ColumnType.LONG256:
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                return TYPE_FIXED_SIZE_BINARY;
+            case ColumnType.NULL:
+                return TYPE_NULL;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Materialized symbols are stored as strings.
+     */
+    private static int toNativeType(int columnType) {
+        return ColumnType.isSymbol(columnType) ? ColumnType.STRING : columnType;
+    }
+
+    /**
+     * Encodes chars as UTF-8, unpaired surrogates are replaced with '?'.
+     *
+     * @param address destination with capacity of at least 3 bytes per char
+     * @param value   chars to encode
+     * @return number of bytes written
+     */
+    static int putUtf8(long address, CharSequence value) {
+        long p = address;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                Unsafe.getUnsafe().putByte(p++, (byte) c);
+            } else if (c < 0x800) {
+                Unsafe.getUnsafe().putByte(p++, (byte) (0xc0 | (c >> 6)));
+                Unsafe.getUnsafe().putByte(p++, (byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, value.charAt(++i));
+                    Unsafe.getUnsafe().putByte(p++, (byte) (0xf0 | (cp >> 18)));
+                    Unsafe.getUnsafe().putByte(p++, (byte) (0x80 | ((cp >> 12) & 0x3f)));
+                    Unsafe.getUnsafe().putByte(p++, (byte) (0x80 | ((cp >> 6) & 0x3f)));
+                    Unsafe.getUnsafe().putByte(p++, (byte) (0x80 | (cp & 0x3f)));
+                } else {
+                    Unsafe.getUnsafe().putByte(p++, (byte) '?');
+                }
+            } else {
+                Unsafe.getUnsafe().putByte(p++, (byte) (0xe0 | (c >> 12)));
+                Unsafe.getUnsafe().putByte(p++, (byte) (0x80 | ((c >> 6) & 0x3f)));
+                Unsafe.getUnsafe().putByte(p++, (byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        return (int) (p - address);
+    }
+
+    private void addBinaryColumn(long dataAddress, long indexAddress, long rowCount) {
+        final long validityOffset = allocValidity(rowCount);
+        final long offsetsOffset = scratch.getAppendOffset();
+        scratch.putInt(0);
+        scratch.skip(rowCount * Integer.BYTES);
+        final long dataOffset = scratch.getAppendOffset();
+        long nullCount = 0;
+        for (long r = 0; r < rowCount; r++) {
+            final long p = dataAddress != 0 ? dataAddress + Unsafe.getUnsafe().getLong(indexAddress + r * Long.BYTES) : 0;
+            final long len = p != 0 ? Unsafe.getUnsafe().getLong(p) : -1;
+            if (len < 0) {
+                nullCount++;
+            } else {
+                setValid(validityOffset, r);
+                Vect.memcpy(scratch.appendAddressFor(len), p + Long.BYTES, len);
+            }
+            putDataOffset(offsetsOffset, r, dataOffset);
+        }
+        addVarBuffers(rowCount, nullCount, validityOffset, offsetsOffset, dataOffset);
+    }
+
+    private void addBoolColumn(long address, long rowCount) {
+        final long size = (rowCount + 7) >>> 3;
+        final long offset = allocZeroes(size);
+        if (address != 0) {
+            final long bitmap = scratch.getAddress() + offset;
+            for (long r = 0; r < rowCount; r++) {
+                if (Unsafe.getUnsafe().getByte(address + r) != 0) {
+                    setBit(bitmap, r);
+                }
+            }
+            nodes.add(rowCount, 0);
+            addBuffer(SEGMENT_SCRATCH, 0, 0);
+        } else {
+            nodes.add(rowCount, rowCount);
+            addBuffer(SEGMENT_SCRATCH, offset, size);
+        }
+        addBuffer(SEGMENT_SCRATCH, offset, size);
+    }
+
+    private void addBuffer(int kind, long value, long len) {
+        buffers.add(bodyLength, len);
+        if (len > 0) {
+            addSegment(kind, value, len);
+        }
+        // body buffers are 8-byte aligned, scratch starts with zeroes
+        final long padding = -len & 7;
+        if (padding > 0) {
+            addSegment(SEGMENT_SCRATCH, 0, padding);
+        }
+        bodyLength += len + padding;
+    }
+
+    private void addColumn(int columnType, long dataAddress, long indexAddress, long rowCount, boolean dictionary) {
+        final int columnTag = ColumnType.tagOf(columnType);
+        switch (columnTag) {
+            case ColumnType.NULL:
+                nodes.add(rowCount, rowCount);
+                break;
+            case ColumnType.BOOLEAN:
+                addBoolColumn(dataAddress, rowCount);
+                break;
+            case ColumnType.STRING:
+                addUtf8Column(dataAddress, indexAddress, rowCount, null);
+                break;
+            case ColumnType.SYMBOL:
+                if (dictionary) {
+                    addFixedColumn(columnTag, dataAddress, rowCount);
+                } else {
+                    addUtf8Column(dataAddress, indexAddress, rowCount, null);
+                }
+                break;
+            case ColumnType.BINARY:
+                addBinaryColumn(dataAddress, indexAddress, rowCount);
+                break;
+            case ColumnType.UUID:
+                addUuidColumn(dataAddress, rowCount);
+                break;
+            default:
+                addFixedColumn(columnTag, dataAddress, rowCount);
+                break;
+        }
+    }
+
+    private void addFixedColumn(int columnTag, long address, long rowCount) {
+        final long size = rowCount << ColumnType.pow2SizeOf(columnTag);
+        if (address != 0) {
+            addValidity(columnTag, address, rowCount);
+            addBuffer(SEGMENT_ADDRESS, address, size);
+        } else {
+            // column top, all values are null
+            final long offset = allocZeroes(Math.max(size, (rowCount + 7) >>> 3));
+            nodes.add(rowCount, rowCount);
+            addBuffer(SEGMENT_SCRATCH, offset, (rowCount + 7) >>> 3);
+            addBuffer(SEGMENT_SCRATCH, offset, size);
+        }
+    }
+
+    private void addSegment(int kind, long value, long len) {
+        segments.add(kind);
+        segments.add(value);
+        segments.add(len);
+    }
+
+    private void addUtf8Column(long dataAddress, long indexAddress, long rowCount, SymbolTable symbolTable) {
+        final long validityOffset = allocValidity(rowCount);
+        final long offsetsOffset = scratch.getAppendOffset();
+        scratch.putInt(0);
+        scratch.skip(rowCount * Integer.BYTES);
+        final long dataOffset = scratch.getAppendOffset();
+        long nullCount = 0;
+        for (long r = 0; r < rowCount; r++) {
+            final CharSequence value;
+            if (symbolTable != null) {
+                value = symbolTable.valueOf((int) r);
+            } else if (dataAddress != 0) {
+                final long p = dataAddress + Unsafe.getUnsafe().getLong(indexAddress + r * Long.BYTES);
+                final int len = Unsafe.getUnsafe().getInt(p);
+                value = len < 0 ? null : charSequence.of(p + Integer.BYTES, p + Integer.BYTES + (long) len * Character.BYTES);
+            } else {
+                value = null;
+            }
+
+            if (value == null) {
+                nullCount++;
+            } else {
+                setValid(validityOffset, r);
+                final long lo = scratch.getAppendOffset();
+                final int len = putUtf8(scratch.appendAddressFor(3L * value.length()), value);
+                scratch.jumpTo(lo + len);
+            }
+            putDataOffset(offsetsOffset, r, dataOffset);
+        }
+        addVarBuffers(rowCount, nullCount, validityOffset, offsetsOffset, dataOffset);
+    }
+
+    private void addUuidColumn(long address, long rowCount) {
+        // Arrow UUIDs are 16 big-endian bytes
+        final long size = rowCount << 4;
+        final long offset = allocZeroes(size);
+        if (address != 0) {
+            addValidity(ColumnType.UUID, address, rowCount);
+            final long dst = scratch.getAddress() + offset;
+            for (long r = 0; r < rowCount; r++) {
+                final long p = address + (r << 4);
+                Unsafe.getUnsafe().putLong(dst + (r << 4), Long.reverseBytes(Unsafe.getUnsafe().getLong(p + 8)));
+                Unsafe.getUnsafe().putLong(dst + (r << 4) + 8, Long.reverseBytes(Unsafe.getUnsafe().getLong(p)));
+            }
+        } else {
+            nodes.add(rowCount, rowCount);
+            addBuffer(SEGMENT_SCRATCH, offset, (rowCount + 7) >>> 3);
+        }
+        addBuffer(SEGMENT_SCRATCH, offset, size);
+    }
+
+    private void addValidity(int columnTag, long address, long rowCount) {
+        if (columnTag == ColumnType.BYTE || columnTag == ColumnType.SHORT) {
+            nodes.add(rowCount, 0);
+            addBuffer(SEGMENT_SCRATCH, 0, 0);
+            return;
+        }
+        final long size = (rowCount + 7) >>> 3;
+        final long offset = allocZeroes(size);
+        final long bitmap = scratch.getAddress() + offset;
+        long nullCount = 0;
+        for (long r = 0; r < rowCount; r++) {
+            if (isNull(columnTag, address, r)) {
+                nullCount++;
+            } else {
+                setBit(bitmap, r);
+            }
+        }
+        nodes.add(rowCount, nullCount);
+        if (nullCount == 0) {
+            // validity buffer can be omitted when there are no nulls
+            scratch.jumpTo(offset);
+            addBuffer(SEGMENT_SCRATCH, 0, 0);
+        } else {
+            addBuffer(SEGMENT_SCRATCH, offset, size);
+        }
+    }
+
+    private void addVarBuffers(long rowCount, long nullCount, long validityOffset, long offsetsOffset, long dataOffset) {
+        nodes.add(rowCount, nullCount);
+        addBuffer(SEGMENT_SCRATCH, validityOffset, nullCount > 0 ? (rowCount + 7) >>> 3 : 0);
+        addBuffer(SEGMENT_SCRATCH, offsetsOffset, (rowCount + 1) * Integer.BYTES);
+        addBuffer(SEGMENT_SCRATCH, dataOffset, scratch.getAppendOffset() - dataOffset);
+    }
+
+    private long allocValidity(long rowCount) {
+        return allocZeroes((rowCount + 7) >>> 3);
+    }
+
+    private long allocZeroes(long size) {
+        final long offset = scratch.getAppendOffset();
+        Vect.memset(scratch.appendAddressFor(size), size, 0);
+        return offset;
+    }
+
+    private void appendRecord() {
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryCARW values = recordValues.getQuick(i);
+            final int columnType = metadata.getColumnType(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    values.putBool(record.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    values.putByte(record.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    values.putShort(record.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    values.putChar(record.getChar(i));
+                    break;
+                case ColumnType.INT:
+                    values.putInt(record.getInt(i));
+                    break;
+                case ColumnType.LONG:
+                    values.putLong(record.getLong(i));
+                    break;
+                case ColumnType.DATE:
+                    values.putLong(record.getDate(i));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    values.putLong(record.getTimestamp(i));
+                    break;
+                case ColumnType.FLOAT:
+                    values.putFloat(record.getFloat(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    values.putDouble(record.getDouble(i));
+                    break;
+                case ColumnType.GEOBYTE:
+                    values.putByte(record.getGeoByte(i));
+                    break;
+                case ColumnType.GEOSHORT:
+                    values.putShort(record.getGeoShort(i));
+                    break;
+                case ColumnType.GEOINT:
+                    values.putInt(record.getGeoInt(i));
+                    break;
+                case ColumnType.GEOLONG:
+                    values.putLong(record.getGeoLong(i));
+                    break;
+                case ColumnType.STRING:
+                    recordIndexes.getQuick(i).putLong(values.getAppendOffset());
+                    values.putStr(record.getStr(i));
+                    break;
+                case ColumnType.SYMBOL:
+                    recordIndexes.getQuick(i).putLong(values.getAppendOffset());
+                    values.putStr(record.getSym(i));
+                    break;
+                case ColumnType.BINARY:
+                    recordIndexes.getQuick(i).putLong(values.getAppendOffset());
+                    values.putBin(record.getBin(i));
+                    break;
+                case ColumnType.LONG256:
+                    final Long256 long256 = record.getLong256A(i);
+                    values.putLong(long256.getLong0());
+                    values.putLong(long256.getLong1());
+                    values.putLong(long256.getLong2());
+                    values.putLong(long256.getLong3());
+                    break;
+                case ColumnType.UUID:
+                case ColumnType.LONG128:
+                    values.putLong(record.getLong128Lo(i));
+                    values.putLong(record.getLong128Hi(i));
+                    break;
+                default:
+                    // null column has no values
+                    break;
+            }
+        }
+    }
+
+    private void beginMessage() {
+        segments.clear();
+        // metadata segment is set once the body is known
+        addSegment(SEGMENT_SCRATCH, 0, 0);
+        nodes.clear();
+        buffers.clear();
+        bodyLength = 0;
+        scratch.jumpTo(0);
+        scratch.putLong(0);
+    }
+
+    private void endMetadata() {
+        fb.align(8);
+        final long size = scratch.getAppendOffset() - metadataOffset;
+        scratch.putInt(metadataOffset + Integer.BYTES, (int) (size - 2 * Integer.BYTES));
+        segments.setQuick(1, metadataOffset);
+        segments.setQuick(2, size);
+    }
+
+    private boolean isDictionaryEncoded(int columnIndex) {
+        return pageFrameCursor != null && ColumnType.isSymbol(metadata.getColumnType(columnIndex));
+    }
+
+    private boolean nextMessage() {
+        // previous message has been copied out, a failed attempt must not resend it
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        switch (stage) {
+            case STAGE_SCHEMA:
+                writeSchema();
+                dictionaryColumnIndex = -1;
+                stage = STAGE_DICTIONARY;
+                return true;
+            case STAGE_DICTIONARY:
+                while (++dictionaryColumnIndex < columnCount) {
+                    if (isDictionaryEncoded(dictionaryColumnIndex)) {
+                        writeDictionary(dictionaryColumnIndex);
+                        return true;
+                    }
+                }
+                stage = STAGE_BATCH;
+                // fall through
+            case STAGE_BATCH:
+                if (pageFrameCursor != null ? nextPageFrameBatch() : nextRecordBatch()) {
+                    return true;
+                }
+                stage = STAGE_EOS;
+                // fall through
+            case STAGE_EOS:
+                scratch.jumpTo(0);
+                scratch.putInt(CONTINUATION_MARKER);
+                scratch.putInt(0);
+                addSegment(SEGMENT_SCRATCH, 0, 2 * Integer.BYTES);
+                stage = STAGE_DONE;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean nextPageFrameBatch() {
+        while (frameRowLo >= frameRowHi) {
+            if (frameRowBase >= stop || (frame = pageFrameCursor.next()) == null) {
+                return false;
+            }
+            final long frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            frameRowLo = Math.max(skip - frameRowBase, 0);
+            frameRowHi = Math.min(stop - frameRowBase, frameRowCount);
+            frameRowBase += frameRowCount;
+        }
+
+        final long rowCount = Math.min(frameRowHi - frameRowLo, batchRowCount);
+        beginMessage();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            final long pageAddress = frame.getPageAddress(i);
+            if (ColumnType.isVariableLength(columnType)) {
+                // data page is shared by the frame rows, offsets are absolute
+                addColumn(columnType, pageAddress, frame.getIndexPageAddress(i) + frameRowLo * Long.BYTES, rowCount, false);
+            } else {
+                final long address = pageAddress != 0 ? pageAddress + (frameRowLo << ColumnType.pow2SizeOf(columnType)) : 0;
+                addColumn(columnType, address, 0, rowCount, true);
+            }
+        }
+        frameRowLo += rowCount;
+        writeRecordBatch(rowCount);
+        return true;
+    }
+
+    private boolean nextRecordBatch() {
+        while (recordRowCount < batchRowCount && rowIndex < stop && !cursorExhausted) {
+            if (!recordCursor.hasNext()) {
+                cursorExhausted = true;
+                break;
+            }
+            if (rowIndex++ < skip) {
+                continue;
+            }
+            if (recordRowCount == 0) {
+                // previous batch has been sent by now
+                for (int i = 0; i < columnCount; i++) {
+                    recordValues.getQuick(i).jumpTo(0);
+                    final MemoryCARW index = recordIndexes.getQuick(i);
+                    if (index != null) {
+                        index.jumpTo(0);
+                    }
+                }
+            }
+            appendRecord();
+            recordRowCount++;
+        }
+
+        if (recordRowCount == 0) {
+            return false;
+        }
+
+        beginMessage();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = toNativeType(metadata.getColumnType(i));
+            final MemoryCARW index = recordIndexes.getQuick(i);
+            addColumn(columnType, recordValues.getQuick(i).getAddress(), index != null ? index.getAddress() : 0, recordRowCount, false);
+        }
+        writeRecordBatch(recordRowCount);
+        recordRowCount = 0;
+        return true;
+    }
+
+    private void of(RecordMetadata metadata, long skip, long stop) {
+        clear();
+        final int columnCount = metadata.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (!isSupported(columnType)) {
+                throw CairoException.nonCritical().put("column type is not supported by arrow format [column=")
+                        .put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+        }
+        this.metadata = metadata;
+        this.columnCount = columnCount;
+        this.skip = skip;
+        this.stop = stop;
+        stage = STAGE_SCHEMA;
+    }
+
+    private void putDataOffset(long offsetsOffset, long row, long dataOffset) {
+        final long size = scratch.getAppendOffset() - dataOffset;
+        if (size > Integer.MAX_VALUE) {
+            throw CairoException.nonCritical().put("arrow batch data size exceeds 2GB, use smaller batches [rows=").put(row).put(']');
+        }
+        scratch.putInt(offsetsOffset + (row + 1) * Integer.BYTES, (int) size);
+    }
+
+    private long segmentAddress() {
+        final long value = segments.getQuick(segmentIndex + 1);
+        return segments.getQuick(segmentIndex) == SEGMENT_SCRATCH ? scratch.getAddress() + value : value;
+    }
+
+    private void setBit(long bitmap, long index) {
+        final long p = bitmap + (index >>> 3);
+        Unsafe.getUnsafe().putByte(p, (byte) (Unsafe.getUnsafe().getByte(p) | (1 << (index & 7))));
+    }
+
+    private void setValid(long validityOffset, long row) {
+        // scratch may have been reallocated since the bitmap was allocated
+        setBit(scratch.getAddress() + validityOffset, row);
+    }
+
+    private void writeDictionary(int columnIndex) {
+        final StaticSymbolTable symbolTable = (StaticSymbolTable) pageFrameCursor.getSymbolTable(columnIndex);
+        final int symbolCount = symbolTable.getSymbolCount();
+        beginMessage();
+        addUtf8Column(0, 0, symbolCount, symbolTable);
+
+        final int headerRef = startMetadata(HEADER_DICTIONARY_BATCH);
+        fb.startTable();
+        fb.addLong(0, columnIndex);
+        fb.addReference(1);
+        fb.addBool(2, false);
+        final int dictionaryBatch = fb.endTable();
+        final int dataRef = fb.getFieldPosition(1);
+        fb.patchReference(headerRef, dictionaryBatch);
+        fb.patchReference(dataRef, writeRecordBatchTable(symbolCount));
+        endMetadata();
+    }
+
+    private int writeField(int columnIndex) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        final boolean dictionary = isDictionaryEncoded(columnIndex);
+        fb.startTable();
+        fb.addReference(0);
+        fb.addBool(1, true);
+        fb.addByte(2, toArrowType(columnType));
+        fb.addReference(3);
+        if (dictionary) {
+            fb.addReference(4);
+        }
+        fb.addReference(5);
+        final int field = fb.endTable();
+        final int nameRef = fb.getFieldPosition(0);
+        final int typeRef = fb.getFieldPosition(3);
+        final int dictionaryRef = dictionary ? fb.getFieldPosition(4) : 0;
+        final int childrenRef = fb.getFieldPosition(5);
+
+        fb.patchReference(nameRef, fb.putString(metadata.getColumnName(columnIndex)));
+        fb.patchReference(typeRef, writeType(columnType));
+        if (dictionary) {
+            // dictionary id is the column index
+            fb.startTable();
+            fb.addLong(0, columnIndex);
+            fb.addReference(1);
+            fb.addBool(2, false);
+            final int encoding = fb.endTable();
+            final int indexTypeRef = fb.getFieldPosition(1);
+            fb.patchReference(dictionaryRef, encoding);
+            fb.patchReference(indexTypeRef, writeIntType(32, true));
+        }
+        fb.patchReference(childrenRef, fb.putReferenceVector(0));
+        return field;
+    }
+
+    private int writeIntType(int bitWidth, boolean signed) {
+        fb.startTable();
+        fb.addInt(0, bitWidth);
+        fb.addBool(1, signed);
+        return fb.endTable();
+    }
+
+    private void writeRecordBatch(long rowCount) {
+        final int headerRef = startMetadata(HEADER_RECORD_BATCH);
+        fb.patchReference(headerRef, writeRecordBatchTable(rowCount));
+        endMetadata();
+    }
+
+    private int writeRecordBatchTable(long rowCount) {
+        fb.startTable();
+        fb.addLong(0, rowCount);
+        fb.addReference(1);
+        fb.addReference(2);
+        final int recordBatch = fb.endTable();
+        final int nodesRef = fb.getFieldPosition(1);
+        final int buffersRef = fb.getFieldPosition(2);
+
+        fb.patchReference(nodesRef, fb.startLongPairVector(nodes.size() / 2));
+        for (int i = 0, n = nodes.size(); i < n; i += 2) {
+            fb.putStructLongs(nodes.getQuick(i), nodes.getQuick(i + 1));
+        }
+        fb.patchReference(buffersRef, fb.startLongPairVector(buffers.size() / 2));
+        for (int i = 0, n = buffers.size(); i < n; i += 2) {
+            fb.putStructLongs(buffers.getQuick(i), buffers.getQuick(i + 1));
+        }
+        return recordBatch;
+    }
+
+    private void writeSchema() {
+        beginMessage();
+        final int headerRef = startMetadata(HEADER_SCHEMA);
+        fb.startTable();
+        fb.addShort(0, ENDIANNESS_LITTLE);
+        fb.addReference(1);
+        final int schema = fb.endTable();
+        final int fieldsRef = fb.getFieldPosition(1);
+        fb.patchReference(headerRef, schema);
+
+        final int fields = fb.putReferenceVector(columnCount);
+        fb.patchReference(fieldsRef, fields);
+        for (int i = 0; i < columnCount; i++) {
+            fb.patchReference(fields + 4 + 4 * i, writeField(i));
+        }
+        endMetadata();
+    }
+
+    private int writeType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                return writeIntType(8, true);
+            case ColumnType.SHORT:
+            case ColumnType.GEOSHORT:
+                return writeIntType(16, true);
+            case ColumnType.CHAR:
+                return writeIntType(16, false);
+            case ColumnType.INT:
+            case ColumnType.GEOINT:
+                return writeIntType(32, true);
+            case ColumnType.LONG:
+            case ColumnType.GEOLONG:
+                return writeIntType(64, true);
+            case ColumnType.FLOAT:
+                fb.startTable();
+                fb.addShort(0, PRECISION_SINGLE);
+                return fb.endTable();
+            case ColumnType.DOUBLE:
+                fb.startTable();
+                fb.addShort(0, PRECISION_DOUBLE);
+                return fb.endTable();
+            case ColumnType.DATE:
+                fb.startTable();
+                fb.addShort(0, DATE_UNIT_MILLISECOND);
+                return fb.endTable();
+            case ColumnType.TIMESTAMP:
+                fb.startTable();
+                fb.addShort(0, TIME_UNIT_MICROSECOND);
+                fb.addReference(1);
+                final int timestamp = fb.endTable();
+                fb.patchReference(fb.getFieldPosition(1), fb.putString("UTC"));
+                return timestamp;
+            case ColumnType.LONG256:
+                fb.startTable();
+                fb.addInt(0, Long256.BYTES);
+                return fb.endTable();
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                fb.startTable();
+                fb.addInt(0, 2 * Long.BYTES);
+                return fb.endTable();
+            default:
+                // bool, utf8, binary and null types have no attributes
+                fb.startTable();
+                return fb.endTable();
+        }
+    }
+
+    /**
+     * Starts message metadata, the body must be complete by now.
+     *
+     * @return position of the message header reference
+     */
+    private int startMetadata(int headerType) {
+        // metadata is 8-byte aligned, so that flatbuffer alignment is preserved
+        scratch.jumpTo((scratch.getAppendOffset() + 7) & ~7L);
+        metadataOffset = scratch.getAppendOffset();
+        scratch.putInt(CONTINUATION_MARKER);
+        scratch.putInt(0);
+
+        fb.of(scratch);
+        final int rootRef = fb.putRoot();
+        fb.startTable();
+        fb.addShort(0, METADATA_VERSION_V5);
+        fb.addByte(1, headerType);
+        fb.addReference(2);
+        fb.addLong(3, bodyLength);
+        final int message = fb.endTable();
+        final int headerRef = fb.getFieldPosition(2);
+        fb.patchReference(rootRef, message);
+        return headerRef;
+    }
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+
+/**
+ * Minimal flatbuffer builder that writes front-to-back, as opposed to the reference
+ * implementation that builds buffers back-to-front. Tables are written before their
+ * children, so reference fields are emitted as placeholders and patched once the child
+ * object position is known. All offsets point forward, which flatbuffers permits.
+ * <p>
+ * Positions are relative to the start of the buffer, which must be 8-byte aligned.
+ */
+final class FlatBufferWriter {
+    private static final int SIZE_REFERENCE = -4;
+    private final IntList fieldPositions = new IntList();
+    // field id -> size in bytes, negative for reference fields
+    private final IntList fieldSizes = new IntList();
+    private final LongList fieldValues = new LongList();
+    private long base;
+    private MemoryCARW mem;
+
+    void addBool(int id, boolean value) {
+        addField(id, 1, value ? 1 : 0);
+    }
+
+    void addByte(int id, int value) {
+        addField(id, 1, value);
+    }
+
+    void addInt(int id, int value) {
+        addField(id, 4, value);
+    }
+
+    void addLong(int id, long value) {
+        addField(id, 8, value);
+    }
+
+    /**
+     * Adds reference field to the current table. Position of the field is available
+     * via {@link #getFieldPosition(int)} after the table is ended and must be patched
+     * with {@link #patchReference(int, int)}.
+     */
+    void addReference(int id) {
+        addField(id, SIZE_REFERENCE, 0);
+    }
+
+    void addShort(int id, int value) {
+        addField(id, 2, value);
+    }
+
+    /**
+     * Aligns position to given power of 2 by padding buffer with zeroes.
+     */
+    void align(int alignment) {
+        while ((position() & (alignment - 1)) != 0) {
+            mem.putByte((byte) 0);
+        }
+    }
+
+    /**
+     * Writes current table preceded by its vtable.
+     *
+     * @return position of the table
+     */
+    int endTable() {
+        final int fieldCount = fieldSizes.size();
+        boolean hasLongs = false;
+        int tableSize = 4;
+        for (int i = 0; i < fieldCount; i++) {
+            final int size = Math.abs(fieldSizes.getQuick(i));
+            hasLongs |= size == 8;
+            tableSize += size;
+        }
+
+        align(2);
+        final int vtablePos = position();
+        mem.putShort((short) (4 + 2 * fieldCount));
+        mem.putShort((short) tableSize);
+        for (int i = 0; i < fieldCount; i++) {
+            mem.putShort((short) 0);
+        }
+
+        // table starts with 4-byte soffset, 8-byte fields follow it immediately
+        align(4);
+        if (hasLongs && (position() & 7) == 0) {
+            mem.putInt(0);
+        }
+        final int tablePos = position();
+        mem.putInt(tablePos - vtablePos);
+        // fields are written largest first to avoid padding inside the table
+        for (int size = 8; size > 0; size >>= 1) {
+            for (int i = 0; i < fieldCount; i++) {
+                final int fieldSize = fieldSizes.getQuick(i);
+                if (Math.abs(fieldSize) == size) {
+                    final int pos = position();
+                    fieldPositions.setQuick(i, pos);
+                    mem.putShort(base + vtablePos + 4 + 2L * i, (short) (pos - tablePos));
+                    putScalar(size, fieldValues.getQuick(i));
+                }
+            }
+        }
+        return tablePos;
+    }
+
+    int getFieldPosition(int id) {
+        return fieldPositions.getQuick(id);
+    }
+
+    FlatBufferWriter of(MemoryCARW mem) {
+        this.mem = mem;
+        this.base = mem.getAppendOffset();
+        assert (base & 7) == 0;
+        return this;
+    }
+
+    /**
+     * Points reference at the given position to the target object.
+     */
+    void patchReference(int referencePos, int targetPos) {
+        assert targetPos > referencePos;
+        mem.putInt(base + referencePos, targetPos - referencePos);
+    }
+
+    int position() {
+        return (int) (mem.getAppendOffset() - base);
+    }
+
+    /**
+     * Writes vector of references, elements must be patched with {@link #patchReference(int, int)}.
+     *
+     * @return position of the vector, the i-th element is at position + 4 + 4 * i
+     */
+    int putReferenceVector(int count) {
+        align(4);
+        final int pos = position();
+        mem.putInt(count);
+        for (int i = 0; i < count; i++) {
+            mem.putInt(0);
+        }
+        return pos;
+    }
+
+    /**
+     * Writes reference placeholder for the root table.
+     *
+     * @return position of the reference
+     */
+    int putRoot() {
+        assert position() == 0;
+        mem.putInt(0);
+        return 0;
+    }
+
+    int putString(CharSequence value) {
+        align(4);
+        final int pos = position();
+        final long lenOffset = mem.getAppendOffset();
+        mem.putInt(0);
+        final long lo = mem.getAppendOffset();
+        final int len = ArrowStreamEncoder.putUtf8(mem.appendAddressFor(3L * value.length()), value);
+        mem.jumpTo(lo + len);
+        mem.putByte((byte) 0);
+        mem.putInt(lenOffset, len);
+        return pos;
+    }
+
+    /**
+     * Starts vector of structs made of two longs, such as Arrow's FieldNode and Buffer.
+     * Elements are appended with {@link #putStructLongs(long, long)}.
+     *
+     * @return position of the vector
+     */
+    int startLongPairVector(int count) {
+        align(4);
+        if ((position() & 7) == 0) {
+            mem.putInt(0);
+        }
+        final int pos = position();
+        mem.putInt(count);
+        return pos;
+    }
+
+    void putStructLongs(long a, long b) {
+        mem.putLong(a);
+        mem.putLong(b);
+    }
+
+    void startTable() {
+        fieldSizes.clear();
+        fieldValues.clear();
+        fieldPositions.clear();
+    }
+
+    private void addField(int id, int size, long value) {
+        while (fieldSizes.size() <= id) {
+            fieldSizes.add(0);
+            fieldValues.add(0);
+            fieldPositions.add(0);
+        }
+        fieldSizes.setQuick(id, size);
+        fieldValues.setQuick(id, value);
+    }
+
+    private void putScalar(int size, long value) {
+        switch (size) {
+            case 1:
+                mem.putByte((byte) value);
+                break;
+            case 2:
+                mem.putShort((short) value);
+                break;
+            case 4:
+                mem.putInt((int) value);
+                break;
+            default:
+                mem.putLong(value);
+                break;
+        }
+    }
+}
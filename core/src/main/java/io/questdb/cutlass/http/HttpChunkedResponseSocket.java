@@ -24,6 +24,7 @@
 
 package io.questdb.cutlass.http;
 
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.str.CharSink;
@@ -33,8 +34,26 @@ public interface HttpChunkedResponseSocket extends CharSink {
 
     void done() throws PeerDisconnectedException, PeerIsSlowToReadException;
 
+    /**
+     * Returns address to write binary content to.
+     *
+     * @param len number of bytes to be written
+     * @return write address
+     * @throws NoSpaceLeftInResponseBufferException when there is less than len bytes available
+     */
+    long getWriteAddress(int len);
+
+    long getWriteNAvailable();
+
     HttpResponseHeader headers();
 
+    /**
+     * Commits binary content written to {@link #getWriteAddress(int)}.
+     *
+     * @param len number of bytes written
+     */
+    void onWrite(int len);
+
     boolean resetToBookmark();
 
     void sendChunk(boolean done) throws PeerDisconnectedException, PeerIsSlowToReadException;
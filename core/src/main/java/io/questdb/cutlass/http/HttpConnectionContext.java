@@ -41,6 +41,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
     private static final Log LOG = LogFactory.getLog(HttpConnectionContext.class);
     private final boolean allowDeflateBeforeSend;
     private final CairoSecurityContext cairoSecurityContext;
+    private final HttpContentParser contentParser = new HttpContentParser();
     private final ObjectPool<DirectByteCharSequence> csPool;
     private final boolean dumpNetworkTraffic;
     private final HttpHeaderParser headerParser;
@@ -93,6 +94,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         this.headerParser.clear();
         this.multipartContentParser.clear();
         this.multipartContentHeaderParser.clear();
+        this.contentParser.clear();
         this.csPool.clear();
         this.localValueMap.clear();
         if (this.pendingRetry) {
@@ -232,6 +234,11 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         return pendingRetry || receivedBytes > 0 || this.fd == -1;
     }
 
+    @Override
+    public boolean isStagedIOSupported() {
+        return true;
+    }
+
     @Override
     public HttpConnectionContext of(int fd, IODispatcher<HttpConnectionContext> dispatcher) {
         HttpConnectionContext r = super.of(fd, dispatcher);
@@ -244,7 +251,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
             if (recvBuffer == 0) {
                 recvBuffer = Unsafe.malloc(recvBufferSize, MemoryTag.NATIVE_HTTP_CONN);
             }
-            responseSink.of(fd);
+            responseSink.of(fd, this);
         }
         return r;
     }
@@ -341,6 +348,56 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         }
     }
 
+    private boolean consumeContent(
+            int fd,
+            HttpRequestProcessor processor,
+            long headerEnd,
+            int read,
+            boolean newRequest,
+            RescheduleContext rescheduleContext
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
+        if (newRequest) {
+            processor.onHeadersReady(this);
+            contentParser.of(headerParser);
+        }
+
+        processor.resumeRecv(this);
+
+        final HttpContentListener contentListener = (HttpContentListener) processor;
+        final long bufferEnd = recvBuffer + read;
+
+        LOG.debug().$("content").$();
+
+        // body bytes that arrived together with the header, the check
+        // also completes requests that have no body at all
+        if (contentParser.parse(headerEnd, bufferEnd, contentListener)) {
+            completeRequest(processor, rescheduleContext);
+            return true;
+        }
+
+        while (true) {
+            final int n = recv(nf, recvBuffer, recvBufferSize);
+            if (n < 0) {
+                dispatcher.disconnect(this, DISCONNECT_REASON_PEER_DISCONNECT_AT_RECV);
+                return false;
+            }
+
+            if (n == 0) {
+                LOG.debug().$("peer is slow [content]").$();
+                dispatcher.registerChannel(this, IOOperation.READ);
+                return false;
+            }
+
+            LOG.debug().$("content recv [len=").$(n).$(']').$();
+            dumpBuffer(recvBuffer, n);
+
+            if (contentParser.parse(recvBuffer, recvBuffer + n, contentListener)) {
+                completeRequest(processor, rescheduleContext);
+                return true;
+            }
+        }
+    }
+
     private boolean consumeMultipart(
             int fd,
             HttpRequestProcessor processor,
@@ -407,7 +464,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         long spinsRemaining = multipartIdleSpinCount;
 
         while (true) {
-            final int n = nf.recv(fd, buf, bufRemaining);
+            final int n = recv(nf, buf, bufRemaining);
             if (n < 0) {
                 dispatcher.disconnect(this, DISCONNECT_REASON_PEER_DISCONNECT_AT_MULTIPART_RECV);
                 break;
@@ -541,7 +598,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
             if (newRequest) {
                 while (headerParser.isIncomplete()) {
                     // read headers
-                    read = nf.recv(fd, recvBuffer, recvBufferSize);
+                    read = recv(nf, recvBuffer, recvBufferSize);
                     LOG.debug().$("recv [fd=").$(fd).$(", count=").$(read).$(']').$();
                     if (read < 0) {
                         LOG.debug()
@@ -572,6 +629,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
 
             final boolean multipartRequest = Chars.equalsNc("multipart/form-data", headerParser.getContentType());
             final boolean multipartProcessor = processor instanceof HttpMultipartContentListener;
+            final boolean contentProcessor = processor instanceof HttpContentListener;
 
             if (allowDeflateBeforeSend && Chars.contains(headerParser.getHeader("Accept-Encoding"), "gzip")) {
                 responseSink.setDeflateBeforeSend(true);
@@ -581,6 +639,8 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
                 if (multipartRequest && !multipartProcessor) {
                     // bad request - multipart request for processor that doesn't expect multipart
                     busyRecv = rejectRequest("Bad request. non-multipart GET expected.");
+                } else if (contentProcessor) {
+                    busyRecv = consumeContent(fd, processor, headerEnd, read, newRequest, rescheduleContext);
                 } else if (!multipartRequest && multipartProcessor) {
                     // bad request - regular request for processor that expects multipart
                     busyRecv = rejectRequest("Bad request. Multipart POST expected.");
@@ -592,7 +652,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
                     // we respond back to client. We will disconnect the client when
                     // they abuse protocol. In addition, we will not call processor
                     // if client has disconnected before we had a chance to reply.
-                    read = nf.recv(fd, recvBuffer, 1);
+                    read = recv(nf, recvBuffer, 1);
                     if (read != 0) {
                         dumpBuffer(recvBuffer, read);
                         LOG.info().$("disconnect after request [fd=").$(fd).$(']').$();
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.Chars;
+import io.questdb.std.Mutable;
+import io.questdb.std.NumericException;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectByteCharSequence;
+
+/**
+ * Streaming decoder of plain request body. Body length is taken either from
+ * "Content-Length" or from "Transfer-Encoding: chunked" framing, in which case chunk
+ * headers and trailers are stripped and only chunk data is passed to the listener.
+ * Request without either header is assumed to have no body.
+ */
+public class HttpContentParser implements Mutable {
+    private static final int CHUNK_DATA = 4;
+    private static final int CHUNK_DATA_CR = 5;
+    private static final int CHUNK_DATA_LF = 6;
+    private static final int CHUNK_EXT = 2;
+    private static final int CHUNK_SIZE = 1;
+    private static final int CHUNK_SIZE_LF = 3;
+    private static final int DONE = 0;
+    private static final int FIXED_LENGTH = 10;
+    // chunk of a terabyte is certainly malformed, this also keeps size arithmetic clear of overflow
+    private static final long MAX_CHUNK_SIZE = 1L << 40;
+    private static final int TRAILER = 7;
+    private static final int TRAILER_END_LF = 9;
+    private static final int TRAILER_LINE = 8;
+    private int chunkSizeDigits;
+    private long remaining;
+    private int state = DONE;
+
+    @Override
+    public void clear() {
+        state = DONE;
+        remaining = 0;
+        chunkSizeDigits = 0;
+    }
+
+    public boolean isDone() {
+        return state == DONE;
+    }
+
+    public void of(HttpRequestHeader header) {
+        final DirectByteCharSequence transferEncoding = header.getHeader("Transfer-Encoding");
+        if (transferEncoding != null) {
+            if (!Chars.equalsIgnoreCase(transferEncoding, "chunked")) {
+                throw HttpException.instance("unsupported transfer encoding [value=").put(transferEncoding).put(']');
+            }
+            of(-1, true);
+            return;
+        }
+
+        final DirectByteCharSequence contentLength = header.getHeader("Content-Length");
+        long length = 0;
+        if (contentLength != null) {
+            try {
+                length = Numbers.parseLong(contentLength);
+            } catch (NumericException e) {
+                length = -1;
+            }
+            if (length < 0) {
+                throw HttpException.instance("invalid content length [value=").put(contentLength).put(']');
+            }
+        }
+        of(length, false);
+    }
+
+    /**
+     * Sets up parser for body of known framing, this is also used to read HTTP responses.
+     *
+     * @param contentLength length of the body, ignored when body is chunked
+     * @param chunked       true when body uses chunked transfer encoding
+     */
+    public void of(long contentLength, boolean chunked) {
+        clear();
+        if (chunked) {
+            state = CHUNK_SIZE;
+        } else if (contentLength > 0) {
+            remaining = contentLength;
+            state = FIXED_LENGTH;
+        }
+    }
+
+    /**
+     * Consumes bytes between lo and hi and passes body content to the listener.
+     *
+     * @param lo       address of first byte
+     * @param hi       address of byte past the last one
+     * @param listener receiver of body content
+     * @return true when body has been fully consumed. Bytes following the body in the
+     * given range are not consumed.
+     */
+    public boolean parse(
+            long lo,
+            long hi,
+            HttpContentListener listener
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        long ptr = lo;
+        while (ptr < hi && state != DONE) {
+            switch (state) {
+                case FIXED_LENGTH:
+                case CHUNK_DATA: {
+                    final long n = Math.min(remaining, hi - ptr);
+                    listener.onChunk(ptr, ptr + n);
+                    ptr += n;
+                    remaining -= n;
+                    if (remaining == 0) {
+                        state = state == FIXED_LENGTH ? DONE : CHUNK_DATA_CR;
+                    }
+                    break;
+                }
+                case CHUNK_SIZE: {
+                    final byte b = Unsafe.getUnsafe().getByte(ptr++);
+                    final int digit = hexDigit(b);
+                    if (digit > -1) {
+                        remaining = (remaining << 4) | digit;
+                        chunkSizeDigits++;
+                        if (remaining > MAX_CHUNK_SIZE) {
+                            throw HttpException.instance("chunk size is too large");
+                        }
+                        break;
+                    }
+                    if (chunkSizeDigits == 0) {
+                        throw HttpException.instance("malformed chunk size");
+                    }
+                    switch (b) {
+                        case ';':
+                        case ' ':
+                        case '\t':
+                            state = CHUNK_EXT;
+                            break;
+                        case '\r':
+                            state = CHUNK_SIZE_LF;
+                            break;
+                        case '\n':
+                            onChunkSizeLine();
+                            break;
+                        default:
+                            throw HttpException.instance("malformed chunk size");
+                    }
+                    break;
+                }
+                case CHUNK_EXT:
+                    // chunk extensions are ignored
+                    if (Unsafe.getUnsafe().getByte(ptr++) == '\n') {
+                        onChunkSizeLine();
+                    }
+                    break;
+                case CHUNK_SIZE_LF:
+                    if (Unsafe.getUnsafe().getByte(ptr++) != '\n') {
+                        throw HttpException.instance("malformed chunk size");
+                    }
+                    onChunkSizeLine();
+                    break;
+                case CHUNK_DATA_CR:
+                    switch (Unsafe.getUnsafe().getByte(ptr++)) {
+                        case '\r':
+                            state = CHUNK_DATA_LF;
+                            break;
+                        case '\n':
+                            nextChunk();
+                            break;
+                        default:
+                            throw HttpException.instance("chunk data is longer than chunk size");
+                    }
+                    break;
+                case CHUNK_DATA_LF:
+                    if (Unsafe.getUnsafe().getByte(ptr++) != '\n') {
+                        throw HttpException.instance("chunk data is longer than chunk size");
+                    }
+                    nextChunk();
+                    break;
+                case TRAILER:
+                    // start of trailer field line or the empty line ending the message
+                    switch (Unsafe.getUnsafe().getByte(ptr++)) {
+                        case '\r':
+                            state = TRAILER_END_LF;
+                            break;
+                        case '\n':
+                            state = DONE;
+                            break;
+                        default:
+                            state = TRAILER_LINE;
+                            break;
+                    }
+                    break;
+                case TRAILER_LINE:
+                    // trailer fields are ignored
+                    if (Unsafe.getUnsafe().getByte(ptr++) == '\n') {
+                        state = TRAILER;
+                    }
+                    break;
+                case TRAILER_END_LF:
+                    if (Unsafe.getUnsafe().getByte(ptr++) != '\n') {
+                        throw HttpException.instance("malformed chunked body trailer");
+                    }
+                    state = DONE;
+                    break;
+                default:
+                    throw HttpException.instance("unexpected content parser state [state=").put(state).put(']');
+            }
+        }
+        return state == DONE;
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private void nextChunk() {
+        state = CHUNK_SIZE;
+        remaining = 0;
+        chunkSizeDigits = 0;
+    }
+
+    private void onChunkSizeLine() {
+        state = remaining > 0 ? CHUNK_DATA : TRAILER;
+    }
+}
@@ -56,6 +56,7 @@ public class HttpResponseSink implements Closeable, Mutable {
     private boolean compressedHeaderDone;
     private boolean compressedOutputReady;
     private boolean compressionComplete;
+    private IOContext<?> context;
     private int crc = 0;
     private boolean deflateBeforeSend = false;
     private int fd;
@@ -93,6 +94,7 @@ public class HttpResponseSink implements Closeable, Mutable {
         }
         buffer.close();
         fd = -1;
+        context = null;
     }
 
     public HttpChunkedResponseSocket getChunkedSocket() {
@@ -243,7 +245,7 @@ public class HttpResponseSink implements Closeable, Mutable {
     private void sendBuffer(ChunkBuffer sendBuf) throws PeerDisconnectedException, PeerIsSlowToReadException {
         int nSend = (int) sendBuf.getReadNAvailable();
         while (nSend > 0) {
-            int n = nf.send(fd, sendBuf.getReadAddress(), nSend);
+            int n = context.send(nf, sendBuf.getReadAddress(), nSend);
             if (n < 0) {
                 // disconnected
                 LOG.error()
@@ -278,8 +280,9 @@ public class HttpResponseSink implements Closeable, Mutable {
         return totalBytesSent;
     }
 
-    void of(int fd) {
+    void of(int fd, IOContext<?> context) {
         this.fd = fd;
+        this.context = context;
         if (fd > -1) {
             this.buffer.reopen();
         }
@@ -424,11 +427,26 @@ public class HttpResponseSink implements Closeable, Mutable {
             }
         }
 
+        @Override
+        public long getWriteAddress(int len) {
+            return buffer.getWriteAddress(len);
+        }
+
+        @Override
+        public long getWriteNAvailable() {
+            return buffer.getWriteNAvailable();
+        }
+
         @Override
         public HttpResponseHeader headers() {
             return headerImpl;
         }
 
+        @Override
+        public void onWrite(int len) {
+            buffer.onWrite(len);
+        }
+
         @Override
         public boolean resetToBookmark() {
             buffer._wptr = bookmark;
@@ -457,7 +475,7 @@ public class HttpResponseSink implements Closeable, Mutable {
 
         @Override
         public void shutdownWrite() {
-            nf.shutdown(fd, Net.SHUT_WR);
+            context.shutdownWrite(nf);
         }
 
         @Override
@@ -671,8 +689,22 @@ public class HttpResponseSink implements Closeable, Mutable {
     public class SimpleResponseImpl {
 
         public void sendStatus(int code, CharSequence message) throws PeerDisconnectedException, PeerIsSlowToReadException {
+            sendStatus(code, message, null);
+        }
+
+        /**
+         * Sends status with text message and an additional header.
+         *
+         * @param code    HTTP status code
+         * @param message text message, status description is sent when null
+         * @param header  complete header line without line terminator, e.g. "Retry-After: 5", can be null
+         */
+        public void sendStatus(int code, CharSequence message, CharSequence header) throws PeerDisconnectedException, PeerIsSlowToReadException {
             buffer.clearAndPrepareToWriteToBuffer();
             final String std = headerImpl.status(httpVersion, code, "text/plain; charset=utf-8", -1L);
+            if (header != null) {
+                headerImpl.put(header).put(Misc.EOL);
+            }
             prepareHeaderSink();
             flushSingle();
             buffer.clearAndPrepareToWriteToBuffer();
@@ -695,12 +727,16 @@ public class HttpResponseSink implements Closeable, Mutable {
 
     static {
         httpStatusMap.put(200, "OK");
+        httpStatusMap.put(204, "No Content");
         httpStatusMap.put(206, "Partial content");
         httpStatusMap.put(304, "Not Modified");
         httpStatusMap.put(400, "Bad request");
         httpStatusMap.put(404, "Not Found");
+        httpStatusMap.put(413, "Payload Too Large");
         httpStatusMap.put(416, "Request range not satisfiable");
+        httpStatusMap.put(429, "Too Many Requests");
         httpStatusMap.put(431, "Headers too large");
         httpStatusMap.put(500, "Internal server error");
+        httpStatusMap.put(503, "Service Unavailable");
     }
 }
@@ -69,7 +69,7 @@ public class HttpServer implements Closeable {
                 configuration.getDispatcherConfiguration(),
                 httpContextFactory
         );
-        pool.assign(dispatcher);
+        IODispatchers.assign(pool, dispatcher);
         this.rescheduleContext = new WaitProcessor(configuration.getWaitProcessorConfiguration());
         pool.assign(this.rescheduleContext);
 
@@ -172,6 +172,20 @@ public class HttpServer implements Closeable {
             }
         });
 
+        if (configuration.getLineHttpProcessorConfiguration().isEnabled()) {
+            server.bind(new HttpRequestProcessorFactory() {
+                @Override
+                public String getUrl() {
+                    return "/write";
+                }
+
+                @Override
+                public HttpRequestProcessor newInstance() {
+                    return new LineHttpProcessor(configuration.getLineHttpProcessorConfiguration(), cairoEngine);
+                }
+            });
+        }
+
         server.bind(new HttpRequestProcessorFactory() {
             @Override
             public String getUrl() {
@@ -286,7 +286,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CompiledQuery cc,
             CharSequence keepAliveHeader
     ) throws SqlException {
-        throw SqlException.$(0, "copy from STDIN is not supported over REST");
+        throw SqlException.$(0, "copy from STDIN and to STDOUT is not supported over REST");
     }
 
     private static void doResumeSend(
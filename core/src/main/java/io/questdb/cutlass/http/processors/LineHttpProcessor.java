@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.http.*;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+
+/**
+ * Accepts line protocol over HTTP. Request body, plain or chunked, is parsed line by line
+ * and written to WAL tables. All rows of a request are committed together once the request
+ * is complete, and the response is sent only after the commit, so that clients know their
+ * rows are durable when they receive "204 No Content".
+ * <p>
+ * When WAL apply of a table falls behind by more than the configured number of transactions,
+ * or the table is suspended, the request is rolled back and rejected with 429 or 503 status
+ * and "Retry-After" header. Clients are expected to back off and, possibly, send larger batches.
+ */
+public class LineHttpProcessor implements HttpRequestProcessor, HttpContentListener {
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessor.class);
+    // Local value has to be static because each thread will have its own instance of
+    // processor. For different threads to lookup the same value from local value map the key,
+    // which is LV, has to be the same between processor instances
+    private static final LocalValue<LineHttpProcessorState> LV = new LocalValue<>();
+    private final LineHttpProcessorConfiguration configuration;
+    private final CairoEngine engine;
+    private final String retryAfterHeader;
+    private LineHttpProcessorState transientState;
+
+    public LineHttpProcessor(LineHttpProcessorConfiguration configuration, CairoEngine engine) {
+        this.configuration = configuration;
+        this.engine = engine;
+        this.retryAfterHeader = "Retry-After: " + configuration.getRetryAfterSeconds();
+    }
+
+    @Override
+    public void onChunk(long lo, long hi) {
+        transientState.parse(lo, hi);
+    }
+
+    @Override
+    public void onHeadersReady(HttpConnectionContext context) {
+        LineHttpProcessorState state = LV.get(context);
+        if (state == null) {
+            LOG.debug().$("new line state").$();
+            LV.set(context, state = new LineHttpProcessorState(configuration, engine));
+        }
+        state.of(context.getCairoSecurityContext());
+    }
+
+    @Override
+    public void onRequestComplete(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        final LineHttpProcessorState state = LV.get(context);
+        state.commit();
+        final HttpResponseSink.SimpleResponseImpl response = context.simpleResponse();
+        switch (state.getStatus()) {
+            case LineHttpProcessorState.STATUS_OK:
+                response.sendStatus(204);
+                break;
+            case LineHttpProcessorState.STATUS_LINE_TOO_LONG:
+                response.sendStatus(413, state.getError());
+                break;
+            case LineHttpProcessorState.STATUS_TABLE_LAGGING:
+                response.sendStatus(429, state.getError(), retryAfterHeader);
+                break;
+            case LineHttpProcessorState.STATUS_TABLE_SUSPENDED:
+                response.sendStatus(503, state.getError(), retryAfterHeader);
+                break;
+            default:
+                response.sendStatus(400, state.getError());
+                break;
+        }
+    }
+
+    @Override
+    public void resumeRecv(HttpConnectionContext context) {
+        transientState = LV.get(context);
+    }
+
+    @Override
+    public void resumeSend(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        context.resumeResponseSend();
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.cairo.CommitFailedException;
+import io.questdb.cutlass.line.tcp.LineHttpTudCache;
+import io.questdb.cutlass.line.tcp.LineTcpParser;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.TableUpdateDetails;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+class LineHttpProcessorState implements Mutable, Closeable {
+    static final int STATUS_ERROR = 1;
+    static final int STATUS_LINE_TOO_LONG = 2;
+    static final int STATUS_OK = 0;
+    static final int STATUS_TABLE_LAGGING = 3;
+    static final int STATUS_TABLE_SUSPENDED = 4;
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessorState.class);
+    private final long bufEnd;
+    private final long bufStart;
+    private final StringSink errorSink = new StringSink();
+    private final long maxWalLag;
+    private final LineTcpParser parser;
+    // tables written by the current request, their WAL lag is checked once per request
+    private final ObjList<TableUpdateDetails> requestTables = new ObjList<>();
+    private final LineHttpTudCache tudCache;
+    private long bufPos;
+    private long measurementStart;
+    private CairoSecurityContext securityContext;
+    private int status = STATUS_OK;
+
+    LineHttpProcessorState(LineHttpProcessorConfiguration configuration, CairoEngine engine) {
+        final LineTcpReceiverConfiguration lineConfiguration = configuration.getLineTcpReceiverConfiguration();
+        this.maxWalLag = configuration.getMaxWalLag();
+        this.parser = new LineTcpParser(lineConfiguration.isStringAsTagSupported(), lineConfiguration.isSymbolAsFieldSupported());
+        this.tudCache = new LineHttpTudCache(lineConfiguration, engine);
+        final int bufSize = lineConfiguration.getMaxMeasurementSize();
+        // extra byte is reserved for line terminator of the last line in the request
+        this.bufStart = Unsafe.malloc(bufSize + 1, MemoryTag.NATIVE_ILP_RSS);
+        this.bufEnd = bufStart + bufSize;
+        resetBuffer();
+    }
+
+    @Override
+    public void clear() {
+        tudCache.rollbackAll();
+        requestTables.clear();
+        errorSink.clear();
+        status = STATUS_OK;
+        securityContext = null;
+        resetBuffer();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(tudCache);
+        Unsafe.free(bufStart, bufEnd - bufStart + 1, MemoryTag.NATIVE_ILP_RSS);
+    }
+
+    /**
+     * Writes the last line of the request, when it has no line terminator, and commits
+     * all tables written by the request. Rolls back instead when the request has failed.
+     */
+    void commit() {
+        if (status == STATUS_OK && bufPos > measurementStart) {
+            Unsafe.getUnsafe().putByte(bufPos++, (byte) '\n');
+            parseLines();
+        }
+
+        if (status == STATUS_OK) {
+            try {
+                tudCache.commitAll();
+                return;
+            } catch (CommitFailedException e) {
+                LOG.error().$("commit failed [ex=").$(e).I$();
+                errorSink.put("commit failed");
+                status = STATUS_ERROR;
+            }
+        }
+        tudCache.rollbackAll();
+    }
+
+    CharSequence getError() {
+        return errorSink;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    void of(CairoSecurityContext securityContext) {
+        this.securityContext = securityContext;
+    }
+
+    /**
+     * Appends body bytes to the line buffer and writes all complete lines. Once the
+     * request has failed, the rest of the body is discarded.
+     */
+    void parse(long lo, long hi) {
+        while (lo < hi && status == STATUS_OK) {
+            if (bufPos == bufEnd && !compactBuffer()) {
+                errorSink.put("line is too long [maxSize=").put(bufEnd - bufStart).put(']');
+                status = STATUS_LINE_TOO_LONG;
+                break;
+            }
+            final long len = Math.min(hi - lo, bufEnd - bufPos);
+            Vect.memcpy(bufPos, lo, len);
+            bufPos += len;
+            lo += len;
+            parseLines();
+        }
+    }
+
+    private void append() {
+        final TableUpdateDetails tud;
+        try {
+            tud = tudCache.getTableUpdateDetails(securityContext, parser);
+        } catch (CairoException e) {
+            LOG.error().$("could not resolve table [table=").$(parser.getMeasurementName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+            errorSink.put(e.getFlyweightMessage());
+            status = STATUS_ERROR;
+            return;
+        }
+
+        if (requestTables.indexOf(tud) < 0) {
+            requestTables.add(tud);
+            if (tudCache.isSuspended(tud.getTableToken())) {
+                errorSink.put("table is suspended [table=").put(tud.getTableNameUtf16()).put(']');
+                status = STATUS_TABLE_SUSPENDED;
+                return;
+            }
+            if (maxWalLag > 0) {
+                final long walLag = tudCache.getWalLag(tud.getTableToken());
+                if (walLag > maxWalLag) {
+                    errorSink.put("table is lagging behind [table=").put(tud.getTableNameUtf16())
+                            .put(", walLag=").put(walLag)
+                            .put(", maxWalLag=").put(maxWalLag)
+                            .put(']');
+                    status = STATUS_TABLE_LAGGING;
+                    return;
+                }
+            }
+        }
+
+        try {
+            tudCache.append(securityContext, parser, tud);
+        } catch (CommitFailedException e) {
+            LOG.error().$("commit failed [table=").$(tud.getTableNameUtf16()).$(", ex=").$(e).I$();
+            tud.setWriterInError();
+            errorSink.put("commit failed [table=").put(tud.getTableNameUtf16()).put(']');
+            status = STATUS_ERROR;
+        } catch (Throwable th) {
+            LOG.critical().$("could not write line [table=").$(tud.getTableNameUtf16()).$(", ex=").$(th).I$();
+            tud.setWriterInError();
+            errorSink.put("could not write line [table=").put(tud.getTableNameUtf16()).put(']');
+            status = STATUS_ERROR;
+        }
+    }
+
+    private boolean compactBuffer() {
+        if (measurementStart > bufStart) {
+            final long len = bufPos - measurementStart;
+            Vect.memmove(bufStart, measurementStart, len);
+            parser.shl(measurementStart - bufStart);
+            measurementStart = bufStart;
+            bufPos = bufStart + len;
+            return true;
+        }
+        return false;
+    }
+
+    private void parseLines() {
+        while (status == STATUS_OK) {
+            switch (parser.parseMeasurement(bufPos)) {
+                case MEASUREMENT_COMPLETE:
+                    append();
+                    parser.startNextMeasurement();
+                    measurementStart = parser.getBufferAddress();
+                    if (measurementStart == bufPos) {
+                        resetBuffer();
+                    }
+                    break;
+                case ERROR:
+                    errorSink.put("could not parse line [error=").put(parser.getErrorCode().name())
+                            .put(", table=").put(parser.getMeasurementName())
+                            .put(']');
+                    status = STATUS_ERROR;
+                    return;
+                default:
+                    // buffer underflow
+                    return;
+            }
+        }
+    }
+
+    private void resetBuffer() {
+        parser.of(bufStart);
+        bufPos = bufStart;
+        measurementStart = bufStart;
+    }
+}
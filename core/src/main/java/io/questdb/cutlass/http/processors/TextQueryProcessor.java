@@ -27,9 +27,12 @@ package io.questdb.cutlass.http.processors;
 import io.questdb.Metrics;
 import io.questdb.TelemetryOrigin;
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.text.TextUtil;
 import io.questdb.cutlass.text.Utf8Exception;
@@ -139,7 +142,18 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     for (int retries = 0; runQuery; retries++) {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            final RecordCursorFactory factory = state.recordCursorFactory;
+                            if (
+                                    state.arrow
+                                            && factory.supportPageFrameCursor()
+                                            && factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                            ) {
+                                // page frames let fixed-width columns go out without per-row conversion
+                                state.pageFrameCursor = factory.getPageFrameCursor(sqlExecutionContext, DataFrameCursorFactory.ORDER_ASC);
+                            }
+                            if (state.pageFrameCursor == null) {
+                                state.cursor = factory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (TableReferenceOutOfDateException e) {
                             if (retries == TableReferenceOutOfDateException.MAX_RETRY_ATTEMPS) {
@@ -156,6 +170,13 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                         }
                     }
                     state.metadata = state.recordCursorFactory.getMetadata();
+                    if (state.arrow) {
+                        if (state.pageFrameCursor != null) {
+                            state.getArrowEncoder().of(state.metadata, state.pageFrameCursor, state.skip, state.stop);
+                        } else {
+                            state.getArrowEncoder().of(state.metadata, state.cursor, state.skip, state.stop);
+                        }
+                    }
                     header(context.getChunkedResponseSocket(), state, 200);
                     doResumeSend(context);
                 } catch (CairoException e) {
@@ -278,7 +299,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
         TextQueryProcessorState state = LV.get(context);
-        if (state == null || state.cursor == null) {
+        if (state == null || (state.cursor == null && state.pageFrameCursor == null)) {
             return;
         }
 
@@ -293,6 +314,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
 
         final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        if (state.arrow) {
+            sendArrow(socket, state);
+            readyForNextRequest(context);
+            return;
+        }
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -487,6 +513,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.stop = stop;
         state.noMeta = Chars.equalsNc("true", request.getUrlParam("nm"));
         state.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
+        state.arrow = Chars.equalsNc("arrow", request.getUrlParam("fmt"));
         return true;
     }
 
@@ -578,6 +605,27 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private void sendArrow(
+            HttpChunkedResponseSocket socket,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        final ArrowStreamEncoder encoder = state.arrowEncoder;
+        try {
+            // the stream is copied byte-wise, so any message can span chunks
+            while (!encoder.isDone()) {
+                final int available = (int) socket.getWriteNAvailable();
+                if (available > 0) {
+                    socket.onWrite((int) encoder.encode(socket.getWriteAddress(available), available));
+                } else {
+                    socket.sendChunk(false);
+                }
+            }
+        } catch (DataUnavailableException e) {
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+        sendDone(socket, state);
+    }
+
     private void sendConfirmation(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
         socket.put("DDL Success\n");
         socket.sendChunk(true);
@@ -621,11 +669,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             TextQueryProcessorState state,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        socket.status(statusCode, "text/csv; charset=utf-8");
+        final String extension = state.arrow ? ".arrow\"" : ".csv\"";
+        socket.status(statusCode, state.arrow ? "application/vnd.apache.arrow.stream" : "text/csv; charset=utf-8");
         if (state.fileName != null && state.fileName.length() > 0) {
-            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(extension).put(Misc.EOL);
         } else {
-            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(extension).put(Misc.EOL);
         }
         socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
         socket.sendHeader();
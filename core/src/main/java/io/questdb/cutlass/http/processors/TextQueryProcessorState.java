@@ -24,10 +24,12 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
@@ -37,8 +39,11 @@ import io.questdb.std.str.StringSink;
 import java.io.Closeable;
 
 public class TextQueryProcessorState implements Mutable, Closeable {
+    private static final long ARROW_PAGE_SIZE = 64 * 1024;
     final StringSink query = new StringSink();
     private final HttpConnectionContext httpConnectionContext;
+    boolean arrow = false;
+    ArrowStreamEncoder arrowEncoder;
     int columnIndex;
     long count;
     boolean countRows = false;
@@ -47,6 +52,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     String fileName;
     RecordMetadata metadata;
     boolean noMeta = false;
+    PageFrameCursor pageFrameCursor;
     boolean pausedQuery = false;
     int queryState = JsonQueryProcessorState.QUERY_PREFIX;
     Record record;
@@ -67,7 +73,11 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         metadata = null;
         rnd = null;
         record = null;
+        if (arrowEncoder != null) {
+            arrowEncoder.clear();
+        }
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         if (null != recordCursorFactory) {
             if (queryCacheable) {
                 QueryCache.getThreadLocalInstance().push(query, recordCursorFactory);
@@ -85,12 +95,15 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         count = 0;
         noMeta = false;
         countRows = false;
+        arrow = false;
         pausedQuery = false;
     }
 
     @Override
     public void close() {
+        arrowEncoder = Misc.free(arrowEncoder);
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
@@ -98,6 +111,13 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext.getFd();
     }
 
+    ArrowStreamEncoder getArrowEncoder() {
+        if (arrowEncoder == null) {
+            arrowEncoder = new ArrowStreamEncoder(ARROW_PAGE_SIZE, ArrowStreamEncoder.DEFAULT_BATCH_ROW_COUNT);
+        }
+        return arrowEncoder;
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
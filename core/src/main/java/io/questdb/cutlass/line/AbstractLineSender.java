@@ -91,6 +91,7 @@ public abstract class AbstractLineSender extends AbstractCharSink implements Clo
         hasTable = false;
         hasColumns = false;
         hasSymbols = false;
+        onRow(lineStart - lo);
     }
 
     public final void authenticate(String keyId, PrivateKey privateKey) {
@@ -384,6 +385,14 @@ public abstract class AbstractLineSender extends AbstractCharSink implements Clo
         throw new LineSenderException("table expected");
     }
 
+    /**
+     * Invoked after each complete row, lets subclasses flush rows without waiting for the buffer to fill up.
+     *
+     * @param bufferedBytes size of complete rows held in the buffer
+     */
+    protected void onRow(long bufferedBytes) {
+    }
+
     protected void send00() {
         validateNotClosed();
         int len = (int) (ptr - lineStart);
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.client.Sender;
+import io.questdb.cutlass.http.HttpContentListener;
+import io.questdb.cutlass.http.HttpContentParser;
+import io.questdb.cutlass.http.HttpException;
+import io.questdb.cutlass.line.tcp.PlainTcpLineChannel;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+/**
+ * LineHttpSender sends rows to the "/write" endpoint of QuestDB HTTP server. Rows are streamed
+ * to the server as chunks of a single request while they are added, {@link #flush()} completes
+ * the request and waits for the response. Server commits all rows of a request before it
+ * responds, so rows are durable once flush() returns.
+ * <p>
+ * When the server cannot keep up applying WAL transactions it rejects the request with 429 or
+ * 503 status. flush() then throws {@link LineSenderException}, rows of the request are discarded
+ * by the server and {@link #getRetryAfter()} returns delay, in seconds, the server asked for.
+ * Senders can back off and send larger batches to reduce the number of transactions.
+ * <p>
+ * Like {@link LineTcpSender}, this class comes with no API guarantees.
+ */
+public class LineHttpSender extends AbstractLineSender {
+
+    public LineHttpSender(LineChannel channel, CharSequence host, int bufferCapacity) {
+        super(new HttpLineChannel(channel, host), bufferCapacity);
+    }
+
+    /**
+     * Create a new LineHttpSender.
+     * <br>
+     * IP address is encoded as <code>int</code> obtained via {@link io.questdb.network.Net#parseIPv4(CharSequence)}
+     *
+     * @param ip             IP address of a server
+     * @param port           HTTP port of the server
+     * @param bufferCapacity capacity of an internal buffer in bytes, rows are sent to the server
+     *                       whenever the buffer is full
+     * @return new instance of LineHttpSender
+     */
+    public static LineHttpSender newSender(int ip, int port, int bufferCapacity) {
+        PlainTcpLineChannel channel = new PlainTcpLineChannel(NetworkFacadeImpl.INSTANCE, ip, port, bufferCapacity * 2);
+        try {
+            return new LineHttpSender(channel, "localhost:" + port, bufferCapacity);
+        } catch (Throwable t) {
+            channel.close();
+            throw t;
+        }
+    }
+
+    /**
+     * Sends rows added since the last flush and completes the request.
+     *
+     * @throws LineSenderException when the server rejects the request, none of the request rows are written then
+     */
+    @Override
+    public void flush() {
+        validateNotClosed();
+        sendAll();
+        ((HttpLineChannel) lineChannel).completeRequest();
+    }
+
+    /**
+     * @return value of "Retry-After" header of the last response, in seconds, or -1 when there was no such header
+     */
+    public int getRetryAfter() {
+        return ((HttpLineChannel) lineChannel).retryAfter;
+    }
+
+    /**
+     * @return HTTP status of the last response, or -1 when no request has been completed yet
+     */
+    public int getStatus() {
+        return ((HttpLineChannel) lineChannel).status;
+    }
+
+    @Override
+    protected void send00() {
+        sendAll();
+    }
+
+    private static class HttpLineChannel implements LineChannel, HttpContentListener {
+        private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+        private static final int SCRATCH_SIZE = 4096;
+        private final HttpContentParser contentParser = new HttpContentParser();
+        private final LineChannel delegate;
+        private final StringSink errorMessage = new StringSink();
+        private final StringSink responseHeader = new StringSink();
+        private final long scratch;
+        private final byte[] requestHeader;
+        private boolean requestStarted;
+        private int retryAfter = -1;
+        private int status = -1;
+
+        HttpLineChannel(LineChannel delegate, CharSequence host) {
+            this.delegate = delegate;
+            this.requestHeader = ("POST /write HTTP/1.1\r\n" +
+                    "Host: " + host + "\r\n" +
+                    "Content-Type: text/plain; charset=utf-8\r\n" +
+                    "Transfer-Encoding: chunked\r\n" +
+                    "\r\n").getBytes(Files.UTF_8);
+            this.scratch = Unsafe.malloc(SCRATCH_SIZE, MemoryTag.NATIVE_ILP_RSS);
+        }
+
+        @Override
+        public void close() {
+            Misc.free(delegate);
+            Unsafe.free(scratch, SCRATCH_SIZE, MemoryTag.NATIVE_ILP_RSS);
+        }
+
+        @Override
+        public int errno() {
+            return delegate.errno();
+        }
+
+        @Override
+        public void onChunk(long lo, long hi) {
+            for (long p = lo; p < hi && errorMessage.length() < MAX_ERROR_MESSAGE_LENGTH; p++) {
+                final byte b = Unsafe.getUnsafe().getByte(p);
+                if (b != '\r' && b != '\n') {
+                    errorMessage.put((char) b);
+                }
+            }
+        }
+
+        @Override
+        public int receive(long ptr, int len) {
+            return delegate.receive(ptr, len);
+        }
+
+        @Override
+        public void send(long ptr, int len) {
+            if (len == 0) {
+                return;
+            }
+            if (!requestStarted) {
+                for (int i = 0, n = requestHeader.length; i < n; i++) {
+                    Unsafe.getUnsafe().putByte(scratch + i, requestHeader[i]);
+                }
+                delegate.send(scratch, requestHeader.length);
+                requestStarted = true;
+            }
+            // chunk size line, data and terminating CRLF
+            delegate.send(scratch, putChunkSize(scratch, len));
+            delegate.send(ptr, len);
+            delegate.send(scratch, putCrLf(scratch));
+        }
+
+        private static int putChunkSize(long address, int size) {
+            int len = 0;
+            for (int shift = 28; shift > -1; shift -= 4) {
+                final int digit = (size >>> shift) & 0xf;
+                if (digit != 0 || len > 0 || shift == 0) {
+                    Unsafe.getUnsafe().putByte(address + len++, (byte) Numbers.hexDigits[digit]);
+                }
+            }
+            return len + putCrLf(address + len);
+        }
+
+        private static int putCrLf(long address) {
+            Unsafe.getUnsafe().putByte(address, (byte) '\r');
+            Unsafe.getUnsafe().putByte(address + 1, (byte) '\n');
+            return 2;
+        }
+
+        private void completeRequest() {
+            if (!requestStarted) {
+                // nothing to send, do not waste a round trip on empty transaction
+                return;
+            }
+            requestStarted = false;
+            retryAfter = -1;
+            status = -1;
+            errorMessage.clear();
+
+            // last chunk of zero size and the empty trailer
+            Unsafe.getUnsafe().putByte(scratch, (byte) '0');
+            int len = 1 + putCrLf(scratch + 1);
+            delegate.send(scratch, len + putCrLf(scratch + len));
+
+            try {
+                readResponse();
+            } catch (HttpException e) {
+                throw new LineSenderException("malformed response: ").put(e.getFlyweightMessage());
+            } catch (PeerDisconnectedException | PeerIsSlowToReadException | ServerDisconnectException e) {
+                // our listener does not throw these
+                throw new LineSenderException(e);
+            }
+
+            if (status < 200 || status > 299) {
+                final LineSenderException e = new LineSenderException("server rejected rows [status=").put(status);
+                if (retryAfter > -1) {
+                    e.put(", retryAfter=").put(retryAfter);
+                }
+                throw e.put(", message=").put(errorMessage).put("]");
+            }
+        }
+
+        private void parseHeader() {
+            long contentLength = 0;
+            boolean chunked = false;
+            int lineLo = 0;
+            for (int i = 0, n = responseHeader.length(); i < n; i++) {
+                if (responseHeader.charAt(i) != '\n') {
+                    continue;
+                }
+                int lineHi = i > lineLo && responseHeader.charAt(i - 1) == '\r' ? i - 1 : i;
+                if (lineLo == 0) {
+                    // status line, e.g. "HTTP/1.1 204 No Content"
+                    final int sp = Chars.indexOf(responseHeader, lineLo, lineHi, ' ');
+                    status = parseIntHeader(sp + 1, Math.min(sp + 4, lineHi));
+                } else {
+                    final int colon = Chars.indexOf(responseHeader, lineLo, lineHi, ':');
+                    if (colon > -1) {
+                        int valueLo = colon + 1;
+                        while (valueLo < lineHi && responseHeader.charAt(valueLo) == ' ') {
+                            valueLo++;
+                        }
+                        final CharSequence name = responseHeader.subSequence(lineLo, colon);
+                        if (Chars.equalsIgnoreCase(name, "Retry-After")) {
+                            retryAfter = parseIntHeader(valueLo, lineHi);
+                        } else if (Chars.equalsIgnoreCase(name, "Content-Length")) {
+                            contentLength = parseIntHeader(valueLo, lineHi);
+                        } else if (Chars.equalsIgnoreCase(name, "Transfer-Encoding")) {
+                            chunked = Chars.equalsIgnoreCase(responseHeader.subSequence(valueLo, lineHi), "chunked");
+                        }
+                    }
+                }
+                lineLo = i + 1;
+            }
+            // responses without body are not framed
+            contentParser.of(status == 204 || status == 304 ? 0 : contentLength, chunked);
+        }
+
+        private int parseIntHeader(int lo, int hi) {
+            try {
+                return Numbers.parseInt(responseHeader, lo, hi);
+            } catch (NumericException e) {
+                throw HttpException.instance("invalid numeric value in response header");
+            }
+        }
+
+        private void readResponse() throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+            responseHeader.clear();
+            boolean headerComplete = false;
+            while (true) {
+                final int n = delegate.receive(scratch, SCRATCH_SIZE);
+                if (n < 0) {
+                    throw new LineSenderException("disconnected while waiting for response").errno(delegate.errno());
+                }
+                long lo = scratch;
+                final long hi = scratch + n;
+                while (!headerComplete && lo < hi) {
+                    final char c = (char) Unsafe.getUnsafe().getByte(lo++);
+                    responseHeader.put(c);
+                    final int len = responseHeader.length();
+                    if (c == '\n' && len > 3 && responseHeader.charAt(len - 2) == '\r' && responseHeader.charAt(len - 3) == '\n') {
+                        headerComplete = true;
+                        parseHeader();
+                    } else if (len > SCRATCH_SIZE) {
+                        throw HttpException.instance("response header is too large");
+                    }
+                }
+                if (headerComplete && contentParser.parse(lo, hi, this)) {
+                    return;
+                }
+            }
+        }
+    }
+}
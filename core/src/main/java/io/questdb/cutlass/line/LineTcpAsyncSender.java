@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+/**
+ * Producer side of {@link LineTcpSenderPool}. {@link #flush()} hands complete rows over to the pool queue
+ * without waiting for them to be sent, use {@link LineTcpSenderPool#awaitSent()} to wait for that.
+ * Rows are also handed over automatically when the buffer is full, or when row count, byte count or time
+ * since the last hand-over reaches limits set on the pool. Instances are not thread-safe.
+ * <p>
+ * Flush only between rows. Queue slots may be sent over different connections, so a row must never be
+ * split across slots.
+ */
+public class LineTcpAsyncSender extends AbstractLineSender {
+    private final int autoFlushBytes;
+    private final long autoFlushIntervalNanos;
+    private final int autoFlushRows;
+    private long lastFlushNanos;
+    private int rowCount;
+
+    LineTcpAsyncSender(
+            LineChannel ringChannel,
+            int bufferCapacity,
+            int autoFlushRows,
+            int autoFlushBytes,
+            long autoFlushIntervalNanos
+    ) {
+        super(ringChannel, bufferCapacity);
+        this.autoFlushRows = autoFlushRows;
+        this.autoFlushBytes = autoFlushBytes;
+        this.autoFlushIntervalNanos = autoFlushIntervalNanos;
+        this.lastFlushNanos = System.nanoTime();
+    }
+
+    @Override
+    public void flush() {
+        validateNotClosed();
+        sendAll();
+        rowCount = 0;
+        lastFlushNanos = System.nanoTime();
+    }
+
+    @Override
+    protected void onRow(long bufferedBytes) {
+        if (
+                ++rowCount >= autoFlushRows
+                        || bufferedBytes >= autoFlushBytes
+                        || (autoFlushIntervalNanos > -1 && System.nanoTime() - lastFlushNanos >= autoFlushIntervalNanos)
+        ) {
+            flush();
+        }
+    }
+
+    @Override
+    protected void send00() {
+        // unlike TCP sender, hand over complete rows only, the incomplete one is
+        // carried over to the other buffer
+        super.send00();
+        rowCount = 0;
+        lastFlushNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,524 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.client.Sender;
+import io.questdb.cutlass.line.tcp.LineTcpColumnarParser;
+import io.questdb.cutlass.line.tcp.PlainTcpLineChannel;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.*;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sender of the columnar binary variant of ILP, see {@link LineTcpColumnarParser} for the wire format.
+ * Rows are buffered column by column and sent as a single block per table, the block is flushed when
+ * the table changes, on {@link #flush()} or when the next row would not fit the buffer capacity.
+ * Server must not use a smaller receive buffer than the capacity of the sender.
+ * <br>
+ * LineTcpColumnarSender is for testing purposes only, it comes with no API guarantees.
+ */
+public class LineTcpColumnarSender implements Sender {
+    private static final int BLOCK_PREFIX_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES + Short.BYTES;
+    private static final int COLUMN_PAGE_SIZE = 16 * 1024;
+    private final long buf;
+    private final int capacity;
+    private final CharSequenceIntHashMap columnIndexes = new CharSequenceIntHashMap();
+    private final ObjList<Column> columnPool = new ObjList<>();
+    private final ObjList<Column> columns = new ObjList<>();
+    private final MemoryCARW timestamps = Vm.getCARWInstance(COLUMN_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
+    private boolean closed;
+    private boolean hasTable;
+    private LineChannel lineChannel;
+    private int rowCount;
+    private String tableName;
+    private byte[] tableNameUtf8;
+
+    public LineTcpColumnarSender(LineChannel lineChannel, int capacity) {
+        this.lineChannel = lineChannel;
+        this.capacity = capacity;
+        this.buf = Unsafe.malloc(capacity, MemoryTag.NATIVE_ILP_RSS);
+        final byte[] magic = LineTcpColumnarParser.MAGIC;
+        for (int i = 0; i < magic.length; i++) {
+            Unsafe.getUnsafe().putByte(buf + i, magic[i]);
+        }
+        lineChannel.send(buf, magic.length);
+    }
+
+    /**
+     * Create a new LineTcpColumnarSender.
+     * <br>
+     * IP address is encoded as <code>int</code> obtained via {@link io.questdb.network.Net#parseIPv4(CharSequence)}
+     *
+     * @param ip             IP address of a server
+     * @param port           port where a server is listening
+     * @param bufferCapacity capacity of an internal buffer in bytes, maximum size of a block
+     * @return LineTcpColumnarSender instance of LineTcpColumnarSender
+     */
+    public static LineTcpColumnarSender newSender(int ip, int port, int bufferCapacity) {
+        PlainTcpLineChannel channel = new PlainTcpLineChannel(NetworkFacadeImpl.INSTANCE, ip, port, bufferCapacity * 2);
+        try {
+            return new LineTcpColumnarSender(channel, bufferCapacity);
+        } catch (Throwable t) {
+            channel.close();
+            throw t;
+        }
+    }
+
+    @Override
+    public void at(long timestamp) {
+        // line protocol timestamps are in nanos, block timestamps are in micros
+        at0(timestamp / 1000);
+    }
+
+    @Override
+    public void atNow() {
+        at0(Numbers.LONG_NaN);
+    }
+
+    @Override
+    public Sender boolColumn(CharSequence name, boolean value) {
+        getColumn(name, ColumnType.BOOLEAN).values.putBool(value);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            lineChannel = Misc.free(lineChannel);
+            Unsafe.free(buf, capacity, MemoryTag.NATIVE_ILP_RSS);
+            Misc.free(timestamps);
+            Misc.freeObjList(columns);
+            Misc.freeObjList(columnPool);
+        }
+    }
+
+    @Override
+    public Sender doubleColumn(CharSequence name, double value) {
+        getColumn(name, ColumnType.DOUBLE).values.putDouble(value);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        validateNotClosed();
+        if (rowCount > 0) {
+            send(rowCount);
+            reset();
+        }
+    }
+
+    @Override
+    public Sender longColumn(CharSequence name, long value) {
+        getColumn(name, ColumnType.LONG).values.putLong(value);
+        return this;
+    }
+
+    @Override
+    public Sender stringColumn(CharSequence name, CharSequence value) {
+        getColumn(name, ColumnType.STRING).putStr(value);
+        return this;
+    }
+
+    @Override
+    public Sender symbol(CharSequence name, CharSequence value) {
+        getColumn(name, ColumnType.SYMBOL).putSym(value);
+        return this;
+    }
+
+    @Override
+    public Sender table(CharSequence table) {
+        validateNotClosed();
+        if (hasTable) {
+            throw new LineSenderException("duplicated table. call sender.at() or sender.atNow() to finish the current row first");
+        }
+        if (table.length() == 0) {
+            throw new LineSenderException("table name cannot be empty");
+        }
+        if (!TableUtils.isValidTableName(table, Integer.MAX_VALUE)) {
+            throw new LineSenderException("table name contains an illegal char: '\\n', '\\r', '?', ',', ''', " +
+                    "'\"', '\\', '/', ':', ')', '(', '+', '*' '%%', '~', or a non-printable char: ").putAsPrintable(table);
+        }
+        if (tableName == null || !Chars.equals(tableName, table)) {
+            flush();
+            tableName = Chars.toString(table);
+            tableNameUtf8 = tableName.getBytes(StandardCharsets.UTF_8);
+        }
+        hasTable = true;
+        return this;
+    }
+
+    @Override
+    public Sender timestampColumn(CharSequence name, long value) {
+        getColumn(name, ColumnType.TIMESTAMP).values.putLong(value);
+        return this;
+    }
+
+    private static long putBytes(long p, byte[] bytes) {
+        for (int i = 0, n = bytes.length; i < n; i++) {
+            Unsafe.getUnsafe().putByte(p++, bytes[i]);
+        }
+        return p;
+    }
+
+    private void at0(long timestampMicros) {
+        validateNotClosed();
+        if (!hasTable) {
+            throw new LineSenderException("table name not set. call sender.table() first");
+        }
+        timestamps.putLong(timestampMicros);
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final Column column = columns.getQuick(i);
+            if (column.rowCount == rowCount) {
+                column.putNull();
+            }
+        }
+        rowCount++;
+        hasTable = false;
+
+        if (encodedSize(rowCount) > capacity) {
+            if (rowCount == 1) {
+                reset();
+                throw new LineSenderException("row does not fit the buffer [capacity=").put(capacity).put("]");
+            }
+            send(rowCount - 1);
+            retainLastRow();
+        }
+    }
+
+    private long encodedSize(int rows) {
+        long size = BLOCK_PREFIX_SIZE + tableNameUtf8.length + (long) rows * Long.BYTES;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            size += columns.getQuick(i).encodedSize(rows);
+        }
+        return size;
+    }
+
+    private Column getColumn(CharSequence name, int type) {
+        validateNotClosed();
+        if (!hasTable) {
+            throw new LineSenderException("table name not set. call sender.table() first");
+        }
+        Column column;
+        final int index = columnIndexes.keyIndex(name);
+        if (index > -1) {
+            if (!TableUtils.isValidColumnName(name, Integer.MAX_VALUE)) {
+                throw new LineSenderException("column name contains an illegal char: '\\n', '\\r', '?', '.', ','" +
+                        ", ''', '\"', '\\', '/', ':', ')', '(', '+', '-', '*' '%%', '~', or a non-printable char: ").putAsPrintable(name);
+            }
+            final int poolSize = columnPool.size();
+            if (poolSize > 0) {
+                column = columnPool.getQuick(poolSize - 1);
+                columnPool.remove(poolSize - 1);
+            } else {
+                column = new Column();
+            }
+            column.of(Chars.toString(name), type);
+            for (int r = 0; r < rowCount; r++) {
+                column.putNull();
+            }
+            columnIndexes.putAt(index, column.name, columns.size());
+            columns.add(column);
+        } else {
+            column = columns.getQuick(columnIndexes.valueAt(index));
+            if (column.type != type) {
+                throw new LineSenderException("column type mismatch [column=").put(name)
+                        .put(", type=").put(ColumnType.nameOf(column.type))
+                        .put(", newType=").put(ColumnType.nameOf(type))
+                        .put("]");
+            }
+        }
+        if (column.rowCount > rowCount) {
+            throw new LineSenderException("duplicated column [column=").put(name).put("]");
+        }
+        column.rowCount++;
+        return column;
+    }
+
+    private void reset() {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            columnPool.add(columns.getQuick(i));
+        }
+        columns.clear();
+        columnIndexes.clear();
+        timestamps.jumpTo(0);
+        rowCount = 0;
+        hasTable = false;
+    }
+
+    private void retainLastRow() {
+        final long timestamp = timestamps.getLong((long) (rowCount - 1) * Long.BYTES);
+        timestamps.jumpTo(0);
+        timestamps.putLong(timestamp);
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            columns.getQuick(i).retainLastRow();
+        }
+        rowCount = 1;
+    }
+
+    private void send(int rows) {
+        final long size = encodedSize(rows);
+        long p = buf;
+        Unsafe.getUnsafe().putInt(p, (int) (size - Integer.BYTES));
+        p += Integer.BYTES;
+        Unsafe.getUnsafe().putShort(p, (short) tableNameUtf8.length);
+        p = putBytes(p + Short.BYTES, tableNameUtf8);
+        Unsafe.getUnsafe().putInt(p, rows);
+        p += Integer.BYTES;
+        Unsafe.getUnsafe().putShort(p, (short) columns.size());
+        p += Short.BYTES;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final Column column = columns.getQuick(i);
+            Unsafe.getUnsafe().putByte(p, (byte) column.type);
+            Unsafe.getUnsafe().putShort(p + Byte.BYTES, (short) column.nameUtf8.length);
+            p = putBytes(p + Byte.BYTES + Short.BYTES, column.nameUtf8);
+        }
+        Vect.memcpy(p, timestamps.getAddress(), (long) rows * Long.BYTES);
+        p += (long) rows * Long.BYTES;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            p = columns.getQuick(i).copyTo(p, rows);
+        }
+        assert p == buf + size;
+        lineChannel.send(buf, (int) size);
+    }
+
+    private void validateNotClosed() {
+        if (closed) {
+            throw new LineSenderException("sender already closed");
+        }
+    }
+
+    private static class Column implements QuietCloseable {
+        // string values and encoded symbol dictionary entries
+        private final MemoryCARW data = Vm.getCARWInstance(COLUMN_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
+        private final LongList dictionaryOffsets = new LongList();
+        private final CharSequenceIntHashMap symbolKeys = new CharSequenceIntHashMap();
+        // fixed size values, symbol keys or string lengths
+        private final MemoryCARW values = Vm.getCARWInstance(COLUMN_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
+        private long lastRowDataOffset;
+        private String name;
+        private byte[] nameUtf8;
+        private int rowCount;
+        private int type;
+
+        @Override
+        public void close() {
+            Misc.free(values);
+            Misc.free(data);
+        }
+
+        private long copyTo(long p, int rows) {
+            switch (type) {
+                case ColumnType.SYMBOL:
+                    Unsafe.getUnsafe().putInt(p, dictionaryOffsets.size());
+                    p += Integer.BYTES;
+                    Vect.memcpy(p, data.getAddress(), data.getAppendOffset());
+                    p += data.getAppendOffset();
+                    Vect.memcpy(p, values.getAddress(), (long) rows * Integer.BYTES);
+                    return p + (long) rows * Integer.BYTES;
+                case ColumnType.STRING:
+                    Vect.memcpy(p, values.getAddress(), (long) rows * Integer.BYTES);
+                    p += (long) rows * Integer.BYTES;
+                    final long dataSize = getStrDataSize(rows);
+                    Vect.memcpy(p, data.getAddress(), dataSize);
+                    return p + dataSize;
+                default:
+                    final long size = (long) rows * ColumnType.sizeOf(type);
+                    Vect.memcpy(p, values.getAddress(), size);
+                    return p + size;
+            }
+        }
+
+        private long encodedSize(int rows) {
+            final long headerSize = Byte.BYTES + Short.BYTES + nameUtf8.length;
+            switch (type) {
+                case ColumnType.SYMBOL:
+                    return headerSize + Integer.BYTES + data.getAppendOffset() + (long) rows * Integer.BYTES;
+                case ColumnType.STRING:
+                    return headerSize + (long) rows * Integer.BYTES + getStrDataSize(rows);
+                default:
+                    return headerSize + (long) rows * ColumnType.sizeOf(type);
+            }
+        }
+
+        private String findSymbol(int key) {
+            final ObjList<CharSequence> keys = symbolKeys.keys();
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                final CharSequence value = keys.getQuick(i);
+                if (symbolKeys.get(value) == key) {
+                    return (String) value;
+                }
+            }
+            throw new AssertionError();
+        }
+
+        // only the complete block or the block without the last row can be sent
+        private long getStrDataSize(int rows) {
+            assert rows == rowCount || rows == rowCount - 1;
+            return rows == rowCount ? data.getAppendOffset() : lastRowDataOffset;
+        }
+
+        private void of(String name, int type) {
+            this.name = name;
+            this.nameUtf8 = name.getBytes(StandardCharsets.UTF_8);
+            this.type = type;
+            this.rowCount = 0;
+            this.lastRowDataOffset = 0;
+            values.jumpTo(0);
+            data.jumpTo(0);
+            dictionaryOffsets.clear();
+            symbolKeys.clear();
+        }
+
+        private void putNull() {
+            switch (type) {
+                case ColumnType.BOOLEAN:
+                    values.putBool(false);
+                    break;
+                case ColumnType.DOUBLE:
+                    values.putDouble(Double.NaN);
+                    break;
+                case ColumnType.STRING:
+                    lastRowDataOffset = data.getAppendOffset();
+                    // fall through
+                case ColumnType.SYMBOL:
+                    values.putInt(-1);
+                    break;
+                default:
+                    values.putLong(Numbers.LONG_NaN);
+                    break;
+            }
+            rowCount++;
+        }
+
+        private void putStr(CharSequence value) {
+            lastRowDataOffset = data.getAppendOffset();
+            if (value == null) {
+                values.putInt(-1);
+            } else {
+                values.putInt(putUtf8(value));
+            }
+        }
+
+        private void putSym(CharSequence value) {
+            if (value == null) {
+                values.putInt(-1);
+                return;
+            }
+            final int index = symbolKeys.keyIndex(value);
+            if (index < 0) {
+                values.putInt(symbolKeys.valueAt(index));
+                return;
+            }
+            final int key = dictionaryOffsets.size();
+            dictionaryOffsets.add(data.getAppendOffset());
+            final long lenOffset = data.getAppendOffset();
+            data.putInt(0);
+            data.putInt(lenOffset, putUtf8(value));
+            symbolKeys.putAt(index, Chars.toString(value), key);
+            values.putInt(key);
+        }
+
+        private int putUtf8(CharSequence value) {
+            final long lo = data.getAppendOffset();
+            for (int i = 0, n = value.length(); i < n; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    data.putByte((byte) c);
+                } else if (c < 0x800) {
+                    data.putByte((byte) (0xc0 | (c >> 6)));
+                    data.putByte((byte) (0x80 | (c & 0x3f)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, value.charAt(++i));
+                    data.putByte((byte) (0xf0 | (cp >> 18)));
+                    data.putByte((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                    data.putByte((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                    data.putByte((byte) (0x80 | (cp & 0x3f)));
+                } else {
+                    data.putByte((byte) (0xe0 | (c >> 12)));
+                    data.putByte((byte) (0x80 | ((c >> 6) & 0x3f)));
+                    data.putByte((byte) (0x80 | (c & 0x3f)));
+                }
+            }
+            return (int) (data.getAppendOffset() - lo);
+        }
+
+        private void retainLastRow() {
+            switch (type) {
+                case ColumnType.SYMBOL: {
+                    final int key = values.getInt((long) (rowCount - 1) * Integer.BYTES);
+                    values.jumpTo(0);
+                    if (key < 0) {
+                        values.putInt(-1);
+                        data.jumpTo(0);
+                        dictionaryOffsets.clear();
+                        symbolKeys.clear();
+                    } else {
+                        // keep the last row's dictionary entry only
+                        final long lo = dictionaryOffsets.getQuick(key);
+                        final long len = Integer.BYTES + data.getInt(lo);
+                        final String value = findSymbol(key);
+                        Vect.memmove(data.getAddress(), data.getAddress() + lo, len);
+                        data.jumpTo(len);
+                        dictionaryOffsets.clear();
+                        dictionaryOffsets.add(0);
+                        symbolKeys.clear();
+                        symbolKeys.put(value, 0);
+                        values.putInt(0);
+                    }
+                    break;
+                }
+                case ColumnType.STRING: {
+                    final int len = values.getInt((long) (rowCount - 1) * Integer.BYTES);
+                    final long dataLen = data.getAppendOffset() - lastRowDataOffset;
+                    Vect.memmove(data.getAddress(), data.getAddress() + lastRowDataOffset, dataLen);
+                    data.jumpTo(dataLen);
+                    lastRowDataOffset = 0;
+                    values.jumpTo(0);
+                    values.putInt(len);
+                    break;
+                }
+                default: {
+                    final int size = ColumnType.sizeOf(type);
+                    Vect.memmove(values.getAddress(), values.getAddress() + (long) (rowCount - 1) * size, size);
+                    values.jumpTo(size);
+                    break;
+                }
+            }
+            rowCount = 1;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cutlass.line.tcp.PlainTcpLineChannel;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.MCSequence;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.RingQueue;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends rows over a fixed number of TCP connections on background threads.
+ * <p>
+ * Producer threads obtain their own {@link LineTcpAsyncSender} via {@link #newSender()}. Instead of writing
+ * to a socket, a sender copies its buffer of complete rows to a slot of the ring queue shared by all senders
+ * and returns immediately. Slots are off-heap buffers of the sender buffer capacity. Each connection is
+ * served by an I/O thread, which takes the next full slot off the queue and writes it to the socket. When
+ * all slots are full, producers wait for I/O threads to catch up.
+ * <p>
+ * Rows of a sender may be sent over different connections and therefore reach the server in different
+ * order. An I/O error is fatal for the pool, it is rethrown to producers and by {@link #close()}.
+ * <p>
+ * Like {@link LineTcpSender}, this class comes with no API guarantees.
+ */
+public class LineTcpSenderPool implements Closeable {
+    private static final int IDLE_SPIN_COUNT = 10_000;
+    private static final Log LOG = LogFactory.getLog(LineTcpSenderPool.class);
+    private final int autoFlushBytes;
+    private final long autoFlushIntervalNanos;
+    private final int autoFlushRows;
+    private final int bufferCapacity;
+    private final ObjList<LineChannel> channels = new ObjList<>();
+    private final ObjList<Thread> ioThreads = new ObjList<>();
+    private final MPSequence pubSeq;
+    private final RingQueue<LineBuffer> queue;
+    private final LineChannel ringChannel = new RingChannel();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final MCSequence subSeq;
+    private volatile boolean closed;
+    private volatile LineSenderException error;
+
+    /**
+     * @param nf                      network facade
+     * @param ip                      IP address of a server, as returned by {@link io.questdb.network.Net#parseIPv4(CharSequence)}
+     * @param port                    port where the server is listening
+     * @param connectionCount         number of connections, and I/O threads, to send rows with
+     * @param bufferCapacity          capacity of sender buffers and queue slots in bytes
+     * @param queueCapacity           number of queue slots, rounded up to a power of 2
+     * @param autoFlushRows           senders hand their rows over to the queue once they have this many rows
+     * @param autoFlushBytes          senders hand their rows over to the queue once they have this many bytes of rows
+     * @param autoFlushIntervalMillis senders hand their rows over to the queue on the first row added after this
+     *                                interval elapses since the previous hand-over, -1 disables the interval
+     */
+    public LineTcpSenderPool(
+            NetworkFacade nf,
+            int ip,
+            int port,
+            int connectionCount,
+            int bufferCapacity,
+            int queueCapacity,
+            int autoFlushRows,
+            int autoFlushBytes,
+            long autoFlushIntervalMillis
+    ) {
+        if (connectionCount < 1) {
+            throw new LineSenderException("connection count must be positive [connectionCount=").put(connectionCount).put("]");
+        }
+        this.bufferCapacity = bufferCapacity;
+        this.autoFlushRows = autoFlushRows;
+        this.autoFlushBytes = Math.min(autoFlushBytes, bufferCapacity);
+        this.autoFlushIntervalNanos = autoFlushIntervalMillis > -1 ? autoFlushIntervalMillis * 1_000_000L : -1;
+
+        final int cycle = Numbers.ceilPow2(Math.max(queueCapacity, connectionCount));
+        this.queue = new RingQueue<>(LineBuffer::new, bufferCapacity, cycle, MemoryTag.NATIVE_ILP_RSS);
+        this.pubSeq = new MPSequence(cycle);
+        this.subSeq = new MCSequence(cycle);
+        pubSeq.then(subSeq).then(pubSeq);
+
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                channels.add(new PlainTcpLineChannel(nf, ip, port, bufferCapacity * 2));
+            }
+        } catch (Throwable th) {
+            Misc.freeObjList(channels);
+            queue.close();
+            throw th;
+        }
+
+        for (int i = 0; i < connectionCount; i++) {
+            final LineChannel channel = channels.getQuick(i);
+            final Thread thread = new Thread(() -> runIO(channel), "questdb-ilp-sender-" + i);
+            thread.setDaemon(true);
+            ioThreads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Creates a pool with defaults suitable for high throughput: queue of 4 slots per connection,
+     * hand-over when sender buffer is full or once a second.
+     */
+    public static LineTcpSenderPool newPool(int ip, int port, int connectionCount, int bufferCapacity) {
+        return new LineTcpSenderPool(
+                NetworkFacadeImpl.INSTANCE,
+                ip,
+                port,
+                connectionCount,
+                bufferCapacity,
+                4 * connectionCount,
+                Integer.MAX_VALUE,
+                bufferCapacity,
+                1000
+        );
+    }
+
+    /**
+     * Waits until everything senders handed over to the queue so far is written to the sockets.
+     * Rows still held in sender buffers are not affected, flush senders to hand them over.
+     */
+    public void awaitSent() {
+        final long published = pubSeq.current() + 1;
+        int idleCount = 0;
+        while (sentCount.get() < published) {
+            checkError();
+            idle(idleCount++);
+        }
+        checkError();
+    }
+
+    /**
+     * Sends rows remaining in the queue, stops I/O threads and closes connections. Senders must be closed,
+     * or at least flushed, before the pool. Rows held in sender buffers are lost otherwise.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0, n = ioThreads.size(); i < n; i++) {
+            try {
+                ioThreads.getQuick(i).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Misc.freeObjList(channels);
+        queue.close();
+        checkError();
+    }
+
+    /**
+     * Creates a sender for the calling thread. Senders are not thread-safe, each producer thread should have
+     * its own sender. Closing a sender hands its remaining rows over to the queue.
+     */
+    public LineTcpAsyncSender newSender() {
+        if (closed) {
+            throw new LineSenderException("sender pool is closed");
+        }
+        return new LineTcpAsyncSender(ringChannel, bufferCapacity, autoFlushRows, autoFlushBytes, autoFlushIntervalNanos);
+    }
+
+    private static void idle(int idleCount) {
+        if (idleCount < IDLE_SPIN_COUNT) {
+            Os.pause();
+        } else {
+            Os.sleep(1);
+        }
+    }
+
+    private void checkError() {
+        final LineSenderException e = error;
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private void publish(long ptr, int len) {
+        assert len <= bufferCapacity;
+        int idleCount = 0;
+        long cursor;
+        while (true) {
+            checkError();
+            if (closed) {
+                throw new LineSenderException("sender pool is closed");
+            }
+            cursor = pubSeq.next();
+            if (cursor > -1) {
+                break;
+            }
+            if (cursor == -1) {
+                // queue is full, wait for I/O threads to catch up
+                idle(idleCount++);
+            }
+        }
+        queue.get(cursor).of(ptr, len);
+        pubSeq.done(cursor);
+    }
+
+    private void runIO(LineChannel channel) {
+        int idleCount = 0;
+        while (true) {
+            final long cursor = subSeq.next();
+            if (cursor > -1) {
+                final LineBuffer buffer = queue.get(cursor);
+                try {
+                    if (error == null) {
+                        channel.send(buffer.address, buffer.size);
+                    }
+                } catch (LineSenderException e) {
+                    LOG.error().$("could not send rows [ex=").$((Throwable) e).I$();
+                    error = e;
+                } catch (Throwable th) {
+                    LOG.critical().$("could not send rows [ex=").$(th).I$();
+                    error = new LineSenderException("could not send rows", th);
+                } finally {
+                    subSeq.done(cursor);
+                    sentCount.incrementAndGet();
+                }
+                idleCount = 0;
+            } else if (cursor == -1) {
+                // exit only once the queue is drained
+                if (closed) {
+                    break;
+                }
+                idle(idleCount++);
+            }
+        }
+    }
+
+    private static class LineBuffer {
+        private final long address;
+        private int size;
+
+        private LineBuffer(long address, long capacity) {
+            this.address = address;
+        }
+
+        private void of(long ptr, int len) {
+            Vect.memcpy(address, ptr, len);
+            size = len;
+        }
+    }
+
+    private class RingChannel implements LineChannel {
+        @Override
+        public void close() {
+            // the channel is shared by all senders of the pool
+        }
+
+        @Override
+        public int errno() {
+            return 0;
+        }
+
+        @Override
+        public int receive(long ptr, int len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void send(long ptr, int len) {
+            publish(ptr, len);
+        }
+    }
+}
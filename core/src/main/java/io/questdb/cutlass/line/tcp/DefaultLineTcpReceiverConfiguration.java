@@ -163,6 +163,11 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return NetworkFacadeImpl.INSTANCE;
     }
 
+    @Override
+    public int getSymbolCacheMaxSize() {
+        return 1_048_576;
+    }
+
     @Override
     public long getSymbolCacheWaitUsBeforeReload() {
         return 500_000;
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.Telemetry;
+import io.questdb.TelemetryOrigin;
+import io.questdb.TelemetrySystemEvent;
+import io.questdb.cairo.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.ByteCharSequence;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.TelemetryTask;
+
+import java.io.Closeable;
+
+/**
+ * WAL table writers used by a single ILP over HTTP connection. Tables are resolved,
+ * and created when necessary, by measurement name. Rows are appended to the WAL
+ * writers from the thread handling the connection and are committed, or rolled back,
+ * together at the end of each request.
+ * <p>
+ * Unlike the TCP receiver, HTTP ingestion writes to WAL tables only, so that requests
+ * are independent of writer threads and commit as soon as the request is complete.
+ */
+public class LineHttpTudCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LineHttpTudCache.class);
+    private final LineWalAppender appender;
+    private final boolean autoCreateNewColumns;
+    private final boolean autoCreateNewTables;
+    private final LineTcpReceiverConfiguration configuration;
+    private final MemoryMARW ddlMem = Vm.getMARWInstance();
+    private final DefaultColumnTypes defaultColumnTypes;
+    private final CairoEngine engine;
+    private final MillisecondClock millisecondClock;
+    private final Path path = new Path();
+    private final long spinLockTimeout;
+    private final StringSink tableNameUtf16 = new StringSink();
+    private final TableStructureAdapter tableStructureAdapter;
+    private final ByteCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf8 = new ByteCharSequenceObjHashMap<>();
+    private final Telemetry<TelemetryTask> telemetry;
+    private final TxReader txReader;
+    private final ObjList<SymbolCache> unusedSymbolCaches = new ObjList<>();
+
+    public LineHttpTudCache(LineTcpReceiverConfiguration configuration, CairoEngine engine) {
+        final CairoConfiguration cairoConfiguration = engine.getConfiguration();
+        this.configuration = configuration;
+        this.engine = engine;
+        this.appender = new LineWalAppender(configuration, cairoConfiguration);
+        this.autoCreateNewColumns = configuration.getAutoCreateNewColumns();
+        this.autoCreateNewTables = configuration.getAutoCreateNewTables();
+        this.defaultColumnTypes = new DefaultColumnTypes(configuration);
+        this.millisecondClock = cairoConfiguration.getMillisecondClock();
+        this.spinLockTimeout = cairoConfiguration.getSpinLockTimeout();
+        this.tableStructureAdapter = new TableStructureAdapter(cairoConfiguration, defaultColumnTypes, configuration.getDefaultPartitionBy(), true);
+        this.telemetry = engine.getTelemetry();
+        this.txReader = new TxReader(cairoConfiguration.getFilesFacade());
+    }
+
+    /**
+     * Appends measurement the parser is positioned on to the WAL writer of the table.
+     * Writer is left in error state when the append fails, and it is re-acquired on the
+     * next call to {@link #getTableUpdateDetails(CairoSecurityContext, LineTcpParser)}.
+     */
+    public void append(CairoSecurityContext securityContext, LineTcpParser parser, TableUpdateDetails tud) throws CommitFailedException {
+        appender.appendToWal(securityContext, parser, tud, 0);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(ddlMem);
+        Misc.free(path);
+        Misc.free(txReader);
+        Misc.freeObjListAndClear(unusedSymbolCaches);
+    }
+
+    /**
+     * Commits rows of all tables written since the last commit or rollback. Tables are
+     * committed one by one, so that rows of tables committed before a failure remain
+     * committed.
+     *
+     * @throws CommitFailedException when commit of any of the tables fails
+     */
+    public void commitAll() throws CommitFailedException {
+        for (int i = 0, n = tableUpdateDetailsUtf8.size(); i < n; i++) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.valueQuick(i);
+            if (tud.getWriter() != null) {
+                tud.commit(false);
+            }
+        }
+    }
+
+    /**
+     * Resolves details of the table the parser's measurement is written to. The table is
+     * created when it does not exist and creating tables is enabled.
+     *
+     * @throws CairoException when the table cannot be created, or it is not a WAL table
+     */
+    public TableUpdateDetails getTableUpdateDetails(CairoSecurityContext securityContext, LineTcpParser parser) {
+        final DirectByteCharSequence tableNameUtf8 = parser.getMeasurementName();
+        final int keyIndex = tableUpdateDetailsUtf8.keyIndex(tableNameUtf8);
+        if (keyIndex < 0) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.valueAt(keyIndex);
+            if (!tud.isWriterInError() && tud.getWriter() != null) {
+                return tud;
+            }
+            tableUpdateDetailsUtf8.removeAt(keyIndex);
+            tud.close();
+        }
+        return newTableUpdateDetails(securityContext, parser, tableNameUtf8);
+    }
+
+    /**
+     * Returns number of WAL transactions of the table that have not been applied to
+     * the table yet.
+     */
+    public long getWalLag(TableToken tableToken) {
+        final long seqTxn = engine.getTableSequencerAPI().lastTxn(tableToken);
+        path.of(engine.getConfiguration().getRoot()).concat(tableToken).concat(TableUtils.TXN_FILE_NAME).$();
+        try {
+            txReader.ofRO(path, PartitionBy.NONE);
+            TableUtils.safeReadTxn(txReader, millisecondClock, spinLockTimeout);
+            return Math.max(0, seqTxn - txReader.getSeqTxn());
+        } finally {
+            txReader.clear();
+        }
+    }
+
+    public boolean isSuspended(TableToken tableToken) {
+        return engine.getTableSequencerAPI().isSuspended(tableToken);
+    }
+
+    /**
+     * Rolls back rows of all tables written since the last commit or rollback.
+     */
+    public void rollbackAll() {
+        for (int i = 0, n = tableUpdateDetailsUtf8.size(); i < n; i++) {
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.valueQuick(i);
+            final TableWriterAPI writer = tud.getWriter();
+            if (writer != null) {
+                try {
+                    writer.rollback();
+                } catch (Throwable th) {
+                    LOG.error().$("could not rollback [table=").$(tud.getTableNameUtf16()).$(", e=").$(th).I$();
+                    tud.setWriterInError();
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        rollbackAll();
+        final ObjList<ByteCharSequence> keys = tableUpdateDetailsUtf8.keys();
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            tableUpdateDetailsUtf8.get(keys.getQuick(i)).close();
+        }
+        tableUpdateDetailsUtf8.clear();
+    }
+
+    private TableUpdateDetails newTableUpdateDetails(
+            CairoSecurityContext securityContext,
+            LineTcpParser parser,
+            DirectByteCharSequence tableNameUtf8
+    ) {
+        tableNameUtf16.clear();
+        Chars.utf8Decode(tableNameUtf8.getLo(), tableNameUtf8.getHi(), tableNameUtf16);
+
+        TableToken tableToken = engine.getTableTokenIfExists(tableNameUtf16);
+        final int status = engine.getStatus(securityContext, path, tableToken);
+        if (status != TableUtils.TABLE_EXISTS) {
+            if (!autoCreateNewTables) {
+                throw CairoException.nonCritical()
+                        .put("table does not exist, creating new tables is disabled [table=").put(tableNameUtf16)
+                        .put(']');
+            }
+            if (!autoCreateNewColumns) {
+                throw CairoException.nonCritical()
+                        .put("table does not exist, cannot create table, creating new columns is disabled [table=").put(tableNameUtf16)
+                        .put(']');
+            }
+            // validate that parser entities do not contain NULLs
+            final TableStructureAdapter tsa = tableStructureAdapter.of(tableNameUtf16, parser);
+            for (int i = 0, n = tsa.getColumnCount(); i < n; i++) {
+                if (tsa.getColumnType(i) == LineTcpParser.ENTITY_TYPE_NULL) {
+                    throw CairoException.nonCritical().put("unknown column type [columnName=").put(tsa.getColumnName(i)).put(']');
+                }
+            }
+            LOG.info().$("creating table [tableName=").$(tableNameUtf16).$(']').$();
+            tableToken = engine.createTable(securityContext, ddlMem, path, true, tsa, false);
+        }
+
+        if (!engine.isWalTable(tableToken)) {
+            throw CairoException.nonCritical()
+                    .put("cannot write to non-WAL table over HTTP [table=").put(tableNameUtf16)
+                    .put(']');
+        }
+
+        TelemetryTask.store(telemetry, TelemetryOrigin.ILP_HTTP, TelemetrySystemEvent.ILP_RESERVE_WRITER);
+        final TableUpdateDetails tud = new TableUpdateDetails(
+                configuration,
+                engine,
+                engine.getWalWriter(securityContext, tableToken),
+                -1,
+                unusedSymbolCaches,
+                defaultColumnTypes,
+                ByteCharSequence.newInstance(tableNameUtf8)
+        );
+        tableUpdateDetailsUtf8.put(tud.getTableNameUtf8(), tud);
+        return tud;
+    }
+}
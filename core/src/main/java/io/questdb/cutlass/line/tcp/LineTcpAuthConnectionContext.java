@@ -171,7 +171,7 @@ public class LineTcpAuthConnectionContext extends LineTcpConnectionContext {
         int n = CHALLENGE_LEN + 1 - (int) (recvBufPos - recvBufStart);
         assert n > 0;
         while (true) {
-            int nWritten = nf.send(fd, recvBufPos, n);
+            int nWritten = send(nf, recvBufPos, n);
             if (nWritten > 0) {
                 if (n == nWritten) {
                     recvBufPos = recvBufStart;
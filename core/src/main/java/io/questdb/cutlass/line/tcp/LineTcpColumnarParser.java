@@ -0,0 +1,380 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cutlass.line.tcp.LineTcpParser.ParseResult;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Parser of the columnar binary variant of ILP. After the connection sends {@link #MAGIC} the stream
+ * consists of table blocks, all numbers are little-endian:
+ * <pre>
+ * int32      block length, excluding this field
+ * int16      table name length, followed by UTF-8 table name
+ * int32      row count
+ * int16      column count, followed by column headers:
+ *            int8 column type tag, int16 name length, UTF-8 column name
+ * int64[]    designated timestamps in micros, LONG_NaN stands for server time
+ * per column data:
+ *            fixed size types - row count values in native column format, nulls included
+ *            SYMBOL - int32 dictionary size, dictionary entries as int32 length and UTF-8 bytes,
+ *                     followed by int32[] keys, -1 for null
+ *            STRING - int32[] value lengths, -1 for null, followed by UTF-8 bytes of non-null values
+ * </pre>
+ * Blocks are parsed in place, the parser only validates the block and keeps the addresses of the column data.
+ */
+public class LineTcpColumnarParser {
+    public static final int BLOCK_HEADER_SIZE = Integer.BYTES;
+    public static final byte[] MAGIC = {0, 'I', 'L', 'P', 'C', 1, 0, 0};
+    private final ObjList<DirectByteCharSequence> columnNames = new ObjList<>();
+    private final ObjList<StringSink> columnNamesUtf16 = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final LongList dataAddresses = new LongList();
+    private final ObjList<ObjList<StringSink>> dictionaries = new ObjList<>();
+    private final BoolList nonAsciiFlags = new BoolList();
+    private final DirectByteCharSequence tableName = new DirectByteCharSequence();
+    private final LongList valueAddresses = new LongList();
+    private long blockHi;
+    private int columnCount;
+    private ErrorCode errorCode = ErrorCode.NONE;
+    private long hi;
+    private long p;
+    private int rowCount;
+    private long timestampsAddress;
+
+    public static boolean isSupportedColumnType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.SYMBOL:
+            case ColumnType.STRING:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public long getBlockHi() {
+        return blockHi;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public DirectByteCharSequence getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    public CharSequence getColumnNameUtf16(int columnIndex) {
+        return columnNamesUtf16.getQuick(columnIndex);
+    }
+
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    /**
+     * @param columnIndex block column index
+     * @return address of the value bytes of a STRING column
+     */
+    public long getDataAddress(int columnIndex) {
+        return dataAddresses.getQuick(columnIndex);
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public ObjList<StringSink> getSymbolDictionary(int columnIndex) {
+        return dictionaries.getQuick(columnIndex);
+    }
+
+    public DirectByteCharSequence getTableName() {
+        return tableName;
+    }
+
+    public long getTimestampsAddress() {
+        return timestampsAddress;
+    }
+
+    /**
+     * @param columnIndex block column index
+     * @return address of the values of a fixed size column, symbol keys of a SYMBOL column
+     * or value lengths of a STRING column
+     */
+    public long getValueAddress(int columnIndex) {
+        return valueAddresses.getQuick(columnIndex);
+    }
+
+    public boolean hasNonAsciiChars(int columnIndex) {
+        return nonAsciiFlags.get(columnIndex);
+    }
+
+    public ParseResult parse(long lo, long hi) {
+        if (hi - lo < BLOCK_HEADER_SIZE) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+        final int blockLen = Unsafe.getUnsafe().getInt(lo);
+        if (blockLen < 0) {
+            return error(ErrorCode.INVALID_BLOCK_LENGTH);
+        }
+        if (hi - lo - BLOCK_HEADER_SIZE < blockLen) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+        this.p = lo + BLOCK_HEADER_SIZE;
+        this.hi = this.blockHi = p + blockLen;
+        this.errorCode = ErrorCode.NONE;
+        this.columnCount = 0;
+
+        final int tableNameLen = readShort();
+        if (tableNameLen < 1 || !available(tableNameLen)) {
+            return error(ErrorCode.INVALID_TABLE_NAME);
+        }
+        tableName.of(p, p + tableNameLen);
+        p += tableNameLen;
+
+        if (!available(Integer.BYTES + Short.BYTES)) {
+            return error(ErrorCode.INVALID_BLOCK_LENGTH);
+        }
+        rowCount = readInt();
+        final int blockColumnCount = readShort();
+        if (rowCount < 0) {
+            return error(ErrorCode.INVALID_ROW_COUNT);
+        }
+        if (blockColumnCount < 0) {
+            return error(ErrorCode.INVALID_COLUMN_COUNT);
+        }
+
+        for (int i = 0; i < blockColumnCount; i++) {
+            if (!available(Byte.BYTES + Short.BYTES)) {
+                return error(ErrorCode.INVALID_BLOCK_LENGTH);
+            }
+            final int columnType = Unsafe.getUnsafe().getByte(p++);
+            if (!isSupportedColumnType(columnType)) {
+                return error(ErrorCode.INVALID_COLUMN_TYPE);
+            }
+            final int nameLen = readShort();
+            if (nameLen < 1 || !available(nameLen)) {
+                return error(ErrorCode.INVALID_COLUMN_NAME);
+            }
+            final StringSink nameUtf16 = getOrCreate(columnNamesUtf16, i);
+            if (!Chars.utf8Decode(p, p + nameLen, nameUtf16)) {
+                return error(ErrorCode.INVALID_COLUMN_NAME);
+            }
+            getOrCreateName(i).of(p, p + nameLen);
+            columnTypes.extendAndSet(i, columnType);
+            p += nameLen;
+        }
+        this.columnCount = blockColumnCount;
+
+        if (!available((long) rowCount * Long.BYTES)) {
+            return error(ErrorCode.INVALID_BLOCK_LENGTH);
+        }
+        timestampsAddress = p;
+        p += (long) rowCount * Long.BYTES;
+
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            dataAddresses.extendAndSet(i, 0);
+            nonAsciiFlags.extendAndSet(i, false);
+            switch (columnType) {
+                case ColumnType.SYMBOL:
+                    if (!parseSymbolColumn(i)) {
+                        return ParseResult.ERROR;
+                    }
+                    break;
+                case ColumnType.STRING:
+                    if (!parseStrColumn(i)) {
+                        return ParseResult.ERROR;
+                    }
+                    break;
+                default:
+                    final long size = (long) rowCount * ColumnType.sizeOf(columnType);
+                    if (!available(size)) {
+                        return error(ErrorCode.INVALID_BLOCK_LENGTH);
+                    }
+                    valueAddresses.extendAndSet(i, p);
+                    p += size;
+                    break;
+            }
+        }
+
+        if (p != blockHi) {
+            return error(ErrorCode.INVALID_BLOCK_LENGTH);
+        }
+        return ParseResult.MEASUREMENT_COMPLETE;
+    }
+
+    private static StringSink getOrCreate(ObjList<StringSink> sinks, int index) {
+        StringSink sink = sinks.getQuiet(index);
+        if (sink == null) {
+            sink = new StringSink();
+            sinks.extendAndSet(index, sink);
+        }
+        sink.clear();
+        return sink;
+    }
+
+    private boolean available(long len) {
+        return len >= 0 && hi - p >= len;
+    }
+
+    private ParseResult error(ErrorCode errorCode) {
+        this.errorCode = errorCode;
+        return ParseResult.ERROR;
+    }
+
+    private DirectByteCharSequence getOrCreateName(int index) {
+        DirectByteCharSequence name = columnNames.getQuiet(index);
+        if (name == null) {
+            name = new DirectByteCharSequence();
+            columnNames.extendAndSet(index, name);
+        }
+        return name;
+    }
+
+    private boolean parseStrColumn(int columnIndex) {
+        if (!available((long) rowCount * Integer.BYTES)) {
+            errorCode = ErrorCode.INVALID_BLOCK_LENGTH;
+            return false;
+        }
+        final long lengthsAddress = p;
+        p += (long) rowCount * Integer.BYTES;
+        final long dataAddress = p;
+        boolean hasNonAsciiChars = false;
+        for (int r = 0; r < rowCount; r++) {
+            final int len = Unsafe.getUnsafe().getInt(lengthsAddress + (long) r * Integer.BYTES);
+            if (len < -1 || (len > 0 && !available(len))) {
+                errorCode = ErrorCode.INVALID_STRING_LENGTH;
+                return false;
+            }
+            if (len > 0) {
+                for (long lim = p + len; p < lim; p++) {
+                    hasNonAsciiChars |= Unsafe.getUnsafe().getByte(p) < 0;
+                }
+            }
+        }
+        valueAddresses.extendAndSet(columnIndex, lengthsAddress);
+        dataAddresses.setQuick(columnIndex, dataAddress);
+        nonAsciiFlags.setQuick(columnIndex, hasNonAsciiChars);
+        return true;
+    }
+
+    private boolean parseSymbolColumn(int columnIndex) {
+        if (!available(Integer.BYTES)) {
+            errorCode = ErrorCode.INVALID_BLOCK_LENGTH;
+            return false;
+        }
+        final int dictionarySize = readInt();
+        if (dictionarySize < 0) {
+            errorCode = ErrorCode.INVALID_SYMBOL_DICTIONARY;
+            return false;
+        }
+
+        ObjList<StringSink> dictionary = dictionaries.getQuiet(columnIndex);
+        if (dictionary == null) {
+            dictionary = new ObjList<>();
+            dictionaries.extendAndSet(columnIndex, dictionary);
+        }
+        dictionary.clear();
+        for (int i = 0; i < dictionarySize; i++) {
+            if (!available(Integer.BYTES)) {
+                errorCode = ErrorCode.INVALID_BLOCK_LENGTH;
+                return false;
+            }
+            final int len = readInt();
+            if (len < 0 || !available(len)) {
+                errorCode = ErrorCode.INVALID_SYMBOL_DICTIONARY;
+                return false;
+            }
+            final StringSink value = getOrCreate(dictionary, i);
+            if (!Chars.utf8Decode(p, p + len, value)) {
+                errorCode = ErrorCode.INVALID_SYMBOL_DICTIONARY;
+                return false;
+            }
+            p += len;
+        }
+
+        if (!available((long) rowCount * Integer.BYTES)) {
+            errorCode = ErrorCode.INVALID_BLOCK_LENGTH;
+            return false;
+        }
+        for (int r = 0; r < rowCount; r++) {
+            final int key = Unsafe.getUnsafe().getInt(p + (long) r * Integer.BYTES);
+            if (key < -1 || key >= dictionarySize) {
+                errorCode = ErrorCode.INVALID_SYMBOL_KEY;
+                return false;
+            }
+        }
+        valueAddresses.extendAndSet(columnIndex, p);
+        p += (long) rowCount * Integer.BYTES;
+        return true;
+    }
+
+    private int readInt() {
+        final int value = Unsafe.getUnsafe().getInt(p);
+        p += Integer.BYTES;
+        return value;
+    }
+
+    private int readShort() {
+        if (!available(Short.BYTES)) {
+            return -1;
+        }
+        final int value = Unsafe.getUnsafe().getShort(p) & 0xffff;
+        p += Short.BYTES;
+        return value;
+    }
+
+    public enum ErrorCode {
+        INVALID_BLOCK_LENGTH,
+        INVALID_TABLE_NAME,
+        INVALID_ROW_COUNT,
+        INVALID_COLUMN_COUNT,
+        INVALID_COLUMN_TYPE,
+        INVALID_COLUMN_NAME,
+        INVALID_SYMBOL_DICTIONARY,
+        INVALID_SYMBOL_KEY,
+        INVALID_STRING_LENGTH,
+        NONE
+    }
+}
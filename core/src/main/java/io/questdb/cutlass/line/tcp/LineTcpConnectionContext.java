@@ -27,7 +27,6 @@ package io.questdb.cutlass.line.tcp;
 import io.questdb.Metrics;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.CairoSecurityContext;
-import io.questdb.cairo.CommitFailedException;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cutlass.line.tcp.LineTcpParser.ParseResult;
 import io.questdb.log.Log;
@@ -36,7 +35,6 @@ import io.questdb.network.IOContext;
 import io.questdb.network.NetworkFacade;
 import io.questdb.std.*;
 import io.questdb.std.datetime.millitime.MillisecondClock;
-import io.questdb.std.str.ByteCharSequence;
 import io.questdb.std.str.DirectByteCharSequence;
 
 public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext> {
@@ -44,24 +42,22 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     private static final long QUEUE_FULL_LOG_HYSTERESIS_IN_MS = 10_000;
     protected final NetworkFacade nf;
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
-    private final long checkIdleInterval;
-    private final long commitInterval;
+    private final LineTcpColumnarParser columnarParser = new LineTcpColumnarParser();
     private final boolean disconnectOnError;
-    private final long idleTimeout;
     private final Metrics metrics;
     private final MillisecondClock milliClock;
     private final LineTcpParser parser;
     private final LineTcpMeasurementScheduler scheduler;
-    private final ByteCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf8 = new ByteCharSequenceObjHashMap<>();
+    private final WalTableUpdateDetailsCache walTableUpdateDetails;
     protected boolean peerDisconnected;
     protected long recvBufEnd;
     protected long recvBufPos;
     protected long recvBufStart;
     protected long recvBufStartOfMeasurement;
+    private boolean columnar;
     private boolean goodMeasurement;
     private long lastQueueFullLogMillis = 0;
-    private long nextCheckIdleTime;
-    private long nextCommitTime;
+    private boolean protocolNegotiated;
 
     public LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler, Metrics metrics) {
         nf = configuration.getNetworkFacade();
@@ -72,38 +68,22 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         parser = new LineTcpParser(configuration.isStringAsTagSupported(), configuration.isSymbolAsFieldSupported());
         recvBufStart = Unsafe.malloc(configuration.getNetMsgBufferSize(), MemoryTag.NATIVE_ILP_RSS);
         recvBufEnd = recvBufStart + configuration.getNetMsgBufferSize();
+        walTableUpdateDetails = new WalTableUpdateDetailsCache(configuration);
         clear();
-        this.checkIdleInterval = configuration.getMaintenanceInterval();
-        this.commitInterval = configuration.getCommitInterval();
-        long now = milliClock.getTicks();
-        this.nextCheckIdleTime = now + checkIdleInterval;
-        this.nextCommitTime = now + commitInterval;
-        this.idleTimeout = configuration.getWriterIdleTimeout();
     }
 
     public void checkIdle(long millis) {
-        for (int n = tableUpdateDetailsUtf8.size() - 1; n >= 0; n--) {
-            final ByteCharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
-            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
-            if (millis - tud.getLastMeasurementMillis() >= idleTimeout) {
-                tableUpdateDetailsUtf8.remove(tableNameUtf8);
-                tud.close();
-            }
-        }
+        walTableUpdateDetails.checkIdle(millis);
     }
 
     @Override
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        protocolNegotiated = false;
+        columnar = false;
         resetParser();
-        ObjList<ByteCharSequence> keys = tableUpdateDetailsUtf8.keys();
-        for (int n = keys.size() - 1; n >= 0; --n) {
-            final ByteCharSequence tableNameUtf8 = keys.get(n);
-            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
-            tud.close();
-            tableUpdateDetailsUtf8.remove(tableNameUtf8);
-        }
+        walTableUpdateDetails.clear();
     }
 
     @Override
@@ -114,52 +94,15 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     }
 
     public long commitWalTables(long wallClockMillis) {
-        long minTableNextCommitTime = Long.MAX_VALUE;
-        for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
-            final ByteCharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
-            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
-
-            if (tud.isWal()) {
-                final MillisecondClock millisecondClock = tud.getMillisecondClock();
-                try {
-                    long tableNextCommitTime = tud.commitIfIntervalElapsed(wallClockMillis);
-                    // get current time again, commit is not instant and take quite some time.
-                    wallClockMillis = millisecondClock.getTicks();
-                    if (tableNextCommitTime < minTableNextCommitTime) {
-                        // taking the earliest commit time
-                        minTableNextCommitTime = tableNextCommitTime;
-                    }
-                } catch (CommitFailedException ex) {
-                    if (ex.isTableDropped()) {
-                        // table dropped, nothing to worry about
-                        LOG.info().$("closing writer because table has been dropped (2) [table=").$(tud.getTableNameUtf16()).I$();
-                        tud.setWriterInError();
-                        tud.releaseWriter(false);
-                    } else {
-                        LOG.critical().$("commit failed [table=").$(tud.getTableNameUtf16()).$(",ex=").$(ex).I$();
-                    }
-                } catch (Throwable ex) {
-                    LOG.critical().$("commit failed [table=").$(tud.getTableNameUtf16()).$(",ex=").$(ex).I$();
-                }
-            }
-        }
-        // if no tables, just use the default commit interval
-        return minTableNextCommitTime != Long.MAX_VALUE ? minTableNextCommitTime : wallClockMillis + commitInterval;
+        return walTableUpdateDetails.commitWalTables(wallClockMillis);
     }
 
     public void doMaintenance(long now) {
-        if (now > nextCommitTime) {
-            nextCommitTime = commitWalTables(now);
-        }
-
-        if (now > nextCheckIdleTime) {
-            checkIdle(now);
-            nextCheckIdleTime = now + checkIdleInterval;
-        }
+        walTableUpdateDetails.doMaintenance(now);
     }
 
     public TableUpdateDetails getTableUpdateDetails(DirectByteCharSequence tableName) {
-        return tableUpdateDetailsUtf8.get(tableName);
+        return walTableUpdateDetails.getTableUpdateDetails(tableName);
     }
 
     public IOContextResult handleIO(NetworkIOJob netIoJob) {
@@ -173,6 +116,11 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
+    @Override
+    public boolean isStagedIOSupported() {
+        return true;
+    }
+
     private boolean checkQueueFullLogHysteresis() {
         long millis = milliClock.getTicks();
         if ((millis - lastQueueFullLogMillis) >= QUEUE_FULL_LOG_HYSTERESIS_IN_MS) {
@@ -210,6 +158,101 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
                 .$();
     }
 
+    /**
+     * Checks whether the connection starts with the columnar protocol magic. Anything else is treated
+     * as text ILP, the magic starts with a zero byte, which is never valid in text ILP.
+     *
+     * @return false when there is not enough data to decide yet
+     */
+    private boolean negotiateProtocol() {
+        final byte[] magic = LineTcpColumnarParser.MAGIC;
+        final int len = (int) Math.min(recvBufPos - recvBufStartOfMeasurement, magic.length);
+        for (int i = 0; i < len; i++) {
+            if (Unsafe.getUnsafe().getByte(recvBufStartOfMeasurement + i) != magic[i]) {
+                protocolNegotiated = true;
+                return true;
+            }
+        }
+
+        if (len == magic.length) {
+            LOG.info().$('[').$(fd).$("] columnar protocol").$();
+            protocolNegotiated = true;
+            columnar = true;
+            startNewColumnarBlock(recvBufStartOfMeasurement + magic.length);
+            return true;
+        }
+        return false;
+    }
+
+    private IOContextResult parseColumnarBlocks(NetworkIOJob netIoJob) {
+        while (true) {
+            try {
+                switch (columnarParser.parse(recvBufStartOfMeasurement, recvBufPos)) {
+                    case MEASUREMENT_COMPLETE: {
+                        if (scheduler.scheduleColumnarBlock(getSecurityContext(), netIoJob, walTableUpdateDetails, columnarParser)) {
+                            if (checkQueueFullLogHysteresis()) {
+                                LOG.debug().$('[').$(fd).$("] queue full").$();
+                            }
+                            return IOContextResult.QUEUE_FULL;
+                        }
+                        startNewColumnarBlock(columnarParser.getBlockHi());
+                        continue;
+                    }
+
+                    case ERROR: {
+                        LOG.error()
+                                .$('[').$(fd)
+                                .$("] could not parse columnar block, ").$(columnarParser.getErrorCode())
+                                .$();
+                        return IOContextResult.NEEDS_DISCONNECT;
+                    }
+
+                    case BUFFER_UNDERFLOW: {
+                        if (recvBufPos == recvBufEnd && !compactBuffer(recvBufStartOfMeasurement)) {
+                            LOG.error().$('[').$(fd).$("] columnar block exceeds buffer [line.tcp.msg.buffer.size=").$(recvBufEnd - recvBufStart).$(']').$();
+                            return IOContextResult.NEEDS_DISCONNECT;
+                        }
+
+                        if (!read()) {
+                            if (peerDisconnected) {
+                                return IOContextResult.NEEDS_DISCONNECT;
+                            }
+                            return IOContextResult.NEEDS_READ;
+                        }
+                        break;
+                    }
+                }
+            } catch (CairoException ex) {
+                LOG.error()
+                        .$('[').$(fd).$("] could not process columnar block [table=").$(columnarParser.getTableName())
+                        .$(", msg=").$(ex.getFlyweightMessage())
+                        .$(", errno=").$(ex.getErrno())
+                        .I$();
+                if (disconnectOnError) {
+                    return IOContextResult.NEEDS_DISCONNECT;
+                }
+                startNewColumnarBlock(columnarParser.getBlockHi());
+            } catch (Throwable ex) {
+                LOG.critical()
+                        .$('[').$(fd).$("] could not process columnar block [table=").$(columnarParser.getTableName())
+                        .$(", ex=").$(ex)
+                        .I$();
+                // This is a critical error, so we treat it as an unhandled one.
+                metrics.health().incrementUnhandledErrors();
+                return IOContextResult.NEEDS_DISCONNECT;
+            }
+        }
+    }
+
+    private void startNewColumnarBlock(long blockLo) {
+        recvBufStartOfMeasurement = blockLo;
+        // we ran out of buffer, move to start and start parsing new data from socket
+        if (recvBufStartOfMeasurement == recvBufPos) {
+            recvBufPos = recvBufStart;
+            recvBufStartOfMeasurement = recvBufStart;
+        }
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -221,10 +264,6 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
-    void addTableUpdateDetails(ByteCharSequence tableNameUtf8, TableUpdateDetails tableUpdateDetails) {
-        tableUpdateDetailsUtf8.put(tableNameUtf8, tableUpdateDetails);
-    }
-
     /**
      * Moves incompletely received measurement to start of the receive buffer. Also updates the state of the
      * context and protocol parser such that all pointers that point to the incomplete measurement will remain
@@ -259,13 +298,26 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        while (!protocolNegotiated) {
+            if (!negotiateProtocol() && !read()) {
+                if (peerDisconnected) {
+                    return IOContextResult.NEEDS_DISCONNECT;
+                }
+                return IOContextResult.NEEDS_READ;
+            }
+        }
+
+        if (columnar) {
+            return parseColumnarBlocks(netIoJob);
+        }
+
         while (true) {
             try {
                 ParseResult rc = goodMeasurement ? parser.parseMeasurement(recvBufPos) : parser.skipMeasurement(recvBufPos);
                 switch (rc) {
                     case MEASUREMENT_COMPLETE: {
                         if (goodMeasurement) {
-                            if (scheduler.scheduleEvent(getSecurityContext(), netIoJob, this, parser)) {
+                            if (scheduler.scheduleEvent(getSecurityContext(), netIoJob, walTableUpdateDetails, parser)) {
                                 // Waiting for writer threads to drain queue, request callback as soon as possible
                                 if (checkQueueFullLogHysteresis()) {
                                     LOG.debug().$('[').$(fd).$("] queue full").$();
@@ -333,7 +385,7 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         int bufferRemaining = (int) (recvBufEnd - recvBufPos);
         final int orig = bufferRemaining;
         if (bufferRemaining > 0 && !peerDisconnected) {
-            int bytesRead = nf.recv(fd, recvBufPos, bufferRemaining);
+            int bytesRead = recv(nf, recvBufPos, bufferRemaining);
             if (bytesRead > 0) {
                 recvBufPos += bytesRead;
                 bufferRemaining -= bytesRead;
@@ -345,16 +397,6 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         return !peerDisconnected;
     }
 
-    TableUpdateDetails removeTableUpdateDetails(DirectByteCharSequence tableNameUtf8) {
-        final int keyIndex = tableUpdateDetailsUtf8.keyIndex(tableNameUtf8);
-        if (keyIndex < 0) {
-            TableUpdateDetails tud = tableUpdateDetailsUtf8.valueAtQuick(keyIndex);
-            tableUpdateDetailsUtf8.removeAt(keyIndex);
-            return tud;
-        }
-        return null;
-    }
-
     protected void resetParser() {
         parser.of(recvBufStart);
         goodMeasurement = true;
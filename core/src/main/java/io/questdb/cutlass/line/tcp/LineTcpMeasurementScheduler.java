@@ -32,7 +32,6 @@ import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cairo.wal.WalWriter;
-import io.questdb.cutlass.line.LineProtoTimestampAdapter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.MPSequence;
@@ -48,14 +47,13 @@ import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.TelemetryTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.Arrays;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import static io.questdb.cutlass.line.tcp.LineTcpMeasurementEvent.*;
-import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.COLUMN_NOT_FOUND;
-import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.DUPLICATED_COLUMN;
 
 public class LineTcpMeasurementScheduler implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpMeasurementScheduler.class);
@@ -78,6 +76,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
     private final ReadWriteLock tableUpdateDetailsLock = new SimpleReadWriteLock();
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf16;
     private final Telemetry<TelemetryTask> telemetry;
+    private final LineWalAppender walAppender;
     private final long writerIdleTimeout;
 
     public LineTcpMeasurementScheduler(
@@ -86,6 +85,27 @@ public class LineTcpMeasurementScheduler implements Closeable {
             WorkerPool ioWorkerPool,
             IODispatcher<LineTcpConnectionContext> dispatcher,
             WorkerPool writerWorkerPool
+    ) {
+        this(
+                lineConfiguration,
+                engine,
+                ioWorkerPool,
+                (scheduler, workerId) -> scheduler.createNetworkIOJob(dispatcher, workerId),
+                writerWorkerPool
+        );
+    }
+
+    /**
+     * Creates scheduler for sources of rows other than TCP connections. Factory is called for every
+     * worker of the I/O pool, jobs it creates are assigned to the pool and are passed to
+     * {@link #scheduleEvent(CairoSecurityContext, NetworkIOJob, TableUpdateDetailsCache, LineTcpParser)}.
+     */
+    public LineTcpMeasurementScheduler(
+            LineTcpReceiverConfiguration lineConfiguration,
+            CairoEngine engine,
+            WorkerPool ioWorkerPool,
+            NetworkIOJobFactory ioJobFactory,
+            WorkerPool writerWorkerPool
     ) {
         this.engine = engine;
         this.telemetry = engine.getTelemetry();
@@ -98,7 +118,14 @@ public class LineTcpMeasurementScheduler implements Closeable {
         this.tableNameSinks = new StringSink[ioWorkerPoolSize];
         for (int i = 0; i < ioWorkerPoolSize; i++) {
             tableNameSinks[i] = new StringSink();
-            NetworkIOJob netIoJob = createNetworkIOJob(dispatcher, i);
+            final NetworkIOJob netIoJob;
+            try {
+                netIoJob = ioJobFactory.newInstance(this, i);
+            } catch (Throwable th) {
+                Misc.free(path);
+                Misc.free(ddlMem);
+                throw th;
+            }
             netIoJobs[i] = netIoJob;
             ioWorkerPool.assign(i, netIoJob);
             ioWorkerPool.freeOnExit(netIoJob);
@@ -157,6 +184,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
         this.tableStructureAdapter = new TableStructureAdapter(cairoConfiguration, defaultColumnTypes, configuration.getDefaultPartitionBy());
         writerIdleTimeout = lineConfiguration.getWriterIdleTimeout();
+        this.walAppender = new LineWalAppender(lineConfiguration, cairoConfiguration);
     }
 
     @Override
@@ -257,10 +285,78 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    /**
+     * Appends a block of the columnar ILP to the table. Blocks are copied straight to the WAL writer's
+     * column memory on the I/O thread, there is no writer thread hand-off, hence only WAL tables are supported.
+     *
+     * @return true when the table writer is busy and the block should be retried
+     */
+    public boolean scheduleColumnarBlock(
+            CairoSecurityContext securityContext,
+            NetworkIOJob netIoJob,
+            TableUpdateDetailsCache ctx,
+            LineTcpColumnarParser block
+    ) {
+        final DirectByteCharSequence tableName = block.getTableName();
+        TableUpdateDetails tud;
+        try {
+            tud = ctx.getTableUpdateDetails(tableName);
+            if (tud == null) {
+                tud = netIoJob.getLocalTableDetails(tableName);
+                if (tud == null) {
+                    tud = getTableUpdateDetailsFromSharedArea(netIoJob, ctx, tableName, null, block, securityContext);
+                }
+            } else if (tud.isWriterInError()) {
+                TableUpdateDetails removed = ctx.removeTableUpdateDetails(tableName);
+                assert tud == removed;
+                removed.close();
+                tud = getTableUpdateDetailsFromSharedArea(netIoJob, ctx, tableName, null, block, securityContext);
+            }
+        } catch (EntryUnavailableException ex) {
+            // Table writer is locked
+            LOG.info().$("could not get table writer [tableName=").$(tableName)
+                    .$(", ex=`")
+                    .$(ex.getFlyweightMessage())
+                    .$("`]")
+                    .$();
+            return true;
+        } catch (CairoException ex) {
+            // Table could not be created
+            LOG.error().$("could not create table [tableName=").$(tableName)
+                    .$(", errno=").$(ex.getErrno())
+                    .$(", ex=`")
+                    .$(ex.getFlyweightMessage())
+                    .$("`]")
+                    .I$();
+            // More details will be logged by catching thread
+            throw ex;
+        }
+
+        if (!tud.isWal()) {
+            throw CairoException.nonCritical().put("columnar line protocol supports WAL tables only [table=").put(tud.getTableNameUtf16()).put(']');
+        }
+
+        try {
+            appendColumnarBlockToWal(securityContext, netIoJob, block, tud);
+        } catch (CommitFailedException ex) {
+            if (ex.isTableDropped()) {
+                // table dropped, nothing to worry about
+                LOG.info().$("closing writer because table has been dropped (3) [table=").$(tableName).I$();
+                tud.setWriterInError();
+                tud.releaseWriter(false);
+                return false;
+            }
+            handleAppendException(tableName, tud, ex);
+        } catch (Throwable ex) {
+            handleAppendException(tableName, tud, ex);
+        }
+        return false;
+    }
+
     public boolean scheduleEvent(
             CairoSecurityContext securityContext,
             NetworkIOJob netIoJob,
-            LineTcpConnectionContext ctx,
+            TableUpdateDetailsCache ctx,
             LineTcpParser parser
     ) {
         DirectByteCharSequence measurementName = parser.getMeasurementName();
@@ -270,13 +366,13 @@ public class LineTcpMeasurementScheduler implements Closeable {
             if (tud == null) {
                 tud = netIoJob.getLocalTableDetails(measurementName);
                 if (tud == null) {
-                    tud = getTableUpdateDetailsFromSharedArea(netIoJob, ctx, parser, securityContext);
+                    tud = getTableUpdateDetailsFromSharedArea(netIoJob, ctx, measurementName, parser, null, securityContext);
                 }
             } else if (tud.isWriterInError()) {
                 TableUpdateDetails removed = ctx.removeTableUpdateDetails(measurementName);
                 assert tud == removed;
                 removed.close();
-                tud = getTableUpdateDetailsFromSharedArea(netIoJob, ctx, parser, securityContext);
+                tud = getTableUpdateDetailsFromSharedArea(netIoJob, ctx, measurementName, parser, null, securityContext);
             }
         } catch (EntryUnavailableException ex) {
             // Table writer is locked
@@ -300,7 +396,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
 
         if (tud.isWal()) {
             try {
-                appendToWal(securityContext, netIoJob, parser, tud);
+                walAppender.appendToWal(securityContext, parser, tud, netIoJob.getWorkerId());
             } catch (CommitFailedException ex) {
                 if (ex.isTableDropped()) {
                     // table dropped, nothing to worry about
@@ -332,309 +428,90 @@ public class LineTcpMeasurementScheduler implements Closeable {
         throw CairoException.critical(0).put("could not append to WAL [tableName=").put(measurementName).put(", error=").put(ex.getMessage()).put(']');
     }
 
-    private void appendToWal(CairoSecurityContext securityContext, NetworkIOJob netIoJob, LineTcpParser parser, TableUpdateDetails tud) throws CommitFailedException {
-        final boolean stringToCharCastAllowed = configuration.isStringToCharCastAllowed();
-        LineProtoTimestampAdapter timestampAdapter = configuration.getTimestampAdapter();
+    private void appendColumnarBlockToWal(
+            CairoSecurityContext securityContext,
+            NetworkIOJob netIoJob,
+            LineTcpColumnarParser block,
+            TableUpdateDetails tud
+    ) throws CommitFailedException {
         // pass 1: create all columns that do not exist
         final TableUpdateDetails.ThreadLocalDetails ld = tud.getThreadLocalDetails(netIoJob.getWorkerId());
         ld.resetStateIfNecessary(securityContext);
         ld.clearColumnTypes();
 
-        WalWriter ww = (WalWriter) tud.getWriter();
-        TableRecordMetadata metadata = ww.getMetadata();
-
-        long timestamp = parser.getTimestamp();
-        if (timestamp != LineTcpParser.NULL_TIMESTAMP) {
-            timestamp = timestampAdapter.getMicros(timestamp);
-        } else {
-            timestamp = configuration.getMicrosecondClock().getTicks();
-        }
-
-        final int entCount = parser.getEntityCount();
-        for (int i = 0; i < entCount; i++) {
-            final LineTcpParser.ProtoEntity ent = parser.getEntity(i);
-            int columnIndex = ld.getColumnIndex(ent.getName(), parser.hasNonAsciiChars(), metadata);
-            int columnType = ColumnType.UNDEFINED;
-            if (columnIndex == COLUMN_NOT_FOUND) {
-                final String columnNameUtf16 = ld.getColNameUtf16();
+        final WalWriter ww = (WalWriter) tud.getWriter();
+        final TableRecordMetadata metadata = ww.getMetadata();
+        final int blockColumnCount = block.getColumnCount();
+        for (int i = 0; i < blockColumnCount; i++) {
+            final CharSequence columnNameUtf16 = block.getColumnNameUtf16(i);
+            int columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
+            if (columnIndex < 0) {
                 if (autoCreateNewColumns && TableUtils.isValidColumnName(columnNameUtf16, cairoConfiguration.getMaxFileNameLength())) {
-                    if (metadata.getColumnIndexQuiet(columnNameUtf16) < 0) {
-                        tud.commit(false);
-                        try {
-                            ww.addColumn(columnNameUtf16, ld.getColumnType(ld.getColNameUtf8(), ent.getType()));
-                        } catch (CairoException e) {
-                            columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
-                            if (columnIndex < 0) {
-                                // the column is still not there, something must be wrong
-                                throw e;
-                            }
-                            // all good, someone added the column concurrently
+                    tud.commit(false);
+                    try {
+                        ww.addColumn(columnNameUtf16, block.getColumnType(i));
+                    } catch (CairoException e) {
+                        if (metadata.getColumnIndexQuiet(columnNameUtf16) < 0) {
+                            // the column is still not there, something must be wrong
+                            throw e;
                         }
+                        // all good, someone added the column concurrently
                     }
                     columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
-                    columnType = metadata.getColumnType(columnIndex);
                 } else if (!autoCreateNewColumns) {
-                    throw newColumnsNotAllowed(tud, columnNameUtf16);
+                    throw newColumnsNotAllowed(tud, columnNameUtf16.toString());
                 } else {
                     throw invalidColNameError(tud, columnNameUtf16);
                 }
-            } else if (columnIndex > -1) {
-                if (columnIndex == tud.getTimestampIndex()) {
-                    timestamp = timestampAdapter.getMicros(ent.getLongValue());
-                    columnIndex = DUPLICATED_COLUMN;
+            }
+            ld.addColumnType(columnIndex, metadata.getColumnType(columnIndex));
+        }
+
+        // rows without timestamp are stamped with server time, the block is patched in place
+        final int rowCount = block.getRowCount();
+        final long timestampsAddress = block.getTimestampsAddress();
+        long now = Numbers.LONG_NaN;
+        for (int r = 0; r < rowCount; r++) {
+            final long p = timestampsAddress + (long) r * Long.BYTES;
+            if (Unsafe.getUnsafe().getLong(p) == Numbers.LONG_NaN) {
+                if (now == Numbers.LONG_NaN) {
+                    now = configuration.getMicrosecondClock().getTicks();
                 }
-                columnType = columnIndex < 0 ? ColumnType.UNDEFINED : metadata.getColumnType(columnIndex);
+                Unsafe.getUnsafe().putLong(p, now);
             }
-            ld.addColumnType(columnIndex, columnType);
         }
 
-        TableWriter.Row r = ww.newRow(timestamp);
+        // pass 2: copy column data
+        final WalWriter.ColumnBlock columnBlock = ww.newColumnBlock(timestampsAddress, rowCount);
         try {
-            for (int i = 0; i < entCount; i++) {
-                final LineTcpParser.ProtoEntity ent = parser.getEntity(i);
-
-                short entType = ent.getType();
-                int colTypeAndIndex = ld.getColumnType(i);
-                int colType = Numbers.decodeLowShort(colTypeAndIndex);
-                int columnIndex = Numbers.decodeHighShort(colTypeAndIndex);
-
-                if (columnIndex < 0) {
-                    continue;
+            for (int i = 0; i < blockColumnCount; i++) {
+                final int colTypeAndIndex = ld.getColumnType(i);
+                final int colType = Numbers.decodeLowShort(colTypeAndIndex);
+                final int columnIndex = Numbers.decodeHighShort(colTypeAndIndex);
+                final int blockColumnType = block.getColumnType(i);
+                if (columnIndex == tud.getTimestampIndex() || ColumnType.tagOf(colType) != blockColumnType) {
+                    throw castError(ColumnType.nameOf(blockColumnType), i, colType, block.getColumnNameUtf16(i));
                 }
 
-                switch (entType) {
-                    case LineTcpParser.ENTITY_TYPE_TAG: {
-                        if (ColumnType.tagOf(colType) == ColumnType.SYMBOL) {
-                            r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
-                        } else {
-                            throw castError("tag", i, colType, ent.getName());
-                        }
+                switch (blockColumnType) {
+                    case ColumnType.SYMBOL:
+                        columnBlock.putSymbolColumn(columnIndex, block.getSymbolDictionary(i), block.getValueAddress(i));
                         break;
-                    }
-                    case LineTcpParser.ENTITY_TYPE_INTEGER: {
-                        switch (ColumnType.tagOf(colType)) {
-                            case ColumnType.LONG:
-                                r.putLong(columnIndex, ent.getLongValue());
-                                break;
-
-                            case ColumnType.INT: {
-                                final long entityValue = ent.getLongValue();
-                                if (entityValue >= Integer.MIN_VALUE && entityValue <= Integer.MAX_VALUE) {
-                                    r.putInt(columnIndex, (int) entityValue);
-                                } else if (entityValue == Numbers.LONG_NaN) {
-                                    r.putInt(columnIndex, Numbers.INT_NaN);
-                                } else {
-                                    throw boundsError(entityValue, i, ColumnType.INT);
-                                }
-                                break;
-                            }
-                            case ColumnType.SHORT: {
-                                final long entityValue = ent.getLongValue();
-                                if (entityValue >= Short.MIN_VALUE && entityValue <= Short.MAX_VALUE) {
-                                    r.putShort(columnIndex, (short) entityValue);
-                                } else if (entityValue == Numbers.LONG_NaN) {
-                                    r.putShort(columnIndex, (short) 0);
-                                } else {
-                                    throw boundsError(entityValue, i, ColumnType.SHORT);
-                                }
-                                break;
-                            }
-                            case ColumnType.BYTE: {
-                                final long entityValue = ent.getLongValue();
-                                if (entityValue >= Byte.MIN_VALUE && entityValue <= Byte.MAX_VALUE) {
-                                    r.putByte(columnIndex, (byte) entityValue);
-                                } else if (entityValue == Numbers.LONG_NaN) {
-                                    r.putByte(columnIndex, (byte) 0);
-                                } else {
-                                    throw boundsError(entityValue, i, ColumnType.BYTE);
-                                }
-                                break;
-                            }
-                            case ColumnType.TIMESTAMP:
-                                r.putTimestamp(columnIndex, ent.getLongValue());
-                                break;
-
-                            case ColumnType.DATE:
-                                r.putDate(columnIndex, ent.getLongValue());
-                                break;
-
-                            case ColumnType.DOUBLE:
-                                r.putDouble(columnIndex, ent.getLongValue());
-                                break;
-
-                            case ColumnType.FLOAT:
-                                r.putFloat(columnIndex, ent.getLongValue());
-                                break;
-
-                            case ColumnType.SYMBOL:
-                                r.putSym(columnIndex, ent.getValue());
-                                break;
-
-                            default:
-                                throw castError("integer", i, colType, ent.getName());
-                        }
+                    case ColumnType.STRING:
+                        columnBlock.putStrColumn(columnIndex, block.getValueAddress(i), block.getDataAddress(i), block.hasNonAsciiChars(i));
                         break;
-                    }
-                    case LineTcpParser.ENTITY_TYPE_FLOAT: {
-                        switch (ColumnType.tagOf(colType)) {
-                            case ColumnType.DOUBLE:
-                                r.putDouble(columnIndex, ent.getFloatValue());
-                                break;
-
-                            case ColumnType.FLOAT:
-                                r.putFloat(columnIndex, (float) ent.getFloatValue());
-                                break;
-
-                            case ColumnType.SYMBOL:
-                                r.putSym(columnIndex, ent.getValue());
-                                break;
-
-                            default:
-                                throw castError("float", i, colType, ent.getName());
-                        }
-                        break;
-                    }
-                    case LineTcpParser.ENTITY_TYPE_STRING: {
-                        final int geoHashBits = ColumnType.getGeoHashBits(colType);
-                        final DirectByteCharSequence entityValue = ent.getValue();
-                        if (geoHashBits == 0) { // not geohash
-                            switch (ColumnType.tagOf(colType)) {
-                                case ColumnType.STRING:
-                                    r.putStrUtf8AsUtf16(columnIndex, entityValue, parser.hasNonAsciiChars());
-                                    break;
-
-                                case ColumnType.CHAR:
-                                    if (entityValue.length() == 1 && entityValue.byteAt(0) > -1) {
-                                        r.putChar(columnIndex, entityValue.charAt(0));
-                                    } else if (stringToCharCastAllowed) {
-                                        int encodedResult = Chars.utf8CharDecode(entityValue.getLo(), entityValue.getHi());
-                                        if (Numbers.decodeLowShort(encodedResult) > 0) {
-                                            r.putChar(columnIndex, (char) Numbers.decodeHighShort(encodedResult));
-                                        } else {
-                                            throw castError("string", i, colType, ent.getName());
-                                        }
-                                    } else {
-                                        throw castError("string", i, colType, ent.getName());
-                                    }
-                                    break;
-
-                                case ColumnType.SYMBOL:
-                                    r.putSymUtf8(columnIndex, entityValue, parser.hasNonAsciiChars());
-                                    break;
-                                case ColumnType.UUID:
-                                    r.putUuid(columnIndex, entityValue);
-                                    break;
-                                default:
-                                    throw castError("string", i, colType, ent.getName());
-                            }
-                        } else {
-                            long geoHash;
-                            try {
-                                DirectByteCharSequence value = ent.getValue();
-                                geoHash = GeoHashes.fromStringTruncatingNl(value.getLo(), value.getHi(), geoHashBits);
-                            } catch (NumericException e) {
-                                geoHash = GeoHashes.NULL;
-                            }
-                            r.putGeoHash(columnIndex, geoHash);
-                        }
-                        break;
-                    }
-                    case LineTcpParser.ENTITY_TYPE_LONG256: {
-                        switch (ColumnType.tagOf(colType)) {
-                            case ColumnType.LONG256:
-                                r.putLong256(columnIndex, ent.getValue());
-                                break;
-
-                            case ColumnType.SYMBOL:
-                                r.putSym(columnIndex, ent.getValue());
-                                break;
-
-                            default:
-                                throw castError("long256", i, colType, ent.getName());
-                        }
-                        break;
-                    }
-                    case LineTcpParser.ENTITY_TYPE_BOOLEAN: {
-                        switch (ColumnType.tagOf(colType)) {
-                            case ColumnType.BOOLEAN:
-                                r.putBool(columnIndex, ent.getBooleanValue());
-                                break;
-
-                            case ColumnType.BYTE:
-                                r.putByte(columnIndex, (byte) (ent.getBooleanValue() ? 1 : 0));
-                                break;
-
-                            case ColumnType.SHORT:
-                                r.putShort(columnIndex, (short) (ent.getBooleanValue() ? 1 : 0));
-                                break;
-
-                            case ColumnType.INT:
-                                r.putInt(columnIndex, ent.getBooleanValue() ? 1 : 0);
-                                break;
-
-                            case ColumnType.LONG:
-                                r.putLong(columnIndex, ent.getBooleanValue() ? 1 : 0);
-                                break;
-
-                            case ColumnType.FLOAT:
-                                r.putFloat(columnIndex, ent.getBooleanValue() ? 1 : 0);
-                                break;
-
-                            case ColumnType.DOUBLE:
-                                r.putDouble(columnIndex, ent.getBooleanValue() ? 1 : 0);
-                                break;
-
-                            case ColumnType.SYMBOL:
-                                r.putSym(columnIndex, ent.getValue());
-                                break;
-
-                            default:
-                                throw castError("boolean", i, colType, ent.getName());
-                        }
-                        break;
-                    }
-                    case LineTcpParser.ENTITY_TYPE_TIMESTAMP: {
-                        switch (ColumnType.tagOf(colType)) {
-                            case ColumnType.TIMESTAMP:
-                                r.putTimestamp(columnIndex, ent.getLongValue());
-                                break;
-
-                            case ColumnType.DATE:
-                                r.putTimestamp(columnIndex, ent.getLongValue() / 1000);
-                                break;
-
-                            case ColumnType.SYMBOL:
-                                r.putSym(columnIndex, ent.getValue());
-                                break;
-
-                            default:
-                                throw castError("timestamp", i, colType, ent.getName());
-                        }
-                        break;
-                    }
-                    // parser would reject this condition based on config
-                    case LineTcpParser.ENTITY_TYPE_SYMBOL: {
-                        if (ColumnType.tagOf(colType) == ColumnType.SYMBOL) {
-                            r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
-                        } else {
-                            throw castError("symbol", i, colType, ent.getName());
-                        }
-                        break;
-                    }
                     default:
-                        // unsupported types are ignored
+                        columnBlock.putFixedColumn(columnIndex, block.getValueAddress(i));
                         break;
                 }
             }
-            r.append();
+            columnBlock.append();
             tud.commitIfMaxUncommittedRowsCountReached();
         } catch (CommitFailedException commitFailedException) {
             throw commitFailedException;
         } catch (Throwable th) {
-            LOG.error().$("could not write line protocol measurement [tableName=").$(tud.getTableNameUtf16()).$(", message=").$(th.getMessage()).$(th).I$();
-            if (r != null) {
-                r.cancel();
-            }
+            LOG.error().$("could not write columnar line protocol block [tableName=").$(tud.getTableNameUtf16()).$(", message=").$(th.getMessage()).$(th).I$();
+            columnBlock.cancel();
         }
     }
 
@@ -671,11 +548,12 @@ public class LineTcpMeasurementScheduler implements Closeable {
 
     private TableUpdateDetails getTableUpdateDetailsFromSharedArea(
             @NotNull NetworkIOJob netIoJob,
-            @NotNull LineTcpConnectionContext ctx,
-            @NotNull LineTcpParser parser,
+            @NotNull TableUpdateDetailsCache ctx,
+            @NotNull DirectByteCharSequence tableNameUtf8,
+            @Nullable LineTcpParser parser,
+            @Nullable LineTcpColumnarParser block,
             CairoSecurityContext securityContext
     ) {
-        final DirectByteCharSequence tableNameUtf8 = parser.getMeasurementName();
         final StringSink tableNameUtf16 = tableNameSinks[netIoJob.getWorkerId()];
         tableNameUtf16.clear();
         Chars.utf8Decode(tableNameUtf8.getLo(), tableNameUtf8.getHi(), tableNameUtf16);
@@ -704,7 +582,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
                                 .put(']');
                     }
                     // validate that parser entities do not contain NULLs
-                    TableStructureAdapter tsa = tableStructureAdapter.of(tableNameUtf16, parser);
+                    TableStructureAdapter tsa = parser != null ? tableStructureAdapter.of(tableNameUtf16, parser) : tableStructureAdapter.of(tableNameUtf16, block);
                     for (int i = 0, n = tsa.getColumnCount(); i < n; i++) {
                         if (tsa.getColumnType(i) == LineTcpParser.ENTITY_TYPE_NULL) {
                             throw CairoException.nonCritical().put("unknown column type [columnName=").put(tsa.getColumnName(i)).put(']');
@@ -831,4 +709,9 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
         return seq;
     }
+
+    @FunctionalInterface
+    public interface NetworkIOJobFactory {
+        NetworkIOJob newInstance(LineTcpMeasurementScheduler scheduler, int workerId);
+    }
 }
@@ -30,6 +30,7 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.ObjList;
+import io.questdb.std.SwarUtils;
 import io.questdb.std.Unsafe;
 import io.questdb.std.str.DirectByteCharSequence;
 
@@ -66,6 +67,14 @@ public class LineTcpParser {
     private static final byte ENTITY_HANDLER_TIMESTAMP = 3;
     private static final byte ENTITY_HANDLER_VALUE = 2;
     private static final Log LOG = LogFactory.getLog(LineTcpParser.class);
+    private static final long SWAR_BACKSLASH = SwarUtils.broadcast((byte) '\\');
+    private static final long SWAR_COMMA = SwarUtils.broadcast((byte) ',');
+    private static final long SWAR_CR = SwarUtils.broadcast((byte) '\r');
+    private static final long SWAR_EQUALS = SwarUtils.broadcast((byte) '=');
+    private static final long SWAR_NEW_LINE = SwarUtils.broadcast((byte) '\n');
+    private static final long SWAR_QUOTE = SwarUtils.broadcast((byte) '"');
+    private static final long SWAR_SLASH = SwarUtils.broadcast((byte) '/');
+    private static final long SWAR_SPACE = SwarUtils.broadcast((byte) ' ');
     private static final boolean[] controlChars;
     private final DirectByteCharSequence charSeq = new DirectByteCharSequence();
     private final ObjList<ProtoEntity> entityCache = new ObjList<>();
@@ -159,9 +168,9 @@ public class LineTcpParser {
             byte b = Unsafe.getUnsafe().getByte(bufAt);
 
             if (nEscapedChars == 0 && b >= 0 && !controlChars[b]) {
-                // hot path
+                // hot path, skip the rest of the regular bytes a word at a time
                 nextValueCanBeOpenQuote = false;
-                bufAt++;
+                bufAt = skipRegularBytes(bufAt + 1, bufHi);
                 continue;
             }
 
@@ -169,7 +178,7 @@ public class LineTcpParser {
             hasNonAscii |= b < 0;
             boolean endOfLine = false;
             boolean appendByte = false;
-            // Important note: don't forget to update controlChars array when changing the following switch.
+            // Important note: don't forget to update controlChars array and controlCharMask() when changing the following switch.
             switch (b) {
                 case '\n':
                 case '\r':
@@ -492,6 +501,30 @@ public class LineTcpParser {
         entityLo = openQuoteIdx; // from the quote
         boolean copyByte;
         while (bufAt < bufHi) { // consume until the next quote, '\n', or eof
+            if (nEscapedChars == 0 && !scape) {
+                // nothing to shift yet, skip bytes that need no handling a word at a time
+                final long lo = bufAt;
+                while (bufAt + 7 < bufHi) {
+                    final long word = Unsafe.getUnsafe().getLong(bufAt);
+                    final long mask = SwarUtils.markByte(word, SWAR_BACKSLASH)
+                            | SwarUtils.markByte(word, SWAR_QUOTE)
+                            | SwarUtils.markByte(word, SWAR_NEW_LINE);
+                    if (mask != 0) {
+                        final int n = SwarUtils.indexOfFirstMarkedByte(mask);
+                        hasNonAscii |= (SwarUtils.markNonAscii(word) & ((1L << (n << 3)) - 1)) != 0;
+                        bufAt += n;
+                        break;
+                    }
+                    hasNonAscii |= SwarUtils.markNonAscii(word) != 0;
+                    bufAt += 8;
+                }
+                if (bufAt > lo) {
+                    nextValueCanBeOpenQuote = false;
+                    if (bufAt == bufHi) {
+                        break;
+                    }
+                }
+            }
             byte b = Unsafe.getUnsafe().getByte(bufAt);
             copyByte = true;
             hasNonAscii |= b < 0;
@@ -535,6 +568,33 @@ public class LineTcpParser {
         return false; // missing tail quote as the string extends past the max allowed size
     }
 
+    // marks bytes that cannot be skipped by the hot path of the parsing loop, see controlChars
+    private static long controlCharMask(long word) {
+        return SwarUtils.markNonAscii(word)
+                | SwarUtils.markZeroBytes(word)
+                | SwarUtils.markByte(word, SWAR_NEW_LINE)
+                | SwarUtils.markByte(word, SWAR_CR)
+                | SwarUtils.markByte(word, SWAR_EQUALS)
+                | SwarUtils.markByte(word, SWAR_COMMA)
+                | SwarUtils.markByte(word, SWAR_SPACE)
+                | SwarUtils.markByte(word, SWAR_BACKSLASH)
+                | SwarUtils.markByte(word, SWAR_QUOTE)
+                | SwarUtils.markByte(word, SWAR_SLASH);
+    }
+
+    // returns address of the first byte that is either a control char or a non-ASCII byte,
+    // the tail shorter than a word is left to the byte-by-byte loop
+    private static long skipRegularBytes(long lo, long hi) {
+        while (lo + 7 < hi) {
+            final long mask = controlCharMask(Unsafe.getUnsafe().getLong(lo));
+            if (mask != 0) {
+                return lo + SwarUtils.indexOfFirstMarkedByte(mask);
+            }
+            lo += 8;
+        }
+        return lo;
+    }
+
     public enum ErrorCode {
         EMPTY_LINE,
         NO_FIELDS,
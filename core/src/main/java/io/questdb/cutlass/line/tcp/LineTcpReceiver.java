@@ -70,7 +70,7 @@ public class LineTcpReceiver implements Closeable {
                 configuration.getDispatcherConfiguration(),
                 contextFactory
         );
-        ioWorkerPool.assign(dispatcher);
+        IODispatchers.assign(ioWorkerPool, dispatcher);
         this.scheduler = new LineTcpMeasurementScheduler(configuration, engine, ioWorkerPool, dispatcher, writerWorkerPool);
 
         for (int i = 0, n = ioWorkerPool.getWorkerCount(); i < n; i++) {
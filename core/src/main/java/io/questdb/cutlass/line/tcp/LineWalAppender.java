@@ -0,0 +1,377 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cairo.wal.WalWriter;
+import io.questdb.cutlass.line.LineProtoTimestampAdapter;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.NumericException;
+import io.questdb.std.Numbers;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.DirectByteCharSequence;
+
+import static io.questdb.cutlass.line.tcp.LineTcpMeasurementEvent.*;
+import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.COLUMN_NOT_FOUND;
+import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.DUPLICATED_COLUMN;
+
+/**
+ * Writes line protocol measurements directly to WAL writers from the thread that
+ * parsed them. Used by TCP network IO threads for WAL tables and by ILP over HTTP.
+ */
+public class LineWalAppender {
+    private static final Log LOG = LogFactory.getLog(LineWalAppender.class);
+    private final boolean autoCreateNewColumns;
+    private final int maxFileNameLength;
+    private final MicrosecondClock microsecondClock;
+    private final boolean stringToCharCastAllowed;
+    private final LineProtoTimestampAdapter timestampAdapter;
+
+    public LineWalAppender(LineTcpReceiverConfiguration configuration, CairoConfiguration cairoConfiguration) {
+        this.autoCreateNewColumns = configuration.getAutoCreateNewColumns();
+        this.maxFileNameLength = cairoConfiguration.getMaxFileNameLength();
+        this.microsecondClock = configuration.getMicrosecondClock();
+        this.stringToCharCastAllowed = configuration.isStringToCharCastAllowed();
+        this.timestampAdapter = configuration.getTimestampAdapter();
+    }
+
+    /**
+     * Appends parsed measurement to the WAL writer of the table as a single row. New columns
+     * are added to the table first, when allowed. Rows with values that cannot be cast to
+     * column types are logged and skipped.
+     *
+     * @param securityContext security context of the connection
+     * @param parser          parser positioned on a complete measurement
+     * @param tud             details of WAL table the measurement is written to
+     * @param workerId        index of thread local details of the table to use
+     * @throws CommitFailedException when commit triggered by max uncommitted rows fails
+     */
+    public void appendToWal(CairoSecurityContext securityContext, LineTcpParser parser, TableUpdateDetails tud, int workerId) throws CommitFailedException {
+        // pass 1: create all columns that do not exist
+        final TableUpdateDetails.ThreadLocalDetails ld = tud.getThreadLocalDetails(workerId);
+        ld.resetStateIfNecessary(securityContext);
+        ld.clearColumnTypes();
+
+        WalWriter ww = (WalWriter) tud.getWriter();
+        TableRecordMetadata metadata = ww.getMetadata();
+
+        long timestamp = parser.getTimestamp();
+        if (timestamp != LineTcpParser.NULL_TIMESTAMP) {
+            timestamp = timestampAdapter.getMicros(timestamp);
+        } else {
+            timestamp = microsecondClock.getTicks();
+        }
+
+        final int entCount = parser.getEntityCount();
+        for (int i = 0; i < entCount; i++) {
+            final LineTcpParser.ProtoEntity ent = parser.getEntity(i);
+            int columnIndex = ld.getColumnIndex(ent.getName(), parser.hasNonAsciiChars(), metadata);
+            int columnType = ColumnType.UNDEFINED;
+            if (columnIndex == COLUMN_NOT_FOUND) {
+                final String columnNameUtf16 = ld.getColNameUtf16();
+                if (autoCreateNewColumns && TableUtils.isValidColumnName(columnNameUtf16, maxFileNameLength)) {
+                    if (metadata.getColumnIndexQuiet(columnNameUtf16) < 0) {
+                        tud.commit(false);
+                        try {
+                            ww.addColumn(columnNameUtf16, ld.getColumnType(ld.getColNameUtf8(), ent.getType()));
+                        } catch (CairoException e) {
+                            columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
+                            if (columnIndex < 0) {
+                                // the column is still not there, something must be wrong
+                                throw e;
+                            }
+                            // all good, someone added the column concurrently
+                        }
+                    }
+                    columnIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
+                    columnType = metadata.getColumnType(columnIndex);
+                } else if (!autoCreateNewColumns) {
+                    throw newColumnsNotAllowed(tud, columnNameUtf16);
+                } else {
+                    throw invalidColNameError(tud, columnNameUtf16);
+                }
+            } else if (columnIndex > -1) {
+                if (columnIndex == tud.getTimestampIndex()) {
+                    timestamp = timestampAdapter.getMicros(ent.getLongValue());
+                    columnIndex = DUPLICATED_COLUMN;
+                }
+                columnType = columnIndex < 0 ? ColumnType.UNDEFINED : metadata.getColumnType(columnIndex);
+            }
+            ld.addColumnType(columnIndex, columnType);
+        }
+
+        TableWriter.Row r = ww.newRow(timestamp);
+        try {
+            for (int i = 0; i < entCount; i++) {
+                final LineTcpParser.ProtoEntity ent = parser.getEntity(i);
+
+                short entType = ent.getType();
+                int colTypeAndIndex = ld.getColumnType(i);
+                int colType = Numbers.decodeLowShort(colTypeAndIndex);
+                int columnIndex = Numbers.decodeHighShort(colTypeAndIndex);
+
+                if (columnIndex < 0) {
+                    continue;
+                }
+
+                switch (entType) {
+                    case LineTcpParser.ENTITY_TYPE_TAG: {
+                        if (ColumnType.tagOf(colType) == ColumnType.SYMBOL) {
+                            r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
+                        } else {
+                            throw castError("tag", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    case LineTcpParser.ENTITY_TYPE_INTEGER: {
+                        switch (ColumnType.tagOf(colType)) {
+                            case ColumnType.LONG:
+                                r.putLong(columnIndex, ent.getLongValue());
+                                break;
+
+                            case ColumnType.INT: {
+                                final long entityValue = ent.getLongValue();
+                                if (entityValue >= Integer.MIN_VALUE && entityValue <= Integer.MAX_VALUE) {
+                                    r.putInt(columnIndex, (int) entityValue);
+                                } else if (entityValue == Numbers.LONG_NaN) {
+                                    r.putInt(columnIndex, Numbers.INT_NaN);
+                                } else {
+                                    throw boundsError(entityValue, i, ColumnType.INT);
+                                }
+                                break;
+                            }
+                            case ColumnType.SHORT: {
+                                final long entityValue = ent.getLongValue();
+                                if (entityValue >= Short.MIN_VALUE && entityValue <= Short.MAX_VALUE) {
+                                    r.putShort(columnIndex, (short) entityValue);
+                                } else if (entityValue == Numbers.LONG_NaN) {
+                                    r.putShort(columnIndex, (short) 0);
+                                } else {
+                                    throw boundsError(entityValue, i, ColumnType.SHORT);
+                                }
+                                break;
+                            }
+                            case ColumnType.BYTE: {
+                                final long entityValue = ent.getLongValue();
+                                if (entityValue >= Byte.MIN_VALUE && entityValue <= Byte.MAX_VALUE) {
+                                    r.putByte(columnIndex, (byte) entityValue);
+                                } else if (entityValue == Numbers.LONG_NaN) {
+                                    r.putByte(columnIndex, (byte) 0);
+                                } else {
+                                    throw boundsError(entityValue, i, ColumnType.BYTE);
+                                }
+                                break;
+                            }
+                            case ColumnType.TIMESTAMP:
+                                r.putTimestamp(columnIndex, ent.getLongValue());
+                                break;
+
+                            case ColumnType.DATE:
+                                r.putDate(columnIndex, ent.getLongValue());
+                                break;
+
+                            case ColumnType.DOUBLE:
+                                r.putDouble(columnIndex, ent.getLongValue());
+                                break;
+
+                            case ColumnType.FLOAT:
+                                r.putFloat(columnIndex, ent.getLongValue());
+                                break;
+
+                            case ColumnType.SYMBOL:
+                                r.putSym(columnIndex, ent.getValue());
+                                break;
+
+                            default:
+                                throw castError("integer", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    case LineTcpParser.ENTITY_TYPE_FLOAT: {
+                        switch (ColumnType.tagOf(colType)) {
+                            case ColumnType.DOUBLE:
+                                r.putDouble(columnIndex, ent.getFloatValue());
+                                break;
+
+                            case ColumnType.FLOAT:
+                                r.putFloat(columnIndex, (float) ent.getFloatValue());
+                                break;
+
+                            case ColumnType.SYMBOL:
+                                r.putSym(columnIndex, ent.getValue());
+                                break;
+
+                            default:
+                                throw castError("float", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    case LineTcpParser.ENTITY_TYPE_STRING: {
+                        final int geoHashBits = ColumnType.getGeoHashBits(colType);
+                        final DirectByteCharSequence entityValue = ent.getValue();
+                        if (geoHashBits == 0) { // not geohash
+                            switch (ColumnType.tagOf(colType)) {
+                                case ColumnType.STRING:
+                                    r.putStrUtf8AsUtf16(columnIndex, entityValue, parser.hasNonAsciiChars());
+                                    break;
+
+                                case ColumnType.CHAR:
+                                    if (entityValue.length() == 1 && entityValue.byteAt(0) > -1) {
+                                        r.putChar(columnIndex, entityValue.charAt(0));
+                                    } else if (stringToCharCastAllowed) {
+                                        int encodedResult = Chars.utf8CharDecode(entityValue.getLo(), entityValue.getHi());
+                                        if (Numbers.decodeLowShort(encodedResult) > 0) {
+                                            r.putChar(columnIndex, (char) Numbers.decodeHighShort(encodedResult));
+                                        } else {
+                                            throw castError("string", i, colType, ent.getName());
+                                        }
+                                    } else {
+                                        throw castError("string", i, colType, ent.getName());
+                                    }
+                                    break;
+
+                                case ColumnType.SYMBOL:
+                                    r.putSymUtf8(columnIndex, entityValue, parser.hasNonAsciiChars());
+                                    break;
+                                case ColumnType.UUID:
+                                    r.putUuid(columnIndex, entityValue);
+                                    break;
+                                default:
+                                    throw castError("string", i, colType, ent.getName());
+                            }
+                        } else {
+                            long geoHash;
+                            try {
+                                DirectByteCharSequence value = ent.getValue();
+                                geoHash = GeoHashes.fromStringTruncatingNl(value.getLo(), value.getHi(), geoHashBits);
+                            } catch (NumericException e) {
+                                geoHash = GeoHashes.NULL;
+                            }
+                            r.putGeoHash(columnIndex, geoHash);
+                        }
+                        break;
+                    }
+                    case LineTcpParser.ENTITY_TYPE_LONG256: {
+                        switch (ColumnType.tagOf(colType)) {
+                            case ColumnType.LONG256:
+                                r.putLong256(columnIndex, ent.getValue());
+                                break;
+
+                            case ColumnType.SYMBOL:
+                                r.putSym(columnIndex, ent.getValue());
+                                break;
+
+                            default:
+                                throw castError("long256", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    case LineTcpParser.ENTITY_TYPE_BOOLEAN: {
+                        switch (ColumnType.tagOf(colType)) {
+                            case ColumnType.BOOLEAN:
+                                r.putBool(columnIndex, ent.getBooleanValue());
+                                break;
+
+                            case ColumnType.BYTE:
+                                r.putByte(columnIndex, (byte) (ent.getBooleanValue() ? 1 : 0));
+                                break;
+
+                            case ColumnType.SHORT:
+                                r.putShort(columnIndex, (short) (ent.getBooleanValue() ? 1 : 0));
+                                break;
+
+                            case ColumnType.INT:
+                                r.putInt(columnIndex, ent.getBooleanValue() ? 1 : 0);
+                                break;
+
+                            case ColumnType.LONG:
+                                r.putLong(columnIndex, ent.getBooleanValue() ? 1 : 0);
+                                break;
+
+                            case ColumnType.FLOAT:
+                                r.putFloat(columnIndex, ent.getBooleanValue() ? 1 : 0);
+                                break;
+
+                            case ColumnType.DOUBLE:
+                                r.putDouble(columnIndex, ent.getBooleanValue() ? 1 : 0);
+                                break;
+
+                            case ColumnType.SYMBOL:
+                                r.putSym(columnIndex, ent.getValue());
+                                break;
+
+                            default:
+                                throw castError("boolean", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    case LineTcpParser.ENTITY_TYPE_TIMESTAMP: {
+                        switch (ColumnType.tagOf(colType)) {
+                            case ColumnType.TIMESTAMP:
+                                r.putTimestamp(columnIndex, ent.getLongValue());
+                                break;
+
+                            case ColumnType.DATE:
+                                r.putTimestamp(columnIndex, ent.getLongValue() / 1000);
+                                break;
+
+                            case ColumnType.SYMBOL:
+                                r.putSym(columnIndex, ent.getValue());
+                                break;
+
+                            default:
+                                throw castError("timestamp", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    // parser would reject this condition based on config
+                    case LineTcpParser.ENTITY_TYPE_SYMBOL: {
+                        if (ColumnType.tagOf(colType) == ColumnType.SYMBOL) {
+                            r.putSymUtf8(columnIndex, ent.getValue(), parser.hasNonAsciiChars());
+                        } else {
+                            throw castError("symbol", i, colType, ent.getName());
+                        }
+                        break;
+                    }
+                    default:
+                        // unsupported types are ignored
+                        break;
+                }
+            }
+            r.append();
+            tud.commitIfMaxUncommittedRowsCountReached();
+        } catch (CommitFailedException commitFailedException) {
+            throw commitFailedException;
+        } catch (Throwable th) {
+            LOG.error().$("could not write line protocol measurement [tableName=").$(tud.getTableNameUtf16()).$(", message=").$(th.getMessage()).$(th).I$();
+            if (r != null) {
+                r.cancel();
+            }
+        }
+    }
+}
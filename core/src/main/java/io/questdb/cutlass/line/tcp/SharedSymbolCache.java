@@ -0,0 +1,224 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+
+import java.io.Closeable;
+
+/**
+ * Off-heap map of UTF-8 encoded symbol values to their keys, shared by all threads
+ * writing into the same symbol column.
+ * <p>
+ * Lookups are lock-free: the hash table is probed directly with the UTF-8 bytes of the
+ * value, without decoding or copying them. Insertions are serialised by the monitor of
+ * the cache. New entries are published with an ordered store of their slot, after the
+ * value bytes have been written. Growing the table publishes a new copy. The old copy
+ * stays readable until the cache is closed, because concurrent readers may still probe it.
+ * <p>
+ * The number of cached values is bounded. Once the bound is reached, new values are not
+ * cached and must be resolved by the caller, e.g. via the symbol map reader.
+ * <p>
+ * Slot layout: the high 32 bits hold the hash of the value and the low 32 bits hold the
+ * offset of the value record plus one, so that 0 marks an empty slot. A value record is
+ * [int key][int length][bytes].
+ */
+public class SharedSymbolCache implements Closeable, DirectByteSymbolLookup {
+    private static final int AVG_VALUE_SIZE = 16;
+    private static final long MAX_ARENA_SIZE = Integer.MAX_VALUE;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private final int initialCapacity;
+    private final int maxSize;
+    private final ObjList<Table> retiredTables = new ObjList<>();
+    private long columnNameTxn;
+    private volatile Table table;
+
+    public SharedSymbolCache(int initialCapacity, int maxSize) {
+        this.initialCapacity = Numbers.ceilPow2(Math.max(initialCapacity, 2));
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Releases all native memory and resets the cache to empty state. Must not
+     * be called while other threads may still use the cache.
+     */
+    @Override
+    public synchronized void close() {
+        table = Misc.free(table);
+        Misc.freeObjListAndClear(retiredTables);
+    }
+
+    public int capacity() {
+        final Table t = table;
+        return t != null ? t.capacity() : initialCapacity;
+    }
+
+    public long getColumnNameTxn() {
+        return columnNameTxn;
+    }
+
+    @Override
+    public int keyOf(DirectByteCharSequence value) {
+        final Table t = table;
+        if (t != null) {
+            final long lo = value.getLo();
+            final int len = value.length();
+            return t.keyOf(lo, len, Hash.hashMem32(lo, len));
+        }
+        return SymbolTable.VALUE_NOT_FOUND;
+    }
+
+    public SharedSymbolCache of(long columnNameTxn) {
+        this.columnNameTxn = columnNameTxn;
+        return this;
+    }
+
+    /**
+     * Caches symbol key of the given value. The key must be a committed symbol key,
+     * i.e. it must remain valid for all writers of the column.
+     *
+     * @return false if the value was not cached because the cache is full
+     */
+    public synchronized boolean put(DirectByteCharSequence value, int key) {
+        final long lo = value.getLo();
+        final int len = value.length();
+        final int hash = Hash.hashMem32(lo, len);
+        Table t = table;
+        if (t == null) {
+            t = table = new Table(initialCapacity, (long) initialCapacity * AVG_VALUE_SIZE);
+        } else if (t.keyOf(lo, len, hash) != SymbolTable.VALUE_NOT_FOUND) {
+            // another thread got here first
+            return true;
+        }
+
+        if (t.size >= maxSize) {
+            return false;
+        }
+
+        final long recordSize = RECORD_HEADER_SIZE + len;
+        if ((t.size + 1) << 1 > t.capacity() || t.arenaPos + recordSize > t.arenaSize) {
+            final int newCapacity = (t.size + 1) << 1 > t.capacity() ? t.capacity() << 1 : t.capacity();
+            final long newArenaSize = Math.max(t.arenaSize << 1, t.arenaPos + recordSize);
+            if (newArenaSize > MAX_ARENA_SIZE) {
+                return false;
+            }
+            final Table grown = new Table(newCapacity, newArenaSize);
+            grown.copyFrom(t);
+            // readers may still hold the old table
+            retiredTables.add(t);
+            t = table = grown;
+        }
+        t.insert(lo, len, hash, key);
+        return true;
+    }
+
+    public int size() {
+        final Table t = table;
+        return t != null ? t.size : 0;
+    }
+
+    private static class Table implements Closeable {
+        private final long arenaAddr;
+        private final long arenaSize;
+        private final int mask;
+        private final long slotsAddr;
+        private long arenaPos;
+        private int size;
+
+        private Table(int capacity, long arenaSize) {
+            final long slotsSize = (long) capacity * Long.BYTES;
+            this.slotsAddr = Unsafe.calloc(slotsSize, MemoryTag.NATIVE_ILP_RSS);
+            try {
+                this.arenaAddr = Unsafe.malloc(arenaSize, MemoryTag.NATIVE_ILP_RSS);
+            } catch (Throwable th) {
+                Unsafe.free(slotsAddr, slotsSize, MemoryTag.NATIVE_ILP_RSS);
+                throw th;
+            }
+            this.arenaSize = arenaSize;
+            this.mask = capacity - 1;
+        }
+
+        @Override
+        public void close() {
+            Unsafe.free(slotsAddr, (long) capacity() * Long.BYTES, MemoryTag.NATIVE_ILP_RSS);
+            Unsafe.free(arenaAddr, arenaSize, MemoryTag.NATIVE_ILP_RSS);
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+
+        private void copyFrom(Table other) {
+            for (int i = 0, n = other.capacity(); i < n; i++) {
+                final long slot = Unsafe.getUnsafe().getLong(other.slotsAddr + ((long) i << 3));
+                if (slot != 0) {
+                    final long record = other.arenaAddr + (slot & 0xffffffffL) - 1;
+                    insert(
+                            record + RECORD_HEADER_SIZE,
+                            Unsafe.getUnsafe().getInt(record + Integer.BYTES),
+                            (int) (slot >>> 32),
+                            Unsafe.getUnsafe().getInt(record)
+                    );
+                }
+            }
+        }
+
+        private void insert(long lo, int len, int hash, int key) {
+            final long record = arenaAddr + arenaPos;
+            Unsafe.getUnsafe().putInt(record, key);
+            Unsafe.getUnsafe().putInt(record + Integer.BYTES, len);
+            Vect.memcpy(record + RECORD_HEADER_SIZE, lo, len);
+
+            long index = hash & mask;
+            while (Unsafe.getUnsafe().getLong(slotsAddr + (index << 3)) != 0) {
+                index = (index + 1) & mask;
+            }
+            // the record has to be visible before the slot
+            Unsafe.getUnsafe().putOrderedLong(null, slotsAddr + (index << 3), ((long) hash << 32) | (arenaPos + 1));
+            arenaPos += RECORD_HEADER_SIZE + len;
+            size++;
+        }
+
+        private int keyOf(long lo, int len, int hash) {
+            long index = hash & mask;
+            while (true) {
+                final long slot = Unsafe.getUnsafe().getLongVolatile(null, slotsAddr + (index << 3));
+                if (slot == 0) {
+                    return SymbolTable.VALUE_NOT_FOUND;
+                }
+                if ((int) (slot >>> 32) == hash) {
+                    final long record = arenaAddr + (slot & 0xffffffffL) - 1;
+                    if (Unsafe.getUnsafe().getInt(record + Integer.BYTES) == len && Vect.memeq(record + RECORD_HEADER_SIZE, lo, len)) {
+                        return Unsafe.getUnsafe().getInt(record);
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+        }
+    }
+}
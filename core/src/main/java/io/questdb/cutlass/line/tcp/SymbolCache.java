@@ -29,10 +29,8 @@ import io.questdb.cairo.SymbolMapReaderImpl;
 import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.TxReader;
 import io.questdb.cairo.sql.SymbolTable;
-import io.questdb.std.ByteCharSequenceIntHashMap;
 import io.questdb.std.Unsafe;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
-import io.questdb.std.str.ByteCharSequence;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
@@ -46,17 +44,18 @@ import static io.questdb.std.Chars.utf8ToUtf16Unchecked;
  * This cache is optimized for ASCII and UTF8 DirectByteCharSequence lookups. Lookups of UTF16
  * strings (j.l.String) with non-ASCII chars will not work correctly, so make sure to re-encode
  * the string in UTF8.
+ * <p>
+ * Resolved keys are kept in a {@link SharedSymbolCache}. The cache is either shared by all
+ * threads writing to the column or, when none is supplied, owned by this instance.
  */
 public class SymbolCache implements Closeable, DirectByteSymbolLookup {
+    static final int INITIAL_CAPACITY = 256;
     private final MicrosecondClock clock;
+    private final SharedSymbolCache ownCache;
     private final SymbolMapReaderImpl symbolMapReader = new SymbolMapReaderImpl();
-    private final ByteCharSequenceIntHashMap symbolValueToKeyMap = new ByteCharSequenceIntHashMap(
-            256,
-            0.5,
-            SymbolTable.VALUE_NOT_FOUND
-    );
     private final StringSink tempSink = new StringSink();
     private final long waitUsBeforeReload;
+    private SharedSymbolCache cache;
     private int columnIndex;
     private long lastSymbolReaderReloadTimestamp;
     private int symbolIndexInTxFile;
@@ -66,6 +65,8 @@ public class SymbolCache implements Closeable, DirectByteSymbolLookup {
     public SymbolCache(LineTcpReceiverConfiguration configuration) {
         this.clock = configuration.getMicrosecondClock();
         this.waitUsBeforeReload = configuration.getSymbolCacheWaitUsBeforeReload();
+        this.ownCache = new SharedSymbolCache(INITIAL_CAPACITY, configuration.getSymbolCacheMaxSize());
+        this.cache = ownCache;
     }
 
     @Override
@@ -73,22 +74,23 @@ public class SymbolCache implements Closeable, DirectByteSymbolLookup {
         txReader = null;
         writerAPI = null;
         symbolMapReader.close();
-        symbolValueToKeyMap.reset();
+        ownCache.close();
+        cache = ownCache;
     }
 
     public int getCacheCapacity() {
-        return symbolValueToKeyMap.capacity();
+        return cache.capacity();
     }
 
     public int getCacheValueCount() {
-        return symbolValueToKeyMap.size();
+        return cache.size();
     }
 
     @Override
     public int keyOf(DirectByteCharSequence value) {
-        final int index = symbolValueToKeyMap.keyIndex(value);
-        if (index < 0) {
-            return symbolValueToKeyMap.valueAt(index);
+        final int key = cache.keyOf(value);
+        if (key != SymbolTable.VALUE_NOT_FOUND) {
+            return key;
         }
 
         final long ticks = clock.getTicks();
@@ -106,7 +108,7 @@ public class SymbolCache implements Closeable, DirectByteSymbolLookup {
         final int symbolKey = symbolMapReader.keyOf(tempSink);
 
         if (symbolKey != SymbolTable.VALUE_NOT_FOUND) {
-            symbolValueToKeyMap.putAt(index, ByteCharSequence.newInstance(value), symbolKey);
+            cache.put(value, symbolKey);
         }
 
         return symbolKey;
@@ -121,6 +123,20 @@ public class SymbolCache implements Closeable, DirectByteSymbolLookup {
             int symbolIndexInTxFile,
             TxReader txReader,
             long columnNameTxn
+    ) {
+        of(configuration, writerAPI, columnIndex, path, columnName, symbolIndexInTxFile, txReader, columnNameTxn, null);
+    }
+
+    public void of(
+            CairoConfiguration configuration,
+            TableWriterAPI writerAPI,
+            int columnIndex,
+            Path path,
+            CharSequence columnName,
+            int symbolIndexInTxFile,
+            TxReader txReader,
+            long columnNameTxn,
+            SharedSymbolCache sharedCache
     ) {
         this.writerAPI = writerAPI;
         this.columnIndex = columnIndex;
@@ -130,7 +146,8 @@ public class SymbolCache implements Closeable, DirectByteSymbolLookup {
         int symCount = readSymbolCount(symbolIndexInTxFile, false);
         path.trimTo(plen);
         symbolMapReader.of(configuration, path, columnName, columnNameTxn, symCount);
-        symbolValueToKeyMap.clear();
+        ownCache.close();
+        this.cache = sharedCache != null ? sharedCache : ownCache;
     }
 
     private int readSymbolCount(int symbolIndexInTxFile, boolean initialStateOk) {
@@ -42,18 +42,28 @@ class TableStructureAdapter implements TableStructure {
     private final int defaultPartitionBy;
     private final ObjList<LineTcpParser.ProtoEntity> entities = new ObjList<>();
     private final LowerCaseCharSequenceHashSet entityNamesUtf16 = new LowerCaseCharSequenceHashSet();
+    private final boolean walOnly;
+    private LineTcpColumnarParser block;
     private CharSequence tableName;
     private int timestampIndex = -1;
 
     public TableStructureAdapter(CairoConfiguration configuration, DefaultColumnTypes defaultColumnTypes, int defaultPartitionBy) {
+        this(configuration, defaultColumnTypes, defaultPartitionBy, false);
+    }
+
+    /**
+     * @param walOnly when true partitioned tables are created as WAL tables regardless of the configured default
+     */
+    public TableStructureAdapter(CairoConfiguration configuration, DefaultColumnTypes defaultColumnTypes, int defaultPartitionBy, boolean walOnly) {
         this.cairoConfiguration = configuration;
         this.defaultColumnTypes = defaultColumnTypes;
         this.defaultPartitionBy = defaultPartitionBy;
+        this.walOnly = walOnly;
     }
 
     @Override
     public int getColumnCount() {
-        final int size = entities.size();
+        final int size = getBlockOrEntityCount();
         return timestampIndex == -1 ? size + 1 : size;
     }
 
@@ -63,7 +73,7 @@ class TableStructureAdapter implements TableStructure {
         if (columnIndex == getTimestampIndex()) {
             return DEFAULT_TIMESTAMP_FIELD;
         }
-        CharSequence colName = entities.get(columnIndex).getName().toString();
+        CharSequence colName = block != null ? block.getColumnNameUtf16(columnIndex).toString() : entities.get(columnIndex).getName().toString();
         if (TableUtils.isValidColumnName(colName, cairoConfiguration.getMaxFileNameLength())) {
             return colName;
         }
@@ -75,6 +85,9 @@ class TableStructureAdapter implements TableStructure {
         if (columnIndex == getTimestampIndex()) {
             return ColumnType.TIMESTAMP;
         }
+        if (block != null) {
+            return block.getColumnType(columnIndex);
+        }
         return defaultColumnTypes.DEFAULT_COLUMN_TYPES[entities.get(columnIndex).getType()];
     }
 
@@ -115,7 +128,7 @@ class TableStructureAdapter implements TableStructure {
 
     @Override
     public int getTimestampIndex() {
-        return timestampIndex == -1 ? entities.size() : timestampIndex;
+        return timestampIndex == -1 ? getBlockOrEntityCount() : timestampIndex;
     }
 
     @Override
@@ -130,11 +143,25 @@ class TableStructureAdapter implements TableStructure {
 
     @Override
     public boolean isWalEnabled() {
-        return cairoConfiguration.getWalEnabledDefault() && PartitionBy.isPartitioned(getPartitionBy());
+        return (walOnly || cairoConfiguration.getWalEnabledDefault()) && PartitionBy.isPartitioned(getPartitionBy());
+    }
+
+    private int getBlockOrEntityCount() {
+        return block != null ? block.getColumnCount() : entities.size();
+    }
+
+    TableStructureAdapter of(CharSequence tableName, LineTcpColumnarParser block) {
+        this.tableName = tableName;
+        this.block = block;
+        entities.clear();
+        // designated timestamp is always sent separately from the block columns
+        timestampIndex = -1;
+        return this;
     }
 
     TableStructureAdapter of(CharSequence tableName, LineTcpParser parser) {
         this.tableName = tableName;
+        this.block = null;
         entityNamesUtf16.clear();
         entities.clear();
         timestampIndex = -1;
@@ -54,6 +54,11 @@ public class TableUpdateDetails implements Closeable {
     private final CairoEngine engine;
     private final ThreadLocalDetails[] localDetailsArray;
     private final MillisecondClock millisecondClock;
+    // symbol caches of dropped and re-created columns, they may still be in use by other threads
+    private final ObjList<SharedSymbolCache> retiredSymbolCaches = new ObjList<>();
+    // symbol key caches shared by network IO threads, indexed by column writer index
+    private final ObjList<SharedSymbolCache> sharedSymbolCaches = new ObjList<>();
+    private final int symbolCacheMaxSize;
     private final ByteCharSequence tableNameUtf8;
     private final TableToken tableToken;
     private final int timestampIndex;
@@ -78,11 +83,40 @@ public class TableUpdateDetails implements Closeable {
             NetworkIOJob[] netIoJobs,
             DefaultColumnTypes defaultColumnTypes,
             ByteCharSequence tableNameUtf8
+    ) {
+        this(configuration, engine, writer, writerThreadId, defaultColumnTypes, tableNameUtf8, unusedSymbolCachesOf(netIoJobs));
+    }
+
+    /**
+     * Creates details of a table written by a single thread, which uses thread local details with index 0.
+     *
+     * @param unusedSymbolCaches pool of symbol caches owned by the thread
+     */
+    public TableUpdateDetails(
+            LineTcpReceiverConfiguration configuration,
+            CairoEngine engine,
+            TableWriterAPI writer,
+            int writerThreadId,
+            ObjList<SymbolCache> unusedSymbolCaches,
+            DefaultColumnTypes defaultColumnTypes,
+            ByteCharSequence tableNameUtf8
+    ) {
+        this(configuration, engine, writer, writerThreadId, defaultColumnTypes, tableNameUtf8, singleton(unusedSymbolCaches));
+    }
+
+    private TableUpdateDetails(
+            LineTcpReceiverConfiguration configuration,
+            CairoEngine engine,
+            TableWriterAPI writer,
+            int writerThreadId,
+            DefaultColumnTypes defaultColumnTypes,
+            ByteCharSequence tableNameUtf8,
+            ObjList<ObjList<SymbolCache>> unusedSymbolCaches
     ) {
         this.writerThreadId = writerThreadId;
         this.engine = engine;
         this.defaultColumnTypes = defaultColumnTypes;
-        final int n = netIoJobs.length;
+        final int n = unusedSymbolCaches.size();
         CairoConfiguration cairoConfiguration = engine.getConfiguration();
         this.millisecondClock = cairoConfiguration.getMillisecondClock();
         this.writerTickRowsCountMod = cairoConfiguration.getWriterTickRowsCountMod();
@@ -98,6 +132,7 @@ public class TableUpdateDetails implements Closeable {
         }
 
         this.commitInterval = configuration.getCommitInterval();
+        this.symbolCacheMaxSize = configuration.getSymbolCacheMaxSize();
         this.nextCommitTime = millisecondClock.getTicks() + commitInterval;
 
         this.localDetailsArray = new ThreadLocalDetails[n];
@@ -105,7 +140,7 @@ public class TableUpdateDetails implements Closeable {
             //noinspection resource
             this.localDetailsArray[i] = new ThreadLocalDetails(
                     configuration,
-                    netIoJobs[i].getUnusedSymbolCaches(),
+                    unusedSymbolCaches.getQuick(i),
                     writer.getMetadata().getColumnCount()
             );
         }
@@ -135,6 +170,10 @@ public class TableUpdateDetails implements Closeable {
             LOG.info().$("closing table parsers [tableName=").$(tableToken).$(']').$();
             localDetailsArray[n] = Misc.free(localDetailsArray[n]);
         }
+        synchronized (sharedSymbolCaches) {
+            Misc.freeObjListAndClear(sharedSymbolCaches);
+            Misc.freeObjListAndClear(retiredSymbolCaches);
+        }
     }
 
     public void closeNoLock() {
@@ -258,6 +297,20 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    private static ObjList<ObjList<SymbolCache>> singleton(ObjList<SymbolCache> unusedSymbolCaches) {
+        final ObjList<ObjList<SymbolCache>> result = new ObjList<>(1);
+        result.add(unusedSymbolCaches);
+        return result;
+    }
+
+    private static ObjList<ObjList<SymbolCache>> unusedSymbolCachesOf(NetworkIOJob[] netIoJobs) {
+        final ObjList<ObjList<SymbolCache>> result = new ObjList<>(netIoJobs.length);
+        for (int i = 0, n = netIoJobs.length; i < n; i++) {
+            result.add(netIoJobs[i].getUnusedSymbolCaches());
+        }
+        return result;
+    }
+
     private long getMetaMaxUncommittedRows() {
         if (metadataService != null) {
             return metadataService.getMetaMaxUncommittedRows();
@@ -319,6 +372,21 @@ public class TableUpdateDetails implements Closeable {
         tick();
     }
 
+    SharedSymbolCache getSharedSymbolCache(int colWriterIndex, long columnNameTxn) {
+        synchronized (sharedSymbolCaches) {
+            SharedSymbolCache cache = sharedSymbolCaches.getQuiet(colWriterIndex);
+            if (cache != null) {
+                if (cache.getColumnNameTxn() == columnNameTxn) {
+                    return cache;
+                }
+                retiredSymbolCaches.add(cache);
+            }
+            cache = new SharedSymbolCache(SymbolCache.INITIAL_CAPACITY, symbolCacheMaxSize).of(columnNameTxn);
+            sharedSymbolCaches.extendAndSet(colWriterIndex, cache);
+            return cache;
+        }
+    }
+
     ThreadLocalDetails getThreadLocalDetails(int workerId) {
         lastMeasurementMillis = millisecondClock.getTicks();
         return localDetailsArray[workerId];
@@ -442,7 +510,8 @@ public class TableUpdateDetails implements Closeable {
                         symbolNameTemp,
                         symIndex,
                         txReader,
-                        columnNameTxn
+                        columnNameTxn,
+                        getSharedSymbolCache(colWriterIndex, columnNameTxn)
                 );
                 symbolCacheByColumnIndex.extendAndSet(colWriterIndex, symCache);
                 return symCache;
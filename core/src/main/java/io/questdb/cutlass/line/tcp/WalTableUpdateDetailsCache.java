@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CommitFailedException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.ByteCharSequenceObjHashMap;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.ByteCharSequence;
+import io.questdb.std.str.DirectByteCharSequence;
+
+/**
+ * WAL table writers of a single source of rows, such as a TCP connection. Writers are
+ * committed once commit interval of the table elapses and are closed after they have been
+ * idle for longer than the writer idle timeout.
+ */
+public class WalTableUpdateDetailsCache implements TableUpdateDetailsCache, QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(WalTableUpdateDetailsCache.class);
+    private final long checkIdleInterval;
+    private final long commitInterval;
+    private final long idleTimeout;
+    private final ByteCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf8 = new ByteCharSequenceObjHashMap<>();
+    private long nextCheckIdleTime;
+    private long nextCommitTime;
+
+    public WalTableUpdateDetailsCache(LineTcpReceiverConfiguration configuration) {
+        this.checkIdleInterval = configuration.getMaintenanceInterval();
+        this.commitInterval = configuration.getCommitInterval();
+        this.idleTimeout = configuration.getWriterIdleTimeout();
+        long now = configuration.getMillisecondClock().getTicks();
+        this.nextCheckIdleTime = now + checkIdleInterval;
+        this.nextCommitTime = now + commitInterval;
+    }
+
+    @Override
+    public void addTableUpdateDetails(ByteCharSequence tableNameUtf8, TableUpdateDetails tableUpdateDetails) {
+        tableUpdateDetailsUtf8.put(tableNameUtf8, tableUpdateDetails);
+    }
+
+    public void checkIdle(long millis) {
+        for (int n = tableUpdateDetailsUtf8.size() - 1; n >= 0; n--) {
+            final ByteCharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
+            if (millis - tud.getLastMeasurementMillis() >= idleTimeout) {
+                tableUpdateDetailsUtf8.remove(tableNameUtf8);
+                tud.close();
+            }
+        }
+    }
+
+    public void clear() {
+        ObjList<ByteCharSequence> keys = tableUpdateDetailsUtf8.keys();
+        for (int n = keys.size() - 1; n >= 0; --n) {
+            final ByteCharSequence tableNameUtf8 = keys.get(n);
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
+            tud.close();
+            tableUpdateDetailsUtf8.remove(tableNameUtf8);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public long commitWalTables(long wallClockMillis) {
+        long minTableNextCommitTime = Long.MAX_VALUE;
+        for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
+            final ByteCharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
+
+            if (tud.isWal()) {
+                final MillisecondClock millisecondClock = tud.getMillisecondClock();
+                try {
+                    long tableNextCommitTime = tud.commitIfIntervalElapsed(wallClockMillis);
+                    // get current time again, commit is not instant and take quite some time.
+                    wallClockMillis = millisecondClock.getTicks();
+                    if (tableNextCommitTime < minTableNextCommitTime) {
+                        // taking the earliest commit time
+                        minTableNextCommitTime = tableNextCommitTime;
+                    }
+                } catch (CommitFailedException ex) {
+                    if (ex.isTableDropped()) {
+                        // table dropped, nothing to worry about
+                        LOG.info().$("closing writer because table has been dropped (2) [table=").$(tud.getTableNameUtf16()).I$();
+                        tud.setWriterInError();
+                        tud.releaseWriter(false);
+                    } else {
+                        LOG.critical().$("commit failed [table=").$(tud.getTableNameUtf16()).$(",ex=").$(ex).I$();
+                    }
+                } catch (Throwable ex) {
+                    LOG.critical().$("commit failed [table=").$(tud.getTableNameUtf16()).$(",ex=").$(ex).I$();
+                }
+            }
+        }
+        // if no tables, just use the default commit interval
+        return minTableNextCommitTime != Long.MAX_VALUE ? minTableNextCommitTime : wallClockMillis + commitInterval;
+    }
+
+    public void doMaintenance(long now) {
+        if (now > nextCommitTime) {
+            nextCommitTime = commitWalTables(now);
+        }
+
+        if (now > nextCheckIdleTime) {
+            checkIdle(now);
+            nextCheckIdleTime = now + checkIdleInterval;
+        }
+    }
+
+    @Override
+    public TableUpdateDetails getTableUpdateDetails(DirectByteCharSequence tableNameUtf8) {
+        return tableUpdateDetailsUtf8.get(tableNameUtf8);
+    }
+
+    @Override
+    public TableUpdateDetails removeTableUpdateDetails(DirectByteCharSequence tableNameUtf8) {
+        final int keyIndex = tableUpdateDetailsUtf8.keyIndex(tableNameUtf8);
+        if (keyIndex < 0) {
+            TableUpdateDetails tud = tableUpdateDetailsUtf8.valueAtQuick(keyIndex);
+            tableUpdateDetailsUtf8.removeAt(keyIndex);
+            return tud;
+        }
+        return null;
+    }
+}
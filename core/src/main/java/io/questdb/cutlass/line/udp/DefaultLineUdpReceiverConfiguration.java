@@ -29,11 +29,23 @@ import io.questdb.cairo.CommitMode;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cutlass.line.LineProtoNanoTimestampAdapter;
 import io.questdb.cutlass.line.LineProtoTimestampAdapter;
+import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.network.Net;
 import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
 
 public class DefaultLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
+    private static final WorkerPoolConfiguration SINGLE_THREADED_CONFIGURATION = new WorkerPoolConfiguration() {
+        @Override
+        public String getPoolName() {
+            return "ilpudp";
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return 0;
+        }
+    };
 
     @Override
     public boolean getAutoCreateNewColumns() {
@@ -80,6 +92,11 @@ public class DefaultLineUdpReceiverConfiguration implements LineUdpReceiverConfi
         return Net.parseIPv4("224.1.1.1");
     }
 
+    @Override
+    public WorkerPoolConfiguration getIOWorkerPoolConfiguration() {
+        return SINGLE_THREADED_CONFIGURATION;
+    }
+
     @Override
     public int getMaxFileNameLength() {
         return 127;
@@ -0,0 +1,343 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.tcp.*;
+import io.questdb.cutlass.line.tcp.LineTcpParser.ParseResult;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.*;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.ByteCharSequence;
+import io.questdb.std.str.DirectByteCharSequence;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives ILP datagrams on a socket of its own, bound with SO_REUSEPORT to the port shared
+ * by all jobs of {@link ParallelLineUdpReceiver}, so that the kernel spreads datagrams between
+ * the jobs. Datagrams are read in batches, via recvmmsg() on Linux, and rows are handed over
+ * to the writer threads of {@link LineTcpMeasurementScheduler}. When the queue is full the job
+ * waits for the writer threads for a short while, rows that still cannot be queued are dropped
+ * and counted.
+ * <p>
+ * Counters are updated by the job's own thread only and can be read from any thread.
+ */
+class LineUdpNetworkIOJob implements NetworkIOJob {
+    private static final Log LOG = LogFactory.getLog(LineUdpNetworkIOJob.class);
+    private static final long QUEUE_FULL_LOG_HYSTERESIS_IN_MS = 10_000;
+    private static final long QUEUE_FULL_TIMEOUT_IN_MS = 100;
+    private final long maintenanceInterval;
+    private final MillisecondClock millisecondClock;
+    private final int msgBufferSize;
+    private final int msgCount;
+    private final NetworkFacade nf;
+    private final LineTcpParser parser;
+    private final LineTcpMeasurementScheduler scheduler;
+    private final ByteCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf8 = new ByteCharSequenceObjHashMap<>();
+    private final ObjList<SymbolCache> unusedSymbolCaches = new ObjList<>();
+    private final WalTableUpdateDetailsCache walTableUpdateDetails;
+    private final int workerId;
+    private long buf;
+    private volatile long droppedCount;
+    private volatile long errorCount;
+    private int fd;
+    private long lastQueueFullLogMillis;
+    private volatile long laggingBatchCount;
+    private long maintenanceJobDeadline;
+    private long msgVec;
+    private volatile long receivedCount;
+    private volatile long rowCount;
+
+    LineUdpNetworkIOJob(
+            LineUdpReceiverConfiguration configuration,
+            LineTcpReceiverConfiguration lineConfiguration,
+            LineTcpMeasurementScheduler scheduler,
+            int workerId
+    ) {
+        this.nf = configuration.getNetworkFacade();
+        this.msgBufferSize = configuration.getMsgBufferSize();
+        this.msgCount = configuration.getMsgCount();
+        this.millisecondClock = lineConfiguration.getMillisecondClock();
+        this.maintenanceInterval = lineConfiguration.getMaintenanceInterval();
+        this.maintenanceJobDeadline = millisecondClock.getTicks() + maintenanceInterval;
+        this.parser = new LineTcpParser(lineConfiguration.isStringAsTagSupported(), lineConfiguration.isSymbolAsFieldSupported());
+        this.scheduler = scheduler;
+        this.walTableUpdateDetails = new WalTableUpdateDetailsCache(lineConfiguration);
+        this.workerId = workerId;
+
+        fd = nf.socketUdp();
+        if (fd < 0) {
+            int errno = nf.errno();
+            LOG.error().$("cannot open UDP socket [errno=").$(errno).$(']').$();
+            throw NetworkError.instance(errno, "Cannot open UDP socket");
+        }
+
+        try {
+            if (nf.setReusePort(fd) < 0) {
+                throw NetworkError.instance(nf.errno(), "could not set SO_REUSEPORT");
+            }
+            if (!nf.bindUdp(fd, configuration.getBindIPv4Address(), configuration.getPort())) {
+                throw NetworkError.instance(nf.errno()).couldNotBindSocket("udp-line-server", configuration.getBindIPv4Address(), configuration.getPort());
+            }
+            if (configuration.getReceiveBufferSize() != -1 && nf.setRcvBuf(fd, configuration.getReceiveBufferSize()) != 0) {
+                LOG.error()
+                        .$("could not set receive buffer size [fd=").$(fd)
+                        .$(", size=").$(configuration.getReceiveBufferSize())
+                        .$(", errno=").$(nf.errno())
+                        .I$();
+            }
+            if (Os.isLinux()) {
+                msgVec = nf.msgHeaders(msgBufferSize, msgCount);
+            } else {
+                buf = Unsafe.malloc(msgBufferSize, MemoryTag.NATIVE_ILP_RSS);
+            }
+            LOG.info()
+                    .$("receiving unicast on ")
+                    .$ip(configuration.getBindIPv4Address())
+                    .$(':')
+                    .$(configuration.getPort())
+                    .$(" [fd=").$(fd)
+                    .$(", workerId=").$(workerId)
+                    .I$();
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void addTableUpdateDetails(ByteCharSequence tableNameUtf8, TableUpdateDetails tableUpdateDetails) {
+        tableUpdateDetailsUtf8.put(tableNameUtf8, tableUpdateDetails);
+        tableUpdateDetails.addReference(workerId);
+    }
+
+    @Override
+    public void close() {
+        if (fd > -1) {
+            if (nf.close(fd) != 0) {
+                LOG.error().$("could not close [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            } else {
+                LOG.info().$("closed [fd=").$(fd).$(']').$();
+            }
+            fd = -1;
+        }
+        if (msgVec != 0) {
+            nf.freeMsgHeaders(msgVec);
+            msgVec = 0;
+        }
+        buf = Unsafe.free(buf, msgBufferSize, MemoryTag.NATIVE_ILP_RSS);
+        Misc.free(walTableUpdateDetails);
+        Misc.freeObjListAndClear(unusedSymbolCaches);
+    }
+
+    @Override
+    public TableUpdateDetails getLocalTableDetails(DirectByteCharSequence tableNameUtf8) {
+        return tableUpdateDetailsUtf8.get(tableNameUtf8);
+    }
+
+    @Override
+    public ObjList<SymbolCache> getUnusedSymbolCaches() {
+        return unusedSymbolCaches;
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public void releaseWalTableDetails() {
+        scheduler.releaseWalTableDetails(tableUpdateDetailsUtf8);
+    }
+
+    @Override
+    public TableUpdateDetails removeTableUpdateDetails(DirectByteCharSequence tableNameUtf8) {
+        final int keyIndex = tableUpdateDetailsUtf8.keyIndex(tableNameUtf8);
+        if (keyIndex < 0) {
+            TableUpdateDetails tud = tableUpdateDetailsUtf8.valueAtQuick(keyIndex);
+            tableUpdateDetailsUtf8.removeAt(keyIndex);
+            return tud;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean run(int workerId, @NotNull RunStatus runStatus) {
+        assert this.workerId == workerId;
+        boolean busy;
+        try {
+            busy = msgVec != 0 ? receiveBatch() : receive();
+        } finally {
+            releaseWalTableDetails();
+        }
+
+        final long millis = millisecondClock.getTicks();
+        walTableUpdateDetails.doMaintenance(millis);
+        if (millis > maintenanceJobDeadline) {
+            boolean maintenanceBusy = scheduler.doMaintenance(tableUpdateDetailsUtf8, workerId, millis);
+            if (!maintenanceBusy) {
+                maintenanceJobDeadline = millis + maintenanceInterval;
+            }
+            busy |= maintenanceBusy;
+        }
+        return busy;
+    }
+
+    long getDroppedCount() {
+        return droppedCount;
+    }
+
+    long getErrorCount() {
+        return errorCount;
+    }
+
+    long getLaggingBatchCount() {
+        return laggingBatchCount;
+    }
+
+    long getReceivedCount() {
+        return receivedCount;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    private boolean checkQueueFullLogHysteresis() {
+        long millis = millisecondClock.getTicks();
+        if ((millis - lastQueueFullLogMillis) >= QUEUE_FULL_LOG_HYSTERESIS_IN_MS) {
+            lastQueueFullLogMillis = millis;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean onBatch(int count) {
+        if (count > 0) {
+            receivedCount += count;
+            if (count == msgCount) {
+                // socket had more datagrams than batch can take, the thread is falling behind
+                laggingBatchCount++;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void parseDatagram(long lo, long len) {
+        long hi = lo + len;
+        // the last line of a datagram does not have to be terminated
+        if (len > 0 && len < msgBufferSize && Unsafe.getUnsafe().getByte(hi - 1) != (byte) '\n') {
+            Unsafe.getUnsafe().putByte(hi++, (byte) '\n');
+        }
+
+        parser.of(lo);
+        long measurementLo = lo;
+        boolean goodMeasurement = true;
+        while (true) {
+            try {
+                ParseResult rc = goodMeasurement ? parser.parseMeasurement(hi) : parser.skipMeasurement(hi);
+                switch (rc) {
+                    case MEASUREMENT_COMPLETE:
+                        if (goodMeasurement) {
+                            if (!scheduleEvent()) {
+                                droppedCount++;
+                                if (checkQueueFullLogHysteresis()) {
+                                    LOG.info().$("queue full, dropping rows [fd=").$(fd)
+                                            .$(", workerId=").$(workerId)
+                                            .$(", dropped=").$(droppedCount)
+                                            .I$();
+                                }
+                            } else {
+                                rowCount++;
+                            }
+                        } else {
+                            errorCount++;
+                            goodMeasurement = true;
+                        }
+                        parser.startNextMeasurement();
+                        measurementLo = parser.getBufferAddress();
+                        continue;
+                    case ERROR:
+                        goodMeasurement = false;
+                        continue;
+                    default:
+                        // buffer underflow, line truncated by the end of the datagram
+                        if (measurementLo < hi) {
+                            errorCount++;
+                        }
+                        return;
+                }
+            } catch (CairoException ex) {
+                LOG.error()
+                        .$('[').$(fd).$("] could not process line data [table=").$(parser.getMeasurementName())
+                        .$(", msg=").$(ex.getFlyweightMessage())
+                        .$(", errno=").$(ex.getErrno())
+                        .I$();
+                goodMeasurement = false;
+            }
+        }
+    }
+
+    private boolean receive() {
+        int count = 0;
+        int len;
+        while (count < msgCount && (len = nf.recv(fd, buf, msgBufferSize)) > 0) {
+            parseDatagram(buf, len);
+            count++;
+        }
+        return onBatch(count);
+    }
+
+    private boolean receiveBatch() {
+        final int count = nf.recvmmsg(fd, msgVec, msgCount);
+        long p = msgVec;
+        for (int i = 0; i < count; i++) {
+            parseDatagram(nf.getMMsgBuf(p), nf.getMMsgBufLen(p));
+            p += Net.MMSGHDR_SIZE;
+        }
+        return onBatch(count);
+    }
+
+    private boolean scheduleEvent() {
+        if (!scheduler.scheduleEvent(AllowAllCairoSecurityContext.INSTANCE, this, walTableUpdateDetails, parser)) {
+            return true;
+        }
+        // datagrams queue up in the socket receive buffer while we wait for writer threads
+        final long deadline = millisecondClock.getTicks() + QUEUE_FULL_TIMEOUT_IN_MS;
+        do {
+            Os.pause();
+            if (!scheduler.scheduleEvent(AllowAllCairoSecurityContext.INSTANCE, this, walTableUpdateDetails, parser)) {
+                return true;
+            }
+        } while (millisecondClock.getTicks() < deadline);
+        return false;
+    }
+}
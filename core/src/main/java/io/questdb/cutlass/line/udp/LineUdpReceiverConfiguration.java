@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line.udp;
 
 import io.questdb.cutlass.line.LineProtoTimestampAdapter;
+import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.network.NetworkFacade;
 
 public interface LineUdpReceiverConfiguration {
@@ -47,6 +48,12 @@ public interface LineUdpReceiverConfiguration {
 
     int getGroupIPv4Address();
 
+    /**
+     * Receiver threads, each with its own socket bound to the port with SO_REUSEPORT. Rows are written
+     * by the line TCP writer threads then. Worker count of zero keeps the single-threaded receiver.
+     */
+    WorkerPoolConfiguration getIOWorkerPoolConfiguration();
+
     int getMaxFileNameLength();
 
     int getMsgBufferSize();
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * UDP receiver that runs a socket per worker of the I/O pool. Sockets are bound to the same
+ * port with SO_REUSEPORT and the kernel spreads datagrams between them. Rows are written by
+ * the ILP writer threads, I/O threads never wait for a table writer.
+ * <p>
+ * Only unicast is supported, each socket joined to a multicast group would receive a copy
+ * of every datagram.
+ */
+public class ParallelLineUdpReceiver implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ParallelLineUdpReceiver.class);
+    private final ObjList<LineUdpNetworkIOJob> jobs = new ObjList<>();
+    private final LineTcpMeasurementScheduler scheduler;
+
+    public ParallelLineUdpReceiver(
+            LineUdpReceiverConfiguration configuration,
+            LineTcpReceiverConfiguration lineConfiguration,
+            CairoEngine engine,
+            WorkerPool ioWorkerPool,
+            WorkerPool writerWorkerPool
+    ) {
+        assert configuration.isUnicast();
+        this.scheduler = new LineTcpMeasurementScheduler(
+                lineConfiguration,
+                engine,
+                ioWorkerPool,
+                (scheduler, workerId) -> {
+                    LineUdpNetworkIOJob job = new LineUdpNetworkIOJob(configuration, lineConfiguration, scheduler, workerId);
+                    jobs.add(job);
+                    return job;
+                },
+                writerWorkerPool
+        );
+        LOG.info().$("started [workerCount=").$(jobs.size()).I$();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(scheduler);
+    }
+
+    /**
+     * Returns number of rows dropped by the worker, because the queue of the writer threads
+     * was full or the table writer was not available.
+     */
+    public long getDroppedCount(int workerId) {
+        return jobs.getQuick(workerId).getDroppedCount();
+    }
+
+    /**
+     * Returns number of lines the worker could not parse or write.
+     */
+    public long getErrorCount(int workerId) {
+        return jobs.getQuick(workerId).getErrorCount();
+    }
+
+    /**
+     * Returns number of batches in which the worker received as many datagrams as a batch
+     * can take. A growing count means the socket has datagrams waiting and the worker is
+     * falling behind.
+     */
+    public long getLaggingBatchCount(int workerId) {
+        return jobs.getQuick(workerId).getLaggingBatchCount();
+    }
+
+    public long getReceivedCount(int workerId) {
+        return jobs.getQuick(workerId).getReceivedCount();
+    }
+
+    public long getRowCount(int workerId) {
+        return jobs.getQuick(workerId).getRowCount();
+    }
+
+    public int getWorkerCount() {
+        return jobs.size();
+    }
+}
@@ -0,0 +1,861 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.millitime.Dates;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+import static io.questdb.cutlass.parquet.ParquetFormat.*;
+
+/**
+ * Reads flat Parquet files. The file is memory mapped and its footer is parsed on open,
+ * column chunks are decoded one row group at a time into QuestDB column layout: fixed-size
+ * values with NULL sentinels, strings and binaries as data and auxiliary (offset) pages.
+ * <p>
+ * Fixed-size chunks that are stored as a single page without nulls and whose values need
+ * no conversion are not decoded, the page is used in-place from the mapped file. This requires
+ * values to be followed by {@link ParquetFormat#PAGE_SLACK} zero bytes, as in files written by
+ * {@link ParquetWriter}.
+ * <p>
+ * Only PLAIN encoded uncompressed v1 data pages are supported at the moment.
+ */
+public class ParquetFileReader implements QuietCloseable {
+    // per row group and column: codec, value count, first page offset, total compressed size
+    private static final int CHUNK_ENTRY_SIZE = 4;
+    private static final int CONVERSION_BIT_UNPACK = 1;
+    private static final int CONVERSION_DAYS_TO_MILLIS = 2;
+    private static final int CONVERSION_NANOS_TO_MICROS = 3;
+    private static final int CONVERSION_NARROW = 4;
+    private static final int CONVERSION_NONE = 0;
+    private static final int FOOTER_TAIL_LEN = Integer.BYTES + MAGIC_LEN;
+    private static final Log LOG = LogFactory.getLog(ParquetFileReader.class);
+    private static final int LOGICAL_DATE = 6;
+    private static final int LOGICAL_ENUM = 4;
+    private static final int LOGICAL_INTEGER = 10;
+    private static final int LOGICAL_JSON = 12;
+    private static final int LOGICAL_STRING = 1;
+    private static final int LOGICAL_TIMESTAMP = 8;
+    // pairs of address and size
+    private final LongList buffers = new LongList();
+    private final LongList chunks = new LongList();
+    private final IntList columnConversions = new IntList();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final FilesFacade ff;
+    private final IntList physicalTypes = new IntList();
+    private final IntList repetitions = new IntList();
+    private final LongList rowGroupRowCounts = new LongList();
+    private final StringSink path = new StringSink();
+    private final ThriftCompactReader thrift = new ThriftCompactReader();
+    private int columnCount;
+    private long defLevels;
+    private long defLevelsSize;
+    private int fd = -1;
+    private long fileAddress;
+    private long fileSize;
+    private long rowCount;
+    // page header fields of the last parsed page
+    private int pageDefLevelEncoding;
+    private int pageEncoding;
+    private long pageNullCount;
+    private int pageSize;
+    private int pageType;
+    private int pageValueCount;
+
+    public ParquetFileReader(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+    }
+
+    @Override
+    public void close() {
+        freeBuffers();
+        if (defLevels != 0) {
+            Unsafe.free(defLevels, defLevelsSize, MemoryTag.NATIVE_PARQUET);
+            defLevels = 0;
+            defLevelsSize = 0;
+        }
+        if (fileAddress != 0) {
+            ff.munmap(fileAddress, fileSize, MemoryTag.MMAP_PARQUET);
+            fileAddress = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    /**
+     * Decodes all column chunks of the row group. For every column three values are added to the
+     * list: page address, auxiliary page address and page size. The last two are only set for
+     * variable size columns. Addresses remain valid until {@link #freeBuffers()} or {@link #close()}.
+     *
+     * @param rowGroupIndex row group index
+     * @param columnPages   list to add page addresses to
+     */
+    public void decodeRowGroup(int rowGroupIndex, LongList columnPages) {
+        final long rows = rowGroupRowCounts.getQuick(rowGroupIndex);
+        for (int i = 0; i < columnCount; i++) {
+            decodeColumnChunk(rowGroupIndex, i, rows, columnPages);
+        }
+    }
+
+    public void freeBuffers() {
+        for (int i = 0, n = buffers.size(); i < n; i += 2) {
+            Unsafe.free(buffers.getQuick(i), buffers.getQuick(i + 1), MemoryTag.NATIVE_PARQUET);
+        }
+        buffers.clear();
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public String getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return rowGroupRowCounts.size();
+    }
+
+    public long getRowGroupRowCount(int rowGroupIndex) {
+        return rowGroupRowCounts.getQuick(rowGroupIndex);
+    }
+
+    public ParquetFileReader of(LPSZ path) {
+        close();
+        this.path.clear();
+        this.path.put(path);
+        fd = TableUtils.openRO(ff, path, LOG);
+        fileSize = ff.length(fd);
+        if (fileSize < MAGIC_LEN + FOOTER_TAIL_LEN) {
+            throw notParquet();
+        }
+        fileAddress = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_PARQUET);
+        if (Unsafe.getUnsafe().getInt(fileAddress) != MAGIC || Unsafe.getUnsafe().getInt(fileAddress + fileSize - MAGIC_LEN) != MAGIC) {
+            throw notParquet();
+        }
+        final long footerSize = Unsafe.getUnsafe().getInt(fileAddress + fileSize - FOOTER_TAIL_LEN) & 0xffffffffL;
+        final long footerHi = fileAddress + fileSize - FOOTER_TAIL_LEN;
+        final long footerLo = footerHi - footerSize;
+        if (footerLo < fileAddress + MAGIC_LEN) {
+            throw notParquet();
+        }
+        readFileMetaData(footerLo, footerHi);
+        return this;
+    }
+
+    private static int mapColumnType(int physicalType, int convertedType, int logicalType, int logicalParam) {
+        switch (physicalType) {
+            case TYPE_BOOLEAN:
+                return ColumnType.BOOLEAN;
+            case TYPE_INT32:
+                if (convertedType == CONVERTED_INT_8 || (logicalType == LOGICAL_INTEGER && logicalParam == 8)) {
+                    return ColumnType.BYTE;
+                }
+                if (convertedType == CONVERTED_INT_16 || convertedType == CONVERTED_UINT_8 || (logicalType == LOGICAL_INTEGER && (logicalParam == 16 || logicalParam == -8))) {
+                    return ColumnType.SHORT;
+                }
+                if (convertedType == CONVERTED_UINT_16 || (logicalType == LOGICAL_INTEGER && logicalParam == -16)) {
+                    return ColumnType.CHAR;
+                }
+                if (convertedType == CONVERTED_DATE || logicalType == LOGICAL_DATE) {
+                    return ColumnType.DATE;
+                }
+                return ColumnType.INT;
+            case TYPE_INT64:
+                if (convertedType == CONVERTED_TIMESTAMP_MILLIS || (logicalType == LOGICAL_TIMESTAMP && logicalParam == TIME_UNIT_MILLIS)) {
+                    return ColumnType.DATE;
+                }
+                if (convertedType == CONVERTED_TIMESTAMP_MICROS || logicalType == LOGICAL_TIMESTAMP) {
+                    return ColumnType.TIMESTAMP;
+                }
+                return ColumnType.LONG;
+            case TYPE_FLOAT:
+                return ColumnType.FLOAT;
+            case TYPE_DOUBLE:
+                return ColumnType.DOUBLE;
+            case TYPE_BYTE_ARRAY:
+                if (convertedType == CONVERTED_UTF8 || convertedType == CONVERTED_ENUM || convertedType == CONVERTED_JSON
+                        || logicalType == LOGICAL_STRING || logicalType == LOGICAL_ENUM || logicalType == LOGICAL_JSON) {
+                    return ColumnType.STRING;
+                }
+                return ColumnType.BINARY;
+            default:
+                return ColumnType.UNDEFINED;
+        }
+    }
+
+    private static CairoException unsupported(CharSequence what) {
+        return CairoException.nonCritical().put("unsupported parquet ").put(what);
+    }
+
+    private long allocate(long size) {
+        final long address = Unsafe.malloc(size + PAGE_SLACK, MemoryTag.NATIVE_PARQUET);
+        Vect.memset(address + size, PAGE_SLACK, 0);
+        buffers.add(address, size + PAGE_SLACK);
+        return address;
+    }
+
+    private void checkBounds(long p, long len, long hi) {
+        if (p + len > hi) {
+            throw corrupt();
+        }
+    }
+
+    private CairoException corrupt() {
+        return CairoException.nonCritical().put("corrupt parquet file [path=").put(path).put(']');
+    }
+
+    private void decodeColumnChunk(int rowGroupIndex, int columnIndex, long rows, LongList columnPages) {
+        final int chunk = (rowGroupIndex * columnCount + columnIndex) * CHUNK_ENTRY_SIZE;
+        final long codec = chunks.getQuick(chunk);
+        if (codec != CODEC_UNCOMPRESSED) {
+            throw unsupported("compression codec [column=").put(columnNames.getQuick(columnIndex)).put(", codec=").put(codec).put(']');
+        }
+        if (chunks.getQuick(chunk + 1) != rows) {
+            throw CairoException.nonCritical().put("parquet column chunk value count does not match row group [column=")
+                    .put(columnNames.getQuick(columnIndex))
+                    .put(']');
+        }
+        final long chunkLo = fileAddress + chunks.getQuick(chunk + 2);
+        final long chunkHi = chunkLo + chunks.getQuick(chunk + 3);
+        if (chunkLo < fileAddress || chunkHi > fileAddress + fileSize || chunkLo > chunkHi) {
+            throw corrupt();
+        }
+
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final int conversion = columnConversions.getQuick(columnIndex);
+        final boolean optional = repetitions.getQuick(columnIndex) == REPETITION_OPTIONAL;
+
+        // fast path, single page without nulls which can be used as is
+        if (!ColumnType.isVariableLength(columnType) && conversion == CONVERSION_NONE) {
+            long p = nextDataPage(chunkLo, chunkHi);
+            if (pageValueCount == rows && (!optional || pageNullCount == 0)) {
+                if (optional) {
+                    p += Integer.BYTES + Unsafe.getUnsafe().getInt(p);
+                }
+                final int size = ColumnType.sizeOf(columnType);
+                final long valuesHi = p + rows * size;
+                if ((p & (size - 1)) == 0 && valuesHi <= chunkHi && hasSlack(valuesHi)) {
+                    columnPages.add(p, 0);
+                    columnPages.add(0);
+                    return;
+                }
+            }
+        }
+
+        if (defLevelsSize < rows) {
+            defLevels = Unsafe.realloc(defLevels, defLevelsSize, rows, MemoryTag.NATIVE_PARQUET);
+            defLevelsSize = rows;
+        }
+
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.STRING:
+            case ColumnType.BINARY:
+                decodeVarSizeChunk(chunkLo, chunkHi, rows, columnType, optional, columnPages);
+                break;
+            default:
+                decodeFixedSizeChunk(chunkLo, chunkHi, rows, columnType, conversion, optional, columnPages);
+                break;
+        }
+    }
+
+    // decodes definition levels of the page and returns address of page values
+    private long decodeDefLevels(long p, long hi, long valueCount, boolean optional) {
+        if (!optional) {
+            Vect.memset(defLevels, valueCount, 1);
+            return p;
+        }
+        if (pageDefLevelEncoding != ENCODING_RLE) {
+            throw unsupported("definition level encoding [encoding=").put(pageDefLevelEncoding).put(']');
+        }
+        if (p + Integer.BYTES > hi) {
+            throw corrupt();
+        }
+        final long len = Unsafe.getUnsafe().getInt(p) & 0xffffffffL;
+        p += Integer.BYTES;
+        final long levelsHi = p + len;
+        if (levelsHi > hi) {
+            throw corrupt();
+        }
+        // RLE/bit-packing hybrid with bit width of 1
+        long n = 0;
+        while (n < valueCount) {
+            long header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (p >= levelsHi) {
+                    throw corrupt();
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                header |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            if ((header & 1) == 0) {
+                final long runLen = Math.min(header >>> 1, valueCount - n);
+                if (p >= levelsHi) {
+                    throw corrupt();
+                }
+                Vect.memset(defLevels + n, runLen, Unsafe.getUnsafe().getByte(p++) & 1);
+                n += runLen;
+            } else {
+                final long groups = header >>> 1;
+                if (p + groups > levelsHi) {
+                    throw corrupt();
+                }
+                for (long g = 0; g < groups && n < valueCount; g++) {
+                    final int bits = Unsafe.getUnsafe().getByte(p + g);
+                    for (int k = 0; k < 8 && n < valueCount; k++) {
+                        Unsafe.getUnsafe().putByte(defLevels + n++, (byte) ((bits >>> k) & 1));
+                    }
+                }
+                p += groups;
+            }
+        }
+        return levelsHi;
+    }
+
+    private void decodeFixedSizeChunk(long p, long hi, long rows, int columnType, int conversion, boolean optional, LongList columnPages) {
+        final int size = ColumnType.sizeOf(columnType);
+        final long dst = allocate(rows * size);
+        long row = 0;
+        while (row < rows) {
+            p = nextDataPage(p, hi);
+            final long pageHi = p + pageSize;
+            final long valueCount = Math.min(pageValueCount, rows - row);
+            long v = decodeDefLevels(p, pageHi, valueCount, optional);
+            int bit = 0;
+            for (long i = 0; i < valueCount; i++, row++) {
+                final long d = dst + row * size;
+                if (Unsafe.getUnsafe().getByte(defLevels + i) == 0) {
+                    putNull(d, columnType);
+                    continue;
+                }
+                switch (conversion) {
+                    case CONVERSION_BIT_UNPACK:
+                        checkBounds(v, 1, pageHi);
+                        Unsafe.getUnsafe().putByte(d, (byte) ((Unsafe.getUnsafe().getByte(v) >>> bit) & 1));
+                        if (++bit == 8) {
+                            bit = 0;
+                            v++;
+                        }
+                        break;
+                    case CONVERSION_NARROW:
+                        checkBounds(v, Integer.BYTES, pageHi);
+                        final int value = Unsafe.getUnsafe().getInt(v);
+                        if (size == Byte.BYTES) {
+                            Unsafe.getUnsafe().putByte(d, (byte) value);
+                        } else {
+                            Unsafe.getUnsafe().putShort(d, (short) value);
+                        }
+                        v += Integer.BYTES;
+                        break;
+                    case CONVERSION_DAYS_TO_MILLIS:
+                        checkBounds(v, Integer.BYTES, pageHi);
+                        Unsafe.getUnsafe().putLong(d, Unsafe.getUnsafe().getInt(v) * Dates.DAY_MILLIS);
+                        v += Integer.BYTES;
+                        break;
+                    case CONVERSION_NANOS_TO_MICROS:
+                        checkBounds(v, Long.BYTES, pageHi);
+                        Unsafe.getUnsafe().putLong(d, Unsafe.getUnsafe().getLong(v) / 1000);
+                        v += Long.BYTES;
+                        break;
+                    default:
+                        checkBounds(v, size, pageHi);
+                        Vect.memcpy(d, v, size);
+                        v += size;
+                        break;
+                }
+            }
+            p = pageHi;
+        }
+        columnPages.add(dst, 0);
+        columnPages.add(0);
+    }
+
+    private void decodeVarSizeChunk(long p, long hi, long rows, int columnType, boolean optional, LongList columnPages) {
+        final boolean string = ColumnType.isString(columnType);
+        // upper bound of decoded size: every utf8 byte becomes at most one utf16 char
+        final long dataSize = string ? rows * Integer.BYTES + (hi - p) * Character.BYTES : rows * Long.BYTES + (hi - p);
+        final long data = allocate(Math.max(dataSize, 1));
+        final long aux = allocate((rows + 1) * Long.BYTES);
+        long offset = 0;
+        long row = 0;
+        while (row < rows) {
+            p = nextDataPage(p, hi);
+            final long pageHi = p + pageSize;
+            final long valueCount = Math.min(pageValueCount, rows - row);
+            long v = decodeDefLevels(p, pageHi, valueCount, optional);
+            for (long i = 0; i < valueCount; i++, row++) {
+                Unsafe.getUnsafe().putLong(aux + row * Long.BYTES, offset);
+                final long d = data + offset;
+                if (Unsafe.getUnsafe().getByte(defLevels + i) == 0) {
+                    if (string) {
+                        Unsafe.getUnsafe().putInt(d, TableUtils.NULL_LEN);
+                        offset += Integer.BYTES;
+                    } else {
+                        Unsafe.getUnsafe().putLong(d, TableUtils.NULL_LEN);
+                        offset += Long.BYTES;
+                    }
+                    continue;
+                }
+                checkBounds(v, Integer.BYTES, pageHi);
+                final long len = Unsafe.getUnsafe().getInt(v) & 0xffffffffL;
+                v += Integer.BYTES;
+                checkBounds(v, len, pageHi);
+                if (string) {
+                    final int charCount = utf8ToUtf16(v, v + len, d + Integer.BYTES);
+                    Unsafe.getUnsafe().putInt(d, charCount);
+                    offset += Integer.BYTES + (long) charCount * Character.BYTES;
+                } else {
+                    Unsafe.getUnsafe().putLong(d, len);
+                    Vect.memcpy(d + Long.BYTES, v, len);
+                    offset += Long.BYTES + len;
+                }
+                v += len;
+            }
+            p = pageHi;
+        }
+        Unsafe.getUnsafe().putLong(aux + rows * Long.BYTES, offset);
+        columnPages.add(data, aux);
+        columnPages.add(offset);
+    }
+
+    private boolean hasSlack(long valuesHi) {
+        if (valuesHi + PAGE_SLACK > fileAddress + fileSize) {
+            return false;
+        }
+        for (long p = valuesHi, hi = valuesHi + PAGE_SLACK; p < hi; p += Long.BYTES) {
+            if (Unsafe.getUnsafe().getLong(p) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // returns address of the next data page body and leaves its header in the fields
+    private long nextDataPage(long p, long hi) {
+        p = parsePageHeader(p, hi);
+        if (pageType == PAGE_TYPE_DICTIONARY) {
+            throw unsupported("dictionary encoding [path=").put(path).put(']');
+        }
+        if (pageType != PAGE_TYPE_DATA) {
+            throw unsupported("page type [path=").put(path).put(", type=").put(pageType).put(']');
+        }
+        if (pageEncoding != ENCODING_PLAIN) {
+            throw unsupported("encoding [path=").put(path).put(", encoding=").put(pageEncoding).put(']');
+        }
+        if (p + pageSize > hi) {
+            throw corrupt();
+        }
+        return p;
+    }
+
+    private CairoException notParquet() {
+        return CairoException.nonCritical().put("not a parquet file [path=").put(path).put(']');
+    }
+
+    private long parsePageHeader(long lo, long hi) {
+        pageType = -1;
+        pageSize = -1;
+        pageValueCount = -1;
+        pageEncoding = -1;
+        pageDefLevelEncoding = ENCODING_RLE;
+        pageNullCount = -1;
+        thrift.of(lo, hi);
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    pageType = thrift.readI32();
+                    break;
+                case 3:
+                    pageSize = thrift.readI32();
+                    break;
+                case 5:
+                    thrift.structBegin();
+                    while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                        switch (thrift.getFieldId()) {
+                            case 1:
+                                pageValueCount = thrift.readI32();
+                                break;
+                            case 2:
+                                pageEncoding = thrift.readI32();
+                                break;
+                            case 3:
+                                pageDefLevelEncoding = thrift.readI32();
+                                break;
+                            case 5:
+                                thrift.structBegin();
+                                while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                                    if (thrift.getFieldId() == 3) {
+                                        pageNullCount = thrift.readI64();
+                                    } else {
+                                        thrift.skip(type);
+                                    }
+                                }
+                                break;
+                            default:
+                                thrift.skip(type);
+                                break;
+                        }
+                    }
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        if (pageSize < 0) {
+            throw corrupt();
+        }
+        return thrift.getPosition();
+    }
+
+    private void putNull(long address, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+                Unsafe.getUnsafe().putInt(address, Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                Unsafe.getUnsafe().putLong(address, Numbers.LONG_NaN);
+                break;
+            case ColumnType.FLOAT:
+                Unsafe.getUnsafe().putFloat(address, Float.NaN);
+                break;
+            case ColumnType.DOUBLE:
+                Unsafe.getUnsafe().putDouble(address, Double.NaN);
+                break;
+            default:
+                Vect.memset(address, ColumnType.sizeOf(columnType), 0);
+                break;
+        }
+    }
+
+    private void readColumnMetaData(int columnIndex) {
+        long codec = -1;
+        long valueCount = -1;
+        long dataPageOffset = -1;
+        long dictionaryPageOffset = -1;
+        long size = -1;
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    if (thrift.readI32() != physicalTypes.getQuick(columnIndex)) {
+                        throw corrupt();
+                    }
+                    break;
+                case 4:
+                    codec = thrift.readI32();
+                    break;
+                case 5:
+                    valueCount = thrift.readI64();
+                    break;
+                case 7:
+                    size = thrift.readI64();
+                    break;
+                case 9:
+                    dataPageOffset = thrift.readI64();
+                    break;
+                case 11:
+                    dictionaryPageOffset = thrift.readI64();
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        if (dataPageOffset < 0 || size < 0) {
+            throw corrupt();
+        }
+        chunks.add(codec, valueCount);
+        chunks.add(dictionaryPageOffset > 0 ? dictionaryPageOffset : dataPageOffset, size);
+    }
+
+    private void readFileMetaData(long lo, long hi) {
+        columnCount = 0;
+        rowCount = 0;
+        columnNames.clear();
+        columnTypes.clear();
+        columnConversions.clear();
+        physicalTypes.clear();
+        repetitions.clear();
+        rowGroupRowCounts.clear();
+        chunks.clear();
+
+        thrift.of(lo, hi);
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 2:
+                    readSchema();
+                    break;
+                case 3:
+                    rowCount = thrift.readI64();
+                    break;
+                case 4:
+                    if (columnTypes.size() == 0) {
+                        // schema always precedes row groups
+                        throw corrupt();
+                    }
+                    for (int i = 0, n = thrift.readListHeader(); i < n; i++) {
+                        readRowGroup();
+                    }
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        if (columnCount == 0) {
+            throw corrupt();
+        }
+    }
+
+    private void readRowGroup() {
+        long rows = -1;
+        int chunkCount = 0;
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    chunkCount = thrift.readListHeader();
+                    if (chunkCount != columnCount) {
+                        throw corrupt();
+                    }
+                    for (int i = 0; i < chunkCount; i++) {
+                        thrift.structBegin();
+                        boolean hasMetaData = false;
+                        while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                            if (thrift.getFieldId() == 3) {
+                                readColumnMetaData(i);
+                                hasMetaData = true;
+                            } else if (thrift.getFieldId() == 1) {
+                                throw unsupported("external column chunk [path=").put(path).put(']');
+                            } else {
+                                thrift.skip(type);
+                            }
+                        }
+                        if (!hasMetaData) {
+                            throw corrupt();
+                        }
+                    }
+                    break;
+                case 3:
+                    rows = thrift.readI64();
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        if (rows < 0 || chunkCount != columnCount) {
+            throw corrupt();
+        }
+        rowGroupRowCounts.add(rows);
+    }
+
+    private void readSchema() {
+        final int elementCount = thrift.readListHeader();
+        for (int e = 0; e < elementCount; e++) {
+            int physicalType = -1;
+            int repetition = REPETITION_REQUIRED;
+            String name = null;
+            int childCount = 0;
+            int convertedType = CONVERTED_NONE;
+            int logicalType = -1;
+            int logicalParam = 0;
+
+            thrift.structBegin();
+            int type;
+            while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        physicalType = thrift.readI32();
+                        break;
+                    case 3:
+                        repetition = thrift.readI32();
+                        break;
+                    case 4:
+                        name = thrift.readString();
+                        break;
+                    case 5:
+                        childCount = thrift.readI32();
+                        break;
+                    case 6:
+                        convertedType = thrift.readI32();
+                        break;
+                    case 10:
+                        // logical type is a union, the set field identifies the type
+                        thrift.structBegin();
+                        while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                            logicalType = thrift.getFieldId();
+                            if (type != ThriftCompactWriter.TYPE_STRUCT) {
+                                thrift.skip(type);
+                                continue;
+                            }
+                            thrift.structBegin();
+                            int bitWidth = 0;
+                            boolean signed = true;
+                            while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                                if (logicalType == LOGICAL_TIMESTAMP && thrift.getFieldId() == 2) {
+                                    // time unit union
+                                    thrift.structBegin();
+                                    while ((type = thrift.nextField()) != ThriftCompactWriter.TYPE_STOP) {
+                                        logicalParam = thrift.getFieldId();
+                                        thrift.skip(type);
+                                    }
+                                } else if (logicalType == LOGICAL_INTEGER && thrift.getFieldId() == 1) {
+                                    bitWidth = (int) thrift.readI64();
+                                } else if (logicalType == LOGICAL_INTEGER && thrift.getFieldId() == 2) {
+                                    signed = thrift.readBool(type);
+                                } else {
+                                    thrift.skip(type);
+                                }
+                            }
+                            if (logicalType == LOGICAL_INTEGER) {
+                                logicalParam = signed ? bitWidth : -bitWidth;
+                            }
+                        }
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+
+            if (e == 0) {
+                // root of the schema
+                if (childCount != elementCount - 1) {
+                    throw unsupported("nested schema [path=").put(path).put(']');
+                }
+                continue;
+            }
+            if (childCount > 0 || repetition == REPETITION_REPEATED) {
+                throw unsupported("nested schema [path=").put(path).put(", column=").put(name).put(']');
+            }
+            if (name == null) {
+                throw corrupt();
+            }
+            final int columnType = mapColumnType(physicalType, convertedType, logicalType, logicalParam);
+            if (columnType == ColumnType.UNDEFINED) {
+                throw unsupported("column type [path=").put(path).put(", column=").put(name).put(", type=").put(physicalType).put(']');
+            }
+            columnNames.add(name);
+            columnTypes.add(columnType);
+            physicalTypes.add(physicalType);
+            repetitions.add(repetition);
+            if (physicalType == TYPE_BOOLEAN) {
+                columnConversions.add(CONVERSION_BIT_UNPACK);
+            } else if (physicalType == TYPE_INT32 && columnType == ColumnType.DATE) {
+                columnConversions.add(CONVERSION_DAYS_TO_MILLIS);
+            } else if (physicalType == TYPE_INT32 && columnType != ColumnType.INT) {
+                columnConversions.add(CONVERSION_NARROW);
+            } else if (columnType == ColumnType.TIMESTAMP && logicalType == LOGICAL_TIMESTAMP && logicalParam == TIME_UNIT_NANOS) {
+                columnConversions.add(CONVERSION_NANOS_TO_MICROS);
+            } else {
+                columnConversions.add(CONVERSION_NONE);
+            }
+        }
+        columnCount = columnNames.size();
+    }
+
+    // decodes utf8 bytes into utf16 chars, invalid sequences become '?'
+    private int utf8ToUtf16(long lo, long hi, long dst) {
+        int n = 0;
+        long p = lo;
+        while (p < hi) {
+            final int b = Unsafe.getUnsafe().getByte(p) & 0xff;
+            int cp;
+            int len;
+            if (b < 0x80) {
+                cp = b;
+                len = 1;
+            } else if ((b & 0xe0) == 0xc0) {
+                cp = b & 0x1f;
+                len = 2;
+            } else if ((b & 0xf0) == 0xe0) {
+                cp = b & 0x0f;
+                len = 3;
+            } else if ((b & 0xf8) == 0xf0) {
+                cp = b & 0x07;
+                len = 4;
+            } else {
+                cp = '?';
+                len = 0;
+            }
+            if (len > 1) {
+                if (p + len > hi) {
+                    cp = '?';
+                    len = 0;
+                } else {
+                    for (int k = 1; k < len; k++) {
+                        final int c = Unsafe.getUnsafe().getByte(p + k) & 0xff;
+                        if ((c & 0xc0) != 0x80) {
+                            cp = '?';
+                            len = 0;
+                            break;
+                        }
+                        cp = (cp << 6) | (c & 0x3f);
+                    }
+                }
+            }
+            p += Math.max(len, 1);
+            if (cp > 0xffff) {
+                Unsafe.getUnsafe().putChar(dst + (long) n++ * Character.BYTES, Character.highSurrogate(cp));
+                Unsafe.getUnsafe().putChar(dst + (long) n++ * Character.BYTES, Character.lowSurrogate(cp));
+            } else {
+                Unsafe.getUnsafe().putChar(dst + (long) n++ * Character.BYTES, (char) cp);
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+/**
+ * Subset of Apache Parquet format constants, as defined in parquet.thrift,
+ * that are used by {@link ParquetWriter} and {@link ParquetFileReader}.
+ */
+public final class ParquetFormat {
+    public static final int CODEC_UNCOMPRESSED = 0;
+    public static final int CONVERTED_DATE = 6;
+    public static final int CONVERTED_ENUM = 4;
+    public static final int CONVERTED_INT_16 = 16;
+    public static final int CONVERTED_INT_8 = 15;
+    public static final int CONVERTED_JSON = 19;
+    public static final int CONVERTED_NONE = -1;
+    public static final int CONVERTED_TIMESTAMP_MICROS = 10;
+    public static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    public static final int CONVERTED_UINT_16 = 12;
+    public static final int CONVERTED_UINT_8 = 11;
+    public static final int CONVERTED_UTF8 = 0;
+    public static final int ENCODING_PLAIN = 0;
+    public static final int ENCODING_RLE = 3;
+    public static final int MAGIC = 0x31524150; // "PAR1" in little endian
+    public static final int MAGIC_LEN = 4;
+    // Number of zero bytes that follow values of every page written by QuestDB, and every decoded page.
+    // Vectorized aggregation kernels may read up to a vector width past the end of a page, the same
+    // way they read past the end of a column file.
+    public static final int PAGE_SLACK = 64;
+    public static final int PAGE_TYPE_DATA = 0;
+    public static final int PAGE_TYPE_DATA_V2 = 3;
+    public static final int PAGE_TYPE_DICTIONARY = 2;
+    public static final int REPETITION_OPTIONAL = 1;
+    public static final int REPETITION_REPEATED = 2;
+    public static final int REPETITION_REQUIRED = 0;
+    public static final int TYPE_BOOLEAN = 0;
+    public static final int TYPE_BYTE_ARRAY = 6;
+    public static final int TYPE_DOUBLE = 5;
+    public static final int TYPE_FIXED_LEN_BYTE_ARRAY = 7;
+    public static final int TYPE_FLOAT = 4;
+    public static final int TYPE_INT32 = 1;
+    public static final int TYPE_INT64 = 2;
+    public static final int TYPE_INT96 = 3;
+    // unit of timestamp logical type, the converted type is not set for all of them
+    public static final int TIME_UNIT_MICROS = 2;
+    public static final int TIME_UNIT_MILLIS = 1;
+    public static final int TIME_UNIT_NANOS = 3;
+
+    private ParquetFormat() {
+    }
+}
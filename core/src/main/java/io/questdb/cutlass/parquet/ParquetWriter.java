@@ -0,0 +1,568 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+import static io.questdb.cutlass.parquet.ParquetFormat.*;
+
+/**
+ * Streams records into a Parquet file. Records are buffered column by column until
+ * row group is full, then each column chunk is written as a single uncompressed data
+ * page with PLAIN encoding. Nullable QuestDB types are written as OPTIONAL columns with
+ * RLE encoded definition levels, NULL sentinels become Parquet nulls.
+ * <p>
+ * Page headers are padded so that values of every page start at 8-byte aligned file offset and
+ * values are followed by {@link ParquetFormat#PAGE_SLACK} zero bytes. This lets {@link ParquetFileReader}
+ * use fixed-size column pages in-place, without copying.
+ */
+public class ParquetWriter implements QuietCloseable {
+    public static final int DEFAULT_ROW_GROUP_SIZE = 100_000;
+    private static final String CREATED_BY = "QuestDB";
+    private static final Log LOG = LogFactory.getLog(ParquetWriter.class);
+    private static final long VALUE_ALIGNMENT = 8;
+    // per row group and column: page offset, chunk size, null count
+    private final LongList chunks = new LongList();
+    private final ObjList<MemoryCARW> columnDefLevels = new ObjList<>();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final LongList columnNullCounts = new LongList();
+    private final IntList columnTypes = new IntList();
+    private final ObjList<MemoryCARW> columnValues = new ObjList<>();
+    private final FilesFacade ff;
+    private final long fileOpenOpts;
+    private final MemoryCARW headerMem;
+    private final MemoryCARW levelsMem;
+    private final StringSink path = new StringSink();
+    private final LongList rowGroups = new LongList();
+    private final ThriftCompactWriter thrift = new ThriftCompactWriter();
+    private int columnCount;
+    private int fd = -1;
+    private long fileOffset;
+    private long rowCount;
+    private long rowGroupRowCount;
+    private int rowGroupSize;
+    private long tempMem;
+
+    public ParquetWriter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.fileOpenOpts = configuration.getWriterFileOpenOpts();
+        this.headerMem = Vm.getCARWInstance(4096, Integer.MAX_VALUE, MemoryTag.NATIVE_PARQUET);
+        this.levelsMem = Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_PARQUET);
+    }
+
+    /**
+     * Checks that column type can be written to Parquet.
+     *
+     * @param columnType QuestDB column type
+     * @return true when type is supported
+     */
+    public static boolean isSupported(int columnType) {
+        return physicalTypeOf(columnType) != -1;
+    }
+
+    public void append(Record record) {
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryCARW values = columnValues.getQuick(i);
+            final int columnType = columnTypes.getQuick(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    values.putByte((byte) (record.getBool(i) ? 1 : 0));
+                    break;
+                case ColumnType.BYTE:
+                    values.putInt(record.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    values.putInt(record.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    values.putInt(record.getChar(i));
+                    break;
+                case ColumnType.INT:
+                    final int intValue = record.getInt(i);
+                    if (defined(i, intValue != Numbers.INT_NaN)) {
+                        values.putInt(intValue);
+                    }
+                    break;
+                case ColumnType.LONG:
+                    putLong(i, values, record.getLong(i));
+                    break;
+                case ColumnType.DATE:
+                    putLong(i, values, record.getDate(i));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    putLong(i, values, record.getTimestamp(i));
+                    break;
+                case ColumnType.FLOAT:
+                    final float floatValue = record.getFloat(i);
+                    if (defined(i, floatValue == floatValue)) {
+                        values.putFloat(floatValue);
+                    }
+                    break;
+                case ColumnType.DOUBLE:
+                    final double doubleValue = record.getDouble(i);
+                    if (defined(i, doubleValue == doubleValue)) {
+                        values.putDouble(doubleValue);
+                    }
+                    break;
+                case ColumnType.STRING:
+                    putString(i, values, record.getStr(i));
+                    break;
+                case ColumnType.SYMBOL:
+                    putString(i, values, record.getSym(i));
+                    break;
+                case ColumnType.BINARY:
+                    final BinarySequence bin = record.getBin(i);
+                    if (defined(i, bin != null)) {
+                        final long len = bin.length();
+                        if (len > Integer.MAX_VALUE) {
+                            throw CairoException.nonCritical().put("binary value is too long for parquet [column=").put(columnNames.getQuick(i)).put(']');
+                        }
+                        values.putInt((int) len);
+                        bin.copyTo(values.appendAddressFor(len), 0, len);
+                    }
+                    break;
+                default:
+                    throw new UnsupportedOperationException();
+            }
+        }
+        rowCount++;
+        if (++rowGroupRowCount == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+        Misc.freeObjListAndClear(columnValues);
+        Misc.freeObjListAndClear(columnDefLevels);
+        Misc.free(headerMem);
+        Misc.free(levelsMem);
+        if (tempMem != 0) {
+            Unsafe.free(tempMem, PAGE_SLACK, MemoryTag.NATIVE_PARQUET);
+            tempMem = 0;
+        }
+    }
+
+    /**
+     * Writes buffered rows and file footer. The file is complete once this method returns.
+     */
+    public void finish() {
+        flushRowGroup();
+        writeFooter();
+        LOG.info().$("exported [path=").$(path)
+                .$(", rows=").$(rowCount)
+                .$(", rowGroups=").$(rowGroups.size())
+                .$(", size=").$(fileOffset)
+                .I$();
+        ff.close(fd);
+        fd = -1;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public ParquetWriter of(LPSZ path, RecordMetadata metadata, int rowGroupSize) {
+        if (rowGroupSize < 1) {
+            throw CairoException.nonCritical().put("invalid parquet row group size [value=").put(rowGroupSize).put(']');
+        }
+        this.columnCount = metadata.getColumnCount();
+        columnTypes.clear();
+        columnNames.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (!isSupported(columnType)) {
+                throw CairoException.nonCritical().put("column type is not supported by parquet export [column=")
+                        .put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+            columnTypes.add(columnType);
+            columnNames.add(metadata.getColumnName(i));
+        }
+
+        Misc.freeObjListAndClear(columnValues);
+        Misc.freeObjListAndClear(columnDefLevels);
+        for (int i = 0; i < columnCount; i++) {
+            columnValues.add(Vm.getCARWInstance(1024 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_PARQUET));
+            columnDefLevels.add(repetitionOf(columnTypes.getQuick(i)) == REPETITION_OPTIONAL
+                    ? Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_PARQUET)
+                    : null
+            );
+        }
+        columnNullCounts.setAll(columnCount, 0);
+        chunks.clear();
+        rowGroups.clear();
+        rowCount = 0;
+        rowGroupRowCount = 0;
+        this.rowGroupSize = rowGroupSize;
+
+        if (tempMem == 0) {
+            tempMem = Unsafe.calloc(PAGE_SLACK, MemoryTag.NATIVE_PARQUET);
+        }
+        this.path.clear();
+        this.path.put(path);
+        fd = TableUtils.openRW(ff, path, LOG, fileOpenOpts);
+        if (!ff.truncate(fd, 0)) {
+            throw CairoException.critical(ff.errno()).put("could not truncate [file=").put(path).put(']');
+        }
+        fileOffset = 0;
+        Unsafe.getUnsafe().putInt(tempMem, MAGIC);
+        write(tempMem, MAGIC_LEN);
+        Unsafe.getUnsafe().putInt(tempMem, 0);
+        return this;
+    }
+
+    static void putUtf8(MemoryCARW mem, CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                mem.putByte((byte) c);
+            } else if (c < 0x800) {
+                mem.putByte((byte) (0xc0 | (c >> 6)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, value.charAt(++i));
+                    mem.putByte((byte) (0xf0 | (cp >> 18)));
+                    mem.putByte((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                    mem.putByte((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                    mem.putByte((byte) (0x80 | (cp & 0x3f)));
+                } else {
+                    mem.putByte((byte) '?');
+                }
+            } else {
+                mem.putByte((byte) (0xe0 | (c >> 12)));
+                mem.putByte((byte) (0x80 | ((c >> 6) & 0x3f)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    static int utf8Length(CharSequence value) {
+        int len = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                len++;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    i++;
+                    len += 4;
+                } else {
+                    len++;
+                }
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    private static int convertedTypeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return CONVERTED_INT_8;
+            case ColumnType.SHORT:
+                return CONVERTED_INT_16;
+            case ColumnType.CHAR:
+                return CONVERTED_UINT_16;
+            case ColumnType.DATE:
+                return CONVERTED_TIMESTAMP_MILLIS;
+            case ColumnType.TIMESTAMP:
+                return CONVERTED_TIMESTAMP_MICROS;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return CONVERTED_UTF8;
+            default:
+                return CONVERTED_NONE;
+        }
+    }
+
+    private static int physicalTypeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOLEAN;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+                return TYPE_INT32;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return TYPE_INT64;
+            case ColumnType.FLOAT:
+                return TYPE_FLOAT;
+            case ColumnType.DOUBLE:
+                return TYPE_DOUBLE;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.BINARY:
+                return TYPE_BYTE_ARRAY;
+            default:
+                return -1;
+        }
+    }
+
+    private static int repetitionOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                // these types have no NULL value
+                return REPETITION_REQUIRED;
+            default:
+                return REPETITION_OPTIONAL;
+        }
+    }
+
+    private boolean defined(int columnIndex, boolean defined) {
+        columnDefLevels.getQuick(columnIndex).putByte((byte) (defined ? 1 : 0));
+        if (!defined) {
+            columnNullCounts.increment(columnIndex);
+        }
+        return defined;
+    }
+
+    private void encodeDefinitionLevels(MemoryCARW defLevels, long count) {
+        // RLE runs of the RLE/bit-packing hybrid encoding with bit width of 1,
+        // prefixed with the length of encoded data
+        levelsMem.putInt(0);
+        final long lo = defLevels.getAddress();
+        long i = 0;
+        while (i < count) {
+            final byte level = Unsafe.getUnsafe().getByte(lo + i);
+            long j = i + 1;
+            while (j < count && Unsafe.getUnsafe().getByte(lo + j) == level) {
+                j++;
+            }
+            putVarLong(levelsMem, (j - i) << 1);
+            levelsMem.putByte(level);
+            i = j;
+        }
+        levelsMem.putInt(0, (int) (levelsMem.getAppendOffset() - Integer.BYTES));
+    }
+
+    private void flushRowGroup() {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            writeColumnChunk(i);
+        }
+        rowGroups.add(rowGroupRowCount);
+        rowGroupRowCount = 0;
+    }
+
+    private void putLong(int columnIndex, MemoryCARW values, long value) {
+        if (defined(columnIndex, value != Numbers.LONG_NaN)) {
+            values.putLong(value);
+        }
+    }
+
+    private void putString(int columnIndex, MemoryCARW values, CharSequence value) {
+        if (defined(columnIndex, value != null)) {
+            values.putInt(utf8Length(value));
+            putUtf8(values, value);
+        }
+    }
+
+    private void putVarLong(MemoryCARW mem, long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    private void write(long address, long len) {
+        if (ff.write(fd, address, len, fileOffset) != len) {
+            throw CairoException.critical(ff.errno()).put("could not write parquet file [path=").put(path).put(']');
+        }
+        fileOffset += len;
+    }
+
+    private void writeColumnChunk(int columnIndex) {
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final MemoryCARW values = columnValues.getQuick(columnIndex);
+        final MemoryCARW defLevels = columnDefLevels.getQuick(columnIndex);
+        final long nullCount = columnNullCounts.getQuick(columnIndex);
+
+        levelsMem.truncate();
+        if (defLevels != null) {
+            encodeDefinitionLevels(defLevels, rowGroupRowCount);
+        }
+        final long levelsSize = levelsMem.getAppendOffset();
+
+        long valuesSize = values.getAppendOffset();
+        if (ColumnType.isBoolean(columnType)) {
+            // PLAIN booleans are bit-packed, pack them in place
+            final long lo = values.getAddress();
+            valuesSize = (rowGroupRowCount + 7) >>> 3;
+            for (long i = 0; i < valuesSize; i++) {
+                int b = 0;
+                for (long k = 0, n = Math.min(8, rowGroupRowCount - (i << 3)); k < n; k++) {
+                    b |= Unsafe.getUnsafe().getByte(lo + (i << 3) + k) << k;
+                }
+                Unsafe.getUnsafe().putByte(lo + i, (byte) b);
+            }
+        }
+
+        final long pageSize = levelsSize + valuesSize;
+        if (pageSize > Integer.MAX_VALUE) {
+            throw CairoException.nonCritical().put("parquet page is too large, use smaller row group size [column=")
+                    .put(columnNames.getQuick(columnIndex))
+                    .put(", size=").put(pageSize)
+                    .put(']');
+        }
+
+        headerMem.truncate();
+        thrift.of(headerMem);
+        thrift.structBegin();
+        thrift.fieldI32(1, PAGE_TYPE_DATA);
+        thrift.fieldI32(2, (int) pageSize);
+        thrift.fieldI32(3, (int) pageSize);
+        thrift.fieldStructBegin(5);
+        thrift.fieldI32(1, (int) rowGroupRowCount);
+        thrift.fieldI32(2, ENCODING_PLAIN);
+        thrift.fieldI32(3, ENCODING_RLE);
+        thrift.fieldI32(4, ENCODING_RLE);
+        thrift.fieldStructBegin(5);
+        thrift.fieldI64(3, nullCount);
+        thrift.structEnd();
+        thrift.structEnd();
+        thrift.structEnd();
+        final long headerSize = headerMem.getAppendOffset();
+
+        // pad the gap between column chunks to align page values
+        final long padding = -(fileOffset + headerSize + levelsSize) & (VALUE_ALIGNMENT - 1);
+        write(tempMem, padding);
+
+        chunks.add(fileOffset, headerSize + pageSize);
+        chunks.add(nullCount);
+        write(headerMem.getAddress(), headerSize);
+        write(levelsMem.getAddress(), levelsSize);
+        write(values.getAddress(), valuesSize);
+        // the slack is not part of the column chunk
+        write(tempMem, PAGE_SLACK);
+
+        values.truncate();
+        if (defLevels != null) {
+            defLevels.truncate();
+        }
+        columnNullCounts.setQuick(columnIndex, 0);
+    }
+
+    private void writeFooter() {
+        final MemoryCARW mem = levelsMem;
+        mem.truncate();
+        thrift.of(mem);
+        thrift.structBegin();
+        thrift.fieldI32(1, 1);
+        thrift.fieldList(2, ThriftCompactWriter.TYPE_STRUCT, columnCount + 1);
+        thrift.structBegin();
+        thrift.fieldBinary(4, "schema");
+        thrift.fieldI32(5, columnCount);
+        thrift.structEnd();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            thrift.structBegin();
+            thrift.fieldI32(1, physicalTypeOf(columnType));
+            thrift.fieldI32(3, repetitionOf(columnType));
+            thrift.fieldBinary(4, columnNames.getQuick(i));
+            final int convertedType = convertedTypeOf(columnType);
+            if (convertedType != CONVERTED_NONE) {
+                thrift.fieldI32(6, convertedType);
+            }
+            thrift.structEnd();
+        }
+        thrift.fieldI64(3, rowCount);
+        final int rowGroupCount = rowGroups.size();
+        thrift.fieldList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroupCount);
+        for (int g = 0; g < rowGroupCount; g++) {
+            final long rowGroupRows = rowGroups.getQuick(g);
+            long rowGroupSize = 0;
+            thrift.structBegin();
+            thrift.fieldList(1, ThriftCompactWriter.TYPE_STRUCT, columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final int chunk = (g * columnCount + i) * 3;
+                final long offset = chunks.getQuick(chunk);
+                final long size = chunks.getQuick(chunk + 1);
+                rowGroupSize += size;
+                thrift.structBegin();
+                thrift.fieldI64(2, offset);
+                thrift.fieldStructBegin(3);
+                thrift.fieldI32(1, physicalTypeOf(columnTypes.getQuick(i)));
+                thrift.fieldList(2, ThriftCompactWriter.TYPE_I32, 2);
+                thrift.listI32(ENCODING_PLAIN);
+                thrift.listI32(ENCODING_RLE);
+                thrift.fieldList(3, ThriftCompactWriter.TYPE_BINARY, 1);
+                thrift.listString(columnNames.getQuick(i));
+                thrift.fieldI32(4, CODEC_UNCOMPRESSED);
+                thrift.fieldI64(5, rowGroupRows);
+                thrift.fieldI64(6, size);
+                thrift.fieldI64(7, size);
+                thrift.fieldI64(9, offset);
+                thrift.fieldStructBegin(12);
+                thrift.fieldI64(3, chunks.getQuick(chunk + 2));
+                thrift.structEnd();
+                thrift.structEnd();
+                thrift.structEnd();
+            }
+            thrift.fieldI64(2, rowGroupSize);
+            thrift.fieldI64(3, rowGroupRows);
+            thrift.fieldI64(5, chunks.getQuick(g * columnCount * 3));
+            thrift.fieldI64(6, rowGroupSize);
+            thrift.structEnd();
+        }
+        thrift.fieldBinary(6, CREATED_BY);
+        thrift.structEnd();
+
+        final long footerSize = mem.getAppendOffset();
+        mem.putInt((int) footerSize);
+        mem.putInt(MAGIC);
+        write(mem.getAddress(), mem.getAppendOffset());
+    }
+}
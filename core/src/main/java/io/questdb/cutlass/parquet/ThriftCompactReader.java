@@ -0,0 +1,229 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.Unsafe;
+
+import static io.questdb.cutlass.parquet.ThriftCompactWriter.*;
+
+/**
+ * Minimal reader of Thrift compact protocol over native memory. Callers iterate struct
+ * fields with {@link #nextField()} and either read the value or {@link #skip(int)} it.
+ */
+public class ThriftCompactReader {
+    private final IntList fieldIdStack = new IntList();
+    private int fieldId;
+    private long hi;
+    private int lastFieldId;
+    private int listElementType;
+    private long p;
+
+    public int getFieldId() {
+        return fieldId;
+    }
+
+    public int getListElementType() {
+        return listElementType;
+    }
+
+    public long getPosition() {
+        return p;
+    }
+
+    /**
+     * Reads next field header of current struct.
+     *
+     * @return field type or {@link ThriftCompactWriter#TYPE_STOP} at the end of the struct,
+     * in which case struct is popped from the stack
+     */
+    public int nextField() {
+        final int b = readByte() & 0xff;
+        final int type = b & 0x0f;
+        if (type == TYPE_STOP) {
+            lastFieldId = fieldIdStack.getLast();
+            fieldIdStack.removeIndex(fieldIdStack.size() - 1);
+            return TYPE_STOP;
+        }
+        final int delta = b >>> 4;
+        fieldId = delta != 0 ? lastFieldId + delta : (int) unzigzag(readVarLong());
+        lastFieldId = fieldId;
+        return type;
+    }
+
+    public ThriftCompactReader of(long lo, long hi) {
+        this.p = lo;
+        this.hi = hi;
+        this.fieldIdStack.clear();
+        this.lastFieldId = 0;
+        return this;
+    }
+
+    public long readBinaryLength() {
+        final long len = readVarLong();
+        if (len < 0 || p + len > hi) {
+            throw corrupt();
+        }
+        return len;
+    }
+
+    public boolean readBool(int fieldType) {
+        return fieldType == TYPE_BOOLEAN_TRUE;
+    }
+
+    public int readI32() {
+        return (int) unzigzag(readVarLong());
+    }
+
+    public long readI64() {
+        return unzigzag(readVarLong());
+    }
+
+    /**
+     * Reads list header.
+     *
+     * @return list size, element type is available via {@link #getListElementType()}
+     */
+    public int readListHeader() {
+        final int b = readByte() & 0xff;
+        listElementType = b & 0x0f;
+        int size = b >>> 4;
+        if (size == 15) {
+            size = (int) readVarLong();
+        }
+        if (size < 0) {
+            throw corrupt();
+        }
+        return size;
+    }
+
+    public String readString() {
+        final long len = readBinaryLength();
+        final String value = Chars.stringFromUtf8Bytes(p, p + len);
+        p += len;
+        return value;
+    }
+
+    public void skip(int type) {
+        switch (type) {
+            case TYPE_BOOLEAN_TRUE:
+            case TYPE_BOOLEAN_FALSE:
+                break;
+            case TYPE_BYTE:
+                readByte();
+                break;
+            case TYPE_I16:
+            case TYPE_I32:
+            case TYPE_I64:
+                readVarLong();
+                break;
+            case TYPE_DOUBLE:
+                skipBytes(Double.BYTES);
+                break;
+            case TYPE_BINARY:
+                skipBytes(readBinaryLength());
+                break;
+            case TYPE_LIST:
+            case TYPE_SET:
+                for (int i = 0, n = readListHeader(), t = listElementType; i < n; i++) {
+                    skipElement(t);
+                }
+                break;
+            case TYPE_MAP:
+                final int size = (int) readVarLong();
+                if (size > 0) {
+                    final int kv = readByte() & 0xff;
+                    for (int i = 0; i < size; i++) {
+                        skipElement(kv >>> 4);
+                        skipElement(kv & 0x0f);
+                    }
+                }
+                break;
+            case TYPE_STRUCT:
+                structBegin();
+                int t;
+                while ((t = nextField()) != TYPE_STOP) {
+                    skip(t);
+                }
+                break;
+            default:
+                throw corrupt();
+        }
+    }
+
+    public void skipBytes(long len) {
+        if (len < 0 || p + len > hi) {
+            throw corrupt();
+        }
+        p += len;
+    }
+
+    public void structBegin() {
+        fieldIdStack.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    private static CairoException corrupt() {
+        return CairoException.nonCritical().put("corrupt parquet metadata");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private byte readByte() {
+        if (p >= hi) {
+            throw corrupt();
+        }
+        return Unsafe.getUnsafe().getByte(p++);
+    }
+
+    private long readVarLong() {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = readByte();
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw corrupt();
+            }
+        }
+    }
+
+    private void skipElement(int type) {
+        // boolean list elements are encoded as a byte, unlike boolean fields
+        if (type == TYPE_BOOLEAN_TRUE || type == TYPE_BOOLEAN_FALSE) {
+            readByte();
+        } else {
+            skip(type);
+        }
+    }
+}
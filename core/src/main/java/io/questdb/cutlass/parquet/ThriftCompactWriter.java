@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+import io.questdb.std.Mutable;
+
+/**
+ * Minimal writer of Thrift compact protocol, enough to encode Parquet page headers
+ * and file footer. Structs are nested via {@link #structBegin()} and {@link #structEnd()},
+ * fields must be written in ascending id order within a struct.
+ */
+public class ThriftCompactWriter implements Mutable {
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_BOOLEAN_FALSE = 2;
+    static final byte TYPE_BOOLEAN_TRUE = 1;
+    static final byte TYPE_BYTE = 3;
+    static final byte TYPE_DOUBLE = 7;
+    static final byte TYPE_I16 = 4;
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_MAP = 11;
+    static final byte TYPE_SET = 10;
+    static final byte TYPE_STOP = 0;
+    static final byte TYPE_STRUCT = 12;
+    private final IntList fieldIdStack = new IntList();
+    private int lastFieldId;
+    private MemoryCARW mem;
+
+    @Override
+    public void clear() {
+        fieldIdStack.clear();
+        lastFieldId = 0;
+    }
+
+    public void fieldBinary(int fieldId, CharSequence value) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        putString(value);
+    }
+
+    public void fieldBool(int fieldId, boolean value) {
+        fieldHeader(fieldId, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+    }
+
+    public void fieldI32(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_I32);
+        putVarLong(zigzag(value));
+    }
+
+    public void fieldI64(int fieldId, long value) {
+        fieldHeader(fieldId, TYPE_I64);
+        putVarLong(zigzag(value));
+    }
+
+    public void fieldList(int fieldId, byte elementType, int size) {
+        fieldHeader(fieldId, TYPE_LIST);
+        if (size < 15) {
+            mem.putByte((byte) ((size << 4) | elementType));
+        } else {
+            mem.putByte((byte) (0xf0 | elementType));
+            putVarLong(size);
+        }
+    }
+
+    public void fieldStructBegin(int fieldId) {
+        fieldHeader(fieldId, TYPE_STRUCT);
+        structBegin();
+    }
+
+    public void listI32(int value) {
+        putVarLong(zigzag(value));
+    }
+
+    public void listString(CharSequence value) {
+        putString(value);
+    }
+
+    public ThriftCompactWriter of(MemoryCARW mem) {
+        this.mem = mem;
+        clear();
+        return this;
+    }
+
+    public void structBegin() {
+        fieldIdStack.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    public void structEnd() {
+        mem.putByte(TYPE_STOP);
+        lastFieldId = fieldIdStack.getLast();
+        fieldIdStack.removeIndex(fieldIdStack.size() - 1);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void fieldHeader(int fieldId, byte type) {
+        final int delta = fieldId - lastFieldId;
+        if (delta > 0 && delta < 16) {
+            mem.putByte((byte) ((delta << 4) | type));
+        } else {
+            mem.putByte(type);
+            putVarLong(zigzag(fieldId));
+        }
+        lastFieldId = fieldId;
+    }
+
+    private void putString(CharSequence value) {
+        putVarLong(ParquetWriter.utf8Length(value));
+        ParquetWriter.putUtf8(mem, value);
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+}
@@ -35,6 +35,7 @@ import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SCSequence;
@@ -86,7 +87,10 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private static final byte MESSAGE_TYPE_BIND_COMPLETE = '2';
     private static final byte MESSAGE_TYPE_CLOSE_COMPLETE = '3';
     private static final byte MESSAGE_TYPE_COMMAND_COMPLETE = 'C';
+    private static final byte MESSAGE_TYPE_COPY_DATA = 'd';
+    private static final byte MESSAGE_TYPE_COPY_DONE = 'c';
     private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
+    private static final byte MESSAGE_TYPE_COPY_OUT_RESPONSE = 'H';
     private static final byte MESSAGE_TYPE_DATA_ROW = 'D';
     private static final byte MESSAGE_TYPE_EMPTY_QUERY = 'I';
     private static final byte MESSAGE_TYPE_ERROR_RESPONSE = 'E';
@@ -150,8 +154,16 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private int bufferRemainingOffset = 0;
     private int bufferRemainingSize = 0;
     private boolean completed = true;
+    // start of CopyData message, which is being filled with COPY TO STDOUT rows
+    private long copyDataAddr = -1;
+    private byte copyDelimiter;
+    private int copyFormat;
+    private boolean copyHeader;
+    private PGCopyInLoader copyInLoader;
+    private String copyTableName;
     private RecordCursor currentCursor = null;
     private RecordCursorFactory currentFactory = null;
+    private boolean isCopyRemote = false;
     private boolean isEmptyQuery = false;
     private boolean isPausedQuery = false;
     private long maxRows;
@@ -171,6 +183,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
     private long sendBufferLimit;
     private long sendBufferPtr;
     private final PGResumeProcessor resumeCommandCompleteRef = this::resumeCommandComplete;
+    private final PGResumeProcessor resumeCopyCompleteRef = this::resumeCopyComplete;
+    private final PGResumeProcessor resumeCopyOutRef = this::resumeCopyOut;
     private boolean sendParameterDescription;
     private boolean sendRNQ = true;/* send ReadyForQuery message */
     private SqlExecutionContextImpl sqlExecutionContext;
@@ -322,6 +336,10 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         circuitBreaker.unsetTimer();
         isPausedQuery = false;
         isEmptyQuery = false;
+        isCopyRemote = false;
+        if (copyInLoader != null) {
+            copyInLoader.clear();
+        }
         clearSuspendEvent();
     }
 
@@ -346,6 +364,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         Misc.free(path);
         Misc.free(utf8Sink);
         Misc.free(circuitBreaker);
+        copyInLoader = Misc.free(copyInLoader);
         freeBuffers();
     }
 
@@ -444,6 +463,11 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    @Override
+    public boolean isStagedIOSupported() {
+        return true;
+    }
+
     @Override
     public PGConnectionContext of(int fd, IODispatcher<PGConnectionContext> dispatcher) {
         PGConnectionContext r = super.of(fd, dispatcher);
@@ -648,6 +672,252 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void appendCopyChar(char value) {
+        if (copyFormat == CopyModel.FORMAT_CSV) {
+            if (value == copyDelimiter || value == '"' || value == '\n' || value == '\r') {
+                responseAsciiSink.put('"');
+                if (value == '"') {
+                    responseAsciiSink.put('"');
+                }
+                responseAsciiSink.putUtf8(value).put('"');
+            } else {
+                responseAsciiSink.putUtf8(value);
+            }
+        } else {
+            final char escaped = copyTextEscape(value);
+            if (escaped != 0) {
+                responseAsciiSink.put('\\').put(escaped);
+            } else {
+                responseAsciiSink.putUtf8(value);
+            }
+        }
+    }
+
+    private void appendCopyGeoHash(long value, int columnType) {
+        if (value == GeoHashes.NULL) {
+            appendCopyNull();
+        } else {
+            final int bits = ColumnType.getGeoHashBits(columnType);
+            if (bits % 5 == 0) {
+                GeoHashes.appendCharsUnsafe(value, bits / 5, responseAsciiSink);
+            } else {
+                GeoHashes.appendBinaryStringUnsafe(value, bits, responseAsciiSink);
+            }
+        }
+    }
+
+    private void appendCopyHeader(RecordMetadata metadata, int columnCount) {
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                responseAsciiSink.put((char) copyDelimiter);
+            }
+            appendCopyString(metadata.getColumnName(i));
+        }
+        responseAsciiSink.put('\n');
+    }
+
+    private void appendCopyNull() {
+        // CSV represents null as an unquoted empty string
+        if (copyFormat != CopyModel.FORMAT_CSV) {
+            responseAsciiSink.put('\\').put('N');
+        }
+    }
+
+    private void appendCopyRecord(Record record, RecordMetadata metadata, int columnCount) throws SqlException {
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                responseAsciiSink.put((char) copyDelimiter);
+            }
+            appendCopyValue(record, i, metadata.getColumnType(i));
+        }
+        responseAsciiSink.put('\n');
+        rowCount++;
+    }
+
+    private void appendCopyString(CharSequence value) {
+        final int n = value.length();
+        int lo = 0;
+        if (copyFormat == CopyModel.FORMAT_CSV) {
+            boolean quote = n == 0;
+            for (int i = 0; i < n && !quote; i++) {
+                final char c = value.charAt(i);
+                quote = c == copyDelimiter || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                // quotes are doubled inside quoted value, empty string is quoted to tell it from null
+                responseAsciiSink.put('"');
+                for (int i = 0; i < n; i++) {
+                    if (value.charAt(i) == '"') {
+                        responseAsciiSink.encodeUtf8(value, lo, i + 1).put('"');
+                        lo = i + 1;
+                    }
+                }
+                responseAsciiSink.encodeUtf8(value, lo, n).put('"');
+                return;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                final char escaped = copyTextEscape(value.charAt(i));
+                if (escaped != 0) {
+                    responseAsciiSink.encodeUtf8(value, lo, i).put('\\').put(escaped);
+                    lo = i + 1;
+                }
+            }
+        }
+        responseAsciiSink.encodeUtf8(value, lo, n);
+    }
+
+    private void appendCopyValue(Record record, int columnIndex, int columnType) throws SqlException {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                responseAsciiSink.put(record.getBool(columnIndex) ? 't' : 'f');
+                break;
+            case ColumnType.BYTE:
+                responseAsciiSink.put((int) record.getByte(columnIndex));
+                break;
+            case ColumnType.SHORT:
+                responseAsciiSink.put((int) record.getShort(columnIndex));
+                break;
+            case ColumnType.CHAR:
+                final char charValue = record.getChar(columnIndex);
+                if (charValue == 0) {
+                    appendCopyNull();
+                } else {
+                    appendCopyChar(charValue);
+                }
+                break;
+            case ColumnType.INT:
+                final int intValue = record.getInt(columnIndex);
+                if (intValue != Numbers.INT_NaN) {
+                    responseAsciiSink.put(intValue);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.LONG:
+                final long longValue = record.getLong(columnIndex);
+                if (longValue != Numbers.LONG_NaN) {
+                    responseAsciiSink.put(longValue);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.DATE:
+                final long dateValue = record.getDate(columnIndex);
+                if (dateValue != Numbers.LONG_NaN) {
+                    PG_DATE_MILLI_TIME_Z_PRINT_FORMAT.format(dateValue, null, null, responseAsciiSink);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                final long timestampValue = record.getTimestamp(columnIndex);
+                if (timestampValue != Numbers.LONG_NaN) {
+                    TimestampFormatUtils.PG_TIMESTAMP_FORMAT.format(timestampValue, null, null, responseAsciiSink);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.FLOAT:
+                final float floatValue = record.getFloat(columnIndex);
+                if (floatValue == floatValue) {
+                    responseAsciiSink.put(floatValue, 3);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.DOUBLE:
+                final double doubleValue = record.getDouble(columnIndex);
+                if (doubleValue == doubleValue) {
+                    responseAsciiSink.put(doubleValue);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.STRING:
+                final CharSequence strValue = record.getStr(columnIndex);
+                if (strValue != null) {
+                    appendCopyString(strValue);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.SYMBOL:
+                final CharSequence symValue = record.getSym(columnIndex);
+                if (symValue != null) {
+                    appendCopyString(symValue);
+                } else {
+                    appendCopyNull();
+                }
+                break;
+            case ColumnType.LONG256:
+                final Long256 long256Value = record.getLong256A(columnIndex);
+                if (long256Value.getLong0() == Numbers.LONG_NaN &&
+                        long256Value.getLong1() == Numbers.LONG_NaN &&
+                        long256Value.getLong2() == Numbers.LONG_NaN &&
+                        long256Value.getLong3() == Numbers.LONG_NaN) {
+                    appendCopyNull();
+                } else {
+                    Numbers.appendLong256(
+                            long256Value.getLong0(),
+                            long256Value.getLong1(),
+                            long256Value.getLong2(),
+                            long256Value.getLong3(),
+                            responseAsciiSink
+                    );
+                }
+                break;
+            case ColumnType.UUID:
+                final long uuidLo = record.getLong128Lo(columnIndex);
+                final long uuidHi = record.getLong128Hi(columnIndex);
+                if (Uuid.isNull(uuidLo, uuidHi)) {
+                    appendCopyNull();
+                } else {
+                    Numbers.appendUuid(uuidLo, uuidHi, responseAsciiSink);
+                }
+                break;
+            case ColumnType.GEOBYTE:
+                appendCopyGeoHash(record.getGeoByte(columnIndex), columnType);
+                break;
+            case ColumnType.GEOSHORT:
+                appendCopyGeoHash(record.getGeoShort(columnIndex), columnType);
+                break;
+            case ColumnType.GEOINT:
+                appendCopyGeoHash(record.getGeoInt(columnIndex), columnType);
+                break;
+            case ColumnType.GEOLONG:
+                appendCopyGeoHash(record.getGeoLong(columnIndex), columnType);
+                break;
+            case ColumnType.BINARY:
+                final BinarySequence sequence = record.getBin(columnIndex);
+                if (sequence == null) {
+                    appendCopyNull();
+                } else {
+                    final long blobSize = sequence.length();
+                    if (blobSize >= maxBlobSizeOnQuery) {
+                        throw SqlException.position(0)
+                                .put("blob is too large [blobSize=").put(blobSize)
+                                .put(", max=").put(maxBlobSizeOnQuery)
+                                .put(", columnIndex=").put(columnIndex)
+                                .put(']');
+                    }
+                    // bytea hex format, backslash is escaped in text format
+                    if (copyFormat != CopyModel.FORMAT_CSV) {
+                        responseAsciiSink.put('\\');
+                    }
+                    responseAsciiSink.put('\\').put('x');
+                    for (long i = 0; i < blobSize; i++) {
+                        final int b = sequence.byteAt(i) & 0xff;
+                        responseAsciiSink.put(Numbers.hexDigits[b >> 4]).put(Numbers.hexDigits[b & 0xf]);
+                    }
+                }
+                break;
+            default:
+                appendCopyNull();
+                break;
+        }
+    }
+
     private void appendDateColumn(Record record, int columnIndex) {
         final long longValue = record.getDate(columnIndex);
         if (longValue != Numbers.LONG_NaN) {
@@ -913,6 +1183,18 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void appendSingleCopyRecord(Record record, RecordMetadata metadata, int columnCount) throws SqlException {
+        try {
+            appendCopyRecord(record, metadata, columnCount);
+        } catch (NoSpaceLeftInResponseBufferException e1) {
+            LOG.error().$("not enough space in buffer for row data [buffer=").$(sendBufferSize).I$();
+            copyDataAddr = -1;
+            responseAsciiSink.reset();
+            freeFactory();
+            throw CairoException.critical(0).put("server configuration error: not enough space in send buffer for row data");
+        }
+    }
+
     private void appendStrColumn(Record record, int columnIndex) {
         final CharSequence strValue = record.getStr(columnIndex);
         if (strValue == null) {
@@ -1130,6 +1412,18 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void closeCopyData() {
+        if (copyDataAddr != -1) {
+            if (sendBufferPtr > copyDataAddr + Integer.BYTES) {
+                responseAsciiSink.putLen(copyDataAddr);
+            } else {
+                // no rows made it into the message, drop its header
+                sendBufferPtr = copyDataAddr - 1;
+            }
+            copyDataAddr = -1;
+        }
+    }
+
     private void closePendingWriters(boolean commit) {
         Iterator<ObjObjHashMap.Entry<TableToken, TableWriterAPI>> iterator = pendingWriters.iterator();
         while (iterator.hasNext()) {
@@ -1246,6 +1540,21 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private char copyTextEscape(char c) {
+        switch (c) {
+            case '\\':
+                return '\\';
+            case '\n':
+                return 'n';
+            case '\r':
+                return 'r';
+            case '\t':
+                return 't';
+            default:
+                return c == copyDelimiter ? c : 0;
+        }
+    }
+
     private void doAuthentication(
             long msgLo,
             long msgLimit
@@ -1277,11 +1586,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         int remaining = bufferSize;
 
         while (remaining > 0) {
-            int m = nf.send(
-                    getFd(),
-                    sendBuffer + offset,
-                    remaining
-            );
+            int m = send(nf, sendBuffer + offset, remaining);
             if (m < 0) {
                 LOG.info().$("disconnected on write [code=").$(m).$(']').$();
                 throw PeerDisconnectedException.INSTANCE;
@@ -1556,6 +1861,11 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
      * in the buffer they need to be passed again in parse function along with
      * any additional bytes received
      */
+    private void openCopyData() {
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_DATA);
+        copyDataAddr = responseAsciiSink.skip();
+    }
+
     private void parse(
             long address,
             int len,
@@ -1673,7 +1983,23 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 sendRNQ = true;
                 processQuery(msgLo, msgLimit, compiler);
                 break;
-            case 'd': // COPY data 
+            case 'd': // COPY data
+                // data of COPY that failed is dropped until the client finds out about the failure
+                if (copyInLoader != null && copyInLoader.isActive()) {
+                    processCopyData(msgLo, msgLimit);
+                }
+                break;
+            case 'c': // COPY done
+                if (copyInLoader != null && copyInLoader.isActive()) {
+                    sendRNQ = true;
+                    processCopyDone();
+                }
+                break;
+            case 'f': // COPY fail
+                if (copyInLoader != null && copyInLoader.isActive()) {
+                    sendRNQ = true;
+                    processCopyFail(msgLo, msgLimit);
+                }
                 break;
             default:
                 LOG.error().$("unknown message [type=").$(type).$(']').$();
@@ -1688,6 +2014,9 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
 
             LOG.info().$("parse [fd=").$(fd).$(", q=").utf8(queryText).I$();
             compileQuery(compiler);
+            if (isCopyRemote) {
+                throw SqlException.$(0, "COPY FROM STDIN and COPY TO STDOUT are supported by simple query protocol only");
+            }
             return;
         }
         LOG.error().$("invalid UTF8 bytes in parse query").$();
@@ -1704,6 +2033,30 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         responseAsciiSink.putIntDirect(INT_BYTES_X);
     }
 
+    private void prepareCopyDone() {
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_DONE);
+        responseAsciiSink.putIntDirect(INT_BYTES_X);
+    }
+
+    private void prepareCopyInResponse(int columnCount, boolean binary) {
+        prepareCopyResponse(MESSAGE_TYPE_COPY_IN_RESPONSE, columnCount, binary ? 1 : 0);
+    }
+
+    private void prepareCopyOutResponse(int columnCount) {
+        prepareCopyResponse(MESSAGE_TYPE_COPY_OUT_RESPONSE, columnCount, 0);
+    }
+
+    private void prepareCopyResponse(byte messageType, int columnCount, int format) {
+        responseAsciiSink.put(messageType);
+        final long addr = responseAsciiSink.skip();
+        responseAsciiSink.put((byte) format);
+        responseAsciiSink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseAsciiSink.putNetworkShort((short) format);
+        }
+        responseAsciiSink.putLen(addr);
+    }
+
     private void prepareDescribePortalResponse() {
         if (typesAndSelect != null) {
             try {
@@ -1781,6 +2134,8 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
             wrapper = null;
             syncActions.clear();
             sendParameterDescription = false;
+            isCopyRemote = false;
+            copyTableName = null;
         }
     }
 
@@ -2040,6 +2395,7 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
 
     private void processCompiledQuery(CompiledQuery cq) throws SqlException {
         sqlExecutionContext.storeTelemetry(cq.getType(), TelemetryOrigin.POSTGRES);
+        isCopyRemote = false;
 
         switch (cq.getType()) {
             case CompiledQuery.CREATE_TABLE_AS_SELECT:
@@ -2089,6 +2445,23 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 }
                 queryTag = TAG_COPY;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                // data is streamed once the query completes, see PGConnectionBatchCallback
+                final TextLoader textLoader = cq.getTextLoader();
+                copyFormat = cq.getCopyFormat();
+                copyDelimiter = textLoader.getColumnDelimiter();
+                copyHeader = textLoader.isForceHeaders();
+                if (cq.getRecordCursorFactory() != null) {
+                    // COPY TO STDOUT, this query is non-cacheable
+                    typesAndSelectIsCached = false;
+                    typesAndSelect = typesAndSelectPool.pop();
+                    typesAndSelect.of(cq.getRecordCursorFactory(), bindVariableService);
+                } else {
+                    copyTableName = Chars.toString(textLoader.getTableName());
+                }
+                isCopyRemote = true;
+                queryTag = TAG_COPY;
+                break;
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
@@ -2123,6 +2496,39 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         }
     }
 
+    private void processCopyData(long lo, long msgLimit) {
+        try {
+            copyInLoader.parse(lo, msgLimit);
+        } catch (Throwable e) {
+            // rows parsed so far are rolled back, the rest of the data is dropped
+            copyInLoader.clear();
+            sendRNQ = true;
+            throw e;
+        }
+    }
+
+    private void processCopyDone() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        try {
+            rowCount = copyInLoader.commit();
+        } catch (Throwable e) {
+            copyInLoader.clear();
+            throw e;
+        }
+        queryTag = TAG_COPY;
+        prepareCommandComplete(true);
+        sendReadyForNewQuery();
+    }
+
+    private void processCopyFail(long lo, long msgLimit) throws BadProtocolException, PeerDisconnectedException, PeerIsSlowToReadException {
+        copyInLoader.clear();
+        final long hi = getStringLength(lo, msgLimit, "bad COPY fail message length");
+        final CharSequence message = getString(lo, hi, "invalid UTF8 bytes in COPY fail message");
+        final StringSink sink = Misc.getThreadLocalBuilder();
+        sink.put("COPY from stdin failed: ").put(message);
+        prepareNonCriticalError(-1, sink);
+        sendReadyForNewQuery();
+    }
+
     private void processDescribe(long lo, long msgLimit, @Transient SqlCompiler compiler)
             throws SqlException, BadProtocolException {
         sqlExecutionContext.getCircuitBreaker().resetTimer();
@@ -2498,6 +2904,27 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         prepareCommandComplete(true);
     }
 
+    private void resumeCopyComplete(boolean queryWasPaused) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        prepareCopyDone();
+        prepareCommandComplete(true);
+        sendReadyForNewQuery();
+    }
+
+    private void resumeCopyOut(boolean queryWasPaused) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException, SqlException {
+        final Record record = currentCursor.getRecord();
+        final RecordMetadata metadata = currentFactory.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        if (!queryWasPaused) {
+            // We resume after no space left in buffer,
+            // so we have to write the last record to the buffer once again.
+            openCopyData();
+            appendSingleCopyRecord(record, metadata, columnCount);
+            responseAsciiSink.bookmark();
+        }
+        sendCopyOut0(record, metadata, columnCount);
+        sendReadyForNewQuery();
+    }
+
     private void resumeCursorExecute(boolean queryWasPaused) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException, SqlException {
         final Record record = currentCursor.getRecord();
         final int columnCount = currentFactory.getMetadata().getColumnCount();
@@ -2537,36 +2964,67 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         responseAsciiSink.reset();
     }
 
-    // This method is currently unused. it's used for the COPY sub-protocol, which is currently not implemented.
-    // It's left here so when we add the sub-protocol later we won't need to reimplemented it.
-    // We could keep it just in git history, but chances are nobody would recall to search for it there
-    private void sendCopyInResponse(CairoEngine engine, TextLoader textLoader) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        TableToken tableToken = engine.getTableTokenIfExists(textLoader.getTableName());
-        if (
-                TableUtils.TABLE_EXISTS == engine.getStatus(
-                        sqlExecutionContext.getCairoSecurityContext(),
-                        path,
-                        tableToken
-                )
-        ) {
-            responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
-            long addr = responseAsciiSink.skip();
-            responseAsciiSink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
+    private void sendCopyOut() throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException, SqlException {
+        final RecordMetadata metadata = currentFactory.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        prepareCopyOutResponse(columnCount);
+        openCopyData();
+        if (copyFormat == CopyModel.FORMAT_CSV && copyHeader) {
+            appendCopyHeader(metadata, columnCount);
+        }
+        resumeProcessor = resumeCopyOutRef;
+        responseAsciiSink.bookmark();
+        sendCopyOut0(currentCursor.getRecord(), metadata, columnCount);
+    }
+
+    private void sendCopyOut0(
+            Record record,
+            RecordMetadata metadata,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException, SqlException {
+        if (!circuitBreaker.isTimerSet()) {
+            circuitBreaker.resetTimer();
+        }
 
-            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), tableToken, WRITER_LOCK_REASON)) {
-                RecordMetadata metadata = writer.getMetadata();
-                responseAsciiSink.putNetworkShort((short) metadata.getColumnCount());
-                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                    responseAsciiSink.putNetworkShort((short) PGOids.getTypeOid(metadata.getColumnType(i)));
+        // rows are packed into CopyData messages as long as they fit the send buffer,
+        // the bookmark is always inside the open message
+        try {
+            while (currentCursor.hasNext()) {
+                try {
+                    try {
+                        appendCopyRecord(record, metadata, columnCount);
+                        responseAsciiSink.bookmark();
+                    } catch (NoSpaceLeftInResponseBufferException e) {
+                        responseAsciiSink.resetToBookmark();
+                        closeCopyData();
+                        sendAndReset();
+                        openCopyData();
+                        appendSingleCopyRecord(record, metadata, columnCount);
+                        responseAsciiSink.bookmark();
+                    }
+                } catch (SqlException e) {
+                    clearCursorAndFactory();
+                    responseAsciiSink.resetToBookmark();
+                    closeCopyData();
+                    throw e;
                 }
             }
-            responseAsciiSink.putLen(addr);
-        } else {
-            final SqlException e = SqlException.$(0, "table does not exist [table=").put(textLoader.getTableName()).put(']');
-            prepareNonCriticalError(e.getPosition(), e.getFlyweightMessage());
-            prepareReadyForQuery();
+        } catch (DataUnavailableException e) {
+            isPausedQuery = true;
+            responseAsciiSink.resetToBookmark();
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
         }
-        sendAndReset();
+
+        closeCopyData();
+        clearCursorAndFactory();
+        // at this point buffer can contain unsent data,
+        // and it may not have enough space for the command
+        if (sendBufferLimit - sendBufferPtr < PROTOCOL_TAIL_COMMAND_LENGTH) {
+            resumeProcessor = resumeCopyCompleteRef;
+            sendAndReset();
+        }
+        prepareCopyDone();
+        prepareCommandComplete(true);
     }
 
     private void sendCursor(
@@ -2728,6 +3186,26 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
         recvBufferReadOffset = 0;
     }
 
+    private void startCopyIn() throws SqlException {
+        final TableToken tableToken = engine.getTableTokenIfExists(copyTableName);
+        if (tableToken == null) {
+            throw SqlException.$(0, "table does not exist [table=").put(copyTableName).put(']');
+        }
+        if (copyInLoader == null) {
+            copyInLoader = new PGCopyInLoader(engine.getConfiguration().getTextConfiguration(), typeManager, utf8Sink);
+        }
+        final TableWriterAPI writer = engine.getTableWriterAPI(sqlExecutionContext.getCairoSecurityContext(), tableToken, WRITER_LOCK_REASON);
+        try {
+            copyInLoader.of(writer, copyFormat, copyDelimiter, copyHeader);
+        } catch (Throwable e) {
+            copyInLoader.clear();
+            throw e;
+        }
+        prepareCopyInResponse(writer.getMetadata().getColumnCount(), copyFormat == CopyModel.FORMAT_BINARY);
+        // ReadyForQuery is sent once client completes or fails the COPY
+        sendRNQ = false;
+    }
+
     private void validateParameterCounts(short parameterFormatCount, short parameterValueCount, int parameterTypeCount) throws BadProtocolException {
         if (parameterValueCount > 0) {
             if (parameterValueCount < parameterTypeCount) {
@@ -2748,13 +3226,13 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
 
     int doReceive(int remaining) {
         final long data = recvBuffer + recvBufferWriteOffset;
-        final int n = nf.recv(getFd(), data, remaining);
+        final int n = recv(nf, data, remaining);
         dumpBuffer('>', data, n);
         return n;
     }
 
     void doSend(int offset, int size) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        final int n = nf.send(getFd(), sendBuffer + offset, size);
+        final int n = send(nf, sendBuffer + offset, size);
         dumpBuffer('<', sendBuffer + offset, n);
         if (n < 0) {
             throw PeerDisconnectedException.INSTANCE;
@@ -2880,7 +3358,14 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 LOG.info().$("parse [fd=").$(fd).$(", q=").utf8(text).I$();
                 processCompiledQuery(cq);
 
-                if (typesAndSelect != null) {
+                if (isCopyRemote) {
+                    if (typesAndSelect != null) {
+                        setupFactoryAndCursor(compiler);
+                        sendCopyOut();
+                    } else {
+                        startCopyIn();
+                    }
+                } else if (typesAndSelect != null) {
                     activeSelectColumnTypes = selectColumnTypes;
                     buildSelectColumnTypes();
                     assert queryText != null;
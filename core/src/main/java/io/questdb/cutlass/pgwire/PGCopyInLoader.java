@@ -0,0 +1,549 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.text.AbstractTextLexer;
+import io.questdb.cutlass.text.TextConfiguration;
+import io.questdb.cutlass.text.TextLexerWrapper;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectCharSink;
+
+import java.io.Closeable;
+
+/**
+ * Streams rows of COPY FROM STDIN into a table writer. Text and CSV data are split into lines
+ * and fields by the text import lexers, which carry incomplete lines over to the next CopyData
+ * message. Binary data is buffered until the whole tuple arrives.
+ */
+public class PGCopyInLoader implements Closeable, Mutable, AbstractTextLexer.Listener {
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int BINARY_HEADER_LEN = BINARY_SIGNATURE.length + 2 * Integer.BYTES;
+    private static final long DAY_MICROS = 86_400_000_000L;
+    private final ObjList<TypeAdapter> adapters = new ObjList<>();
+    private final IntList binaryFieldLengths = new IntList();
+    private final LongList binaryFieldOffsets = new LongList();
+    private final IntList columnTypes = new IntList();
+    private final TextLexerWrapper lexerWrapper;
+    private final TypeManager typeManager;
+    private final DirectCharSink utf8Sink;
+    private long binaryBuf;
+    private long binaryBufCapacity;
+    private long binaryBufSize;
+    private boolean binaryHeaderParsed;
+    private boolean binaryTrailerSeen;
+    private int format;
+    private boolean header;
+    private AbstractTextLexer lexer;
+    private RecordMetadata metadata;
+    private long rowCount;
+    private int timestampIndex;
+    private TableWriterAPI writer;
+
+    public PGCopyInLoader(TextConfiguration textConfiguration, TypeManager typeManager, DirectCharSink utf8Sink) {
+        this.lexerWrapper = new TextLexerWrapper(textConfiguration);
+        this.typeManager = typeManager;
+        this.utf8Sink = utf8Sink;
+    }
+
+    @Override
+    public void clear() {
+        if (writer != null) {
+            writer.rollback();
+            writer = Misc.free(writer);
+        }
+        if (lexer != null) {
+            lexer.clear();
+            lexer = null;
+        }
+        metadata = null;
+        adapters.clear();
+        columnTypes.clear();
+        binaryFieldOffsets.clear();
+        binaryFieldLengths.clear();
+        binaryBufSize = 0;
+        binaryHeaderParsed = false;
+        binaryTrailerSeen = false;
+        header = false;
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(lexerWrapper);
+        if (binaryBuf != 0) {
+            Unsafe.free(binaryBuf, binaryBufCapacity, MemoryTag.NATIVE_PGW_CONN);
+            binaryBuf = 0;
+            binaryBufCapacity = 0;
+        }
+    }
+
+    /**
+     * Commits rows received so far and releases the writer.
+     *
+     * @return number of rows copied into the table
+     */
+    public long commit() {
+        if (lexer != null) {
+            lexer.parseLast();
+        }
+        if (format == CopyModel.FORMAT_BINARY && !binaryTrailerSeen && binaryBufSize > 0) {
+            throw CairoException.nonCritical().put("incomplete COPY binary data");
+        }
+        writer.commit();
+        writer = Misc.free(writer);
+        return rowCount;
+    }
+
+    public boolean isActive() {
+        return writer != null;
+    }
+
+    public void of(TableWriterAPI writer, int format, byte delimiter, boolean header) {
+        this.writer = writer;
+        this.format = format;
+        this.metadata = writer.getMetadata();
+        this.timestampIndex = metadata.getTimestampIndex();
+        this.rowCount = 0;
+        this.header = header;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            columnTypes.add(columnType);
+            if (format != CopyModel.FORMAT_BINARY) {
+                switch (ColumnType.tagOf(columnType)) {
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        // parsed with the same formats as implicit string casts
+                        adapters.add(null);
+                        break;
+                    case ColumnType.BINARY:
+                        throw CairoException.nonCritical().put("cannot copy text into BINARY column [column=").put(metadata.getColumnName(i)).put(']');
+                    default:
+                        adapters.add(typeManager.getTypeAdapter(columnType));
+                        break;
+                }
+            }
+        }
+        if (format != CopyModel.FORMAT_BINARY) {
+            lexer = lexerWrapper.getLexer(delimiter);
+            lexer.setSkipLinesWithExtraValues(false);
+            // header line is skipped here rather than by the lexer, the lexer would
+            // otherwise size the fields of the first data line off the header
+            lexer.restart(false);
+            lexer.setupLimits(Integer.MAX_VALUE, this);
+        }
+    }
+
+    @Override
+    public void onFields(long line, ObjList<DirectByteCharSequence> values, int valuesLength) {
+        if (header) {
+            header = false;
+            return;
+        }
+        if (format == CopyModel.FORMAT_TEXT && isEndOfDataMarker(values.getQuick(0))) {
+            return;
+        }
+        if (valuesLength != columnTypes.size()) {
+            throw CairoException.nonCritical()
+                    .put("column count mismatch [line=").put(line)
+                    .put(", expected=").put(columnTypes.size())
+                    .put(", actual=").put(valuesLength)
+                    .put(']');
+        }
+        int column = timestampIndex;
+        DirectByteCharSequence value = null;
+        TableWriter.Row row = null;
+        try {
+            if (timestampIndex > -1) {
+                value = values.getQuick(timestampIndex);
+                if (isNull(value)) {
+                    throw CairoException.nonCritical().put("designated timestamp cannot be null [line=").put(line).put(']');
+                }
+                row = writer.newRow(SqlUtil.implicitCastStrAsTimestamp(unescape(value)));
+            } else {
+                row = writer.newRow();
+            }
+            for (column = 0; column < valuesLength; column++) {
+                value = values.getQuick(column);
+                if (column == timestampIndex || isNull(value)) {
+                    continue;
+                }
+                unescape(value);
+                switch (ColumnType.tagOf(columnTypes.getQuick(column))) {
+                    case ColumnType.DATE:
+                        row.putDate(column, SqlUtil.implicitCastStrAsDate(value));
+                        break;
+                    case ColumnType.TIMESTAMP:
+                        row.putTimestamp(column, SqlUtil.implicitCastStrAsTimestamp(value));
+                        break;
+                    default:
+                        adapters.getQuick(column).write(row, column, value, utf8Sink);
+                        break;
+                }
+            }
+            row.append();
+            rowCount++;
+        } catch (CairoException e) {
+            cancel(row);
+            throw e;
+        } catch (Exception e) {
+            cancel(row);
+            throw CairoException.nonCritical()
+                    .put("invalid value [line=").put(line)
+                    .put(", column=").put(metadata.getColumnName(column))
+                    .put(", value=`").put(value).put("`]");
+        }
+    }
+
+    public void parse(long lo, long hi) {
+        if (format == CopyModel.FORMAT_BINARY) {
+            parseBinary(lo, hi);
+        } else {
+            lexer.parse(lo, hi);
+        }
+    }
+
+    private static void cancel(TableWriter.Row row) {
+        if (row != null) {
+            row.cancel();
+        }
+    }
+
+    private static int getInt(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getInt(address));
+    }
+
+    private static long getLong(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getLong(address));
+    }
+
+    private static short getShort(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getShort(address));
+    }
+
+    private static boolean isEndOfDataMarker(DirectByteCharSequence value) {
+        return value.length() == 2 && value.byteAt(0) == '\\' && value.byteAt(1) == '.';
+    }
+
+    private static boolean isValidBinaryLength(int columnType, int len) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return len == Byte.BYTES;
+            case ColumnType.BYTE:
+                // PostgreSQL has no single byte integer, clients send int2
+                return len == Byte.BYTES || len == Short.BYTES;
+            case ColumnType.SHORT:
+                return len == Short.BYTES;
+            case ColumnType.INT:
+            case ColumnType.FLOAT:
+                return len == Integer.BYTES;
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.TIMESTAMP:
+                return len == Long.BYTES;
+            case ColumnType.DATE:
+                return len == Integer.BYTES || len == Long.BYTES;
+            case ColumnType.UUID:
+                return len == 2 * Long.BYTES;
+            default:
+                return true;
+        }
+    }
+
+    private void appendBinaryRow(long address, int fieldCount) {
+        binaryFieldOffsets.clear();
+        binaryFieldLengths.clear();
+        for (int i = 0; i < fieldCount; i++) {
+            final int len = getInt(address);
+            address += Integer.BYTES;
+            binaryFieldOffsets.add(address);
+            binaryFieldLengths.add(len);
+            if (len > 0) {
+                address += len;
+            }
+        }
+
+        final TableWriter.Row row;
+        if (timestampIndex > -1) {
+            final int len = binaryFieldLengths.getQuick(timestampIndex);
+            if (len != Long.BYTES) {
+                throw CairoException.nonCritical().put("designated timestamp cannot be null [row=").put(rowCount).put(']');
+            }
+            row = writer.newRow(getLong(binaryFieldOffsets.getQuick(timestampIndex)) + Numbers.JULIAN_EPOCH_OFFSET_USEC);
+        } else {
+            row = writer.newRow();
+        }
+        try {
+            for (int i = 0; i < fieldCount; i++) {
+                final int len = binaryFieldLengths.getQuick(i);
+                if (i != timestampIndex && len > -1) {
+                    putBinaryValue(row, i, binaryFieldOffsets.getQuick(i), len);
+                }
+            }
+            row.append();
+            rowCount++;
+        } catch (Throwable e) {
+            row.cancel();
+            throw e;
+        }
+    }
+
+    private long findBinaryTupleEnd(long address, long limit) {
+        if (limit - address < Short.BYTES) {
+            return -1;
+        }
+        final short fieldCount = getShort(address);
+        address += Short.BYTES;
+        if (fieldCount == -1) {
+            return address;
+        }
+        if (fieldCount != columnTypes.size()) {
+            throw CairoException.nonCritical()
+                    .put("column count mismatch [row=").put(rowCount)
+                    .put(", expected=").put(columnTypes.size())
+                    .put(", actual=").put(fieldCount)
+                    .put(']');
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            if (limit - address < Integer.BYTES) {
+                return -1;
+            }
+            final int len = getInt(address);
+            address += Integer.BYTES;
+            // lengths are validated before any value is read, -1 stands for null
+            if (len < -1 || (len > -1 && !isValidBinaryLength(columnTypes.getQuick(i), len))) {
+                throw CairoException.nonCritical()
+                        .put("invalid binary field length [row=").put(rowCount)
+                        .put(", column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnTypes.getQuick(i)))
+                        .put(", len=").put(len)
+                        .put(']');
+            }
+            if (len > 0) {
+                if (limit - address < len) {
+                    return -1;
+                }
+                address += len;
+            }
+        }
+        return address;
+    }
+
+    private boolean isNull(DirectByteCharSequence value) {
+        // text format spells null as \N, CSV as an empty field
+        return value.length() == 0 || (format == CopyModel.FORMAT_TEXT && value.length() == 2 && value.byteAt(0) == '\\' && value.byteAt(1) == 'N');
+    }
+
+    private void parseBinary(long lo, long hi) {
+        final long len = hi - lo;
+        if (binaryBufSize + len > binaryBufCapacity) {
+            final long capacity = Math.max(Numbers.ceilPow2(binaryBufSize + len), 4096);
+            binaryBuf = Unsafe.realloc(binaryBuf, binaryBufCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+            binaryBufCapacity = capacity;
+        }
+        Vect.memcpy(binaryBuf + binaryBufSize, lo, len);
+        binaryBufSize += len;
+
+        final long limit = binaryBuf + binaryBufSize;
+        long p = binaryBuf;
+        if (!binaryHeaderParsed) {
+            if (binaryBufSize < BINARY_HEADER_LEN) {
+                return;
+            }
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                if (Unsafe.getUnsafe().getByte(p + i) != BINARY_SIGNATURE[i]) {
+                    throw CairoException.nonCritical().put("invalid COPY binary signature");
+                }
+            }
+            final int extensionLen = getInt(p + BINARY_SIGNATURE.length + Integer.BYTES);
+            if (extensionLen < 0) {
+                throw CairoException.nonCritical().put("invalid COPY binary header extension length [len=").put(extensionLen).put(']');
+            }
+            final long headerEnd = p + BINARY_HEADER_LEN + (long) extensionLen;
+            if (headerEnd > limit) {
+                // extension area is not fully received yet
+                return;
+            }
+            p = headerEnd;
+            binaryHeaderParsed = true;
+        }
+
+        while (!binaryTrailerSeen) {
+            final long tupleEnd = findBinaryTupleEnd(p, limit);
+            if (tupleEnd < 0) {
+                break;
+            }
+            if (getShort(p) == -1) {
+                binaryTrailerSeen = true;
+            } else {
+                appendBinaryRow(p + Short.BYTES, columnTypes.size());
+            }
+            p = tupleEnd;
+        }
+
+        if (binaryTrailerSeen) {
+            binaryBufSize = 0;
+        } else {
+            // keep incomplete tuple for the next message
+            binaryBufSize = limit - p;
+            Vect.memmove(binaryBuf, p, binaryBufSize);
+        }
+    }
+
+    private void putBinaryValue(TableWriter.Row row, int column, long address, int len) {
+        final int columnType = columnTypes.getQuick(column);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(column, Unsafe.getUnsafe().getByte(address) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(column, len == Byte.BYTES ? Unsafe.getUnsafe().getByte(address) : (byte) getShort(address));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(column, getShort(address));
+                break;
+            case ColumnType.INT:
+                row.putInt(column, getInt(address));
+                break;
+            case ColumnType.LONG:
+                row.putLong(column, getLong(address));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(column, Float.intBitsToFloat(getInt(address)));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(column, Double.longBitsToDouble(getLong(address)));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(column, getLong(address) + Numbers.JULIAN_EPOCH_OFFSET_USEC);
+                break;
+            case ColumnType.DATE:
+                // PostgreSQL sends either date (days) or timestamp (micros), both from 2000-01-01
+                final long micros = len == Integer.BYTES ? getInt(address) * DAY_MICROS : getLong(address);
+                row.putDate(column, (micros + Numbers.JULIAN_EPOCH_OFFSET_USEC) / 1000);
+                break;
+            case ColumnType.UUID:
+                row.putLong128(column, getLong(address + Long.BYTES), getLong(address));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(column, address, len);
+                break;
+            default:
+                utf8Sink.clear();
+                if (!Chars.utf8Decode(address, address + len, utf8Sink)) {
+                    throw CairoException.nonCritical().put("invalid UTF8 bytes [column=").put(metadata.getColumnName(column)).put(']');
+                }
+                putBinaryText(row, column, columnType);
+                break;
+        }
+    }
+
+    private void putBinaryText(TableWriter.Row row, int column, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.CHAR:
+                if (utf8Sink.length() > 0) {
+                    row.putChar(column, utf8Sink.charAt(0));
+                }
+                break;
+            case ColumnType.STRING:
+                row.putStr(column, utf8Sink);
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(column, utf8Sink);
+                break;
+            case ColumnType.LONG256:
+                row.putLong256(column, utf8Sink);
+                break;
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                row.putGeoStr(column, utf8Sink);
+                break;
+            default:
+                throw CairoException.nonCritical().put("unsupported column type [column=").put(metadata.getColumnName(column))
+                        .put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
+    // text format escapes special characters with backslash, the value is decoded in place
+    private DirectByteCharSequence unescape(DirectByteCharSequence value) {
+        if (format != CopyModel.FORMAT_TEXT) {
+            return value;
+        }
+        final long lo = value.getLo();
+        final long hi = value.getHi();
+        long p = lo;
+        while (p < hi && Unsafe.getUnsafe().getByte(p) != '\\') {
+            p++;
+        }
+        if (p == hi) {
+            return value;
+        }
+        long dst = p;
+        while (p < hi) {
+            byte b = Unsafe.getUnsafe().getByte(p++);
+            if (b == '\\' && p < hi) {
+                b = Unsafe.getUnsafe().getByte(p++);
+                switch (b) {
+                    case 'b':
+                        b = '\b';
+                        break;
+                    case 'f':
+                        b = '\f';
+                        break;
+                    case 'n':
+                        b = '\n';
+                        break;
+                    case 'r':
+                        b = '\r';
+                        break;
+                    case 't':
+                        b = '\t';
+                        break;
+                    case 'v':
+                        b = 11;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            Unsafe.getUnsafe().putByte(dst++, b);
+        }
+        return value.of(lo, dst);
+    }
+}
@@ -69,7 +69,7 @@ public class PGWireServer implements Closeable {
         this.metrics = engine.getMetrics();
         this.workerPool = workerPool;
 
-        workerPool.assign(dispatcher);
+        IODispatchers.assign(workerPool, dispatcher);
 
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
             final PGJobContext jobContext = new PGJobContext(configuration, engine, functionFactoryCache, snapshotAgent);
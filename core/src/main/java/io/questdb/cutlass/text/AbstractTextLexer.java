@@ -34,6 +34,9 @@ import java.io.Closeable;
 
 public abstract class AbstractTextLexer implements Closeable, Mutable {
     private final static Log LOG = LogFactory.getLog(AbstractTextLexer.class);
+    private static final long SWAR_CR = SwarUtils.broadcast((byte) '\r');
+    private static final long SWAR_NEW_LINE = SwarUtils.broadcast((byte) '\n');
+    private static final long SWAR_QUOTE = SwarUtils.broadcast((byte) '"');
     private final ObjectPool<DirectByteCharSequence> csPool;
     private final ObjList<DirectByteCharSequence> fields = new ObjList<>();
     private final int lineRollBufLimit;
@@ -56,6 +59,7 @@ public abstract class AbstractTextLexer implements Closeable, Mutable {
     private int lineRollBufSize;
     private boolean rollBufferUnusable = false;
     private boolean skipLinesWithExtraValues;
+    private long swarDelimiter;
     private CharSequence tableName;
     private Listener textLexerListener;
     private boolean useLineRollBuf = false;
@@ -114,6 +118,11 @@ public abstract class AbstractTextLexer implements Closeable, Mutable {
                     inQuote = delayedOutQuote = false;
                 }
                 doSwitch(lo, hi, c);
+                if (!eol && !delayedOutQuote) {
+                    final long p = skipRegularBytes(ptr, hi);
+                    this.fieldHi += p - ptr;
+                    ptr = p;
+                }
             }
         } catch (LineLimitException ignore) {
             // loop exit
@@ -302,6 +311,13 @@ public abstract class AbstractTextLexer implements Closeable, Mutable {
                 if (checkState(ptr, c)) {
                     doSwitch(lo, ptr, c);
                 }
+
+                if (!eol && !rollBufferUnusable && !useLineRollBuf && !delayedOutQuote) {
+                    // bytes other than delimiter, quote and line ends only extend the current field
+                    final long p = skipRegularBytes(ptr, hi);
+                    this.fieldHi += p - ptr;
+                    ptr = p;
+                }
             }
         } catch (LineLimitException ignore) {
             // loop exit
@@ -350,6 +366,24 @@ public abstract class AbstractTextLexer implements Closeable, Mutable {
         }
     }
 
+    // returns address of the first delimiter, quote or line end byte, looking a word at a time;
+    // the tail shorter than a word is left to the byte-by-byte loop
+    private long skipRegularBytes(long lo, long hi) {
+        final long delimiter = swarDelimiter;
+        while (lo + 7 < hi) {
+            final long word = Unsafe.getUnsafe().getLong(lo);
+            final long mask = SwarUtils.markByte(word, delimiter)
+                    | SwarUtils.markByte(word, SWAR_QUOTE)
+                    | SwarUtils.markByte(word, SWAR_NEW_LINE)
+                    | SwarUtils.markByte(word, SWAR_CR);
+            if (mask != 0) {
+                return lo + SwarUtils.indexOfFirstMarkedByte(mask);
+            }
+            lo += 8;
+        }
+        return lo;
+    }
+
     private void stashField(int fieldIndex) {
         if (lineCount > 0 && fieldIndex <= fieldMax && lastQuotePos < 0) {
             fields.getQuick(fieldIndex).of(this.fieldLo, this.fieldHi - 1);
@@ -450,6 +484,10 @@ public abstract class AbstractTextLexer implements Closeable, Mutable {
         }
     }
 
+    protected void setDelimiter(byte delimiter) {
+        this.swarDelimiter = SwarUtils.broadcast(delimiter);
+    }
+
     void setTableName(CharSequence tableName) {
         this.tableName = tableName;
     }
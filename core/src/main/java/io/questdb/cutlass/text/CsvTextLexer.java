@@ -27,6 +27,7 @@ package io.questdb.cutlass.text;
 public class CsvTextLexer extends AbstractTextLexer {
     public CsvTextLexer(TextConfiguration textConfiguration) {
         super(textConfiguration);
+        setDelimiter((byte) ',');
     }
 
     protected void doSwitch(long lo, long ptr, byte c) throws LineLimitException {
@@ -33,6 +33,7 @@ public class GenericTextLexer extends AbstractTextLexer {
 
     public void of(byte delimiter) {
         this.delimiter = delimiter;
+        setDelimiter(delimiter);
     }
 
     protected void doSwitch(long lo, long ptr, byte c) throws LineLimitException {
@@ -39,6 +39,8 @@ public abstract class BasePlanSink implements PlanSink {
     protected final ObjStack<RecordCursorFactory> factoryStack;
     protected final HtmlEscapingStringSink htmlSink;
     protected final EscapingStringSink textSink;
+    protected Plannable actual;
+    protected boolean analyze;
     protected int depth;
     protected SqlExecutionContext executionContext;
     protected int order;
@@ -54,6 +56,11 @@ public abstract class BasePlanSink implements PlanSink {
         this.order = -1;
     }
 
+    public PlanSink actual(Plannable actual) {
+        this.actual = actual;
+        return this;
+    }
+
     public PlanSink child(Plannable p, int order) {
         this.order = order;
         child(p);
@@ -68,6 +75,7 @@ public abstract class BasePlanSink implements PlanSink {
         this.factoryStack.clear();
         this.executionContext = null;
         this.order = -1;
+        this.actual = null;
     }
 
     @Override
@@ -85,6 +93,11 @@ public abstract class BasePlanSink implements PlanSink {
         return sink;
     }
 
+    @Override
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
     public PlanSink optAttr(CharSequence name, Sinkable value) {
         if (value != null) {
             attr(name).val(value);
@@ -133,6 +146,10 @@ public abstract class BasePlanSink implements PlanSink {
         return this;
     }
 
+    public void setAnalyze(boolean analyze) {
+        this.analyze = analyze;
+    }
+
     public PlanSink val(ObjList<?> list) {
         return val(list, 0, list.size());
     }
@@ -163,6 +180,19 @@ public abstract class BasePlanSink implements PlanSink {
         return this;
     }
 
+    /**
+     * Prints pending runtime statistics of the current node. Called before the first
+     * attribute or child of the node, or when the node is complete, so that the
+     * statistics follow the node type and meta entries.
+     */
+    protected void putActual() {
+        if (actual != null) {
+            final Plannable actual = this.actual;
+            this.actual = null;
+            attr("actual").val(actual);
+        }
+    }
+
     static class EscapingStringSink extends StringSink {
         @Override
         public CharSink put(CharSequence cs) {
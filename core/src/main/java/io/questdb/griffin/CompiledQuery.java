@@ -86,6 +86,15 @@ public interface CompiledQuery {
 
     AlterOperation getAlterOperation();
 
+    /**
+     * Returns data format of COPY_REMOTE query, one of CopyModel.FORMAT_* constants. Query is
+     * COPY TO STDOUT when it has record cursor factory and COPY FROM STDIN otherwise. Text loader
+     * of both carries the column delimiter and header options.
+     *
+     * @return data format of COPY FROM STDIN or COPY TO STDOUT
+     */
+    int getCopyFormat();
+
     InsertOperation getInsertOperation();
 
     RecordCursorFactory getRecordCursorFactory();
@@ -45,6 +45,7 @@ public class CompiledQueryImpl implements CompiledQuery {
     // number of rows either returned by SELECT operation or affected by UPDATE or INSERT
     private long affectedRowsCount;
     private AlterOperation alterOp;
+    private int copyFormat;
     private InsertOperation insertOp;
     private RecordCursorFactory recordCursorFactory;
     private SqlExecutionContext sqlExecutionContext;
@@ -102,6 +103,11 @@ public class CompiledQueryImpl implements CompiledQuery {
         return alterOp;
     }
 
+    @Override
+    public int getCopyFormat() {
+        return copyFormat;
+    }
+
     @Override
     public InsertOperation getInsertOperation() {
         return insertOp;
@@ -212,9 +218,10 @@ public class CompiledQueryImpl implements CompiledQuery {
         return this;
     }
 
-    CompiledQuery ofCopyRemote(TextLoader textLoader) {
+    CompiledQuery ofCopyRemote(TextLoader textLoader, @Nullable RecordCursorFactory factory, int copyFormat) {
         this.textLoader = textLoader;
-        return of(COPY_REMOTE);
+        this.copyFormat = copyFormat;
+        return of(COPY_REMOTE, factory);
     }
 
     CompiledQuery ofCreateTable() {
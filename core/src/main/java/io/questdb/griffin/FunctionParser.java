@@ -516,13 +516,16 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         // Disable async offload for in (select ...) sub-queries to avoid infinite loops
         // due to nested reduce calls. See SqlCodeGenerator#testBug484() for the reproducer.
         boolean currentFilterEnabled = sqlExecutionContext.isParallelFilterEnabled();
+        boolean currentGroupByEnabled = sqlExecutionContext.isParallelGroupByEnabled();
         sqlExecutionContext.setParallelFilterEnabled(false);
+        sqlExecutionContext.setParallelGroupByEnabled(false);
         // Make sure to override timestamp required flag from base query.
         sqlExecutionContext.pushTimestampRequiredFlag(false);
         try {
             return new CursorFunction(sqlCodeGenerator.generate(node.queryModel, sqlExecutionContext));
         } finally {
             sqlExecutionContext.setParallelFilterEnabled(currentFilterEnabled);
+            sqlExecutionContext.setParallelGroupByEnabled(currentGroupByEnabled);
             sqlExecutionContext.popTimestampRequiredFlag();
         }
     }
@@ -547,6 +550,11 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
 
         undefinedVariables.clear();
 
+        // aggregates, such as sum(), have both group-by and analytic implementations,
+        // the OVER clause decides which of them applies
+        final boolean analyticContext = sqlExecutionContext != null && !sqlExecutionContext.getAnalyticContext().isEmpty();
+        final boolean groupByName = !analyticContext && functionFactoryCache.isGroupBy(node.token);
+
         // find all undefined args for the purpose of setting
         // their types when we find suitable candidate function
         for (int i = 0; i < argCount; i++) {
@@ -558,6 +566,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         for (int i = 0, n = overload.size(); i < n; i++) {
             final FunctionFactoryDescriptor descriptor = overload.getQuick(i);
             final FunctionFactory factory = descriptor.getFactory();
+            if (analyticContext ? factory.isGroupBy() : groupByName && factory.isWindow()) {
+                continue;
+            }
             int sigArgCount = descriptor.getSigArgCount();
 
             final boolean sigVarArg;
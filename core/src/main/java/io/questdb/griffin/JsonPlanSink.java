@@ -46,6 +46,7 @@ public class JsonPlanSink extends BasePlanSink {
 
     @Override
     public PlanSink attr(CharSequence name) {
+        putActual();
         checkType(NODE_ATTR);
         sink.put(name);
         return this;
@@ -53,6 +54,7 @@ public class JsonPlanSink extends BasePlanSink {
 
     @Override
     public PlanSink child(CharSequence outer, Plannable inner) {
+        putActual();
         checkType(NODE_CHILD);
         depth++;
 
@@ -65,6 +67,7 @@ public class JsonPlanSink extends BasePlanSink {
 
     @Override
     public PlanSink child(Plannable p) {
+        putActual();
         checkType(NODE_CHILD);
         depth++;
         lastNodeType = NODE_NONE;
@@ -75,6 +78,7 @@ public class JsonPlanSink extends BasePlanSink {
         } else {
             p.toPlan(this);
         }
+        putActual();
         closeChild();
         lastNodeType = NODE_CHILD;
         lastNodeDepth = --depth;
@@ -92,6 +96,7 @@ public class JsonPlanSink extends BasePlanSink {
 
     @Override
     public void end() {
+        putActual();
         switch (lastNodeType) {
             case NODE_TYPE:
             case NODE_VALUE:
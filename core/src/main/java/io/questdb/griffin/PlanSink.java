@@ -37,6 +37,16 @@ import org.jetbrains.annotations.TestOnly;
  */
 public interface PlanSink {
 
+    /**
+     * Sets runtime statistics of the next plan node. The statistics are printed as
+     * the first attribute of the node, right after its type and meta entries.
+     * Used by EXPLAIN ANALYZE.
+     *
+     * @param actual runtime statistics
+     * @return this sink
+     */
+    PlanSink actual(Plannable actual);
+
     PlanSink attr(CharSequence name);
 
     PlanSink child(CharSequence outer, Plannable inner);
@@ -57,6 +67,14 @@ public interface PlanSink {
 
     int getOrder();
 
+    /**
+     * True when the plan is printed after the query was executed, so that factories
+     * may print their runtime statistics.
+     *
+     * @return true for EXPLAIN ANALYZE
+     */
+    boolean isAnalyze();
+
     @TestOnly
     StringSink getSink();
 
@@ -34,6 +34,7 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.griffin.engine.*;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
@@ -47,6 +48,7 @@ import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.RadixSortLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -129,6 +131,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final ObjList<VectorAggregateFunctionConstructor> tempVecConstructors = new ObjList<>();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
     private final WhereClauseParser whereClauseParser = new WhereClauseParser();
+    // set while generating factories for EXPLAIN ANALYZE
+    private boolean analyze;
     private boolean enableJitNullChecks = true;
     private boolean fullFatJoins = false;
 
@@ -196,7 +200,12 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         QueryModel queryModel = innerModel.getQueryModel();
         RecordCursorFactory factory;
         if (queryModel != null) {
-            factory = generate(queryModel, executionContext);
+            analyze = model.isAnalyze();
+            try {
+                factory = generate(queryModel, executionContext);
+            } finally {
+                analyze = false;
+            }
             if (innerModel.getModelType() != QUERY) {
                 factory = new RecordCursorFactoryStub(innerModel, factory);
             }
@@ -204,7 +213,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             factory = new RecordCursorFactoryStub(innerModel, null);
         }
 
-        return new ExplainPlanFactory(factory, model.getFormat());
+        return new ExplainPlanFactory(factory, model.getFormat(), model.isAnalyze());
     }
 
     private static boolean allGroupsFirstLastWithSingleSymbolFilter(QueryModel model, RecordMetadata metadata) {
@@ -288,6 +297,96 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
+    private static boolean hasLinearFill(ObjList<ExpressionNode> sampleByFill) {
+        for (int i = 0, n = sampleByFill.size(); i < n; i++) {
+            if (isLinearKeyword(sampleByFill.getQuick(i).token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConstantExpression(ExpressionNode node) {
+        switch (node.type) {
+            case CONSTANT:
+                return true;
+            case FUNCTION:
+            case OPERATION:
+                if (node.paramCount < 3) {
+                    return (node.lhs == null || isConstantExpression(node.lhs)) && (node.rhs == null || isConstantExpression(node.rhs));
+                }
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isConstantExpression(node.args.getQuick(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void addZoneMapPredicate(
+            ZoneMapFilter zoneMapFilter,
+            ExpressionNode columnNode,
+            int op,
+            ExpressionNode constantNode,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final int columnIndex = readerMeta.getColumnIndexQuiet(columnNode.token);
+        if (columnIndex < 0) {
+            return;
+        }
+        final int columnType = readerMeta.getColumnType(columnIndex);
+        if (!ZoneMapUtils.isSupported(columnType)) {
+            return;
+        }
+
+        final Function constant = functionParser.parseFunction(constantNode, readerMeta, executionContext);
+        try {
+            if (!constant.isConstant()) {
+                return;
+            }
+            final int columnTag = ColumnType.tagOf(columnType);
+            final int constantTag = ColumnType.tagOf(constant.getType());
+            final boolean temporalColumn = columnTag == ColumnType.DATE || columnTag == ColumnType.TIMESTAMP;
+            switch (constantTag) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    // dates and timestamps are compared after unit conversion, skip such pairs
+                    if (temporalColumn && (constantTag == ColumnType.DATE || constantTag == ColumnType.TIMESTAMP) && constantTag != columnTag) {
+                        return;
+                    }
+                    final long value = constant.getLong(null);
+                    if (value == Numbers.LONG_NaN) {
+                        return;
+                    }
+                    if (ZoneMapUtils.isFloatingPoint(columnType)) {
+                        zoneMapFilter.addDouble(columnIndex, columnType, op, value);
+                    } else {
+                        zoneMapFilter.addLong(columnIndex, columnType, op, value);
+                    }
+                    break;
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                    final double d = constant.getDouble(null);
+                    if (!temporalColumn && !Double.isNaN(d)) {
+                        zoneMapFilter.addDouble(columnIndex, columnType, op, d);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            Misc.free(constant);
+        }
+    }
+
     private VectorAggregateFunctionConstructor assembleFunctionReference(RecordMetadata metadata, ExpressionNode ast) {
         int columnIndex;
         if (ast.type == FUNCTION && ast.paramCount == 1 && SqlKeywords.isSumKeyword(ast.token) && ast.rhs.type == LITERAL) {
@@ -444,6 +543,50 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return null;
     }
 
+    /**
+     * Extracts "column op constant" predicates from the top-level conjunction of the filter.
+     * These predicates are checked against partition zone maps to skip partitions.
+     *
+     * @return zone map filter or null when filter has no suitable predicates
+     */
+    private @Nullable ZoneMapFilter compileZoneMapFilter(
+            ExpressionNode filter,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ZoneMapFilter zoneMapFilter = new ZoneMapFilter();
+        try {
+            sqlNodeStack.clear();
+            ExpressionNode node = filter;
+            while (node != null) {
+                if (node.type == OPERATION && isAndKeyword(node.token)) {
+                    sqlNodeStack.push(node.rhs);
+                    node = node.lhs;
+                    continue;
+                }
+                if (node.type == OPERATION && node.paramCount == 2) {
+                    final int op = ZoneMapFilter.opOf(node.token);
+                    if (op != -1) {
+                        if (node.lhs.type == LITERAL && isConstantExpression(node.rhs)) {
+                            addZoneMapPredicate(zoneMapFilter, node.lhs, op, node.rhs, readerMeta, executionContext);
+                        } else if (node.rhs.type == LITERAL && isConstantExpression(node.lhs)) {
+                            addZoneMapPredicate(zoneMapFilter, node.rhs, ZoneMapFilter.flip(op), node.lhs, readerMeta, executionContext);
+                        }
+                    }
+                }
+                node = sqlNodeStack.isEmpty() ? null : sqlNodeStack.poll();
+            }
+        } catch (Throwable th) {
+            Misc.free(zoneMapFilter);
+            throw th;
+        }
+
+        if (zoneMapFilter.isEmpty()) {
+            return Misc.free(zoneMapFilter);
+        }
+        return zoneMapFilter;
+    }
+
     private RecordCursorFactory createAsOfJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -451,12 +594,33 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             RecordSink slaveKeySink,
             int columnSplit,
-            JoinContext joinContext
+            JoinContext joinContext,
+            SqlExecutionContext executionContext
     ) {
         valueTypes.clear();
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
+        if (isParallelAsOfJoinSupported(master, slave, executionContext)) {
+            return new AsyncAsOfJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    columnSplit,
+                    joinContext,
+                    reduceTaskPool,
+                    configuration.getSqlParallelAsOfJoinLookback() * 1000,
+                    false,
+                    executionContext.getSharedWorkerCount()
+            );
+        }
+
         return new AsOfJoinLightRecordCursorFactory(
                 configuration,
                 metadata,
@@ -833,12 +997,33 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             RecordSink slaveKeySink,
             int columnSplit,
-            JoinContext joinContext
+            JoinContext joinContext,
+            SqlExecutionContext executionContext
     ) {
         valueTypes.clear();
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
+        if (isParallelAsOfJoinSupported(master, slave, executionContext)) {
+            return new AsyncAsOfJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    columnSplit,
+                    joinContext,
+                    reduceTaskPool,
+                    configuration.getSqlParallelAsOfJoinLookback() * 1000,
+                    true,
+                    executionContext.getSharedWorkerCount()
+            );
+        }
+
         return new LtJoinLightRecordCursorFactory(
                 configuration,
                 metadata,
@@ -1593,7 +1778,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                         true
                                                 ),
                                                 masterMetadata.getColumnCount(),
-                                                slaveModel.getContext()
+                                                slaveModel.getContext(),
+                                                executionContext
                                         );
                                     } else {
                                         master = new AsOfJoinNoKeyRecordCursorFactory(
@@ -1644,7 +1830,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                         true
                                                 ),
                                                 masterMetadata.getColumnCount(),
-                                                slaveModel.getContext()
+                                                slaveModel.getContext(),
+                                                executionContext
                                         );
                                     } else {
                                         master = new LtJoinNoKeyRecordCursorFactory(
@@ -2257,6 +2444,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 hiFunc,
                                 listColumnFilterA.copy()
                         );
+                    } else if (RadixSortLightRecordCursorFactory.isSupported(metadata, listColumnFilterA)) {
+                        // single integer key is sorted with radix sort rather than tree chain
+                        return new RadixSortLightRecordCursorFactory(
+                                configuration,
+                                orderedMetadata,
+                                recordCursorFactory,
+                                listColumnFilterA.copy()
+                        );
                     } else {
                         return new SortedLightRecordCursorFactory(
                                 configuration,
@@ -2297,36 +2492,117 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
-            return generateSetFactory(model, factory, executionContext);
+            return wrapForAnalyze(generateSetFactory(model, factory, executionContext));
         }
 
         return factory;
     }
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
-        return generateLimit(
-                generateOrderBy(
-                        generateLatestBy(
-                                generateFilter(
-                                        generateSelect(
-                                                model,
-                                                executionContext,
-                                                processJoins
-                                        ),
-                                        model,
-                                        executionContext
-                                ),
-                                model
-                        ),
+        // each stage is wrapped separately, so that EXPLAIN ANALYZE reports all of them
+        RecordCursorFactory factory = wrapForAnalyze(generateSelect(model, executionContext, processJoins));
+        factory = wrapForAnalyze(generateFilter(factory, model, executionContext));
+        factory = wrapForAnalyze(generateLatestBy(factory, model));
+        factory = wrapForAnalyze(generateOrderBy(factory, model, executionContext));
+        return wrapForAnalyze(generateLimit(factory, model, executionContext));
+    }
+
+    @NotNull
+    private RecordCursorFactory generateParallelSampleBy(
+            QueryModel model,
+            SqlExecutionContext executionContext,
+            RecordCursorFactory factory,
+            TimestampSampler timestampSampler,
+            GenericRecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions,
+            int timestampIndex,
+            Function offsetFunc,
+            int offsetFuncPos
+    ) throws SqlException {
+        final RecordMetadata metadata = factory.getMetadata();
+        final ObjList<ExpressionNode> sampleByFill = model.getSampleByFill();
+        final ObjList<Function> placeholderFunctions = AsyncSampleByRecordCursorFactory.createPlaceholderFunctions(
+                sampleByFill,
+                groupByFunctions,
+                recordFunctions,
+                recordFunctionPositions
+        );
+
+        // The first value is the id of the first row aggregated into the bucket, it replaces
+        // whatever the serial cursors keep there. Group by functions reference values by index,
+        // so they stay valid.
+        arrayColumnTypes.clear();
+        arrayColumnTypes.add(ColumnType.LONG);
+        for (int i = 1, n = valueTypes.getColumnCount(); i < n; i++) {
+            arrayColumnTypes.add(valueTypes.getColumnType(i));
+        }
+        valueTypes.clear();
+        for (int i = 0, n = arrayColumnTypes.getColumnCount(); i < n; i++) {
+            valueTypes.add(arrayColumnTypes.getColumnType(i));
+        }
+
+        final int workerCount = executionContext.getSharedWorkerCount();
+        final ObjList<ObjList<GroupByFunction>> perWorkerGroupByFunctions = new ObjList<>(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                // value types are already known, so we use a scratch list here
+                arrayColumnTypes.clear();
+                arrayColumnTypes.add(ColumnType.LONG);
+                final ObjList<GroupByFunction> workerGroupByFunctions = new ObjList<>(groupByFunctions.size());
+                perWorkerGroupByFunctions.extendAndSet(i, workerGroupByFunctions);
+                GroupByUtils.prepareGroupByFunctions(
                         model,
-                        executionContext
-                ),
-                model,
-                executionContext
+                        metadata,
+                        functionParser,
+                        executionContext,
+                        workerGroupByFunctions,
+                        groupByFunctionPositions,
+                        arrayColumnTypes
+                );
+            }
+        } catch (Throwable e) {
+            for (int i = 0, n = perWorkerGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perWorkerGroupByFunctions.getQuick(i));
+            }
+            throw e;
+        }
+
+        // Serial cursors supply the bucket timestamp function themselves. Here, the bucket timestamp
+        // is the last key, so that the key column indexes stay the same. Filled rows get the bucket
+        // timestamp from the cursor.
+        final int sampleTimestampIndex = groupByMetadata.getTimestampIndex();
+        if (placeholderFunctions == null && sampleTimestampIndex != -1) {
+            recordFunctions.setQuick(
+                    sampleTimestampIndex,
+                    TimestampColumn.newInstance(valueTypes.getColumnCount() + keyTypes.getColumnCount())
+            );
+        }
+        keyTypes.add(ColumnType.TIMESTAMP);
+
+        return new AsyncSampleByRecordCursorFactory(
+                asm,
+                configuration,
+                executionContext.getMessageBus(),
+                factory,
+                listColumnFilterA,
+                keyTypes,
+                valueTypes,
+                groupByMetadata,
+                groupByFunctions,
+                perWorkerGroupByFunctions,
+                recordFunctions,
+                placeholderFunctions,
+                sampleByFill,
+                timestampSampler,
+                timestampIndex,
+                offsetFunc,
+                offsetFuncPos,
+                reduceTaskPool,
+                workerCount
         );
     }
 
-    @NotNull
     private RecordCursorFactory generateSampleBy(
             QueryModel model,
             SqlExecutionContext executionContext,
@@ -2456,6 +2732,26 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         timestampIndex
                 );
 
+                if (
+                        isParallelSampleBySupported(timezoneName, executionContext, factory, groupByFunctions)
+                                && AsyncSampleByRecordCursorFactory.isInterpolationSupported(groupByFunctions)
+                ) {
+                    // linear interpolation always aligns buckets to the first observation
+                    Misc.free(offsetFunc);
+                    return generateParallelSampleBy(
+                            model,
+                            executionContext,
+                            factory,
+                            timestampSampler,
+                            groupByMetadata,
+                            groupByFunctions,
+                            recordFunctions,
+                            timestampIndex,
+                            StrConstant.NULL,
+                            0
+                    );
+                }
+
                 return new SampleByInterpolateRecordCursorFactory(
                         asm,
                         configuration,
@@ -2531,6 +2827,24 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 }
             }
 
+            if (
+                    isParallelSampleBySupported(timezoneName, executionContext, factory, groupByFunctions)
+                            && !hasLinearFill(sampleByFill)
+            ) {
+                return generateParallelSampleBy(
+                        model,
+                        executionContext,
+                        factory,
+                        timestampSampler,
+                        groupByMetadata,
+                        groupByFunctions,
+                        recordFunctions,
+                        timestampIndex,
+                        offsetFunc,
+                        offsetFuncPos
+                );
+            }
+
             if (fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "prev")) {
                 if (keyTypes.getColumnCount() == 0) {
                     return new SampleByFillPrevNotKeyedRecordCursorFactory(
@@ -2569,7 +2883,6 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             }
 
             if (isFillNone) {
-
                 if (keyTypes.getColumnCount() == 0) {
                     // this sample by is not keyed
                     return new SampleByFillNoneNotKeyedRecordCursorFactory(
@@ -2720,6 +3033,21 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
     private RecordCursorFactory generateSelectAnalytic(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory base = generateSubQuery(model, executionContext);
+        try {
+            if (isAnalyticStreamable(model, base)) {
+                final RecordCursorFactory factory = generateSelectAnalyticStreaming(model, base, executionContext);
+                if (factory != null) {
+                    return factory;
+                }
+            }
+            return generateSelectAnalyticCached(model, base, executionContext);
+        } catch (Throwable th) {
+            Misc.free(base);
+            throw th;
+        }
+    }
+
+    private RecordCursorFactory generateSelectAnalyticCached(QueryModel model, RecordCursorFactory base, SqlExecutionContext executionContext) throws SqlException {
         final RecordMetadata baseMetadata = base.getMetadata();
         final ObjList<QueryColumn> columns = model.getColumns();
         final int columnCount = columns.size();
@@ -2787,84 +3115,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             final QueryColumn qc = columns.getQuick(i);
             if (qc instanceof AnalyticColumn) {
                 final AnalyticColumn ac = (AnalyticColumn) qc;
-                final ExpressionNode ast = qc.getAst();
-                if (ast.paramCount > 1) {
-                    Misc.free(base);
-                    throw SqlException.$(ast.position, "too many arguments");
-                }
-
-                ObjList<Function> partitionBy = null;
-                int psz = ac.getPartitionBy().size();
-                if (psz > 0) {
-                    partitionBy = new ObjList<>(psz);
-                    for (int j = 0; j < psz; j++) {
-                        partitionBy.add(
-                                functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext)
-                        );
-                    }
-                }
-
-                final VirtualRecord partitionByRecord;
-                final RecordSink partitionBySink;
-
-                if (partitionBy != null) {
-                    partitionByRecord = new VirtualRecord(partitionBy);
-                    keyTypes.clear();
-                    final int partitionByCount = partitionBy.size();
-
-                    for (int j = 0; j < partitionByCount; j++) {
-                        keyTypes.add(partitionBy.getQuick(j).getType());
-                    }
-                    entityColumnFilter.of(partitionByCount);
-                    // create sink
-                    partitionBySink = RecordSinkFactory.getInstance(
-                            asm,
-                            keyTypes,
-                            entityColumnFilter,
-                            false
-                    );
-                } else {
-                    partitionByRecord = null;
-                    partitionBySink = null;
-                }
-
-
+                // the function reads records of the record chain rather than the base cursor
+                final AnalyticFunction analyticFunction = parseAnalyticFunction(ac, chainMetadata, base, executionContext);
                 final int osz = ac.getOrderBy().size();
-                executionContext.configureAnalyticContext(
-                        partitionByRecord,
-                        partitionBySink,
-                        keyTypes,
-                        osz > 0,
-                        base.recordCursorSupportsRandomAccess()
-                );
-                final Function f;
-                try {
-                    f = functionParser.parseFunction(ast, baseMetadata, executionContext);
-                    if (!(f instanceof AnalyticFunction)) {
-                        Misc.free(base);
-                        throw SqlException.$(ast.position, "non-analytic function called in analytic context");
-                    }
-                } finally {
-                    executionContext.clearAnalyticContext();
-                }
-
-                AnalyticFunction analyticFunction = (AnalyticFunction) f;
 
                 // analyze order by clause on the current model and optimise out
                 // order by on analytic function if it matches the one on the model
-                final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
-                boolean dismissOrder = false;
-                if (base.followedOrderByAdvice() && osz > 0 && orderHash.size() > 0) {
-                    dismissOrder = true;
-                    for (int j = 0; j < osz; j++) {
-                        ExpressionNode node = ac.getOrderBy().getQuick(j);
-                        int direction = ac.getOrderByDirection().getQuick(j);
-                        if (orderHash.get(node.token) != direction) {
-                            dismissOrder = false;
-                            break;
-                        }
-                    }
-                }
+                final boolean dismissOrder = isAnalyticOrderFollowedByBase(model, ac, base);
 
                 if (osz > 0 && !dismissOrder) {
                     IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
@@ -2876,6 +3133,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
                     funcs.add(analyticFunction);
                 } else {
+                    if (osz > 0) {
+                        // records come in the function's order, but peers still have to be told apart
+                        analyticFunction.initRecordComparator(
+                                recordComparatorCompiler,
+                                chainTypes,
+                                toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection())
+                        );
+                    }
                     if (naturalOrderFunctions == null) {
                         naturalOrderFunctions = new ObjList<>();
                     }
@@ -2934,6 +3199,45 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    private RecordCursorFactory generateSelectAnalyticStreaming(QueryModel model, RecordCursorFactory base, SqlExecutionContext executionContext) throws SqlException {
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final int columnCount = columns.size();
+        final int timestampIndex = baseMetadata.getTimestampIndex();
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        final ObjList<Function> functions = new ObjList<>(columnCount);
+        final ObjList<AnalyticFunction> analyticFunctions = new ObjList<>();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn qc = columns.getQuick(i);
+                if (qc instanceof AnalyticColumn) {
+                    final AnalyticFunction analyticFunction = parseAnalyticFunction((AnalyticColumn) qc, baseMetadata, base, executionContext);
+                    functions.add(analyticFunction);
+                    if (analyticFunction.getPassCount() != AnalyticFunction.STREAM) {
+                        // fall back to caching the base cursor
+                        Misc.freeObjList(functions);
+                        return null;
+                    }
+                    analyticFunctions.add(analyticFunction);
+                    metadata.add(new TableColumnMetadata(Chars.toString(qc.getAlias()), analyticFunction.getType()));
+                } else {
+                    final ExpressionNode ast = qc.getAst();
+                    final int columnIndex = baseMetadata.getColumnIndexQuiet(ast.token);
+                    functions.add(FunctionParser.createColumn(ast.position, ast.token, baseMetadata));
+                    metadata.add(AbstractRecordMetadata.copyOf(baseMetadata, columnIndex));
+                    if (columnIndex == timestampIndex) {
+                        // rows come out in the base order
+                        metadata.setTimestampIndex(i);
+                    }
+                }
+            }
+            return new AnalyticRecordCursorFactory(metadata, base, functions, analyticFunctions);
+        } catch (Throwable th) {
+            Misc.freeObjList(functions);
+            throw th;
+        }
+    }
+
     private RecordCursorFactory generateSelectChoose(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
 
@@ -3376,6 +3680,55 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 );
             }
 
+            final int workerCount = executionContext.getSharedWorkerCount();
+            if (
+                    executionContext.isParallelGroupByEnabled()
+                            && factory.supportPageFrameCursor()
+                            && workerCount > 0
+                            && GroupByUtils.isParallelismSupported(groupByFunctions)
+            ) {
+                final ObjList<ObjList<GroupByFunction>> perWorkerGroupByFunctions = new ObjList<>(workerCount);
+                try {
+                    for (int i = 0; i < workerCount; i++) {
+                        // value types are already known, so we use a scratch list here
+                        arrayColumnTypes.clear();
+                        final ObjList<GroupByFunction> workerGroupByFunctions = new ObjList<>(groupByFunctions.size());
+                        perWorkerGroupByFunctions.extendAndSet(i, workerGroupByFunctions);
+                        GroupByUtils.prepareGroupByFunctions(
+                                model,
+                                metadata,
+                                functionParser,
+                                executionContext,
+                                workerGroupByFunctions,
+                                groupByFunctionPositions,
+                                arrayColumnTypes
+                        );
+                    }
+                } catch (Throwable e) {
+                    Misc.freeObjList(recordFunctions);
+                    for (int i = 0, n = perWorkerGroupByFunctions.size(); i < n; i++) {
+                        Misc.freeObjList(perWorkerGroupByFunctions.getQuick(i));
+                    }
+                    throw e;
+                }
+
+                return new AsyncGroupByRecordCursorFactory(
+                        asm,
+                        configuration,
+                        executionContext.getMessageBus(),
+                        factory,
+                        listColumnFilterA,
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        groupByFunctions,
+                        perWorkerGroupByFunctions,
+                        recordFunctions,
+                        reduceTaskPool,
+                        workerCount
+                );
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     asm,
                     configuration,
@@ -3827,7 +4180,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 return new EmptyTableRecordCursorFactory(myMeta);
             }
 
-            DataFrameCursorFactory dfcFactory;
+            AbstractDataFrameCursorFactory dfcFactory;
 
             if (latestByColumnCount > 0) {
                 Function filter = compileFilter(intrinsicModel, myMeta, executionContext);
@@ -4116,6 +4469,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 rowFactory = new DataFrameRowCursorFactory();
             }
 
+            if (intrinsicModel.filter != null && configuration.isZoneMapsEnabled()) {
+                dfcFactory.setZoneMapFilter(compileZoneMapFilter(intrinsicModel.filter, metadata, executionContext));
+            }
+
             model.setWhereClause(intrinsicModel.filter);
             return new DataFrameRecordCursorFactory(
                     configuration,
@@ -4351,6 +4708,53 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return metadata.getTimestampIndex();
     }
 
+    // checks that base factory already provides the order required by the analytic function
+    private boolean isAnalyticOrderFollowedByBase(QueryModel model, AnalyticColumn ac, RecordCursorFactory base) {
+        final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
+        final int osz = ac.getOrderBy().size();
+        if (!base.followedOrderByAdvice() || osz == 0 || orderHash.size() == 0) {
+            return false;
+        }
+        for (int j = 0; j < osz; j++) {
+            ExpressionNode node = ac.getOrderBy().getQuick(j);
+            int direction = ac.getOrderByDirection().getQuick(j);
+            if (orderHash.get(node.token) != direction) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // analytic functions can be computed in a single pass when the base cursor comes
+    // in the order required by every analytic function, e.g. by the designated timestamp
+    private boolean isAnalyticStreamable(QueryModel model, RecordCursorFactory base) {
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final int timestampIndex = baseMetadata.getTimestampIndex();
+        final ObjList<QueryColumn> columns = model.getColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final QueryColumn qc = columns.getQuick(i);
+            if (qc instanceof AnalyticColumn) {
+                final AnalyticColumn ac = (AnalyticColumn) qc;
+                final ObjList<ExpressionNode> orderBy = ac.getOrderBy();
+                if (orderBy.size() == 0 || isAnalyticOrderFollowedByBase(model, ac, base)) {
+                    continue;
+                }
+                if (
+                        orderBy.size() == 1
+                                && ac.getOrderByDirection().getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING
+                                && timestampIndex != -1
+                                && base.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                                && orderBy.getQuick(0).type == LITERAL
+                                && baseMetadata.getColumnIndexQuiet(orderBy.getQuick(0).token) == timestampIndex
+                ) {
+                    continue;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isOrderByDesignatedTimestampOnly(QueryModel model) {
         return model.getOrderByAdvice().size() == 1 && model.getTimestamp() != null &&
                 Chars.equalsIgnoreCase(model.getOrderByAdvice().getQuick(0).token, model.getTimestamp().token);
@@ -4361,6 +4765,32 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 getOrderByDirectionOrDefault(model, 0) == ORDER_DIRECTION_DESCENDING;
     }
 
+    private boolean isParallelAsOfJoinSupported(
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            SqlExecutionContext executionContext
+    ) {
+        return configuration.getSqlParallelAsOfJoinLookback() > 0
+                && executionContext.isParallelFilterEnabled()
+                && master.supportPageFrameCursor()
+                && master.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                && slave.supportPageFrameCursor()
+                && slave.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD;
+    }
+
+    private boolean isParallelSampleBySupported(
+            ExpressionNode timezoneName,
+            SqlExecutionContext executionContext,
+            RecordCursorFactory factory,
+            ObjList<GroupByFunction> groupByFunctions
+    ) {
+        return timezoneName == null
+                && executionContext.isParallelGroupByEnabled()
+                && factory.supportPageFrameCursor()
+                && executionContext.getSharedWorkerCount() > 0
+                && GroupByUtils.isParallelismSupported(groupByFunctions);
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equalsIgnoreCase(ast.token, name) && ast.rhs.type == LITERAL;
     }
@@ -4401,6 +4831,94 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private AnalyticFunction parseAnalyticFunction(
+            AnalyticColumn ac,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ExpressionNode ast = ac.getAst();
+        if (ast.paramCount > 1) {
+            throw SqlException.$(ast.position, "too many arguments");
+        }
+
+        ObjList<Function> partitionBy = null;
+        int psz = ac.getPartitionBy().size();
+        if (psz > 0) {
+            partitionBy = new ObjList<>(psz);
+            for (int j = 0; j < psz; j++) {
+                partitionBy.add(
+                        functionParser.parseFunction(ac.getPartitionBy().getQuick(j), metadata, executionContext)
+                );
+            }
+        }
+
+        final VirtualRecord partitionByRecord;
+        final RecordSink partitionBySink;
+
+        if (partitionBy != null) {
+            partitionByRecord = new VirtualRecord(partitionBy);
+            keyTypes.clear();
+            final int partitionByCount = partitionBy.size();
+
+            for (int j = 0; j < partitionByCount; j++) {
+                keyTypes.add(partitionBy.getQuick(j).getType());
+            }
+            entityColumnFilter.of(partitionByCount);
+            // create sink
+            partitionBySink = RecordSinkFactory.getInstance(
+                    asm,
+                    keyTypes,
+                    entityColumnFilter,
+                    false
+            );
+        } else {
+            partitionByRecord = null;
+            partitionBySink = null;
+        }
+
+        final int osz = ac.getOrderBy().size();
+        // RANGE frame offsets are in the units of the ORDER BY timestamp
+        int frameTimestampIndex = -1;
+        if (ac.getFramingMode() == AnalyticColumn.FRAMING_RANGE && ac.getRowsLo() != AnalyticColumn.UNBOUNDED) {
+            if (osz == 1 && ac.getOrderByDirection().getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING) {
+                final ExpressionNode orderBy = ac.getOrderBy().getQuick(0);
+                if (orderBy.type == LITERAL) {
+                    final int index = metadata.getColumnIndexQuiet(orderBy.token);
+                    if (index > -1 && ColumnType.isTimestamp(metadata.getColumnType(index))) {
+                        frameTimestampIndex = index;
+                    }
+                }
+            }
+            if (frameTimestampIndex == -1) {
+                Misc.freeObjList(partitionBy);
+                throw SqlException.$(ac.getRowsLoPos(), "RANGE frame with offset requires ascending ORDER BY on a single timestamp column");
+            }
+        }
+
+        executionContext.configureAnalyticContext(
+                partitionByRecord,
+                partitionBySink,
+                keyTypes,
+                osz > 0,
+                base.recordCursorSupportsRandomAccess(),
+                ac.getFramingMode(),
+                ac.getRowsLo(),
+                frameTimestampIndex
+        );
+        final Function f;
+        try {
+            f = functionParser.parseFunction(ast, metadata, executionContext);
+            if (!(f instanceof AnalyticFunction)) {
+                Misc.free(f);
+                throw SqlException.$(ast.position, "non-analytic function called in analytic context");
+            }
+        } finally {
+            executionContext.clearAnalyticContext();
+        }
+        return (AnalyticFunction) f;
+    }
+
     private int prepareLatestByColumnIndexes(ObjList<ExpressionNode> latestBy, RecordMetadata myMeta) throws SqlException {
         keyTypes.clear();
         listColumnFilterA.clear();
@@ -4599,6 +5117,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return ColumnType.isString(columnType) ? Record.GET_STR : Record.GET_SYM;
     }
 
+    private RecordCursorFactory wrapForAnalyze(RecordCursorFactory factory) {
+        if (!analyze || factory instanceof AnalyzeRecordCursorFactory) {
+            return factory;
+        }
+        return new AnalyzeRecordCursorFactory(factory, configuration.getNanosecondClock());
+    }
+
     private RecordMetadata widenSetMetadata(RecordMetadata typesA, RecordMetadata typesB) {
         int columnCount = typesA.getColumnCount();
         assert columnCount == typesB.getColumnCount();
@@ -28,15 +28,18 @@ import io.questdb.MessageBus;
 import io.questdb.PropServerConfiguration;
 import io.questdb.TelemetryOrigin;
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewDefinition;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cutlass.parquet.ParquetWriter;
 import io.questdb.cutlass.text.*;
 import io.questdb.griffin.engine.functions.catalogue.*;
 import io.questdb.griffin.engine.ops.AlterOperationBuilder;
 import io.questdb.griffin.engine.ops.CopyFactory;
+import io.questdb.griffin.engine.ops.CopyToParquetFactory;
 import io.questdb.griffin.engine.ops.InsertOperationImpl;
 import io.questdb.griffin.engine.ops.UpdateOperation;
 import io.questdb.griffin.engine.table.ShowColumnsRecordCursorFactory;
@@ -1220,6 +1223,12 @@ public class SqlCompiler implements Closeable {
                     optimiser.optimiseUpdate(queryModel, executionContext, metadata);
                     return model;
                 }
+            case ExecutionModel.COPY:
+                final CopyModel copyModel = (CopyModel) model;
+                if (copyModel.getQueryModel() != null) {
+                    copyModel.setQueryModel(optimiser.optimise(copyModel.getQueryModel(), executionContext));
+                }
+                return model;
             default:
                 return model;
         }
@@ -1270,6 +1279,31 @@ public class SqlCompiler implements Closeable {
         );
     }
 
+    private CopyToParquetFactory compileParquetExport(CopyModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode fileNameNode = model.getFileName();
+        final String fileName = Chars.toString(GenericLexer.assertNoDots(GenericLexer.unquote(fileNameNode.token), fileNameNode.position));
+        if (model.getQueryModel() != null) {
+            final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
+            try {
+                validateParquetExport(factory.getMetadata(), fileNameNode.position);
+                return new CopyToParquetFactory(configuration, null, factory, fileName, model.getRowGroupSize());
+            } catch (Throwable th) {
+                Misc.free(factory);
+                throw th;
+            }
+        }
+
+        final ExpressionNode target = model.getTarget();
+        final TableToken tableToken = executionContext.getTableTokenIfExists(GenericLexer.unquote(target.token));
+        if (tableToken == null) {
+            throw SqlException.$(target.position, "table does not exist [table=").put(target.token).put(']');
+        }
+        try (TableRecordMetadata metadata = executionContext.getMetadata(tableToken)) {
+            validateParquetExport(metadata, target.position);
+        }
+        return new CopyToParquetFactory(configuration, tableToken.getTableName(), null, fileName, model.getRowGroupSize());
+    }
+
     @NotNull
     private CompiledQuery compileUsingModel(SqlExecutionContext executionContext) throws SqlException {
         // This method will not populate sql cache directly;
@@ -1299,6 +1333,7 @@ public class SqlCompiler implements Closeable {
             case ExecutionModel.UPDATE:
                 final QueryModel updateQueryModel = (QueryModel) executionModel;
                 TableToken tableToken = executionContext.getTableToken(updateQueryModel.getTableName());
+                matViewWriteCheck(updateQueryModel.getModelPosition(), tableToken);
                 try (TableRecordMetadata metadata = executionContext.getMetadata(tableToken)) {
                     final UpdateOperation updateOperation = generateUpdate(updateQueryModel, executionContext, metadata);
                     return compiledQuery.ofUpdate(updateOperation);
@@ -1651,6 +1686,11 @@ public class SqlCompiler implements Closeable {
                 throw SqlException.$(name.position, "Could not create table, ").put(e.getFlyweightMessage());
             }
         } else {
+            final MatViewDefinition matViewDefinition = createTableModel.getMatViewDefinition();
+            // base table txn is taken before the query reader is opened, transactions seen
+            // by both are recomputed by the first refresh, which is harmless
+            final TableToken baseTableToken = matViewDefinition != null ? getMatViewBaseTableToken(createTableModel, executionContext) : null;
+            final long baseTableTxn = baseTableToken != null ? getMatViewBaseTableTxn(createTableModel, baseTableToken, executionContext) : -1;
             boolean keepLock = !createTableModel.isWalEnabled();
             createTableFromCursorExecutor(createTableModel, executionContext, name.position, metadata -> {
                 if (volumeAlias == null) {
@@ -1673,6 +1713,13 @@ public class SqlCompiler implements Closeable {
                     );
                 }
             });
+            if (matViewDefinition != null) {
+                final TableToken viewToken = executionContext.getTableToken(name.token);
+                matViewDefinition.of(viewToken, baseTableToken, baseTableTxn);
+                path.of(configuration.getRoot()).concat(viewToken);
+                matViewDefinition.write(ff, mem, path, path.length(), renamePath);
+                engine.getMatViewGraph().addView(matViewDefinition);
+            }
         }
 
         if (createTableModel.getQueryModel() == null) {
@@ -1776,20 +1823,31 @@ public class SqlCompiler implements Closeable {
 
     @NotNull
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
-        executionContext.getCairoSecurityContext().checkWritePermission();
-        if (!executionModel.isCancel() && Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
-            // no-op implementation
-            setupTextLoaderFromModel(executionModel);
-            return compiledQuery.ofCopyRemote(textLoader);
+        final ExpressionNode fileName = executionModel.getFileName();
+        if (!executionModel.isCancel() && fileName.type == ExpressionNode.LITERAL) {
+            if (executionModel.isExport() && SqlKeywords.isStdoutKeyword(fileName.token)) {
+                // the connection streams cursor rows to the client, text loader carries the text format options
+                setupTextLoaderFromModel(executionModel);
+                return compiledQuery.ofCopyRemote(textLoader, generate(executionModel.getQueryModel(), executionContext), executionModel.getFormat());
+            }
+            if (!executionModel.isExport() && SqlKeywords.isStdinKeyword(fileName.token)) {
+                // the connection feeds rows the client sends into the table
+                executionContext.getCairoSecurityContext().checkWritePermission();
+                setupTextLoaderFromModel(executionModel);
+                return compiledQuery.ofCopyRemote(textLoader, null, executionModel.getFormat());
+            }
         }
-        RecordCursorFactory copyFactory = executeCopy0(executionModel);
+        executionContext.getCairoSecurityContext().checkWritePermission();
+        RecordCursorFactory copyFactory = executeCopy0(executionModel, executionContext);
         return compiledQuery.ofCopyLocal(copyFactory);
     }
 
     @Nullable
-    private RecordCursorFactory executeCopy0(CopyModel model) throws SqlException {
+    private RecordCursorFactory executeCopy0(CopyModel model, SqlExecutionContext executionContext) throws SqlException {
         try {
-            if (model.isCancel()) {
+            if (model.isExport()) {
+                return compileParquetExport(model, executionContext);
+            } else if (model.isCancel()) {
                 cancelTextImport(model);
                 return null;
             } else {
@@ -1877,6 +1935,28 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private TableToken getMatViewBaseTableToken(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
+        final MatViewDefinition matViewDefinition = model.getMatViewDefinition();
+        final int position = model.getMatViewBaseTablePosition();
+        final TableToken baseTableToken = executionContext.getTableTokenIfExists(matViewDefinition.getBaseTableName());
+        if (executionContext.getStatus(path, baseTableToken) != TableUtils.TABLE_EXISTS) {
+            throw SqlException.$(position, "table does not exist [table=").put(matViewDefinition.getBaseTableName()).put(']');
+        }
+        if (!baseTableToken.isWal()) {
+            throw SqlException.$(position, "materialized view base table must be a WAL table");
+        }
+        return baseTableToken;
+    }
+
+    private long getMatViewBaseTableTxn(CreateTableModel model, TableToken baseTableToken, SqlExecutionContext executionContext) throws SqlException {
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), baseTableToken)) {
+            if (reader.getMetadata().getTimestampIndex() < 0) {
+                throw SqlException.$(model.getMatViewBaseTablePosition(), "materialized view base table must have a designated timestamp");
+            }
+            return reader.getTxFile().getSeqTxn();
+        }
+    }
+
     private int getNextValidTokenPosition() {
         while (lexer.hasNext()) {
             CharSequence token = SqlUtil.fetchNext(lexer);
@@ -1909,6 +1989,7 @@ public class SqlCompiler implements Closeable {
         final ExpressionNode tableNameExpr = model.getTableNameExpr();
         ObjList<Function> valueFunctions = null;
         TableToken token = tableExistsOrFail(tableNameExpr.position, tableNameExpr.token, executionContext);
+        matViewWriteCheck(tableNameExpr.position, token);
 
         try (TableRecordMetadata metadata = engine.getMetadata(
                 executionContext.getCairoSecurityContext(),
@@ -2011,6 +2092,7 @@ public class SqlCompiler implements Closeable {
         final ExpressionNode tableNameExpr = model.getTableNameExpr();
 
         TableToken tableToken = tableExistsOrFail(tableNameExpr.position, tableNameExpr.token, executionContext);
+        matViewWriteCheck(tableNameExpr.position, tableToken);
         long insertCount;
 
         try (
@@ -2219,6 +2301,13 @@ public class SqlCompiler implements Closeable {
         return model;
     }
 
+    private void matViewWriteCheck(int position, TableToken tableToken) throws SqlException {
+        // materialized view is written by the refresh job only, rows written by users would be lost on refresh
+        if (engine.getMatViewGraph().getView(tableToken) != null) {
+            throw SqlException.$(position, "cannot modify materialized view [view=").put(tableToken.getTableName()).put(']');
+        }
+    }
+
     private RecordCursorFactory prepareForUpdate(
             TableToken tableToken,
             QueryModel selectQueryModel,
@@ -2365,10 +2454,21 @@ public class SqlCompiler implements Closeable {
         //   - what happens when data row errors out, max errors may be?
         //   - we should be able to skip X rows from top, dodgy headers etc.
 
-        textLoader.configureDestination(model.getTarget().token, false, false,
-                model.getAtomicity() != -1 ? model.getAtomicity() : Atomicity.SKIP_ROW,
-                model.getPartitionBy() < 0 ? PartitionBy.NONE : model.getPartitionBy(),
-                model.getTimestampColumnName(), model.getTimestampFormat());
+        final ExpressionNode target = model.getTarget();
+        if (target != null) {
+            textLoader.configureDestination(GenericLexer.unquote(target.token), false, false,
+                    model.getAtomicity() != -1 ? model.getAtomicity() : Atomicity.SKIP_ROW,
+                    model.getPartitionBy() < 0 ? PartitionBy.NONE : model.getPartitionBy(),
+                    model.getTimestampColumnName(), model.getTimestampFormat());
+        }
+        if (model.getDelimiter() > 0) {
+            textLoader.configureColumnDelimiter(model.getDelimiter());
+        } else if (model.getFormat() == CopyModel.FORMAT_CSV) {
+            textLoader.configureColumnDelimiter((byte) ',');
+        } else {
+            textLoader.configureColumnDelimiter((byte) '\t');
+        }
+        textLoader.setForceHeaders(model.isHeader());
     }
 
     private CompiledQuery snapshotDatabase(SqlExecutionContext executionContext) throws SqlException {
@@ -2603,6 +2703,18 @@ public class SqlCompiler implements Closeable {
         return model;
     }
 
+    private void validateParquetExport(RecordMetadata metadata, int position) throws SqlException {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (!ParquetWriter.isSupported(columnType)) {
+                throw SqlException.$(position, "column type is not supported by parquet export [column=")
+                        .put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+        }
+    }
+
     private void validateTableModelAndCreateTypeCast(
             CreateTableModel model,
             RecordMetadata metadata,
@@ -2650,6 +2762,21 @@ public class SqlCompiler implements Closeable {
             }
         }
 
+        // validate that deduplication keys are fixed size columns
+        for (int i = 0, n = model.getColumnCount(); i < n; i++) {
+            if (model.isDedupKey(i)) {
+                final CharSequence columnName = model.getColumnName(i);
+                final int index = metadata.getColumnIndexQuiet(columnName);
+                final int castIndex = typeCast.keyIndex(index);
+                final int type = castIndex < 0 ? typeCast.valueAt(castIndex) : metadata.getColumnType(index);
+                if (ColumnType.isVariableLength(type)) {
+                    throw SqlException.$(0, "deduplication key column must be of a fixed size type [column=").put(columnName)
+                            .put(", type=").put(ColumnType.nameOf(type))
+                            .put(']');
+                }
+            }
+        }
+
         // validate type of timestamp column
         // no need to worry that column will not resolve
         ExpressionNode timestamp = model.getTimestamp();
@@ -2826,6 +2953,11 @@ public class SqlCompiler implements Closeable {
             return timestampIndex;
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return model.isDedupKey(columnIndex);
+        }
+
         @Override
         public boolean isIndexed(int columnIndex) {
             return model.isIndexed(columnIndex);
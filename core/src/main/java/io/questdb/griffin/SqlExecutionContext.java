@@ -30,6 +30,7 @@ import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.cairo.vm.MemoryBudget;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Rnd;
@@ -53,7 +54,10 @@ public interface SqlExecutionContext extends Closeable {
             @Nullable RecordSink partitionBySink,
             @Transient @Nullable ColumnTypes keyTypes,
             boolean isOrdered,
-            boolean baseSupportsRandomAccess
+            boolean baseSupportsRandomAccess,
+            int framingMode,
+            long rowsLo,
+            int timestampIndex
     );
 
     AnalyticContext getAnalyticContext();
@@ -90,6 +94,13 @@ public interface SqlExecutionContext extends Closeable {
         return engine.getMetadata(getCairoSecurityContext(), tableToken, structureVersion);
     }
 
+    /**
+     * @return memory budget shared by the spillable structures of the running query, null if there is no limit
+     */
+    default @Nullable MemoryBudget getMemoryBudget() {
+        return null;
+    }
+
     long getMicrosecondTimestamp();
 
     long getNow();
@@ -140,6 +151,8 @@ public interface SqlExecutionContext extends Closeable {
 
     boolean isParallelFilterEnabled();
 
+    boolean isParallelGroupByEnabled();
+
     boolean isTimestampRequired();
 
     boolean isWalApplication();
@@ -158,6 +171,8 @@ public interface SqlExecutionContext extends Closeable {
 
     void setParallelFilterEnabled(boolean parallelFilterEnabled);
 
+    void setParallelGroupByEnabled(boolean parallelGroupByEnabled);
+
     void setRandom(Rnd rnd);
 
     default void storeTelemetry(short event, short origin) {
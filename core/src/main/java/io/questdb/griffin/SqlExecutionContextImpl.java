@@ -30,6 +30,7 @@ import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.cairo.vm.MemoryBudget;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.griffin.engine.analytic.AnalyticContextImpl;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
@@ -48,6 +49,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private final int sharedWorkerCount;
     private final Telemetry<TelemetryTask> telemetry;
     private final TelemetryFacade telemetryFacade;
+    private final MemoryBudget memoryBudget;
     private final IntStack timestampRequiredStack = new IntStack();
     private final int workerCount;
     private BindVariableService bindVariableService;
@@ -60,6 +62,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private long now;
     private final MicrosecondClock nowClock = () -> now;
     private boolean parallelFilterEnabled;
+    private boolean parallelGroupByEnabled;
     private Rnd random;
     private long requestFd = -1;
 
@@ -75,6 +78,9 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         cairoSecurityContext = AllowAllCairoSecurityContext.INSTANCE;
         jitMode = cairoConfiguration.getSqlJitMode();
         parallelFilterEnabled = cairoConfiguration.isSqlParallelFilterEnabled();
+        parallelGroupByEnabled = cairoConfiguration.isSqlParallelGroupByEnabled();
+        final long memoryBudgetLimit = cairoConfiguration.getSqlQueryMemoryBudget();
+        memoryBudget = memoryBudgetLimit > 0 ? new MemoryBudget(memoryBudgetLimit) : null;
         telemetry = cairoEngine.getTelemetry();
         telemetryFacade = telemetry.isEnabled() ? this::doStoreTelemetry : this::storeTelemetryNoop;
     }
@@ -89,8 +95,26 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     }
 
     @Override
-    public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Transient @Nullable ColumnTypes partitionByKeyTypes, boolean ordered, boolean baseSupportsRandomAccess) {
-        analyticContext.of(partitionByRecord, partitionBySink, partitionByKeyTypes, ordered, baseSupportsRandomAccess);
+    public void configureAnalyticContext(
+            @Nullable VirtualRecord partitionByRecord,
+            @Nullable RecordSink partitionBySink,
+            @Transient @Nullable ColumnTypes partitionByKeyTypes,
+            boolean ordered,
+            boolean baseSupportsRandomAccess,
+            int framingMode,
+            long rowsLo,
+            int timestampIndex
+    ) {
+        analyticContext.of(
+                partitionByRecord,
+                partitionBySink,
+                partitionByKeyTypes,
+                ordered,
+                baseSupportsRandomAccess,
+                framingMode,
+                rowsLo,
+                timestampIndex
+        );
     }
 
     @Override
@@ -128,6 +152,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return jitMode;
     }
 
+    @Override
+    public @Nullable MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
     @Override
     public long getMicrosecondTimestamp() {
         return clock.getTicks();
@@ -178,6 +207,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return parallelFilterEnabled;
     }
 
+    @Override
+    public boolean isParallelGroupByEnabled() {
+        return parallelGroupByEnabled;
+    }
+
     @Override
     public boolean isTimestampRequired() {
         return timestampRequiredStack.notEmpty() && timestampRequiredStack.peek() == 1;
@@ -224,6 +258,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         this.parallelFilterEnabled = parallelFilterEnabled;
     }
 
+    @Override
+    public void setParallelGroupByEnabled(boolean parallelGroupByEnabled) {
+        this.parallelGroupByEnabled = parallelGroupByEnabled;
+    }
+
     @Override
     public void setRandom(Rnd rnd) {
         this.random = rnd;
@@ -25,9 +25,13 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewDefinition;
 import io.questdb.cutlass.text.Atomicity;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -108,6 +112,57 @@ public final class SqlParser {
         return SqlException.unexpectedToken(lexer.lastTokenPosition(), token);
     }
 
+    private static int findTableNameEnd(CharSequence sql, int lo) {
+        final int len = sql.length();
+        final char c = sql.charAt(lo);
+        if (c == '"' || c == '\'') {
+            int i = lo + 1;
+            while (i < len && sql.charAt(i) != c) {
+                i++;
+            }
+            return Math.min(i + 1, len);
+        }
+        int i = lo;
+        while (i < len) {
+            final char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch) || ch == ')' || ch == ',' || ch == ';') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static long frameUnitMicros(CharSequence tok) {
+        if (isFrameUnit(tok, "microsecond")) {
+            return 1;
+        }
+        if (isFrameUnit(tok, "millisecond")) {
+            return Timestamps.MILLI_MICROS;
+        }
+        if (isFrameUnit(tok, "second")) {
+            return Timestamps.SECOND_MICROS;
+        }
+        if (isFrameUnit(tok, "minute")) {
+            return Timestamps.MINUTE_MICROS;
+        }
+        if (isFrameUnit(tok, "hour")) {
+            return Timestamps.HOUR_MICROS;
+        }
+        if (isFrameUnit(tok, "day")) {
+            return Timestamps.DAY_MICROS;
+        }
+        return 0;
+    }
+
+    // matches unit name in both singular and plural form, e.g. 'second' and 'seconds'
+    private static boolean isFrameUnit(CharSequence tok, String unit) {
+        final int len = tok.length();
+        final int unitLen = unit.length();
+        return (len == unitLen || (len == unitLen + 1 && (tok.charAt(unitLen) | 32) == 's'))
+                && Chars.equalsLowerCaseAscii(tok, 0, unitLen, unit, 0, unitLen);
+    }
+
     private static boolean isValidSampleByPeriodLetter(CharSequence token) {
         if (token.length() != 1) return false;
         switch (token.charAt(0)) {
@@ -132,6 +187,19 @@ public final class SqlParser {
         }
     }
 
+    private void addCreateTableAsSelectColumns(CreateTableModel model, QueryModel queryModel) throws SqlException {
+        ObjList<QueryColumn> columns = queryModel.getBottomUpColumns();
+        assert columns.size() > 0;
+
+        // we do not know types of columns at this stage
+        // compiler must put table together using query metadata.
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
+        }
+
+        model.setQueryModel(queryModel);
+    }
+
     private void addConcatArgs(ObjList<ExpressionNode> args, ExpressionNode leaf) {
         if (leaf.type != ExpressionNode.FUNCTION || !isConcatKeyword(leaf.token)) {
             args.add(leaf);
@@ -153,6 +221,12 @@ public final class SqlParser {
         }
     }
 
+    private void checkCopyEnabled(int copyPosition) throws SqlException {
+        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
+            throw SqlException.$(copyPosition, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+        }
+    }
+
     //prevent full/right from being used as table aliases
     private void checkSupportedJoinType(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (tok != null && (SqlKeywords.isFullKeyword(tok) || SqlKeywords.isRightKeyword(tok))) {
@@ -343,6 +417,62 @@ public final class SqlParser {
         return tok;
     }
 
+    private void parseAnalyticFrame(GenericLexer lexer, AnalyticColumn col, CharSequence framingTok) throws SqlException {
+        final int framingMode = isRowsKeyword(framingTok) ? AnalyticColumn.FRAMING_ROWS : AnalyticColumn.FRAMING_RANGE;
+        CharSequence tok = tok(lexer, "'between', 'unbounded', 'current' or integer");
+        final boolean between = isBetweenKeyword(tok);
+        if (between) {
+            tok = tok(lexer, "'unbounded', 'current' or integer");
+        }
+
+        final int rowsLoPos = lexer.lastTokenPosition();
+        final long rowsLo;
+        if (isUnboundedKeyword(tok)) {
+            if (!isPrecedingKeyword(tok(lexer, "'preceding'"))) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'preceding' expected");
+            }
+            rowsLo = AnalyticColumn.UNBOUNDED;
+        } else if (isCurrentKeyword(tok)) {
+            expectTok(lexer, "row");
+            rowsLo = 0;
+        } else {
+            long offset;
+            try {
+                offset = Numbers.parseLong(tok);
+            } catch (NumericException e) {
+                throw SqlException.$(rowsLoPos, "non-negative integer expected");
+            }
+            if (offset < 0) {
+                throw SqlException.$(rowsLoPos, "non-negative integer expected");
+            }
+
+            tok = tok(lexer, "'preceding'");
+            if (framingMode == AnalyticColumn.FRAMING_RANGE) {
+                final long unitMicros = frameUnitMicros(tok);
+                if (unitMicros > 0) {
+                    if (offset > Long.MAX_VALUE / unitMicros) {
+                        throw SqlException.$(rowsLoPos, "frame offset is too large");
+                    }
+                    offset *= unitMicros;
+                    tok = tok(lexer, "'preceding'");
+                }
+            }
+            if (!isPrecedingKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'preceding' expected");
+            }
+            rowsLo = offset;
+        }
+
+        if (between) {
+            expectTok(lexer, "and");
+            if (!isCurrentKeyword(tok(lexer, "'current'"))) {
+                throw SqlException.$(lexer.lastTokenPosition(), "only 'current row' is supported as frame end");
+            }
+            expectTok(lexer, "row");
+        }
+        col.setFrame(framingMode, rowsLo, rowsLoPos);
+    }
+
     private QueryModel parseAsSubQueryAndExpectClosingBrace(GenericLexer lexer,
                                                             LowerCaseCharSequenceObjHashMap<WithClauseModel> withClauses,
                                                             boolean useTopLevelWithClauses)
@@ -353,19 +483,32 @@ public final class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer) throws SqlException {
-        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+        // STDIN and STDOUT stream data over the client connection and do not need the copy root
+        final int copyPosition = lexer.lastTokenPosition();
+        CharSequence tok = tok(lexer, "table name or '('");
+        if (Chars.equals(tok, '(')) {
+            // COPY (query) TO 'file' WITH FORMAT PARQUET
+            final QueryModel queryModel = parseAsSubQueryAndExpectClosingBrace(lexer, null, true);
+            expectTok(lexer, "to");
+            return parseCopyTo(lexer, null, queryModel, copyPosition);
         }
+        lexer.unparseLast();
+
         ExpressionNode target = expectExpr(lexer);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        tok = tok(lexer, "'from' or 'to' or 'cancel'");
 
         if (isCancelKeyword(tok)) {
+            checkCopyEnabled(copyPosition);
             CopyModel model = copyModelPool.next();
             model.setCancel(true);
             model.setTarget(target);
             return model;
         }
 
+        if (isToKeyword(tok)) {
+            return parseCopyTo(lexer, target, null, copyPosition);
+        }
+
         if (isFromKeyword(tok)) {
             final ExpressionNode fileName = expectExpr(lexer);
             if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
@@ -376,6 +519,11 @@ public final class SqlParser {
             model.setTarget(target);
             model.setFileName(fileName);
 
+            if (fileName.type == ExpressionNode.LITERAL && isStdinKeyword(fileName.token)) {
+                return parseCopyRemoteOptions(lexer, model, true);
+            }
+            checkCopyEnabled(copyPosition);
+
             tok = optTok(lexer);
             if (tok != null && isWithKeyword(tok)) {
                 tok = tok(lexer, "copy option");
@@ -442,7 +590,260 @@ public final class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    private ExecutionModel parseCopyRemoteOptions(GenericLexer lexer, CopyModel model, boolean allowBinary) throws SqlException {
+        // accepts both the parenthesised option list, e.g. WITH (FORMAT csv, HEADER true),
+        // and the legacy PostgreSQL syntax, e.g. WITH CSV HEADER DELIMITER ';'
+        CharSequence tok = optTok(lexer);
+        if (tok != null && isWithKeyword(tok)) {
+            tok = tok(lexer, "copy option");
+        }
+        final boolean parenthesised = tok != null && Chars.equals(tok, '(');
+        if (parenthesised) {
+            tok = tok(lexer, "copy option");
+        }
+        boolean closed = !parenthesised;
+        while (tok != null && !isSemicolon(tok)) {
+            if (parenthesised && Chars.equals(tok, ')')) {
+                if (closed) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected token");
+                }
+                closed = true;
+                tok = optTok(lexer);
+                continue;
+            }
+            if (closed && parenthesised) {
+                throw SqlException.$(lexer.lastTokenPosition(), "unexpected token");
+            }
+            if (isFormatKeyword(tok)) {
+                tok = tok(lexer, "'text', 'csv' or 'binary'");
+                if (isTextKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_TEXT);
+                } else if (isCsvKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_CSV);
+                } else if (isBinaryKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_BINARY);
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "'text', 'csv' or 'binary' expected");
+                }
+                tok = optTok(lexer);
+            } else if (isCsvKeyword(tok)) {
+                model.setFormat(CopyModel.FORMAT_CSV);
+                tok = optTok(lexer);
+            } else if (isBinaryKeyword(tok)) {
+                model.setFormat(CopyModel.FORMAT_BINARY);
+                tok = optTok(lexer);
+            } else if (isHeaderKeyword(tok)) {
+                tok = optTok(lexer);
+                if (tok != null && (isTrueKeyword(tok) || isFalseKeyword(tok))) {
+                    model.setHeader(isTrueKeyword(tok));
+                    tok = optTok(lexer);
+                } else {
+                    model.setHeader(true);
+                }
+            } else if (isDelimiterKeyword(tok)) {
+                tok = tok(lexer, "delimiter character expected");
+                CharSequence delimiter = GenericLexer.unquote(tok);
+                if (delimiter == null || delimiter.length() != 1) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "delimiter is empty or contains more than 1 character");
+                }
+                char delimiterChar = delimiter.charAt(0);
+                if (delimiterChar > 127) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "delimiter is not an ascii character");
+                }
+                model.setDelimiter((byte) delimiterChar);
+                tok = optTok(lexer);
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+            }
+            if (parenthesised && tok != null && Chars.equals(tok, ',')) {
+                tok = tok(lexer, "copy option");
+            }
+        }
+        if (!closed) {
+            throw SqlException.$(lexer.getPosition(), "')' expected");
+        }
+        if (model.getFormat() == CopyModel.FORMAT_BINARY) {
+            if (!allowBinary) {
+                throw SqlException.$(model.getFileName().position, "binary format is not supported for COPY TO STDOUT");
+            }
+            if (model.isHeader() || model.getDelimiter() > 0) {
+                throw SqlException.$(model.getFileName().position, "binary format does not support header and delimiter options");
+            }
+        }
+        return model;
+    }
+
+    private ExecutionModel parseCopyTo(GenericLexer lexer, ExpressionNode target, QueryModel queryModel, int copyPosition) throws SqlException {
+        final ExpressionNode fileName = expectExpr(lexer);
+        final boolean stdout = fileName.type == ExpressionNode.LITERAL && isStdoutKeyword(fileName.token);
+        if (!stdout && (fileName.token.length() < 3 || !Chars.startsWith(fileName.token, '\''))) {
+            throw SqlException.$(fileName.position, "file name expected");
+        }
+
+        CopyModel model = copyModelPool.next();
+        model.setExport(true);
+        model.setTarget(target);
+        model.setQueryModel(queryModel);
+        model.setFileName(fileName);
+
+        if (stdout) {
+            if (queryModel == null) {
+                // COPY table TO STDOUT is the same as COPY (table) TO STDOUT
+                final QueryModel selectModel = queryModelPool.next();
+                selectModel.setModelPosition(target.position);
+                SqlUtil.addSelectStar(selectModel, queryColumnPool, expressionNodePool);
+                final QueryModel tableModel = queryModelPool.next();
+                tableModel.setModelPosition(target.position);
+                tableModel.setTableNameExpr(literal(target.token, target.position));
+                selectModel.setSelectModelType(QueryModel.SELECT_MODEL_CHOOSE);
+                selectModel.setNestedModel(tableModel);
+                model.setQueryModel(selectModel);
+            }
+            return parseCopyRemoteOptions(lexer, model, false);
+        }
+        checkCopyEnabled(copyPosition);
+
+        CharSequence tok = optTok(lexer);
+        if (tok != null && isWithKeyword(tok)) {
+            tok = tok(lexer, "copy option");
+            while (tok != null && !isSemicolon(tok)) {
+                if (isFormatKeyword(tok)) {
+                    tok = tok(lexer, "'parquet'");
+                    if (!isParquetKeyword(tok)) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'parquet' expected");
+                    }
+                    tok = optTok(lexer);
+                } else if (Chars.equalsLowerCaseAscii(tok, "row_group_size")) {
+                    tok = tok(lexer, "row group size");
+                    final int position = lexer.lastTokenPosition();
+                    try {
+                        final int rowGroupSize = Numbers.parseInt(tok);
+                        if (rowGroupSize < 1) {
+                            throw SqlException.$(position, "row group size must be positive");
+                        }
+                        model.setRowGroupSize(rowGroupSize);
+                    } catch (NumericException e) {
+                        throw SqlException.$(position, "row group size expected");
+                    }
+                    tok = optTok(lexer);
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+                }
+            }
+        } else if (tok != null && !SqlKeywords.isSemicolon(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'with' expected");
+        }
+        return model;
+    }
+
+    private ExecutionModel parseCreateMatView(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CreateTableModel model = createTableModelPool.next();
+        final CharSequence tableName;
+        CharSequence tok = tok(lexer, "view name or 'if'");
+        if (SqlKeywords.isIfKeyword(tok)) {
+            if (SqlKeywords.isNotKeyword(tok(lexer, "'not'")) && SqlKeywords.isExistsKeyword(tok(lexer, "'exists'"))) {
+                model.setIgnoreIfExists(true);
+                tableName = tok(lexer, "view name");
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "'if not exists' expected");
+            }
+        } else {
+            tableName = tok;
+        }
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tableName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer, null, queryLo, true);
+        expectTok(lexer, ')');
+        final int queryHi = lexer.lastTokenPosition();
+
+        // the view is refreshed by re-running the query against a time slice of the base table,
+        // we only accept the shape of query for which this is trivially correct
+        final QueryModel fromModel = queryModel.getNestedModel();
+        final ExpressionNode baseTableExpr = fromModel != null ? fromModel.getTableNameExpr() : null;
+        if (baseTableExpr == null || baseTableExpr.type != ExpressionNode.LITERAL || fromModel.getNestedModel() != null
+                || queryModel.getUnionModel() != null || fromModel.getJoinModels().size() > 1) {
+            throw SqlException.$(queryLo, "materialized view query must select from a single base table");
+        }
+        final ExpressionNode sampleBy = fromModel.getSampleBy();
+        if (sampleBy == null || fromModel.getSampleByUnit() != null) {
+            throw SqlException.$(queryLo, "materialized view query must use SAMPLE BY with a constant interval");
+        }
+        final ObjList<ExpressionNode> fill = fromModel.getSampleByFill();
+        if (fill.size() > 1 || (fill.size() == 1 && !isNoneKeyword(fill.getQuick(0).token))) {
+            throw SqlException.$(fill.getQuick(0).position, "materialized view query does not support FILL");
+        }
+        final ExpressionNode offset = fromModel.getSampleByOffset();
+        if (offset == null || !Chars.equals(offset.token, ZERO_OFFSET.token) || fromModel.getSampleByTimezoneName() != null) {
+            throw SqlException.$(sampleBy.position, "materialized view query must use ALIGN TO CALENDAR without time zone and offset");
+        }
+        TimestampSamplerFactory.getInstance(sampleBy.token, sampleBy.position);
+
+        final CharSequence sql = lexer.getContent();
+        final int baseLo = baseTableExpr.position;
+        final int baseHi = findTableNameEnd(sql, baseLo);
+        final CharSequence baseTableText = sql.subSequence(baseLo, baseHi);
+        final StringSink sink = Misc.getThreadLocalBuilder();
+        sink.put(sql, queryLo, baseLo).put("(select * from ").put(baseTableText);
+        final String refreshQueryPrefix = sink.toString();
+        sink.clear();
+        sink.put(')');
+        if (fromModel.getAlias() == null) {
+            // keep the column references qualified with the table name valid
+            sink.put(' ').put(baseTableText);
+        }
+        sink.put(sql, baseHi, queryHi);
+        final String refreshQuerySuffix = sink.toString();
+
+        model.setMatViewDefinition(
+                new MatViewDefinition(
+                        Chars.toString(GenericLexer.unquote(baseTableExpr.token)),
+                        Chars.toString(sampleBy.token),
+                        Chars.toString(sql, queryLo, queryHi),
+                        refreshQueryPrefix,
+                        refreshQuerySuffix
+                ),
+                baseLo
+        );
+        addCreateTableAsSelectColumns(model, optimiser.optimise(queryModel, executionContext));
+
+        tok = optTok(lexer);
+        ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            final int partitionByValue = PartitionBy.fromString(partitionBy.token);
+            if (partitionByValue == -1) {
+                throw SqlException.$(partitionBy.position, "'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+            if (!PartitionBy.isPartitioned(partitionByValue)) {
+                throw SqlException.$(partitionBy.position, "materialized view must be partitioned");
+            }
+            tok = optTok(lexer);
+        } else {
+            partitionBy = expressionNodePool.next().of(ExpressionNode.LITERAL, "DAY", 0, 0);
+        }
+        model.setPartitionBy(partitionBy);
+        // refresh job is the only writer, there is nothing to gain from WAL on the view table
+        model.setWalEnabled(false);
+        model.setMaxUncommittedRows(configuration.getMaxUncommittedRows());
+        model.setO3MaxLag(configuration.getO3MaxLag());
+
+        if (tok == null || Chars.equals(tok, ';')) {
+            return model;
+        }
+        throw errUnexpected(lexer, tok);
+    }
+
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CharSequence tok = optTok(lexer);
+        if (tok != null) {
+            if (isMaterializedKeyword(tok)) {
+                expectTok(lexer, "view");
+                return parseCreateMatView(lexer, executionContext);
+            }
+            lexer.unparseLast();
+        }
         expectTok(lexer, "table");
         return parseCreateTable(lexer, executionContext);
     }
@@ -543,6 +944,14 @@ public final class SqlParser {
                 ((walSetting == WAL_NOT_SET && configuration.getWalEnabledDefault()) || walSetting == WAL_ENABLED);
         model.setWalEnabled(isWalEnabled);
 
+        if (tok != null && isDedupKeyword(tok)) {
+            if (!isWalEnabled) {
+                throw SqlException.position(lexer.lastTokenPosition()).put("deduplication is possible only on WAL tables");
+            }
+            parseCreateTableDedupKeys(lexer, model);
+            tok = optTok(lexer);
+        }
+
         int maxUncommittedRows = configuration.getMaxUncommittedRows();
         long o3MaxLag = configuration.getO3MaxLag();
 
@@ -600,17 +1009,7 @@ public final class SqlParser {
 
     private void parseCreateTableAsSelect(GenericLexer lexer, CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         expectTok(lexer, '(');
-        QueryModel queryModel = optimiser.optimise(parseDml(lexer, null, lexer.getPosition(), true), executionContext);
-        ObjList<QueryColumn> columns = queryModel.getBottomUpColumns();
-        assert columns.size() > 0;
-
-        // we do not know types of columns at this stage
-        // compiler must put table together using query metadata.
-        for (int i = 0, n = columns.size(); i < n; i++) {
-            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity());
-        }
-
-        model.setQueryModel(queryModel);
+        addCreateTableAsSelectColumns(model, optimiser.optimise(parseDml(lexer, null, lexer.getPosition(), true), executionContext));
         expectTok(lexer, ')');
     }
 
@@ -742,6 +1141,41 @@ public final class SqlParser {
         }
     }
 
+    private void parseCreateTableDedupKeys(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        final int dedupPosition = lexer.lastTokenPosition();
+        CharSequence tok = tok(lexer, "'upsert'");
+        if (!isUpsertKeyword(tok)) {
+            throw SqlException.position(lexer.lastTokenPosition()).put("'upsert' expected");
+        }
+        tok = tok(lexer, "'keys'");
+        if (!isKeysKeyword(tok)) {
+            throw SqlException.position(lexer.lastTokenPosition()).put("'keys' expected");
+        }
+        expectTok(lexer, '(');
+        do {
+            final ExpressionNode columnName = expectLiteral(lexer);
+            final int columnIndex = getCreateTableColumnIndex(model, columnName.token, columnName.position);
+            final int columnType = model.getColumnType(columnIndex);
+            // type can be -1 for create table as select, it is validated by the compiler
+            if (columnType != -1 && ColumnType.isVariableLength(columnType)) {
+                throw SqlException.position(columnName.position)
+                        .put("deduplication key column must be of a fixed size type [column=").put(columnName.token)
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+            model.setDedupKeyFlag(columnIndex);
+            tok = tok(lexer, "',' or ')'");
+        } while (Chars.equals(tok, ','));
+
+        if (!Chars.equals(tok, ')')) {
+            throw errUnexpected(lexer, tok);
+        }
+
+        if (!model.isDedupKey(model.getTimestampIndex())) {
+            throw SqlException.position(dedupPosition).put("deduplication key list must include the designated timestamp column");
+        }
+    }
+
     private void parseCreateTableIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
         expectTok(lexer, '(');
         final CharSequence columnName = expectLiteral(lexer).token;
@@ -1599,7 +2033,7 @@ public final class SqlParser {
                 expectTok(lexer, '(');
 
                 col = analyticColumnPool.next().of(null, expr);
-                tok = tokIncludingLocalBrace(lexer, "'partition' or 'order' or ')'");
+                tok = tokIncludingLocalBrace(lexer, "'partition', 'order', 'rows', 'range' or ')'");
 
                 if (isPartitionKeyword(tok)) {
                     expectTok(lexer, "by");
@@ -1608,7 +2042,7 @@ public final class SqlParser {
 
                     do {
                         partitionBy.add(expectExpr(lexer));
-                        tok = tok(lexer, "'order' or ')'");
+                        tok = tok(lexer, "'order', 'rows', 'range' or ')'");
                     } while (Chars.equals(tok, ','));
                 }
                 if (isOrderKeyword(tok)) {
@@ -1621,15 +2055,19 @@ public final class SqlParser {
 
                         if (isDescKeyword(tok)) {
                             ((AnalyticColumn) col).addOrderBy(orderByExpr, QueryModel.ORDER_DIRECTION_DESCENDING);
-                            tok = tokIncludingLocalBrace(lexer, "',' or ')'");
+                            tok = tokIncludingLocalBrace(lexer, "',', 'rows', 'range' or ')'");
                         } else {
                             ((AnalyticColumn) col).addOrderBy(orderByExpr, QueryModel.ORDER_DIRECTION_ASCENDING);
                             if (isAscKeyword(tok)) {
-                                tok = tokIncludingLocalBrace(lexer, "',' or ')'");
+                                tok = tokIncludingLocalBrace(lexer, "',', 'rows', 'range' or ')'");
                             }
                         }
                     } while (Chars.equals(tok, ','));
                 }
+                if (isRowsKeyword(tok) || isRangeKeyword(tok)) {
+                    parseAnalyticFrame(lexer, (AnalyticColumn) col, tok);
+                    tok = tokIncludingLocalBrace(lexer, "')'");
+                }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 tok = optTok(lexer);
 
@@ -2201,9 +2639,25 @@ public final class SqlParser {
         CharSequence tok = tok(lexer, "'create', 'rename' or 'select'");
 
         if (isExplainKeyword(tok)) {
-            int format = parseExplainOptions(lexer, tok);
+            CharSequence explainTok = GenericLexer.immutableOf(tok);
+            final int explainEndPos = lexer.getPosition();
+            int analyzePos = -1;
+            tok = tok(lexer, "'analyze', 'create', 'insert', 'update', 'select', 'with' or '('");
+            if (isAnalyzeKeyword(tok)) {
+                explainTok = GenericLexer.immutableOf(tok);
+                analyzePos = lexer.lastTokenPosition();
+            } else {
+                lexer.backTo(explainEndPos, explainTok);
+            }
+            final boolean analyze = analyzePos > -1;
+            int format = parseExplainOptions(lexer, explainTok);
             ExecutionModel model = parseExplain(lexer, executionContext);
+            if (analyze && model.getModelType() != ExecutionModel.QUERY) {
+                // the statement is executed to collect runtime statistics, so we allow queries only
+                throw SqlException.$(analyzePos, "EXPLAIN ANALYZE supports SELECT queries only");
+            }
             ExplainModel explainModel = explainModelPool.next();
+            explainModel.setAnalyze(analyze);
             explainModel.setFormat(format);
             explainModel.setModel(model);
             return explainModel;
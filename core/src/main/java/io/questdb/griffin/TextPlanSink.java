@@ -49,6 +49,7 @@ public class TextPlanSink extends BasePlanSink {
     }
 
     public PlanSink attr(CharSequence name) {
+        putActual();
         newLine();
         sink.put(attrIndent);
         sink.put(name).put(':').put(' ');
@@ -56,6 +57,7 @@ public class TextPlanSink extends BasePlanSink {
     }
 
     public PlanSink child(CharSequence outer, Plannable inner) {
+        putActual();
         depth++;
         newLine();
         sink.put(outer);
@@ -66,6 +68,7 @@ public class TextPlanSink extends BasePlanSink {
     }
 
     public PlanSink child(Plannable p) {
+        putActual();
         depth++;
         newLine();
         if (p instanceof RecordCursorFactory) {
@@ -75,6 +78,7 @@ public class TextPlanSink extends BasePlanSink {
         } else {
             p.toPlan(this);
         }
+        putActual();
         depth--;
 
         return this;
@@ -89,6 +93,7 @@ public class TextPlanSink extends BasePlanSink {
     }
 
     public void end() {
+        putActual();
         newLine();
     }
 
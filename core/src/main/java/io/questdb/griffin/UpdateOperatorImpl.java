@@ -148,6 +148,8 @@ public class UpdateOperatorImpl extends PurgingOperator implements QuietCloseabl
                                     .put(", partitionTimestamp=").ts(tableWriter.getPartitionTimestamp(rowPartitionIndex))
                                     .put(']');
                         }
+                        // column files are copied and updated uncompressed
+                        tableWriter.decompressPartition(rowPartitionIndex);
                         if (partitionIndex > -1) {
                             LOG.info()
                                     .$("updating partition [partitionIndex=").$(partitionIndex)
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
+
+class AnalyzePageFrameCursor implements PageFrameCursor {
+    private final AnalyzeRecordCursorFactory factory;
+    private PageFrameCursor base;
+    private boolean isOpenPending;
+
+    AnalyzePageFrameCursor(AnalyzeRecordCursorFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void close() {
+        base = Misc.free(base);
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public long getUpdateRowId(long rowIndex) {
+        return base.getUpdateRowId(rowIndex);
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public @Nullable PageFrame next() {
+        final long start;
+        if (isOpenPending) {
+            isOpenPending = false;
+            start = factory.open();
+        } else {
+            start = factory.start();
+        }
+        try {
+            final PageFrame frame = base.next();
+            if (frame != null) {
+                factory.addFrame(frame.getPartitionHi() - frame.getPartitionLo());
+            }
+            return frame;
+        } finally {
+            factory.sample(start);
+        }
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void toTop() {
+        final long start = factory.start();
+        try {
+            base.toTop();
+        } finally {
+            factory.sample(start);
+        }
+    }
+
+    void of(PageFrameCursor base) {
+        this.base = base;
+        isOpenPending = true;
+    }
+}
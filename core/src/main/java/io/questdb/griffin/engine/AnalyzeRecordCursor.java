@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Misc;
+
+class AnalyzeRecordCursor implements RecordCursor {
+    private final AnalyzeRecordCursorFactory factory;
+    private RecordCursor base;
+
+    AnalyzeRecordCursor(AnalyzeRecordCursorFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void close() {
+        base = Misc.free(base);
+    }
+
+    @Override
+    public Record getRecord() {
+        return base.getRecord();
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        final long start = factory.start();
+        try {
+            if (base.hasNext()) {
+                factory.addRow();
+                return true;
+            }
+            return false;
+        } finally {
+            factory.sample(start);
+        }
+    }
+
+    @Override
+    public boolean isUsingIndex() {
+        return base.isUsingIndex();
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public boolean skipTo(long rowCount) {
+        return base.skipTo(rowCount);
+    }
+
+    @Override
+    public void toTop() {
+        final long start = factory.start();
+        try {
+            base.toTop();
+        } finally {
+            factory.sample(start);
+        }
+    }
+
+    void of(RecordCursor base) {
+        this.base = base;
+    }
+}
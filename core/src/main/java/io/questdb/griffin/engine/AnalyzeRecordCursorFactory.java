@@ -0,0 +1,219 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.Plannable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.Misc;
+import io.questdb.std.NanosecondClock;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Transparent wrapper used by EXPLAIN ANALYZE. It delegates everything to the wrapped factory
+ * and instruments the cursors it produces to count rows, cursor opens (loops), wall time
+ * and native memory growth. Page frames handed over to async factories are counted as well.
+ * Time and memory are inclusive of the child operators. Memory is sampled from the global
+ * {@link Unsafe} counters, so it also includes allocations made concurrently by other queries.
+ * The statistics are printed as the "actual" attribute of the wrapped plan node.
+ */
+public class AnalyzeRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private final Actual actual = new Actual();
+    private final RecordCursorFactory base;
+    private final NanosecondClock clock;
+    private final AnalyzeRecordCursor cursor;
+    private final AnalyzePageFrameCursor pageFrameCursor;
+
+    public AnalyzeRecordCursorFactory(RecordCursorFactory base, NanosecondClock clock) {
+        super(base.getMetadata());
+        this.base = base;
+        this.clock = clock;
+        this.cursor = new AnalyzeRecordCursor(this);
+        this.pageFrameCursor = new AnalyzePageFrameCursor(this);
+    }
+
+    @Override
+    public SingleSymbolFilter convertToSampleByIndexDataFrameCursorFactory() {
+        return base.convertToSampleByIndexDataFrameCursorFactory();
+    }
+
+    @Override
+    public PageFrameSequence<?> execute(SqlExecutionContext executionContext, SCSequence collectSubSeq, int order) throws SqlException {
+        return base.execute(executionContext, collectSubSeq, order);
+    }
+
+    @Override
+    public boolean followedLimitAdvice() {
+        return base.followedLimitAdvice();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public boolean fragmentedSymbolTables() {
+        return base.fragmentedSymbolTables();
+    }
+
+    @Override
+    public String getBaseColumnName(int idx) {
+        return base.getBaseColumnName(idx);
+    }
+
+    @Override
+    public String getBaseColumnNameNoRemap(int idx) {
+        return base.getBaseColumnNameNoRemap(idx);
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base.getBaseFactory();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final long start = open();
+        try {
+            cursor.of(base.getCursor(executionContext));
+            return cursor;
+        } finally {
+            sample(start);
+        }
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        // The code generator opens page frame cursors to compile filters, so the cursor
+        // is accounted as a loop only once the first frame is requested.
+        final PageFrameCursor baseCursor = base.getPageFrameCursor(executionContext, order);
+        if (baseCursor == null) {
+            return null;
+        }
+        pageFrameCursor.of(baseCursor);
+        return pageFrameCursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return base.getScanDirection();
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return base.implementsLimit();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableName) {
+        return base.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.actual(actual);
+        base.toPlan(sink);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        base.toSink(sink);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(pageFrameCursor);
+        Misc.free(base);
+    }
+
+    void addFrame(long rowCount) {
+        actual.frameCount++;
+        actual.rowCount += rowCount;
+    }
+
+    void addRow() {
+        actual.rowCount++;
+    }
+
+    long open() {
+        actual.loopCount++;
+        actual.memUsedAtOpen = Unsafe.getMemUsed();
+        return clock.getTicks();
+    }
+
+    void sample(long start) {
+        actual.elapsedNanos += clock.getTicks() - start;
+        actual.peakMemUsed = Math.max(actual.peakMemUsed, Unsafe.getMemUsed() - actual.memUsedAtOpen);
+    }
+
+    long start() {
+        return clock.getTicks();
+    }
+
+    private static class Actual implements Plannable {
+        private long elapsedNanos;
+        private long frameCount;
+        private long loopCount;
+        private long memUsedAtOpen;
+        private long peakMemUsed;
+        private long rowCount;
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val("rows=").val(rowCount);
+            if (frameCount > 0) {
+                sink.val(" frames=").val(frameCount);
+            }
+            sink.val(" loops=").val(loopCount)
+                    .val(" time=").val(elapsedNanos / 1000).val("us")
+                    .val(" memory=").val(peakMemUsed);
+        }
+    }
+}
@@ -31,24 +31,33 @@ import io.questdb.cairo.TableColumnMetadata;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.griffin.*;
 import io.questdb.griffin.model.ExplainModel;
 import io.questdb.std.str.CharSink;
 
 /**
  * Simple stub for returning query execution plan text as result set with one column and one row .
+ * For EXPLAIN ANALYZE the query is executed first, so that the plan includes runtime statistics
+ * collected by {@link AnalyzeRecordCursorFactory} wrappers.
  */
 public class ExplainPlanFactory extends AbstractRecordCursorFactory {
 
     private final static GenericRecordMetadata METADATA;
+    private final boolean analyze;
     private final RecordCursorFactory base;
     private final ExplainPlanRecordCursor cursor;
 
     private boolean isBaseClosed;
 
     public ExplainPlanFactory(RecordCursorFactory base, int format) {
+        this(base, format, false);
+    }
+
+    public ExplainPlanFactory(RecordCursorFactory base, int format, boolean analyze) {
         super(METADATA);
         this.base = base;
+        this.analyze = analyze;
         this.cursor = new ExplainPlanRecordCursor(format);
         this.isBaseClosed = false;
     }
@@ -106,7 +115,7 @@ public class ExplainPlanFactory extends AbstractRecordCursorFactory {
     }
 
     public class ExplainPlanRecordCursor implements RecordCursor {
-        private final PlanSink planSink;
+        private final BasePlanSink planSink;
         private final Record record;
         private int row = 0;
         private int rowCount;
@@ -117,6 +126,7 @@ public class ExplainPlanFactory extends AbstractRecordCursorFactory {
             } else {
                 this.planSink = new TextPlanSink();
             }
+            this.planSink.setAnalyze(analyze);
             this.record = new ExplainPlanRecord(planSink);
         }
 
@@ -143,6 +153,15 @@ public class ExplainPlanFactory extends AbstractRecordCursorFactory {
             //we can't use getCursor() because that could take a lot of time and execute e.g. table hashing
             //on the other hand until we run it factories may be incomplete
             if (!isBaseClosed) {
+                if (analyze) {
+                    // run the query to completion, factories collect runtime statistics on the way
+                    final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+                    try (RecordCursor baseCursor = base.getCursor(executionContext)) {
+                        while (baseCursor.hasNext()) {
+                            circuitBreaker.statefulThrowExceptionIfTripped();
+                        }
+                    }
+                }
                 planSink.of(base, executionContext);
                 base.close();//close base factory and associated cursors, otherwise it may keep holding eagerly allocated memory
                 isBaseClosed = true;
@@ -31,12 +31,18 @@ import io.questdb.cairo.sql.VirtualRecord;
 public interface AnalyticContext {
     boolean baseSupportsRandomAccess();
 
+    int getFramingMode();
+
     ColumnTypes getPartitionByKeyTypes();
 
     VirtualRecord getPartitionByRecord();
 
     RecordSink getPartitionBySink();
 
+    long getRowsLo();
+
+    int getTimestampIndex();
+
     boolean isEmpty();
 
     boolean isOrdered();
@@ -37,11 +37,34 @@ public interface AnalyticFunction extends Function {
     int THREE_PASS = 3;
     int TWO_PASS = 2;
 
+    /**
+     * Computes value for the next record of a stream that is already sorted in the function's
+     * ORDER BY order. The value is then returned by the getXXX() methods until the next call.
+     * Only called on functions that return {@link #STREAM} from {@link #getPassCount()}.
+     *
+     * @param record current record of the base cursor
+     */
+    default void computeNext(Record record) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@link #STREAM} functions are computed on the fly, without caching the base cursor.
+     * {@link #TWO_PASS} functions need base records cached and compute values in pass1().
+     * {@link #THREE_PASS} functions also need pass2() to write the values after pass1() has
+     * seen all records, e.g. to compute an aggregate over the whole partition.
+     *
+     * @return number of passes the function needs
+     */
+    default int getPassCount() {
+        return TWO_PASS;
+    }
+
     void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order);
 
     void pass1(Record record, long recordOffset, AnalyticSPI spi);
 
-    void pass2(Record record);
+    void pass2(Record record, long recordOffset, AnalyticSPI spi);
 
     void preparePass2(RecordCursor cursor);
 
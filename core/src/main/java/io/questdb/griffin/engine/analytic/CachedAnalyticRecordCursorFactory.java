@@ -43,10 +43,14 @@ import org.jetbrains.annotations.Nullable;
 public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
     private final ObjList<AnalyticFunction> allFunctions;
     private final RecordCursorFactory base;
+    // maps record chain columns to base columns
+    private final IntList columnIndexes;
     private final ObjList<RecordComparator> comparators;
     private final CachedAnalyticRecordCursor cursor;
     private final ObjList<ObjList<AnalyticFunction>> orderedFunctions;
     private final int orderedGroupCount;
+    // functions that need a second pass over cached records
+    private final ObjList<AnalyticFunction> threePassFunctions;
     @Nullable
     private final ObjList<AnalyticFunction> unorderedFunctions;
     private boolean closed = false;
@@ -64,6 +68,7 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
     ) {
         super(metadata);
         this.base = base;
+        this.columnIndexes = columnIndexes;
         this.orderedGroupCount = comparators.size();
         assert orderedGroupCount == orderedFunctions.size();
         this.orderedFunctions = orderedFunctions;
@@ -98,6 +103,14 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
             allFunctions.addAll(unorderedFunctions);
         }
 
+        this.threePassFunctions = new ObjList<>();
+        for (int i = 0, n = allFunctions.size(); i < n; i++) {
+            final AnalyticFunction function = allFunctions.getQuick(i);
+            if (function.getPassCount() == AnalyticFunction.THREE_PASS) {
+                threePassFunctions.add(function);
+            }
+        }
+
         this.unorderedFunctions = unorderedFunctions;
     }
 
@@ -106,6 +119,12 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
         return base.followedOrderByAdvice();
     }
 
+    @Override
+    public String getBaseColumnName(int idx) {
+        // analytic function arguments read the record chain rather than the base cursor
+        return base.getMetadata().getColumnName(columnIndexes.getQuick(idx));
+    }
+
     @Override
     public RecordCursorFactory getBaseFactory() {
         return base;
@@ -126,7 +145,7 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
     @Override
     public void toPlan(PlanSink sink) {
         sink.type("CachedAnalytic");
-        sink.optAttr("functions", allFunctions);
+        sink.optAttr("functions", allFunctions, true);
         sink.child(base);
     }
 
@@ -284,6 +303,18 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
                 }
             }
 
+            // step #3: run pass2 for functions that need all records seen by pass1, e.g.
+            // aggregates over the whole partition
+            for (int j = 0, n = threePassFunctions.size(); j < n; j++) {
+                final AnalyticFunction f = threePassFunctions.getQuick(j);
+                recordChain.toTop();
+                f.preparePass2(recordChain);
+                while (recordChain.hasNext()) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    f.pass2(chainRecord, chainRecord.getRowId(), recordChain);
+                }
+            }
+
             recordChain.toTop();
         }
 
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.LongList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * String predicate over a symbol column. Instead of matching every row's value, the predicate
+ * is evaluated at most once per key of the static symbol table. Keys are evaluated lazily, when
+ * they are first seen in the data, so that the cost never exceeds per-row evaluation, e.g. for
+ * LIMIT queries or high cardinality columns. Symbol tables above {@link #MAX_CACHED_SYMBOL_COUNT}
+ * keys are not cached and the predicate is evaluated per row.
+ */
+public abstract class AbstractSymbolKeyPredicateFunction extends BooleanFunction implements UnaryFunction {
+    // caps the size of the bitsets, 2 bits per key, kept by each worker's copy of the function
+    static final int MAX_CACHED_SYMBOL_COUNT = 4 * 1024 * 1024;
+    protected final SymbolFunction arg;
+    // bitset of symbol keys the predicate was evaluated for
+    private final LongList evaluatedKeys = new LongList();
+    // bitset of matching symbol keys, valid for evaluated keys only
+    private final LongList matchingKeys = new LongList();
+    private boolean nullMatches;
+    // number of cached keys, zero when the symbol table is too large to cache
+    private int symbolCount;
+
+    protected AbstractSymbolKeyPredicateFunction(SymbolFunction arg) {
+        this.arg = arg;
+    }
+
+    public static boolean isSupported(Function arg) {
+        return arg instanceof SymbolFunction && ((SymbolFunction) arg).isSymbolTableStatic();
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public boolean getBool(Record rec) {
+        final int key = arg.getInt(rec);
+        if (key < 0) {
+            return nullMatches;
+        }
+        if (key < symbolCount) {
+            final int word = key >>> 6;
+            final long bit = 1L << key;
+            if ((evaluatedKeys.getQuick(word) & bit) == 0) {
+                evaluatedKeys.setQuick(word, evaluatedKeys.getQuick(word) | bit);
+                if (matches(arg.getSymbol(rec))) {
+                    matchingKeys.setQuick(word, matchingKeys.getQuick(word) | bit);
+                    return true;
+                }
+                return false;
+            }
+            return (matchingKeys.getQuick(word) & bit) != 0;
+        }
+        // symbol table is not cached or has grown since init
+        return matches(arg.getSymbol(rec));
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        arg.init(symbolTableSource, executionContext);
+        initPredicate(symbolTableSource, executionContext);
+        final StaticSymbolTable symbolTable = arg.getStaticSymbolTable();
+        symbolCount = symbolTable != null ? symbolTable.getSymbolCount() : 0;
+        if (symbolCount > MAX_CACHED_SYMBOL_COUNT) {
+            symbolCount = 0;
+        }
+        final int words = (symbolCount + 63) >>> 6;
+        evaluatedKeys.setAll(words, 0);
+        matchingKeys.setAll(words, 0);
+        nullMatches = matches(null);
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Called on init before the predicate is evaluated for symbol keys, e.g. to compile bind variable pattern.
+     */
+    protected void initPredicate(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+    }
+
+    protected abstract boolean matches(@Nullable CharSequence value);
+}
@@ -58,10 +58,32 @@ public interface GroupByFunction extends Function, Mutable {
         return false;
     }
 
+    /**
+     * Returns true if the function is able to merge partial states computed
+     * by multiple threads, i.e. supports {@link #merge(MapValue, MapValue)}.
+     *
+     * @return true if parallel computation is supported by the function
+     */
+    default boolean isParallelismSupported() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    /**
+     * Merges partial state computed by another thread into the destination value.
+     * Both map values must have the same structure, i.e. belong to maps created
+     * with the same value types.
+     *
+     * @param destValue map value to merge into
+     * @param srcValue  map value to merge from
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
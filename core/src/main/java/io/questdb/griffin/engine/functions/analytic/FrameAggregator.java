@@ -0,0 +1,481 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.cairo.vm.MemoryCARWImpl;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Computes sum(), avg(), count(), min() and max() over analytic frame, keeping
+ * one state per partition.
+ * <p>
+ * Records are expected in the order of the analytic ORDER BY clause. Unbounded frames
+ * keep running totals only. Bounded frames keep (key, value) pairs of the rows in the frame
+ * in a per-partition ring buffer, where key is the row number within the partition for ROWS
+ * frames and timestamp for RANGE frames. Rows are evicted from the head of the ring as the
+ * frame slides, so memory is proportional to the frame rather than to the partition.
+ * min() and max() keep a monotonic ring instead, i.e. only the rows that can still become
+ * the extreme value of the frame.
+ * <p>
+ * RANGE frames with ORDER BY end at the last peer of the current row, i.e. rows of the partition
+ * with equal ORDER BY values share the frame. Peers are only known once the next row of the partition
+ * arrives, so such frames are computed over the cached records: pass1 links the rows of the pending
+ * peer group through their output slots and writes the frame value to all of them when the group
+ * ends, while pass2 flushes the last group of every partition.
+ */
+class FrameAggregator implements Mutable, QuietCloseable {
+    static final int KIND_AVG = 0;
+    static final int KIND_COUNT = 1;
+    static final int KIND_MAX = 2;
+    static final int KIND_MIN = 3;
+    static final int KIND_SUM = 4;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private static final long INITIAL_CAPACITY = 16;
+    private static final SingleColumnType STATE_COLUMN_TYPE = new SingleColumnType(ColumnType.LONG);
+    // state layout, all fields are 8 bytes wide
+    private static final int STATE_CAPACITY = 32;
+    private static final int STATE_COUNT = 8;
+    private static final int STATE_HEAD = 40;
+    // record offset of the last row of the pending peer group plus one, zero when there is none
+    private static final int STATE_PEER_TAIL = 56;
+    private static final int STATE_RING = 24;
+    private static final int STATE_ROWS = 16;
+    private static final int STATE_SIZE = 48;
+    private static final int STATE_SIZE_BYTES = 64;
+    private static final int STATE_VALUE = 0;
+    private final Function arg;
+    private final boolean bounded;
+    private final int framingMode;
+    private final int kind;
+    private final Map map;
+    private final MemoryCARW memory;
+    private final String name;
+    private final VirtualRecord partitionByRecord;
+    private final RecordSink partitionBySink;
+    // RANGE frame with ORDER BY, current row's peers belong to the frame
+    private final boolean peers;
+    private final long rowsLo;
+    private final int timestampIndex;
+    private final boolean wholePartition;
+    private RecordComparator peerComparator;
+    private long singleState = -1;
+
+    private FrameAggregator(
+            String name,
+            int kind,
+            @Nullable Function arg,
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext
+    ) {
+        this.name = name;
+        this.kind = kind;
+        this.arg = arg;
+        this.framingMode = analyticContext.getFramingMode();
+        this.rowsLo = analyticContext.getRowsLo();
+        this.timestampIndex = framingMode == AnalyticColumn.FRAMING_RANGE ? analyticContext.getTimestampIndex() : -1;
+        this.bounded = rowsLo != AnalyticColumn.UNBOUNDED;
+        // without ORDER BY all rows of the partition are peers of the current row
+        this.wholePartition = !bounded && framingMode == AnalyticColumn.FRAMING_RANGE && !analyticContext.isOrdered();
+        this.peers = framingMode == AnalyticColumn.FRAMING_RANGE && analyticContext.isOrdered();
+        this.partitionByRecord = analyticContext.getPartitionByRecord();
+        this.partitionBySink = analyticContext.getPartitionBySink();
+        this.memory = new MemoryCARWImpl(
+                configuration.getSqlAnalyticStorePageSize(),
+                configuration.getSqlAnalyticStoreMaxPages(),
+                MemoryTag.NATIVE_ANALYTIC
+        );
+        if (partitionByRecord != null) {
+            this.map = MapFactory.createMap(configuration, analyticContext.getPartitionByKeyTypes(), STATE_COLUMN_TYPE);
+        } else {
+            this.map = null;
+        }
+    }
+
+    static FrameAggregator newInstance(
+            int position,
+            String name,
+            int kind,
+            @Nullable Function arg,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) throws SqlException {
+        final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
+        if (analyticContext.isEmpty()) {
+            throw SqlException.$(position, "analytic function called in non-analytic context, make sure to add OVER clause");
+        }
+        return new FrameAggregator(name, kind, arg, configuration, analyticContext);
+    }
+
+    /**
+     * Adds record to the frame of its partition.
+     *
+     * @param record record in ORDER BY order
+     * @return state of the record's partition, to be passed to the getXXX() methods
+     */
+    long add(Record record) {
+        return add(state(record), record);
+    }
+
+    @Override
+    public void clear() {
+        if (map != null) {
+            map.clear();
+        }
+        memory.jumpTo(0);
+        singleState = -1;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(memory);
+        Misc.free(arg);
+        if (partitionByRecord != null) {
+            Misc.freeObjList(partitionByRecord.getFunctions());
+        }
+    }
+
+    double getDouble(long state) {
+        final long count = memory.getLong(state + STATE_COUNT);
+        switch (kind) {
+            case KIND_AVG:
+                return count > 0 ? memory.getDouble(state + STATE_VALUE) / count : Double.NaN;
+            case KIND_MAX:
+            case KIND_MIN:
+                if (bounded) {
+                    return memory.getLong(state + STATE_SIZE) > 0 ? memory.getDouble(entryOffset(state, 0) + Long.BYTES) : Double.NaN;
+                }
+                return count > 0 ? memory.getDouble(state + STATE_VALUE) : Double.NaN;
+            default:
+                return count > 0 ? memory.getDouble(state + STATE_VALUE) : Double.NaN;
+        }
+    }
+
+    long getLong(long state) {
+        return bounded ? memory.getLong(state + STATE_SIZE) : memory.getLong(state + STATE_ROWS);
+    }
+
+    int getPassCount() {
+        return wholePartition || peers ? AnalyticFunction.THREE_PASS : AnalyticFunction.STREAM;
+    }
+
+    void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (arg != null) {
+            arg.init(symbolTableSource, executionContext);
+        }
+        if (partitionByRecord != null) {
+            Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+        }
+        clear();
+    }
+
+    void initRecordComparator(RecordComparatorCompiler recordComparatorCompiler, ArrayColumnTypes chainTypes, IntList order) {
+        if (peers) {
+            peerComparator = recordComparatorCompiler.compile(chainTypes, order);
+        }
+    }
+
+    /**
+     * Adds record to the frame and writes the frame value to the record's output slot, or, for
+     * frames that include peers, to the slots of the peer group that ends before the record.
+     */
+    void pass1(Record record, long recordOffset, AnalyticSPI spi, int columnIndex) {
+        final long state = state(record);
+        if (peers) {
+            final long tail = memory.getLong(state + STATE_PEER_TAIL) - 1;
+            long link = tail;
+            if (tail > -1) {
+                peerComparator.setLeft(record);
+                if (peerComparator.compare(spi.getRecordAt(tail)) != 0) {
+                    // the frame doesn't include the record yet
+                    flushPeers(state, tail, spi, columnIndex);
+                    link = -1;
+                }
+            }
+            add(state, record);
+            // the slot links to the previous peer until the group is flushed
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), link);
+            memory.putLong(state + STATE_PEER_TAIL, recordOffset + 1);
+            return;
+        }
+        add(state, record);
+        if (!wholePartition) {
+            putValue(spi.getAddress(recordOffset, columnIndex), state);
+        }
+    }
+
+    /**
+     * Writes values that are only known after pass1 has seen all records: the aggregate over
+     * the whole partition or the frame value of the partition's last peer group.
+     */
+    void pass2(Record record, long recordOffset, AnalyticSPI spi, int columnIndex) {
+        final long state = state(record);
+        if (peers) {
+            final long tail = memory.getLong(state + STATE_PEER_TAIL) - 1;
+            if (tail > -1) {
+                flushPeers(state, tail, spi, columnIndex);
+            }
+        } else {
+            putValue(spi.getAddress(recordOffset, columnIndex), state);
+        }
+    }
+
+    void reopen() {
+        if (map != null) {
+            map.reopen();
+        }
+    }
+
+    /**
+     * Releases memory, the aggregator can be used again after {@link #reopen()}.
+     */
+    void reset() {
+        if (map != null) {
+            map.close();
+        }
+        memory.close();
+        singleState = -1;
+    }
+
+    void toPlan(PlanSink sink) {
+        sink.val(name).val('(');
+        if (arg != null) {
+            sink.val(arg);
+        }
+        sink.val(')').val(" over (");
+        if (partitionByRecord != null) {
+            sink.val("partition by ").val(partitionByRecord.getFunctions());
+            if (!wholePartition) {
+                sink.val(' ');
+            }
+        }
+        if (!wholePartition) {
+            sink.val(framingMode == AnalyticColumn.FRAMING_ROWS ? "rows" : "range").val(" between ");
+            if (bounded) {
+                sink.val(rowsLo).val(" preceding");
+            } else {
+                sink.val("unbounded preceding");
+            }
+            sink.val(" and current row");
+        }
+        sink.val(')');
+    }
+
+    private long add(long state, Record record) {
+        final double value = arg != null ? arg.getDouble(record) : 1.0;
+        final long rows = memory.getLong(state + STATE_ROWS) + 1;
+        memory.putLong(state + STATE_ROWS, rows);
+
+        if (!bounded) {
+            if (value == value) {
+                final long count = memory.getLong(state + STATE_COUNT);
+                final double current = memory.getDouble(state + STATE_VALUE);
+                switch (kind) {
+                    case KIND_MAX:
+                        if (count == 0 || value > current) {
+                            memory.putDouble(state + STATE_VALUE, value);
+                        }
+                        break;
+                    case KIND_MIN:
+                        if (count == 0 || value < current) {
+                            memory.putDouble(state + STATE_VALUE, value);
+                        }
+                        break;
+                    default:
+                        memory.putDouble(state + STATE_VALUE, current + value);
+                        break;
+                }
+                memory.putLong(state + STATE_COUNT, count + 1);
+            }
+            return state;
+        }
+
+        final long key = timestampIndex > -1 ? record.getTimestamp(timestampIndex) : rows;
+        evict(state, key > Long.MIN_VALUE + rowsLo ? key - rowsLo : Long.MIN_VALUE);
+
+        if (kind == KIND_MIN || kind == KIND_MAX) {
+            if (value == value) {
+                // drop rows that can no longer be the extreme value of the frame
+                long size = memory.getLong(state + STATE_SIZE);
+                while (size > 0) {
+                    final double tail = memory.getDouble(entryOffset(state, size - 1) + Long.BYTES);
+                    if (kind == KIND_MIN ? tail < value : tail > value) {
+                        break;
+                    }
+                    size--;
+                }
+                memory.putLong(state + STATE_SIZE, size);
+                push(state, key, value);
+            }
+        } else {
+            push(state, key, value);
+            if (value == value) {
+                memory.putDouble(state + STATE_VALUE, memory.getDouble(state + STATE_VALUE) + value);
+                memory.putLong(state + STATE_COUNT, memory.getLong(state + STATE_COUNT) + 1);
+            }
+        }
+        return state;
+    }
+
+    private long entryOffset(long state, long index) {
+        final long capacity = memory.getLong(state + STATE_CAPACITY);
+        final long head = memory.getLong(state + STATE_HEAD);
+        return memory.getLong(state + STATE_RING) + ((head + index) & (capacity - 1)) * ENTRY_SIZE;
+    }
+
+    // removes rows with key lower than the start of the frame
+    private void evict(long state, long frameLo) {
+        long size = memory.getLong(state + STATE_SIZE);
+        if (size == 0) {
+            return;
+        }
+        final long ring = memory.getLong(state + STATE_RING);
+        final long mask = memory.getLong(state + STATE_CAPACITY) - 1;
+        long head = memory.getLong(state + STATE_HEAD);
+        double sum = memory.getDouble(state + STATE_VALUE);
+        long count = memory.getLong(state + STATE_COUNT);
+        while (size > 0) {
+            final long offset = ring + head * ENTRY_SIZE;
+            if (memory.getLong(offset) >= frameLo) {
+                break;
+            }
+            final double value = memory.getDouble(offset + Long.BYTES);
+            if (value == value && kind != KIND_MIN && kind != KIND_MAX) {
+                sum -= value;
+                count--;
+            }
+            head = (head + 1) & mask;
+            size--;
+        }
+        if (count == 0) {
+            // avoid accumulating rounding errors across empty frames
+            sum = 0;
+        }
+        memory.putLong(state + STATE_HEAD, head);
+        memory.putLong(state + STATE_SIZE, size);
+        memory.putDouble(state + STATE_VALUE, sum);
+        memory.putLong(state + STATE_COUNT, count);
+    }
+
+    // writes the current frame value to all rows of the pending peer group
+    private void flushPeers(long state, long tail, AnalyticSPI spi, int columnIndex) {
+        long offset = tail;
+        while (offset > -1) {
+            final long address = spi.getAddress(offset, columnIndex);
+            offset = Unsafe.getUnsafe().getLong(address);
+            putValue(address, state);
+        }
+        memory.putLong(state + STATE_PEER_TAIL, 0);
+    }
+
+    private long newState() {
+        final long offset = memory.getAppendOffset();
+        Vect.memset(memory.appendAddressFor(STATE_SIZE_BYTES), STATE_SIZE_BYTES, 0);
+        return offset;
+    }
+
+    private void push(long state, long key, double value) {
+        final long size = memory.getLong(state + STATE_SIZE);
+        final long capacity = memory.getLong(state + STATE_CAPACITY);
+        if (size == capacity) {
+            // the ring is full, move it to a new, twice as large, area of the memory;
+            // the old area is not reused, which keeps the waste below the size of the ring
+            final long newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity * 2;
+            final long newRing = memory.getAppendOffset();
+            memory.appendAddressFor(newCapacity * ENTRY_SIZE);
+            for (long i = 0; i < size; i++) {
+                final long src = entryOffset(state, i);
+                final long dst = newRing + i * ENTRY_SIZE;
+                memory.putLong(dst, memory.getLong(src));
+                memory.putDouble(dst + Long.BYTES, memory.getDouble(src + Long.BYTES));
+            }
+            memory.putLong(state + STATE_RING, newRing);
+            memory.putLong(state + STATE_CAPACITY, newCapacity);
+            memory.putLong(state + STATE_HEAD, 0);
+        }
+        final long offset = entryOffset(state, size);
+        memory.putLong(offset, key);
+        memory.putDouble(offset + Long.BYTES, value);
+        memory.putLong(state + STATE_SIZE, size + 1);
+    }
+
+    private void putValue(long address, long state) {
+        if (kind == KIND_COUNT) {
+            Unsafe.getUnsafe().putLong(address, getLong(state));
+        } else {
+            Unsafe.getUnsafe().putDouble(address, getDouble(state));
+        }
+    }
+
+    /**
+     * Finds state of the record's partition, creating one if the partition is new.
+     */
+    private long state(Record record) {
+        if (map == null) {
+            if (singleState == -1) {
+                singleState = newState();
+            }
+            return singleState;
+        }
+        partitionByRecord.of(record);
+        final MapKey key = map.withKey();
+        key.put(partitionByRecord, partitionBySink);
+        final MapValue value = key.createValue();
+        if (value.isNew()) {
+            value.putLong(0, newState());
+        }
+        return value.getLong(0);
+    }
+}
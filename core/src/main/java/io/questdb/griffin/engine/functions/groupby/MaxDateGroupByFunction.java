@@ -72,6 +72,19 @@ public class MaxDateGroupByFunction extends DateFunction implements GroupByFunct
         return "max";
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long srcMax = srcValue.getDate(valueIndex);
+        if (srcMax > destValue.getDate(valueIndex)) {
+            destValue.putDate(valueIndex, srcMax);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
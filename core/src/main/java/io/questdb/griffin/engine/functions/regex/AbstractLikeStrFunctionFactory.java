@@ -33,7 +33,9 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.AbstractSymbolKeyPredicateFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.constants.BooleanConstant;
@@ -96,22 +98,32 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
         if (pattern.isConstant()) {
             final CharSequence likeString = pattern.getStr(null);
             if (likeString != null && likeString.length() > 0) {
+                if (!AbstractSymbolKeyPredicateFunction.isSupported(value)) {
+                    final Function func = newLiteralLikeFunction(value, likeString, isCaseInsensitive());
+                    if (func != null) {
+                        return func;
+                    }
+                }
                 String p = escapeSpecialChars(likeString, null);
                 assert p != null;
                 int flags = Pattern.DOTALL;
                 if (isCaseInsensitive()) {
                     flags |= Pattern.CASE_INSENSITIVE;
                 }
-                return new ConstLikeStrFunction(
-                        value,
-                        Pattern.compile(p, flags).matcher("")
-                );
+                final Matcher matcher = Pattern.compile(p, flags).matcher("");
+                if (AbstractSymbolKeyPredicateFunction.isSupported(value)) {
+                    return new ConstLikeSymbolFunction((SymbolFunction) value, matcher);
+                }
+                return new ConstLikeStrFunction(value, matcher);
             }
             return BooleanConstant.FALSE;
         }
 
         if (pattern instanceof IndexedParameterLinkFunction) {
             // bind variable
+            if (AbstractSymbolKeyPredicateFunction.isSupported(value)) {
+                return new BindLikeSymbolFunction((SymbolFunction) value, pattern, isCaseInsensitive());
+            }
             return new BindLikeStrFunction(value, pattern, isCaseInsensitive());
         }
 
@@ -120,6 +132,111 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
 
     protected abstract boolean isCaseInsensitive();
 
+    private static boolean equalsAt(CharSequence cs, int offset, String literal, boolean caseInsensitive) {
+        final int len = literal.length();
+        if (caseInsensitive) {
+            for (int i = 0; i < len; i++) {
+                if (Chars.toLowerCaseAscii(cs.charAt(offset + i)) != literal.charAt(i)) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = 0; i < len; i++) {
+                if (cs.charAt(offset + i) != literal.charAt(i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates function for patterns that are plain literals with optional leading and/or trailing '%',
+     * e.g. 'abc', 'abc%', '%abc' and '%abc%'. Such patterns are matched without regex. Returns null
+     * when the pattern requires regex, i.e. it contains '_' or '%' in the middle.
+     */
+    private static Function newLiteralLikeFunction(Function value, CharSequence pattern, boolean caseInsensitive) {
+        final int len = pattern.length();
+        int i = 0;
+        while (i < len && pattern.charAt(i) == '%') {
+            i++;
+        }
+        final boolean leadingWildcard = i > 0;
+        boolean trailingWildcard = false;
+        final StringSink sink = Misc.getThreadLocalBuilder();
+        for (; i < len; i++) {
+            char c = pattern.charAt(i);
+            if (c == '_') {
+                return null;
+            }
+            if (c == '%') {
+                for (int j = i + 1; j < len; j++) {
+                    if (pattern.charAt(j) != '%') {
+                        return null;
+                    }
+                }
+                trailingWildcard = true;
+                break;
+            }
+            if (c == '\\') {
+                if (++i == len) {
+                    // let regex path report the error
+                    return null;
+                }
+                c = pattern.charAt(i);
+            }
+            sink.put(caseInsensitive ? Chars.toLowerCaseAscii(c) : c);
+        }
+
+        if (sink.length() == 0) {
+            return null;
+        }
+
+        final String literal = Chars.toString(sink);
+        if (leadingWildcard) {
+            return trailingWildcard
+                    ? new ContainsLikeStrFunction(value, literal, caseInsensitive)
+                    : new SuffixLikeStrFunction(value, literal, caseInsensitive);
+        }
+        return trailingWildcard
+                ? new PrefixLikeStrFunction(value, literal, caseInsensitive)
+                : new ExactLikeStrFunction(value, literal, caseInsensitive);
+    }
+
+    private static abstract class AbstractLiteralLikeStrFunction extends BooleanFunction implements UnaryFunction {
+        protected final boolean caseInsensitive;
+        protected final String literal;
+        private final Function value;
+
+        protected AbstractLiteralLikeStrFunction(Function value, String literal, boolean caseInsensitive) {
+            this.value = value;
+            this.literal = literal;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        @Override
+        public Function getArg() {
+            return value;
+        }
+
+        @Override
+        public boolean getBool(Record rec) {
+            final CharSequence cs = value.getStr(rec);
+            return cs != null && matches(cs);
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(value);
+            sink.val(caseInsensitive ? " ilike " : " like ");
+            toPlanPattern(sink);
+        }
+
+        protected abstract boolean matches(CharSequence cs);
+
+        protected abstract void toPlanPattern(PlanSink sink);
+    }
+
     private static class BindLikeStrFunction extends BooleanFunction implements UnaryFunction {
         private final boolean caseInsensitive;
         private final Function pattern;
@@ -186,6 +303,47 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
         }
     }
 
+    private static class BindLikeSymbolFunction extends AbstractSymbolKeyPredicateFunction {
+        private final boolean caseInsensitive;
+        private final Function pattern;
+        private Matcher matcher;
+
+        public BindLikeSymbolFunction(SymbolFunction value, Function pattern, boolean caseInsensitive) {
+            super(value);
+            this.pattern = pattern;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(arg);
+            sink.val(" ~ ");
+            sink.val(pattern);
+            if (!caseInsensitive) {
+                sink.val(" [case-sensitive]");
+            }
+        }
+
+        @Override
+        protected void initPredicate(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            pattern.init(symbolTableSource, executionContext);
+            final CharSequence patternValue = pattern.getStr(null);
+            matcher = null;
+            if (patternValue != null && patternValue.length() > 0) {
+                int flags = Pattern.DOTALL;
+                if (caseInsensitive) {
+                    flags |= Pattern.CASE_INSENSITIVE;
+                }
+                matcher = Pattern.compile(escapeSpecialChars(patternValue, null), flags).matcher("");
+            }
+        }
+
+        @Override
+        protected boolean matches(CharSequence value) {
+            return matcher != null && value != null && matcher.reset(value).matches();
+        }
+    }
+
     private static class ConstLikeStrFunction extends BooleanFunction implements UnaryFunction {
         private final Matcher matcher;
         private final Function value;
@@ -222,4 +380,108 @@ public abstract class AbstractLikeStrFunctionFactory implements FunctionFactory
             }
         }
     }
+
+    private static class ConstLikeSymbolFunction extends AbstractSymbolKeyPredicateFunction {
+        private final Matcher matcher;
+
+        public ConstLikeSymbolFunction(SymbolFunction value, Matcher matcher) {
+            super(value);
+            this.matcher = matcher;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(arg);
+            sink.val(" ~ ");
+            sink.val(matcher.pattern().toString());
+            if ((matcher.pattern().flags() & Pattern.CASE_INSENSITIVE) != 0) {
+                sink.val(" [case-sensitive]");
+            }
+        }
+
+        @Override
+        protected boolean matches(CharSequence value) {
+            return value != null && matcher.reset(value).matches();
+        }
+    }
+
+    private static class ContainsLikeStrFunction extends AbstractLiteralLikeStrFunction {
+        private final char first;
+
+        public ContainsLikeStrFunction(Function value, String literal, boolean caseInsensitive) {
+            super(value, literal, caseInsensitive);
+            this.first = literal.charAt(0);
+        }
+
+        @Override
+        protected boolean matches(CharSequence cs) {
+            final int hi = cs.length() - literal.length();
+            for (int i = 0; i <= hi; i++) {
+                // cheap first char check before comparing the whole literal
+                final char c = cs.charAt(i);
+                if ((c == first || (caseInsensitive && Chars.toLowerCaseAscii(c) == first))
+                        && equalsAt(cs, i, literal, caseInsensitive)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        protected void toPlanPattern(PlanSink sink) {
+            sink.val('%').val(literal).val('%');
+        }
+    }
+
+    private static class ExactLikeStrFunction extends AbstractLiteralLikeStrFunction {
+
+        public ExactLikeStrFunction(Function value, String literal, boolean caseInsensitive) {
+            super(value, literal, caseInsensitive);
+        }
+
+        @Override
+        protected boolean matches(CharSequence cs) {
+            return cs.length() == literal.length() && equalsAt(cs, 0, literal, caseInsensitive);
+        }
+
+        @Override
+        protected void toPlanPattern(PlanSink sink) {
+            sink.val(literal);
+        }
+    }
+
+    private static class PrefixLikeStrFunction extends AbstractLiteralLikeStrFunction {
+
+        public PrefixLikeStrFunction(Function value, String literal, boolean caseInsensitive) {
+            super(value, literal, caseInsensitive);
+        }
+
+        @Override
+        protected boolean matches(CharSequence cs) {
+            return cs.length() >= literal.length() && equalsAt(cs, 0, literal, caseInsensitive);
+        }
+
+        @Override
+        protected void toPlanPattern(PlanSink sink) {
+            sink.val(literal).val('%');
+        }
+    }
+
+    private static class SuffixLikeStrFunction extends AbstractLiteralLikeStrFunction {
+
+        public SuffixLikeStrFunction(Function value, String literal, boolean caseInsensitive) {
+            super(value, literal, caseInsensitive);
+        }
+
+        @Override
+        protected boolean matches(CharSequence cs) {
+            final int offset = cs.length() - literal.length();
+            return offset >= 0 && equalsAt(cs, offset, literal, caseInsensitive);
+        }
+
+        @Override
+        protected void toPlanPattern(PlanSink sink) {
+            sink.val('%').val(literal);
+        }
+    }
 }
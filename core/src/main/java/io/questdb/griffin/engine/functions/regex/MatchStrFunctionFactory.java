@@ -32,7 +32,9 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.AbstractSymbolKeyPredicateFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
@@ -56,9 +58,17 @@ public class MatchStrFunctionFactory implements FunctionFactory {
         final Function value = args.getQuick(0);
         final Function pattern = args.getQuick(1);
         final int patternPosition = argPositions.getQuick(1);
+        final boolean symbol = AbstractSymbolKeyPredicateFunction.isSupported(value);
         if (pattern.isConstant()) {
-            return new MatchConstPatternFunction(value, RegexUtils.createMatcher(pattern, patternPosition));
+            final Matcher matcher = RegexUtils.createMatcher(pattern, patternPosition);
+            if (symbol) {
+                return new MatchConstPatternSymbolFunction((SymbolFunction) value, matcher);
+            }
+            return new MatchConstPatternFunction(value, matcher);
         } else if (pattern.isRuntimeConstant()) {
+            if (symbol) {
+                return new MatchRuntimeConstPatternSymbolFunction((SymbolFunction) value, pattern, patternPosition);
+            }
             return new MatchRuntimeConstPatternFunction(value, pattern, patternPosition);
         }
         throw SqlException.$(patternPosition, "not implemented: dynamic pattern would be very slow to execute");
@@ -95,6 +105,25 @@ public class MatchStrFunctionFactory implements FunctionFactory {
         }
     }
 
+    private static class MatchConstPatternSymbolFunction extends AbstractSymbolKeyPredicateFunction {
+        private final Matcher matcher;
+
+        public MatchConstPatternSymbolFunction(SymbolFunction value, Matcher matcher) {
+            super(value);
+            this.matcher = matcher;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(arg).val(" ~ ").val(matcher.pattern().toString());
+        }
+
+        @Override
+        protected boolean matches(CharSequence value) {
+            return value != null && matcher.reset(value).find();
+        }
+    }
+
     private static class MatchRuntimeConstPatternFunction extends BooleanFunction implements UnaryFunction {
         private final Function pattern;
         private final int patternPosition;
@@ -145,4 +174,42 @@ public class MatchStrFunctionFactory implements FunctionFactory {
             sink.val(value).val(" ~ ").val(pattern.toString());
         }
     }
+
+    private static class MatchRuntimeConstPatternSymbolFunction extends AbstractSymbolKeyPredicateFunction {
+        private final Function pattern;
+        private final int patternPosition;
+        private Matcher matcher;
+
+        public MatchRuntimeConstPatternSymbolFunction(SymbolFunction value, Function pattern, int patternPosition) {
+            super(value);
+            this.pattern = pattern;
+            this.patternPosition = patternPosition;
+        }
+
+        @Override
+        public boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        public boolean isRuntimeConstant() {
+            return false;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(arg).val(" ~ ").val(pattern.toString());
+        }
+
+        @Override
+        protected void initPredicate(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            pattern.init(symbolTableSource, executionContext);
+            matcher = RegexUtils.createMatcher(pattern, patternPosition);
+        }
+
+        @Override
+        protected boolean matches(CharSequence value) {
+            return value != null && matcher.reset(value).find();
+        }
+    }
 }
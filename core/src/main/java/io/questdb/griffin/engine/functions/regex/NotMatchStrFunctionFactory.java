@@ -31,7 +31,9 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.AbstractSymbolKeyPredicateFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
@@ -64,6 +66,9 @@ public class NotMatchStrFunctionFactory implements FunctionFactory {
 
         try {
             Matcher matcher = Pattern.compile(Chars.toString(regex)).matcher("");
+            if (AbstractSymbolKeyPredicateFunction.isSupported(value)) {
+                return new MatchSymbolFunction((SymbolFunction) value, matcher);
+            }
             return new MatchFunction(value, matcher);
         } catch (PatternSyntaxException e) {
             throw SqlException.$(argPositions.getQuick(1) + e.getIndex() + 1, e.getMessage());
@@ -100,4 +105,23 @@ public class NotMatchStrFunctionFactory implements FunctionFactory {
             sink.val(arg).val(" !~ ").val(matcher.pattern().toString());
         }
     }
+
+    private static class MatchSymbolFunction extends AbstractSymbolKeyPredicateFunction {
+        private final Matcher matcher;
+
+        public MatchSymbolFunction(SymbolFunction arg, Matcher matcher) {
+            super(arg);
+            this.matcher = matcher;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val(arg).val(" !~ ").val(matcher.pattern().toString());
+        }
+
+        @Override
+        protected boolean matches(CharSequence value) {
+            return value == null || !matcher.reset(value).find();
+        }
+    }
 }
@@ -28,9 +28,12 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.AbstractSymbolKeyPredicateFunction;
 import io.questdb.griffin.engine.functions.BinaryFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
@@ -46,6 +49,9 @@ public class StartsWithStrFunctionFactory implements FunctionFactory {
         Function strFunc = args.get(0);
         Function prefixFunc = args.get(1);
 
+        if (prefixFunc.isConstant() && AbstractSymbolKeyPredicateFunction.isSupported(strFunc)) {
+            return new StartsWithSymbolFunction((SymbolFunction) strFunc, Chars.toString(prefixFunc.getStr(null)));
+        }
         return new StartsWithStrFunction(strFunc, prefixFunc);
     }
 
@@ -84,4 +90,23 @@ public class StartsWithStrFunctionFactory implements FunctionFactory {
             return prefixFunc;
         }
     }
+
+    private static class StartsWithSymbolFunction extends AbstractSymbolKeyPredicateFunction {
+        private final String prefix;
+
+        public StartsWithSymbolFunction(SymbolFunction arg, String prefix) {
+            super(arg);
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val("starts_with(").val(arg).val(',').val(prefix).val(')');
+        }
+
+        @Override
+        protected boolean matches(CharSequence value) {
+            return value != null && prefix != null && Chars.startsWith(value, prefix);
+        }
+    }
 }
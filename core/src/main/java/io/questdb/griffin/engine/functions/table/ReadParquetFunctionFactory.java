@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.CursorFunction;
+import io.questdb.griffin.engine.table.ParquetRecordCursorFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+
+/**
+ * read_parquet('file') reads Parquet file relative to the COPY root directory.
+ */
+public class ReadParquetFunctionFactory implements FunctionFactory {
+
+    @Override
+    public String getSignature() {
+        return "read_parquet(s)";
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        final CharSequence root = configuration.getSqlCopyInputRoot();
+        if (Chars.isBlank(root)) {
+            throw SqlException.$(position, "read_parquet() is disabled ['cairo.sql.copy.root' is not set?]");
+        }
+        final Function arg = args.getQuick(0);
+        final int argPosition = argPositions.getQuick(0);
+        if (!arg.isConstant()) {
+            throw SqlException.$(argPosition, "constant file name expected");
+        }
+        final CharSequence fileName = arg.getStr(null);
+        if (fileName == null || fileName.length() == 0) {
+            throw SqlException.$(argPosition, "file name expected");
+        }
+        if (Chars.contains(fileName, "..")) {
+            throw SqlException.$(argPosition, "'..' is not allowed");
+        }
+
+        try (Path path = new Path()) {
+            path.of(root).concat(fileName).$();
+            try {
+                return new CursorFunction(
+                        new ParquetRecordCursorFactory(
+                                configuration,
+                                ParquetRecordCursorFactory.readMetadata(configuration, path),
+                                path
+                        )
+                );
+            } catch (CairoException e) {
+                throw SqlException.$(argPosition, e.getFlyweightMessage());
+            }
+        }
+    }
+}
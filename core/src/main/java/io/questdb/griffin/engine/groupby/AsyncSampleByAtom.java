@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.std.Unsafe;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.std.datetime.microtime.Timestamps.MINUTE_MICROS;
+
+/**
+ * Per-worker state of parallel SAMPLE BY. On top of the GROUP BY state, the atom holds
+ * the sampler used to map row timestamps to time buckets. The sampler is aligned on the
+ * query owner thread before page frames are dispatched, either to the calendar offset
+ * or to the first observation, and is read-only for the workers.
+ */
+public class AsyncSampleByAtom extends AsyncGroupByAtom {
+
+    private final Function offsetFunc;
+    private final int offsetFuncPos;
+    private final int timestampIndex;
+    private final TimestampSampler timestampSampler;
+    private long fixedOffset;
+
+    public AsyncSampleByAtom(
+            @Transient @NotNull BytecodeAssembler asm,
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            @NotNull RecordSink mapSink,
+            @NotNull ObjList<GroupByFunction> ownerFunctions,
+            @NotNull ObjList<ObjList<GroupByFunction>> perWorkerFunctions,
+            @NotNull TimestampSampler timestampSampler,
+            int timestampIndex,
+            @NotNull Function offsetFunc,
+            int offsetFuncPos,
+            int workerCount
+    ) {
+        super(asm, configuration, keyTypes, valueTypes, mapSink, ownerFunctions, perWorkerFunctions, workerCount);
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.offsetFunc = offsetFunc;
+        this.offsetFuncPos = offsetFuncPos;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        Misc.free(offsetFunc);
+    }
+
+    public int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    public TimestampSampler getTimestampSampler() {
+        return timestampSampler;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        super.init(symbolTableSource, executionContext);
+        offsetFunc.init(symbolTableSource, executionContext);
+        final CharSequence offset = offsetFunc.getStr(null);
+        if (offset != null) {
+            final long val = Timestamps.parseOffset(offset);
+            if (val == Numbers.LONG_NaN) {
+                // bad value for offset
+                throw SqlException.$(offsetFuncPos, "invalid offset: ").put(offset);
+            }
+            fixedOffset = Numbers.decodeLowInt(val) * MINUTE_MICROS;
+        } else {
+            fixedOffset = Long.MIN_VALUE;
+        }
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // the first value is the id of the first row aggregated into the bucket,
+        // we keep the lowest one, so that the result follows the order of the rows
+        final long srcRowId = srcValue.getLong(0);
+        if (srcRowId < destValue.getLong(0)) {
+            destValue.putLong(0, srcRowId);
+        }
+        super.merge(destValue, srcValue);
+    }
+
+    @Override
+    public void prepareForDispatch(PageFrameSequence<?> frameSequence) {
+        if (fixedOffset != Long.MIN_VALUE) {
+            timestampSampler.setStart(fixedOffset);
+            return;
+        }
+
+        // align time intervals to the first observation, just like the serial SAMPLE BY does
+        final PageAddressCache pageAddressCache = frameSequence.getPageAddressCache();
+        for (int i = 0, n = frameSequence.getFrameCount(); i < n; i++) {
+            if (frameSequence.getFrameRowCount(i) > 0) {
+                timestampSampler.setStart(Unsafe.getUnsafe().getLong(pageAddressCache.getPageAddress(i, timestampIndex)));
+                return;
+            }
+        }
+    }
+}
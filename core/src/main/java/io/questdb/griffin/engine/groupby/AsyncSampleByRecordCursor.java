@@ -0,0 +1,559 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.TimestampFunction;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Returns the merged result of parallel SAMPLE BY in the order of the serial SAMPLE BY.
+ * Each map entry keeps the id of the first row aggregated into it. Row ids follow the
+ * timestamp order, so sorting entries by that id yields buckets in time order and, within
+ * a bucket, keys in order of their first row in the bucket.
+ * <p>
+ * FILL(NULL), FILL(PREV) and FILL(VALUE) list all keys in every bucket between the first
+ * and the last one, in order of the first row of the key. Missing keys are computed by the
+ * placeholder functions over the last entry of the key, or over an empty entry when the key
+ * is yet to appear. FILL(LINEAR) interpolates missing keys into a separate map, and the
+ * interpolated rows follow the aggregated ones within a bucket.
+ */
+class AsyncSampleByRecordCursor extends AsyncGroupByRecordCursor {
+
+    // the bucket timestamp is the last key column of the map record
+    private final int bucketIndex;
+    private final FillCursor fillCursor = new FillCursor();
+    private final boolean fillLinear;
+    // holds an entry per key and, with FILL(LINEAR), the interpolated entries
+    private final FastMap fillMap;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<InterpolationUtil.InterpolatorFunction> interpolatorFunctions;
+    // addresses of the first entry of each key, these entries are the source of key column values
+    private final LongList keyEntries = new LongList();
+    private final RecordSink keySink;
+    private final LongList lastEntries = new LongList();
+    private final LongList nullEntries = new LongList();
+    private final OrderedCursor orderedCursor = new OrderedCursor();
+    private final TimestampSampler sampler;
+    private final SplitVirtualRecord splitRecord;
+    private final ObjList<InterpolationUtil.StoreYFunction> storeYFunctions;
+    private final int yDataSize;
+    private long bucket;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private RecordCursor dataCursor;
+    private FastMap dataMap;
+    private Record dataRecord;
+    // pairs of the first row id and the address of a map entry
+    private DirectLongList entries;
+    private long entryCount;
+    private RecordCursor fillMapCursor;
+    private Record fillRecord;
+    private long hiBucket;
+    private boolean isOpen;
+    private Record keyRecord;
+    private long loBucket;
+    private long yData;
+
+    public AsyncSampleByRecordCursor(
+            CairoConfiguration configuration,
+            ObjList<Function> functions,
+            @Nullable ObjList<Function> placeholderFunctions,
+            boolean fillLinear,
+            ObjList<GroupByFunction> groupByFunctions,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink keySink,
+            TimestampSampler sampler
+    ) {
+        // filled rows are computed on the fly, so they can't be revisited
+        super(functions, placeholderFunctions == null && !fillLinear);
+        this.fillLinear = fillLinear;
+        this.groupByFunctions = groupByFunctions;
+        this.keySink = keySink;
+        this.sampler = sampler;
+        this.bucketIndex = valueTypes.getColumnCount() + keyTypes.getColumnCount() - 1;
+        this.yDataSize = groupByFunctions.size() * 16;
+        try {
+            this.entries = new DirectLongList(configuration.getSqlSortLightValuePageSize() / Long.BYTES, MemoryTag.NATIVE_SAMPLE_BY_LONG_LIST);
+            if (placeholderFunctions != null || fillLinear) {
+                this.fillMap = new FastMap(
+                        configuration.getSqlMapPageSize(),
+                        keyTypes,
+                        valueTypes,
+                        configuration.getSqlMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                );
+            } else {
+                this.fillMap = null;
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+
+        if (placeholderFunctions != null) {
+            // filled rows show the bucket being filled rather than the bucket of the entry they are computed over
+            final TimestampFunc timestampFunc = new TimestampFunc();
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                if (functions.getQuick(i) == null) {
+                    functions.setQuick(i, timestampFunc);
+                    placeholderFunctions.setQuick(i, timestampFunc);
+                }
+            }
+            this.splitRecord = new SplitVirtualRecord(functions, placeholderFunctions);
+        } else {
+            this.splitRecord = null;
+        }
+
+        if (fillLinear) {
+            final int groupByFunctionCount = groupByFunctions.size();
+            this.storeYFunctions = new ObjList<>(groupByFunctionCount);
+            this.interpolatorFunctions = new ObjList<>(groupByFunctionCount);
+            for (int i = 0; i < groupByFunctionCount; i++) {
+                switch (ColumnType.tagOf(groupByFunctions.getQuick(i).getType())) {
+                    case ColumnType.BYTE:
+                        storeYFunctions.add(InterpolationUtil.STORE_Y_BYTE);
+                        interpolatorFunctions.add(InterpolationUtil.INTERPOLATE_BYTE);
+                        break;
+                    case ColumnType.SHORT:
+                        storeYFunctions.add(InterpolationUtil.STORE_Y_SHORT);
+                        interpolatorFunctions.add(InterpolationUtil.INTERPOLATE_SHORT);
+                        break;
+                    case ColumnType.INT:
+                        storeYFunctions.add(InterpolationUtil.STORE_Y_INT);
+                        interpolatorFunctions.add(InterpolationUtil.INTERPOLATE_INT);
+                        break;
+                    case ColumnType.LONG:
+                        storeYFunctions.add(InterpolationUtil.STORE_Y_LONG);
+                        interpolatorFunctions.add(InterpolationUtil.INTERPOLATE_LONG);
+                        break;
+                    case ColumnType.FLOAT:
+                        storeYFunctions.add(InterpolationUtil.STORE_Y_FLOAT);
+                        interpolatorFunctions.add(InterpolationUtil.INTERPOLATE_FLOAT);
+                        break;
+                    default:
+                        // the code generator checks the types with isInterpolationSupported()
+                        storeYFunctions.add(InterpolationUtil.STORE_Y_DOUBLE);
+                        interpolatorFunctions.add(InterpolationUtil.INTERPOLATE_DOUBLE);
+                        break;
+                }
+            }
+        } else {
+            this.storeYFunctions = null;
+            this.interpolatorFunctions = null;
+        }
+        isOpen = true;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            super.close();
+            Misc.free(entries);
+            Misc.free(fillMap);
+            freeYData();
+            dataMap = null;
+            dataCursor = null;
+            dataRecord = null;
+            keyRecord = null;
+            fillMapCursor = null;
+            fillRecord = null;
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return splitRecord != null ? splitRecord : super.getRecord();
+    }
+
+    void of(PageFrameSequence<AsyncGroupByAtom> frameSequence, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (!isOpen) {
+            isOpen = true;
+            entries.reopen();
+            if (fillMap != null) {
+                fillMap.reopen();
+            }
+        }
+        this.circuitBreaker = circuitBreaker;
+        of(frameSequence);
+    }
+
+    @Override
+    void ofDataMap(FastMap dataMap) {
+        this.dataMap = dataMap;
+        dataCursor = dataMap.getCursor();
+        dataRecord = dataCursor.getRecord();
+        keyRecord = dataCursor.getRecordB();
+
+        entries.clear();
+        while (dataCursor.hasNext()) {
+            entries.add(dataRecord.getLong(0));
+            entries.add(dataRecord.getRowId());
+        }
+        entryCount = dataMap.size();
+        Vect.sortLongIndexAscInPlace(entries.getAddress(), entryCount);
+
+        if (fillMap == null) {
+            orderedCursor.toTop();
+            of(orderedCursor);
+            return;
+        }
+
+        fillMap.clear();
+        keyEntries.clear();
+        nullEntries.clear();
+        if (entryCount > 0) {
+            // sorted entries start with the first bucket and end with the last one
+            loBucket = getBucket(entries.get(1));
+            hiBucket = getBucket(entries.get(2 * entryCount - 1));
+
+            // number the keys in order of their first row
+            for (long i = 0; i < entryCount; i++) {
+                final long address = entries.get(2 * i + 1);
+                dataCursor.recordAt(keyRecord, address);
+                final MapKey key = fillMap.withKey();
+                keySink.copy(keyRecord, key);
+                key.putTimestamp(Long.MIN_VALUE);
+                final MapValue value = key.createValue();
+                if (value.isNew()) {
+                    keyEntries.add(address);
+                    // FILL(PREV) shows nulls until the key appears
+                    for (int j = 0, n = groupByFunctions.size(); j < n; j++) {
+                        groupByFunctions.getQuick(j).setNull(value);
+                    }
+                }
+            }
+
+            if (fillLinear) {
+                interpolateGaps();
+            }
+
+            fillMapCursor = fillMap.getCursor();
+            fillRecord = fillMapCursor.getRecord();
+            if (!fillLinear) {
+                // the map holds nothing but the entries of the keys, in the key order
+                while (fillMapCursor.hasNext()) {
+                    nullEntries.add(fillRecord.getRowId());
+                }
+            }
+        }
+        fillCursor.toTop();
+        of(fillCursor);
+    }
+
+    private MapValue createFillValue(int keyIndex, long timestamp) {
+        dataCursor.recordAt(keyRecord, keyEntries.getQuick(keyIndex));
+        final MapKey key = fillMap.withKey();
+        keySink.copy(keyRecord, key);
+        key.putTimestamp(timestamp);
+        return key.createValue();
+    }
+
+    private MapValue findValue(FastMap map, int keyIndex, long timestamp) {
+        dataCursor.recordAt(keyRecord, keyEntries.getQuick(keyIndex));
+        final MapKey key = map.withKey();
+        keySink.copy(keyRecord, key);
+        key.putTimestamp(timestamp);
+        return key.findValue();
+    }
+
+    private void freeYData() {
+        if (yData != 0) {
+            Unsafe.free(yData, yDataSize, MemoryTag.NATIVE_FUNC_RSS);
+            yData = 0;
+        }
+    }
+
+    private long getBucket(long address) {
+        dataCursor.recordAt(dataRecord, address);
+        return dataRecord.getTimestamp(bucketIndex);
+    }
+
+    private void interpolate(int keyIndex, long lo, long hi, long x1, long x2) {
+        storeY(keyIndex, x1, 0);
+        storeY(keyIndex, x2, 8);
+        for (long x = lo; x < hi; x = sampler.nextTimestamp(x)) {
+            final MapValue value = createFillValue(keyIndex, x);
+            for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+                interpolatorFunctions.getQuick(i).interpolateAndStore(
+                        groupByFunctions.getQuick(i),
+                        value,
+                        x,
+                        x1,
+                        x2,
+                        yData + i * 16L,
+                        yData + i * 16L + 8
+                );
+            }
+        }
+    }
+
+    // Same algorithm as in SampleByInterpolateRecordCursorFactory, applied to one key at a time.
+    private void interpolateGaps() {
+        if (yData == 0) {
+            yData = Unsafe.malloc(yDataSize, MemoryTag.NATIVE_FUNC_RSS);
+        }
+        final long hi = sampler.nextTimestamp(hiBucket);
+        for (int k = 0, n = keyEntries.size(); k < n; k++) {
+            long prev = Long.MIN_VALUE;
+            for (long x = loBucket; x < hi; prev = x, x = sampler.nextTimestamp(x)) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                if (findValue(dataMap, k, x) != null || findValue(fillMap, k, x) != null) {
+                    continue;
+                }
+
+                long x2 = nextAggregated(k, x, hi);
+                if (x2 < hi) {
+                    if (x == loBucket) {
+                        // extrapolate the first two aggregated values down to the first bucket
+                        final long x1 = x2;
+                        x2 = nextAggregated(k, x1, hi);
+                        if (x2 < hi) {
+                            interpolate(k, x, x1, x1, x2);
+                        } else {
+                            // a single value cannot be interpolated
+                            nullify(k, x, x1);
+                            nullify(k, sampler.nextTimestamp(x1), hi);
+                        }
+                    } else {
+                        interpolate(k, x, x2, prev, x2);
+                    }
+                } else {
+                    // extrapolate the last two values up to the last bucket
+                    final long x1 = sampler.previousTimestamp(prev);
+                    if (x1 < loBucket) {
+                        nullify(k, x, hi);
+                    } else {
+                        interpolate(k, x, hi, x1, prev);
+                    }
+                }
+            }
+        }
+    }
+
+    private long nextAggregated(int keyIndex, long timestamp, long hi) {
+        long x = sampler.nextTimestamp(timestamp);
+        while (x < hi && findValue(dataMap, keyIndex, x) == null) {
+            x = sampler.nextTimestamp(x);
+        }
+        return x;
+    }
+
+    private void nullify(int keyIndex, long lo, long hi) {
+        for (long x = lo; x < hi; x = sampler.nextTimestamp(x)) {
+            final MapValue value = createFillValue(keyIndex, x);
+            for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+                groupByFunctions.getQuick(i).setNull(value);
+            }
+        }
+    }
+
+    private void storeY(int keyIndex, long timestamp, int offset) {
+        MapValue value = findValue(dataMap, keyIndex, timestamp);
+        if (value == null) {
+            value = findValue(fillMap, keyIndex, timestamp);
+        }
+        assert value != null;
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            storeYFunctions.getQuick(i).store(groupByFunctions.getQuick(i), value, yData + i * 16L + offset);
+        }
+    }
+
+    private class FillCursor implements NoRandomAccessRecordCursor {
+        private long entryIndex;
+        private int keyIndex;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return dataRecord;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (entryCount == 0) {
+                return false;
+            }
+            return fillLinear ? hasNextInterpolated() : hasNextFilled();
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            bucket = loBucket;
+            entryIndex = 0;
+            keyIndex = -1;
+            lastEntries.setAll(keyEntries.size(), -1);
+        }
+
+        private boolean hasNextFilled() {
+            if (keyIndex < keyEntries.size() - 1) {
+                keyIndex++;
+            } else if (bucket < hiBucket) {
+                bucket = sampler.nextTimestamp(bucket);
+                keyIndex = 0;
+            } else {
+                return false;
+            }
+
+            final MapValue value = findValue(dataMap, keyIndex, bucket);
+            if (value != null) {
+                final long address = value.getAddress();
+                lastEntries.setQuick(keyIndex, address);
+                dataCursor.recordAt(dataRecord, address);
+                splitRecord.of(dataRecord);
+                splitRecord.setActiveA();
+                return true;
+            }
+
+            final long lastEntry = lastEntries.getQuick(keyIndex);
+            if (lastEntry != -1) {
+                dataCursor.recordAt(dataRecord, lastEntry);
+                splitRecord.of(dataRecord);
+            } else {
+                fillMapCursor.recordAt(fillRecord, nullEntries.getQuick(keyIndex));
+                splitRecord.of(fillRecord);
+            }
+            splitRecord.setActiveB();
+            return true;
+        }
+
+        private boolean hasNextInterpolated() {
+            while (true) {
+                if (keyIndex == -1) {
+                    // aggregated entries of the bucket come first
+                    if (entryIndex < entryCount) {
+                        final long address = entries.get(2 * entryIndex + 1);
+                        if (getBucket(address) == bucket) {
+                            entryIndex++;
+                            recordA.of(dataRecord);
+                            return true;
+                        }
+                    }
+                    keyIndex = 0;
+                }
+
+                while (keyIndex < keyEntries.size()) {
+                    final MapValue value = findValue(fillMap, keyIndex++, bucket);
+                    if (value != null) {
+                        fillMapCursor.recordAt(fillRecord, value.getAddress());
+                        recordA.of(fillRecord);
+                        return true;
+                    }
+                }
+
+                if (bucket >= hiBucket) {
+                    return false;
+                }
+                bucket = sampler.nextTimestamp(bucket);
+                keyIndex = -1;
+            }
+        }
+    }
+
+    private class OrderedCursor implements RecordCursor {
+        private long entryIndex;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return dataRecord;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return dataCursor.getRecordB();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (entryIndex < entryCount) {
+                dataCursor.recordAt(dataRecord, entries.get(2 * entryIndex++ + 1));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            dataCursor.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return entryCount;
+        }
+
+        @Override
+        public void toTop() {
+            entryIndex = 0;
+        }
+    }
+
+    private class TimestampFunc extends TimestampFunction implements Function {
+
+        @Override
+        public long getTimestamp(Record rec) {
+            return bucket;
+        }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return false;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val("Timestamp");
+        }
+    }
+}
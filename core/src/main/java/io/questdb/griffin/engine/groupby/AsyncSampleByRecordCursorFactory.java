@@ -0,0 +1,323 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+import static io.questdb.griffin.SqlKeywords.*;
+
+/**
+ * SAMPLE BY that aggregates page frames on the shared worker pool. Page frames are contiguous
+ * time ranges, so each worker maps rows to time buckets and aggregates them into its own map
+ * keyed by the SAMPLE BY keys and the bucket timestamp. Buckets that span several frames are
+ * stitched together when the worker maps are merged on the query owner thread. The cursor then
+ * orders the result and fills the gaps the same way the serial SAMPLE BY does, see
+ * {@link AsyncSampleByRecordCursor}.
+ */
+public class AsyncSampleByRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncSampleByRecordCursorFactory::aggregate;
+
+    private final AsyncSampleByAtom atom;
+    private final RecordCursorFactory base;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncSampleByRecordCursor cursor;
+    private final String fill;
+    private final PageFrameSequence<AsyncGroupByAtom> frameSequence;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final int workerCount;
+
+    public AsyncSampleByRecordCursorFactory(
+            @Transient @NotNull BytecodeAssembler asm,
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            @NotNull RecordMetadata groupByMetadata,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<ObjList<GroupByFunction>> perWorkerGroupByFunctions,
+            @NotNull ObjList<Function> recordFunctions,
+            @Nullable ObjList<Function> placeholderFunctions,
+            @Transient @NotNull ObjList<ExpressionNode> fillValues,
+            @NotNull TimestampSampler timestampSampler,
+            int timestampIndex,
+            @NotNull Function offsetFunc,
+            int offsetFuncPos,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            int workerCount
+    ) {
+        super(groupByMetadata);
+        try {
+            this.base = base;
+            this.groupByFunctions = groupByFunctions;
+            this.recordFunctions = recordFunctions;
+            this.fill = getFill(fillValues);
+            // sink will be storing record columns to map key; it's stateless, so it's shared between workers
+            final RecordSink mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            this.atom = new AsyncSampleByAtom(
+                    asm,
+                    configuration,
+                    keyTypes,
+                    valueTypes,
+                    mapSink,
+                    groupByFunctions,
+                    perWorkerGroupByFunctions,
+                    timestampSampler,
+                    timestampIndex,
+                    offsetFunc,
+                    offsetFuncPos,
+                    workerCount
+            );
+            this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+            // the bucket timestamp is the last key, the sink copies the other keys out of the map record
+            final int keyCount = keyTypes.getColumnCount() - 1;
+            final IntList keySkewIndex = new IntList(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                keySkewIndex.add(valueTypes.getColumnCount() + i);
+            }
+            final EntityColumnFilter keyColumnFilter = new EntityColumnFilter();
+            keyColumnFilter.of(keyCount);
+            final RecordSink keySink = RecordSinkFactory.getInstance(asm, keyTypes, keyColumnFilter, false, keySkewIndex);
+            this.cursor = new AsyncSampleByRecordCursor(
+                    configuration,
+                    recordFunctions,
+                    placeholderFunctions,
+                    fill != null && isLinearKeyword(fill),
+                    groupByFunctions,
+                    keyTypes,
+                    valueTypes,
+                    keySink,
+                    timestampSampler
+            );
+            this.workerCount = workerCount;
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the functions that compute rows of missing keys for FILL(NULL), FILL(PREV)
+     * and FILL(VALUE), in the same way the serial SAMPLE BY does.
+     *
+     * @return placeholder functions, or null when there is nothing to fill or the fill is linear
+     */
+    @Nullable
+    public static ObjList<Function> createPlaceholderFunctions(
+            @Transient @NotNull ObjList<ExpressionNode> fillValues,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<Function> recordFunctions,
+            @Transient @NotNull IntList recordFunctionPositions
+    ) throws SqlException {
+        final String fill = getFill(fillValues);
+        if (fill == null || isLinearKeyword(fill)) {
+            return null;
+        }
+        if (isPrevKeyword(fill)) {
+            return new ObjList<>(recordFunctions);
+        }
+        if (isNullKeyword(fill)) {
+            return SampleByFillNullRecordCursorFactory.createPlaceholderFunctions(recordFunctions, recordFunctionPositions);
+        }
+        return SampleByFillValueRecordCursorFactory.createPlaceholderFunctions(
+                groupByFunctions,
+                recordFunctions,
+                recordFunctionPositions,
+                fillValues,
+                false
+        );
+    }
+
+    /**
+     * Linear interpolation runs once the result is merged, and unlike the serial SAMPLE BY,
+     * it only supports functions that produce a single numeric value.
+     */
+    public static boolean isInterpolationSupported(ObjList<GroupByFunction> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            final GroupByFunction function = groupByFunctions.getQuick(i);
+            if (!function.isScalar()) {
+                return false;
+            }
+            switch (ColumnType.tagOf(function.getType())) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_ASC);
+        try {
+            // init all record function for this cursor, in case functions require metadata and/or symbol tables
+            Function.init(recordFunctions, frameSequence.getSymbolTableSource(), executionContext);
+            cursor.of(frameSequence, executionContext.getCircuitBreaker());
+            return cursor;
+        } catch (Throwable e) {
+            frameSequence.clear();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        // filled rows are computed on the fly
+        return fill == null;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Sample By");
+        if (fill != null) {
+            sink.attr("fill").val(fill);
+        }
+        sink.optAttr("keys", GroupByRecordCursorFactory.getKeys(recordFunctions, getMetadata()));
+        sink.optAttr("values", groupByFunctions, true);
+        sink.attr("workers").val(workerCount);
+        if (sink.isAnalyze()) {
+            frameSequence.toPlanStats(sink);
+        }
+        sink.child(base, ORDER_ASC);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Nullable
+    private static String getFill(ObjList<ExpressionNode> fillValues) {
+        if (fillValues.size() == 0 || fillValues.size() == 1 && isNoneKeyword(fillValues.getQuick(0).token)) {
+            return null;
+        }
+        if (fillValues.size() == 1) {
+            final CharSequence token = fillValues.getQuick(0).token;
+            if (isLinearKeyword(token)) {
+                return "linear";
+            }
+            if (isPrevKeyword(token)) {
+                return "prev";
+            }
+            if (isNullKeyword(token)) {
+                return "null";
+            }
+        }
+        return "value";
+    }
+
+    private static void aggregate(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncSampleByAtom atom = task.getFrameSequence(AsyncSampleByAtom.class).getAtom();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slotId = atom.acquire(workerId, owner, circuitBreaker);
+        final FastMap map = atom.getMap(slotId);
+        final GroupByFunctionsUpdater functionUpdater = atom.getFunctionUpdater(slotId);
+        final RecordSink mapSink = atom.getMapSink();
+        final TimestampSampler timestampSampler = atom.getTimestampSampler();
+        final int timestampIndex = atom.getTimestampIndex();
+        try {
+            long bucket = Long.MIN_VALUE;
+            long nextBucket = Long.MIN_VALUE;
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                // rows are in timestamp order, so we only round when the bucket changes
+                final long timestamp = record.getTimestamp(timestampIndex);
+                if (timestamp >= nextBucket) {
+                    bucket = timestampSampler.round(timestamp);
+                    nextBucket = timestampSampler.nextTimestamp(bucket);
+                }
+                final MapKey key = map.withKey();
+                mapSink.copy(record, key);
+                key.putTimestamp(bucket);
+                final MapValue value = key.createValue();
+                if (value.isNew()) {
+                    // the first value is the id of the first row in the bucket, it defines the result order
+                    value.putLong(0, record.getRowId());
+                    functionUpdater.updateNew(value, record);
+                } else {
+                    // the worker may have aggregated a later frame first
+                    final long rowId = record.getRowId();
+                    if (rowId < value.getLong(0)) {
+                        value.putLong(0, rowId);
+                    }
+                    functionUpdater.updateExisting(value, record);
+                }
+            }
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.free(cursor);
+        Misc.free(base);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+    }
+}
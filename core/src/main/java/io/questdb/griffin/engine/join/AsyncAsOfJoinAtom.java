@@ -0,0 +1,240 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Shared state of parallel ASOF and LT joins. Each master page frame is joined independently:
+ * slave rows are scanned from the first timestamp of the frame minus the lookback up to the last
+ * timestamp of the frame, so that slave rows older than the lookback are not visible to the frame.
+ * <p>
+ * Workers use per-slot key maps and slave records. Slave page frames are cached once per cursor
+ * on the query owner thread.
+ */
+public class AsyncAsOfJoinAtom implements StatefulAtom, Closeable {
+    private final long lookback;
+    private final boolean lt;
+    private final ObjList<Map> maps = new ObjList<>();
+    private final RecordSink masterKeySink;
+    private final int masterTimestampIndex;
+    private final int ownerSlot;
+    private final PerWorkerLocks perWorkerLocks;
+    private final PageAddressCache slaveAddressCache;
+    private final RecordCursorFactory slaveFactory;
+    private final LongList slaveFrameRowCounts = new LongList();
+    private final RecordSink slaveKeySink;
+    private final ObjList<PageAddressCacheRecord> slaveRecords = new ObjList<>();
+    private final int slaveTimestampIndex;
+    private int slaveFrameCount;
+    private PageFrameCursor slavePageFrameCursor;
+
+    public AsyncAsOfJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            int masterTimestampIndex,
+            long lookback,
+            boolean lt,
+            int workerCount
+    ) {
+        this.slaveFactory = slaveFactory;
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.masterTimestampIndex = masterTimestampIndex;
+        this.slaveTimestampIndex = slaveFactory.getMetadata().getTimestampIndex();
+        this.lookback = lookback;
+        this.lt = lt;
+        final int slotCount = Math.max(workerCount, 1);
+        this.perWorkerLocks = new PerWorkerLocks(configuration, slotCount);
+        this.ownerSlot = slotCount;
+        this.slaveAddressCache = new PageAddressCache(configuration);
+        try {
+            // the last slot is reserved for the query owner thread
+            for (int i = 0; i <= slotCount; i++) {
+                maps.add(MapFactory.createMap(configuration, joinColumnTypes, valueTypes));
+                slaveRecords.add(new PageAddressCacheRecord());
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    public int acquireSlot(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own slot anytime.
+            return ownerSlot;
+        }
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    public void clear() {
+        slavePageFrameCursor = Misc.free(slavePageFrameCursor);
+        slaveAddressCache.clear();
+        slaveFrameRowCounts.clear();
+        slaveFrameCount = 0;
+        Misc.freeObjListAndKeepObjects(maps);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(maps);
+        Misc.freeObjList(slaveRecords);
+    }
+
+    public PageAddressCache getSlaveAddressCache() {
+        return slaveAddressCache;
+    }
+
+    public SymbolTableSource getSlaveSymbolTableSource() {
+        return slavePageFrameCursor;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        slaveAddressCache.of(slaveFactory.getMetadata());
+        slavePageFrameCursor = slaveFactory.getPageFrameCursor(executionContext, ORDER_ASC);
+        for (int i = 0, n = maps.size(); i < n; i++) {
+            maps.getQuick(i).reopen();
+            slaveRecords.getQuick(i).of(slavePageFrameCursor, slaveAddressCache);
+        }
+    }
+
+    @Override
+    public void initCursor() {
+        PageFrame frame;
+        while ((frame = slavePageFrameCursor.next()) != null) {
+            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            if (rowCount > 0) {
+                slaveAddressCache.add(slaveFrameCount++, frame);
+                slaveFrameRowCounts.add(rowCount);
+            }
+        }
+    }
+
+    /**
+     * Joins all rows of the master frame the record is positioned at. For every master row
+     * the row id of the matching slave row, or -1 when there is no match, is added to the list.
+     *
+     * @param slot         slot acquired via {@link #acquireSlot(int, boolean, SqlExecutionCircuitBreaker)}
+     * @param masterRecord master record positioned at the frame
+     * @param rowCount     master frame row count
+     * @param rows         list of slave row ids to populate
+     */
+    public void join(int slot, PageAddressCacheRecord masterRecord, long rowCount, DirectLongList rows) {
+        if (rowCount == 0) {
+            return;
+        }
+        final Map map = maps.getQuick(slot);
+        final PageAddressCacheRecord slaveRecord = slaveRecords.getQuick(slot);
+        map.clear();
+
+        masterRecord.setRowIndex(0);
+        final long lo = masterRecord.getTimestamp(masterTimestampIndex) - lookback;
+
+        // find the first slave row within lookback
+        int slaveFrameIndex = 0;
+        long slaveRowIndex = 0;
+        long slaveRowCount = 0;
+        long slaveTimestampAddress = 0;
+        for (; slaveFrameIndex < slaveFrameCount; slaveFrameIndex++) {
+            slaveRowCount = slaveFrameRowCounts.getQuick(slaveFrameIndex);
+            slaveTimestampAddress = slaveAddressCache.getPageAddress(slaveFrameIndex, slaveTimestampIndex);
+            if (Unsafe.getUnsafe().getLong(slaveTimestampAddress + (slaveRowCount - 1) * Long.BYTES) >= lo) {
+                slaveRowIndex = findFirst(slaveTimestampAddress, slaveRowCount, lo);
+                break;
+            }
+        }
+
+        for (long r = 0; r < rowCount; r++) {
+            masterRecord.setRowIndex(r);
+            final long masterTimestamp = masterRecord.getTimestamp(masterTimestampIndex);
+            while (slaveFrameIndex < slaveFrameCount) {
+                final long slaveTimestamp = Unsafe.getUnsafe().getLong(slaveTimestampAddress + slaveRowIndex * Long.BYTES);
+                if (slaveTimestamp > masterTimestamp || (lt && slaveTimestamp == masterTimestamp)) {
+                    break;
+                }
+                slaveRecord.setFrameIndex(slaveFrameIndex);
+                slaveRecord.setRowIndex(slaveRowIndex);
+                final MapKey key = map.withKey();
+                key.put(slaveRecord, slaveKeySink);
+                key.createValue().putLong(0, Rows.toRowID(slaveFrameIndex, slaveRowIndex));
+
+                if (++slaveRowIndex == slaveRowCount && ++slaveFrameIndex < slaveFrameCount) {
+                    slaveRowIndex = 0;
+                    slaveRowCount = slaveFrameRowCounts.getQuick(slaveFrameIndex);
+                    slaveTimestampAddress = slaveAddressCache.getPageAddress(slaveFrameIndex, slaveTimestampIndex);
+                }
+            }
+
+            final MapKey key = map.withKey();
+            key.put(masterRecord, masterKeySink);
+            final MapValue value = key.findValue();
+            rows.add(value != null ? value.getLong(0) : -1);
+        }
+    }
+
+    public void releaseSlot(int slot) {
+        if (slot != ownerSlot) {
+            perWorkerLocks.releaseSlot(slot);
+        }
+    }
+
+    // returns index of the first row with timestamp greater or equal to the given one
+    private static long findFirst(long timestampAddress, long rowCount, long timestamp) {
+        long lo = 0;
+        long hi = rowCount;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (Unsafe.getUnsafe().getLong(timestampAddress + mid * Long.BYTES) < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -31,10 +31,12 @@ import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.JoinContext;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
@@ -43,6 +45,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     private final JoinContext joinContext;
     private final RecordCursorFactory masterFactory;
     private final RecordSink masterSink;
+    private final SpillAllocator slaveChainAllocator;
     private final RecordCursorFactory slaveFactory;
     private final RecordSink slaveKeySink;
 
@@ -63,7 +66,14 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
         Map joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes);
-        RecordChain slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
+        this.slaveChainAllocator = SpillAllocator.of(configuration, MemoryTag.NATIVE_RECORD_CHAIN);
+        RecordChain slaveChain = new RecordChain(
+                slaveFactory.getMetadata(),
+                slaveChainSink,
+                configuration.getSqlHashJoinValuePageSize(),
+                configuration.getSqlHashJoinValueMaxPages(),
+                slaveChainAllocator
+        );
         this.masterSink = masterSink;
         this.slaveKeySink = slaveKeySink;
         cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
@@ -76,6 +86,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         RecordCursor masterCursor = null;
         try {
             masterCursor = masterFactory.getCursor(executionContext);
+            slaveChainAllocator.setBudget(executionContext.getMemoryBudget());
             cursor.of(masterCursor, slaveCursor, executionContext.getCircuitBreaker());
             return cursor;
         } catch (Throwable e) {
@@ -31,10 +31,12 @@ import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.JoinContext;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
@@ -49,6 +51,7 @@ public class HashOuterJoinFilteredRecordCursorFactory extends AbstractRecordCurs
     private final JoinContext joinContext;
     private final RecordCursorFactory masterFactory;
     private final RecordSink masterSink;
+    private final SpillAllocator slaveChainAllocator;
     private final RecordCursorFactory slaveFactory;
     private final RecordSink slaveKeySink;
 
@@ -69,7 +72,14 @@ public class HashOuterJoinFilteredRecordCursorFactory extends AbstractRecordCurs
         super(metadata);
         this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
-        RecordChain slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
+        this.slaveChainAllocator = SpillAllocator.of(configuration, MemoryTag.NATIVE_RECORD_CHAIN);
+        RecordChain slaveChain = new RecordChain(
+                slaveFactory.getMetadata(),
+                slaveChainSink,
+                configuration.getSqlHashJoinValuePageSize(),
+                configuration.getSqlHashJoinValueMaxPages(),
+                slaveChainAllocator
+        );
         this.masterSink = masterSink;
         this.slaveKeySink = slaveKeySink;
 
@@ -90,6 +100,7 @@ public class HashOuterJoinFilteredRecordCursorFactory extends AbstractRecordCurs
         RecordCursor masterCursor = null;
         try {
             masterCursor = masterFactory.getCursor(executionContext);
+            slaveChainAllocator.setBudget(executionContext.getMemoryBudget());
             cursor.of(masterCursor, slaveCursor, executionContext);
             return cursor;
         } catch (Throwable e) {
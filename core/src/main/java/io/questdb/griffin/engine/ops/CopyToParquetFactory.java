@@ -0,0 +1,230 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.ops;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cutlass.parquet.ParquetWriter;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.SingleValueRecordCursor;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Exports a table or a query result to Parquet files under the COPY root directory.
+ * A table is exported partition by partition, one file per partition, into the target
+ * directory. A query result is written to a single file.
+ * <p>
+ * Like {@link CopyFactory}, the export runs lazily on record cursor initialization.
+ */
+public class CopyToParquetFactory extends AbstractRecordCursorFactory {
+    private final static GenericRecordMetadata METADATA = new GenericRecordMetadata();
+    private static final String NON_PARTITIONED_FILE_NAME = "default";
+    private static final String PARQUET_EXTENSION = ".parquet";
+    private final RecordCursorFactory base;
+    private final CairoConfiguration configuration;
+    private final String fileName;
+    private final Path path = new Path();
+    private final ExportRecord record = new ExportRecord();
+    private final SingleValueRecordCursor cursor = new SingleValueRecordCursor(record);
+    private final int rowGroupSize;
+    private final StringSink sink = new StringSink();
+    private final String tableName;
+    private final ParquetWriter writer;
+
+    public CopyToParquetFactory(
+            CairoConfiguration configuration,
+            @Nullable String tableName,
+            @Nullable RecordCursorFactory base,
+            String fileName,
+            int rowGroupSize
+    ) {
+        super(METADATA);
+        assert (tableName == null) != (base == null);
+        this.configuration = configuration;
+        this.tableName = tableName;
+        this.base = base;
+        this.fileName = fileName;
+        this.rowGroupSize = rowGroupSize > 0 ? rowGroupSize : ParquetWriter.DEFAULT_ROW_GROUP_SIZE;
+        this.writer = new ParquetWriter(configuration);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        executionContext.getCairoSecurityContext().checkWritePermission();
+        path.of(configuration.getSqlCopyInputRoot()).concat(fileName);
+        final long rowCount;
+        if (base != null) {
+            rowCount = exportQuery(executionContext);
+        } else {
+            rowCount = exportTable(executionContext);
+        }
+        sink.clear();
+        sink.put(fileName);
+        record.of(sink, rowCount);
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Copy to parquet");
+        sink.attr("file").val(fileName);
+        if (base != null) {
+            sink.child(base);
+        } else {
+            sink.attr("table").val(tableName);
+        }
+    }
+
+    private static long write(ParquetWriter writer, RecordCursor cursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            writer.append(record);
+        }
+        writer.finish();
+        return writer.getRowCount();
+    }
+
+    private long exportQuery(SqlExecutionContext executionContext) throws SqlException {
+        mkdirs(path, false);
+        try (RecordCursor cursor = base.getCursor(executionContext)) {
+            writer.of(path.$(), base.getMetadata(), rowGroupSize);
+            return write(writer, cursor, executionContext.getCircuitBreaker());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private long exportTable(SqlExecutionContext executionContext) {
+        final TableToken tableToken = executionContext.getTableToken(tableName);
+        try (TableReader reader = executionContext.getReader(tableToken)) {
+            final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+            final TableReaderRecord tableRecord = new TableReaderRecord();
+            tableRecord.of(reader);
+            mkdirs(path, true);
+            final int plen = path.length();
+            final int partitionBy = reader.getPartitionedBy();
+            long rowCount = 0;
+            try {
+                for (int partitionIndex = 0, n = reader.getPartitionCount(); partitionIndex < n; partitionIndex++) {
+                    final long partitionRowCount = reader.openPartition(partitionIndex);
+                    if (partitionRowCount < 1) {
+                        continue;
+                    }
+                    path.trimTo(plen).slash();
+                    if (PartitionBy.isPartitioned(partitionBy)) {
+                        PartitionBy.setSinkForPartition(path, partitionBy, reader.getPartitionTimestampByIndex(partitionIndex), false);
+                    } else {
+                        path.put(NON_PARTITIONED_FILE_NAME);
+                    }
+                    path.put(PARQUET_EXTENSION).$();
+
+                    writer.of(path, reader.getMetadata(), rowGroupSize);
+                    for (long row = 0; row < partitionRowCount; row++) {
+                        circuitBreaker.statefulThrowExceptionIfTripped();
+                        tableRecord.jumpTo(partitionIndex, row);
+                        writer.append(tableRecord);
+                    }
+                    writer.finish();
+                    rowCount += writer.getRowCount();
+                }
+            } finally {
+                writer.close();
+            }
+            return rowCount;
+        }
+    }
+
+    private void mkdirs(Path path, boolean directory) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int plen = path.length();
+        if (directory) {
+            path.slash$();
+        }
+        // creates parent directories of the path, excluding the last element when it is a file
+        if (ff.mkdirs(path, configuration.getMkDirMode()) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create directories [path=").put(path).put(']');
+        }
+        path.trimTo(plen);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(writer);
+        Misc.free(path);
+    }
+
+    private static class ExportRecord implements Record {
+        private CharSequence path;
+        private long rowCount;
+
+        @Override
+        public long getLong(int col) {
+            return rowCount;
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return path;
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            // the sink is immutable
+            return getStr(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return path.length();
+        }
+
+        public void of(CharSequence path, long rowCount) {
+            this.path = path;
+            this.rowCount = rowCount;
+        }
+    }
+
+    static {
+        METADATA.add(new TableColumnMetadata("path", ColumnType.STRING));
+        METADATA.add(new TableColumnMetadata("rows", ColumnType.LONG));
+    }
+}
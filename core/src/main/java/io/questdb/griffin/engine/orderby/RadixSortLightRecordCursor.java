@@ -0,0 +1,214 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Vect;
+
+/**
+ * Sorts base cursor by a single fixed-width integer key. Rows are collected as
+ * (key, rowId) pairs and sorted with the native LSD radix sort. Keys are encoded so that
+ * their unsigned order matches the requested order. Radix sort is stable, pairs are reversed
+ * before sorting so that rows with equal keys come out in reverse base cursor order, same as
+ * with {@link LongTreeChain}.
+ */
+class RadixSortLightRecordCursor implements DelegatingRecordCursor {
+    private final int columnIndex;
+    private final int columnType;
+    private final boolean descending;
+    private final DirectLongList index;
+    private final DirectLongList indexCopy;
+    private RecordCursor base;
+    private Record baseRecord;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private long indexPos;
+    private long indexSize;
+    private boolean isIndexBuilt;
+    private boolean isOpen;
+
+    public RadixSortLightRecordCursor(long initialCapacity, int columnIndex, int columnType, boolean descending) {
+        this.columnIndex = columnIndex;
+        this.columnType = columnType;
+        this.descending = descending;
+        this.index = new DirectLongList(initialCapacity * 2, MemoryTag.NATIVE_TREE_CHAIN);
+        this.indexCopy = new DirectLongList(initialCapacity * 2, MemoryTag.NATIVE_TREE_CHAIN);
+        this.isOpen = true;
+    }
+
+    public static boolean isSupportedKeyType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            Misc.free(index);
+            Misc.free(indexCopy);
+            base = Misc.free(base);
+            baseRecord = null;
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isIndexBuilt) {
+            buildIndex();
+            isIndexBuilt = true;
+        }
+        if (indexPos < indexSize) {
+            base.recordAt(baseRecord, index.get(2 * indexPos + 1));
+            indexPos++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        if (!isOpen) {
+            index.reopen();
+            indexCopy.reopen();
+            isOpen = true;
+        }
+
+        this.base = base;
+        baseRecord = base.getRecord();
+        circuitBreaker = executionContext.getCircuitBreaker();
+        isIndexBuilt = false;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void toTop() {
+        indexPos = 0;
+    }
+
+    private void buildIndex() {
+        index.clear();
+        while (base.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            index.add(encodeKey(baseRecord));
+            index.add(baseRecord.getRowId());
+        }
+        indexSize = index.size() / 2;
+        if (indexSize > 1) {
+            reverseIndex();
+            indexCopy.setCapacity(index.size());
+            Vect.radixSortLongIndexAscInPlace(index.getAddress(), indexSize, indexCopy.getAddress());
+            // scratch memory is not needed until the cursor is re-executed
+            indexCopy.resetCapacity();
+        }
+        toTop();
+    }
+
+    private long encodeKey(Record record) {
+        final long value;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                value = record.getByte(columnIndex);
+                break;
+            case ColumnType.SHORT:
+                value = record.getShort(columnIndex);
+                break;
+            case ColumnType.CHAR:
+                value = record.getChar(columnIndex);
+                break;
+            case ColumnType.INT:
+                value = record.getInt(columnIndex);
+                break;
+            case ColumnType.DATE:
+                value = record.getDate(columnIndex);
+                break;
+            case ColumnType.TIMESTAMP:
+                value = record.getTimestamp(columnIndex);
+                break;
+            default:
+                value = record.getLong(columnIndex);
+                break;
+        }
+        // flip sign bit to sort signed values as unsigned, invert all bits for descending order
+        final long key = value ^ Long.MIN_VALUE;
+        return descending ? ~key : key;
+    }
+
+    private void reverseIndex() {
+        for (long lo = 0, hi = indexSize - 1; lo < hi; lo++, hi--) {
+            final long loKey = index.get(2 * lo);
+            final long loRowId = index.get(2 * lo + 1);
+            index.set(2 * lo, index.get(2 * hi));
+            index.set(2 * lo + 1, index.get(2 * hi + 1));
+            index.set(2 * hi, loKey);
+            index.set(2 * hi + 1, loRowId);
+        }
+    }
+}
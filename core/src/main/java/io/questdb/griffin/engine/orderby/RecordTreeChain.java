@@ -30,16 +30,25 @@ import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.Reopenable;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.engine.RecordComparator;
-import io.questdb.std.MemoryPages;
-import io.questdb.std.Misc;
-import io.questdb.std.Mutable;
-import io.questdb.std.Unsafe;
+import io.questdb.std.*;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
 
+/**
+ * Sorts records by keeping them in a red-black tree. Records with equal keys are
+ * chained in insertion order, so the sort is stable.
+ * <p>
+ * Once the value chain spills to disk, either because it outgrew the spill threshold
+ * or because the query ran out of its memory budget, the tree switches to an external
+ * merge sort: the records sorted so far are written to a run chain as a sorted run and
+ * the tree starts over. {@link #mergeRuns(SqlExecutionCircuitBreaker)} then merges
+ * the runs back into the value chain, which the cursor iterates sequentially.
+ */
 public class RecordTreeChain implements Closeable, Mutable, Reopenable {
     private static final byte BLACK = 0;
     // P(8) + L + R + C(1) + REF + TOP
@@ -55,6 +64,15 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
     private final MemoryPages mem;
     private final RecordChain recordChain;
     private final Record recordChainRecord;
+    private final RecordChain runChain;
+    private final IntList runHeap = new IntList();
+    private final LongList runHeads = new LongList();
+    private final Record runRecordA;
+    private final Record runRecordB;
+    private final LongList runStarts = new LongList();
+    private final SpillAllocator valueAllocator;
+    private final long valuePageSize;
+    private boolean isMerged;
     private long root = -1;
 
     public RecordTreeChain(
@@ -64,12 +82,19 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
             long keyPageSize,
             int keyMaxPages,
             long valuePageSize,
-            int valueMaxPages
+            int valueMaxPages,
+            @NotNull SpillAllocator valueAllocator,
+            @NotNull SpillAllocator runAllocator
     ) {
         this.comparator = comparator;
         this.mem = new MemoryPages(keyPageSize, keyMaxPages);
-        this.recordChain = new RecordChain(columnTypes, recordSink, valuePageSize, valueMaxPages);
+        this.recordChain = new RecordChain(columnTypes, recordSink, valuePageSize, valueMaxPages, valueAllocator);
         this.recordChainRecord = this.recordChain.getRecordB();
+        this.runChain = new RecordChain(columnTypes, recordSink, valuePageSize, valueMaxPages, runAllocator);
+        this.runRecordA = runChain.getRecord();
+        this.runRecordB = runChain.getRecordB();
+        this.valueAllocator = valueAllocator;
+        this.valuePageSize = valuePageSize;
     }
 
     @Override
@@ -77,14 +102,19 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         root = -1;
         mem.clear();
         recordChain.clear();
+        clearRuns();
+        isMerged = false;
     }
 
     @Override
     public void close() {
         root = -1;
+        isMerged = false;
         Misc.free(recordChain);
+        Misc.free(runChain);
         Misc.free(mem);
         Misc.free(cursor);
+        runStarts.clear();
     }
 
     public TreeCursor getCursor(RecordCursor base) {
@@ -92,7 +122,57 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         return cursor;
     }
 
+    /**
+     * Merges sorted runs spilled by {@link #put(Record)}, if any, into the value chain.
+     * Must be called once all records are added. Runs are merged through a binary heap
+     * keyed by the head record of each run; ties go to the earlier run to keep the sort stable.
+     */
+    public void mergeRuns(SqlExecutionCircuitBreaker circuitBreaker) {
+        if (runStarts.size() == 0) {
+            return;
+        }
+        // records that are still in the tree make the last run
+        flushRun();
+
+        runHeads.clear();
+        runHeap.clear();
+        for (int i = 0, n = runStarts.size(); i < n; i++) {
+            runHeads.add(runStarts.getQuick(i));
+            runHeap.add(i);
+        }
+        for (int i = (runHeap.size() >> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+
+        long prevOffset = -1;
+        while (runHeap.size() > 0) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final int run = runHeap.getQuick(0);
+            final long offset = runHeads.getQuick(run);
+            runChain.recordAt(runRecordA, offset);
+            prevOffset = recordChain.put(runRecordA, prevOffset);
+            // each record starts with the offset of the next record in its run
+            final long nextOffset = Unsafe.getUnsafe().getLong(runChain.addressOf(offset));
+            if (nextOffset != -1) {
+                runHeads.setQuick(run, nextOffset);
+            } else {
+                final int last = runHeap.size() - 1;
+                runHeap.setQuick(0, runHeap.getQuick(last));
+                runHeap.setPos(last);
+            }
+            siftDown(0);
+        }
+        clearRuns();
+        isMerged = true;
+    }
+
     public void put(Record record) {
+        // Value chain has spilled past its first page, so the tree would now sort records
+        // on disk. Write the records sorted so far as a run and start over in memory.
+        if (valueAllocator.isSpilled() && valueAllocator.getSize() > valuePageSize) {
+            flushRun();
+        }
+
         if (root == -1) {
             putParent(record);
             return;
@@ -135,6 +215,7 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
     @Override
     public void reopen() {
         recordChain.reopen();
+        runChain.reopen();
         mem.reopen();
     }
 
@@ -219,6 +300,13 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         return p;
     }
 
+    private void clearRuns() {
+        runChain.clear();
+        runStarts.clear();
+        runHeads.clear();
+        runHeap.clear();
+    }
+
     private void fix(long x) {
         setColor(x, RED);
 
@@ -260,6 +348,44 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         setColor(root, BLACK);
     }
 
+    private void flushRun() {
+        long node = root;
+        if (node == -1) {
+            return;
+        }
+        while (leftOf(node) != -1) {
+            node = leftOf(node);
+        }
+
+        final Record record = recordChain.getRecord();
+        long runStart = -1;
+        long prevOffset = -1;
+        for (; node != -1; node = successor(node)) {
+            recordChain.of(topOf(node));
+            while (recordChain.hasNext()) {
+                prevOffset = runChain.put(record, prevOffset);
+                if (runStart == -1) {
+                    runStart = prevOffset;
+                }
+            }
+        }
+        runStarts.add(runStart);
+
+        root = -1;
+        mem.clear();
+        recordChain.clear();
+    }
+
+    private boolean isLess(int heapIndexA, int heapIndexB) {
+        final int runA = runHeap.getQuick(heapIndexA);
+        final int runB = runHeap.getQuick(heapIndexB);
+        runChain.recordAt(runRecordA, runHeads.getQuick(runA));
+        runChain.recordAt(runRecordB, runHeads.getQuick(runB));
+        comparator.setLeft(runRecordA);
+        final int cmp = comparator.compare(runRecordB);
+        return cmp < 0 || (cmp == 0 && runA < runB);
+    }
+
     private void putParent(Record record) {
         root = allocateBlock();
         long r = recordChain.put(record, -1L);
@@ -310,6 +436,28 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         }
     }
 
+    private void siftDown(int index) {
+        final int size = runHeap.size();
+        while (true) {
+            final int left = 2 * index + 1;
+            final int right = left + 1;
+            int smallest = index;
+            if (left < size && isLess(left, smallest)) {
+                smallest = left;
+            }
+            if (right < size && isLess(right, smallest)) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            final int run = runHeap.getQuick(index);
+            runHeap.setQuick(index, runHeap.getQuick(smallest));
+            runHeap.setQuick(smallest, run);
+            index = smallest;
+        }
+    }
+
     public class TreeCursor implements RecordCursor {
         private RecordCursor base;
         private long current;
@@ -348,6 +496,9 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
             if (recordChain.hasNext()) {
                 return true;
             }
+            if (isMerged) {
+                return false;
+            }
 
             current = successor(current);
             if (current == -1) {
@@ -375,6 +526,11 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
 
         @Override
         public void toTop() {
+            if (isMerged) {
+                // merged records form a single list at the start of the value chain
+                recordChain.toTop();
+                return;
+            }
             long p = root;
             if (p != -1) {
                 while (leftOf(p) != -1) {
@@ -388,6 +544,7 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
             isOpen = true;
             this.base = base;
             recordChain.setSymbolTableResolver(base);
+            runChain.setSymbolTableResolver(base);
             toTop();
         }
     }
@@ -31,17 +31,20 @@ import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.MemoryTag;
 import org.jetbrains.annotations.NotNull;
 
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final SortedRecordCursor cursor;
-
+    private final SpillAllocator runAllocator;
     private final ListColumnFilter sortColumnFilter;
+    private final SpillAllocator valueAllocator;
 
     public SortedRecordCursorFactory(
             @NotNull CairoConfiguration configuration,
@@ -52,6 +55,8 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
             @NotNull ListColumnFilter sortColumnFilter
     ) {
         super(metadata);
+        this.valueAllocator = SpillAllocator.of(configuration, MemoryTag.NATIVE_RECORD_CHAIN);
+        this.runAllocator = SpillAllocator.of(configuration, MemoryTag.NATIVE_RECORD_CHAIN);
         RecordTreeChain chain = new RecordTreeChain(
                 metadata,
                 recordSink,
@@ -59,7 +64,9 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortKeyPageSize(),
                 configuration.getSqlSortKeyMaxPages(),
                 configuration.getSqlSortValuePageSize(),
-                configuration.getSqlSortValueMaxPages()
+                configuration.getSqlSortValueMaxPages(),
+                valueAllocator,
+                runAllocator
         );
         this.base = base;
         this.cursor = new SortedRecordCursor(chain);
@@ -73,6 +80,8 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        valueAllocator.setBudget(executionContext.getMemoryBudget());
+        runAllocator.setBudget(executionContext.getMemoryBudget());
         this.cursor.of(base.getCursor(executionContext), executionContext);
         return cursor;
     }
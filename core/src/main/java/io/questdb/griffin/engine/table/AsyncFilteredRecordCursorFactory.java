@@ -186,6 +186,9 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         }
         sink.attr("filter").val(filterAtom);
         sink.attr("workers").val(workerCount);
+        if (sink.isAnalyze()) {
+            frameSequence.toPlanStats(sink);
+        }
         sink.child(base, order);
     }
 
@@ -204,6 +204,9 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         }
         sink.attr("filter").val(filterAtom);
         sink.attr("workers").val(workerCount);
+        if (sink.isAnalyze()) {
+            frameSequence.toPlanStats(sink);
+        }
         sink.child(base, order);
     }
 
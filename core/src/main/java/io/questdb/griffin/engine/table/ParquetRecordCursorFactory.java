@@ -0,0 +1,380 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cutlass.parquet.ParquetFileReader;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scans a local Parquet file. Every row group is exposed as one or more page frames,
+ * so filters, JIT compiled filters and vectorized aggregates run over the file the same
+ * way they do over table partitions.
+ */
+public class ParquetRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final ParquetRecordCursor cursor;
+    private final ParquetPageFrameCursor pageFrameCursor;
+    private final Path path;
+
+    public ParquetRecordCursorFactory(CairoConfiguration configuration, RecordMetadata metadata, CharSequence path) {
+        super(metadata);
+        this.path = new Path().of(path).$();
+        this.pageFrameCursor = new ParquetPageFrameCursor(configuration, metadata);
+        this.cursor = new ParquetRecordCursor(configuration, metadata);
+    }
+
+    /**
+     * Reads schema of the Parquet file.
+     *
+     * @param configuration Cairo configuration
+     * @param path          absolute file path
+     * @return metadata of the file columns
+     */
+    public static GenericRecordMetadata readMetadata(CairoConfiguration configuration, Path path) {
+        try (ParquetFileReader reader = new ParquetFileReader(configuration)) {
+            reader.of(path);
+            final GenericRecordMetadata metadata = new GenericRecordMetadata();
+            for (int i = 0, n = reader.getColumnCount(); i < n; i++) {
+                final String name = reader.getColumnName(i);
+                if (metadata.getColumnIndexQuiet(name) > -1) {
+                    throw CairoException.nonCritical().put("duplicate column in parquet file [column=").put(name).put(']');
+                }
+                metadata.add(new TableColumnMetadata(name, reader.getColumnType(i)));
+            }
+            return metadata;
+        }
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        pageFrameCursor.of(path, executionContext.getSharedWorkerCount());
+        try {
+            return cursor.of(pageFrameCursor);
+        } catch (Throwable th) {
+            pageFrameCursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext, int order) {
+        // there is no designated timestamp, frames are always in file order
+        return pageFrameCursor.of(path, executionContext.getSharedWorkerCount());
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("parquet file scan");
+        sink.attr("path").val(path);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(pageFrameCursor);
+        Misc.free(path);
+    }
+
+    private static class ParquetPageFrame implements PageFrame {
+        private final LongList pages;
+        private final IntList shifts;
+        private long partitionHi;
+        private int partitionIndex;
+        private long partitionLo;
+        // offset of the row group pages in the list
+        private int pagesOffset;
+
+        private ParquetPageFrame(LongList pages, IntList shifts) {
+            this.pages = pages;
+            this.shifts = shifts;
+        }
+
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward) {
+            return null;
+        }
+
+        @Override
+        public int getColumnShiftBits(int columnIndex) {
+            return shifts.getQuick(columnIndex);
+        }
+
+        @Override
+        public long getIndexPageAddress(int columnIndex) {
+            final long address = pages.getQuick(pagesOffset + columnIndex * 3 + 1);
+            return address != 0 ? address + partitionLo * Long.BYTES : 0;
+        }
+
+        @Override
+        public long getPageAddress(int columnIndex) {
+            final long address = pages.getQuick(pagesOffset + columnIndex * 3);
+            final int shift = shifts.getQuick(columnIndex);
+            // aux page is offset for variable size columns, data page is shared by all frames of row group
+            return shift > -1 ? address + (partitionLo << shift) : address;
+        }
+
+        @Override
+        public long getPageSize(int columnIndex) {
+            final int shift = shifts.getQuick(columnIndex);
+            return shift > -1 ? (partitionHi - partitionLo) << shift : pages.getQuick(pagesOffset + columnIndex * 3 + 2);
+        }
+
+        @Override
+        public long getPartitionHi() {
+            return partitionHi;
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return partitionIndex;
+        }
+
+        @Override
+        public long getPartitionLo() {
+            return partitionLo;
+        }
+    }
+
+    private static class ParquetPageFrameCursor implements PageFrameCursor {
+        private final int columnCount;
+        private final ParquetPageFrame frame;
+        private final RecordMetadata metadata;
+        private final int pageFrameMaxRows;
+        private final int pageFrameMinRows;
+        // page address, aux page address and data size for each decoded row group and column
+        private final LongList pages = new LongList();
+        private final ParquetFileReader reader;
+        private final IntList shifts = new IntList();
+        private long frameRowLimit;
+        private boolean open;
+        private long rowGroupHi;
+        private int rowGroupIndex;
+        private long rowLo;
+        private int workerCount;
+
+        private ParquetPageFrameCursor(CairoConfiguration configuration, RecordMetadata metadata) {
+            this.metadata = metadata;
+            this.columnCount = metadata.getColumnCount();
+            this.reader = new ParquetFileReader(configuration);
+            this.pageFrameMinRows = configuration.getSqlPageFrameMinRows();
+            this.pageFrameMaxRows = configuration.getSqlPageFrameMaxRows();
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = metadata.getColumnType(i);
+                shifts.add(ColumnType.isVariableLength(columnType) ? -1 : ColumnType.pow2SizeOf(columnType));
+            }
+            this.frame = new ParquetPageFrame(pages, shifts);
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                pages.clear();
+                Misc.free(reader);
+                open = false;
+            }
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            // symbols are stored as strings in parquet
+            return null;
+        }
+
+        @Override
+        public long getUpdateRowId(long rowIndex) {
+            return Rows.toRowID(frame.getPartitionIndex(), frame.getPartitionLo() + rowIndex);
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public @Nullable PageFrame next() {
+            final int rowGroupCount = reader.getRowGroupCount();
+            while (rowLo >= rowGroupHi) {
+                if (++rowGroupIndex >= rowGroupCount) {
+                    return null;
+                }
+                rowLo = 0;
+                rowGroupHi = reader.getRowGroupRowCount(rowGroupIndex);
+                frameRowLimit = Math.min(pageFrameMaxRows, Math.max(pageFrameMinRows, rowGroupHi / workerCount));
+            }
+            final int pagesOffset = rowGroupIndex * columnCount * 3;
+            if (pages.size() == pagesOffset) {
+                reader.decodeRowGroup(rowGroupIndex, pages);
+            }
+            frame.partitionIndex = rowGroupIndex;
+            frame.pagesOffset = pagesOffset;
+            frame.partitionLo = rowLo;
+            frame.partitionHi = Math.min(rowGroupHi, rowLo + frameRowLimit);
+            rowLo = frame.partitionHi;
+            return frame;
+        }
+
+        public ParquetPageFrameCursor of(Path path, int workerCount) {
+            close();
+            reader.of(path);
+            open = true;
+            this.workerCount = Math.max(workerCount, 1);
+            validateSchema(path);
+            toTop();
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return reader.getRowCount();
+        }
+
+        @Override
+        public void toTop() {
+            // decoded row groups are kept until the cursor is closed
+            rowGroupIndex = -1;
+            rowLo = 0;
+            rowGroupHi = 0;
+        }
+
+        private void validateSchema(Path path) {
+            boolean changed = reader.getColumnCount() != columnCount;
+            for (int i = 0; !changed && i < columnCount; i++) {
+                changed = reader.getColumnType(i) != metadata.getColumnType(i)
+                        || !Chars.equals(reader.getColumnName(i), metadata.getColumnName(i));
+            }
+            if (changed) {
+                throw CairoException.nonCritical().put("parquet file schema has changed [path=").put(path).put(']');
+            }
+        }
+    }
+
+    private static class ParquetRecordCursor implements RecordCursor {
+        private final RecordMetadata metadata;
+        private final PageAddressCache pageAddressCache;
+        private final PageAddressCacheRecord recordA = new PageAddressCacheRecord();
+        private final PageAddressCacheRecord recordB = new PageAddressCacheRecord();
+        private int frameCount;
+        private int frameIndex;
+        private long frameRowCount;
+        private ParquetPageFrameCursor pageFrameCursor;
+        private long rowIndex;
+
+        private ParquetRecordCursor(CairoConfiguration configuration, RecordMetadata metadata) {
+            this.metadata = metadata;
+            this.pageAddressCache = new PageAddressCache(configuration);
+        }
+
+        @Override
+        public void close() {
+            if (pageFrameCursor != null) {
+                pageFrameCursor.close();
+                pageFrameCursor = null;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (rowIndex >= frameRowCount) {
+                final PageFrame frame = pageFrameCursor.next();
+                if (frame == null) {
+                    return false;
+                }
+                frameIndex++;
+                if (frameIndex == frameCount) {
+                    pageAddressCache.add(frameCount++, frame);
+                }
+                frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+                rowIndex = 0;
+                recordA.setFrameIndex(frameIndex);
+            }
+            recordA.setRowIndex(rowIndex++);
+            return true;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            final PageAddressCacheRecord pageAddressCacheRecord = (PageAddressCacheRecord) record;
+            pageAddressCacheRecord.setFrameIndex(Rows.toPartitionIndex(atRowId));
+            pageAddressCacheRecord.setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return pageFrameCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            pageFrameCursor.toTop();
+            frameIndex = -1;
+            frameRowCount = 0;
+            rowIndex = 0;
+        }
+
+        private ParquetRecordCursor of(ParquetPageFrameCursor pageFrameCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            // page addresses change when the file is re-opened
+            pageAddressCache.clear();
+            pageAddressCache.of(metadata);
+            recordA.of(pageFrameCursor, pageAddressCache);
+            recordB.of(pageFrameCursor, pageAddressCache);
+            frameCount = 0;
+            toTop();
+            return this;
+        }
+    }
+}
@@ -30,9 +30,16 @@ import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FRAMING_RANGE = 2;
+    public static final int FRAMING_ROWS = 1;
+    public static final long UNBOUNDED = Long.MIN_VALUE;
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
+    private boolean frameSpecified;
+    private int framingMode = FRAMING_RANGE;
+    private long rowsLo = UNBOUNDED;
+    private int rowsLoPos;
 
     private AnalyticColumn() {
     }
@@ -48,6 +55,14 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        frameSpecified = false;
+        framingMode = FRAMING_RANGE;
+        rowsLo = UNBOUNDED;
+        rowsLoPos = 0;
+    }
+
+    public int getFramingMode() {
+        return framingMode;
     }
 
     public ObjList<ExpressionNode> getOrderBy() {
@@ -62,8 +77,32 @@ public final class AnalyticColumn extends QueryColumn {
         return partitionBy;
     }
 
+    /**
+     * Start of the frame, relative to the current row. For ROWS frames this is the number
+     * of preceding rows, for RANGE frames it is the distance in timestamp units. {@link #UNBOUNDED}
+     * when the frame starts at the first row of the partition.
+     */
+    public long getRowsLo() {
+        return rowsLo;
+    }
+
+    public int getRowsLoPos() {
+        return rowsLoPos;
+    }
+
+    public boolean isFrameSpecified() {
+        return frameSpecified;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
     }
+
+    public void setFrame(int framingMode, long rowsLo, int rowsLoPos) {
+        this.frameSpecified = true;
+        this.framingMode = framingMode;
+        this.rowsLo = rowsLo;
+        this.rowsLoPos = rowsLoPos;
+    }
 }
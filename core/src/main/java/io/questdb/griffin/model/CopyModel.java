@@ -31,12 +31,20 @@ import io.questdb.std.str.CharSink;
 
 public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<CopyModel> FACTORY = CopyModel::new;
+    // data formats of COPY FROM STDIN and COPY TO STDOUT, as per PostgreSQL
+    public static final int FORMAT_BINARY = 2;
+    public static final int FORMAT_CSV = 1;
+    public static final int FORMAT_TEXT = 0;
     private int atomicity;
     private boolean cancel;
     private byte delimiter;
+    private boolean export;
     private ExpressionNode fileName;
+    private int format;
     private boolean header;
     private int partitionBy;
+    private QueryModel queryModel; // query to export, target is null in this case
+    private int rowGroupSize;
     private ExpressionNode target; // holds table name (new import) or import id (cancel model)
     private CharSequence timestampColumnName;
     private CharSequence timestampFormat;
@@ -55,6 +63,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         partitionBy = -1;
         delimiter = -1;
         atomicity = -1;
+        export = false;
+        format = FORMAT_TEXT;
+        queryModel = null;
+        rowGroupSize = -1;
     }
 
     public int getAtomicity() {
@@ -69,6 +81,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return fileName;
     }
 
+    public int getFormat() {
+        return format;
+    }
+
     @Override
     public int getModelType() {
         return ExecutionModel.COPY;
@@ -78,6 +94,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return partitionBy;
     }
 
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
+    public int getRowGroupSize() {
+        return rowGroupSize;
+    }
+
     public ExpressionNode getTarget() {
         return target;
     }
@@ -94,6 +118,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return cancel;
     }
 
+    public boolean isExport() {
+        return export;
+    }
+
     public boolean isHeader() {
         return header;
     }
@@ -110,10 +138,18 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.delimiter = delimiter;
     }
 
+    public void setExport(boolean export) {
+        this.export = export;
+    }
+
     public void setFileName(ExpressionNode fileName) {
         this.fileName = fileName;
     }
 
+    public void setFormat(int format) {
+        this.format = format;
+    }
+
     public void setHeader(boolean header) {
         this.header = header;
     }
@@ -122,6 +158,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.partitionBy = partitionBy;
     }
 
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+
+    public void setRowGroupSize(int rowGroupSize) {
+        this.rowGroupSize = rowGroupSize;
+    }
+
     public void setTarget(ExpressionNode tableName) {
         this.target = tableName;
     }
@@ -27,6 +27,7 @@ package io.questdb.griffin.model;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableStructure;
+import io.questdb.cairo.mv.MatViewDefinition;
 import io.questdb.griffin.SqlException;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
@@ -34,6 +35,7 @@ import io.questdb.std.str.CharSink;
 public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, TableStructure {
     public static final ObjectFactory<CreateTableModel> FACTORY = CreateTableModel::new;
     private static final int COLUMN_FLAG_CACHED = 1;
+    private static final int COLUMN_FLAG_DEDUP_KEY = 4;
     private static final int COLUMN_FLAG_INDEXED = 2;
     private final LongList columnBits = new LongList();
     private final CharSequenceObjHashMap<ColumnCastModel> columnCastModels = new CharSequenceObjHashMap<>();
@@ -41,6 +43,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private final ObjList<CharSequence> columnNames = new ObjList<>();
     private boolean ignoreIfExists = false;
     private ExpressionNode likeTableName;
+    private int matViewBaseTablePosition;
+    private MatViewDefinition matViewDefinition;
     private int maxUncommittedRows;
     private ExpressionNode name;
     private long o3MaxLag;
@@ -91,6 +95,8 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         timestamp = null;
         partitionBy = null;
         likeTableName = null;
+        matViewDefinition = null;
+        matViewBaseTablePosition = 0;
         name = null;
         volumeAlias = null;
         columnBits.clear();
@@ -131,6 +137,17 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return likeTableName;
     }
 
+    public int getMatViewBaseTablePosition() {
+        return matViewBaseTablePosition;
+    }
+
+    /**
+     * @return definition of the materialized view, when the model creates one, null otherwise
+     */
+    public MatViewDefinition getMatViewDefinition() {
+        return matViewDefinition;
+    }
+
     @Override
     public int getMaxUncommittedRows() {
         return maxUncommittedRows;
@@ -193,6 +210,20 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return ignoreIfExists;
     }
 
+    @Override
+    public boolean isDedupKey(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_FLAG_DEDUP_KEY) != 0;
+    }
+
+    public boolean isDeduplicationEnabled() {
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isDedupKey(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean isIndexed(int index) {
         return (getLowAt(index * 2 + 1) & COLUMN_FLAG_INDEXED) != 0;
@@ -209,6 +240,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return walEnabled;
     }
 
+    public void setDedupKeyFlag(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_DEDUP_KEY, getHighAt(index)));
+    }
+
     public void setIgnoreIfExists(boolean flag) {
         this.ignoreIfExists = flag;
     }
@@ -225,6 +261,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.likeTableName = tableName;
     }
 
+    public void setMatViewDefinition(MatViewDefinition matViewDefinition, int baseTablePosition) {
+        this.matViewDefinition = matViewDefinition;
+        this.matViewBaseTablePosition = baseTablePosition;
+    }
+
     public void setMaxUncommittedRows(int maxUncommittedRows) {
         this.maxUncommittedRows = maxUncommittedRows;
     }
@@ -269,7 +310,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
 
     @Override
     public void toSink(CharSink sink) {
-        sink.put("create table ");
+        sink.put(matViewDefinition != null ? "create materialized view " : "create table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
             sink.put(" as (");
@@ -358,6 +399,21 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
             }
         }
 
+        if (isDeduplicationEnabled()) {
+            sink.put(" dedup upsert keys(");
+            boolean first = true;
+            for (int i = 0, n = getColumnCount(); i < n; i++) {
+                if (isDedupKey(i)) {
+                    if (!first) {
+                        sink.put(',');
+                    }
+                    sink.put(getColumnName(i));
+                    first = false;
+                }
+            }
+            sink.put(')');
+        }
+
         if (volumeAlias != null) {
             sink.put(" in volume '").put(volumeAlias).put('\'');
         }
@@ -36,6 +36,7 @@ public class ExplainModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<ExplainModel> FACTORY = ExplainModel::new;
     public static final int FORMAT_JSON = 2;
     public static final int FORMAT_TEXT = 1;
+    private boolean analyze;
     private int format;
     private ExecutionModel model;
 
@@ -60,6 +61,17 @@ public class ExplainModel implements ExecutionModel, Mutable, Sinkable {
         return EXPLAIN;
     }
 
+    /**
+     * @return true for EXPLAIN ANALYZE, i.e. when the query has to be executed before printing the plan
+     */
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
+    public void setAnalyze(boolean analyze) {
+        this.analyze = analyze;
+    }
+
     public void setFormat(int format) {
         this.format = format;
     }
@@ -71,6 +83,9 @@ public class ExplainModel implements ExecutionModel, Mutable, Sinkable {
     @Override
     public void toSink(CharSink sink) {
         sink.put("EXPLAIN");
+        if (analyze) {
+            sink.put(" ANALYZE");
+        }
         sink.put(" (FORMAT ").put(format == FORMAT_TEXT ? "TEXT" : "JSON").put(") ");
     }
 }
@@ -1228,6 +1228,21 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                             }
                         }
                     }
+                    if (ac.isFrameSpecified()) {
+                        if (partitionBy.size() > 0 || orderBy.size() > 0) {
+                            sink.put(' ');
+                        }
+                        sink.put(ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS ? "rows" : "range");
+                        sink.put(" between ");
+                        if (ac.getRowsLo() == AnalyticColumn.UNBOUNDED) {
+                            sink.put("unbounded preceding");
+                        } else if (ac.getRowsLo() == 0) {
+                            sink.put("current row");
+                        } else {
+                            sink.put(ac.getRowsLo()).put(" preceding");
+                        }
+                        sink.put(" and current row");
+                    }
                     sink.put(')');
                 }
             } else {
@@ -225,6 +225,9 @@ public abstract class AbstractIODispatcher<C extends IOContext<C>> extends Synch
     private void createListenFd() throws NetworkError {
         this.serverFd = nf.socketTcp(false);
         final int backlog = configuration.getListenBacklog();
+        if (configuration.getDispatcherCount() > 1 && nf.setReusePort(serverFd) < 0) {
+            LOG.error().$("could not set SO_REUSEPORT [fd=").$(serverFd).$(", errno=").$(nf.errno()).I$();
+        }
         if (this.port == 0) {
             // Note that `configuration.getBindPort()` might also be 0.
             // In such case, we will bind to an ephemeral port.
@@ -26,11 +26,29 @@ package io.questdb.network;
 
 import io.questdb.std.Mutable;
 import io.questdb.std.QuietCloseable;
+import io.questdb.std.Vect;
 
 public abstract class IOContext<T extends IOContext<T>> implements Mutable, QuietCloseable {
     protected IODispatcher<T> dispatcher;
     protected int fd = -1;
     protected long heartbeatId = -1;
+    // The fields below are the staging area of a completion based dispatcher, see IODispatcherIOUring.
+    // The dispatcher fills them in before it publishes an operation and takes them back when the context
+    // registers again or gets disconnected, so they are never accessed by two threads at the same time.
+    long recvBufAddr;
+    int recvBufId = -1;
+    int recvBufLen;
+    int recvBufPos;
+    boolean recvEof;
+    // id of the dispatcher's in-flight recv request, -1 when there is none
+    long recvId = -1;
+    // true when recv() is served from the staging area rather than the socket
+    boolean recvStaged;
+    long sendBufAddr;
+    int sendBufCapacity;
+    int sendBufLen;
+    boolean sendFailed;
+    boolean shutdownPending;
 
     @Override
     public void clear() {
@@ -65,6 +83,15 @@ public abstract class IOContext<T extends IOContext<T>> implements Mutable, Quie
         return fd == -1;
     }
 
+    /**
+     * Returns true if the context does all socket I/O via {@link #recv}, {@link #send} and
+     * {@link #shutdownWrite}, so that a completion based dispatcher can receive and send
+     * on its behalf. Contexts that call the network facade directly must return false.
+     */
+    public boolean isStagedIOSupported() {
+        return false;
+    }
+
     @SuppressWarnings("unchecked")
     public T of(int fd, IODispatcher<T> dispatcher) {
         this.fd = fd;
@@ -72,7 +99,56 @@ public abstract class IOContext<T extends IOContext<T>> implements Mutable, Quie
         return (T) this;
     }
 
+    /**
+     * Same contract as {@link NetworkFacade#recv(int, long, int)}. When the dispatcher has already
+     * received data for the context, the data is served from the staging area and {@link Net#ERETRY}
+     * is returned once it is exhausted, so that the context registers for the next read.
+     */
+    public int recv(NetworkFacade nf, long bufPtr, int len) {
+        if (!recvStaged) {
+            return nf.recv(getFd(), bufPtr, len);
+        }
+        final int n = Math.min(len, recvBufLen - recvBufPos);
+        if (n > 0) {
+            Vect.memcpy(bufPtr, recvBufAddr + recvBufPos, n);
+            recvBufPos += n;
+            return n;
+        }
+        return recvEof ? Net.EOTHERDISCONNECT : Net.ERETRY;
+    }
+
+    /**
+     * Same contract as {@link NetworkFacade#send(int, long, int)}. When the dispatcher has lent
+     * the context a send buffer, data is copied there and goes to the socket when the context
+     * registers again. A full buffer is reported as {@link Net#ERETRY}.
+     */
+    public int send(NetworkFacade nf, long bufPtr, int len) {
+        if (sendFailed) {
+            return Net.EOTHERDISCONNECT;
+        }
+        if (sendBufAddr == 0) {
+            return nf.send(getFd(), bufPtr, len);
+        }
+        final int n = Math.min(len, sendBufCapacity - sendBufLen);
+        if (n > 0) {
+            Vect.memcpy(sendBufAddr + sendBufLen, bufPtr, n);
+            sendBufLen += n;
+        }
+        return n;
+    }
+
     public void setHeartbeatId(long heartbeatId) {
         this.heartbeatId = heartbeatId;
     }
+
+    /**
+     * Sends TCP FIN after all data passed to {@link #send} so far.
+     */
+    public void shutdownWrite(NetworkFacade nf) {
+        if (sendBufLen > 0) {
+            shutdownPending = true;
+        } else {
+            nf.shutdown(getFd(), Net.SHUT_WR);
+        }
+    }
 }
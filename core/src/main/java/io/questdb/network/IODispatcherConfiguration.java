@@ -24,6 +24,8 @@
 
 package io.questdb.network;
 
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.IOURingFacadeImpl;
 import io.questdb.std.Numbers;
 import io.questdb.std.Os;
 import io.questdb.std.datetime.millitime.MillisecondClock;
@@ -38,6 +40,13 @@ public interface IODispatcherConfiguration {
 
     MillisecondClock getClock();
 
+    /**
+     * Number of dispatchers sharing the bind port via SO_REUSEPORT, each with its own listening socket.
+     */
+    default int getDispatcherCount() {
+        return 1;
+    }
+
     default String getDispatcherLogName() {
         return "IODispatcher";
     }
@@ -56,6 +65,10 @@ public interface IODispatcherConfiguration {
         return Numbers.ceilPow2(getLimit());
     }
 
+    default IOURingFacade getIOURingFacade() {
+        return IOURingFacadeImpl.INSTANCE;
+    }
+
     int getInitialBias();
 
     default int getInterestQueueCapacity() {
@@ -95,5 +108,13 @@ public interface IODispatcherConfiguration {
 
     long getTimeout();
 
+    /**
+     * When enabled, Linux dispatcher uses io_uring instead of epoll, provided that
+     * the kernel supports it.
+     */
+    default boolean isIOURingEnabled() {
+        return true;
+    }
+
     long getHeartbeatInterval();
 }
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.network;
+
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Group of dispatchers sharing the same port. Each dispatcher binds its own listening
+ * socket with SO_REUSEPORT, so that the kernel load-balances incoming connections between
+ * them. Connection contexts keep reference to the dispatcher that accepted them, which
+ * means that registrations and disconnects are always handled by the owning dispatcher.
+ */
+public class IODispatcherGroup<C extends IOContext<C>> implements IODispatcher<C> {
+    private final ObjList<IODispatcher<C>> dispatchers;
+    private int queueIndex;
+
+    public IODispatcherGroup(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory
+    ) {
+        final int dispatcherCount = configuration.getDispatcherCount();
+        this.dispatchers = new ObjList<>(dispatcherCount);
+        try {
+            int port = configuration.getBindPort();
+            for (int i = 0; i < dispatcherCount; i++) {
+                final IODispatcher<C> dispatcher = IODispatchers.create0(
+                        new ShardConfiguration(configuration, i, port),
+                        ioContextFactory
+                );
+                dispatchers.add(dispatcher);
+                // port 0 is resolved by the first dispatcher, the rest of the group reuses it
+                port = dispatcher.getPort();
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Pins every dispatcher to a single worker, so that accepts and event polling
+     * are spread between the pool threads.
+     */
+    public void assign(WorkerPool pool) {
+        final int workerCount = pool.getWorkerCount();
+        for (int i = 0, n = dispatchers.size(); i < n; i++) {
+            pool.assign(i % workerCount, dispatchers.getQuick(i));
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(dispatchers);
+    }
+
+    @Override
+    public void disconnect(C context, int reason) {
+        context.getDispatcher().disconnect(context, reason);
+    }
+
+    @Override
+    public int getConnectionCount() {
+        int count = 0;
+        for (int i = 0, n = dispatchers.size(); i < n; i++) {
+            count += dispatchers.getQuick(i).getConnectionCount();
+        }
+        return count;
+    }
+
+    public IODispatcher<C> getDispatcher(int index) {
+        return dispatchers.getQuick(index);
+    }
+
+    public int getDispatcherCount() {
+        return dispatchers.size();
+    }
+
+    @Override
+    public int getPort() {
+        return dispatchers.getQuick(0).getPort();
+    }
+
+    @Override
+    public boolean isListening() {
+        for (int i = 0, n = dispatchers.size(); i < n; i++) {
+            if (dispatchers.getQuick(i).isListening()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Processes at most one event. Queues are visited starting from a round-robin index, so
+     * that no dispatcher is starved, and the search stops at the first queue that yields an
+     * event. The call returns false only when all the queues are empty.
+     */
+    @Override
+    public boolean processIOQueue(IORequestProcessor<C> processor) {
+        final int n = dispatchers.size();
+        // racy increment is fine, we only need the queues to be visited evenly
+        final int start = (queueIndex++ & Integer.MAX_VALUE) % n;
+        for (int i = 0; i < n; i++) {
+            final int index = start + i < n ? start + i : start + i - n;
+            if (dispatchers.getQuick(index).processIOQueue(processor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void registerChannel(C context, int operation) {
+        context.getDispatcher().registerChannel(context, operation);
+    }
+
+    /**
+     * Runs all dispatchers of the group. Worker pools should use {@link #assign(WorkerPool)}
+     * instead, to have each dispatcher running on its own worker.
+     */
+    @Override
+    public boolean run(int workerId, @NotNull RunStatus runStatus) {
+        boolean useful = false;
+        for (int i = 0, n = dispatchers.size(); i < n; i++) {
+            useful |= dispatchers.getQuick(i).run(workerId, runStatus);
+        }
+        return useful;
+    }
+
+    private static class ShardConfiguration implements IODispatcherConfiguration {
+        private final IODispatcherConfiguration delegate;
+        private final int limit;
+        private final String logName;
+        private final int port;
+
+        private ShardConfiguration(IODispatcherConfiguration delegate, int index, int port) {
+            this.delegate = delegate;
+            this.port = port;
+            // the connection limit is shared by the group
+            final int dispatcherCount = delegate.getDispatcherCount();
+            this.limit = Math.max(1, (delegate.getLimit() + dispatcherCount - 1) / dispatcherCount);
+            this.logName = delegate.getDispatcherLogName() + '-' + index;
+        }
+
+        @Override
+        public int getBindIPv4Address() {
+            return delegate.getBindIPv4Address();
+        }
+
+        @Override
+        public int getBindPort() {
+            return port;
+        }
+
+        @Override
+        public MillisecondClock getClock() {
+            return delegate.getClock();
+        }
+
+        @Override
+        public int getDispatcherCount() {
+            return delegate.getDispatcherCount();
+        }
+
+        @Override
+        public String getDispatcherLogName() {
+            return logName;
+        }
+
+        @Override
+        public EpollFacade getEpollFacade() {
+            return delegate.getEpollFacade();
+        }
+
+        @Override
+        public long getHeartbeatInterval() {
+            return delegate.getHeartbeatInterval();
+        }
+
+        @Override
+        public boolean getHint() {
+            return delegate.getHint();
+        }
+
+        @Override
+        public IOURingFacade getIOURingFacade() {
+            return delegate.getIOURingFacade();
+        }
+
+        @Override
+        public int getInitialBias() {
+            return delegate.getInitialBias();
+        }
+
+        @Override
+        public KqueueFacade getKqueueFacade() {
+            return delegate.getKqueueFacade();
+        }
+
+        @Override
+        public int getLimit() {
+            return limit;
+        }
+
+        @Override
+        public NetworkFacade getNetworkFacade() {
+            return delegate.getNetworkFacade();
+        }
+
+        @Override
+        public boolean getPeerNoLinger() {
+            return delegate.getPeerNoLinger();
+        }
+
+        @Override
+        public long getQueueTimeout() {
+            return delegate.getQueueTimeout();
+        }
+
+        @Override
+        public int getRcvBufSize() {
+            return delegate.getRcvBufSize();
+        }
+
+        @Override
+        public SelectFacade getSelectFacade() {
+            return delegate.getSelectFacade();
+        }
+
+        @Override
+        public int getSndBufSize() {
+            return delegate.getSndBufSize();
+        }
+
+        @Override
+        public int getTestConnectionBufferSize() {
+            return delegate.getTestConnectionBufferSize();
+        }
+
+        @Override
+        public long getTimeout() {
+            return delegate.getTimeout();
+        }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return delegate.isIOURingEnabled();
+        }
+    }
+}
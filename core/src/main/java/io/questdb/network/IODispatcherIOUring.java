@@ -0,0 +1,899 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.network;
+
+import io.questdb.std.*;
+
+/**
+ * Linux dispatcher backed by io_uring rather than epoll. Requests and cancellations are
+ * accumulated in the submission queue and submitted with a single io_uring_enter call per
+ * dispatcher iteration, while completions are reaped from the shared completion queue without
+ * any syscalls at all.
+ * <p>
+ * Contexts that support staged I/O, see {@link IOContext#isStagedIOSupported()}, have their
+ * socket I/O done by the ring. Reads are served by recv requests that pick one of the buffers
+ * provided to the kernel upfront, so that idle connections don't pin any memory. The received
+ * data is handed over to the context along with the read operation. Writes are copied by the
+ * context into a send buffer lent by the dispatcher and go to the socket as a send request once
+ * the context registers again. Other contexts are readiness based, i.e. they call recv/send on
+ * their own, so the dispatcher arms one-shot poll requests where the epoll dispatcher would
+ * modify the interest list. Suspend events always rely on poll requests.
+ */
+public class IODispatcherIOUring<C extends IOContext<C>> extends AbstractIODispatcher<C> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ECANCELED = 125;
+    private static final int ENOBUFS = 105;
+    private static final int EVM_DEADLINE = 1;
+    private static final int EVM_ID = 0;
+    // 1 when poll request for the suspended operation is armed, 0 when it has already fired
+    private static final int EVM_OPERATION_ARMED = 3;
+    private static final int EVM_OPERATION_ID = 2;
+    // the final ids are shifted by 2 bits which are reserved to distinguish request kinds;
+    // id 0 is reserved for operations on the server fd
+    private static final int ID_KIND_BITS = 2;
+    private static final long ID_KIND_EVENT = 1;
+    private static final long ID_KIND_MASK = (1 << ID_KIND_BITS) - 1;
+    private static final long ID_KIND_OPERATION = 0;
+    private static final long ID_KIND_RECV = 2;
+    private static final long ID_KIND_SEND = 3;
+    private static final int IORING_CQE_BUFFER_SHIFT = 16;
+    private static final int IORING_CQE_F_BUFFER = 1;
+    private static final int MAX_RING_CAPACITY = 32768;
+    private static final int MSG_NOSIGNAL = 0x4000;
+    private static final int MSG_WAITALL = 0x100;
+    private static final int POLLIN = 0x1;
+    private static final int POLLOUT = 0x4;
+    // provide buffers requests complete with this id, we're only interested in failures
+    private static final long PROVIDE_ID = Long.MAX_VALUE - 1;
+    private static final int RCV_ID = 0;
+    private static final int RCV_OPERATION_ID = 1;
+    private static final int RECV_BUFFER_COUNT = 32;
+    private static final int RECV_BUFFER_GROUP = 0;
+    // poll remove and cancel requests complete with this id, we're not interested in their results
+    private static final long REMOVE_ID = Long.MAX_VALUE;
+    private static final int SEND_BUFFER_LIMIT = 64;
+    private static final int SND_BUF = 1;
+    private static final int SND_ID = 0;
+    private static final int SND_LEN = 3;
+    private static final int SND_OPERATION = 4;
+    private static final int SND_POS = 2;
+    private static final int SND_TIMESTAMP = 5;
+    protected final LongMatrix pendingEvents = new LongMatrix(4);
+    // in-flight recv requests along with the id of the pending operation they serve
+    private final ObjLongMatrix<C> pendingRecvs = new ObjLongMatrix<>(2);
+    // in-flight send requests, the context is null when the connection has been closed meanwhile
+    private final ObjLongMatrix<C> pendingSends = new ObjLongMatrix<>(6);
+    private final long recvBuffers;
+    private final IOURing ring;
+    private final LongList sendBufferPool = new LongList();
+    // all allocated send buffers, whether they are in the pool, lent out or in flight
+    private final LongList sendBuffers = new LongList();
+    private long idSeq = 1;
+    // number of recv and send requests that may still write to or read from the buffers
+    private int inflightCount;
+    private boolean listenerArmed;
+    private boolean recvEnabled = true;
+    private int unsubmittedCount;
+
+    public IODispatcherIOUring(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory
+    ) {
+        super(configuration, ioContextFactory);
+        try {
+            this.ring = configuration.getIOURingFacade().newInstance(
+                    Math.min(Numbers.ceilPow2(configuration.getEventCapacity()), MAX_RING_CAPACITY)
+            );
+        } catch (Throwable th) {
+            super.close();
+            throw th;
+        }
+        this.recvBuffers = Unsafe.malloc((long) BUFFER_SIZE * RECV_BUFFER_COUNT, MemoryTag.NATIVE_IO_DISPATCHER_RSS);
+        if (ring.enqueueProvideBuffers(PROVIDE_ID, recvBuffers, BUFFER_SIZE, RECV_BUFFER_COUNT, RECV_BUFFER_GROUP, 0) < 0) {
+            LOG.critical().$("internal error: io_uring provide buffers failure").$();
+            recvEnabled = false;
+        }
+        registerListenerFd();
+        submit();
+    }
+
+    @Override
+    public void close() {
+        // Poll requests hold references to the sockets, so we cancel them before the sockets
+        // get closed. Otherwise, the sockets would stay open until the ring teardown.
+        unregisterListenerFd();
+        for (int i = 0, n = pending.size(); i < n; i++) {
+            enqueuePollRemove(pending.get(i, OPM_ID));
+        }
+        for (int i = 0, n = pendingEvents.size(); i < n; i++) {
+            enqueuePollRemove(pendingEvents.get(i, EVM_ID));
+        }
+        submit();
+        if (serverFd > -1) {
+            // Cancelled polls release their references asynchronously, when the task
+            // that armed them runs its task work. Shutting down the listening socket
+            // frees the port right away, so that it can be bound again.
+            nf.abortAccept(serverFd);
+        }
+        super.close();
+        // Contexts waiting for their staged data to be sent are neither pending nor queued,
+        // so they aren't disconnected by the base class.
+        for (int i = 0, n = pendingSends.size(); i < n; i++) {
+            final C context = pendingSends.get(i);
+            if (context != null) {
+                pendingSends.set(i, null);
+                doDisconnect(context, DISCONNECT_SRC_SHUTDOWN);
+            }
+        }
+        // The kernel writes to and reads from the buffers until the requests complete,
+        // so we cancel the remaining ones and wait for them before the buffers are freed.
+        for (int i = 0, n = pendingRecvs.size(); i < n; i++) {
+            enqueueCancel(pendingRecvs.get(i, RCV_ID));
+        }
+        for (int i = 0, n = pendingSends.size(); i < n; i++) {
+            enqueueCancel(pendingSends.get(i, SND_ID));
+        }
+        while (inflightCount > 0) {
+            ring.submitAndWait();
+            while (ring.nextCqe()) {
+                if (isRequestId(ring.getCqeId())) {
+                    inflightCount--;
+                }
+            }
+        }
+        ring.close();
+        for (int i = 0, n = sendBuffers.size(); i < n; i++) {
+            Unsafe.free(sendBuffers.getQuick(i), BUFFER_SIZE, MemoryTag.NATIVE_IO_DISPATCHER_RSS);
+        }
+        Unsafe.free(recvBuffers, (long) BUFFER_SIZE * RECV_BUFFER_COUNT, MemoryTag.NATIVE_IO_DISPATCHER_RSS);
+        LOG.info().$("closed").$();
+    }
+
+    private static boolean hasStagedRecv(IOContext<?> context) {
+        return context.recvBufPos < context.recvBufLen || context.recvEof;
+    }
+
+    private static boolean isRequestId(long id) {
+        final long kind = id & ID_KIND_MASK;
+        return id != REMOVE_ID && id != PROVIDE_ID && (kind == ID_KIND_RECV || kind == ID_KIND_SEND);
+    }
+
+    private static int pollMask(int operation) {
+        return operation == IOOperation.READ ? POLLIN : POLLOUT;
+    }
+
+    private void arm(C context, long opId, int operation) {
+        final int fd = context.getFd();
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        if (suspendEvent != null) {
+            // if the operation was suspended, we request a read to be able to detect a client disconnect
+            operation = IOOperation.READ;
+            // ok, the operation was suspended, so we need to track the suspend event
+            final long eventId = nextEventId();
+            LOG.debug().$("registering suspend event [fd=").$(fd)
+                    .$(", op=").$(operation)
+                    .$(", eventId=").$(eventId)
+                    .$(", suspendedOpId=").$(opId)
+                    .$(", deadline=").$(suspendEvent.getDeadline()).I$();
+
+            int eventRow = pendingEvents.addRow();
+            pendingEvents.set(eventRow, EVM_ID, eventId);
+            pendingEvents.set(eventRow, EVM_OPERATION_ID, opId);
+            pendingEvents.set(eventRow, EVM_DEADLINE, suspendEvent.getDeadline());
+            pendingEvents.set(eventRow, EVM_OPERATION_ARMED, 1);
+
+            enqueuePoll(eventId, suspendEvent.getFd(), POLLIN);
+            enqueuePoll(opId, fd, POLLIN);
+        } else {
+            enqueueOperation(context, opId, operation);
+        }
+    }
+
+    private void doDisconnect(C context, long id, int reason) {
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        if (suspendEvent != null) {
+            // yes, we can do a binary search over EVM_OPERATION_ID since
+            // these ref ids are monotonically growing
+            int eventRow = pendingEvents.binarySearch(id, EVM_OPERATION_ID);
+            if (eventRow < 0) {
+                LOG.critical().$("internal error: suspend event not found [id=").$(id).I$();
+                enqueuePollRemove(id);
+            } else {
+                if (pendingEvents.get(eventRow, EVM_OPERATION_ARMED) == 1) {
+                    enqueuePollRemove(id);
+                }
+                enqueuePollRemove(pendingEvents.get(eventRow, EVM_ID));
+                pendingEvents.deleteRow(eventRow);
+            }
+        } else if (context.recvId == -1) {
+            enqueuePollRemove(id);
+        }
+        // the poll request holds a reference to the socket, so the remove request
+        // has to reach the kernel for the socket to be released after close
+        doDisconnect(context, reason);
+    }
+
+    private void enqueueCancel(long targetId) {
+        if (ring.enqueueCancel(REMOVE_ID, targetId) < 0) {
+            submit();
+            if (ring.enqueueCancel(REMOVE_ID, targetId) < 0) {
+                LOG.critical().$("internal error: io_uring cancel failure [id=").$(targetId).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void enqueueOperation(C context, long opId, int operation) {
+        if (operation == IOOperation.READ && recvEnabled && context.isStagedIOSupported()) {
+            enqueueRecv(context, opId);
+        } else {
+            enqueuePoll(opId, context.getFd(), pollMask(operation));
+        }
+    }
+
+    private void enqueuePending(int watermark) {
+        for (int i = watermark, sz = pending.size(); i < sz; i++) {
+            final long id = pending.get(i, OPM_ID);
+            int operation = initialBias == IODispatcherConfiguration.BIAS_READ ? IOOperation.READ : IOOperation.WRITE;
+            pending.set(i, OPM_OPERATION, operation);
+            enqueueOperation(pending.get(i), id, operation);
+        }
+    }
+
+    private void enqueuePoll(long id, int fd, int pollMask) {
+        if (ring.enqueuePollAdd(id, fd, pollMask) < 0) {
+            // submission queue is full, flush it and retry
+            submit();
+            if (ring.enqueuePollAdd(id, fd, pollMask) < 0) {
+                LOG.critical().$("internal error: io_uring poll add failure [id=").$(id).$(", fd=").$(fd).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void enqueuePollRemove(long targetId) {
+        if (ring.enqueuePollRemove(REMOVE_ID, targetId) < 0) {
+            submit();
+            if (ring.enqueuePollRemove(REMOVE_ID, targetId) < 0) {
+                LOG.critical().$("internal error: io_uring poll remove failure [id=").$(targetId).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void enqueueProvideBuffer(int bufferId) {
+        final long bufAddr = recvBuffers + (long) bufferId * BUFFER_SIZE;
+        if (ring.enqueueProvideBuffers(PROVIDE_ID, bufAddr, BUFFER_SIZE, 1, RECV_BUFFER_GROUP, bufferId) < 0) {
+            submit();
+            if (ring.enqueueProvideBuffers(PROVIDE_ID, bufAddr, BUFFER_SIZE, 1, RECV_BUFFER_GROUP, bufferId) < 0) {
+                LOG.critical().$("internal error: io_uring provide buffers failure [bufferId=").$(bufferId).I$();
+                return;
+            }
+        }
+        unsubmittedCount++;
+    }
+
+    private void enqueueRecv(C context, long opId) {
+        final long id = nextRecvId();
+        final int fd = context.getFd();
+        if (ring.enqueueRecv(id, fd, BUFFER_SIZE, RECV_BUFFER_GROUP) < 0) {
+            submit();
+            if (ring.enqueueRecv(id, fd, BUFFER_SIZE, RECV_BUFFER_GROUP) < 0) {
+                LOG.critical().$("internal error: io_uring recv failure [id=").$(id).$(", fd=").$(fd).I$();
+                return;
+            }
+        }
+        final int r = pendingRecvs.addRow();
+        pendingRecvs.set(r, RCV_ID, id);
+        pendingRecvs.set(r, RCV_OPERATION_ID, opId);
+        pendingRecvs.set(r, context);
+        context.recvId = id;
+        inflightCount++;
+        unsubmittedCount++;
+    }
+
+    private boolean enqueueSend(C context, long bufAddr, int pos, int len, int operation, long timestamp, int msgFlags) {
+        final long id = nextSendId();
+        final int fd = context.getFd();
+        if (ring.enqueueSend(id, fd, bufAddr + pos, len - pos, msgFlags) < 0) {
+            submit();
+            if (ring.enqueueSend(id, fd, bufAddr + pos, len - pos, msgFlags) < 0) {
+                LOG.critical().$("internal error: io_uring send failure [id=").$(id).$(", fd=").$(fd).I$();
+                return false;
+            }
+        }
+        final int r = pendingSends.addRow();
+        pendingSends.set(r, SND_ID, id);
+        pendingSends.set(r, SND_BUF, bufAddr);
+        pendingSends.set(r, SND_POS, pos);
+        pendingSends.set(r, SND_LEN, len);
+        pendingSends.set(r, SND_OPERATION, operation);
+        pendingSends.set(r, SND_TIMESTAMP, timestamp);
+        pendingSends.set(r, context);
+        inflightCount++;
+        unsubmittedCount++;
+        return true;
+    }
+
+    private boolean handleRecv(long id, int res, int flags) {
+        final int recvRow = pendingRecvs.binarySearch(id, RCV_ID);
+        if (recvRow < 0) {
+            // the connection has been closed meanwhile, so we give the buffer back to the kernel
+            if ((flags & IORING_CQE_F_BUFFER) != 0) {
+                enqueueProvideBuffer(flags >>> IORING_CQE_BUFFER_SHIFT);
+            }
+            return false;
+        }
+
+        final C context = pendingRecvs.get(recvRow);
+        final long opId = pendingRecvs.get(recvRow, RCV_OPERATION_ID);
+        pendingRecvs.deleteRow(recvRow);
+        context.recvId = -1;
+
+        final int row = pending.binarySearch(opId, OPM_ID);
+        if (res == -ENOBUFS) {
+            // all buffers are lent out, so we fall back to readiness and let the context receive on its own
+            if (row > -1) {
+                enqueuePoll(opId, context.getFd(), POLLIN);
+            }
+            return false;
+        }
+
+        assert context.recvBufId == -1;
+        if ((flags & IORING_CQE_F_BUFFER) != 0) {
+            final int bufferId = flags >>> IORING_CQE_BUFFER_SHIFT;
+            context.recvBufId = bufferId;
+            context.recvBufAddr = recvBuffers + (long) bufferId * BUFFER_SIZE;
+            context.recvBufLen = Math.max(res, 0);
+            context.recvBufPos = 0;
+        }
+        // zero bytes stand for the peer's FIN, errors are reported to the context the same way
+        context.recvEof = res < 1;
+
+        if (row < 0) {
+            // the context is out for a heartbeat, the data gets published when it registers back
+            return false;
+        }
+        publish(IOOperation.READ, context);
+        pending.deleteRow(row);
+        return true;
+    }
+
+    private void handleSend(long id, int res) {
+        final int row = pendingSends.binarySearch(id, SND_ID);
+        if (row < 0) {
+            LOG.critical().$("internal error: send request not found [id=").$(id).I$();
+            return;
+        }
+
+        final C context = pendingSends.get(row);
+        final long bufAddr = pendingSends.get(row, SND_BUF);
+        final int pos = (int) pendingSends.get(row, SND_POS) + Math.max(res, 0);
+        final int len = (int) pendingSends.get(row, SND_LEN);
+        final int operation = (int) pendingSends.get(row, SND_OPERATION);
+        final long timestamp = pendingSends.get(row, SND_TIMESTAMP);
+        pendingSends.deleteRow(row);
+
+        if (context == null) {
+            // the connection has been closed meanwhile
+            sendBufferPool.add(bufAddr);
+            return;
+        }
+
+        if (res > -1 && pos < len && enqueueSend(context, bufAddr, pos, len, operation, timestamp, MSG_NOSIGNAL)) {
+            // short send, the rest goes in a follow-up request
+            return;
+        }
+
+        sendBufferPool.add(bufAddr);
+        if (pos < len) {
+            // the context learns about the failure on its next send, whereas
+            // a recv on the broken connection reports the disconnect anyway
+            LOG.info().$("could not send [fd=").$(context.getFd()).$(", errno=").$(-res).I$();
+            context.sendFailed = true;
+        } else if (context.shutdownPending) {
+            nf.shutdown(context.getFd(), Net.SHUT_WR);
+        }
+        context.shutdownPending = false;
+        if (operation == IOOperation.WRITE && context.getSuspendEvent() == null) {
+            // the send buffer has been drained, so there is no point in polling for it
+            publish(IOOperation.WRITE, context);
+        } else {
+            // now the operation requested by the context can be armed
+            registerChannel(context, operation);
+        }
+    }
+
+    private boolean handleSocketOperation(long id) {
+        // find row in pending for two reasons:
+        // 1. find payload
+        // 2. remove row from pending, remaining rows will be timed out
+        final int row = pending.binarySearch(id, OPM_ID);
+        if (row < 0) {
+            // completion of a poll request that has been removed concurrently
+            LOG.debug().$("ignoring stale poll completion [id=").$(id).I$();
+            return false;
+        }
+
+        final C context = pending.get(row);
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        if (suspendEvent != null) {
+            // the operation is suspended, the poll has fired, so there is nothing armed for the socket anymore
+            final int eventRow = pendingEvents.binarySearch(id, EVM_OPERATION_ID);
+            if (eventRow > -1) {
+                pendingEvents.set(eventRow, EVM_OPERATION_ARMED, 0);
+            }
+            // check if we have a client disconnect
+            if (testConnection(context.getFd())) {
+                doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
+                pending.deleteRow(row);
+                return true;
+            }
+        } else {
+            // unlike epoll we can't tell if the completion comes from the currently armed request
+            // or from the one replaced on resume, so we trust the requested operation over the poll mask
+            publish((int) pending.get(row, OPM_OPERATION), context);
+            pending.deleteRow(row);
+            return true;
+        }
+        return false;
+    }
+
+    private void handleSuspendEvent(long id) {
+        final int eventsRow = pendingEvents.binarySearch(id, EVM_ID);
+        if (eventsRow < 0) {
+            LOG.debug().$("ignoring stale suspend event completion [eventId=").$(id).I$();
+            return;
+        }
+
+        final long opId = pendingEvents.get(eventsRow, EVM_OPERATION_ID);
+        final int row = pending.binarySearch(opId, OPM_ID);
+        if (row < 0) {
+            LOG.critical().$("internal error: suspended operation not found [id=").$(opId).$(", eventId=").$(id).I$();
+            return;
+        }
+
+        final int operation = (int) pending.get(row, OPM_OPERATION);
+        final C context = pending.get(row);
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        assert suspendEvent != null;
+
+        resumeOperation(context, opId, operation, pendingEvents.get(eventsRow, EVM_OPERATION_ARMED) == 1);
+        pendingEvents.deleteRow(eventsRow);
+    }
+
+    private void lendSendBuffer(C context) {
+        if (context.sendBufAddr != 0) {
+            return;
+        }
+        final long bufAddr;
+        final int n = sendBufferPool.size();
+        if (n > 0) {
+            bufAddr = sendBufferPool.getQuick(n - 1);
+            sendBufferPool.setPos(n - 1);
+        } else if (sendBuffers.size() < SEND_BUFFER_LIMIT) {
+            bufAddr = Unsafe.malloc(BUFFER_SIZE, MemoryTag.NATIVE_IO_DISPATCHER_RSS);
+            sendBuffers.add(bufAddr);
+        } else {
+            // all buffers are lent out, the context sends on its own
+            return;
+        }
+        context.sendBufAddr = bufAddr;
+        context.sendBufCapacity = BUFFER_SIZE;
+        context.sendBufLen = 0;
+    }
+
+    private long nextEventId() {
+        return (idSeq++ << ID_KIND_BITS) + ID_KIND_EVENT;
+    }
+
+    private long nextOpId() {
+        return (idSeq++ << ID_KIND_BITS) + ID_KIND_OPERATION;
+    }
+
+    private long nextRecvId() {
+        return (idSeq++ << ID_KIND_BITS) + ID_KIND_RECV;
+    }
+
+    private long nextSendId() {
+        return (idSeq++ << ID_KIND_BITS) + ID_KIND_SEND;
+    }
+
+    private void processHeartbeats(int watermark, long timestamp) {
+        int count = 0;
+        for (int i = 0; i < watermark && pending.get(i, OPM_HEARTBEAT_TIMESTAMP) < timestamp; i++, count++) {
+            final C context = pending.get(i);
+
+            // Remove pending operation poll. We'll arm a new one later when we get a heartbeat pong.
+            final int fd = context.getFd();
+            final long opId = pending.get(i, OPM_ID);
+            boolean operationArmed = true;
+
+            final SuspendEvent suspendEvent = context.getSuspendEvent();
+            if (suspendEvent != null) {
+                // Also, remove suspend event poll.
+                int eventRow = pendingEvents.binarySearch(opId, EVM_OPERATION_ID);
+                if (eventRow < 0) {
+                    LOG.critical().$("internal error: suspend event not found on heartbeat [id=").$(opId).I$();
+                } else {
+                    operationArmed = pendingEvents.get(eventRow, EVM_OPERATION_ARMED) == 1;
+                    enqueuePollRemove(pendingEvents.get(eventRow, EVM_ID));
+                    pendingEvents.deleteRow(eventRow);
+                }
+            }
+            // An in-flight recv request is kept, its data is staged while the context is out.
+            if (operationArmed && context.recvId == -1) {
+                enqueuePollRemove(opId);
+            }
+
+            context.setHeartbeatId(opId);
+            publishOperation(IOOperation.HEARTBEAT, context);
+
+            final int operation = (int) pending.get(i, OPM_OPERATION);
+            int r = pendingHeartbeats.addRow();
+            pendingHeartbeats.set(r, OPM_CREATE_TIMESTAMP, pending.get(i, OPM_CREATE_TIMESTAMP));
+            pendingHeartbeats.set(r, OPM_FD, fd);
+            pendingHeartbeats.set(r, OPM_ID, opId);
+            pendingHeartbeats.set(r, OPM_OPERATION, operation);
+            pendingHeartbeats.set(r, context);
+
+            LOG.debug().$("published heartbeat [fd=").$(fd)
+                    .$(", op=").$(operation)
+                    .$(", id=").$(opId).I$();
+        }
+        pending.zapTop(count);
+    }
+
+    private int processIdleConnections(long idleTimestamp) {
+        int count = 0;
+        for (int i = 0, n = pending.size(); i < n && pending.get(i, OPM_CREATE_TIMESTAMP) < idleTimestamp; i++, count++) {
+            doDisconnect(pending.get(i), pending.get(i, OPM_ID), DISCONNECT_SRC_IDLE);
+        }
+        pending.zapTop(count);
+        return count;
+    }
+
+    private void processIdleSends(long idleTimestamp) {
+        for (int i = 0, n = pendingSends.size(); i < n; i++) {
+            final C context = pendingSends.get(i);
+            if (context != null && pendingSends.get(i, SND_TIMESTAMP) < idleTimestamp) {
+                // the peer doesn't read, the buffer goes back to the pool once the cancelled request completes
+                enqueueCancel(pendingSends.get(i, SND_ID));
+                pendingSends.set(i, null);
+                doDisconnect(context, DISCONNECT_SRC_IDLE);
+            }
+        }
+    }
+
+    private boolean processRegistrations(long timestamp) {
+        boolean useful = false;
+        long cursor;
+        while ((cursor = interestSubSeq.next()) > -1) {
+            final IOEvent<C> event = interestQueue.get(cursor);
+            final C context = event.context;
+            final int requestedOperation = event.operation;
+            final long srcOpId = context.getAndResetHeartbeatId();
+            interestSubSeq.done(cursor);
+
+            useful = true;
+            final int fd = context.getFd();
+
+            int operation = requestedOperation;
+            long createTimestamp = timestamp;
+            if (requestedOperation == IOOperation.HEARTBEAT) {
+                assert srcOpId != -1;
+
+                int heartbeatRow = pendingHeartbeats.binarySearch(srcOpId, OPM_ID);
+                if (heartbeatRow < 0) {
+                    continue; // The connection is already closed.
+                }
+                operation = (int) pendingHeartbeats.get(heartbeatRow, OPM_OPERATION);
+                createTimestamp = pendingHeartbeats.get(heartbeatRow, OPM_CREATE_TIMESTAMP);
+                pendingHeartbeats.deleteRow(heartbeatRow);
+            }
+
+            if (context.isStagedIOSupported()) {
+                reclaimRecvBuffer(context, false);
+                if (context.sendBufAddr != 0) {
+                    final long bufAddr = context.sendBufAddr;
+                    final int len = context.sendBufLen;
+                    context.sendBufAddr = 0;
+                    context.sendBufLen = 0;
+                    // staged data goes first, the operation gets registered again once the data is sent
+                    if (len > 0 && enqueueSend(context, bufAddr, 0, len, operation, timestamp, MSG_NOSIGNAL)) {
+                        continue;
+                    }
+                    sendBufferPool.add(bufAddr);
+                }
+                if (operation == IOOperation.READ && context.getSuspendEvent() == null && hasStagedRecv(context)) {
+                    // the context hasn't consumed everything that has been received so far
+                    publish(IOOperation.READ, context);
+                    continue;
+                }
+            }
+
+            final long opId = nextOpId();
+            if (requestedOperation == IOOperation.HEARTBEAT) {
+                LOG.debug().$("processing heartbeat registration [fd=").$(fd)
+                        .$(", op=").$(operation)
+                        .$(", srcId=").$(srcOpId)
+                        .$(", id=").$(opId).I$();
+            } else {
+                LOG.debug().$("processing registration [fd=").$(fd)
+                        .$(", op=").$(operation)
+                        .$(", id=").$(opId).I$();
+            }
+
+            int opRow = pending.addRow();
+            pending.set(opRow, OPM_CREATE_TIMESTAMP, createTimestamp);
+            pending.set(opRow, OPM_HEARTBEAT_TIMESTAMP, timestamp);
+            pending.set(opRow, OPM_FD, fd);
+            pending.set(opRow, OPM_ID, opId);
+            pending.set(opRow, OPM_OPERATION, operation);
+            pending.set(opRow, context);
+
+            if (context.recvId != -1) {
+                // the recv request armed before the heartbeat is still in flight, now it serves the new operation
+                pendingRecvs.set(pendingRecvs.binarySearch(context.recvId, RCV_ID), RCV_OPERATION_ID, opId);
+                continue;
+            }
+            arm(context, opId, operation);
+        }
+        return useful;
+    }
+
+    private void processSuspendEventDeadlines(long timestamp) {
+        int count = 0;
+        for (int i = 0, n = pendingEvents.size(); i < n && pendingEvents.get(i, EVM_DEADLINE) < timestamp; i++, count++) {
+            final long eventId = pendingEvents.get(i, EVM_ID);
+            final long opId = pendingEvents.get(i, EVM_OPERATION_ID);
+            final int pendingRow = pending.binarySearch(opId, OPM_ID);
+            if (pendingRow < 0) {
+                LOG.critical().$("internal error: failed to find operation for expired suspend event [id=").$(opId).I$();
+                continue;
+            }
+            // First, remove the suspend event poll.
+            final C context = pending.get(pendingRow);
+            final int operation = (int) pending.get(pendingRow, OPM_OPERATION);
+            assert context.getSuspendEvent() != null;
+            enqueuePollRemove(eventId);
+            // Next, resume the original operation and close the event.
+            resumeOperation(context, opId, operation, pendingEvents.get(i, EVM_OPERATION_ARMED) == 1);
+        }
+        pendingEvents.zapTop(count);
+    }
+
+    private void publish(int operation, C context) {
+        if (context.isStagedIOSupported()) {
+            context.recvStaged = hasStagedRecv(context);
+            lendSendBuffer(context);
+        }
+        publishOperation(operation, context);
+    }
+
+    private void reclaimRecvBuffer(C context, boolean force) {
+        if (context.recvBufId != -1 && (force || context.recvBufPos >= context.recvBufLen)) {
+            enqueueProvideBuffer(context.recvBufId);
+            context.recvBufId = -1;
+            context.recvBufAddr = 0;
+            context.recvBufLen = 0;
+            context.recvBufPos = 0;
+        }
+    }
+
+    private void releaseStaging(C context) {
+        if (context.recvId != -1) {
+            final int r = pendingRecvs.binarySearch(context.recvId, RCV_ID);
+            if (r > -1) {
+                pendingRecvs.deleteRow(r);
+            }
+            enqueueCancel(context.recvId);
+            context.recvId = -1;
+        }
+        reclaimRecvBuffer(context, true);
+        context.recvEof = false;
+        context.recvStaged = false;
+
+        final long bufAddr = context.sendBufAddr;
+        if (bufAddr != 0) {
+            final int len = context.sendBufLen;
+            context.sendBufAddr = 0;
+            context.sendBufLen = 0;
+            // The context considers the staged data sent, so it has to reach the socket before close.
+            // The request holds a reference to the socket, which keeps the socket open until the data is sent.
+            boolean flushing = false;
+            if (len > 0 && !closed && !context.sendFailed) {
+                flushing = enqueueSend(context, bufAddr, 0, len, IOOperation.WRITE, clock.getTicks(), MSG_NOSIGNAL | MSG_WAITALL);
+                if (flushing) {
+                    pendingSends.set(pendingSends.size() - 1, null);
+                }
+            }
+            if (!flushing) {
+                sendBufferPool.add(bufAddr);
+            }
+        }
+        context.sendFailed = false;
+        context.shutdownPending = false;
+    }
+
+    private void resumeOperation(C context, long id, int operation, boolean readArmed) {
+        if (operation == IOOperation.READ && hasStagedRecv(context)) {
+            // data received before the suspension doesn't make the socket readable,
+            // so we arm a poll that fires right away and publishes the operation
+            if (readArmed) {
+                enqueuePollRemove(id);
+            }
+            enqueuePoll(id, context.getFd(), POLLOUT);
+        } else if (!readArmed) {
+            enqueuePoll(id, context.getFd(), pollMask(operation));
+        } else if (operation != IOOperation.READ) {
+            // requests are executed in submission order, so the read poll
+            // is gone by the time the write poll gets armed
+            enqueuePollRemove(id);
+            enqueuePoll(id, context.getFd(), POLLOUT);
+        }
+        // otherwise, the read poll used to detect a client disconnect serves the resumed operation as is
+        context.clearSuspendEvent();
+    }
+
+    private void submit() {
+        final int n = ring.submit();
+        if (n < 0) {
+            LOG.critical().$("internal error: io_uring submit failure [err=").$(-n).I$();
+        }
+        unsubmittedCount = 0;
+    }
+
+    @Override
+    protected void doDisconnect(C context, int src) {
+        if (context != null && !context.invalid()) {
+            releaseStaging(context);
+            // requests refer to the socket by its fd, so they have to reach
+            // the kernel before the fd gets closed and possibly reused
+            if (unsubmittedCount > 0) {
+                submit();
+            }
+        }
+        super.doDisconnect(context, src);
+    }
+
+    @Override
+    protected void pendingAdded(int index) {
+        pending.set(index, OPM_ID, nextOpId());
+    }
+
+    @Override
+    protected void registerListenerFd() {
+        if (!listenerArmed) {
+            enqueuePoll(0, serverFd, POLLIN);
+            listenerArmed = true;
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+
+        final long timestamp = clock.getTicks();
+        processDisconnects(timestamp);
+        int watermark = pending.size();
+        // reaping completions is a matter of reading the shared ring, no syscalls involved
+        while (ring.nextCqe()) {
+            final long id = ring.getCqeId();
+            final int res = ring.getCqeRes();
+            if (id == REMOVE_ID) {
+                continue;
+            }
+            if (id == PROVIDE_ID) {
+                if (res < 0) {
+                    LOG.critical().$("internal error: io_uring provide buffers failure [err=").$(-res).I$();
+                }
+                continue;
+            }
+            final long kind = id & ID_KIND_MASK;
+            if (kind == ID_KIND_RECV) {
+                inflightCount--;
+                if (handleRecv(id, res, ring.getCqeFlags())) {
+                    useful = true;
+                    watermark--;
+                }
+                continue;
+            }
+            if (kind == ID_KIND_SEND) {
+                inflightCount--;
+                handleSend(id, res);
+                useful = true;
+                continue;
+            }
+            if (res == -ECANCELED) {
+                continue;
+            }
+            // this is server socket, accept if there aren't too many already
+            if (id == 0) {
+                listenerArmed = false;
+                accept(timestamp);
+                if (isListening()) {
+                    registerListenerFd();
+                }
+                useful = true;
+                continue;
+            }
+            if (kind == ID_KIND_EVENT) {
+                handleSuspendEvent(id);
+                continue;
+            }
+            if (handleSocketOperation(id)) {
+                useful = true;
+                watermark--;
+            }
+        }
+
+        // process rows over watermark (new connections)
+        if (watermark < pending.size()) {
+            enqueuePending(watermark);
+        }
+
+        // process timed out suspend events and resume the original operations
+        if (pendingEvents.size() > 0 && pendingEvents.get(0, EVM_DEADLINE) < timestamp) {
+            processSuspendEventDeadlines(timestamp);
+        }
+
+        // process timed out connections
+        final long idleTimestamp = timestamp - idleConnectionTimeout;
+        if (pending.size() > 0 && pending.get(0, OPM_CREATE_TIMESTAMP) < idleTimestamp) {
+            watermark -= processIdleConnections(idleTimestamp);
+            useful = true;
+        }
+        if (pendingSends.size() > 0) {
+            processIdleSends(idleTimestamp);
+        }
+
+        // process heartbeat timers
+        final long heartbeatTimestamp = timestamp - heartbeatIntervalMs;
+        if (watermark > 0 && pending.get(0, OPM_HEARTBEAT_TIMESTAMP) < heartbeatTimestamp) {
+            processHeartbeats(watermark, heartbeatTimestamp);
+            useful = true;
+        }
+
+        useful |= processRegistrations(timestamp);
+
+        // all requests issued during this iteration go to the kernel in one batch
+        if (unsubmittedCount > 0) {
+            submit();
+        }
+        return useful;
+    }
+
+    @Override
+    protected void unregisterListenerFd() {
+        if (listenerArmed) {
+            enqueuePollRemove(0);
+            listenerArmed = false;
+        }
+    }
+}
@@ -24,20 +24,68 @@
 
 package io.questdb.network;
 
+import io.questdb.cairo.CairoException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
 import io.questdb.std.Os;
 
 public class IODispatchers {
+    private static final Log LOG = LogFactory.getLog(IODispatchers.class);
 
     private IODispatchers() {
     }
 
+    /**
+     * Assigns the dispatcher to the pool. Dispatchers of a group are pinned to
+     * individual workers, while a single dispatcher is run by all workers.
+     */
+    public static void assign(WorkerPool pool, IODispatcher<?> dispatcher) {
+        if (dispatcher instanceof IODispatcherGroup) {
+            ((IODispatcherGroup<?>) dispatcher).assign(pool);
+        } else {
+            pool.assign(dispatcher);
+        }
+    }
+
     public static <C extends IOContext<C>> IODispatcher<C> create(
             IODispatcherConfiguration configuration,
             IOContextFactory<C> ioContextFactory
+    ) {
+        if (configuration.getDispatcherCount() > 1) {
+            // SO_REUSEPORT load-balances connections between sockets on Linux only
+            if (Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64) {
+                return new IODispatcherGroup<>(configuration, ioContextFactory);
+            }
+            LOG.info().$("multiple dispatchers are not supported on this OS, using single dispatcher [dispatcher=")
+                    .$(configuration.getDispatcherLogName()).I$();
+        }
+        return create0(configuration, ioContextFactory);
+    }
+
+    static <C extends IOContext<C>> IODispatcher<C> create0(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory
     ) {
         switch (Os.type) {
             case Os.LINUX_AMD64:
             case Os.LINUX_ARM64:
+                if (configuration.isIOURingEnabled()) {
+                    if (configuration.getIOURingFacade().isAvailable()) {
+                        try {
+                            return new IODispatcherIOUring<>(configuration, ioContextFactory);
+                        } catch (CairoException e) {
+                            // e.g. io_uring syscalls may be blocked by seccomp in containers
+                            LOG.error().$("could not create io_uring, falling back to epoll [dispatcher=")
+                                    .$(configuration.getDispatcherLogName())
+                                    .$(", errno=").$(e.getErrno())
+                                    .I$();
+                        }
+                    } else {
+                        LOG.info().$("io_uring is not supported by the kernel, falling back to epoll [dispatcher=")
+                                .$(configuration.getDispatcherLogName()).I$();
+                    }
+                }
                 return new IODispatcherLinux<>(configuration, ioContextFactory);
             case Os.OSX_AMD64:
             case Os.OSX_ARM64:
@@ -33,18 +33,92 @@ public interface IOURing extends Closeable {
     @Override
     void close();
 
+    /**
+     * Enqueues cancellation of a previously enqueued request of any kind. The cancelled
+     * request completes with -ECANCELED result, unless it has already completed.
+     *
+     * @param id       cqe id of the cancel request itself
+     * @param targetId cqe id of the request to cancel
+     * @return the cqe id or -1 if there is no sqe available.
+     */
+    long enqueueCancel(long id, long targetId);
+
     @TestOnly
     long enqueueNop();
 
+    /**
+     * Enqueues a one-shot poll request for the given fd. Unlike the other enqueue
+     * methods, the cqe id is provided by the caller, so a ring used for polling
+     * should not be shared with auto-generated id requests.
+     *
+     * @param id       cqe id to be reported on completion
+     * @param fd       file descriptor to poll
+     * @param pollMask poll events mask, e.g. POLLIN
+     * @return the cqe id or -1 if there is no sqe available.
+     */
+    long enqueuePollAdd(long id, int fd, int pollMask);
+
+    /**
+     * Enqueues cancellation of a previously enqueued poll request. The cancelled
+     * request completes with -ECANCELED result.
+     *
+     * @param id       cqe id of the remove request itself
+     * @param targetId cqe id of the poll request to cancel
+     * @return the cqe id or -1 if there is no sqe available.
+     */
+    long enqueuePollRemove(long id, long targetId);
+
+    /**
+     * Hands a contiguous array of equally sized buffers over to the kernel, so that recv
+     * requests with buffer selection can pick one of them when data arrives. Buffers stay
+     * owned by the kernel until a completion reports their id in the cqe flags.
+     *
+     * @param id            cqe id to be reported on completion
+     * @param bufPtr        address of the first buffer
+     * @param bufLen        size of each buffer
+     * @param count         number of buffers
+     * @param groupId       buffer group id
+     * @param startBufferId id of the first buffer, the following buffers get consecutive ids
+     * @return the cqe id or -1 if there is no sqe available.
+     */
+    long enqueueProvideBuffers(long id, long bufPtr, int bufLen, int count, int groupId, int startBufferId);
+
     long enqueueRead(int fd, long offset, long bufPtr, int len);
 
+    /**
+     * Enqueues a socket recv into a buffer selected by the kernel from the given group
+     * at the time data arrives. The selected buffer id is reported in the cqe flags, see
+     * {@link #getCqeFlags()}. The request completes with -ENOBUFS when the group is empty.
+     *
+     * @param id      cqe id to be reported on completion
+     * @param fd      socket to receive from
+     * @param len     maximum number of bytes to receive, should not exceed the buffer size
+     * @param groupId buffer group id
+     * @return the cqe id or -1 if there is no sqe available.
+     */
+    long enqueueRecv(long id, int fd, int len, int groupId);
+
+    /**
+     * Enqueues a socket send. The buffer must stay intact until the request completes.
+     *
+     * @param id       cqe id to be reported on completion
+     * @param fd       socket to send to
+     * @param bufPtr   address of the data to send
+     * @param len      number of bytes to send
+     * @param msgFlags send(2) flags, e.g. MSG_WAITALL
+     * @return the cqe id or -1 if there is no sqe available.
+     */
+    long enqueueSend(long id, int fd, long bufPtr, int len, int msgFlags);
+
+    int getCqeFlags();
+
     long getCqeId();
 
     int getCqeRes();
 
     /**
      * Checks if a cqe is ready and, if so, reads its data. Read data is
-     * then available via {@link #getCqeId} and {@link #getCqeRes} methods.
+     * then available via {@link #getCqeId}, {@link #getCqeRes} and {@link #getCqeFlags} methods.
      *
      * @return true - if cqe was read; false - otherwise.
      */
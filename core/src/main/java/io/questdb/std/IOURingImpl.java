@@ -31,7 +31,7 @@ import static io.questdb.std.IOUringAccessor.*;
 
 public class IOURingImpl implements IOURing {
 
-    // Holds <id, res> tuples for recently consumed cqes.
+    // Holds <id, flags << 32 | res> tuples for recently consumed cqes.
     private final long[] cachedCqes;
     private final long cqKheadAddr;
     private final int cqKringMask;
@@ -91,17 +91,77 @@ public class IOURingImpl implements IOURing {
         closed = true;
     }
 
+    @Override
+    public long enqueueCancel(long id, long targetId) {
+        return enqueueSqe(IORING_OP_ASYNC_CANCEL, -1, 0, targetId, 0, id) != 0 ? id : -1;
+    }
+
     @Override
     @TestOnly
     public long enqueueNop() {
         return enqueueSqe(IORING_OP_NOP, 0, 0, 0, 0);
     }
 
+    @Override
+    public long enqueuePollAdd(long id, int fd, int pollMask) {
+        final long sqeAddr = enqueueSqe(IORING_OP_POLL_ADD, fd, 0, 0, 0, id);
+        if (sqeAddr == 0) {
+            return -1;
+        }
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_POLL_EVENTS_OFFSET, pollMask);
+        return id;
+    }
+
+    @Override
+    public long enqueuePollRemove(long id, long targetId) {
+        return enqueueSqe(IORING_OP_POLL_REMOVE, -1, 0, targetId, 0, id) != 0 ? id : -1;
+    }
+
+    @Override
+    public long enqueueProvideBuffers(long id, long bufPtr, int bufLen, int count, int groupId, int startBufferId) {
+        // the buffer count goes to the fd field and the first buffer id to the offset field
+        final long sqeAddr = enqueueSqe(IORING_OP_PROVIDE_BUFFERS, count, startBufferId, bufPtr, bufLen, id);
+        if (sqeAddr == 0) {
+            return -1;
+        }
+        Unsafe.getUnsafe().putShort(sqeAddr + SQE_BUF_GROUP_OFFSET, (short) groupId);
+        return id;
+    }
+
     @Override
     public long enqueueRead(int fd, long offset, long bufAddr, int len) {
         return enqueueSqe(IORING_OP_READ, fd, offset, bufAddr, len);
     }
 
+    @Override
+    public long enqueueRecv(long id, int fd, int len, int groupId) {
+        final long sqeAddr = enqueueSqe(IORING_OP_RECV, fd, 0, 0, len, id);
+        if (sqeAddr == 0) {
+            return -1;
+        }
+        Unsafe.getUnsafe().putByte(sqeAddr + SQE_FLAGS_OFFSET, IOSQE_BUFFER_SELECT);
+        Unsafe.getUnsafe().putShort(sqeAddr + SQE_BUF_GROUP_OFFSET, (short) groupId);
+        return id;
+    }
+
+    @Override
+    public long enqueueSend(long id, int fd, long bufPtr, int len, int msgFlags) {
+        final long sqeAddr = enqueueSqe(IORING_OP_SEND, fd, 0, bufPtr, len, id);
+        if (sqeAddr == 0) {
+            return -1;
+        }
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_MSG_FLAGS_OFFSET, msgFlags);
+        return id;
+    }
+
+    @Override
+    public int getCqeFlags() {
+        if (cachedIndex < cachedSize) {
+            return (int) (cachedCqes[2 * cachedIndex + 1] >>> 32);
+        }
+        return 0;
+    }
+
     @Override
     public long getCqeId() {
         if (cachedIndex < cachedSize) {
@@ -133,7 +193,9 @@ public class IOURingImpl implements IOURing {
         for (int i = head; i < tail; i++) {
             final long cqeAddr = cqesAddr + (long) (i & cqKringMask) * SIZEOF_CQE;
             cachedCqes[2 * (i - head)] = Unsafe.getUnsafe().getLong(cqeAddr + CQE_USER_DATA_OFFSET);
-            cachedCqes[2 * (i - head) + 1] = Unsafe.getUnsafe().getInt(cqeAddr + CQE_RES_OFFSET);
+            final long flags = Unsafe.getUnsafe().getInt(cqeAddr + CQE_FLAGS_OFFSET);
+            final long res = Unsafe.getUnsafe().getInt(cqeAddr + CQE_RES_OFFSET);
+            cachedCqes[2 * (i - head) + 1] = (flags << 32) | (res & 0xffffffffL);
         }
         cachedSize = tail - head;
         cachedIndex = 0;
@@ -153,18 +215,32 @@ public class IOURingImpl implements IOURing {
     }
 
     private long enqueueSqe(byte op, int fd, long offset, long bufAddr, int len) {
+        final long id = idSeq;
+        if (enqueueSqe(op, fd, offset, bufAddr, len, id) == 0) {
+            return -1;
+        }
+        idSeq++;
+        return id;
+    }
+
+    /**
+     * Fills the next available sqe and returns its address, so that callers can set
+     * op-specific fields. If there are no sqes available, returns 0.
+     */
+    private long enqueueSqe(byte op, int fd, long offset, long bufAddr, int len, long id) {
         final long sqeAddr = nextSqe();
         if (sqeAddr == 0) {
-            return -1;
+            return 0;
         }
+        // sqes are recycled, so we clear flags and op-specific fields left by previous requests
+        Unsafe.getUnsafe().setMemory(sqeAddr, SIZEOF_SQE, (byte) 0);
         Unsafe.getUnsafe().putByte(sqeAddr + SQE_OPCODE_OFFSET, op);
         Unsafe.getUnsafe().putInt(sqeAddr + SQE_FD_OFFSET, fd);
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_OFF_OFFSET, offset);
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_ADDR_OFFSET, bufAddr);
         Unsafe.getUnsafe().putInt(sqeAddr + SQE_LEN_OFFSET, len);
-        final long id = idSeq++;
         Unsafe.getUnsafe().putLong(sqeAddr + SQE_USER_DATA_OFFSET, id);
-        return id;
+        return sqeAddr;
     }
 
     /**
@@ -26,6 +26,7 @@ package io.questdb.std;
 
 public class IOUringAccessor {
 
+    static final short CQE_FLAGS_OFFSET;
     static final short CQE_RES_OFFSET;
     static final short CQE_USER_DATA_OFFSET;
     static final short CQ_CQES_OFFSET;
@@ -33,16 +34,32 @@ public class IOUringAccessor {
     static final short CQ_KRING_ENTRIES_OFFSET;
     static final short CQ_KRING_MASK_OFFSET;
     static final short CQ_KTAIL_OFFSET;
+    // set in cqe flags when the kernel picked a provided buffer, the buffer id is in the upper 16 bits
+    static final int IORING_CQE_BUFFER_SHIFT = 16;
+    static final int IORING_CQE_F_BUFFER = 1;
+    static final byte IORING_OP_ASYNC_CANCEL = 14;
     static final byte IORING_OP_NOP = 0;
+    static final byte IORING_OP_POLL_ADD = 6;
+    static final byte IORING_OP_POLL_REMOVE = 7;
+    static final byte IORING_OP_PROVIDE_BUFFERS = 31;
     static final byte IORING_OP_READ = 22;
+    static final byte IORING_OP_RECV = 27;
+    static final byte IORING_OP_SEND = 26;
+    static final byte IOSQE_BUFFER_SELECT = 1 << 5;
     static final short RING_FD_OFFSET;
     static final short SIZEOF_CQE;
     static final short SIZEOF_SQE;
     static final short SQE_ADDR_OFFSET;
+    // buf_group shares the buf_index union at a fixed position of the kernel's io_uring_sqe ABI
+    static final short SQE_BUF_GROUP_OFFSET = 40;
     static final short SQE_FD_OFFSET;
+    static final short SQE_FLAGS_OFFSET = 1;
     static final short SQE_LEN_OFFSET;
+    // msg_flags and poll32_events share the op flags union at a fixed position of the kernel's io_uring_sqe ABI
+    static final short SQE_MSG_FLAGS_OFFSET = 28;
     static final short SQE_OFF_OFFSET;
     static final short SQE_OPCODE_OFFSET;
+    static final short SQE_POLL_EVENTS_OFFSET = 28;
     static final short SQE_USER_DATA_OFFSET;
     static final short SQ_KHEAD_OFFSET;
     static final short SQ_KRING_ENTRIES_OFFSET;
@@ -136,11 +153,13 @@ public class IOUringAccessor {
         CQ_KHEAD_OFFSET = (short) (cqOffset + getCqKheadOffset());
         CQ_KTAIL_OFFSET = (short) (cqOffset + getCqKtailOffset());
         CQ_KRING_MASK_OFFSET = (short) (cqOffset + getCqKringMaskOffset());
-        CQ_KRING_ENTRIES_OFFSET = (short) (sqOffset + getCqKringEntriesOffset());
+        CQ_KRING_ENTRIES_OFFSET = (short) (cqOffset + getCqKringEntriesOffset());
         CQ_CQES_OFFSET = (short) (cqOffset + getCqCqesOffset());
 
         SIZEOF_CQE = getCqeSize();
         CQE_USER_DATA_OFFSET = getCqeUserDataOffset();
         CQE_RES_OFFSET = getCqeResOffset();
+        // flags follow the 32-bit res field in io_uring_cqe
+        CQE_FLAGS_OFFSET = (short) (CQE_RES_OFFSET + Integer.BYTES);
     }
 }
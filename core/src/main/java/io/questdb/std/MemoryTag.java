@@ -33,7 +33,9 @@ public final class MemoryTag {
     public static final int MMAP_INDEX_WRITER = 14;
     public static final int MMAP_O3 = 2;
     public static final int MMAP_PARALLEL_IMPORT = 39;
+    public static final int MMAP_PARQUET = 55;
     public static final int MMAP_SEQUENCER_METADATA = 38;
+    public static final int MMAP_SQL_SPILL = 54;
     public static final int MMAP_TABLE_READER = 7;
     public static final int MMAP_TABLE_WAL_READER = 36;
     public static final int MMAP_TABLE_WAL_WRITER = 37;
@@ -41,6 +43,7 @@ public final class MemoryTag {
     public static final int MMAP_TX_LOG = 53;
     public static final int MMAP_TX_LOG_CURSOR = 52;
     public static final int MMAP_UPDATE = 27;
+    public static final int NATIVE_ANALYTIC = 57;
     public static final int NATIVE_CB1 = 28;
     public static final int NATIVE_CB2 = 29;
     public static final int NATIVE_CB3 = 30;
@@ -68,6 +71,7 @@ public final class MemoryTag {
     public static final int NATIVE_O3 = 3;
     public static final int NATIVE_OFFLOAD = 23;
     public static final int NATIVE_PARALLEL_IMPORT = 40;
+    public static final int NATIVE_PARQUET = 56;
     public static final int NATIVE_PATH = 24;
     public static final int NATIVE_PGW_CONN = 12;
     public static final int NATIVE_RECORD_CHAIN = 4;
@@ -79,7 +83,7 @@ public final class MemoryTag {
     public static final int NATIVE_TEXT_PARSER_RSS = 48;
     public static final int NATIVE_TLS_RSS = 47;
     public static final int NATIVE_TREE_CHAIN = 6;
-    public static final int SIZE = MMAP_TX_LOG + 1;
+    public static final int SIZE = NATIVE_ANALYTIC + 1;
     private static final ObjList<String> tagNameMap = new ObjList<>(SIZE);
 
     public static String nameOf(int tag) {
@@ -141,5 +145,9 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(NATIVE_DIRECT_CHAR_SINK, "NATIVE_DIRECT_CHAR_SINK");
         tagNameMap.extendAndSet(MMAP_TX_LOG_CURSOR, "MMAP_TX_LOG_CURSOR");
         tagNameMap.extendAndSet(MMAP_TX_LOG, "MMAP_TX_LOG");
+        tagNameMap.extendAndSet(MMAP_SQL_SPILL, "MMAP_SQL_SPILL");
+        tagNameMap.extendAndSet(MMAP_PARQUET, "MMAP_PARQUET");
+        tagNameMap.extendAndSet(NATIVE_PARQUET, "NATIVE_PARQUET");
+        tagNameMap.extendAndSet(NATIVE_ANALYTIC, "NATIVE_ANALYTIC");
     }
 }
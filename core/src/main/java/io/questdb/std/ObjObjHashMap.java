@@ -112,6 +112,52 @@ public class ObjObjHashMap<K, V> implements Iterable<ObjObjHashMap.Entry<K, V>>,
         return false;
     }
 
+    public V remove(K key) {
+        final int index = keyIndex(key);
+        if (index < 0) {
+            final V value = values[-index - 1];
+            removeAt(index);
+            return value;
+        }
+        return null;
+    }
+
+    public void removeAt(int index) {
+        if (index < 0) {
+            int from = -index - 1;
+            erase(from);
+            free++;
+
+            // after we have freed up a slot
+            // consider non-empty keys directly below
+            // they may have been a direct hit but because
+            // directly hit slot wasn't empty these keys would
+            // have moved.
+            //
+            // After slot if freed these keys require re-hash
+            from = (from + 1) & mask;
+            for (
+                    K key = keys[from];
+                    key != noEntryValue;
+                    from = (from + 1) & mask, key = keys[from]
+            ) {
+                int idealHit = Hash.spread(key.hashCode()) & mask;
+                if (idealHit != from) {
+                    int to;
+                    if (keys[idealHit] != noEntryValue) {
+                        to = probe(key, idealHit);
+                    } else {
+                        to = idealHit;
+                    }
+
+                    if (to > -1) {
+                        move(from, to);
+                    }
+                }
+            }
+        }
+    }
+
     public int size() {
         return capacity - free;
     }
@@ -121,6 +167,18 @@ public class ObjObjHashMap<K, V> implements Iterable<ObjObjHashMap.Entry<K, V>>,
         return index < 0 ? values[index1] : null;
     }
 
+    @SuppressWarnings("unchecked")
+    private void erase(int index) {
+        keys[index] = (K) noEntryValue;
+        values[index] = null;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        erase(from);
+    }
+
     private int probe(K key, int index) {
         do {
             index = (index + 1) & mask;
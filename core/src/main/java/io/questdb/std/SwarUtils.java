@@ -0,0 +1,90 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+/**
+ * Helpers for scanning eight bytes at a time using the "SIMD within a register"
+ * (SWAR) technique. Words are read in native (little endian) byte order, so the
+ * lowest marked byte of a mask corresponds to the lowest address.
+ * <p>
+ * Marker masks returned by {@link #markZeroBytes(long)} and {@link #markByte(long, long)}
+ * may contain false positives, but only in bytes located above a genuine match. Their
+ * lowest marked byte, as returned by {@link #indexOfFirstMarkedByte(long)}, is always exact.
+ */
+public final class SwarUtils {
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x0101010101010101L;
+
+    private SwarUtils() {
+    }
+
+    /**
+     * Replicates byte value across all eight bytes of a word.
+     *
+     * @param b byte value
+     * @return word to be used as a pattern in {@link #markByte(long, long)}
+     */
+    public static long broadcast(byte b) {
+        return LOW_BITS * (b & 0xffL);
+    }
+
+    /**
+     * @param mask non-zero marker mask
+     * @return offset of the lowest marked byte, 0-7
+     */
+    public static int indexOfFirstMarkedByte(long mask) {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+
+    /**
+     * Marks bytes of the word that are equal to the pattern byte.
+     *
+     * @param word    eight bytes of input
+     * @param pattern result of {@link #broadcast(byte)}
+     * @return mask with the high bit set for matching bytes, 0 when there is no match
+     */
+    public static long markByte(long word, long pattern) {
+        return markZeroBytes(word ^ pattern);
+    }
+
+    /**
+     * Marks bytes of the word that have the high bit set, i.e. are not ASCII.
+     *
+     * @param word eight bytes of input
+     * @return mask with the high bit set for non-ASCII bytes
+     */
+    public static long markNonAscii(long word) {
+        return word & HIGH_BITS;
+    }
+
+    /**
+     * @param word eight bytes of input
+     * @return mask with the high bit set for zero bytes, 0 when there are none
+     */
+    public static long markZeroBytes(long word) {
+        return (word - LOW_BITS) & ~word & HIGH_BITS;
+    }
+}
@@ -345,6 +345,10 @@ public abstract class AbstractCairoTest {
         node1.getConfigurationOverrides().setO3QuickSortEnabled(o3QuickSortEnabled);
     }
 
+    protected static void configOverrideParallelAsOfJoinLookback(long parallelAsOfJoinLookback) {
+        node1.getConfigurationOverrides().setParallelAsOfJoinLookback(parallelAsOfJoinLookback);
+    }
+
     protected static void configOverrideParallelImportStatusLogKeepNDays(int parallelImportStatusLogKeepNDays) {
         node1.getConfigurationOverrides().setParallelImportStatusLogKeepNDays(parallelImportStatusLogKeepNDays);
     }
@@ -381,6 +385,10 @@ public abstract class AbstractCairoTest {
         node1.getConfigurationOverrides().setWalSegmentRolloverRowCount(walSegmentRolloverRowCount);
     }
 
+    protected static void configOverrideZoneMapsEnabled(Boolean zoneMapsEnabled) {
+        node1.getConfigurationOverrides().setZoneMapsEnabled(zoneMapsEnabled);
+    }
+
     protected static void configureForBackups() throws IOException {
         backupDir = temp.newFolder().getAbsolutePath();
         backupDirTimestampFormat = new TimestampFormatCompiler().compile("ddMMMyyyy");
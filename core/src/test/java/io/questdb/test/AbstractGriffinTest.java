@@ -285,6 +285,7 @@ public abstract class AbstractGriffinTest extends AbstractCairoTest {
         super.setUp();
         forEachNode(QuestDBTestNode::setUpGriffin);
         sqlExecutionContext.setParallelFilterEnabled(configuration.isSqlParallelFilterEnabled());
+        sqlExecutionContext.setParallelGroupByEnabled(configuration.isSqlParallelGroupByEnabled());
     }
 
     @Override
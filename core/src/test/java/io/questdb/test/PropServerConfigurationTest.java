@@ -191,6 +191,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlSpillThreshold());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlQueryMemoryBudget());
+        Assert.assertTrue(Chars.endsWith(configuration.getCairoConfiguration().getSqlSpillRoot(), "tmp"));
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
@@ -225,6 +228,8 @@ public class PropServerConfigurationTest {
 
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterPreTouchEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlParallelAsOfJoinLookback());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
         Assert.assertEquals(4, configuration.getCairoConfiguration().getPageFrameReduceShardCount());
@@ -368,6 +373,10 @@ public class PropServerConfigurationTest {
 
         Assert.assertEquals(TableUtils.ATTACHABLE_DIR_MARKER, configuration.getCairoConfiguration().getAttachPartitionSuffix());
         Assert.assertFalse(configuration.getCairoConfiguration().attachPartitionCopy());
+        Assert.assertFalse(configuration.getCairoConfiguration().isZoneMapsEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isPartitionCompressionEnabled());
+        Assert.assertEquals(604_800_000, configuration.getCairoConfiguration().getPartitionCompressionMinAge());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getPartitionCompressionInterval());
 
         Assert.assertEquals(30_000, configuration.getCairoConfiguration().getWalPurgeInterval());
         Assert.assertEquals(3, configuration.getCairoConfiguration().getWalRecreateDistressedSequencerAttempts());
@@ -974,6 +983,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1025, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+            Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSpillThreshold());
+            Assert.assertEquals(1024 * 1024 * 1024, configuration.getCairoConfiguration().getSqlQueryMemoryBudget());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
@@ -1022,6 +1033,8 @@ public class PropServerConfigurationTest {
 
             Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
             Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterPreTouchEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+            Assert.assertEquals(3_600_000, configuration.getCairoConfiguration().getSqlParallelAsOfJoinLookback());
             Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
             Assert.assertEquals(100, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameReduceShardCount());
@@ -1128,6 +1141,10 @@ public class PropServerConfigurationTest {
 
             Assert.assertEquals(".detached", configuration.getCairoConfiguration().getAttachPartitionSuffix());
             Assert.assertTrue(configuration.getCairoConfiguration().attachPartitionCopy());
+            Assert.assertTrue(configuration.getCairoConfiguration().isZoneMapsEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isPartitionCompressionEnabled());
+            Assert.assertEquals(86_400_000, configuration.getCairoConfiguration().getPartitionCompressionMinAge());
+            Assert.assertEquals(5_000, configuration.getCairoConfiguration().getPartitionCompressionInterval());
 
             Assert.assertEquals(333, configuration.getCairoConfiguration().getWalPurgeInterval());
             Assert.assertEquals(13, configuration.getCairoConfiguration().getWalRecreateDistressedSequencerAttempts());
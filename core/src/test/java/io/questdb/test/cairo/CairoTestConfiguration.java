@@ -261,6 +261,11 @@ public class CairoTestConfiguration extends DefaultTestCairoConfiguration {
         return overrides.getPageFrameMaxRows() < 0 ? super.getSqlPageFrameMaxRows() : overrides.getPageFrameMaxRows();
     }
 
+    @Override
+    public long getSqlParallelAsOfJoinLookback() {
+        return overrides.getParallelAsOfJoinLookback() < 0 ? super.getSqlParallelAsOfJoinLookback() : overrides.getParallelAsOfJoinLookback();
+    }
+
     @Override
     public int getTableRegistryCompactionThreshold() {
         return overrides.getTableRegistryCompactionThreshold() > 0 ? overrides.getTableRegistryCompactionThreshold() : super.getTableRegistryCompactionThreshold();
@@ -356,6 +361,11 @@ public class CairoTestConfiguration extends DefaultTestCairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isZoneMapsEnabled() {
+        return overrides.isZoneMapsEnabled() != null ? overrides.isZoneMapsEnabled() : super.isZoneMapsEnabled();
+    }
+
     @Override
     public boolean mangleTableDirNames() {
         return overrides.mangleTableDirNames();
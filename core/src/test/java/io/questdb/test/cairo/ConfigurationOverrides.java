@@ -82,6 +82,8 @@ public interface ConfigurationOverrides {
 
     int getPageFrameMaxRows();
 
+    long getParallelAsOfJoinLookback();
+
     int getPageFrameReduceQueueCapacity();
 
     int getPageFrameReduceShardCount();
@@ -144,6 +146,8 @@ public interface ConfigurationOverrides {
 
     Boolean isParallelFilterEnabled();
 
+    Boolean isZoneMapsEnabled();
+
     boolean mangleTableDirNames();
 
     void reset();
@@ -208,6 +212,8 @@ public interface ConfigurationOverrides {
 
     void setPageFrameMaxRows(int pageFrameMaxRows);
 
+    void setParallelAsOfJoinLookback(long parallelAsOfJoinLookback);
+
     void setPageFrameReduceQueueCapacity(int pageFrameReduceQueueCapacity);
 
     void setPageFrameReduceShardCount(int pageFrameReduceShardCount);
@@ -261,4 +267,6 @@ public interface ConfigurationOverrides {
     void setWriterCommandQueueCapacity(int writerCommandQueueCapacity);
 
     void setWriterCommandQueueSlotSize(long writerCommandQueueSlotSize);
+
+    void setZoneMapsEnabled(Boolean zoneMapsEnabled);
 }
@@ -66,6 +66,7 @@ public class Overrides implements ConfigurationOverrides {
     private long o3MinLag = -1;
     private boolean o3QuickSortEnabled = false;
     private int pageFrameMaxRows = -1;
+    private long parallelAsOfJoinLookback = -1;
     private int pageFrameReduceQueueCapacity = -1;
     private int pageFrameReduceShardCount = -1;
     private Boolean parallelFilterEnabled = null;
@@ -92,6 +93,7 @@ public class Overrides implements ConfigurationOverrides {
     private long writerAsyncCommandMaxTimeout = -1;
     private int writerCommandQueueCapacity = 4;
     private long writerCommandQueueSlotSize = 2048L;
+    private Boolean zoneMapsEnabled = null;
 
     @Override
     public String getAttachableDirSuffix() {
@@ -218,6 +220,11 @@ public class Overrides implements ConfigurationOverrides {
         return pageFrameMaxRows;
     }
 
+    @Override
+    public long getParallelAsOfJoinLookback() {
+        return parallelAsOfJoinLookback;
+    }
+
     @Override
     public int getPageFrameReduceQueueCapacity() {
         return pageFrameReduceQueueCapacity;
@@ -373,6 +380,11 @@ public class Overrides implements ConfigurationOverrides {
         return parallelFilterEnabled;
     }
 
+    @Override
+    public Boolean isZoneMapsEnabled() {
+        return zoneMapsEnabled;
+    }
+
     @Override
     public boolean mangleTableDirNames() {
         return mangleTableDirNames;
@@ -391,6 +403,7 @@ public class Overrides implements ConfigurationOverrides {
         writerAsyncCommandBusyWaitTimeout = -1;
         writerAsyncCommandMaxTimeout = -1;
         pageFrameMaxRows = -1;
+        parallelAsOfJoinLookback = -1;
         jitMode = SqlJitMode.JIT_MODE_ENABLED;
         rndFunctionMemoryPageSize = -1;
         rndFunctionMemoryMaxPages = -1;
@@ -398,6 +411,7 @@ public class Overrides implements ConfigurationOverrides {
         snapshotInstanceId = null;
         snapshotRecoveryEnabled = null;
         parallelFilterEnabled = null;
+        zoneMapsEnabled = null;
         columnPreTouchEnabled = null;
         writerCommandQueueCapacity = 4;
         queryCacheEventQueueCapacity = -1;
@@ -576,6 +590,11 @@ public class Overrides implements ConfigurationOverrides {
         this.pageFrameMaxRows = pageFrameMaxRows;
     }
 
+    @Override
+    public void setParallelAsOfJoinLookback(long parallelAsOfJoinLookback) {
+        this.parallelAsOfJoinLookback = parallelAsOfJoinLookback;
+    }
+
     @Override
     public void setPageFrameReduceQueueCapacity(int pageFrameReduceQueueCapacity) {
         this.pageFrameReduceQueueCapacity = pageFrameReduceQueueCapacity;
@@ -709,4 +728,9 @@ public class Overrides implements ConfigurationOverrides {
     public void setWriterCommandQueueSlotSize(long writerCommandQueueSlotSize) {
         this.writerCommandQueueSlotSize = writerCommandQueueSlotSize;
     }
+
+    @Override
+    public void setZoneMapsEnabled(Boolean zoneMapsEnabled) {
+        this.zoneMapsEnabled = zoneMapsEnabled;
+    }
 }
@@ -0,0 +1,331 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.BitmapIndexUtils;
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.vm.MemoryCMRDecompressedImpl;
+import io.questdb.std.Files;
+import io.questdb.std.Zip;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PartitionCompressionTest extends AbstractGriffinTest {
+
+    @BeforeClass
+    public static void setUpStatic() {
+        AbstractGriffinTest.setUpStatic();
+        // Zip allocates its static memory on first use, make sure it is not reported as a leak
+        Zip.init();
+    }
+
+    @Test
+    public void testAddIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            compile("alter table x alter column s2 add index");
+            compile("alter table y alter column s2 add index");
+            assertSameAsUncompressed("select * from x where s2 = 'b'", "select * from y where s2 = 'b'");
+            assertSameAsUncompressed("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testCompressedFiles() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+            // already compressed and active partitions are not compressed
+            Assert.assertEquals(0, compressPartitions("x"));
+
+            try (
+                    TableReader reader = getReader("x");
+                    Path path = new Path()
+            ) {
+                Assert.assertTrue(reader.getTxFile().isPartitionCompressed(0));
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(reader.getPartitionCount() - 1));
+
+                final long partitionTimestamp = reader.getPartitionTimestampByIndex(0);
+                path.of(configuration.getRoot()).concat(reader.getTableToken());
+                TableUtils.setPathForPartition(path, reader.getPartitionedBy(), partitionTimestamp, false);
+                TableUtils.txnPartitionConditionally(path, reader.getTxFile().getPartitionNameTxn(0));
+                final int plen = path.length();
+                Assert.assertTrue(Files.exists(TableUtils.dzFile(path.trimTo(plen), "l", -1)));
+                Assert.assertTrue(Files.exists(TableUtils.dzFile(path.trimTo(plen), "str", -1)));
+                Assert.assertTrue(Files.exists(TableUtils.izFile(path.trimTo(plen), "str", -1)));
+                Assert.assertFalse(Files.exists(TableUtils.dFile(path.trimTo(plen), "l", -1)));
+                Assert.assertFalse(Files.exists(TableUtils.iFile(path.trimTo(plen), "str", -1)));
+                // index files are linked into the new partition version
+                Assert.assertTrue(Files.exists(BitmapIndexUtils.keyFileName(path.trimTo(plen), "s", -1)));
+            }
+        });
+    }
+
+    @Test
+    public void testDetachAttach() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            compile("alter table x detach partition list '2023-01-02'");
+            compile("alter table y detach partition list '2023-01-02'");
+            assertSameAsUncompressed("select * from x", "select * from y");
+
+            renameDetachedToAttachable("x", "2023-01-02");
+            renameDetachedToAttachable("y", "2023-01-02");
+            compile("alter table x attach partition list '2023-01-02'");
+            compile("alter table y attach partition list '2023-01-02'");
+            assertSameAsUncompressed("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testDropColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            compile("alter table x drop column str");
+            compile("alter table y drop column str");
+            assertSameAsUncompressed("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(
+                    "create table x as (" +
+                            "select" +
+                            " x l," +
+                            " rnd_double() d," +
+                            " timestamp_sequence('2023-01-01', 12 * 3600000000L) ts" +
+                            " from long_sequence(20)" +
+                            ") timestamp(ts) partition by DAY"
+            );
+            TestUtils.printSql(compiler, sqlExecutionContext, "x", sink);
+            final String expected = sink.toString();
+
+            try (PartitionCompressionJob job = new PartitionCompressionJob(engine)) {
+                // max timestamp is 2023-01-10T12:00, partitions that end before 2023-01-03T12:00 are cold
+                Assert.assertEquals(2, job.compressColdPartitions());
+                Assert.assertEquals(0, job.compressColdPartitions());
+            }
+            assertSql("x", expected);
+        });
+    }
+
+    @Test
+    public void testLazyDecompression() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            try (
+                    TableReader reader1 = getReader("x");
+                    TableReader reader2 = getReader("x")
+            ) {
+                Assert.assertNotSame(reader1, reader2);
+                reader1.openPartition(0);
+                reader2.openPartition(0);
+                final int columnIndexL = reader1.getMetadata().getColumnIndex("l");
+                final int columnIndexStr = reader1.getMetadata().getColumnIndex("str");
+                final int primaryL = TableReader.getPrimaryColumnIndex(reader1.getColumnBase(0), columnIndexL);
+                final int primaryStr = TableReader.getPrimaryColumnIndex(reader1.getColumnBase(0), columnIndexStr);
+                final MemoryCMRDecompressedImpl l1 = (MemoryCMRDecompressedImpl) reader1.getColumn(primaryL);
+                final MemoryCMRDecompressedImpl l2 = (MemoryCMRDecompressedImpl) reader2.getColumn(primaryL);
+                final MemoryCMRDecompressedImpl str1 = (MemoryCMRDecompressedImpl) reader1.getColumn(primaryStr);
+                final MemoryCMRDecompressedImpl strIndex1 = (MemoryCMRDecompressedImpl) reader1.getColumn(primaryStr + 1);
+
+                // opening the partition does not inflate anything
+                Assert.assertFalse(l1.isInflated());
+                Assert.assertFalse(str1.isInflated());
+                Assert.assertFalse(strIndex1.isInflated());
+
+                // only the accessed column is inflated, other readers share the copy
+                Assert.assertEquals(1000, l1.getLong(0));
+                Assert.assertTrue(l1.isInflated());
+                Assert.assertFalse(l2.isInflated());
+                Assert.assertEquals(l1.getPageAddress(0), l2.getPageAddress(0));
+                Assert.assertFalse(str1.isInflated());
+                Assert.assertFalse(strIndex1.isInflated());
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            final String insert = "select" +
+                    " -x::int a," +
+                    " -x l," +
+                    " x * 0.25 d," +
+                    " 'c'::symbol s," +
+                    " 'd'::symbol s2," +
+                    " 'o3' str," +
+                    " timestamp_sequence('2023-01-01T01:00:00', 12 * 3600000000L) ts" +
+                    " from long_sequence(4)";
+            compile("insert into x " + insert);
+            compile("insert into y " + insert);
+            assertSameAsUncompressed("select * from x", "select * from y");
+            assertSameAsUncompressed("select * from x where s = 'c'", "select * from y where s = 'c'");
+
+            try (TableReader reader = getReader("x")) {
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(0));
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(1));
+                Assert.assertTrue(reader.getTxFile().isPartitionCompressed(2));
+            }
+        });
+    }
+
+    @Test
+    public void testReadCompressed() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (TableReader ignore = getReader("x")) {
+                // open reader keeps the old partition versions in use
+                Assert.assertEquals(3, compressPartitions("x"));
+                assertSameAsUncompressed("select * from x", "select * from y");
+            }
+            assertSameAsUncompressed("select * from x", "select * from y");
+            assertSameAsUncompressed("select * from x where s = 'a'", "select * from y where s = 'a'");
+            assertSameAsUncompressed("select * from x where str like '%1%' order by ts desc", "select * from y where str like '%1%' order by ts desc");
+            assertSameAsUncompressed("select s, sum(l), avg(d), max(ts) from x", "select s, sum(l), avg(d), max(ts) from y");
+            assertSameAsUncompressed("select * from x latest on ts partition by s", "select * from y latest on ts partition by s");
+        });
+    }
+
+    @Test
+    public void testRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            compile("alter table x rename column l to l2");
+            compile("alter table y rename column l to l2");
+            assertSameAsUncompressed("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testStaleCompressedFilesRemoved() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            compile("update x set l = 42 where a % 3 = 0");
+            // pooled readers keep the compressed files open until they move to the new version
+            engine.releaseAllReaders();
+            try (TableWriter writer = getWriter("x")) {
+                // writer retries the removal when it is returned to the pool
+                Assert.assertFalse(writer.isPartitionCompressed(0));
+            }
+            try (
+                    TableReader reader = getReader("x");
+                    Path path = new Path()
+            ) {
+                Assert.assertFalse(reader.getTxFile().isPartitionCompressed(0));
+
+                final long partitionTimestamp = reader.getPartitionTimestampByIndex(0);
+                path.of(configuration.getRoot()).concat(reader.getTableToken());
+                TableUtils.setPathForPartition(path, reader.getPartitionedBy(), partitionTimestamp, false);
+                TableUtils.txnPartitionConditionally(path, reader.getTxFile().getPartitionNameTxn(0));
+                final int plen = path.length();
+                Assert.assertTrue(Files.exists(TableUtils.dFile(path.trimTo(plen), "d", -1)));
+                Assert.assertTrue(Files.exists(TableUtils.iFile(path.trimTo(plen), "str", -1)));
+                Assert.assertFalse(Files.exists(TableUtils.dzFile(path.trimTo(plen), "d", -1)));
+                Assert.assertFalse(Files.exists(TableUtils.dzFile(path.trimTo(plen), "str", -1)));
+                Assert.assertFalse(Files.exists(TableUtils.izFile(path.trimTo(plen), "str", -1)));
+            }
+        });
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(3, compressPartitions("x"));
+
+            compile("update x set l = 42, str = 'upd' where a % 3 = 0");
+            compile("update y set l = 42, str = 'upd' where a % 3 = 0");
+            assertSameAsUncompressed("select * from x", "select * from y");
+        });
+    }
+
+    private void assertSameAsUncompressed(String query, String uncompressedQuery) throws Exception {
+        TestUtils.printSql(compiler, sqlExecutionContext, uncompressedQuery, sink);
+        assertSql(query, sink.toString());
+    }
+
+    private int compressPartitions(String tableName) {
+        int compressed = 0;
+        try (TableWriter writer = getWriter(tableName)) {
+            for (int i = 0, n = writer.getPartitionCount(); i < n; i++) {
+                if (writer.compressPartition(writer.getPartitionTimestamp(i))) {
+                    compressed++;
+                }
+            }
+        }
+        return compressed;
+    }
+
+    private void createTables() throws Exception {
+        final String select = "select" +
+                " x::int a," +
+                " x * 1000 l," +
+                " rnd_double() d," +
+                " rnd_symbol('a', 'b', null) s," +
+                " rnd_symbol('a', 'b', 'c') s2," +
+                " rnd_str(3, 8, 2) str," +
+                " timestamp_sequence('2023-01-01', 3 * 3600000000L) ts" +
+                " from long_sequence(30)";
+        compile("create table x as (" + select + "), index(s) timestamp(ts) partition by DAY");
+        // uncompressed copy of x to compare query results with
+        compile("create table y as (select * from x), index(s) timestamp(ts) partition by DAY");
+    }
+
+    private void renameDetachedToAttachable(String tableName, String partition) {
+        try (
+                Path src = new Path();
+                Path dst = new Path()
+        ) {
+            src.of(configuration.getRoot()).concat(engine.getTableToken(tableName)).concat(partition).put(TableUtils.DETACHED_DIR_MARKER).$();
+            dst.of(configuration.getRoot()).concat(engine.getTableToken(tableName)).concat(partition).put(configuration.getAttachPartitionSuffix()).$();
+            Assert.assertEquals(0, Files.rename(src, dst));
+        }
+    }
+}
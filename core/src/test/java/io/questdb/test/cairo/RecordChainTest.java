@@ -27,6 +27,8 @@ package io.questdb.test.cairo;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.MemoryBudget;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.engine.functions.IntFunction;
 import io.questdb.griffin.engine.functions.LongFunction;
 import io.questdb.std.*;
@@ -36,6 +38,9 @@ import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.util.Objects;
+
 public class RecordChainTest extends AbstractCairoTest {
     public static final long SIZE_4M = 4 * 1024 * 1024L;
     private static final BytecodeAssembler asm = new BytecodeAssembler();
@@ -61,6 +66,76 @@ public class RecordChainTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testMemoryBudgetExceeded() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            CreateTableTestUtils.createTestTable(10000, new Rnd(), new TestRecord.ArrayBinarySequence());
+            try (TableReader reader = newTableReader(configuration, "x")) {
+                entityColumnFilter.of(reader.getMetadata().getColumnCount());
+                RecordSink recordSink = RecordSinkFactory.getInstance(asm, reader.getMetadata(), entityColumnFilter, false);
+                // no spill root, so running out of budget fails
+                SpillAllocator allocator = new SpillAllocator(null, null, 0, 0, MemoryTag.NATIVE_RECORD_CHAIN);
+                MemoryBudget budget = new MemoryBudget(256 * 1024);
+                allocator.setBudget(budget);
+                try (RecordChain chain = new RecordChain(reader.getMetadata(), recordSink, 64 * 1024, Integer.MAX_VALUE, allocator)) {
+                    populateChain(chain, reader);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "query memory budget exceeded [limit=262144");
+                }
+                Assert.assertEquals(0, budget.getUsed());
+            }
+        });
+    }
+
+    @Test
+    public void testMemoryBudgetSpill() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            CreateTableTestUtils.createTestTable(10000, new Rnd(), new TestRecord.ArrayBinarySequence());
+            final File spillRoot = temp.newFolder("budget_spill");
+            try (TableReader reader = newTableReader(configuration, "x")) {
+                entityColumnFilter.of(reader.getMetadata().getColumnCount());
+                RecordSink recordSink = RecordSinkFactory.getInstance(asm, reader.getMetadata(), entityColumnFilter, false);
+                // the threshold is disabled, the chain spills once the shared budget runs out
+                SpillAllocator allocator = new SpillAllocator(
+                        configuration.getFilesFacade(),
+                        spillRoot.getAbsolutePath(),
+                        configuration.getMkDirMode(),
+                        0,
+                        MemoryTag.NATIVE_RECORD_CHAIN
+                );
+                MemoryBudget budget = new MemoryBudget(256 * 1024);
+                allocator.setBudget(budget);
+                try (RecordChain chain = new RecordChain(reader.getMetadata(), recordSink, 64 * 1024, Integer.MAX_VALUE, allocator)) {
+                    populateChain(chain, reader);
+                    Assert.assertTrue(allocator.isSpilled());
+                    Assert.assertEquals(0, budget.getUsed());
+
+                    chain.toTop();
+                    RecordCursor cursor = reader.getCursor();
+                    cursor.toTop();
+                    Record cursorRecord = cursor.getRecord();
+                    Record chainRecord = chain.getRecord();
+                    while (cursor.hasNext()) {
+                        Assert.assertTrue(chain.hasNext());
+                        assertSame(cursorRecord, chainRecord, reader.getMetadata());
+                    }
+                    Assert.assertFalse(chain.hasNext());
+
+                    // memory that fits the budget again moves back to the heap
+                    chain.clear();
+                    cursor.toTop();
+                    Assert.assertTrue(cursor.hasNext());
+                    chain.put(cursorRecord, -1);
+                    Assert.assertFalse(allocator.isSpilled());
+                    Assert.assertEquals(64 * 1024, budget.getUsed());
+                }
+                Assert.assertEquals(0, budget.getUsed());
+                Assert.assertEquals(0, Objects.requireNonNull(spillRoot.list()).length);
+            }
+        });
+    }
+
     @Test
     public void testPseudoRandomAccess() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -193,6 +268,44 @@ public class RecordChainTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSpillToDisk() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            int N = 10000;
+            CreateTableTestUtils.createTestTable(N, new Rnd(), new TestRecord.ArrayBinarySequence());
+            final File spillRoot = temp.newFolder("spill");
+            try (TableReader reader = newTableReader(configuration, "x")) {
+                entityColumnFilter.of(reader.getMetadata().getColumnCount());
+                RecordSink recordSink = RecordSinkFactory.getInstance(asm, reader.getMetadata(), entityColumnFilter, false);
+                SpillAllocator allocator = new SpillAllocator(
+                        configuration.getFilesFacade(),
+                        spillRoot.getAbsolutePath(),
+                        configuration.getMkDirMode(),
+                        1024 * 1024,
+                        MemoryTag.NATIVE_RECORD_CHAIN
+                );
+                try (RecordChain chain = new RecordChain(reader.getMetadata(), recordSink, 64 * 1024, Integer.MAX_VALUE, allocator)) {
+                    populateChain(chain, reader);
+                    Assert.assertTrue(allocator.isSpilled());
+                    Assert.assertEquals(1, Objects.requireNonNull(spillRoot.list()).length);
+
+                    RecordCursor cursor = reader.getCursor();
+                    cursor.toTop();
+                    chain.toTop();
+                    Record cursorRecord = cursor.getRecord();
+                    Record chainRecord = chain.getRecord();
+                    while (cursor.hasNext()) {
+                        Assert.assertTrue(chain.hasNext());
+                        assertSame(cursorRecord, chainRecord, reader.getMetadata());
+                    }
+                    Assert.assertFalse(chain.hasNext());
+                }
+                Assert.assertFalse(allocator.isSpilled());
+                Assert.assertEquals(0, Objects.requireNonNull(spillRoot.list()).length);
+            }
+        });
+    }
+
     @Test
     public void testWriteAndRead() throws Exception {
         TestUtils.assertMemoryLeak(
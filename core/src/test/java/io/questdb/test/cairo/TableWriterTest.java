@@ -2324,6 +2324,67 @@ public class TableWriterTest extends AbstractCairoTest {
         testUnrecoverableRemoveColumn(new X());
     }
 
+    @Test
+    public void testRemovePartitionsFrom() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("v", ColumnType.INT)
+                    .timestamp()
+            ) {
+                CreateTableTestUtils.create(model);
+            }
+
+            try (
+                    TableWriter writer = newTableWriter(configuration, "x", metrics);
+                    TableReader reader = newTableReader(configuration, "x")
+            ) {
+                for (int day = 0; day < 3; day++) {
+                    appendValue(writer, day * Timestamps.DAY_MICROS + Timestamps.HOUR_MICROS, 1);
+                    appendValue(writer, day * Timestamps.DAY_MICROS + 2 * Timestamps.HOUR_MICROS, 1);
+                }
+                writer.commit();
+
+                // removal is rolled back with the rows written after it
+                writer.removePartitionsFrom(Timestamps.DAY_MICROS + 3 * Timestamps.HOUR_MICROS);
+                appendValue(writer, Timestamps.DAY_MICROS, 100);
+                reader.reload();
+                Assert.assertEquals(6, sumOfValues(reader));
+                writer.rollback();
+                Assert.assertEquals(6, writer.size());
+                reader.reload();
+                Assert.assertEquals(6, sumOfValues(reader));
+
+                // O3 commit merges the second day, new version of the day is written by the next commit
+                appendValue(writer, Timestamps.DAY_MICROS + 3 * Timestamps.HOUR_MICROS, 1);
+                writer.commit();
+                Assert.assertEquals(7, writer.size());
+
+                writer.removePartitionsFrom(Timestamps.DAY_MICROS);
+                appendValue(writer, Timestamps.DAY_MICROS, 100);
+                appendValue(writer, 3 * Timestamps.DAY_MICROS, 1000);
+                reader.reload();
+                Assert.assertEquals(7, sumOfValues(reader));
+                writer.commit();
+                Assert.assertEquals(4, writer.size());
+                Assert.assertEquals(3, writer.getPartitionCount());
+                reader.reload();
+                Assert.assertEquals(1102, sumOfValues(reader));
+
+                // removal of all partitions
+                writer.removePartitionsFrom(0);
+                appendValue(writer, 5 * Timestamps.DAY_MICROS, 7);
+                writer.commit();
+                reader.reload();
+                Assert.assertEquals(1, reader.size());
+                Assert.assertEquals(7, sumOfValues(reader));
+            }
+
+            try (TableReader reader = newTableReader(configuration, "x")) {
+                Assert.assertEquals(7, sumOfValues(reader));
+            }
+        });
+    }
+
     @Test
     public void testRemoveTimestamp() throws Exception {
         try (TableModel model = new TableModel(configuration, "ABC", PartitionBy.NONE)
@@ -3146,6 +3207,12 @@ public class TableWriterTest extends AbstractCairoTest {
         }
     }
 
+    private static void appendValue(TableWriter writer, long timestamp, int value) {
+        TableWriter.Row row = writer.newRow(timestamp);
+        row.putInt(0, value);
+        row.append();
+    }
+
     private static void danglingO3TransactionModifier(TableWriter w, Rnd rnd, long timestamp, long increment) {
         TableWriter.Row r = w.newRow(timestamp - increment * 4);
         r.putSym(0, rnd.nextString(5));
@@ -3186,6 +3253,16 @@ public class TableWriterTest extends AbstractCairoTest {
         return ts;
     }
 
+    private static long sumOfValues(TableReader reader) {
+        long sum = 0;
+        final RecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            sum += record.getInt(0);
+        }
+        return sum;
+    }
+
     private long append10KNoSupplier(long ts, Rnd rnd, TableWriter writer) {
         int productId = writer.getColumnIndex("productId");
         int productName = writer.getColumnIndex("productName");
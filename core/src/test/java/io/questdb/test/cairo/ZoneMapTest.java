@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.*;
+import io.questdb.std.Files;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZoneMapTest extends AbstractGriffinTest {
+
+    @Before
+    @Override
+    public void setUp() {
+        super.setUp();
+        configOverrideZoneMapsEnabled(true);
+    }
+
+    @Test
+    public void testAddedColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compile("alter table x add column k long");
+            compile(
+                    "insert into x select" +
+                            " (1000 + x)::int, 1000 + x, 1000.0 + x, cast(1 as byte)," +
+                            " timestamp_sequence('2023-01-04T19:00:00', 6 * 3600000000L), 1000 + x" +
+                            " from long_sequence(8)"
+            );
+
+            assertZoneMapExists("2023-01-01", "k", false);
+            assertZoneMapExists("2023-01-04", "k", true);
+
+            assertSameResult("select * from x where k > 1003");
+            assertSameResult("select * from x where k < 1003");
+            assertSameResult("select count() from x where k = 1001");
+        });
+    }
+
+    @Test
+    public void testCanSkip() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (
+                    TableReader reader = getReader("x");
+                    ZoneMapFilter filter = new ZoneMapFilter()
+            ) {
+                final int a = reader.getMetadata().getColumnIndex("a");
+
+                // partition 0 holds a values in [1, 4]
+                filter.addLong(a, ColumnType.INT, ZoneMapFilter.OP_GT, 4);
+                Assert.assertTrue(filter.canSkip(reader, 0));
+                Assert.assertFalse(filter.canSkip(reader, 1));
+                // the last partition has no zone map
+                Assert.assertFalse(filter.canSkip(reader, reader.getPartitionCount() - 1));
+            }
+
+            try (
+                    TableReader reader = getReader("x");
+                    ZoneMapFilter filter = new ZoneMapFilter()
+            ) {
+                final int d = reader.getMetadata().getColumnIndex("d");
+                // partition 1 holds d values in [5.5, 8.5]
+                filter.addDouble(d, ColumnType.DOUBLE, ZoneMapFilter.OP_EQ, 8.5);
+                Assert.assertTrue(filter.canSkip(reader, 0));
+                Assert.assertFalse(filter.canSkip(reader, 1));
+                Assert.assertTrue(filter.canSkip(reader, 2));
+            }
+        });
+    }
+
+    @Test
+    public void testFilters() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+
+            assertZoneMapExists("2023-01-01", "a", true);
+            assertZoneMapExists("2023-01-01", "l", true);
+            assertZoneMapExists("2023-01-01", "d", true);
+            assertZoneMapExists("2023-01-01", "b", true);
+            assertZoneMapExists("2023-01-03", "a", true);
+            // last partition is still open for appends
+            assertZoneMapExists("2023-01-04", "a", false);
+
+            assertSql(
+                    "select a, l, ts from x where a = 6",
+                    "a\tl\tts\n" +
+                            "6\t106\t2023-01-02T06:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select a, ts from x where 10 < a and l <= 112",
+                    "a\tts\n" +
+                            "11\t2023-01-03T12:00:00.000000Z\n" +
+                            "12\t2023-01-03T18:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select count() from x where d >= 12.5",
+                    "count\n" +
+                            "5\n"
+            );
+
+            assertSameResult("select * from x where a > 5");
+            assertSameResult("select * from x where a = 6");
+            assertSameResult("select * from x where 10 < a and l <= 112");
+            assertSameResult("select * from x where d > 3.5");
+            assertSameResult("select * from x where d = 8.5");
+            assertSameResult("select * from x where b < 1");
+            assertSameResult("select * from x where a > 2 and d < 4.0");
+            assertSameResult("select * from x where l < 103 or a > 14");
+            assertSameResult("select * from x where a > 5 order by ts desc");
+            assertSameResult("select * from x where a > 5 and ts in '2023-01-02' order by ts desc");
+            assertSameResult("select * from x where a < 5 and ts > '2023-01-01T12:00:00'");
+            assertSameResult("select * from x where l = null");
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsertRefreshesZoneMap() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select count() from x where a > 100",
+                    "count\n" +
+                            "0\n"
+            );
+
+            executeInsert("insert into x values (500, 500, 500.0, 1, '2023-01-01T01:00:00.000000Z')");
+
+            assertSql(
+                    "select a, l, d, ts from x where a > 100",
+                    "a\tl\td\tts\n" +
+                            "500\t500\t500.0\t2023-01-01T01:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select a, ts from x where d = 500.0",
+                    "a\tts\n" +
+                            "500\t2023-01-01T01:00:00.000000Z\n"
+            );
+            assertSameResult("select * from x where l >= 104");
+        });
+    }
+
+    private void assertSameResult(String query) throws Exception {
+        configOverrideZoneMapsEnabled(false);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        final String expected = sink.toString();
+        configOverrideZoneMapsEnabled(true);
+        assertSql(query, expected);
+    }
+
+    private void assertZoneMapExists(String partition, String column, boolean expected) throws Exception {
+        try (
+                TableReader reader = getReader("x");
+                Path path = new Path()
+        ) {
+            final long partitionTimestamp = TimestampFormatUtils.parseTimestamp(partition + "T00:00:00.000Z");
+            final int partitionIndex = reader.getPartitionIndexByTimestamp(partitionTimestamp);
+            final int columnIndex = reader.getMetadata().getColumnIndex(column);
+            path.of(configuration.getRoot()).concat(reader.getTableToken()).concat(partition);
+            TableUtils.txnPartitionConditionally(path, reader.getTxFile().getPartitionNameTxn(partitionIndex));
+            final long columnNameTxn = reader.getColumnVersionReader().getColumnNameTxn(
+                    partitionTimestamp,
+                    reader.getMetadata().getWriterIndex(columnIndex)
+            );
+            Assert.assertEquals(expected, Files.exists(TableUtils.zmFile(path, column, columnNameTxn)));
+        }
+    }
+
+    private void createTable() throws Exception {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " x::int a," +
+                        " 100 + x l," +
+                        " x + 0.5 d," +
+                        " cast(x % 2 as byte) b," +
+                        " timestamp_sequence('2023-01-01', 6 * 3600000000L) ts" +
+                        " from long_sequence(16)" +
+                        ") timestamp(ts) partition by DAY"
+        );
+    }
+}
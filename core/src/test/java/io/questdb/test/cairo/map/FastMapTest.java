@@ -28,6 +28,7 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.map.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.vm.SpillAllocator;
 import io.questdb.griffin.engine.LimitOverflowException;
 import io.questdb.std.*;
 import io.questdb.test.AbstractCairoTest;
@@ -38,6 +39,9 @@ import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.util.Objects;
+
 public class FastMapTest extends AbstractCairoTest {
 
     @Test
@@ -790,6 +794,83 @@ public class FastMapTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testMergeFixedSizeKey() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 1000;
+            try (
+                    FastMap mapA = new FastMap(Numbers.SIZE_1MB, new SingleColumnType(ColumnType.INT), new SingleColumnType(ColumnType.LONG), 16, 0.5f, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(Numbers.SIZE_1MB, new SingleColumnType(ColumnType.INT), new SingleColumnType(ColumnType.LONG), 16, 0.5f, Integer.MAX_VALUE)
+            ) {
+                // mapA holds even keys, mapB holds keys divisible by 3
+                for (int i = 0; i < N; i += 2) {
+                    MapKey key = mapA.withKey();
+                    key.putInt(i);
+                    MapValue value = key.createValue();
+                    value.putLong(0, i);
+                }
+                for (int i = 0; i < N; i += 3) {
+                    MapKey key = mapB.withKey();
+                    key.putInt(i);
+                    MapValue value = key.createValue();
+                    value.putLong(0, i);
+                }
+
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+
+                int expectedSize = 0;
+                for (int i = 0; i < N; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putInt(i);
+                    MapValue value = key.findValue();
+                    if (i % 2 == 0 || i % 3 == 0) {
+                        expectedSize++;
+                        Assert.assertNotNull(value);
+                        Assert.assertEquals(i % 6 == 0 ? 2L * i : i, value.getLong(0));
+                    } else {
+                        Assert.assertNull(value);
+                    }
+                }
+                Assert.assertEquals(expectedSize, mapA.size());
+            }
+        });
+    }
+
+    @Test
+    public void testMergeVarSizeKey() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 1000;
+            try (
+                    FastMap mapA = new FastMap(Numbers.SIZE_1MB, new SingleColumnType(ColumnType.STRING), new SingleColumnType(ColumnType.LONG), 16, 0.5f, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(Numbers.SIZE_1MB, new SingleColumnType(ColumnType.STRING), new SingleColumnType(ColumnType.LONG), 16, 0.5f, Integer.MAX_VALUE)
+            ) {
+                for (int i = 0; i < N; i += 2) {
+                    MapKey key = mapA.withKey();
+                    key.putStr("k" + i);
+                    MapValue value = key.createValue();
+                    value.putLong(0, 1);
+                }
+                for (int i = 0; i < N; i++) {
+                    MapKey key = mapB.withKey();
+                    key.putStr("k" + i);
+                    MapValue value = key.createValue();
+                    value.putLong(0, 1);
+                }
+
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+
+                Assert.assertEquals(N, mapA.size());
+                for (int i = 0; i < N; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putStr("k" + i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    Assert.assertEquals(i % 2 == 0 ? 2 : 1, value.getLong(0));
+                }
+            }
+        });
+    }
+
     @Test
     public void testNoValueColumns() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -914,6 +995,46 @@ public class FastMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSpillToDisk() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 100000;
+            final File spillRoot = temp.newFolder("spill");
+            final SpillAllocator allocator = new SpillAllocator(
+                    configuration.getFilesFacade(),
+                    spillRoot.getAbsolutePath(),
+                    configuration.getMkDirMode(),
+                    64 * 1024,
+                    MemoryTag.NATIVE_FAST_MAP
+            );
+            try (FastMap map = new FastMap(1024, new SingleColumnType(ColumnType.INT), new SingleColumnType(ColumnType.LONG), 64, 0.5f, Integer.MAX_VALUE, allocator)) {
+                for (int i = 0; i < N; i++) {
+                    MapKey key = map.withKey();
+                    key.putInt(i);
+                    MapValue value = key.createValue();
+                    Assert.assertTrue(value.isNew());
+                    value.putLong(0, i * 2L);
+                }
+                Assert.assertTrue(allocator.isSpilled());
+                Assert.assertEquals(1, Objects.requireNonNull(spillRoot.list()).length);
+
+                Assert.assertEquals(N, map.size());
+                for (int i = 0; i < N; i++) {
+                    MapKey key = map.withKey();
+                    key.putInt(i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    Assert.assertEquals(i * 2L, value.getLong(0));
+                }
+
+                // shrinking the map moves it back to the heap
+                map.restoreInitialCapacity();
+                Assert.assertFalse(allocator.isSpilled());
+                Assert.assertEquals(0, Objects.requireNonNull(spillRoot.list()).length);
+            }
+        });
+    }
+
     @Test
     public void testUnsupportedKeyValueBinary() throws Exception {
         testUnsupportedValueType();
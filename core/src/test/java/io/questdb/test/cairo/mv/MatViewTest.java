@@ -0,0 +1,385 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo.mv;
+
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.mv.MatViewRefreshJob;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatViewTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAlignRefreshTimestamp() throws Exception {
+        TimestampSampler sampler = TimestampSamplerFactory.getInstance("1h", 0);
+        sampler.setStart(0);
+        Assert.assertEquals(
+                "2023-01-02T00:00:00.000000Z",
+                alignRefreshTimestamp("2023-01-02T13:45:00.000000Z", sampler, PartitionBy.DAY)
+        );
+        Assert.assertEquals(
+                "2023-01-02T13:00:00.000000Z",
+                alignRefreshTimestamp("2023-01-02T13:45:00.000000Z", sampler, PartitionBy.HOUR)
+        );
+
+        // buckets span partitions
+        sampler = TimestampSamplerFactory.getInstance("3d", 0);
+        sampler.setStart(0);
+        Assert.assertEquals(
+                "2022-12-30T00:00:00.000000Z",
+                alignRefreshTimestamp("2023-01-01T13:45:00.000000Z", sampler, PartitionBy.DAY)
+        );
+        // bucket and month starts are rounded down in turn until both agree
+        Assert.assertEquals(
+                "2022-10-01T00:00:00.000000Z",
+                alignRefreshTimestamp("2023-01-02T13:45:00.000000Z", sampler, PartitionBy.MONTH)
+        );
+    }
+
+    @Test
+    public void testBaseTableRecreated() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+
+            compile("drop table trades");
+            createBaseTable();
+            // view is bound to the dropped table, not to the name
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingCount());
+            assertSql(
+                    "price_1h",
+                    "sym\tprice\tts\n" +
+                            "a\t1.0\t2023-01-01T00:00:00.000000Z\n" +
+                            "b\t3.0\t2023-01-01T00:00:00.000000Z\n" +
+                            "a\t4.0\t2023-01-01T01:00:00.000000Z\n" +
+                            "b\t6.0\t2023-01-02T12:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testCreateMatViewErrors() throws Exception {
+        createBaseTable();
+        compile("create table plain (price double, ts timestamp) timestamp(ts) partition by day bypass wal");
+        engine.releaseInactive();
+
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from plain sample by 1h align to calendar)",
+                null,
+                65,
+                "materialized view base table must be a WAL table"
+        );
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from missing sample by 1h align to calendar)",
+                null,
+                65,
+                "table does not exist [table=missing]"
+        );
+        assertFailure(
+                "create materialized view v as (select price, ts from trades)",
+                null,
+                31,
+                "materialized view query must use SAMPLE BY with a constant interval"
+        );
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from trades sample by 1h)",
+                null,
+                82,
+                "materialized view query must use ALIGN TO CALENDAR without time zone and offset"
+        );
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from trades sample by 1h align to calendar with offset '00:30')",
+                null,
+                82,
+                "materialized view query must use ALIGN TO CALENDAR without time zone and offset"
+        );
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from trades sample by 1h fill(prev) align to calendar)",
+                null,
+                90,
+                "materialized view query does not support FILL"
+        );
+        assertFailure(
+                "create materialized view v as (select last(t.price) price, t.ts from trades t join plain p on (ts) sample by 1h align to calendar)",
+                null,
+                31,
+                "materialized view query must select from a single base table"
+        );
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from (select * from trades) sample by 1h align to calendar)",
+                null,
+                31,
+                "materialized view query must select from a single base table"
+        );
+        assertFailure(
+                "create materialized view v as (select last(price) price, ts from trades sample by 1h align to calendar) partition by none",
+                null,
+                117,
+                "materialized view must be partitioned"
+        );
+    }
+
+    @Test
+    public void testDropMatView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+            Assert.assertEquals(1, engine.getMatViewGraph().getViewCount());
+
+            compile("drop table price_1h");
+            Assert.assertEquals(0, engine.getMatViewGraph().getViewCount());
+
+            // base table changes are not propagated anywhere
+            executeInsert("insert into trades values ('a', 5, '2023-01-01T00:10:00.000000Z')");
+            drainWalQueue();
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingCount());
+        });
+    }
+
+    @Test
+    public void testFailedRefreshKeepsView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+            final String expected = "sym\tprice\tts\n" +
+                    "a\t1.0\t2023-01-01T00:00:00.000000Z\n" +
+                    "b\t3.0\t2023-01-01T00:00:00.000000Z\n" +
+                    "a\t4.0\t2023-01-01T01:00:00.000000Z\n" +
+                    "b\t6.0\t2023-01-02T12:00:00.000000Z\n";
+
+            // view query no longer compiles
+            compile("alter table trades drop column price");
+            executeInsert("insert into trades values ('b', '2023-01-02T13:00:00.000000Z')");
+            drainWalQueue();
+            refreshMatViews();
+            assertSql("price_1h", expected);
+
+            // full refresh fails the same way
+            compile("update trades set sym = 'aa' where sym = 'a'");
+            drainWalQueue();
+            refreshMatViews();
+            assertSql("price_1h", expected);
+
+            // and the view is still writable by the refresh
+            compile("alter table trades add column price double");
+            executeInsert("insert into trades values ('b', '2023-01-03T10:00:00.000000Z', 7)");
+            drainWalQueue();
+            refreshMatViews();
+            assertMatViewUpToDate();
+        });
+    }
+
+    @Test
+    public void testFullRefreshAfterTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+
+            compile("truncate table trades");
+            executeInsert("insert into trades values ('b', 42, '2023-01-05T10:00:00.000000Z')");
+            drainWalQueue();
+            refreshMatViews();
+
+            assertSql(
+                    "price_1h",
+                    "sym\tprice\tts\n" +
+                            "b\t42.0\t2023-01-05T10:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testFullRefreshAfterUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+
+            compile("update trades set price = price * 10 where sym = 'a'");
+            drainWalQueue();
+            refreshMatViews();
+            assertMatViewUpToDate();
+        });
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+            assertSql(
+                    "price_1h",
+                    "sym\tprice\tts\n" +
+                            "a\t1.0\t2023-01-01T00:00:00.000000Z\n" +
+                            "b\t3.0\t2023-01-01T00:00:00.000000Z\n" +
+                            "a\t4.0\t2023-01-01T01:00:00.000000Z\n" +
+                            "b\t6.0\t2023-01-02T12:00:00.000000Z\n"
+            );
+
+            // late row into the first day and a new day
+            executeInsert("insert into trades values ('a', 10, '2023-01-01T01:30:00.000000Z')");
+            executeInsert("insert into trades values ('b', 20, '2023-01-03T08:15:00.000000Z')");
+            drainWalQueue();
+            Assert.assertEquals(1, engine.getMatViewGraph().getPendingCount());
+            refreshMatViews();
+            Assert.assertEquals(0, engine.getMatViewGraph().getPendingCount());
+
+            assertSql(
+                    "price_1h",
+                    "sym\tprice\tts\n" +
+                            "a\t1.0\t2023-01-01T00:00:00.000000Z\n" +
+                            "b\t3.0\t2023-01-01T00:00:00.000000Z\n" +
+                            "a\t10.0\t2023-01-01T01:00:00.000000Z\n" +
+                            "b\t6.0\t2023-01-02T12:00:00.000000Z\n" +
+                            "b\t20.0\t2023-01-03T08:00:00.000000Z\n"
+            );
+            assertMatViewUpToDate();
+
+            // only the last day of the view is recomputed
+            executeInsert("insert into trades values ('a', 30, '2023-01-03T09:00:00.000000Z')");
+            drainWalQueue();
+            refreshMatViews();
+            assertMatViewUpToDate();
+
+            try (Path path = new Path()) {
+                final TableToken viewToken = engine.getTableToken("price_1h");
+                path.of(configuration.getRoot()).concat(viewToken);
+                final ObjList<TableToken> tableTokens = new ObjList<>();
+                engine.getTableTokens(tableTokens, false);
+                final MatViewDefinition definition = MatViewDefinition.read(configuration.getFilesFacade(), path, path.length(), viewToken, tableTokens);
+                Assert.assertEquals("trades", definition.getBaseTableName());
+                Assert.assertEquals(engine.getTableToken("trades"), definition.getBaseTableToken());
+                Assert.assertEquals("1h", definition.getSamplingInterval());
+                Assert.assertEquals(engine.getMatViewGraph().getView(viewToken).getRefreshBaseTxn(), definition.getRefreshBaseTxn());
+                try (TableReader reader = getReader("trades")) {
+                    Assert.assertEquals(reader.getTxFile().getSeqTxn(), definition.getRefreshBaseTxn());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMatViewWritesRejected() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            createMatView();
+
+            assertMatViewWriteFails("insert into price_1h values ('c', 1, '2023-01-05T00:00:00.000000Z')", 12);
+            assertMatViewWriteFails("insert into price_1h select sym, price, ts from trades", 12);
+            assertMatViewWriteFails("update price_1h set price = 0", 7);
+            assertMatViewUpToDate();
+        });
+    }
+
+    @Test
+    public void testRefreshWithAliasAndFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view a_1d as (" +
+                    "select t.sym, sum(t.price) total, count() cnt, t.ts from trades t where t.sym = 'a' sample by 1d align to calendar" +
+                    ")");
+
+            executeInsert("insert into trades values ('a', 100, '2023-01-01T23:00:00.000000Z')");
+            executeInsert("insert into trades values ('b', 100, '2023-01-01T23:00:00.000000Z')");
+            drainWalQueue();
+            refreshMatViews();
+
+            assertSql(
+                    "a_1d",
+                    "sym\ttotal\tcnt\tts\n" +
+                            "a\t105.0\t3\t2023-01-01T00:00:00.000000Z\n"
+            );
+        });
+    }
+
+    private static String alignRefreshTimestamp(String timestamp, TimestampSampler sampler, int partitionBy) throws Exception {
+        sink.clear();
+        TimestampFormatUtils.appendDateTimeUSec(
+                sink,
+                MatViewRefreshJob.alignRefreshTimestamp(
+                        TimestampFormatUtils.parseUTCTimestamp(timestamp),
+                        sampler,
+                        PartitionBy.getPartitionFloorMethod(partitionBy)
+                )
+        );
+        return sink.toString();
+    }
+
+    private void assertMatViewWriteFails(String sql, int position) {
+        try {
+            compile(sql);
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertEquals(position, e.getPosition());
+            TestUtils.assertContains(e.getFlyweightMessage(), "cannot modify materialized view [view=price_1h]");
+        }
+    }
+
+    private void assertMatViewUpToDate() throws Exception {
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select sym, last(price) price, ts from trades sample by 1h align to calendar order by ts, sym",
+                "select * from price_1h order by ts, sym",
+                LOG
+        );
+    }
+
+    private void createBaseTable() throws Exception {
+        compile("create table trades (sym symbol, price double, ts timestamp) timestamp(ts) partition by day wal");
+        executeInsert("insert into trades values " +
+                "('a', 1, '2023-01-01T00:10:00.000000Z'), " +
+                "('b', 2, '2023-01-01T00:20:00.000000Z'), " +
+                "('b', 3, '2023-01-01T00:30:00.000000Z'), " +
+                "('a', 4, '2023-01-01T01:10:00.000000Z'), " +
+                "('b', 6, '2023-01-02T12:40:00.000000Z')");
+        drainWalQueue();
+    }
+
+    private void createMatView() throws Exception {
+        compile("create materialized view price_1h as (" +
+                "select sym, last(price) price, ts from trades sample by 1h align to calendar" +
+                ") partition by day");
+    }
+
+    private void refreshMatViews() {
+        try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) {
+            }
+        }
+    }
+}
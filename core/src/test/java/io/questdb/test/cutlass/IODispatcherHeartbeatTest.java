@@ -63,7 +63,7 @@ public class IODispatcherHeartbeatTest {
         assertMemoryLeak(() -> {
             TestClock clock = new TestClock();
             try (IODispatcher<TestContext> dispatcher = IODispatchers.create(
-                    new DefaultIODispatcherConfiguration() {
+                    new TestIODispatcherConfiguration() {
                         @Override
                         public MillisecondClock getClock() {
                             return clock;
@@ -137,7 +137,7 @@ public class IODispatcherHeartbeatTest {
         assertMemoryLeak(() -> {
             TestClock clock = new TestClock();
             try (IODispatcher<TestContext> dispatcher = IODispatchers.create(
-                    new DefaultIODispatcherConfiguration() {
+                    new TestIODispatcherConfiguration() {
                         @Override
                         public MillisecondClock getClock() {
                             return clock;
@@ -214,7 +214,7 @@ public class IODispatcherHeartbeatTest {
 
         assertMemoryLeak(() -> {
             TestClock clock = new TestClock();
-            IODispatcherConfiguration ioDispatcherConfig = new DefaultIODispatcherConfiguration() {
+            IODispatcherConfiguration ioDispatcherConfig = new TestIODispatcherConfiguration() {
                 @Override
                 public MillisecondClock getClock() {
                     return clock;
@@ -284,7 +284,7 @@ public class IODispatcherHeartbeatTest {
 
         assertMemoryLeak(() -> {
             TestClock clock = new TestClock();
-            IODispatcherConfiguration ioDispatcherConfig = new DefaultIODispatcherConfiguration() {
+            IODispatcherConfiguration ioDispatcherConfig = new TestIODispatcherConfiguration() {
                 @Override
                 public MillisecondClock getClock() {
                     return clock;
@@ -360,7 +360,7 @@ public class IODispatcherHeartbeatTest {
 
         assertMemoryLeak(() -> {
             TestClock clock = new TestClock();
-            IODispatcherConfiguration ioDispatcherConfig = new DefaultIODispatcherConfiguration() {
+            IODispatcherConfiguration ioDispatcherConfig = new TestIODispatcherConfiguration() {
                 @Override
                 public MillisecondClock getClock() {
                     return clock;
@@ -426,6 +426,10 @@ public class IODispatcherHeartbeatTest {
         });
     }
 
+    protected boolean isIOURingEnabled() {
+        return false;
+    }
+
     private static class SuspendingTestProcessor implements IORequestProcessor<TestContext> {
         final TestClock clock;
         final SuspendEvent suspendEvent;
@@ -494,7 +498,7 @@ public class IODispatcherHeartbeatTest {
                 previousHeartbeatTs = current;
                 isPreviousEventHeartbeat = true;
             } else {
-                Assert.assertEquals(1, Net.recv(getFd(), buffer, 1));
+                Assert.assertEquals(1, recv(NetworkFacadeImpl.INSTANCE, buffer, 1));
                 previousReadTs = current;
                 isPreviousEventHeartbeat = false;
             }
@@ -530,6 +534,18 @@ public class IODispatcherHeartbeatTest {
         public boolean invalid() {
             return false;
         }
+
+        @Override
+        public boolean isStagedIOSupported() {
+            return true;
+        }
+    }
+
+    private class TestIODispatcherConfiguration extends DefaultIODispatcherConfiguration {
+        @Override
+        public boolean isIOURingEnabled() {
+            return IODispatcherHeartbeatTest.this.isIOURingEnabled();
+        }
     }
 
     private static class TestProcessor implements IORequestProcessor<TestContext> {
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass;
+
+import io.questdb.network.*;
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.IOURingFacadeImpl;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
+
+public class IODispatcherIOUringHeartbeatTest extends IODispatcherHeartbeatTest {
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(IOURingFacadeImpl.INSTANCE.isAvailable());
+    }
+
+    @Test
+    public void testFallbackToEpoll() throws Exception {
+        assertMemoryLeak(() -> {
+            try (IODispatcher<?> dispatcher = IODispatchers.create(
+                    new DefaultIODispatcherConfiguration() {
+                        @Override
+                        public IOURingFacade getIOURingFacade() {
+                            return new IOURingFacadeImpl() {
+                                @Override
+                                public boolean isAvailable() {
+                                    return false;
+                                }
+                            };
+                        }
+
+                        @Override
+                        public boolean isIOURingEnabled() {
+                            return true;
+                        }
+                    },
+                    (fd, d) -> null
+            )) {
+                Assert.assertTrue(dispatcher instanceof IODispatcherLinux);
+            }
+        });
+    }
+
+    @Test
+    public void testIOURingDispatcherIsUsed() throws Exception {
+        assertMemoryLeak(() -> {
+            try (IODispatcher<?> dispatcher = IODispatchers.create(
+                    new DefaultIODispatcherConfiguration() {
+                        @Override
+                        public boolean isIOURingEnabled() {
+                            return true;
+                        }
+                    },
+                    (fd, d) -> null
+            )) {
+                Assert.assertTrue(dispatcher instanceof IODispatcherIOUring);
+            }
+        });
+    }
+
+    @Override
+    protected boolean isIOURingEnabled() {
+        return true;
+    }
+}
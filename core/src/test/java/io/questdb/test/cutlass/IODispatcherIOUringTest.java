@@ -0,0 +1,273 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass;
+
+import io.questdb.network.*;
+import io.questdb.std.*;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
+
+public class IODispatcherIOUringTest {
+    // smaller than the dispatcher's buffers, so that contexts leave received data staged
+    private static final int CONTEXT_BUF_SIZE = 4096;
+    private static final int CLIENT_BUF_SIZE = 16 * 1024;
+    private static final NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(IOURingFacadeImpl.INSTANCE.isAvailable());
+    }
+
+    @Test
+    public void testDisconnectFlushesStagedData() throws Exception {
+        assertResponseBeforeEof(true);
+    }
+
+    @Test
+    public void testEcho() throws Exception {
+        assertEcho(8, 1024 * 1024, false);
+    }
+
+    @Test
+    public void testEchoWhenRecvBuffersRunOut() throws Exception {
+        // contexts hold on to received data until all connections are published,
+        // so that some of them find the provided buffer group empty
+        assertEcho(40, 256 * 1024, true);
+    }
+
+    @Test
+    public void testShutdownWriteAfterStagedData() throws Exception {
+        assertResponseBeforeEof(false);
+    }
+
+    private static IODispatcherConfiguration configuration() {
+        return new DefaultIODispatcherConfiguration() {
+            @Override
+            public int getBindPort() {
+                return 0;
+            }
+
+            @Override
+            public boolean isIOURingEnabled() {
+                return true;
+            }
+        };
+    }
+
+    private static byte expectedByte(int connection, long offset) {
+        return (byte) (offset * 31 + connection);
+    }
+
+    private void assertEcho(int connectionCount, int size, boolean parkFirstRead) throws Exception {
+        assertMemoryLeak(() -> {
+            final ObjList<EchoContext> parked = new ObjList<>();
+            try (IODispatcher<EchoContext> dispatcher = IODispatchers.create(configuration(), (fd, d) -> new EchoContext().of(fd, d))) {
+                final IORequestProcessor<EchoContext> processor = (operation, context) -> {
+                    if (parkFirstRead && !context.published) {
+                        context.published = true;
+                        parked.add(context);
+                    } else {
+                        context.handle();
+                    }
+                    return true;
+                };
+
+                final int[] fds = new int[connectionCount];
+                final long[] sent = new long[connectionCount];
+                final long[] received = new long[connectionCount];
+                final long sockAddr = Net.sockaddr("127.0.0.1", dispatcher.getPort());
+                final long buf = Unsafe.malloc(CLIENT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    for (int i = 0; i < connectionCount; i++) {
+                        fds[i] = Net.socketTcp(true);
+                        TestUtils.assertConnect(fds[i], sockAddr);
+                        Net.configureNonBlocking(fds[i]);
+                    }
+
+                    boolean done = false;
+                    while (!done) {
+                        done = true;
+                        for (int i = 0; i < connectionCount; i++) {
+                            if (sent[i] < size) {
+                                final int len = (int) Math.min(CLIENT_BUF_SIZE, size - sent[i]);
+                                for (int j = 0; j < len; j++) {
+                                    Unsafe.getUnsafe().putByte(buf + j, expectedByte(i, sent[i] + j));
+                                }
+                                final int n = Net.send(fds[i], buf, len);
+                                Assert.assertTrue(n > -1);
+                                sent[i] += n;
+                            }
+
+                            final int n = Net.recv(fds[i], buf, CLIENT_BUF_SIZE);
+                            Assert.assertTrue(n > -1);
+                            for (int j = 0; j < n; j++) {
+                                Assert.assertEquals(expectedByte(i, received[i] + j), Unsafe.getUnsafe().getByte(buf + j));
+                            }
+                            received[i] += n;
+                            done &= received[i] == size;
+                        }
+
+                        dispatcher.run(0);
+                        while (dispatcher.processIOQueue(processor)) ;
+                        if (parked.size() == connectionCount) {
+                            for (int i = 0; i < connectionCount; i++) {
+                                parked.getQuick(i).handle();
+                            }
+                            parked.clear();
+                        }
+                    }
+                    Assert.assertEquals(connectionCount, dispatcher.getConnectionCount());
+                } finally {
+                    for (int i = 0; i < connectionCount; i++) {
+                        Net.close(fds[i]);
+                    }
+                    Net.freeSockAddr(sockAddr);
+                    Unsafe.free(buf, CLIENT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    private void assertResponseBeforeEof(boolean disconnect) throws Exception {
+        assertMemoryLeak(() -> {
+            final int responseSize = 10_000;
+            try (IODispatcher<ResponseContext> dispatcher = IODispatchers.create(configuration(), (fd, d) -> new ResponseContext(responseSize).of(fd, d))) {
+                final IORequestProcessor<ResponseContext> processor = (operation, context) -> {
+                    if (context.recv(nf, context.buf + responseSize, 1) == 1) {
+                        // the response fits the lent send buffer, so the context considers it sent right away
+                        Assert.assertEquals(responseSize, context.send(nf, context.buf, responseSize));
+                        if (disconnect) {
+                            dispatcher.disconnect(context, 0);
+                            return true;
+                        }
+                        context.shutdownWrite(nf);
+                    }
+                    dispatcher.registerChannel(context, IOOperation.READ);
+                    return true;
+                };
+
+                final long sockAddr = Net.sockaddr("127.0.0.1", dispatcher.getPort());
+                final int fd = Net.socketTcp(true);
+                final long buf = Unsafe.malloc(CLIENT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    TestUtils.assertConnect(fd, sockAddr);
+                    Net.configureNonBlocking(fd);
+                    Unsafe.getUnsafe().putByte(buf, (byte) '?');
+                    Assert.assertEquals(1, Net.send(fd, buf, 1));
+
+                    int received = 0;
+                    int n;
+                    while ((n = Net.recv(fd, buf, CLIENT_BUF_SIZE)) > -1) {
+                        for (int j = 0; j < n; j++) {
+                            Assert.assertEquals(expectedByte(0, received + j), Unsafe.getUnsafe().getByte(buf + j));
+                        }
+                        received += n;
+                        dispatcher.run(0);
+                        while (dispatcher.processIOQueue(processor)) ;
+                    }
+                    // all data arrives before FIN
+                    Assert.assertEquals(Net.EOTHERDISCONNECT, n);
+                    Assert.assertEquals(responseSize, received);
+                } finally {
+                    Net.close(fd);
+                    Net.freeSockAddr(sockAddr);
+                    Unsafe.free(buf, CLIENT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    private static class EchoContext extends IOContext<EchoContext> {
+        private final long buf = Unsafe.malloc(CONTEXT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+        private int len;
+        private int pos;
+        private boolean published;
+
+        @Override
+        public void close() {
+            Unsafe.free(buf, CONTEXT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+        }
+
+        @Override
+        public boolean isStagedIOSupported() {
+            return true;
+        }
+
+        private boolean flush() {
+            while (pos < len) {
+                final int n = send(nf, buf + pos, len - pos);
+                Assert.assertTrue(n > -1);
+                if (n == 0) {
+                    return false;
+                }
+                pos += n;
+            }
+            return true;
+        }
+
+        private void handle() {
+            while (flush()) {
+                final int n = recv(nf, buf, CONTEXT_BUF_SIZE);
+                Assert.assertTrue(n > -1);
+                if (n == 0) {
+                    dispatcher.registerChannel(this, IOOperation.READ);
+                    return;
+                }
+                pos = 0;
+                len = n;
+            }
+            dispatcher.registerChannel(this, IOOperation.WRITE);
+        }
+    }
+
+    private static class ResponseContext extends IOContext<ResponseContext> {
+        private final long buf;
+        private final int bufSize;
+
+        private ResponseContext(int responseSize) {
+            // the response is followed by a byte for the request
+            this.bufSize = responseSize + 1;
+            this.buf = Unsafe.malloc(bufSize, MemoryTag.NATIVE_DEFAULT);
+            for (int i = 0; i < responseSize; i++) {
+                Unsafe.getUnsafe().putByte(buf + i, expectedByte(0, i));
+            }
+        }
+
+        @Override
+        public void close() {
+            Unsafe.free(buf, bufSize, MemoryTag.NATIVE_DEFAULT);
+        }
+
+        @Override
+        public boolean isStagedIOSupported() {
+            return true;
+        }
+    }
+}
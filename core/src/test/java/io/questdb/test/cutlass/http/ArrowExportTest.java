@@ -0,0 +1,515 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ArrowExportTest {
+    private static final int PORT = 9001;
+    private static final String TABLE_DDL = "create table x as (select" +
+            " cast(case when x % 3 = 0 then null else x end as int) i," +
+            " x * 1000 l," +
+            " case when x % 2 = 0 then null else x / 2.0 end d," +
+            " cast(x / 4.0 as float) f," +
+            " x % 2 = 0 b," +
+            " cast(x as short) sh," +
+            " case when x % 3 = 1 then 'aé' when x % 3 = 2 then 'bb' else null end s," +
+            " cast(case when x % 4 = 0 then null else 's' || (x % 2) end as symbol) sym," +
+            " cast('11111111-2222-3333-4444-55555555555' || x as uuid) u," +
+            " cast(x * 1000 as date) dt," +
+            " timestamp_sequence(0, 86400000000) ts" +
+            " from long_sequence(5)) timestamp(ts) partition by DAY";
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testLimit() throws Exception {
+        runServer(1024, (compiler, executionContext) -> {
+            compiler.compile("create table y as (select x, timestamp_sequence(0, 3600000000) ts from long_sequence(200)) timestamp(ts) partition by DAY", executionContext);
+
+            ArrowStream stream = exportArrow("y", "&limit=30,40");
+            Assert.assertEquals(10, stream.rows.size());
+            Assert.assertEquals("31", stream.rows.get(0).get(0));
+            Assert.assertEquals("40", stream.rows.get(9).get(0));
+
+            stream = exportArrow("y where x > 0", "&limit=30,40");
+            Assert.assertEquals(10, stream.rows.size());
+            Assert.assertEquals("31", stream.rows.get(0).get(0));
+            Assert.assertEquals("40", stream.rows.get(9).get(0));
+        });
+    }
+
+    @Test
+    public void testPageFrames() throws Exception {
+        runServer(1024 * 1024, (compiler, executionContext) -> {
+            compiler.compile(TABLE_DDL, executionContext);
+            execute(compiler, executionContext, "alter table x add column late int");
+            execute(compiler, executionContext, "insert into x (i, sym, ts, late) values (6, 'new', 432000000000, 42)");
+
+            final ArrowStream stream = exportArrow("x", "");
+            // every partition is a separate page frame
+            Assert.assertEquals(6, stream.batchCount);
+            Assert.assertEquals(1, stream.dictionaryCount);
+            Assert.assertEquals(
+                    "i:int32\tl:int64\td:double\tf:float\tb:bool\tsh:int16\ts:utf8\tsym:utf8 dictionary\tu:fixed16\tdt:date\tts:timestamp UTC\tlate:int32\n" +
+                            "1\t1000\t0.5\t0.25\tfalse\t1\taé\ts1\t11111111222233334444555555555551\t1000\t0\tnull\n" +
+                            "2\t2000\tnull\t0.5\ttrue\t2\tbb\ts0\t11111111222233334444555555555552\t2000\t86400000000\tnull\n" +
+                            "null\t3000\t1.5\t0.75\tfalse\t3\tnull\ts1\t11111111222233334444555555555553\t3000\t172800000000\tnull\n" +
+                            "4\t4000\tnull\t1.0\ttrue\t4\taé\tnull\t11111111222233334444555555555554\t4000\t259200000000\tnull\n" +
+                            "5\t5000\t2.5\t1.25\tfalse\t5\tbb\ts1\t11111111222233334444555555555555\t5000\t345600000000\tnull\n" +
+                            "6\tnull\tnull\tnull\tfalse\t0\tnull\tnew\tnull\tnull\t432000000000\t42\n",
+                    stream.toString()
+            );
+        });
+    }
+
+    @Test
+    public void testRecordCursorFallback() throws Exception {
+        runServer(1024 * 1024, (compiler, executionContext) -> {
+            compiler.compile(TABLE_DDL, executionContext);
+
+            final ArrowStream stream = exportArrow("x order by ts desc", "");
+            Assert.assertEquals(1, stream.batchCount);
+            // symbols are sent as plain strings
+            Assert.assertEquals(0, stream.dictionaryCount);
+            Assert.assertEquals(
+                    "i:int32\tl:int64\td:double\tf:float\tb:bool\tsh:int16\ts:utf8\tsym:utf8\tu:fixed16\tdt:date\tts:timestamp UTC\n" +
+                            "5\t5000\t2.5\t1.25\tfalse\t5\tbb\ts1\t11111111222233334444555555555555\t5000\t345600000000\n" +
+                            "4\t4000\tnull\t1.0\ttrue\t4\taé\tnull\t11111111222233334444555555555554\t4000\t259200000000\n" +
+                            "null\t3000\t1.5\t0.75\tfalse\t3\tnull\ts1\t11111111222233334444555555555553\t3000\t172800000000\n" +
+                            "2\t2000\tnull\t0.5\ttrue\t2\tbb\ts0\t11111111222233334444555555555552\t2000\t86400000000\n" +
+                            "1\t1000\t0.5\t0.25\tfalse\t1\taé\ts1\t11111111222233334444555555555551\t1000\t0\n",
+                    stream.toString()
+            );
+        });
+    }
+
+    @Test
+    public void testSmallSendBuffer() throws Exception {
+        // messages are larger than the send buffer and have to span many chunks
+        runServer(256, (compiler, executionContext) -> {
+            compiler.compile("create table y as (select x, 'str' || x s, cast('k' || (x % 10) as symbol) k, timestamp_sequence(0, 60000000) ts" +
+                    " from long_sequence(10000)) timestamp(ts) partition by DAY", executionContext);
+
+            for (String query : new String[]{"y", "y where x > 0"}) {
+                final ArrowStream stream = exportArrow(query, "");
+                Assert.assertEquals(10000, stream.rows.size());
+                for (int r = 0; r < 10000; r++) {
+                    final List<String> row = stream.rows.get(r);
+                    final long x = r + 1;
+                    Assert.assertEquals(Long.toString(x), row.get(0));
+                    Assert.assertEquals("str" + x, row.get(1));
+                    Assert.assertEquals("k" + (x % 10), row.get(2));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSqlError() throws Exception {
+        runServer(1024, (compiler, executionContext) -> {
+            try (
+                    Socket socket = new Socket("127.0.0.1", PORT);
+                    InputStream in = new BufferedInputStream(socket.getInputStream())
+            ) {
+                socket.setSoTimeout(30_000);
+                sendRequest(socket, "select * from missing", "");
+                TestUtils.assertContains(readLine(in), "400");
+            }
+        });
+    }
+
+    private static void execute(SqlCompiler compiler, SqlExecutionContextImpl executionContext, String sql) throws SqlException {
+        try (OperationFuture future = compiler.compile(sql, executionContext).execute(null)) {
+            future.await();
+        }
+    }
+
+    private static ArrowStream exportArrow(String query, String params) throws IOException {
+        try (
+                Socket socket = new Socket("127.0.0.1", PORT);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))
+        ) {
+            socket.setSoTimeout(30_000);
+            sendRequest(socket, query, params);
+            TestUtils.assertContains(readLine(in), "200 OK");
+            boolean arrowContentType = false;
+            for (String header = readLine(in); header.length() > 0; header = readLine(in)) {
+                arrowContentType |= header.equals("Content-Type: application/vnd.apache.arrow.stream");
+            }
+            Assert.assertTrue(arrowContentType);
+
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                final int size = Integer.parseInt(readLine(in), 16);
+                if (size == 0) {
+                    break;
+                }
+                final byte[] chunk = new byte[size];
+                in.readFully(chunk);
+                body.write(chunk);
+                Assert.assertEquals("", readLine(in));
+            }
+            return new ArrowStream(body.toByteArray());
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            Assert.assertTrue(c > -1);
+            if (c != '\r') {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void sendRequest(Socket socket, String query, String params) throws IOException {
+        final String request = "GET /exp?fmt=arrow&query=" + HttpUtils.urlEncodeQuery(query) + params + " HTTP/1.1\r\n" +
+                "Host: localhost:9000\r\n" +
+                "\r\n";
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+    }
+
+    private void runServer(int sendBufferSize, ArrowCode code) throws Exception {
+        new HttpQueryTestBuilder()
+                .withWorkerCount(1)
+                .withTempFolder(temp)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withSendBufferSize(sendBufferSize))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        code.run(compiler, executionContext);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ArrowCode {
+        void run(SqlCompiler compiler, SqlExecutionContextImpl executionContext) throws SqlException, IOException;
+    }
+
+    /**
+     * Decodes Arrow IPC stream independently of the encoder, values are rendered as strings.
+     */
+    private static class ArrowStream {
+        final List<Field> fields = new ArrayList<>();
+        final List<List<String>> rows = new ArrayList<>();
+        private final ByteBuffer buf;
+        private final Map<Long, List<String>> dictionaries = new HashMap<>();
+        int batchCount;
+        int dictionaryCount;
+
+        ArrowStream(byte[] bytes) {
+            buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            int pos = 0;
+            while (true) {
+                Assert.assertEquals(0, pos % 8);
+                Assert.assertEquals(-1, buf.getInt(pos));
+                final int metadataLen = buf.getInt(pos + 4);
+                if (metadataLen == 0) {
+                    // end of stream
+                    Assert.assertEquals(bytes.length, pos + 8);
+                    break;
+                }
+                Assert.assertEquals(0, metadataLen % 8);
+                final int metadata = pos + 8;
+                final int message = ref(metadata);
+                Assert.assertEquals(4, scalar(message, 0, 2));
+                final int headerType = (int) scalar(message, 1, 1);
+                final int header = field(message, 2);
+                final int body = metadata + metadataLen;
+                final long bodyLength = scalar(message, 3, 8);
+                switch (headerType) {
+                    case 1:
+                        Assert.assertEquals(0, batchCount + dictionaryCount);
+                        readSchema(header);
+                        break;
+                    case 2:
+                        Assert.assertEquals(0, batchCount);
+                        dictionaryCount++;
+                        final Field dictionaryField = new Field();
+                        dictionaryField.type = 5;
+                        final List<String> values = new ArrayList<>();
+                        final int data = field(header, 1);
+                        readBatch(data, body, 1, (row, column, value) -> values.add(value), new Field[]{dictionaryField});
+                        dictionaries.put(scalar(header, 0, 8), values);
+                        break;
+                    case 3:
+                        batchCount++;
+                        final int rowBase = rows.size();
+                        final long length = scalar(header, 0, 8);
+                        for (int r = 0; r < length; r++) {
+                            rows.add(new ArrayList<>());
+                        }
+                        readBatch(header, body, fields.size(), (row, column, value) -> rows.get(rowBase + row).add(value), fields.toArray(new Field[0]));
+                        break;
+                    default:
+                        Assert.fail("unexpected message type " + headerType);
+                }
+                pos = (int) (body + bodyLength);
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0, n = fields.size(); i < n; i++) {
+                final Field field = fields.get(i);
+                sb.append(i > 0 ? "\t" : "").append(field.name).append(':').append(field.typeName());
+            }
+            sb.append('\n');
+            for (List<String> row : rows) {
+                sb.append(String.join("\t", row)).append('\n');
+            }
+            return sb.toString();
+        }
+
+        private int field(int table, int id) {
+            final int offset = fieldOffset(table, id);
+            Assert.assertTrue(offset > 0);
+            return ref(table + offset);
+        }
+
+        private int fieldOffset(int table, int id) {
+            final int vtable = table - buf.getInt(table);
+            final int vtableSize = buf.getShort(vtable);
+            return 4 + 2 * id < vtableSize ? buf.getShort(vtable + 4 + 2 * id) : 0;
+        }
+
+        private boolean isValid(long validity, long validityLen, int row) {
+            return validityLen == 0 || (buf.get((int) validity + (row >> 3)) & (1 << (row & 7))) != 0;
+        }
+
+        private void readBatch(int batch, int body, int columnCount, ValueConsumer consumer, Field[] fields) {
+            final int length = (int) scalar(batch, 0, 8);
+            final int nodes = field(batch, 1);
+            final int buffers = field(batch, 2);
+            Assert.assertEquals(columnCount, buf.getInt(nodes));
+            int bufferIndex = 0;
+            for (int c = 0; c < columnCount; c++) {
+                final Field field = fields[c];
+                Assert.assertEquals(0, (nodes + 4) % 8);
+                Assert.assertEquals(length, buf.getLong(nodes + 4 + 16 * c));
+                final long nullCount = buf.getLong(nodes + 4 + 16 * c + 8);
+                final int bufferCount = field.type == 1 ? 0 : (field.type == 4 || field.type == 5) && field.dictionaryId < 0 ? 3 : 2;
+                final long[] addresses = new long[bufferCount];
+                final long[] lengths = new long[bufferCount];
+                for (int b = 0; b < bufferCount; b++, bufferIndex++) {
+                    final long offset = buf.getLong(buffers + 4 + 16 * bufferIndex);
+                    Assert.assertEquals(0, offset % 8);
+                    addresses[b] = body + offset;
+                    lengths[b] = buf.getLong(buffers + 4 + 16 * bufferIndex + 8);
+                }
+
+                long nulls = 0;
+                for (int r = 0; r < length; r++) {
+                    final String value;
+                    if (field.type == 1 || !isValid(addresses[0], lengths[0], r)) {
+                        value = "null";
+                        nulls++;
+                    } else {
+                        value = readValue(field, addresses, r);
+                    }
+                    consumer.accept(r, c, value);
+                }
+                Assert.assertEquals(nullCount, nulls);
+            }
+            Assert.assertEquals(bufferIndex, buf.getInt(buffers));
+        }
+
+        private void readSchema(int schema) {
+            final int fieldsVector = field(schema, 1);
+            for (int i = 0, n = buf.getInt(fieldsVector); i < n; i++) {
+                final int f = ref(fieldsVector + 4 + 4 * i);
+                final Field field = new Field();
+                field.name = string(field(f, 0));
+                field.type = (int) scalar(f, 2, 1);
+                final int type = field(f, 3);
+                switch (field.type) {
+                    case 2:
+                        field.bitWidth = (int) scalar(type, 0, 4);
+                        field.signed = scalar(type, 1, 1) != 0;
+                        break;
+                    case 3:
+                        field.bitWidth = scalar(type, 0, 2) == 1 ? 32 : 64;
+                        break;
+                    case 8:
+                        Assert.assertEquals(1, scalar(type, 0, 2));
+                        break;
+                    case 10:
+                        Assert.assertEquals(2, scalar(type, 0, 2));
+                        field.timezone = string(field(type, 1));
+                        break;
+                    case 15:
+                        field.bitWidth = (int) scalar(type, 0, 4) * 8;
+                        break;
+                    default:
+                        break;
+                }
+                if (fieldOffset(f, 4) > 0) {
+                    final int dictionary = field(f, 4);
+                    field.dictionaryId = scalar(dictionary, 0, 8);
+                    Assert.assertEquals(32, scalar(field(dictionary, 1), 0, 4));
+                }
+                Assert.assertEquals(0, buf.getInt(field(f, 5)));
+                fields.add(field);
+            }
+        }
+
+        private String readValue(Field field, long[] addresses, int row) {
+            final int values = (int) addresses[1];
+            if (field.dictionaryId > -1) {
+                return dictionaries.get(field.dictionaryId).get(buf.getInt(values + 4 * row));
+            }
+            switch (field.type) {
+                case 2:
+                    final long v;
+                    switch (field.bitWidth) {
+                        case 8:
+                            v = buf.get(values + row);
+                            break;
+                        case 16:
+                            v = field.signed ? buf.getShort(values + 2 * row) : buf.getChar(values + 2 * row);
+                            break;
+                        case 32:
+                            v = buf.getInt(values + 4 * row);
+                            break;
+                        default:
+                            v = buf.getLong(values + 8 * row);
+                            break;
+                    }
+                    return Long.toString(v);
+                case 3:
+                    return field.bitWidth == 32 ? Float.toString(buf.getFloat(values + 4 * row)) : Double.toString(buf.getDouble(values + 8 * row));
+                case 5:
+                    final int lo = buf.getInt(values + 4 * row);
+                    final int hi = buf.getInt(values + 4 * row + 4);
+                    return new String(buf.array(), (int) addresses[2] + lo, hi - lo, StandardCharsets.UTF_8);
+                case 6:
+                    return Boolean.toString((buf.get(values + (row >> 3)) & (1 << (row & 7))) != 0);
+                case 8:
+                case 10:
+                    return Long.toString(buf.getLong(values + 8 * row));
+                case 15:
+                    final StringBuilder sb = new StringBuilder();
+                    final int width = field.bitWidth / 8;
+                    for (int i = 0; i < width; i++) {
+                        sb.append(String.format("%02x", buf.get(values + width * row + i) & 0xff));
+                    }
+                    return sb.toString();
+                default:
+                    throw new AssertionError("unexpected type " + field.type);
+            }
+        }
+
+        private int ref(int pos) {
+            return pos + buf.getInt(pos);
+        }
+
+        private long scalar(int table, int id, int size) {
+            final int offset = fieldOffset(table, id);
+            if (offset == 0) {
+                return 0;
+            }
+            Assert.assertEquals(0, (table + offset) % size);
+            switch (size) {
+                case 1:
+                    return buf.get(table + offset);
+                case 2:
+                    return buf.getShort(table + offset);
+                case 4:
+                    return buf.getInt(table + offset);
+                default:
+                    return buf.getLong(table + offset);
+            }
+        }
+
+        private String string(int pos) {
+            final int len = buf.getInt(pos);
+            Assert.assertEquals(0, buf.get(pos + 4 + len));
+            return new String(buf.array(), pos + 4, len, StandardCharsets.UTF_8);
+        }
+
+        @FunctionalInterface
+        private interface ValueConsumer {
+            void accept(int row, int column, String value);
+        }
+
+        private static class Field {
+            int bitWidth;
+            long dictionaryId = -1;
+            String name;
+            boolean signed;
+            String timezone;
+            int type;
+
+            String typeName() {
+                switch (type) {
+                    case 2:
+                        return (signed ? "int" : "uint") + bitWidth;
+                    case 3:
+                        return bitWidth == 32 ? "float" : "double";
+                    case 5:
+                        return dictionaryId > -1 ? "utf8 dictionary" : "utf8";
+                    case 6:
+                        return "bool";
+                    case 8:
+                        return "date";
+                    case 10:
+                        return "timestamp " + timezone;
+                    case 15:
+                        return "fixed" + bitWidth / 8;
+                    default:
+                        return "type" + type;
+                }
+            }
+        }
+    }
+}
@@ -242,6 +242,18 @@ public class HttpQueryTestBuilder {
                     }
                 });
 
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public String getUrl() {
+                        return "/write";
+                    }
+
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new LineHttpProcessor(httpConfiguration.getLineHttpProcessorConfiguration(), engine);
+                    }
+                });
+
                 QueryCache.configure(httpConfiguration, metrics);
 
                 workerPool.start(LOG);
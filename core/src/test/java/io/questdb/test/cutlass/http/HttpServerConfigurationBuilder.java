@@ -25,7 +25,10 @@ package io.questdb.test.cutlass.http;
 
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
 import io.questdb.network.DefaultIODispatcherConfiguration;
 import io.questdb.network.IODispatcherConfiguration;
 import io.questdb.network.NetworkFacade;
@@ -43,6 +46,7 @@ public class HttpServerConfigurationBuilder {
     private long configuredMaxQueryResponseRowLimit = Long.MAX_VALUE;
     private boolean dumpTraffic;
     private String httpProtocolVersion = "HTTP/1.1 ";
+    private long lineHttpMaxWalLag = 1000;
     private long multipartIdleSpinCount = -1;
     private NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
     private int receiveBufferSize = 1024 * 1024;
@@ -96,6 +100,29 @@ public class HttpServerConfigurationBuilder {
                     return configuredMaxQueryResponseRowLimit;
                 }
             };
+            private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new LineHttpProcessorConfiguration() {
+                private final LineTcpReceiverConfiguration lineTcpReceiverConfiguration = new DefaultLineTcpReceiverConfiguration();
+
+                @Override
+                public LineTcpReceiverConfiguration getLineTcpReceiverConfiguration() {
+                    return lineTcpReceiverConfiguration;
+                }
+
+                @Override
+                public long getMaxWalLag() {
+                    return lineHttpMaxWalLag;
+                }
+
+                @Override
+                public int getRetryAfterSeconds() {
+                    return 1;
+                }
+
+                @Override
+                public boolean isEnabled() {
+                    return true;
+                }
+            };
             private final StaticContentProcessorConfiguration staticContentProcessorConfiguration = new StaticContentProcessorConfiguration() {
                 @Override
                 public FilesFacade getFilesFacade() {
@@ -184,6 +211,11 @@ public class HttpServerConfigurationBuilder {
                 return jsonQueryProcessorConfiguration;
             }
 
+            @Override
+            public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+                return lineHttpProcessorConfiguration;
+            }
+
             @Override
             public StaticContentProcessorConfiguration getStaticContentProcessorConfiguration() {
                 return staticContentProcessorConfiguration;
@@ -246,6 +278,11 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withLineHttpMaxWalLag(long lineHttpMaxWalLag) {
+        this.lineHttpMaxWalLag = lineHttpMaxWalLag;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withMultipartIdleSpinCount(long multipartIdleSpinCount) {
         this.multipartIdleSpinCount = multipartIdleSpinCount;
         return this;
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.wal.ApplyWal2TableJob;
+import io.questdb.cairo.wal.CheckWalTransactionsJob;
+import io.questdb.cutlass.http.HttpContentListener;
+import io.questdb.cutlass.http.HttpContentParser;
+import io.questdb.cutlass.http.HttpException;
+import io.questdb.cutlass.line.LineHttpSender;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.network.Net;
+import io.questdb.std.Chars;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LineHttpProcessorTest {
+    private static final int PORT = 9001;
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testContentParserChunked() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final String body = "5;ext=1\r\nhello\r\n7\r\n, world\r\n0\r\nX-Trailer: 1\r\n\r\n";
+            // feed the body byte by byte to exercise every state transition
+            Assert.assertEquals("hello, world", parseContent(body, -1, true, 1));
+            Assert.assertEquals("hello, world", parseContent(body, -1, true, body.length()));
+        });
+    }
+
+    @Test
+    public void testContentParserFixedLength() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Assert.assertEquals("hello", parseContent("hello", 5, false, 2));
+            Assert.assertEquals("", parseContent("", 0, false, 1));
+        });
+    }
+
+    @Test
+    public void testContentParserInvalidChunkSize() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try {
+                parseContent("zz\r\nhello\r\n0\r\n\r\n", -1, true, 16);
+                Assert.fail();
+            } catch (HttpException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "chunk");
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidLineRejectsRequest() throws Exception {
+        runServer(1000, (engine, compiler, executionContext) -> {
+            try (LineHttpSender sender = LineHttpSender.newSender(Net.parseIPv4("127.0.0.1"), PORT, 1024)) {
+                sender.table("x").longColumn("a", 1).atNow();
+                sender.put("x a\n");
+                try {
+                    sender.flush();
+                    Assert.fail();
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "could not parse line");
+                }
+                Assert.assertEquals(400, sender.getStatus());
+
+                // connection is still usable
+                sender.table("x").longColumn("a", 2).at(1_000_000);
+                sender.flush();
+                Assert.assertEquals(204, sender.getStatus());
+            }
+
+            drainWalQueue(engine);
+            TestUtils.assertSql(compiler, executionContext, "x", new StringSink(), "a\ttimestamp\n" +
+                    "2\t1970-01-01T00:00:00.001000Z\n");
+        });
+    }
+
+    @Test
+    public void testLaggingTableIsRejected() throws Exception {
+        runServer(1, (engine, compiler, executionContext) -> {
+            try (LineHttpSender sender = LineHttpSender.newSender(Net.parseIPv4("127.0.0.1"), PORT, 1024)) {
+                sender.table("x").longColumn("a", 1).at(1_000_000);
+                sender.flush();
+                Assert.assertEquals(204, sender.getStatus());
+                sender.table("x").longColumn("a", 2).at(2_000_000);
+                sender.flush();
+                Assert.assertEquals(204, sender.getStatus());
+
+                // neither of the transactions is applied yet
+                sender.table("x").longColumn("a", 0).at(2_500_000);
+                try {
+                    sender.flush();
+                    Assert.fail();
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "table is lagging behind");
+                }
+                Assert.assertEquals(429, sender.getStatus());
+                Assert.assertEquals(1, sender.getRetryAfter());
+
+                drainWalQueue(engine);
+                sender.table("x").longColumn("a", 3).at(3_000_000);
+                sender.flush();
+                Assert.assertEquals(204, sender.getStatus());
+                Assert.assertEquals(-1, sender.getRetryAfter());
+            }
+
+            drainWalQueue(engine);
+            TestUtils.assertSql(compiler, executionContext, "x", new StringSink(), "a\ttimestamp\n" +
+                    "1\t1970-01-01T00:00:00.001000Z\n" +
+                    "2\t1970-01-01T00:00:00.002000Z\n" +
+                    "3\t1970-01-01T00:00:00.003000Z\n");
+        });
+    }
+
+    @Test
+    public void testRowsSpanMultipleChunks() throws Exception {
+        runServer(1000, (engine, compiler, executionContext) -> {
+            // small sender buffer makes every few rows a separate chunk of the same request
+            try (LineHttpSender sender = LineHttpSender.newSender(Net.parseIPv4("127.0.0.1"), PORT, 64)) {
+                for (int i = 0; i < 100; i++) {
+                    sender.table("x").symbol("s", "sym" + (i % 3)).longColumn("a", i).at(i * 1000L);
+                }
+                sender.flush();
+                Assert.assertEquals(204, sender.getStatus());
+            }
+
+            drainWalQueue(engine);
+            TestUtils.assertSql(compiler, executionContext, "select s, count(), sum(a) from x order by s", new StringSink(), "s\tcount\tsum\n" +
+                    "sym0\t34\t1683\n" +
+                    "sym1\t33\t1617\n" +
+                    "sym2\t33\t1650\n");
+        });
+    }
+
+    @Test
+    public void testTableIsNotVisibleBeforeFlush() throws Exception {
+        runServer(1000, (engine, compiler, executionContext) -> {
+            try (LineHttpSender sender = LineHttpSender.newSender(Net.parseIPv4("127.0.0.1"), PORT, 1024)) {
+                sender.table("x").longColumn("a", 1).at(1_000_000);
+                sender.table("y").longColumn("b", 2).at(1_000_000);
+                Assert.assertEquals(-1, sender.getStatus());
+                sender.flush();
+                Assert.assertEquals(204, sender.getStatus());
+            }
+
+            drainWalQueue(engine);
+            TestUtils.assertSql(compiler, executionContext, "x", new StringSink(), "a\ttimestamp\n" +
+                    "1\t1970-01-01T00:00:00.001000Z\n");
+            TestUtils.assertSql(compiler, executionContext, "y", new StringSink(), "b\ttimestamp\n" +
+                    "2\t1970-01-01T00:00:00.001000Z\n");
+            Assert.assertTrue(engine.isWalTable(engine.getTableToken("x")));
+        });
+    }
+
+    private static void drainWalQueue(CairoEngine engine) {
+        try (ApplyWal2TableJob walApplyJob = new ApplyWal2TableJob(engine, 1, 1, null)) {
+            CheckWalTransactionsJob checkWalTransactionsJob = new CheckWalTransactionsJob(engine);
+            //noinspection StatementWithEmptyBody
+            while (walApplyJob.run(0) || checkWalTransactionsJob.run(0)) {
+            }
+        }
+    }
+
+    private static String parseContent(String content, long contentLength, boolean chunked, int step) throws Exception {
+        final StringSink sink = new StringSink();
+        final HttpContentListener listener = (lo, hi) -> {
+            for (long p = lo; p < hi; p++) {
+                sink.put((char) Unsafe.getUnsafe().getByte(p));
+            }
+        };
+        final int len = content.length();
+        final long buf = Unsafe.malloc(Math.max(len, 1), MemoryTag.NATIVE_DEFAULT);
+        try {
+            Chars.asciiStrCpy(content, len, buf);
+            final HttpContentParser parser = new HttpContentParser();
+            parser.of(contentLength, chunked);
+            boolean done = parser.isDone();
+            for (int i = 0; i < len && !done; i += step) {
+                done = parser.parse(buf + i, buf + Math.min(i + step, len), listener);
+            }
+            Assert.assertTrue(done);
+            return sink.toString();
+        } finally {
+            Unsafe.free(buf, Math.max(len, 1), MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    private void runServer(long maxWalLag, LineHttpCode code) throws Exception {
+        new HttpQueryTestBuilder()
+                .withWorkerCount(1)
+                .withTempFolder(temp)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withLineHttpMaxWalLag(maxWalLag))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        code.run(engine, compiler, executionContext);
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface LineHttpCode {
+        void run(CairoEngine engine, SqlCompiler compiler, SqlExecutionContextImpl executionContext) throws SqlException;
+    }
+}
@@ -278,7 +278,7 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
                 lineTcpConfiguration,
                 engine,
                 createWorkerPool(1, true),
-                null,
+                (IODispatcher<LineTcpConnectionContext>) null,
                 workerPool = createWorkerPool(nWriterThreads, false)
         ) {
 
@@ -291,7 +291,7 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
             @Override
             public boolean scheduleEvent(
                     CairoSecurityContext securityContext, NetworkIOJob netIoJob,
-                    LineTcpConnectionContext context,
+                    TableUpdateDetailsCache context,
                     LineTcpParser parser
             ) {
                 if (null != onCommitNewEvent) {
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.cairo.SqlWalMode;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.cutlass.line.LineTcpColumnarSender;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.network.Net;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.fail;
+
+public class LineTcpColumnarSenderTest extends AbstractLineTcpReceiverTest {
+    private final static int HOST = Net.parseIPv4("127.0.0.1");
+
+    @Before
+    public void setUp() {
+        configOverrideDefaultTableWriteMode(SqlWalMode.WAL_ENABLED);
+        super.setUp();
+    }
+
+    @Test
+    public void testAllColumnTypes() throws Exception {
+        runInContext(r -> {
+            long ts = IntervalUtils.parseFloorPartialTimestamp("2023-01-01") * 1000;
+            try (LineTcpColumnarSender sender = LineTcpColumnarSender.newSender(HOST, bindPort, 1024)) {
+                sender.table("mytable")
+                        .symbol("sym", "a")
+                        .stringColumn("str", "hello")
+                        .longColumn("l", 42)
+                        .doubleColumn("d", 1.5)
+                        .boolColumn("b", true)
+                        .timestampColumn("ts", 1_000_000)
+                        .at(ts);
+                sender.table("mytable")
+                        .symbol("sym", "b")
+                        .longColumn("l", 43)
+                        .at(ts + 1_000_000_000L);
+                sender.table("mytable")
+                        .stringColumn("str", "привет")
+                        .symbol("sym", "a")
+                        .doubleColumn("d", 2.5)
+                        .at(ts + 2_000_000_000L);
+                sender.table("mytable")
+                        .symbol("sym", null)
+                        .stringColumn("str", null)
+                        .at(ts + 3_000_000_000L);
+            }
+
+            assertTableEventually(
+                    "sym\tstr\tl\td\tb\tts\ttimestamp\n" +
+                            "a\thello\t42\t1.5\ttrue\t1970-01-01T00:00:01.000000Z\t2023-01-01T00:00:00.000000Z\n" +
+                            "b\t\t43\tNaN\tfalse\t\t2023-01-01T00:00:01.000000Z\n" +
+                            "a\tпривет\tNaN\t2.5\tfalse\t\t2023-01-01T00:00:02.000000Z\n" +
+                            "\t\tNaN\tNaN\tfalse\t\t2023-01-01T00:00:03.000000Z\n",
+                    "mytable"
+            );
+        });
+    }
+
+    @Test
+    public void testBlocksSplitByBufferCapacity() throws Exception {
+        runInContext(r -> {
+            long ts = IntervalUtils.parseFloorPartialTimestamp("2023-01-01") * 1000;
+            StringBuilder expected = new StringBuilder("sym\tl\tstr\ttimestamp\n");
+            try (LineTcpColumnarSender sender = LineTcpColumnarSender.newSender(HOST, bindPort, 256)) {
+                for (int i = 0; i < 100; i++) {
+                    sender.table("mytable").symbol("sym", "s" + i % 3).longColumn("l", i);
+                    if (i % 2 == 0) {
+                        sender.stringColumn("str", "v" + i);
+                    }
+                    sender.at(ts + i * 1_000_000_000L);
+                    expected.append('s').append(i % 3).append('\t')
+                            .append(i).append('\t')
+                            .append(i % 2 == 0 ? "v" + i : "").append('\t')
+                            .append(String.format("2023-01-01T00:%02d:%02d.000000Z", i / 60, i % 60)).append('\n');
+                }
+            }
+            assertTableEventually(expected, "mytable");
+        });
+    }
+
+    @Test
+    public void testRowDoesNotFitBuffer() throws Exception {
+        runInContext(r -> {
+            try (LineTcpColumnarSender sender = LineTcpColumnarSender.newSender(HOST, bindPort, 64)) {
+                try {
+                    sender.table("mytable").stringColumn("str", "a value that does not fit the block of 64 bytes").atNow();
+                    fail();
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "row does not fit the buffer [capacity=64]");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testTableSwitch() throws Exception {
+        runInContext(r -> {
+            long ts = IntervalUtils.parseFloorPartialTimestamp("2023-01-01") * 1000;
+            try (LineTcpColumnarSender sender = LineTcpColumnarSender.newSender(HOST, bindPort, 1024)) {
+                for (int i = 0; i < 3; i++) {
+                    sender.table("t1").longColumn("x", i).at(ts + i * 1_000_000_000L);
+                    sender.table("t2").doubleColumn("y", i + 0.5).at(ts + i * 1_000_000_000L);
+                }
+            }
+            assertTableEventually(
+                    "x\ttimestamp\n" +
+                            "0\t2023-01-01T00:00:00.000000Z\n" +
+                            "1\t2023-01-01T00:00:01.000000Z\n" +
+                            "2\t2023-01-01T00:00:02.000000Z\n",
+                    "t1"
+            );
+            assertTableEventually(
+                    "y\ttimestamp\n" +
+                            "0.5\t2023-01-01T00:00:00.000000Z\n" +
+                            "1.5\t2023-01-01T00:00:01.000000Z\n" +
+                            "2.5\t2023-01-01T00:00:02.000000Z\n",
+                    "t2"
+            );
+        });
+    }
+
+    @Test
+    public void testTextProtocolAfterColumnarConnection() throws Exception {
+        runInContext(r -> {
+            long ts = IntervalUtils.parseFloorPartialTimestamp("2023-01-01") * 1000;
+            try (LineTcpColumnarSender sender = LineTcpColumnarSender.newSender(HOST, bindPort, 1024)) {
+                sender.table("mytable").longColumn("x", 1).at(ts);
+            }
+            send("mytable", WAIT_NO_WAIT, () -> sendToSocket("mytable x=2i " + (ts + 1_000_000_000L) + "\n"));
+            assertTableEventually(
+                    "x\ttimestamp\n" +
+                            "1\t2023-01-01T00:00:00.000000Z\n" +
+                            "2\t2023-01-01T00:00:01.000000Z\n",
+                    "mytable"
+            );
+        });
+    }
+
+    private void assertTableEventually(CharSequence expected, CharSequence tableName) {
+        assertTableExistsEventually(engine, tableName);
+        TestUtils.assertEventually(() -> {
+            drainWalQueue();
+            assertTable(expected, tableName);
+        });
+    }
+}
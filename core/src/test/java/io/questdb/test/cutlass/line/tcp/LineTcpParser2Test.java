@@ -143,6 +143,25 @@ public class LineTcpParser2Test extends LineUdpLexerTest {
         );
     }
 
+    @Test
+    public void testLongRunsOfRegularBytes() {
+        // runs longer than a word, with special bytes at every offset within a word
+        assertThat(
+                "measurement_with_long_name,tag_name_longer_than_word=value_longer_than_word field_name_longer=\"quoted value longer than word\",x=1i 1465839830102351000\n",
+                "measurement_with_long_name,tag_name_longer_than_word=value_longer_than_word field_name_longer=\"quoted value longer than word\",x=1i 1465839830102351000\n"
+        );
+
+        assertThat(
+                "measurement_with_long_name,tag_name_longer_than_word=value_longer_than_wordé field_name_longer=\"quoted value\" longer than wordé\" 1465839830102351000--non ascii--\n",
+                "measurement_with_long_name,tag_name_longer_than_word=value_longer_than_wordé field_name_longer=\"quoted value\\\" longer than wordé\" 1465839830102351000\n"
+        );
+
+        assertThat(
+                "measurement_with_long_name field_name_longer=\"quoted value longer than wordé\" 1465839830102351000--non ascii--\n",
+                "measurement_with_long_name field_name_longer=\"quoted value longer than wordé\" 1465839830102351000\n"
+        );
+    }
+
     @Test
     public void testMangledMeasurementNameFromBothEnds() {
         assertThat(
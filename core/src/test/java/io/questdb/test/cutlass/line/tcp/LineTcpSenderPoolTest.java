@@ -0,0 +1,157 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.cutlass.line.LineTcpAsyncSender;
+import io.questdb.cutlass.line.LineTcpSenderPool;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Os;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LineTcpSenderPoolTest extends AbstractLineTcpReceiverTest {
+    private final static int HOST = Net.parseIPv4("127.0.0.1");
+
+    @Test
+    public void testAutoFlushBytes() throws Exception {
+        runInContext(r -> {
+            try (LineTcpSenderPool pool = newPool(1, 1024, Integer.MAX_VALUE, 30, -1)) {
+                try (LineTcpAsyncSender sender = pool.newSender()) {
+                    // each row is 18 bytes, the second row crosses the limit
+                    sender.table("x").longColumn("a", 1).at(1_000_000_000);
+                    sender.table("x").longColumn("a", 2).at(2_000_000_000);
+                    sender.table("x").longColumn("a", 3).at(3_000_000_000L);
+                    pool.awaitSent();
+                    assertTableSizeEventually(engine, "x", 2);
+                }
+            }
+            assertTableSizeEventually(engine, "x", 3);
+        });
+    }
+
+    @Test
+    public void testAutoFlushInterval() throws Exception {
+        runInContext(r -> {
+            try (LineTcpSenderPool pool = newPool(1, 1024, Integer.MAX_VALUE, Integer.MAX_VALUE, 1)) {
+                try (LineTcpAsyncSender sender = pool.newSender()) {
+                    sender.table("x").longColumn("a", 1).at(1_000_000_000);
+                    Os.sleep(10);
+                    // interval is checked when a row is added
+                    sender.table("x").longColumn("a", 2).at(2_000_000_000);
+                    pool.awaitSent();
+                    assertTableSizeEventually(engine, "x", 2);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testAutoFlushRows() throws Exception {
+        runInContext(r -> {
+            try (LineTcpSenderPool pool = newPool(1, 1024, 2, Integer.MAX_VALUE, -1)) {
+                try (LineTcpAsyncSender sender = pool.newSender()) {
+                    sender.table("x").longColumn("a", 1).at(1_000_000_000);
+                    sender.table("x").longColumn("a", 2).at(2_000_000_000);
+                    sender.table("x").longColumn("a", 3).at(3_000_000_000L);
+                    pool.awaitSent();
+                    assertTableSizeEventually(engine, "x", 2);
+                }
+            }
+            assertTableSizeEventually(engine, "x", 3);
+            assertTable("a\ttimestamp\n" +
+                    "1\t1970-01-01T00:00:01.000000Z\n" +
+                    "2\t1970-01-01T00:00:02.000000Z\n" +
+                    "3\t1970-01-01T00:00:03.000000Z\n", "x");
+        });
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final int producerCount = 4;
+        final int rowCount = 10_000;
+        runInContext(r -> {
+            final AtomicInteger errors = new AtomicInteger();
+            final SOCountDownLatch doneLatch = new SOCountDownLatch(producerCount);
+            // small buffers and queue make producers wait for I/O threads
+            try (LineTcpSenderPool pool = newPool(2, 256, 100, Integer.MAX_VALUE, -1)) {
+                for (int i = 0; i < producerCount; i++) {
+                    final int producer = i;
+                    new Thread(() -> {
+                        try (LineTcpAsyncSender sender = pool.newSender()) {
+                            for (int j = 0; j < rowCount; j++) {
+                                sender.table("x")
+                                        .symbol("producer", "p" + producer)
+                                        .longColumn("a", j)
+                                        .at((j * producerCount + producer) * 1_000L);
+                            }
+                        } catch (Throwable th) {
+                            th.printStackTrace();
+                            errors.incrementAndGet();
+                        } finally {
+                            doneLatch.countDown();
+                        }
+                    }).start();
+                }
+                doneLatch.await();
+            }
+            Assert.assertEquals(0, errors.get());
+            assertTableSizeEventually(engine, "x", producerCount * rowCount);
+        });
+    }
+
+    @Test
+    public void testNewSenderAfterClose() throws Exception {
+        runInContext(r -> {
+            LineTcpSenderPool pool = newPool(1, 1024, Integer.MAX_VALUE, Integer.MAX_VALUE, -1);
+            pool.close();
+            try {
+                pool.newSender();
+                Assert.fail();
+            } catch (LineSenderException e) {
+                TestUtils.assertContains(e.getMessage(), "sender pool is closed");
+            }
+        });
+    }
+
+    private LineTcpSenderPool newPool(int connectionCount, int bufferCapacity, int autoFlushRows, int autoFlushBytes, long autoFlushIntervalMillis) {
+        return new LineTcpSenderPool(
+                NetworkFacadeImpl.INSTANCE,
+                HOST,
+                bindPort,
+                connectionCount,
+                bufferCapacity,
+                2,
+                autoFlushRows,
+                autoFlushBytes,
+                autoFlushIntervalMillis
+        );
+    }
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cutlass.line.tcp.SharedSymbolCache;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedSymbolCacheTest {
+
+    @Test
+    public void testCloseResetsCache() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 1000;
+            try (SharedSymbolCache cache = new SharedSymbolCache(16, Integer.MAX_VALUE)) {
+                final int initialCapacity = cache.capacity();
+                withValues(N, (mem, lo) -> {
+                    final DirectByteCharSequence value = new DirectByteCharSequence();
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertTrue(cache.put(value(mem, lo, i, value), i));
+                    }
+                    Assert.assertEquals(N, cache.size());
+                    Assert.assertTrue(cache.capacity() > N);
+
+                    cache.close();
+                    Assert.assertEquals(0, cache.size());
+                    Assert.assertEquals(initialCapacity, cache.capacity());
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(value(mem, lo, 0, value)));
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testConcurrentPutAndGet() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 20_000;
+            final int threadCount = 4;
+            try (SharedSymbolCache cache = new SharedSymbolCache(16, Integer.MAX_VALUE)) {
+                withValues(N, (mem, lo) -> {
+                    final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+                    final AtomicInteger errors = new AtomicInteger();
+                    final Thread[] threads = new Thread[threadCount];
+                    for (int t = 0; t < threadCount; t++) {
+                        final int offset = t;
+                        threads[t] = new Thread(() -> {
+                            final DirectByteCharSequence value = new DirectByteCharSequence();
+                            try {
+                                barrier.await();
+                                for (int i = 0; i < N; i++) {
+                                    // threads walk the values in different order
+                                    final int k = (i + offset * (N / threadCount)) % N;
+                                    value(mem, lo, k, value);
+                                    final int key = cache.keyOf(value);
+                                    if (key == SymbolTable.VALUE_NOT_FOUND) {
+                                        cache.put(value, k);
+                                    } else if (key != k) {
+                                        errors.incrementAndGet();
+                                    }
+                                }
+                            } catch (Throwable e) {
+                                e.printStackTrace();
+                                errors.incrementAndGet();
+                            }
+                        });
+                        threads[t].start();
+                    }
+                    for (Thread thread : threads) {
+                        thread.join();
+                    }
+                    Assert.assertEquals(0, errors.get());
+                    Assert.assertEquals(N, cache.size());
+
+                    final DirectByteCharSequence value = new DirectByteCharSequence();
+                    for (int i = 0; i < N; i++) {
+                        Assert.assertEquals(i, cache.keyOf(value(mem, lo, i, value)));
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int maxSize = 100;
+            try (SharedSymbolCache cache = new SharedSymbolCache(16, maxSize)) {
+                withValues(2 * maxSize, (mem, lo) -> {
+                    final DirectByteCharSequence value = new DirectByteCharSequence();
+                    for (int i = 0; i < 2 * maxSize; i++) {
+                        Assert.assertEquals(i < maxSize, cache.put(value(mem, lo, i, value), i));
+                    }
+                    Assert.assertEquals(maxSize, cache.size());
+                    for (int i = 0; i < 2 * maxSize; i++) {
+                        Assert.assertEquals(i < maxSize ? i : SymbolTable.VALUE_NOT_FOUND, cache.keyOf(value(mem, lo, i, value)));
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testNonAsciiValues() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final String[] values = {"", "a", "ветер", "hőmérséklet", "लаблअца", "a somewhat longer value to cross word boundaries"};
+            final long size = 1024;
+            final long mem = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try (SharedSymbolCache cache = new SharedSymbolCache(2, Integer.MAX_VALUE)) {
+                final DirectByteCharSequence value = new DirectByteCharSequence();
+                for (int i = 0; i < values.length; i++) {
+                    Assert.assertTrue(cache.put(copy(values[i], mem, value), i));
+                }
+                for (int i = 0; i < values.length; i++) {
+                    Assert.assertEquals(i, cache.keyOf(copy(values[i], mem, value)));
+                }
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(copy("ветерок", mem, value)));
+            } finally {
+                Unsafe.free(mem, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    private static DirectByteCharSequence copy(String str, long mem, DirectByteCharSequence value) {
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+        }
+        return value.of(mem, mem + bytes.length);
+    }
+
+    // values are "sym<i>" strings stored at offsets kept in lo array
+    private static DirectByteCharSequence value(long mem, long[] lo, int i, DirectByteCharSequence value) {
+        return value.of(mem + lo[i], mem + lo[i + 1]);
+    }
+
+    private static void withValues(int count, ValuesCode code) throws Exception {
+        final long[] lo = new long[count + 1];
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lo[i] = sb.length();
+            sb.append("sym").append(i);
+        }
+        lo[count] = sb.length();
+        final long size = sb.length();
+        final long mem = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+        try {
+            for (int i = 0; i < size; i++) {
+                Unsafe.getUnsafe().putByte(mem + i, (byte) sb.charAt(i));
+            }
+            code.run(mem, lo);
+        } finally {
+            Unsafe.free(mem, size, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ValuesCode {
+        void run(long mem, long[] lo) throws Exception;
+    }
+}
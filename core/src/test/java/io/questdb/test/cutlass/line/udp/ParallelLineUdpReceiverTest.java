@@ -0,0 +1,220 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.udp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.line.LineUdpSender;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.DefaultLineUdpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.ParallelLineUdpReceiver;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Os;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelLineUdpReceiverTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(ParallelLineUdpReceiverTest.class);
+    private static final int PORT = 9177;
+    private static final int WORKER_COUNT = 2;
+    private final LineUdpReceiverConfiguration udpConfiguration = new DefaultLineUdpReceiverConfiguration() {
+        @Override
+        public int getBindIPv4Address() {
+            return Net.parseIPv4("127.0.0.1");
+        }
+
+        @Override
+        public int getMsgCount() {
+            return 16;
+        }
+
+        @Override
+        public int getPort() {
+            return PORT;
+        }
+
+        @Override
+        public boolean isUnicast() {
+            return true;
+        }
+    };
+
+    @Test
+    public void testBadLinesAreCounted() throws Exception {
+        assertReceiver(udpConfiguration, receiver -> {
+            try (LineUdpSender sender = new LineUdpSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("127.0.0.1"), PORT, 1400, 1)) {
+                sender.metric("weather").field("temp", 10.5).$(1000000000L);
+                sender.put("weather temp=12.5 not_a_timestamp\n");
+                sender.metric("weather").field("temp", 11.5).$(2000000000L);
+                sender.flush();
+            }
+
+            TestUtils.assertEventually(() -> {
+                long rows = 0;
+                long errors = 0;
+                for (int i = 0; i < WORKER_COUNT; i++) {
+                    rows += receiver.getRowCount(i);
+                    errors += receiver.getErrorCount(i);
+                }
+                Assert.assertEquals(2, rows);
+                Assert.assertEquals(1, errors);
+            });
+            assertTableEventually(
+                    "weather",
+                    "temp\ttimestamp\n" +
+                            "10.5\t1970-01-01T00:00:01.000000Z\n" +
+                            "11.5\t1970-01-01T00:00:02.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testCannotSetReusePort() throws Exception {
+        final LineUdpReceiverConfiguration configuration = new DefaultLineUdpReceiverConfiguration() {
+            @Override
+            public NetworkFacade getNetworkFacade() {
+                return new NetworkFacadeImpl() {
+                    @Override
+                    public int setReusePort(int fd) {
+                        return -1;
+                    }
+                };
+            }
+
+            @Override
+            public boolean isUnicast() {
+                return true;
+            }
+        };
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(AbstractCairoTest.configuration)) {
+                final WorkerPool ioPool = new TestWorkerPool("ilpudp", WORKER_COUNT);
+                final WorkerPool writerPool = new TestWorkerPool("ilpwriter", 1);
+                try {
+                    new ParallelLineUdpReceiver(configuration, new DefaultLineTcpReceiverConfiguration(), engine, ioPool, writerPool);
+                    Assert.fail();
+                } catch (NetworkError e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "could not set SO_REUSEPORT");
+                } finally {
+                    ioPool.halt();
+                    writerPool.halt();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testReceiveFromManySenders() throws Exception {
+        final int senderCount = 8;
+        final int rowsPerSender = 100;
+        assertReceiver(udpConfiguration, receiver -> {
+            // each sender binds its own ephemeral port, kernel spreads senders between the sockets
+            for (int s = 0; s < senderCount; s++) {
+                try (LineUdpSender sender = new LineUdpSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("127.0.0.1"), PORT, 1400, 1)) {
+                    for (int i = 0; i < rowsPerSender; i++) {
+                        sender.metric("ticks").tag("sender", "s" + s).field("value", i).$((s * rowsPerSender + i) * 1000L);
+                    }
+                    sender.flush();
+                }
+                // datagrams are dropped when receive buffer overflows, do not outrun the receiver
+                Os.sleep(10);
+            }
+
+            TestUtils.assertEventually(() -> {
+                long rows = 0;
+                for (int i = 0; i < WORKER_COUNT; i++) {
+                    rows += receiver.getRowCount(i);
+                }
+                Assert.assertEquals(senderCount * rowsPerSender, rows);
+            });
+
+            long received = 0;
+            for (int i = 0; i < WORKER_COUNT; i++) {
+                Assert.assertEquals(0, receiver.getDroppedCount(i));
+                Assert.assertEquals(0, receiver.getErrorCount(i));
+                received += receiver.getReceivedCount(i);
+                LOG.info().$("worker [id=").$(i)
+                        .$(", received=").$(receiver.getReceivedCount(i))
+                        .$(", rows=").$(receiver.getRowCount(i))
+                        .$(", laggingBatches=").$(receiver.getLaggingBatchCount(i))
+                        .I$();
+            }
+            Assert.assertTrue(received > 0);
+            assertTableEventually("select count() from ticks", "count\n" + senderCount * rowsPerSender + "\n");
+        });
+    }
+
+    private void assertReceiver(LineUdpReceiverConfiguration udpConfiguration, ReceiverCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final LineTcpReceiverConfiguration lineConfiguration = new DefaultLineTcpReceiverConfiguration() {
+                @Override
+                public long getCommitInterval() {
+                    return 1;
+                }
+            };
+            final WorkerPool ioPool = new TestWorkerPool("ilpudp", WORKER_COUNT);
+            final WorkerPool writerPool = new TestWorkerPool("ilpwriter", 1);
+            try (ParallelLineUdpReceiver receiver = new ParallelLineUdpReceiver(udpConfiguration, lineConfiguration, engine, ioPool, writerPool)) {
+                Assert.assertEquals(WORKER_COUNT, receiver.getWorkerCount());
+                ioPool.start(LOG);
+                writerPool.start(LOG);
+                try {
+                    code.run(receiver);
+                } finally {
+                    ioPool.halt();
+                    writerPool.halt();
+                }
+            }
+            engine.releaseAllWriters();
+            engine.releaseAllReaders();
+        });
+    }
+
+    private void assertTableEventually(String query, String expected) {
+        TestUtils.assertEventually(() -> {
+            try {
+                assertSql(query, expected);
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ReceiverCode {
+        void run(ParallelLineUdpReceiver receiver) throws Exception;
+    }
+}
@@ -64,9 +64,15 @@ import org.postgresql.jdbc.PgResultSet;
 import org.postgresql.util.PGTimestamp;
 import org.postgresql.util.PSQLException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.*;
 import java.text.SimpleDateFormat;
@@ -1965,29 +1971,240 @@ if __name__ == "__main__":
     }
 
     @Test
-    @Ignore
-    public void testCopyIn() throws SQLException {
-        try (
-                final PGWireServer server = createPGServer(2);
-                final WorkerPool workerPool = server.getWorkerPool()
-        ) {
-            workerPool.start(LOG);
-            try (final Connection connection = getConnection(server.getPort(), false, true)) {
-                PreparedStatement stmt = connection.prepareStatement("create table tab (a int, b int)");
-                stmt.execute();
+    public void testCopyIn() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a int, b string, c symbol, ts timestamp) timestamp(ts) partition by DAY").execute();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            final String text = "1\thello\\tworld\tx\t2020-01-01T00:00:00.000000Z\n" +
+                    "\\N\t\\N\t\\N\t2020-01-02T10:00:00.000000Z\n" +
+                    "3\tback\\\\slash\ty\t2020-01-03T00:00:00.000000Z\n" +
+                    "\\.\n";
+            Assert.assertEquals(3, copyManager.copyIn("copy tab from stdin", new StringReader(text)));
+            mayDrainWalQueue();
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "tab",
+                    sink,
+                    "a\tb\tc\tts\n" +
+                            "1\thello\tworld\tx\t2020-01-01T00:00:00.000000Z\n" +
+                            "NaN\t\t\t2020-01-02T10:00:00.000000Z\n" +
+                            "3\tback\\slash\ty\t2020-01-03T00:00:00.000000Z\n"
+            );
+        });
+    }
 
-                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+    @Test
+    public void testCopyInBinary() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a int, b long, c string, ts timestamp) timestamp(ts) partition by DAY").execute();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.write("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+            for (int i = 0; i < 3; i++) {
+                out.writeShort(4);
+                out.writeInt(4);
+                out.writeInt(i);
+                if (i == 1) {
+                    out.writeInt(-1);
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(8);
+                    out.writeLong(i * 1000L);
+                    final byte[] str = ("ы" + i).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(str.length);
+                    out.write(str);
+                }
+                out.writeInt(8);
+                // PG epoch starts at 2000
+                out.writeLong(i * Timestamps.HOUR_MICROS - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+            }
+            out.writeShort(-1);
+            out.flush();
+
+            final CopyIn copyIn = new CopyManager((BaseConnection) connection).copyIn("copy tab from stdin with (format binary)");
+            // tuples are split across CopyData messages
+            final byte[] data = bytes.toByteArray();
+            for (int lo = 0; lo < data.length; lo += 7) {
+                copyIn.writeToCopy(data, lo, Math.min(7, data.length - lo));
+            }
+            Assert.assertEquals(3, copyIn.endCopy());
+            mayDrainWalQueue();
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "tab",
+                    sink,
+                    "a\tb\tc\tts\n" +
+                            "0\t0\tы0\t1970-01-01T00:00:00.000000Z\n" +
+                            "1\tNaN\t\t1970-01-01T01:00:00.000000Z\n" +
+                            "2\t2000\tы2\t1970-01-01T02:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyInBinaryInvalidLengths() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a boolean, b int, c long)").execute();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+
+            assertCopyInBinaryFails(copyManager, -1, 1, 1, 4, 8, "invalid COPY binary header extension length [len=-1]");
+            assertCopyInBinaryFails(copyManager, Integer.MIN_VALUE, 1, 1, 4, 8, "invalid COPY binary header extension length [len=-2147483648]");
+            assertCopyInBinaryFails(copyManager, 0, 1, 0, 4, 8, "invalid binary field length [row=0, column=a, type=BOOLEAN, len=0]");
+            assertCopyInBinaryFails(copyManager, 0, 1, 1, 8, 8, "invalid binary field length [row=0, column=b, type=INT, len=8]");
+            assertCopyInBinaryFails(copyManager, 0, 1, 1, 4, 4, "invalid binary field length [row=0, column=c, type=LONG, len=4]");
+            assertCopyInBinaryFails(copyManager, 0, 1, 1, -2, 8, "invalid binary field length [row=0, column=b, type=INT, len=-2]");
+            // rows appended before the invalid tuple are rolled back
+            assertCopyInBinaryFails(copyManager, 0, 2, 1, 4, 1, "invalid binary field length [row=1, column=c, type=LONG, len=1]");
+
+            mayDrainWalQueue();
+            TestUtils.assertSql(compiler, sqlExecutionContext, "tab", sink, "a\tb\tc\n");
+        });
+    }
 
-                CopyIn copyIn = copyManager.copyIn("copy tab from STDIN");
+    @Test
+    public void testCopyInCsvWithHeader() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a int, b string)").execute();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            final String text = "a,b\r\n" +
+                    "10,20\r\n" +
+                    ",\"x,\"\"y\"\"\"\r\n";
+            Assert.assertEquals(2, copyManager.copyIn("copy tab from stdin with (format csv, header true)", new StringReader(text)));
+            mayDrainWalQueue();
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "tab",
+                    sink,
+                    "a\tb\n" +
+                            "10\t20\n" +
+                            "NaN\tx,\"y\"\n"
+            );
+        });
+    }
 
-                String text = "a,b\r\n" +
-                        "10,20";
+    @Test
+    public void testCopyInInvalidValue() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a int, b string)").execute();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            try {
+                copyManager.copyIn("copy tab from stdin", new StringReader("1\tx\nabc\ty\n"));
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "invalid value [line=1, column=a, value=`abc`]");
+            }
+            // rows copied before the error are rolled back, connection is still usable
+            Assert.assertEquals(1, copyManager.copyIn("copy tab from stdin", new StringReader("2\tz\n")));
+            mayDrainWalQueue();
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "tab",
+                    sink,
+                    "a\tb\n" +
+                            "2\tz\n"
+            );
 
-                byte[] bytes = text.getBytes();
-                copyIn.writeToCopy(bytes, 0, bytes.length);
-                copyIn.endCopy();
+            try {
+                copyManager.copyIn("copy missing from stdin", new StringReader("1\n"));
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "table does not exist [table=missing]");
             }
-        }
+        });
+    }
+
+    @Test
+    public void testCopyOutCsv() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a long, b string, ts timestamp) timestamp(ts) partition by DAY").execute();
+            connection.prepareStatement(
+                    "insert into tab values (1, 'v,1\"', '1970-01-01T00:00:00'), (2, null, '1970-01-01T00:00:01'), (3, 'v,3\"', '1970-01-01T00:00:02')"
+            ).execute();
+            mayDrainWalQueue();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            final StringWriter writer = new StringWriter();
+            Assert.assertEquals(3, copyManager.copyOut("copy tab to stdout with (format csv, header true)", writer));
+            TestUtils.assertEquals(
+                    "a,b,ts\n" +
+                            "1,\"v,1\"\"\",1970-01-01 00:00:00.000000\n" +
+                            "2,,1970-01-01 00:00:01.000000\n" +
+                            "3,\"v,3\"\"\",1970-01-01 00:00:02.000000\n",
+                    writer.toString()
+            );
+        });
+    }
+
+    @Test
+    public void testCopyOutLargeResult() throws Exception {
+        skipOnWalRun(); // select only
+        assertMemoryLeak(() -> {
+            final PGWireConfiguration configuration = new Port0PGWireConfiguration() {
+                @Override
+                public int getSendBufferSize() {
+                    return 512;
+                }
+            };
+
+            try (
+                    final PGWireServer server = createPGServer(configuration);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, false)) {
+                    final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+                    final StringWriter writer = new StringWriter();
+                    Assert.assertEquals(1000, copyManager.copyOut("copy (select x, 'value_' || x from long_sequence(1000)) to stdout", writer));
+
+                    final StringSink expected = new StringSink();
+                    for (int i = 1; i <= 1000; i++) {
+                        expected.put(i).put('\t').put("value_").put(i).put('\n');
+                    }
+                    TestUtils.assertEquals(expected, writer.toString());
+
+                    // connection is ready for next query
+                    try (ResultSet rs = connection.createStatement().executeQuery("select 42")) {
+                        Assert.assertTrue(rs.next());
+                        Assert.assertEquals(42, rs.getInt(1));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyOutQuery() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
+            connection.prepareStatement("create table tab (a long, b string, ts timestamp) timestamp(ts) partition by DAY").execute();
+            connection.prepareStatement(
+                    "insert into tab values (1, 'v\t1', '1970-01-01T00:00:00'), (2, null, '1970-01-01T00:00:01'), (3, 'v\t3', '1970-01-01T00:00:02')"
+            ).execute();
+            mayDrainWalQueue();
+            final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+            final StringWriter writer = new StringWriter();
+            Assert.assertEquals(2, copyManager.copyOut("copy (select a, b, ts from tab where a > 1) to stdout", writer));
+            TestUtils.assertEquals(
+                    "2\t\\N\t1970-01-01 00:00:01.000000\n" +
+                            "3\tv\\t3\t1970-01-01 00:00:02.000000\n",
+                    writer.toString()
+            );
+
+            writer.getBuffer().setLength(0);
+            Assert.assertEquals(1, copyManager.copyOut("copy (select 'a\\b' s, null::int i) to stdout with (delimiter '|')", writer));
+            TestUtils.assertEquals("a\\\\b|\\N\n", writer.toString());
+
+            try {
+                copyManager.copyOut("copy tab to stdout with (format binary)", new StringWriter());
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "binary format is not supported for COPY TO STDOUT");
+            }
+        });
     }
 
     @Test
@@ -8435,6 +8652,45 @@ create table tab as (
         return count;
     }
 
+    private static void writeBinaryField(DataOutputStream out, int len) throws IOException {
+        out.writeInt(len);
+        for (int i = 0; i < len; i++) {
+            out.writeByte(1);
+        }
+    }
+
+    private void assertCopyInBinaryFails(
+            CopyManager copyManager,
+            int extensionLen,
+            int tupleCount,
+            int boolLen,
+            int intLen,
+            int longLen,
+            String expectedError
+    ) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.write("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.writeInt(0);
+        out.writeInt(extensionLen);
+        for (int i = 0; i < tupleCount; i++) {
+            // the last tuple carries the given lengths, earlier ones are valid
+            final boolean last = i == tupleCount - 1;
+            out.writeShort(3);
+            writeBinaryField(out, last ? boolLen : 1);
+            writeBinaryField(out, last ? intLen : 4);
+            writeBinaryField(out, last ? longLen : 8);
+        }
+        out.writeShort(-1);
+        out.flush();
+        try {
+            copyManager.copyIn("copy tab from stdin with (format binary)", new ByteArrayInputStream(bytes.toByteArray()));
+            Assert.fail();
+        } catch (PSQLException e) {
+            TestUtils.assertContains(e.getMessage(), expectedError);
+        }
+    }
+
     private void assertHexScript(String script) throws Exception {
         skipOnWalRun();
         final Rnd rnd = new Rnd();
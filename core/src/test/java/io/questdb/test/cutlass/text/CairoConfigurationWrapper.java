@@ -430,6 +430,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getParallelIndexThreshold();
     }
 
+    @Override
+    public long getPartitionCompressionInterval() {
+        return conf.getPartitionCompressionInterval();
+    }
+
+    @Override
+    public long getPartitionCompressionMinAge() {
+        return conf.getPartitionCompressionMinAge();
+    }
+
     @Override
     public int getPartitionPurgeListCapacity() {
         return conf.getPartitionPurgeListCapacity();
@@ -710,11 +720,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getSqlPageFrameMaxRows();
     }
 
+    @Override
+    public long getSqlParallelAsOfJoinLookback() {
+        return conf.getSqlParallelAsOfJoinLookback();
+    }
+
     @Override
     public int getSqlPageFrameMinRows() {
         return conf.getSqlPageFrameMinRows();
     }
 
+    @Override
+    public long getSqlQueryMemoryBudget() {
+        return conf.getSqlQueryMemoryBudget();
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return conf.getSqlSmallMapKeyCapacity();
@@ -755,6 +775,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getSqlSortValuePageSize();
     }
 
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return conf.getSqlSpillRoot();
+    }
+
+    @Override
+    public long getSqlSpillThreshold() {
+        return conf.getSqlSpillThreshold();
+    }
+
     @Override
     public int getStrFunctionMaxBufferLength() {
         return conf.getStrFunctionMaxBufferLength();
@@ -895,6 +925,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isParallelIndexingEnabled();
     }
 
+    @Override
+    public boolean isPartitionCompressionEnabled() {
+        return conf.isPartitionCompressionEnabled();
+    }
+
     @Override
     public boolean isReadOnlyInstance() {
         return conf.isReadOnlyInstance();
@@ -920,6 +955,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isSqlParallelFilterPreTouchEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return conf.isSqlParallelGroupByEnabled();
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return conf.isTableTypeConversionEnabled();
@@ -930,6 +970,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isWalSupported();
     }
 
+    @Override
+    public boolean isZoneMapsEnabled() {
+        return conf.isZoneMapsEnabled();
+    }
+
     @Override
     public boolean mangleTableDirNames() {
         return conf.mangleTableDirNames();
@@ -51,7 +51,7 @@ public class SqlExecutionContextStub implements SqlExecutionContext {
     }
 
     @Override
-    public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Nullable ColumnTypes keyTypes, boolean isOrdered, boolean baseSupportsRandomAccess) {
+    public void configureAnalyticContext(@Nullable VirtualRecord partitionByRecord, @Nullable RecordSink partitionBySink, @Nullable ColumnTypes keyTypes, boolean isOrdered, boolean baseSupportsRandomAccess, int framingMode, long rowsLo, int timestampIndex) {
     }
 
     @Override
@@ -133,6 +133,11 @@ public class SqlExecutionContextStub implements SqlExecutionContext {
         return false;
     }
 
+    @Override
+    public boolean isParallelGroupByEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isTimestampRequired() {
         return false;
@@ -171,6 +176,10 @@ public class SqlExecutionContextStub implements SqlExecutionContext {
     public void setParallelFilterEnabled(boolean parallelFilterEnabled) {
     }
 
+    @Override
+    public void setParallelGroupByEnabled(boolean parallelGroupByEnabled) {
+    }
+
     @Override
     public void setRandom(Rnd rnd) {
     }
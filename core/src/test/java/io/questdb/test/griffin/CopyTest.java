@@ -140,6 +140,41 @@ public class CopyTest extends AbstractGriffinTest {
         testCopy(insert, assertion);
     }
 
+    @Test
+    public void testCopyStdinOptions() throws SqlException {
+        CopyModel model = (CopyModel) compiler.testCompileModel("copy y from stdin with (format csv, header true, delimiter ';');", sqlExecutionContext);
+
+        assertEquals("y", model.getTarget().token.toString());
+        assertEquals("stdin", model.getFileName().token.toString());
+        assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+        assertTrue(model.isHeader());
+        assertEquals(';', model.getDelimiter());
+
+        model = (CopyModel) compiler.testCompileModel("copy y from stdin binary;", sqlExecutionContext);
+        assertEquals(CopyModel.FORMAT_BINARY, model.getFormat());
+        assertFalse(model.isHeader());
+    }
+
+    @Test
+    public void testCopyStdinRejectsBinaryHeader() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy y from stdin with (format binary, header true)",
+                null,
+                12,
+                "binary format does not support header and delimiter options"
+        ));
+    }
+
+    @Test
+    public void testCopyStdoutRejectsBinary() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy (select 1) to stdout with (format binary)",
+                null,
+                19,
+                "binary format is not supported for COPY TO STDOUT"
+        ));
+    }
+
     @Test
     public void testCopyThrowsExceptionOnEmptyDelimiter() throws Exception {
         assertMemoryLeak(() -> {
@@ -30,11 +30,12 @@ import io.questdb.cairo.GenericRecordMetadata;
 import io.questdb.cairo.SqlJitMode;
 import io.questdb.cairo.TableColumnMetadata;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.functions.CursorFunction;
 import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
-import io.questdb.griffin.engine.functions.analytic.RowNumberFunctionFactory;
 import io.questdb.griffin.engine.functions.bool.InCharFunctionFactory;
 import io.questdb.griffin.engine.functions.bool.InTimestampStrFunctionFactory;
 import io.questdb.griffin.engine.functions.bool.InTimestampTimestampFunctionFactory;
@@ -48,13 +49,16 @@ import io.questdb.griffin.engine.functions.constants.*;
 import io.questdb.griffin.engine.functions.date.*;
 import io.questdb.griffin.engine.functions.eq.EqIntStrCFunctionFactory;
 import io.questdb.griffin.engine.functions.rnd.LongSequenceFunctionFactory;
+import io.questdb.griffin.engine.functions.table.ReadParquetFunctionFactory;
 import io.questdb.griffin.engine.functions.test.TestSumXDoubleGroupByFunctionFactory;
+import io.questdb.griffin.model.AnalyticColumn;
 import io.questdb.jit.JitUtil;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.StringSink;
 import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -286,6 +290,29 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "                Frame forward scan on: t\n");
     }
 
+    @Test
+    public void testAnalytic3() throws Exception {
+        assertPlan("create table t as ( select x::double d, rnd_symbol('a','b') s, x::timestamp ts from long_sequence(100)) timestamp(ts)",
+                "select ts, s, avg(d) over (partition by s order by ts rows between 10 preceding and current row), " +
+                        "max(d) over (order by ts range 1 minute preceding) from t",
+                "CachedAnalytic\n" +
+                        "  functions: [avg(d) over (partition by [s] rows between 10 preceding and current row),max(d) over (range between 60000000 preceding and current row)]\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: t\n");
+    }
+
+    @Test
+    public void testAnalytic4() throws Exception {
+        assertPlan("create table t as ( select x::double d, rnd_symbol('a','b') s, x::timestamp ts from long_sequence(100)) timestamp(ts)",
+                "select ts, s, sum(d) over (partition by s) from t",
+                "CachedAnalytic\n" +
+                        "  functions: [sum(d) over (partition by [s])]\n" +
+                        "    DataFrame\n" +
+                        "        Row forward scan\n" +
+                        "        Frame forward scan on: t\n");
+    }
+
     @Test
     public void testAsOfJoin0() throws Exception {
         assertMemoryLeak(() -> {
@@ -1014,7 +1041,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts desc limit 10) except (select * from a) order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Except\n" +
                             "        Limit lo: 10\n" +
@@ -1034,7 +1061,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts asc limit 10) except (select * from a) order by ts desc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts desc]\n" +
                             "    Except\n" +
                             "        Limit lo: 10\n" +
@@ -1048,6 +1075,100 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table a as (select x l, timestamp_sequence(0, 1000000) ts from long_sequence(100)) timestamp(ts) partition by day");
+            assertAnalyzePlan(
+                    "explain analyze select l, ts from a where l > 90 order by l desc limit 3",
+                    "QUERY PLAN\n" +
+                            "Sort light lo: 3\n" +
+                            "  actual: rows=3 loops=1\n" +
+                            "  keys: [l desc]\n" +
+                            "    Async JIT Filter\n" +
+                            "      actual: rows=10 loops=1\n" +
+                            "      filter: 90<l\n" +
+                            "      workers: 1\n" +
+                            "      frames: dispatched=1 stolen=1\n" +
+                            "        DataFrame\n" +
+                            "          actual: rows=100 frames=1 loops=1\n" +
+                            "            Row forward scan\n" +
+                            "            Frame forward scan on: a\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeGroupByJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table a as (select x % 4 k, x l from long_sequence(20))");
+            compile("create table b as (select x k, x * 10 v from long_sequence(3))");
+            assertAnalyzePlan(
+                    "explain analyze select a.k, sum(v) from a join b on a.k = b.k",
+                    "QUERY PLAN\n" +
+                            "GroupBy vectorized: false\n" +
+                            "  actual: rows=3 loops=1\n" +
+                            "  keys: [k]\n" +
+                            "  values: [sum(v)]\n" +
+                            "    SelectedRecord\n" +
+                            "      actual: rows=15 loops=1\n" +
+                            "        Hash Join Light\n" +
+                            "          actual: rows=15 loops=1\n" +
+                            "          condition: b.k=a.k\n" +
+                            "            DataFrame\n" +
+                            "              actual: rows=20 loops=1\n" +
+                            "                Row forward scan\n" +
+                            "                Frame forward scan on: a\n" +
+                            "            Hash\n" +
+                            "                DataFrame\n" +
+                            "                  actual: rows=3 loops=1\n" +
+                            "                    Row forward scan\n" +
+                            "                    Frame forward scan on: b\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeNotAllowedForNonQueries() throws Exception {
+        assertFailure("explain analyze insert into a values (1)", "create table a (l long)", 8, "EXPLAIN ANALYZE supports SELECT queries only");
+        assertFailure("explain analyze create table b (l long)", null, 8, "EXPLAIN ANALYZE supports SELECT queries only");
+        assertSql("a", "l\n");
+    }
+
+    @Test
+    public void testExplainAnalyzeWithJsonFormat() throws Exception {
+        assertMemoryLeak(() -> assertAnalyzePlan(
+                "explain analyze (format json) select count(*) from long_sequence(10)",
+                "QUERY PLAN\n" +
+                        "[\n" +
+                        "  {\n" +
+                        "    \"Plan\": {\n" +
+                        "        \"Node Type\": \"Count\",\n" +
+                        "        \"actual\": \"rows=1 loops=1\",\n" +
+                        "        \"Plans\": [\n" +
+                        "        {\n" +
+                        "            \"Node Type\": \"long_sequence\",\n" +
+                        "            \"count\": \"10\",\n" +
+                        "            \"actual\": \"rows=0 loops=1\"\n" +
+                        "        } ]\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "]\n"
+        ));
+    }
+
+    @Test
+    public void testExplainAnalyzeWithQueryInParentheses() throws Exception {
+        assertMemoryLeak(() -> assertAnalyzePlan(
+                "explain analyze (select x from long_sequence(5) where x > 2)",
+                "QUERY PLAN\n" +
+                        "Filter filter: 2<x\n" +
+                        "  actual: rows=3 loops=1\n" +
+                        "    long_sequence count: 5\n" +
+                        "      actual: rows=5 loops=1\n"
+        ));
+    }
+
     @Test
     public void testExplainCreateTable() throws Exception {
         assertSql("explain create table a ( l long, d double)",
@@ -1553,6 +1674,16 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table bbb( a int )");
         });
 
+        // parquet file for read_parquet()
+        final String oldInputRoot = inputRoot;
+        inputRoot = temp.newFolder("parquet" + System.nanoTime()).getAbsolutePath();
+        try (
+                RecordCursorFactory copyFactory = compiler.compile("copy (bbb) to 'bbb.parquet' with format parquet", sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor ignore = copyFactory.getCursor(sqlExecutionContext)
+        ) {
+            Assert.assertNotNull(ignore);
+        }
+
         final StringSink sink = new StringSink();
 
         IntObjHashMap<Function> constFuncs = new IntObjHashMap<>();
@@ -1733,6 +1864,8 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                                 args.add(new CharConstant('s'));
                             } else if (factory instanceof EqIntStrCFunctionFactory && sigArgType == ColumnType.STRING) {
                                 args.add(new StrConstant("1"));
+                            } else if (factory instanceof ReadParquetFunctionFactory) {
+                                args.add(new StrConstant("bbb.parquet"));
                             } else if (!useConst) {
                                 args.add(colFuncs.get(sigArgType));
                             } else {
@@ -1746,11 +1879,16 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
                         argPositions.setAll(args.size(), 0);
 
-                        if (factory instanceof RowNumberFunctionFactory) {
-                            sqlExecutionContext.configureAnalyticContext(null, null, null, true, true);
+                        if (factory.isWindow()) {
+                            sqlExecutionContext.configureAnalyticContext(null, null, null, true, true, AnalyticColumn.FRAMING_RANGE, AnalyticColumn.UNBOUNDED, -1);
                         }
 
-                        Function function = factory.newInstance(0, args, argPositions, engine.getConfiguration(), sqlExecutionContext);
+                        Function function;
+                        try {
+                            function = factory.newInstance(0, args, argPositions, engine.getConfiguration(), sqlExecutionContext);
+                        } finally {
+                            sqlExecutionContext.clearAnalyticContext();
+                        }
                         function.toPlan(planSink);
                         goodArgsFound = true;
 
@@ -1779,6 +1917,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                 }
             }
         });
+        inputRoot = oldInputRoot;
     }
 
     @Test // only none, single int|symbol key cases are vectorized
@@ -2482,7 +2621,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts desc limit 10) intersect (select * from a) order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Intersect\n" +
                             "        Limit lo: 10\n" +
@@ -2502,7 +2641,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts asc limit 10) intersect (select * from a) order by ts desc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts desc]\n" +
                             "    Intersect\n" +
                             "        Limit lo: 10\n" +
@@ -4520,7 +4659,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectDesc2() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) ;",
                 "select * from a order by ts desc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5186,7 +5325,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
         assertPlan(
                 "select * from a limit -5",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5210,7 +5349,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
         assertPlan(
                 "select * from (select * from a order by ts asc limit 5) order by ts desc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5225,7 +5364,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
 
         assertPlan(
                 "select * from (select * from a order by ts desc limit 5) order by ts asc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5257,7 +5396,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderByTsDescNegativeLimit() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by ts desc limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -5269,7 +5408,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderByTsWithNegativeLimit() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts)",
                 "select * from a order by ts  limit -5",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 5\n" +
                         "        DataFrame\n" +
@@ -5281,7 +5420,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderedAsc() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by i asc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [i]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5292,7 +5431,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectOrderedDesc() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by i desc",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [i desc]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5332,7 +5471,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectStaticTsInterval10() throws Exception {
         assertPlan("create table tab ( l long, ts timestamp) timestamp(ts);",
                 "select * from tab where ts in '2020-01-01T03:00:00;1h;24h;3' order by l desc ",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [l desc]\n" +
                         "    DataFrame\n" +
                         "        Row forward scan\n" +
@@ -5878,7 +6017,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithLimitLoNegative() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -6145,7 +6284,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithOrderByTsDescLimitLoNegative1() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by ts desc limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts desc]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -6158,7 +6297,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select i from a order by ts desc limit -10",
                 "SelectedRecord\n" +
-                        "    Sort light\n" +
+                        "    Radix sort light\n" +
                         "      keys: [ts desc]\n" +
                         "        Limit lo: 10\n" +
                         "            DataFrame\n" +
@@ -6170,7 +6309,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
     public void testSelectWithOrderByTsLimitLoNegative1() throws Exception {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select * from a order by ts limit -10",
-                "Sort light\n" +
+                "Radix sort light\n" +
                         "  keys: [ts]\n" +
                         "    Limit lo: 10\n" +
                         "        DataFrame\n" +
@@ -6183,7 +6322,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
         assertPlan("create table a ( i int, ts timestamp) timestamp(ts) ;",
                 "select i from a order by ts limit -10",
                 "SelectedRecord\n" +
-                        "    Sort light\n" +
+                        "    Radix sort light\n" +
                         "      keys: [ts]\n" +
                         "        Limit lo: 10\n" +
                         "            DataFrame\n" +
@@ -6370,7 +6509,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             assertPlan("select * from " +
                             "(select * from (select * from a order by ts desc, l desc) limit 10) " +
                             "order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Limit lo: 10\n" +
                             "        Sort light\n" +
@@ -6449,7 +6588,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts asc limit 10) order by ts desc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts desc]\n" +
                             "    Limit lo: 10\n" +
                             "        DataFrame\n" +
@@ -6477,7 +6616,7 @@ public class ExplainPlanTest extends AbstractGriffinTest {
             compile("create table a ( i int, ts timestamp, l long) timestamp(ts)");
 
             assertPlan("select * from (select * from a order by ts desc limit 10) order by ts asc",
-                    "Sort light\n" +
+                    "Radix sort light\n" +
                             "  keys: [ts]\n" +
                             "    Limit lo: 10\n" +
                             "        DataFrame\n" +
@@ -6761,6 +6900,16 @@ public class ExplainPlanTest extends AbstractGriffinTest {
                         "        Frame forward scan on: t\n");
     }
 
+    private void assertAnalyzePlan(String query, String expectedPlan) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        // time and memory are not deterministic
+        final String plan = sink.toString().replaceAll(" time=\\d+us memory=\\d+", "");
+        if (!JitUtil.isJitSupported()) {
+            expectedPlan = expectedPlan.replace("Async JIT", "Async");
+        }
+        TestUtils.assertEquals(expectedPlan, plan);
+    }
+
     private void assertPlan(String ddl, String query, String expectedPlan) throws Exception {
         assertMemoryLeak(() -> {
             compile(ddl);
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+public class ParquetTest extends AbstractGriffinTest {
+
+    @BeforeClass
+    public static void setUpStatic() {
+        try {
+            inputRoot = temp.newFolder("parquet" + System.nanoTime()).getAbsolutePath();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Test
+    public void testDotsAreRejected() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertException("copy x to '../x' with format parquet", 10, "'.' is not allowed");
+            assertException("select * from read_parquet('../x.parquet')", 27, "'..' is not allowed");
+        });
+    }
+
+    @Test
+    public void testExportPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "copy x to 'x_dir' with format parquet",
+                    "path\trows\n" +
+                            "x_dir\t10000\n"
+            );
+
+            try (Path path = new Path()) {
+                Assert.assertTrue(Files.exists(path.of(inputRoot).concat("x_dir").concat("1970-01-01.parquet").$()));
+                Assert.assertTrue(Files.exists(path.of(inputRoot).concat("x_dir").concat("1970-01-02.parquet").$()));
+            }
+            assertSameAsTable(
+                    "read_parquet('x_dir/1970-01-01.parquet')",
+                    "select * from x where ts in '1970-01-01'"
+            );
+            assertSameAsTable(
+                    "read_parquet('x_dir/1970-01-02.parquet')",
+                    "select * from x where ts in '1970-01-02'"
+            );
+        });
+    }
+
+    @Test
+    public void testExportNonPartitionedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x, rnd_str(3, 5, 1) s from long_sequence(100))");
+            assertSql(
+                    "copy y to 'y_dir' with format parquet row_group_size 7",
+                    "path\trows\n" +
+                            "y_dir\t100\n"
+            );
+            assertSameAsTable("read_parquet('y_dir/default.parquet')", "y");
+        });
+    }
+
+    @Test
+    public void testExportQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "copy (select * from x where i > 500) to 'q.parquet' with format parquet row_group_size 1000",
+                    "path\trows\n" +
+                            "q.parquet\t4194\n"
+            );
+            assertSameAsTable("read_parquet('q.parquet')", "select * from x where i > 500");
+        });
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            export("copy x to 'f' with format parquet row_group_size 1000");
+
+            final String query = "select * from read_parquet('f/1970-01-01.parquet') where l > 10 and d < 0.5";
+            final CharSequence plan = getPlanSink(query).getSink();
+            TestUtils.assertContains(plan, "Async JIT Filter");
+            TestUtils.assertContains(plan, "parquet file scan");
+            assertSameAsTable(query, "select * from x where ts in '1970-01-01' and l > 10 and d < 0.5");
+            assertSameAsTable(
+                    "select * from read_parquet('f/1970-01-01.parquet') where s ~ 'A' and b",
+                    "select * from x where ts in '1970-01-01' and s ~ 'A' and b"
+            );
+        });
+    }
+
+    @Test
+    public void testNotParquetFile() throws Exception {
+        assertMemoryLeak(() -> {
+            java.nio.file.Files.write(Paths.get(inputRoot, "n.csv"), "a,b\n1,2\n3,4\n".getBytes(StandardCharsets.UTF_8));
+            assertException("select * from read_parquet('n.csv')", 27, "not a parquet file");
+            assertException("select * from read_parquet('missing.parquet')", 27, "could not open read-only");
+        });
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        createTable();
+        export("copy (x) to 'r.parquet' with format parquet row_group_size 333");
+        TestUtils.printSql(compiler, sqlExecutionContext, "select * from x", sink);
+        engine.releaseInactive();
+        assertQuery(sink.toString(), "read_parquet('r.parquet')", null, null, true, true);
+        assertMemoryLeak(() -> assertSameAsTable(
+                "select * from read_parquet('r.parquet') order by l, i, ts limit 20",
+                "select * from x order by l, i, ts limit 20"
+        ));
+    }
+
+    @Test
+    public void testRowGroupSizeValidation() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertException("copy x to 'x' with format parquet row_group_size 0", 49, "row group size must be positive");
+            assertException("copy x to 'x' with format csv", 26, "'parquet' expected");
+        });
+    }
+
+    @Test
+    public void testUnicodeStrings() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table u as (select rnd_str('ąę', '中文', 'x😀y', 'abc', null) s, rnd_symbol('∑', 'b', null) sym from long_sequence(50))");
+            export("copy (u) to 'u.parquet' with format parquet");
+            assertSameAsTable("read_parquet('u.parquet')", "u");
+        });
+    }
+
+    @Test
+    public void testUnsupportedColumnType() throws Exception {
+        assertMemoryLeak(() -> assertException(
+                "copy (select rnd_uuid4() u from long_sequence(10)) to 'u.parquet' with format parquet",
+                54,
+                "column type is not supported by parquet export [column=u, type=UUID]"
+        ));
+    }
+
+    @Test
+    public void testVectorizedAggregates() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            export("copy (x) to 'v.parquet' with format parquet row_group_size 1000");
+
+            final String query = "select sum(l), min(d), max(i), count() from read_parquet('v.parquet')";
+            assertPlan(
+                    query,
+                    "GroupBy vectorized: true\n" +
+                            "  values: [sum(l),min(d),max(i),count(*)]\n" +
+                            "    parquet file scan\n" +
+                            "      path: " + inputRoot + Files.SEPARATOR + "v.parquet\n"
+            );
+            assertSameAsTable(query, "select sum(l), min(d), max(i), count() from x");
+            assertSameAsTable(
+                    "select sym, sum(f), count() from read_parquet('v.parquet') order by sym",
+                    "select sym, sum(f), count() from x order by sym"
+            );
+        });
+    }
+
+    private void assertException(String query, int position, String message) {
+        try {
+            compiler.compile(query, sqlExecutionContext);
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertEquals(position, e.getPosition());
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private void assertSameAsTable(String query, String tableQuery) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, tableQuery, sink);
+        assertSql(query, sink.toString());
+    }
+
+    private void createTable() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_boolean() b," +
+                        " rnd_byte() bt," +
+                        " rnd_short() sh," +
+                        " rnd_char() ch," +
+                        " rnd_int(0, 1000, 2) i," +
+                        " rnd_long(-100, 100, 2) l," +
+                        " rnd_date(to_date('2020', 'yyyy'), to_date('2021', 'yyyy'), 2) dt," +
+                        " rnd_timestamp(to_timestamp('2020', 'yyyy'), to_timestamp('2021', 'yyyy'), 2) t," +
+                        " rnd_float(2) f," +
+                        " rnd_double(2) d," +
+                        " rnd_str(5, 10, 2) s," +
+                        " rnd_symbol(5, 4, 4, 2) sym," +
+                        " rnd_bin(10, 20, 2) bin," +
+                        " timestamp_sequence(0, 10000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY"
+        );
+    }
+
+    private void export(String copy) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(copy, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            Assert.assertTrue(cursor.hasNext());
+        }
+    }
+}
@@ -33,6 +33,96 @@ import org.junit.Test;
 
 public class AnalyticFunctionTest extends AbstractGriffinTest {
 
+    @Test
+    public void testAggregatesOverRangeFrame() throws Exception {
+        assertQuery("price\tts\tavg\tmin\tmax\tcount\n" +
+                        "1.0\t1970-01-01T00:00:00.000000Z\t1.0\t1.0\t1.0\t1\n" +
+                        "2.0\t1970-01-01T00:00:01.000000Z\t1.5\t1.0\t2.0\t2\n" +
+                        "3.0\t1970-01-01T00:00:02.000000Z\t2.0\t1.0\t3.0\t3\n" +
+                        "4.0\t1970-01-01T00:00:03.000000Z\t3.0\t2.0\t4.0\t3\n" +
+                        "5.0\t1970-01-01T00:00:04.000000Z\t4.0\t3.0\t5.0\t3\n" +
+                        "6.0\t1970-01-01T00:00:05.000000Z\t5.0\t4.0\t6.0\t3\n",
+                "select price, ts, " +
+                        "avg(price) over (order by ts range between 2 seconds preceding and current row) avg, " +
+                        "min(price) over (order by ts range 2 seconds preceding) min, " +
+                        "max(price) over (order by ts range 2000 milliseconds preceding) max, " +
+                        "count() over (order by ts range 2 second preceding) count " +
+                        "from tab",
+                "create table tab as (" +
+                        "select" +
+                        " cast(x as double) price," +
+                        " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testAggregatesOverRangeFrameIncludePeers() throws Exception {
+        // rows with equal timestamps within a partition are peers, RANGE frames include all of them,
+        // while ROWS frames end at the current row; the order of peers in ROWS frames is undefined,
+        // hence the extra ORDER BY column
+        final String expected = "sym\tprice\tts\ts\tc\ta\tr\n" +
+                "A\t1.0\t1970-01-01T00:00:00.000000Z\t4.0\t3\t2.0\t1.0\n" +
+                "B\t2.0\t1970-01-01T00:00:00.000000Z\t2.0\t3\t2.0\t2.0\n" +
+                "A\t3.0\t1970-01-01T00:00:00.000000Z\t4.0\t3\t2.0\t4.0\n" +
+                "A\t5.0\t1970-01-01T00:00:01.000000Z\t9.0\t4\t3.0\t9.0\n" +
+                "B\t5.0\t1970-01-01T00:00:02.000000Z\t7.0\t7\t5.0\t7.0\n" +
+                "A\t6.0\t1970-01-01T00:00:02.000000Z\t22.0\t7\t6.0\t15.0\n" +
+                "A\t7.0\t1970-01-01T00:00:02.000000Z\t22.0\t7\t6.0\t22.0\n" +
+                "A\t8.0\t1970-01-01T00:00:04.000000Z\t30.0\t8\t8.0\t30.0\n";
+        final String select = "select sym, price, ts, " +
+                "sum(price) over (partition by sym order by ts) s, " +
+                "count() over (order by ts) c, " +
+                "avg(price) over (partition by sym order by ts range 1 second preceding) a, " +
+                "sum(price) over (partition by sym order by ts, price rows between unbounded preceding and current row) r " +
+                "from tab";
+        assertQuery(expected,
+                select,
+                "create table tab as (" +
+                        "select" +
+                        " cast(case when x in (2, 5) then 'B' else 'A' end as symbol) sym," +
+                        " cast(x + case when x = 4 then 1 else 0 end as double) price," +
+                        " cast(case when x < 4 then 0 when x = 4 then 1000000 when x < 8 then 2000000 else 4000000 end as timestamp) ts" +
+                        " from long_sequence(8)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+        assertQuery(expected, select + " order by ts, price", null, null, true, false);
+    }
+
+    @Test
+    public void testAggregatesOverRowsFrame() throws Exception {
+        assertQuery("sym\tprice\tts\tavg\tsum\n" +
+                        "B\t1.0\t1970-01-01T00:00:00.000000Z\t1.0\t1.0\n" +
+                        "A\t2.0\t1970-01-01T00:00:01.000000Z\t2.0\t2.0\n" +
+                        "B\t3.0\t1970-01-01T00:00:02.000000Z\t2.0\t4.0\n" +
+                        "A\t4.0\t1970-01-01T00:00:03.000000Z\t3.0\t6.0\n" +
+                        "B\t5.0\t1970-01-01T00:00:04.000000Z\t4.0\t8.0\n" +
+                        "A\t6.0\t1970-01-01T00:00:05.000000Z\t5.0\t10.0\n",
+                "select sym, price, ts, " +
+                        "avg(price) over (partition by sym order by ts rows between 1 preceding and current row) avg, " +
+                        "sum(price) over (partition by sym order by ts rows 1 preceding) sum " +
+                        "from tab",
+                "create table tab as (" +
+                        "select" +
+                        " cast(x as double) price," +
+                        " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                "ts",
+                false,
+                true
+        );
+    }
+
     @Test
     public void testAnalyticContextCleanup() throws Exception {
         assertMemoryLeak(() -> {
@@ -66,6 +156,40 @@ public class AnalyticFunctionTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testFrameErrors() throws Exception {
+        assertFailure(
+                "select avg(price) over (order by ts rows between 1 following and current row) from tab",
+                "create table tab as (" +
+                        "select" +
+                        " cast(x as double) price," +
+                        " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                51,
+                "'preceding' expected"
+        );
+        assertFailure(
+                "select avg(price) over (order by ts rows between 1 preceding and 1 following) from tab",
+                null,
+                65,
+                "only 'current row' is supported as frame end"
+        );
+        assertFailure(
+                "select avg(price) over (order by price range 10 preceding) from tab",
+                null,
+                45,
+                "RANGE frame with offset requires ascending ORDER BY on a single timestamp column"
+        );
+        assertFailure(
+                "select avg(price) over (order by ts rows 10 seconds preceding) from tab",
+                null,
+                44,
+                "'preceding' expected"
+        );
+    }
+
     @Test
     @Ignore
     public void testRankFailsInNonAnalyticContext() throws Exception {
@@ -719,4 +843,77 @@ public class AnalyticFunctionTest extends AbstractGriffinTest {
                 false
         );
     }
+
+    @Test
+    public void testRunningAggregatesOverPartition() throws Exception {
+        assertQuery("sym\tprice\tmin\tmax\tcount\n" +
+                        "B\t1.0\t1.0\t1.0\t1\n" +
+                        "A\t2.0\t2.0\t2.0\t1\n" +
+                        "B\t3.0\t1.0\t3.0\t2\n" +
+                        "A\t4.0\t2.0\t4.0\t2\n" +
+                        "B\t5.0\t1.0\t5.0\t3\n" +
+                        "A\t6.0\t2.0\t6.0\t3\n",
+                "select sym, price, " +
+                        "min(price) over (partition by sym order by ts) min, " +
+                        "max(price) over (partition by sym order by ts rows between unbounded preceding and current row) max, " +
+                        "count() over (partition by sym order by ts) count " +
+                        "from tab",
+                "create table tab as (" +
+                        "select" +
+                        " cast(x as double) price," +
+                        " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testSumOverWholePartition() throws Exception {
+        assertQuery("sym\tprice\tsum\tcount\n" +
+                        "B\t1.0\t9.0\t3\n" +
+                        "A\t2.0\t12.0\t3\n" +
+                        "B\t3.0\t9.0\t3\n" +
+                        "A\t4.0\t12.0\t3\n" +
+                        "B\t5.0\t9.0\t3\n" +
+                        "A\t6.0\t12.0\t3\n",
+                "select sym, price, sum(price) over (partition by sym) sum, count() over (partition by sym) count from tab",
+                "create table tab as (" +
+                        "select" +
+                        " cast(x as double) price," +
+                        " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testSumWithNonTimestampOrder() throws Exception {
+        assertQuery("price\tsum\n" +
+                        "1.0\t21.0\n" +
+                        "2.0\t20.0\n" +
+                        "3.0\t18.0\n" +
+                        "4.0\t15.0\n" +
+                        "5.0\t11.0\n" +
+                        "6.0\t6.0\n",
+                "select price, sum(price) over (order by price desc rows between unbounded preceding and current row) sum from tab",
+                "create table tab as (" +
+                        "select" +
+                        " cast(x as double) price," +
+                        " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(6)" +
+                        ") timestamp(ts) partition by day",
+                null,
+                true,
+                false
+        );
+    }
 }
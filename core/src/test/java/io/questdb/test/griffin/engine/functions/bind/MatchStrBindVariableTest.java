@@ -108,4 +108,20 @@ public class MatchStrBindVariableTest extends AbstractGriffinTest {
             }
         });
     }
+
+    @Test
+    public void testSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            executeInsert("insert into x values ('ABC', 0), ('XYZ', 1), (null, 2), ('ABD', 3), ('XYZ', 4)");
+
+            try (RecordCursorFactory factory = compiler.compile("select s from x where s ~ $1", sqlExecutionContext).getRecordCursorFactory()) {
+                bindVariableService.setStr(0, "^AB");
+                assertCursor("s\nABC\nABD\n", factory, true, false);
+
+                bindVariableService.setStr(0, "Y");
+                assertCursor("s\nXYZ\nXYZ\n", factory, true, false);
+            }
+        });
+    }
 }
@@ -123,6 +123,20 @@ public class ILikeFunctionFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLikeStringLiteralPatterns() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s string)", sqlExecutionContext);
+            executeInsert("insert into x values ('timeout'), ('read timeout'), ('Timeout occurred'), (null), ('50%'), ('50% off'), ('tim')");
+
+            assertSql("select s from x where s ilike 'TIMEOUT'", "s\ntimeout\n");
+            assertSql("select s from x where s ilike 'TIM%'", "s\ntimeout\nTimeout occurred\ntim\n");
+            assertSql("select s from x where s ilike '%Timeout'", "s\ntimeout\nread timeout\n");
+            assertSql("select s from x where s ilike '%TimeOut%'", "s\ntimeout\nread timeout\nTimeout occurred\n");
+            assertSql("select s from x where s ilike '%0\\% OFF'", "s\n50% off\n");
+        });
+    }
+
     @Test
     public void testLikeStringNoMatch() throws Exception {
         assertMemoryLeak(() -> {
@@ -101,6 +101,33 @@ public class LikeFunctionFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLikeStringLiteralPatterns() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s string)", sqlExecutionContext);
+            executeInsert("insert into x values ('timeout'), ('read timeout'), ('Timeout occurred'), (null), ('50%'), ('50% off'), ('tim')");
+
+            assertSql("select s from x where s like 'timeout'", "s\ntimeout\n");
+            assertSql("select s from x where s like 'tim%'", "s\ntimeout\ntim\n");
+            assertSql("select s from x where s like '%timeout'", "s\ntimeout\nread timeout\n");
+            assertSql("select s from x where s like '%timeout%'", "s\ntimeout\nread timeout\n");
+            assertSql("select s from x where s like '%%out%%'", "s\ntimeout\nread timeout\nTimeout occurred\n");
+            assertSql("select s from x where s like '50\\%'", "s\n50%\n");
+            assertSql("select s from x where s like '%0\\%%'", "s\n50%\n50% off\n");
+            assertSql("select s from x where not s like '%timeout%'", "s\nTimeout occurred\n\n50%\n50% off\ntim\n");
+
+            assertPlan(
+                    "select s from x where s like '%timeout%'",
+                    "Async Filter\n" +
+                            "  filter: s like %timeout%\n" +
+                            "  workers: 1\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: x\n"
+            );
+        });
+    }
+
     @Test
     public void testLikeStringNoMatch() throws Exception {
         assertMemoryLeak(() -> {
@@ -238,6 +265,42 @@ public class LikeFunctionFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLikeSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            executeInsert("insert into x values ('ABC', 0), ('XYZ', 1), (null, 2), ('ABD', 3), ('XYZ', 4)");
+
+            try (RecordCursorFactory factory = compiler.compile("select s from x where s like 'AB%'", sqlExecutionContext).getRecordCursorFactory()) {
+                assertCursor("s\nABC\nABD\n", factory, true, false);
+
+                // symbol keys added after the factory was compiled must be matched too
+                executeInsert("insert into x values ('QQ', 5), ('ABE', 6)");
+                assertCursor("s\nABC\nABD\nABE\n", factory, true, false);
+            }
+            assertSql("select s from x where not s like 'AB%'", "s\nXYZ\n\nXYZ\nQQ\n");
+        });
+    }
+
+    @Test
+    public void testLikeSymbolBindVariable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            executeInsert("insert into x values ('ABC', 0), ('XYZ', 1), (null, 2), ('ABD', 3), ('XYZ', 4)");
+
+            try (RecordCursorFactory factory = compiler.compile("select s from x where s like $1", sqlExecutionContext).getRecordCursorFactory()) {
+                bindVariableService.setStr(0, "%Z");
+                assertCursor("s\nXYZ\nXYZ\n", factory, true, false);
+
+                bindVariableService.setStr(0, "A_C");
+                assertCursor("s\nABC\n", factory, true, false);
+
+                bindVariableService.setStr(0, null);
+                assertCursor("s\n", factory, true, false);
+            }
+        });
+    }
+
     @Test
     public void testNonConstantExpression() throws Exception {
         assertMemoryLeak(() -> {
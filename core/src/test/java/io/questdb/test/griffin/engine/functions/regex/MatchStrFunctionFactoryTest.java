@@ -95,4 +95,15 @@ public class MatchStrFunctionFactoryTest extends AbstractGriffinTest {
             }
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            executeInsert("insert into x values ('ABC', 0), ('XYZ', 1), (null, 2), ('ABD', 3), ('XYZ', 4)");
+
+            assertSql("select s from x where s ~ 'B[CD]'", "s\nABC\nABD\n");
+            assertSql("select s from x where s ~ 'Q'", "s\n");
+        });
+    }
+}
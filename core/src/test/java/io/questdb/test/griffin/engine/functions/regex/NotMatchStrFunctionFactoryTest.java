@@ -126,4 +126,14 @@ public class NotMatchStrFunctionFactoryTest extends AbstractGriffinTest {
             }
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            executeInsert("insert into x values ('ABC', 0), ('XYZ', 1), (null, 2), ('ABD', 3), ('XYZ', 4)");
+
+            assertSql("select s from x where s !~ 'B[CD]'", "s\nXYZ\n\nXYZ\n");
+        });
+    }
+}
@@ -55,6 +55,18 @@ public class StartsWithStrFunctionFactoryTest extends AbstractFunctionFactoryTes
         assertQuery("col\ntrue\n", "select starts_with('hőmérséklet','hőmé') col");
     }
 
+    @Test
+    public void testStartsWithSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            executeInsert("insert into x values ('ABC', 0), ('XYZ', 1), (null, 2), ('ABD', 3), ('XYZ', 4)");
+
+            assertSql("select s from x where starts_with(s, 'AB')", "s\nABC\nABD\n");
+            assertSql("select s from x where not starts_with(s, 'XY')", "s\nABC\n\nABD\n");
+            assertSql("select s from x where starts_with(s, null)", "s\n");
+        });
+    }
+
     @Test
     public void testStartsWithSpecialCharacters() throws Exception {
         assertQuery("col\ntrue\n", "select starts_with('~!@#$%^&*()_-:<>?,./', '~!@#') col");
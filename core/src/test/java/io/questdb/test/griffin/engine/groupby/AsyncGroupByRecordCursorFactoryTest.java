@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.groupby;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.groupby.AsyncGroupByRecordCursorFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.griffin.CustomisableRunnable;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncGroupByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+    private static final int QUEUE_CAPACITY = 8;
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        // Small page frames make sure that the data is spread across many frames and workers.
+        pageFrameMaxRows = PAGE_FRAME_MAX_ROWS;
+        pageFrameReduceShardCount = 2;
+        pageFrameReduceQueueCapacity = QUEUE_CAPACITY;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Before
+    public void setUp() {
+        pageFrameMaxRows = PAGE_FRAME_MAX_ROWS;
+        pageFrameReduceShardCount = 2;
+        pageFrameReduceQueueCapacity = QUEUE_CAPACITY;
+        super.setUp();
+    }
+
+    @Test
+    public void testAllSupportedFunctions() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_symbol(null,'a','b','c','d') s, rnd_int(0, 1000, 2) i, rnd_long(0, 100000, 2) l, " +
+                            "rnd_double(2) d, rnd_double() d0, rnd_float() f0, rnd_char() c, rnd_date(to_date('2020', 'yyyy'), to_date('2021', 'yyyy'), 2) dt, " +
+                            "timestamp_sequence(0, 100000) ts " +
+                            "from long_sequence(100000)" +
+                            ") timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "select s, count(), count(i), sum(i), sum(l), round(sum(d), 3) sd, round(avg(d), 3) ad, round(ksum(d), 3) kd, round(nsum(d), 3) nd, " +
+                            "min(i), max(i), min(l), max(l), min(d0), max(d0), min(f0), max(f0), min(c), max(c), min(dt), max(dt), min(ts), max(ts) " +
+                            "from x order by s"
+            );
+        });
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile("create table x (s string, l long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            final String sql = "select s, sum(l) from x order by s";
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, sql);
+            TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, "s\tsum\n");
+        });
+    }
+
+    @Test
+    public void testManyKeys() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile(
+                    "create table x as (select rnd_str(5, 10, 0) k, x % 10000 l, timestamp_sequence(0, 100000) ts from long_sequence(200000)) timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select l, count(), sum(l) from x order by l");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select k, l, count() from x order by k, l");
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile("create table x (s string, l long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            assertPlan(
+                    compiler,
+                    "select s, sum(l), count() from x",
+                    "Async Group By\n" +
+                            "  keys: [s]\n" +
+                            "  values: [sum(l),count(*)]\n" +
+                            "  workers: " + WORKER_COUNT + "\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: x\n",
+                    sqlExecutionContext
+            );
+        });
+    }
+
+    @Test
+    public void testUnsupportedFunctionFallsBackToSerial() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, rnd_str(3, 3, 0) str from long_sequence(100))", sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select s, count_distinct(str) from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertNotEquals(AsyncGroupByRecordCursorFactory.class, factory.getClass());
+            }
+        });
+    }
+
+    private void assertParallelMatchesSerial(SqlCompiler compiler, SqlExecutionContext parallelContext, String sql) throws SqlException {
+        // the query has to be executed in parallel
+        TestUtils.printSql(compiler, parallelContext, "explain " + sql, sink);
+        TestUtils.assertContains(sink, "Async Group By");
+
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, AbstractGriffinTest.sqlExecutionContext, sql, expected);
+        // run the query several times to make sure that the factory is reusable
+        for (int i = 0; i < 3; i++) {
+            TestUtils.assertSql(compiler, parallelContext, sql, sink, expected);
+        }
+    }
+
+    private void withPool(CustomisableRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            TestUtils.setupWorkerPool(pool, engine);
+            pool.start();
+
+            try (
+                    SqlExecutionContextImpl parallelContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                            .with(
+                                    configuration.getCairoSecurityContextFactory().getInstance(null),
+                                    bindVariableService,
+                                    null,
+                                    -1,
+                                    null
+                            )
+            ) {
+                parallelContext.setParallelGroupByEnabled(true);
+                runnable.run(engine, compiler, parallelContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.groupby;
+
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Chars;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.griffin.CustomisableRunnable;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncSampleByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+    private static final int QUEUE_CAPACITY = 8;
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        // Small page frames make sure that the data is spread across many frames and workers.
+        pageFrameMaxRows = PAGE_FRAME_MAX_ROWS;
+        pageFrameReduceShardCount = 2;
+        pageFrameReduceQueueCapacity = QUEUE_CAPACITY;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Before
+    public void setUp() {
+        pageFrameMaxRows = PAGE_FRAME_MAX_ROWS;
+        pageFrameReduceShardCount = 2;
+        pageFrameReduceQueueCapacity = QUEUE_CAPACITY;
+        super.setUp();
+    }
+
+    @Test
+    public void testAlignToCalendar() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count(), sum(l) from x sample by 1h align to calendar");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, s, count(), max(i) from x sample by 1h align to calendar with offset '00:40' order by ts, s");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count(), min(i), max(l) from x sample by 1M align to calendar");
+
+            createSparseTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, s, count(), sum(l) from y sample by 1m fill(prev) align to calendar with offset '00:20'");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, sum(l) from y sample by 1m fill(linear) align to calendar");
+        });
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile("create table x (s symbol, l long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            final String sql = "select ts, s, sum(l) from x sample by 1h";
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, sql);
+            TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, "ts\ts\tsum\n");
+        });
+    }
+
+    @Test
+    public void testFillLinear() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createSparseTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count(), sum(l), avg(d), min(i) from y sample by 1m fill(linear)");
+            // keys that appear once get nulls, the others are extrapolated at both ends
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, s, count(), sum(l), max(d) from y sample by 1m fill(linear)");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select s, k, ts, sum(i) from y sample by 5m fill(linear)");
+        });
+    }
+
+    @Test
+    public void testFillNull() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createSparseTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count(), sum(l), avg(d) from y sample by 1m fill(null)");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, s, count(), sum(l), max(d) from y sample by 1m fill(null)");
+        });
+    }
+
+    @Test
+    public void testFillPrev() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createSparseTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count(), sum(l), avg(d) from y sample by 1m fill(prev)");
+            // keys are null until they first appear
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, s, count(), sum(l), max(d) from y sample by 1m fill(prev)");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select s, k, ts, sum(i) from y sample by 5m fill(prev)");
+        });
+    }
+
+    @Test
+    public void testFillValue() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createSparseTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count(), sum(l), avg(d) from y sample by 1m fill(1, 2, 3.5)");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, s, count(), sum(l), max(d) from y sample by 1m fill(10, prev, null)");
+        });
+    }
+
+    @Test
+    public void testIntervalScan() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "select ts, count(), sum(i) from x where ts in '1970-01-01T03:17:01;2h' sample by 7m"
+            );
+        });
+    }
+
+    @Test
+    public void testKeyed() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "select ts, s, count(), sum(i), sum(l), min(d), max(d), min(ts), max(ts) from x sample by 13m order by ts, s"
+            );
+            // within a bucket, keys follow the order of their first row in the bucket, just like in serial SAMPLE BY
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "select ts, s, count(), sum(l) from x sample by 13m"
+            );
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "select s, ts, k, count() from x sample by 1h fill(none)"
+            );
+        });
+    }
+
+    @Test
+    public void testNotKeyed() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            // buckets are aligned to the first observation
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "select ts, count(), sum(i), sum(l), min(d), max(d), min(ts), max(ts) from x sample by 17m"
+            );
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count() from x sample by 1d");
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select ts, count() from x sample by 100T");
+            // the bucket timestamp doesn't have to be selected
+            assertParallelMatchesSerial(compiler, sqlExecutionContext, "select sum(i) from x sample by 1h");
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            compiler.compile("create table x (s symbol, l long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            assertPlan(
+                    compiler,
+                    "select ts, s, sum(l) from x sample by 1h",
+                    "Async Sample By\n" +
+                            "  keys: [ts,s]\n" +
+                            "  values: [sum(l)]\n" +
+                            "  workers: " + WORKER_COUNT + "\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: x\n",
+                    sqlExecutionContext
+            );
+            assertPlan(
+                    compiler,
+                    "select ts, s, sum(l) from x sample by 1h fill(prev)",
+                    "Async Sample By\n" +
+                            "  fill: prev\n" +
+                            "  keys: [ts,s]\n" +
+                            "  values: [sum(l)]\n" +
+                            "  workers: " + WORKER_COUNT + "\n" +
+                            "    DataFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: x\n",
+                    sqlExecutionContext
+            );
+        });
+    }
+
+    @Test
+    public void testUnsupportedQueriesFallBackToSerial() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertSerial(compiler, sqlExecutionContext, "select ts, first(i) from x sample by 1h");
+            assertSerial(compiler, sqlExecutionContext, "select ts, sum(i) from x sample by 1h align to calendar time zone 'Europe/London'");
+            // linear interpolation mixed with other fills
+            assertSerial(compiler, sqlExecutionContext, "select ts, sum(i), sum(l) from x sample by 1h fill(linear, prev)");
+        });
+    }
+
+    private void assertParallelMatchesSerial(SqlCompiler compiler, SqlExecutionContext parallelContext, String sql) throws SqlException {
+        // the query has to be executed in parallel
+        TestUtils.printSql(compiler, parallelContext, "explain " + sql, sink);
+        TestUtils.assertContains(sink, "Async Sample By");
+
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, AbstractGriffinTest.sqlExecutionContext, sql, expected);
+        // run the query several times to make sure that the factory is reusable
+        for (int i = 0; i < 3; i++) {
+            TestUtils.assertSql(compiler, parallelContext, sql, sink, expected);
+        }
+    }
+
+    private void assertSerial(SqlCompiler compiler, SqlExecutionContext parallelContext, String sql) throws SqlException {
+        TestUtils.printSql(compiler, parallelContext, "explain " + sql, sink);
+        Assert.assertFalse(Chars.contains(sink, "Async Sample By"));
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, AbstractGriffinTest.sqlExecutionContext, sql, expected);
+        TestUtils.assertSql(compiler, parallelContext, sql, sink, expected);
+    }
+
+    private void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_symbol(null,'a','b','c','d') s, rnd_int(0, 1000, 2) i, rnd_long(0, 100000, 2) l, " +
+                        "rnd_int(0, 10, 0) k, rnd_double(2) d, timestamp_sequence(7654321, 98765) ts " +
+                        "from long_sequence(200000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void createSparseTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        // rows get sparser over time, so that later buckets have gaps
+        compiler.compile(
+                "create table y as (" +
+                        "select rnd_symbol(null,'a','b','c','d') s, rnd_int(0, 1000, 2) i, rnd_long(0, 100000, 2) l, " +
+                        "rnd_int(0, 3, 0) k, rnd_double(2) d, cast(x * x * 10000 as timestamp) ts " +
+                        "from long_sequence(10000)" +
+                        ") timestamp(ts) partition by day",
+                sqlExecutionContext
+        );
+    }
+
+    private void withPool(CustomisableRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            TestUtils.setupWorkerPool(pool, engine);
+            pool.start();
+
+            try (
+                    SqlExecutionContextImpl parallelContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                            .with(
+                                    configuration.getCairoSecurityContextFactory().getInstance(null),
+                                    bindVariableService,
+                                    null,
+                                    -1,
+                                    null
+                            )
+            ) {
+                parallelContext.setParallelGroupByEnabled(true);
+                runnable.run(engine, compiler, parallelContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+}
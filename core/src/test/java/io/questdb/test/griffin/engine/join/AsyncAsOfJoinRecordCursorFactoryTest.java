@@ -0,0 +1,220 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.join;
+
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.griffin.CustomisableRunnable;
+import io.questdb.test.mp.TestWorkerPool;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncAsOfJoinRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final long LOOKBACK = 24 * 3600 * 1000L;
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+    private static final int QUEUE_CAPACITY = 8;
+    private static final int WORKER_COUNT = 4;
+
+    @BeforeClass
+    public static void setUpStatic() {
+        // Small page frames make sure that the data is spread across many frames and workers.
+        pageFrameMaxRows = PAGE_FRAME_MAX_ROWS;
+        pageFrameReduceShardCount = 2;
+        pageFrameReduceQueueCapacity = QUEUE_CAPACITY;
+        AbstractGriffinTest.setUpStatic();
+    }
+
+    @Before
+    public void setUp() {
+        pageFrameMaxRows = PAGE_FRAME_MAX_ROWS;
+        pageFrameReduceShardCount = 2;
+        pageFrameReduceQueueCapacity = QUEUE_CAPACITY;
+        super.setUp();
+    }
+
+    @Test
+    public void testAsOfJoin() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "Async AsOf Join",
+                    "select t.ts, t.sym, t.price, q.ts, q.bid from trades t asof join quotes q on (sym)"
+            );
+        });
+    }
+
+    @Test
+    public void testAsOfJoinIntervals() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "Async AsOf Join",
+                    "select t.ts, t.sym, q.ts, q.bid from (trades where ts in '1970-01-01T02') t asof join quotes q on (sym)"
+            );
+        });
+    }
+
+    @Test
+    public void testAsOfJoinStringKey() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "Async AsOf Join",
+                    "select t.ts, t.venue, q.ts, q.venue, q.bid from trades t asof join quotes q on (venue)"
+            );
+        });
+    }
+
+    @Test
+    public void testLookback() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table t (sym symbol, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            compiler.compile("create table q (sym symbol, bid int, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            executeInsert("insert into t values ('a', '1970-01-02T00:00:00.000000Z'), ('b', '1970-01-02T00:00:00.000000Z'), ('a', '1970-01-02T01:00:00.000000Z')");
+            executeInsert("insert into q values ('a', 1, '1970-01-01T00:00:00.000000Z'), ('b', 2, '1970-01-01T23:30:00.000000Z'), ('a', 3, '1970-01-02T01:00:00.000000Z')");
+
+            configOverrideParallelAsOfJoinLookback(3600 * 1000L);
+            final String sql = "select t.sym, t.ts, q.bid, q.ts from t asof join q on (sym)";
+            assertPlan(
+                    sql,
+                    "SelectedRecord\n" +
+                            "    Async AsOf Join\n" +
+                            "      condition: q.sym=t.sym\n" +
+                            "      lookback: 3600000000\n" +
+                            "      workers: 1\n" +
+                            "        DataFrame\n" +
+                            "            Row forward scan\n" +
+                            "            Frame forward scan on: t\n" +
+                            "        DataFrame\n" +
+                            "            Row forward scan\n" +
+                            "            Frame forward scan on: q\n"
+            );
+            // the quote for 'a' from the previous day is beyond the lookback
+            assertSql(
+                    sql,
+                    "sym\tts\tbid\tts1\n" +
+                            "a\t1970-01-02T00:00:00.000000Z\tNaN\t\n" +
+                            "b\t1970-01-02T00:00:00.000000Z\t2\t1970-01-01T23:30:00.000000Z\n" +
+                            "a\t1970-01-02T01:00:00.000000Z\t3\t1970-01-02T01:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select t.sym, t.ts, q.bid, q.ts from t lt join q on (sym)",
+                    "sym\tts\tbid\tts1\n" +
+                            "a\t1970-01-02T00:00:00.000000Z\tNaN\t\n" +
+                            "b\t1970-01-02T00:00:00.000000Z\t2\t1970-01-01T23:30:00.000000Z\n" +
+                            "a\t1970-01-02T01:00:00.000000Z\tNaN\t\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLtJoin() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            assertParallelMatchesSerial(
+                    compiler,
+                    sqlExecutionContext,
+                    "Async Lt Join",
+                    "select t.ts, t.sym, t.price, q.ts, q.bid from trades t lt join quotes q on (sym)"
+            );
+        });
+    }
+
+    private static void createTables(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table trades as (" +
+                        "select rnd_symbol('a','b','c','d','e','f') sym, rnd_str('X','Y','Z') venue, rnd_double() price, " +
+                        "timestamp_sequence(0, 1000000) ts " +
+                        "from long_sequence(20000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table quotes as (" +
+                        "select rnd_symbol('a','b','c','d','e','f','g') sym, rnd_str('X','Y','Z',null) venue, rnd_int() bid, " +
+                        "timestamp_sequence(0, 333333) ts " +
+                        "from long_sequence(60000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelMatchesSerial(
+            SqlCompiler compiler,
+            SqlExecutionContext parallelContext,
+            String expectedFactory,
+            String sql
+    ) throws SqlException {
+        configOverrideParallelAsOfJoinLookback(0);
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, parallelContext, sql, expected);
+
+        // the lookback is large enough for the results to be the same
+        configOverrideParallelAsOfJoinLookback(LOOKBACK);
+        TestUtils.printSql(compiler, parallelContext, "explain " + sql, sink);
+        TestUtils.assertContains(sink, expectedFactory);
+        // run the query several times to make sure that the factory is reusable
+        for (int i = 0; i < 3; i++) {
+            TestUtils.assertSql(compiler, parallelContext, sql, sink, expected);
+        }
+    }
+
+    private void withPool(CustomisableRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            TestUtils.setupWorkerPool(pool, engine);
+            pool.start();
+
+            try (
+                    SqlExecutionContextImpl parallelContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                            .with(
+                                    configuration.getCairoSecurityContextFactory().getInstance(null),
+                                    bindVariableService,
+                                    null,
+                                    -1,
+                                    null
+                            )
+            ) {
+                runnable.run(engine, compiler, parallelContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.orderby;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.test.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class RadixSortLightRecordCursorFactoryTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(RadixSortLightRecordCursorFactoryTest.class);
+
+    @Test
+    public void testAscNullsAndNegatives() throws Exception {
+        assertQuery(
+                "i\tl\n" +
+                        "NaN\tNaN\n" +
+                        "-5\t-500\n" +
+                        "-1\t-100\n" +
+                        "0\t0\n" +
+                        "3\t300\n" +
+                        "7\t700\n",
+                "select i, l from x order by i",
+                "create table x as (" +
+                        "select cast(i as int) i, cast(l as long) l from (" +
+                        "select 3 i, 300 l from long_sequence(1) union all " +
+                        "select null, null from long_sequence(1) union all " +
+                        "select -1, -100 from long_sequence(1) union all " +
+                        "select 7, 700 from long_sequence(1) union all " +
+                        "select 0, 0 from long_sequence(1) union all " +
+                        "select -5, -500 from long_sequence(1)" +
+                        "))",
+                null,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testDescNullsAndNegatives() throws Exception {
+        assertQuery(
+                "l\n" +
+                        "700\n" +
+                        "300\n" +
+                        "0\n" +
+                        "-100\n" +
+                        "-500\n" +
+                        "NaN\n",
+                "select l from x order by l desc",
+                "create table x as (" +
+                        "select cast(l as long) l from (" +
+                        "select 300 l from long_sequence(1) union all " +
+                        "select null from long_sequence(1) union all " +
+                        "select -100 from long_sequence(1) union all " +
+                        "select 700 from long_sequence(1) union all " +
+                        "select 0 from long_sequence(1) union all " +
+                        "select -500 from long_sequence(1)" +
+                        "))",
+                null,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testMatchesTreeSort() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (" +
+                    "select rnd_byte() b, rnd_short() s, rnd_char() c, rnd_int(-1000, 1000, 5) i, rnd_long(-100000, 100000, 5) l," +
+                    " rnd_date(to_date('2020', 'yyyy'), to_date('2021', 'yyyy'), 5) d," +
+                    " rnd_timestamp(to_timestamp('2020', 'yyyy'), to_timestamp('2021', 'yyyy'), 5) t" +
+                    " from long_sequence(10000))");
+            for (String column : new String[]{"b", "s", "c", "i", "l", "d", "t"}) {
+                for (String direction : new String[]{"", " desc"}) {
+                    // the second sort key forces the tree-chain factory; projecting only the
+                    // sort column makes tie order irrelevant to the comparison
+                    TestUtils.assertSqlCursors(
+                            compiler,
+                            sqlExecutionContext,
+                            "select " + column + " from (select " + column + ", b from x order by " + column + direction + ", b)",
+                            "select " + column + " from x order by " + column + direction,
+                            LOG
+                    );
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testTiesKeepTreeSortOrder() throws Exception {
+        assertQuery(
+                "k\tv\n" +
+                        "1\t3\n" +
+                        "1\t1\n" +
+                        "2\t4\n" +
+                        "2\t2\n",
+                "select k, v from x order by k",
+                "create table x as (select cast(2 - x % 2 as int) k, x v from long_sequence(4))",
+                null,
+                true,
+                true
+        );
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.orderby;
+
+import io.questdb.cairo.EntityColumnFilter;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.RecordSinkFactory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.MemoryBudget;
+import io.questdb.cairo.vm.SpillAllocator;
+import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
+import io.questdb.griffin.engine.orderby.RecordTreeChain;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.MemoryTag;
+import io.questdb.test.AbstractGriffinTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Objects;
+
+public class RecordTreeChainTest extends AbstractGriffinTest {
+    private static final BytecodeAssembler asm = new BytecodeAssembler();
+
+    @Test
+    public void testExternalMergeSort() throws Exception {
+        assertMemoryLeak(() -> {
+            final int N = 20_000;
+            compile("create table x as (select rnd_int(0, 1000, 0) k, rnd_str(5, 10, 0) s, x id from long_sequence(" + N + "))");
+
+            final File spillRoot = temp.newFolder("sort_spill");
+            // the budget is way smaller than the data, so the tree has to sort it in runs
+            final MemoryBudget budget = new MemoryBudget(64 * 1024);
+            final SpillAllocator valueAllocator = newAllocator(spillRoot, budget);
+            final SpillAllocator runAllocator = newAllocator(spillRoot, budget);
+
+            try (RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory()) {
+                final RecordMetadata metadata = factory.getMetadata();
+                final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+                entityColumnFilter.of(metadata.getColumnCount());
+                final ListColumnFilter sortColumnFilter = new ListColumnFilter();
+                sortColumnFilter.add(1);
+
+                try (
+                        RecordTreeChain chain = new RecordTreeChain(
+                                metadata,
+                                RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, false),
+                                new RecordComparatorCompiler(asm).compile(metadata, sortColumnFilter),
+                                4 * 1024,
+                                Integer.MAX_VALUE,
+                                4 * 1024,
+                                Integer.MAX_VALUE,
+                                valueAllocator,
+                                runAllocator
+                        )
+                ) {
+                    final RecordCursor baseCursor = factory.getCursor(sqlExecutionContext);
+                    // the chain takes ownership of the base cursor
+                    final RecordCursor cursor = chain.getCursor(baseCursor);
+                    final Record baseRecord = baseCursor.getRecord();
+                    while (baseCursor.hasNext()) {
+                        chain.put(baseRecord);
+                    }
+                    chain.mergeRuns(sqlExecutionContext.getCircuitBreaker());
+                    Assert.assertTrue(valueAllocator.isSpilled());
+                    Assert.assertTrue(budget.getUsed() <= budget.getLimit());
+
+                    cursor.toTop();
+                    final Record record = cursor.getRecord();
+                    long count = 0;
+                    long idSum = 0;
+                    int prevK = Integer.MIN_VALUE;
+                    long prevId = 0;
+                    while (cursor.hasNext()) {
+                        final int k = record.getInt(0);
+                        final long id = record.getLong(2);
+                        Assert.assertTrue(k >= prevK);
+                        if (k == prevK) {
+                            // the sort is stable
+                            Assert.assertTrue(id > prevId);
+                        }
+                        final int len = record.getStr(1).length();
+                        Assert.assertTrue(len >= 5 && len <= 10);
+                        prevK = k;
+                        prevId = id;
+                        idSum += id;
+                        count++;
+                    }
+                    Assert.assertEquals(N, count);
+                    Assert.assertEquals((long) N * (N + 1) / 2, idSum);
+                }
+            }
+            Assert.assertEquals(0, budget.getUsed());
+            Assert.assertEquals(0, Objects.requireNonNull(spillRoot.list()).length);
+        });
+    }
+
+    private static SpillAllocator newAllocator(File spillRoot, MemoryBudget budget) {
+        final SpillAllocator allocator = new SpillAllocator(
+                configuration.getFilesFacade(),
+                spillRoot.getAbsolutePath(),
+                configuration.getMkDirMode(),
+                0,
+                MemoryTag.NATIVE_RECORD_CHAIN
+        );
+        allocator.setBudget(budget);
+        return allocator;
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.wal;
+
+import io.questdb.test.AbstractGriffinTest;
+import org.junit.Test;
+
+public class DedupInsertTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDedupAgainstLastPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            compile("insert into t values " +
+                    "('2022-02-24T00:00:00.000000Z', 'A', 1, 'a1'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'A', 2, 'a2'), " +
+                    "('2022-02-24T02:00:00.000000Z', 'A', 3, 'a3')");
+            drainWalQueue();
+
+            // the last row matches the max timestamp of the table
+            compile("insert into t values " +
+                    "('2022-02-24T01:00:00.000000Z', 'A', 20, 'replaced'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'B', 21, 'new'), " +
+                    "('2022-02-24T02:00:00.000000Z', 'A', 30, null)");
+            drainWalQueue();
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tx\ts\n" +
+                            "2022-02-24T00:00:00.000000Z\tA\t1\ta1\n" +
+                            "2022-02-24T01:00:00.000000Z\tA\t20\treplaced\n" +
+                            "2022-02-24T01:00:00.000000Z\tB\t21\tnew\n" +
+                            "2022-02-24T02:00:00.000000Z\tA\t30\t\n"
+            );
+
+            // appends after the merge must continue from the deduplicated row count
+            compile("insert into t values ('2022-02-24T03:00:00.000000Z', 'C', 4, 'c4')");
+            drainWalQueue();
+
+            assertSql(
+                    "t where ts >= '2022-02-24T02'",
+                    "ts\tsym\tx\ts\n" +
+                            "2022-02-24T02:00:00.000000Z\tA\t30\t\n" +
+                            "2022-02-24T03:00:00.000000Z\tC\t4\tc4\n"
+            );
+            assertSql(
+                    "select count() from t",
+                    "count\n" +
+                            "5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupAgainstMidPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            compile("insert into t values " +
+                    "('2022-02-24T00:00:00.000000Z', 'A', 1, 'a1'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'B', 2, 'b2'), " +
+                    "('2022-02-25T00:00:00.000000Z', 'A', 3, 'a3')");
+            drainWalQueue();
+
+            compile("insert into t values " +
+                    "('2022-02-24T00:00:00.000000Z', 'A', 10, 'a10'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'B', 20, 'b20'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'C', 21, 'c21')");
+            drainWalQueue();
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tx\ts\n" +
+                            "2022-02-24T00:00:00.000000Z\tA\t10\ta10\n" +
+                            "2022-02-24T01:00:00.000000Z\tB\t20\tb20\n" +
+                            "2022-02-24T01:00:00.000000Z\tC\t21\tc21\n" +
+                            "2022-02-25T00:00:00.000000Z\tA\t3\ta3\n"
+            );
+            assertSql(
+                    "select count() from t",
+                    "count\n" +
+                            "4\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupCreateTableAsSelect() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table t as (" +
+                    "select timestamp_sequence('2022-02-24', 3600000000L) ts, cast('A' as symbol) sym, x from long_sequence(3)" +
+                    ") timestamp(ts) partition by DAY WAL dedup upsert keys(ts, sym)");
+            drainWalQueue();
+
+            compile("insert into t values ('2022-02-24T01:00:00.000000Z', 'A', 42)");
+            drainWalQueue();
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tx\n" +
+                            "2022-02-24T00:00:00.000000Z\tA\t1\n" +
+                            "2022-02-24T01:00:00.000000Z\tA\t42\n" +
+                            "2022-02-24T02:00:00.000000Z\tA\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupInOrderTransaction() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            compile("insert into t values " +
+                    "('2022-02-24T00:00:00.000000Z', 'A', 1, 'first'), " +
+                    "('2022-02-24T00:00:00.000000Z', 'A', 2, 'second'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'A', 3, 'third')");
+            drainWalQueue();
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tx\ts\n" +
+                            "2022-02-24T00:00:00.000000Z\tA\t2\tsecond\n" +
+                            "2022-02-24T01:00:00.000000Z\tA\t3\tthird\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupLongTimestampRuns() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            // 50 rows per timestamp with 2 distinct symbols each, runs are long enough to be hashed
+            compile("insert into t select" +
+                    " cast('2022-02-24' as timestamp) + (x % 10) * 1000000L," +
+                    " cast(x % 20 as symbol)," +
+                    " x::int," +
+                    " 's' || x" +
+                    " from long_sequence(500)");
+            drainWalQueue();
+            assertSql(
+                    "select count(), max(x) from t",
+                    "count\tmax\n" +
+                            "20\t500\n"
+            );
+
+            compile("insert into t select" +
+                    " cast('2022-02-24' as timestamp) + (x % 10) * 1000000L," +
+                    " cast(x % 40 as symbol)," +
+                    " (1000 + x)::int," +
+                    " 'n' || x" +
+                    " from long_sequence(400)");
+            drainWalQueue();
+            assertSql(
+                    "select count(), min(x), max(x) from t",
+                    "count\tmin\tmax\n" +
+                            "40\t1361\t1400\n"
+            );
+            assertSql(
+                    "select count() from (select distinct ts, sym from t)",
+                    "count\n" +
+                            "40\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupOutOfOrderTransaction() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            compile("insert into t values " +
+                    "('2022-02-24T01:00:00.000000Z', 'A', 1, 'a1'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'B', 2, 'b2'), " +
+                    "('2022-02-24T01:00:00.000000Z', 'A', 3, 'a3'), " +
+                    "('2022-02-24T00:00:00.000000Z', 'A', 4, 'a4')");
+            drainWalQueue();
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tx\ts\n" +
+                            "2022-02-24T00:00:00.000000Z\tA\t4\ta4\n" +
+                            "2022-02-24T01:00:00.000000Z\tB\t2\tb2\n" +
+                            "2022-02-24T01:00:00.000000Z\tA\t3\ta3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupRequiresDesignatedTimestamp() throws Exception {
+        final String ddl = "create table t (ts timestamp, sym symbol) timestamp(ts) partition by DAY WAL dedup upsert keys(sym)";
+        assertFailure(ddl, null, ddl.indexOf("dedup"), "deduplication key list must include the designated timestamp column");
+    }
+
+    @Test
+    public void testDedupRequiresFixedSizeKeys() throws Exception {
+        final String ddl = "create table t (ts timestamp, s string) timestamp(ts) partition by DAY WAL dedup upsert keys(ts, s)";
+        assertFailure(ddl, null, ddl.lastIndexOf('s'), "deduplication key column must be of a fixed size type [column=s, type=STRING]");
+    }
+
+    @Test
+    public void testDedupRequiresWal() throws Exception {
+        final String ddl = "create table t (ts timestamp, sym symbol) timestamp(ts) partition by DAY BYPASS WAL dedup upsert keys(ts, sym)";
+        assertFailure(ddl, null, ddl.indexOf("dedup"), "deduplication is possible only on WAL tables");
+    }
+
+    @Test
+    public void testDedupUnknownColumn() throws Exception {
+        final String ddl = "create table t (ts timestamp, sym symbol) timestamp(ts) partition by DAY WAL dedup upsert keys(ts, foo)";
+        assertFailure(ddl, null, ddl.indexOf("foo"), "Invalid column: foo");
+    }
+
+    private void createDedupTable() throws Exception {
+        compile("create table t (ts timestamp, sym symbol, x int, s string) timestamp(ts) partition by DAY WAL dedup upsert keys(ts, sym)");
+    }
+}
@@ -1288,6 +1288,41 @@ public class WalTableSqlTest extends AbstractGriffinTest {
         }
     }
 
+    @Test
+    public void testSquashOutOfOrderTransactionsAfterAlter() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            compile("create table " + tableName + " (x long, ts timestamp) timestamp(ts) partition by DAY WAL with maxUncommittedRows=1");
+            executeInsert("insert into " + tableName + " values (1, '2022-02-24T00')");
+            drainWalQueue();
+
+            final long txnBefore;
+            try (TableReader reader = getReader(tableName)) {
+                txnBefore = reader.getTxn();
+            }
+
+            executeInsert("insert into " + tableName + " values (2, '2022-02-24T10')");
+            compile("alter table " + tableName + " add column y int");
+            // every transaction overlaps with the data flushed before ALTER
+            executeInsert("insert into " + tableName + " values (3, '2022-02-24T05', 3)");
+            executeInsert("insert into " + tableName + " values (4, '2022-02-24T06', 4)");
+            executeInsert("insert into " + tableName + " values (5, '2022-02-24T07', 5)");
+            drainWalQueue();
+
+            assertSql(tableName, "x\tts\ty\n" +
+                    "1\t2022-02-24T00:00:00.000000Z\tNaN\n" +
+                    "3\t2022-02-24T05:00:00.000000Z\t3\n" +
+                    "4\t2022-02-24T06:00:00.000000Z\t4\n" +
+                    "5\t2022-02-24T07:00:00.000000Z\t5\n" +
+                    "2\t2022-02-24T10:00:00.000000Z\tNaN\n");
+
+            try (TableReader reader = getReader(tableName)) {
+                // insert before ALTER, ALTER and a single merge of the 3 squashed transactions
+                Assert.assertEquals(txnBefore + 3, reader.getTxn());
+            }
+        });
+    }
+
     @Test
     public void testVarSizeColumnBeforeInsertCommit() throws Exception {
         assertMemoryLeak(() -> {
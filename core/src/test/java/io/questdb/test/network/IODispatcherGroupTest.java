@@ -0,0 +1,271 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.network;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.WorkerPool;
+import io.questdb.network.*;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import io.questdb.test.mp.TestWorkerPool;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
+
+public class IODispatcherGroupTest {
+    private static final IORequestProcessor<EchoContext> ECHO_PROCESSOR = (operation, context) -> {
+        context.echo();
+        context.getDispatcher().registerChannel(context, IOOperation.READ);
+        return true;
+    };
+    private static final Log LOG = LogFactory.getLog(IODispatcherGroupTest.class);
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64);
+    }
+
+    @Test
+    public void testConcurrentConnectionsWithWorkerPool() throws Exception {
+        LOG.info().$("started testConcurrentConnectionsWithWorkerPool").$();
+        final int dispatcherCount = 4;
+        final int workerCount = 4;
+        final int clientCount = 16;
+        final int roundTrips = 200;
+        assertMemoryLeak(() -> {
+            try (IODispatcher<EchoContext> dispatcher = createDispatcher(dispatcherCount, clientCount)) {
+                final WorkerPool pool = new TestWorkerPool(workerCount);
+                // wire the group the same way network servers do: dispatchers are pinned
+                // to workers, while every worker processes the shared IO queue
+                IODispatchers.assign(pool, dispatcher);
+                for (int i = 0; i < workerCount; i++) {
+                    pool.assign(i, (workerId, runStatus) -> dispatcher.processIOQueue(ECHO_PROCESSOR));
+                }
+                pool.start(LOG);
+
+                final CyclicBarrier barrier = new CyclicBarrier(clientCount);
+                final SOCountDownLatch doneLatch = new SOCountDownLatch(clientCount);
+                final AtomicInteger errors = new AtomicInteger();
+                try {
+                    for (int c = 0; c < clientCount; c++) {
+                        new Thread(() -> {
+                            final long buf = Unsafe.malloc(1, MemoryTag.NATIVE_DEFAULT);
+                            final long sockAddr = Net.sockaddr("127.0.0.1", dispatcher.getPort());
+                            final int fd = Net.socketTcp(true);
+                            try {
+                                barrier.await();
+                                Assert.assertEquals(0, Net.connect(fd, sockAddr));
+                                for (int i = 0; i < roundTrips; i++) {
+                                    Unsafe.getUnsafe().putByte(buf, (byte) i);
+                                    Assert.assertEquals(1, Net.send(fd, buf, 1));
+                                    Unsafe.getUnsafe().putByte(buf, (byte) (i + 1));
+                                    Assert.assertEquals(1, Net.recv(fd, buf, 1));
+                                    Assert.assertEquals((byte) i, Unsafe.getUnsafe().getByte(buf));
+                                }
+                            } catch (Throwable th) {
+                                LOG.error().$("client failed [error=").$(th).I$();
+                                errors.incrementAndGet();
+                            } finally {
+                                Net.close(fd);
+                                Net.freeSockAddr(sockAddr);
+                                Unsafe.free(buf, 1, MemoryTag.NATIVE_DEFAULT);
+                                doneLatch.countDown();
+                            }
+                        }).start();
+                    }
+                    doneLatch.await();
+                } finally {
+                    pool.halt();
+                }
+                Assert.assertEquals(0, errors.get());
+            }
+        });
+    }
+
+    @Test
+    public void testConnectionsAreSpreadBetweenDispatchers() throws Exception {
+        LOG.info().$("started testConnectionsAreSpreadBetweenDispatchers").$();
+        final int dispatcherCount = 4;
+        final int connections = 64;
+        assertMemoryLeak(() -> {
+            try (IODispatcher<EchoContext> dispatcher = createDispatcher(dispatcherCount, connections)) {
+                final IODispatcherGroup<EchoContext> group = (IODispatcherGroup<EchoContext>) dispatcher;
+                for (int i = 0; i < dispatcherCount; i++) {
+                    Assert.assertEquals(dispatcher.getPort(), group.getDispatcher(i).getPort());
+                }
+
+                final int[] fds = new int[connections];
+                final long buf = Unsafe.malloc(1, MemoryTag.NATIVE_DEFAULT);
+                final long sockAddr = Net.sockaddr("127.0.0.1", dispatcher.getPort());
+                try {
+                    for (int i = 0; i < connections; i++) {
+                        fds[i] = Net.socketTcp(true);
+                        Assert.assertEquals(0, Net.connect(fds[i], sockAddr));
+                        Net.configureNonBlocking(fds[i]);
+                        dispatcher.run(0);
+                    }
+                    while (dispatcher.getConnectionCount() < connections) {
+                        dispatcher.run(0);
+                    }
+
+                    int busyDispatchers = 0;
+                    for (int i = 0; i < dispatcherCount; i++) {
+                        if (group.getDispatcher(i).getConnectionCount() > 0) {
+                            busyDispatchers++;
+                        }
+                    }
+                    Assert.assertTrue(busyDispatchers > 1);
+
+                    for (int i = 0; i < connections; i++) {
+                        Unsafe.getUnsafe().putByte(buf, (byte) i);
+                        Assert.assertEquals(1, Net.send(fds[i], buf, 1));
+                        int n;
+                        while ((n = Net.recv(fds[i], buf, 1)) == Net.ERETRY) {
+                            dispatcher.run(0);
+                            dispatcher.processIOQueue(ECHO_PROCESSOR);
+                        }
+                        Assert.assertEquals(1, n);
+                        Assert.assertEquals((byte) i, Unsafe.getUnsafe().getByte(buf));
+                    }
+                } finally {
+                    for (int fd : fds) {
+                        if (fd > 0) {
+                            Net.close(fd);
+                        }
+                    }
+                    Net.freeSockAddr(sockAddr);
+                    Unsafe.free(buf, 1, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testProcessIOQueueVisitsAllDispatchers() throws Exception {
+        LOG.info().$("started testProcessIOQueueVisitsAllDispatchers").$();
+        final int dispatcherCount = 4;
+        final int connections = 32;
+        assertMemoryLeak(() -> {
+            try (IODispatcher<EchoContext> dispatcher = createDispatcher(dispatcherCount, connections)) {
+                final int[] fds = new int[connections];
+                final long buf = Unsafe.malloc(1, MemoryTag.NATIVE_DEFAULT);
+                final long sockAddr = Net.sockaddr("127.0.0.1", dispatcher.getPort());
+                try {
+                    for (int i = 0; i < connections; i++) {
+                        fds[i] = Net.socketTcp(true);
+                        Assert.assertEquals(0, Net.connect(fds[i], sockAddr));
+                    }
+                    while (dispatcher.getConnectionCount() < connections) {
+                        dispatcher.run(0);
+                    }
+
+                    for (int i = 0; i < connections; i++) {
+                        Unsafe.getUnsafe().putByte(buf, (byte) i);
+                        Assert.assertEquals(1, Net.send(fds[i], buf, 1));
+                        // loopback delivers the byte synchronously, a few runs are enough for
+                        // the owning dispatcher to pick up the registration and publish the event
+                        for (int j = 0; j < 3; j++) {
+                            dispatcher.run(0);
+                        }
+                        // the single queued event must be found whichever queue is visited first
+                        Assert.assertTrue(dispatcher.processIOQueue(ECHO_PROCESSOR));
+                        Assert.assertFalse(dispatcher.processIOQueue(ECHO_PROCESSOR));
+                        Assert.assertEquals(1, Net.recv(fds[i], buf, 1));
+                        Assert.assertEquals((byte) i, Unsafe.getUnsafe().getByte(buf));
+                    }
+                } finally {
+                    for (int fd : fds) {
+                        if (fd > 0) {
+                            Net.close(fd);
+                        }
+                    }
+                    Net.freeSockAddr(sockAddr);
+                    Unsafe.free(buf, 1, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    private static IODispatcher<EchoContext> createDispatcher(int dispatcherCount, int connections) {
+        final IODispatcher<EchoContext> dispatcher = IODispatchers.create(
+                new DefaultIODispatcherConfiguration() {
+                    @Override
+                    public int getBindPort() {
+                        return 0;
+                    }
+
+                    @Override
+                    public int getDispatcherCount() {
+                        return dispatcherCount;
+                    }
+
+                    @Override
+                    public int getLimit() {
+                        // the limit is split between the dispatchers, while the kernel
+                        // doesn't guarantee even distribution of the connections
+                        return connections * dispatcherCount;
+                    }
+                },
+                EchoContext::new
+        );
+        Assert.assertTrue(dispatcher instanceof IODispatcherGroup);
+        Assert.assertEquals(dispatcherCount, ((IODispatcherGroup<EchoContext>) dispatcher).getDispatcherCount());
+        return dispatcher;
+    }
+
+    private static class EchoContext extends IOContext<EchoContext> {
+        private final long buffer = Unsafe.malloc(1, MemoryTag.NATIVE_DEFAULT);
+
+        private EchoContext(int fd, IODispatcher<EchoContext> dispatcher) {
+            this.fd = fd;
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        public void close() {
+            Unsafe.free(buffer, 1, MemoryTag.NATIVE_DEFAULT);
+        }
+
+        @Override
+        public boolean invalid() {
+            return false;
+        }
+
+        private void echo() {
+            if (Net.recv(fd, buffer, 1) == 1) {
+                Net.send(fd, buffer, 1);
+            }
+        }
+    }
+}
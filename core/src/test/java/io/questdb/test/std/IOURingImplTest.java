@@ -25,6 +25,7 @@
 package io.questdb.test.std;
 
 import io.questdb.cairo.CairoException;
+import io.questdb.network.Net;
 import io.questdb.std.*;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.Path;
@@ -135,6 +136,111 @@ public class IOURingImplTest {
         });
     }
 
+    @Test
+    public void testRecvSendWithProvidedBuffers() throws Exception {
+        Assume.assumeTrue(rf.isAvailable());
+
+        TestUtils.assertMemoryLeak(() -> {
+            final int bufSize = 64;
+            final String txt = "io_uring recv and send";
+            final int txtLen = txt.length();
+            final int acceptFd = Net.socketTcp(true);
+            Assert.assertTrue(Net.bindTcp(acceptFd, 0, 0));
+            Net.listen(acceptFd, 1);
+            final long sockAddr = Net.sockaddr("127.0.0.1", Net.resolvePort(acceptFd));
+            final int clientFd = Net.socketTcp(true);
+            final long bufs = Unsafe.malloc(bufSize, MemoryTag.NATIVE_DEFAULT);
+            final long msg = Unsafe.malloc(txtLen, MemoryTag.NATIVE_DEFAULT);
+            int serverFd = -1;
+            try (IOURing ring = rf.newInstance(8)) {
+                TestUtils.assertConnect(clientFd, sockAddr);
+                serverFd = Net.accept(acceptFd);
+                Assert.assertTrue(serverFd > -1);
+                for (int i = 0; i < txtLen; i++) {
+                    Unsafe.getUnsafe().putByte(msg + i, (byte) txt.charAt(i));
+                }
+
+                // a single buffer in the group
+                Assert.assertEquals(1, ring.enqueueProvideBuffers(1, bufs, bufSize, 1, 0, 0));
+                Assert.assertEquals(1, ring.submitAndWait());
+                Assert.assertTrue(ring.nextCqe());
+                Assert.assertEquals(1, ring.getCqeId());
+                Assert.assertTrue(ring.getCqeRes() > -1);
+
+                Assert.assertEquals(2, ring.enqueueRecv(2, serverFd, bufSize, 0));
+                Assert.assertEquals(3, ring.enqueueSend(3, clientFd, msg, txtLen, 0));
+                Assert.assertEquals(2, ring.submit());
+                for (int i = 0; i < 2; i++) {
+                    while (!ring.nextCqe()) {
+                        Os.pause();
+                    }
+                    Assert.assertEquals(txtLen, ring.getCqeRes());
+                    if (ring.getCqeId() == 2) {
+                        // buffer 0 has been picked
+                        Assert.assertEquals(1, ring.getCqeFlags());
+                    } else {
+                        Assert.assertEquals(3, ring.getCqeId());
+                    }
+                }
+                DirectByteCharSequence txtInBuf = new DirectByteCharSequence().of(bufs, bufs + txtLen);
+                TestUtils.assertEquals(txt, txtInBuf);
+
+                // the group is empty now
+                Assert.assertEquals(txtLen, Net.send(clientFd, msg, txtLen));
+                Assert.assertEquals(4, ring.enqueueRecv(4, serverFd, bufSize, 0));
+                Assert.assertEquals(1, ring.submitAndWait());
+                Assert.assertTrue(ring.nextCqe());
+                Assert.assertEquals(4, ring.getCqeId());
+                Assert.assertEquals(-105, ring.getCqeRes());
+
+                // once the buffer is back, recv picks it again
+                Assert.assertEquals(5, ring.enqueueProvideBuffers(5, bufs, bufSize, 1, 0, 0));
+                Assert.assertEquals(6, ring.enqueueRecv(6, serverFd, bufSize, 0));
+                Assert.assertEquals(2, ring.submit());
+                for (int i = 0; i < 2; i++) {
+                    while (!ring.nextCqe()) {
+                        Os.pause();
+                    }
+                    if (ring.getCqeId() == 6) {
+                        Assert.assertEquals(txtLen, ring.getCqeRes());
+                        Assert.assertEquals(1, ring.getCqeFlags());
+                    } else {
+                        Assert.assertEquals(5, ring.getCqeId());
+                    }
+                }
+                TestUtils.assertEquals(txt, txtInBuf);
+
+                // recv without data in the socket stays in flight until cancelled
+                Assert.assertEquals(7, ring.enqueueProvideBuffers(7, bufs, bufSize, 1, 0, 0));
+                Assert.assertEquals(8, ring.enqueueRecv(8, serverFd, bufSize, 0));
+                Assert.assertEquals(2, ring.submit());
+                Assert.assertEquals(9, ring.enqueueCancel(9, 8));
+                Assert.assertEquals(1, ring.submit());
+                boolean cancelled = false;
+                for (int i = 0; i < 3; i++) {
+                    while (!ring.nextCqe()) {
+                        Os.pause();
+                    }
+                    if (ring.getCqeId() == 8) {
+                        Assert.assertEquals(-125, ring.getCqeRes());
+                        Assert.assertEquals(0, ring.getCqeFlags());
+                        cancelled = true;
+                    }
+                }
+                Assert.assertTrue(cancelled);
+            } finally {
+                Net.close(clientFd);
+                if (serverFd > -1) {
+                    Net.close(serverFd);
+                }
+                Net.close(acceptFd);
+                Net.freeSockAddr(sockAddr);
+                Unsafe.free(bufs, bufSize, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(msg, txtLen, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
     @Test
     public void testSqOverflow() throws Exception {
         Assume.assumeTrue(rf.isAvailable());
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.std;
+
+import io.questdb.std.ObjObjHashMap;
+import io.questdb.std.Rnd;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ObjObjHashMapTest {
+
+    @Test
+    public void testRemove() {
+        Rnd rnd = new Rnd();
+        for (int i = 0; i < 1_000; i++) {
+            final ObjObjHashMap<Key, Integer> map = new ObjObjHashMap<>(8);
+            // keys of the same hash collide and are probed into neighbour slots
+            final int n = 12;
+            for (int k = 0; k < n; k++) {
+                map.put(new Key(k, k % 3), k);
+            }
+
+            final int removed = rnd.nextInt(n);
+            Assert.assertEquals(removed, (int) map.remove(new Key(removed, removed % 3)));
+            Assert.assertNull(map.remove(new Key(removed, removed % 3)));
+            Assert.assertEquals(n - 1, map.size());
+            for (int k = 0; k < n; k++) {
+                if (k == removed) {
+                    Assert.assertNull(map.get(new Key(k, k % 3)));
+                } else {
+                    Assert.assertEquals(k, (int) map.get(new Key(k, k % 3)));
+                }
+            }
+
+            map.put(new Key(removed, removed % 3), -removed);
+            Assert.assertEquals(n, map.size());
+            Assert.assertEquals(-removed, (int) map.get(new Key(removed, removed % 3)));
+        }
+    }
+
+    private static class Key {
+        private final int hash;
+        private final int id;
+
+        private Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
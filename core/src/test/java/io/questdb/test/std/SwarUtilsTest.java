@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.std;
+
+import io.questdb.std.Rnd;
+import io.questdb.std.SwarUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SwarUtilsTest {
+
+    @Test
+    public void testIndexOfFirstMarkedByte() {
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals(i, SwarUtils.indexOfFirstMarkedByte(0x80L << (i << 3)));
+            // higher marks must not affect the result
+            Assert.assertEquals(i, SwarUtils.indexOfFirstMarkedByte((0x80L << (i << 3)) | 0x8000000000000000L));
+        }
+    }
+
+    @Test
+    public void testMarkByteFuzz() {
+        final Rnd rnd = new Rnd();
+        final byte[] bytes = new byte[8];
+        for (int i = 0; i < 100_000; i++) {
+            long word = 0;
+            for (int j = 0; j < 8; j++) {
+                // favour a small alphabet to get plenty of matches and borrows
+                bytes[j] = (byte) (rnd.nextBoolean() ? rnd.nextInt(4) : rnd.nextInt());
+                word |= (bytes[j] & 0xffL) << (j << 3);
+            }
+            final byte pattern = (byte) rnd.nextInt(4);
+            final long mask = SwarUtils.markByte(word, SwarUtils.broadcast(pattern));
+            int expected = -1;
+            for (int j = 0; j < 8; j++) {
+                if (bytes[j] == pattern) {
+                    expected = j;
+                    break;
+                }
+            }
+            if (expected == -1) {
+                Assert.assertEquals(0, mask);
+            } else {
+                Assert.assertEquals(expected, SwarUtils.indexOfFirstMarkedByte(mask));
+            }
+        }
+    }
+
+    @Test
+    public void testMarkNonAscii() {
+        Assert.assertEquals(0, SwarUtils.markNonAscii(0x7f7f7f7f7f7f7f7fL));
+        Assert.assertEquals(3, SwarUtils.indexOfFirstMarkedByte(SwarUtils.markNonAscii(0x41414141c3414141L)));
+    }
+
+    @Test
+    public void testMarkZeroBytes() {
+        Assert.assertEquals(0, SwarUtils.markZeroBytes(0x0101010101010101L));
+        Assert.assertEquals(0, SwarUtils.markZeroBytes(0x8080808080808080L));
+        Assert.assertEquals(0, SwarUtils.indexOfFirstMarkedByte(SwarUtils.markZeroBytes(0x0101010101010100L)));
+        Assert.assertEquals(7, SwarUtils.indexOfFirstMarkedByte(SwarUtils.markZeroBytes(0x00ffffffffffffffL)));
+    }
+}